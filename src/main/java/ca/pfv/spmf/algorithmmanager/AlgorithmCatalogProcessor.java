@@ -0,0 +1,189 @@
+package ca.pfv.spmf.algorithmmanager;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import com.sun.source.tree.*;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An annotation processor that generates the catalog of algorithms of SPMF when the
+ * project is compiled. It looks at the classes of the package of descriptions, and for each
+ * non abstract class that extends DescriptionOfAlgorithm, it writes a line in the catalog
+ * with the name of the class, the name of the algorithm and its category. The name and
+ * category are the String values returned by the methods getName() and getAlgorithmCategory()
+ * of the description. If a method does not simply return a String, the value is left empty, and
+ * the AlgorithmManager will create the description to obtain it.
+ * <br/><br/>
+ * The catalog is written to the file CATALOG_PATH of the output directory.
+ * It allows the AlgorithmManager to create only the description of the algorithm
+ * that is requested, instead of loading all the descriptions when SPMF starts.
+ * <br/><br/>
+ * This processor is compiled before the other classes and then used to compile them
+ * (see the pom.xml file).
+ *
+ * @author Philippe Fournier-Viger
+ * @see AlgorithmManager
+ */
+@SupportedAnnotationTypes("*")
+public class AlgorithmCatalogProcessor extends AbstractProcessor {
+
+    /**
+     * the path of the catalog in the output directory (or jar file)
+     */
+    public static final String CATALOG_PATH = "ca/pfv/spmf/algorithmmanager/algorithms.catalog";
+
+    /**
+     * the name of the class of the descriptions (this processor does not load it)
+     */
+    private static final String DESCRIPTION_CLASS = "ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm";
+
+    /**
+     * the package of the descriptions of algorithms
+     */
+    private static final String DESCRIPTIONS_PACKAGE = "ca.pfv.spmf.algorithmmanager.descriptions";
+
+    /**
+     * the lines of the catalog (key: class name, value: line)
+     */
+    private final Map<String, String> catalog = new TreeMap<String, String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!catalog.isEmpty()) {
+                writeCatalog();
+            }
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element.getKind() == ElementKind.CLASS && isDescriptionOfAlgorithm((TypeElement) element)) {
+                TypeElement type = (TypeElement) element;
+                String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+                String name = getReturnedString(type, "getName");
+                String category = getReturnedString(type, "getAlgorithmCategory");
+                catalog.put(className, className + '\t' + name + '\t' + category);
+            }
+        }
+        // the other processors can also process the annotations
+        return false;
+    }
+
+    /**
+     * Check if a class is a description of algorithm that can be created (a public and non abstract
+     * class of the package of descriptions that directly extends DescriptionOfAlgorithm).
+     *
+     * @param type the class
+     * @return true if yes
+     */
+    private boolean isDescriptionOfAlgorithm(TypeElement type) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        if (!packageElement.getQualifiedName().contentEquals(DESCRIPTIONS_PACKAGE)) {
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getModifiers().contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        TypeMirror superclass = type.getSuperclass();
+        if (!(superclass instanceof DeclaredType)) {
+            return false;
+        }
+        Element superElement = ((DeclaredType) superclass).asElement();
+        return ((TypeElement) superElement).getQualifiedName().contentEquals(DESCRIPTION_CLASS);
+    }
+
+    /**
+     * Get the String returned by a method without parameters of a class, if the method is
+     * declared in that class and its body is a single statement returning a String literal.
+     *
+     * @param type       the class
+     * @param methodName the name of the method
+     * @return the String or an empty String if it cannot be found
+     */
+    private String getReturnedString(TypeElement type, String methodName) {
+        Trees trees;
+        try {
+            trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            // not the javac compiler
+            return "";
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.METHOD && member.getSimpleName().contentEquals(methodName)
+                && ((ExecutableElement) member).getParameters().isEmpty()) {
+                MethodTree method = trees.getTree((ExecutableElement) member);
+                if (method == null || method.getBody() == null || method.getBody().getStatements().size() != 1) {
+                    return "";
+                }
+                StatementTree statement = method.getBody().getStatements().get(0);
+                if (statement instanceof ReturnTree) {
+                    ExpressionTree expression = ((ReturnTree) statement).getExpression();
+                    if (expression instanceof LiteralTree && ((LiteralTree) expression).getValue() instanceof String) {
+                        String value = (String) ((LiteralTree) expression).getValue();
+                        // the catalog uses tabs and lines as separators
+                        if (value.indexOf('\t') < 0 && value.indexOf('\n') < 0) {
+                            return value;
+                        }
+                    }
+                }
+                return "";
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Write the catalog to the output directory
+     */
+    private void writeCatalog() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", CATALOG_PATH);
+            try (Writer writer = file.openWriter()) {
+                writer.write("# Catalog of the algorithms of SPMF generated by AlgorithmCatalogProcessor\n");
+                writer.write("# class name <TAB> algorithm name <TAB> category\n");
+                for (String line : catalog.values()) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                                                     "The catalog of algorithms could not be written: " + e.getMessage());
+        }
+    }
+}
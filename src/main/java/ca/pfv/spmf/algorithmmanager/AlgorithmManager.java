@@ -1,6 +1,9 @@
 package ca.pfv.spmf.algorithmmanager;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLDecoder;
@@ -28,9 +31,19 @@ import java.util.jar.JarFile;
 
 /**
  * This class is used to load the list of all available algorithms available in SPMF.
+ * <br/><br/>
+ * The descriptions of algorithms are listed in a catalog that is generated when SPMF is compiled
+ * (see AlgorithmCatalogProcessor). When the description of a given algorithm is requested,
+ * only that description is created. All the descriptions are only loaded when the list of
+ * algorithms is requested (e.g. by the user interface). If there is no catalog (e.g. if SPMF
+ * was compiled without the annotation processor), the descriptions are found by scanning the
+ * classes of the package of descriptions, as in previous versions. If the catalog exists, the
+ * names of the classes of this package are compared with the catalog, and the classes missing
+ * from the catalog are loaded (the catalog may be incomplete after an incremental compilation).
  *
  * @author Philippe Fournier-Viger 2016
  * @see DescriptionOfAlgorithm
+ * @see AlgorithmCatalogProcessor
  */
 
 public class AlgorithmManager {
@@ -40,9 +53,29 @@ public class AlgorithmManager {
      **/
     static AlgorithmManager instance = null;
     /**
-     * List of algorithms available in SPMF
+     * the package of the descriptions of algorithms
      */
-    List<DescriptionOfAlgorithm> algorithms;
+    private static final String DESCRIPTIONS_PACKAGE = "ca.pfv.spmf.algorithmmanager.descriptions.";
+    /**
+     * List of algorithms available in SPMF (null until all the descriptions are loaded)
+     */
+    List<DescriptionOfAlgorithm> algorithms = null;
+    /**
+     * The catalog of algorithms (key: name of an algorithm, value: class name of its description)
+     */
+    private final Map<String, String> catalog = new HashMap<String, String>();
+    /**
+     * The classes of the catalog for which the name of the algorithm is not in the catalog
+     */
+    private final List<String> catalogClassesWithoutName = new ArrayList<String>();
+    /**
+     * The classes of the catalog
+     */
+    private final List<String> catalogClasses = new ArrayList<String>();
+    /**
+     * The descriptions that have been created until now (key: name of an algorithm)
+     */
+    private final Map<String, DescriptionOfAlgorithm> mapNameToDescription = new HashMap<String, DescriptionOfAlgorithm>();
 
     /**
      * Default Constructor
@@ -50,8 +83,117 @@ public class AlgorithmManager {
      * @throws Exception
      */
     private AlgorithmManager() throws Exception {
-        // Load all algorithms in the package "ca.pfv.spmf.algorithms.description."
-        algorithms = getDescriptionOfAlgorithmsInPackage("ca.pfv.spmf.algorithmmanager.descriptions.");
+        // Read the catalog(s) of algorithms
+        loadCatalog();
+
+        // If there is no catalog, we load all algorithms in the package "ca.pfv.spmf.algorithms.description."
+        if (catalogClasses.isEmpty()) {
+            setAlgorithms(getDescriptionOfAlgorithmsInPackage(DESCRIPTIONS_PACKAGE));
+        } else {
+            addClassesMissingFromCatalog();
+        }
+    }
+
+    /**
+     * Add the descriptions of algorithms that are not in the catalog. The catalog may be incomplete
+     * if SPMF was compiled incrementally (e.g. by an IDE), since the annotation processor only lists
+     * the classes that it compiles. The class names of the package of descriptions are compared with
+     * the catalog, and only the classes that are missing from the catalog are loaded.
+     *
+     * @throws Exception if an error occurs while looking for the descriptions of algorithms
+     */
+    private void addClassesMissingFromCatalog() throws Exception {
+        for (String className : getClassNamesInPackage(DESCRIPTIONS_PACKAGE)) {
+            // the inner classes are not descriptions
+            if (className.indexOf('$') >= 0 || catalogClasses.contains(className)) {
+                continue;
+            }
+            DescriptionOfAlgorithm description = createDescriptionIfAny(className);
+            if (description != null) {
+                catalogClasses.add(className);
+                catalog.put(description.getName(), className);
+                mapNameToDescription.put(description.getName(), description);
+            }
+        }
+    }
+
+    /**
+     * Read the catalogs of algorithms found in the class path (there may be one in each jar file).
+     *
+     * @throws IOException if error while reading a catalog
+     */
+    private void loadCatalog() throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Enumeration<URL> urls = classLoader.getResources(AlgorithmCatalogProcessor.CATALOG_PATH);
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty() || line.charAt(0) == '#') {
+                        continue;
+                    }
+                    // class name <TAB> algorithm name <TAB> category
+                    String[] columns = line.split("\t", -1);
+                    String className = columns[0];
+                    if (catalogClasses.contains(className)) {
+                        continue;
+                    }
+                    catalogClasses.add(className);
+                    if (columns.length > 1 && !columns[1].isEmpty()) {
+                        catalog.put(columns[1], className);
+                    } else {
+                        catalogClassesWithoutName.add(className);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the description of an algorithm
+     *
+     * @param className the class name of the description
+     * @return the description
+     * @throws ReflectiveOperationException if the description cannot be created
+     */
+    private static DescriptionOfAlgorithm createDescription(String className) throws ReflectiveOperationException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Class<?> theClass = Class.forName(className, true, classLoader);
+        return (DescriptionOfAlgorithm) theClass.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Get the list of the descriptions of all algorithms. The descriptions are created the first time
+     * that this method is called.
+     *
+     * @return the list of descriptions, sorted by category and then by name
+     */
+    private List<DescriptionOfAlgorithm> getAlgorithms() {
+        if (algorithms == null) {
+            List<DescriptionOfAlgorithm> list = new ArrayList<DescriptionOfAlgorithm>(catalogClasses.size());
+            for (String className : catalogClasses) {
+                try {
+                    list.add(createDescription(className));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("The description of algorithm " + className
+                                                    + " of the catalog cannot be created", e);
+                }
+            }
+            setAlgorithms(list);
+        }
+        return algorithms;
+    }
+
+    /**
+     * Set the list of the descriptions of all algorithms. The list is sorted by category and then
+     * by name.
+     *
+     * @param list the list of descriptions
+     */
+    private void setAlgorithms(List<DescriptionOfAlgorithm> list) {
+        algorithms = list;
 
         // Then we should load algorithms from Jar files in the same folder if required
         //....
@@ -83,7 +225,7 @@ public class AlgorithmManager {
      * @return An instance of AlgorithManager
      * @throws Exception if error occurs while initializing the instance
      */
-    public static AlgorithmManager getInstance() throws Exception {
+    public static synchronized AlgorithmManager getInstance() throws Exception {
         // if the instance is not created yet
         if (instance == null) {
             // we create it
@@ -94,10 +236,6 @@ public class AlgorithmManager {
 
     /**
      * Get the description of all algorithms in a given package name, from a jar or not
-     * Code was inspired from Stack Overflow:
-     * http://stackoverflow
-     * .com/questions/1456930/how-do-i-read-all-classes-from-
-     * a-java-package-in-the-classpath
      *
      * @param packageName the package name
      * @return A list of DescriptionOfAlgorithm objects, each describing an algorithm
@@ -105,44 +243,77 @@ public class AlgorithmManager {
      */
     private static List<DescriptionOfAlgorithm> getDescriptionOfAlgorithmsInPackage(String packageName)
             throws Exception {
+        ArrayList<DescriptionOfAlgorithm> classes = new ArrayList<DescriptionOfAlgorithm>();
+        for (String className : getClassNamesInPackage(packageName)) {
+            DescriptionOfAlgorithm description = createDescriptionIfAny(className);
+            if (description != null) {
+                classes.add(description);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Create the description of an algorithm, if a class is a description of an algorithm
+     *
+     * @param className the class name
+     * @return the description or null if the class is not a description of an algorithm
+     * @throws ReflectiveOperationException if the class cannot be loaded or created
+     */
+    private static DescriptionOfAlgorithm createDescriptionIfAny(String className) throws ReflectiveOperationException {
         ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Class<?> theClass = Class.forName(className, true, classLoader);
+        if (theClass.getSuperclass() != DescriptionOfAlgorithm.class) {
+            return null;
+        }
+        return (DescriptionOfAlgorithm) theClass.getDeclaredConstructor().newInstance();
+    }
 
-        ArrayList<DescriptionOfAlgorithm> classes = new ArrayList<DescriptionOfAlgorithm>();
+    /**
+     * Get the names of the classes in a given package name, from a jar or not (the classes are not loaded).
+     * Code was inspired from Stack Overflow:
+     * http://stackoverflow
+     * .com/questions/1456930/how-do-i-read-all-classes-from-
+     * a-java-package-in-the-classpath
+     *
+     * @param packageName the package name (ending with a dot)
+     * @return the class names
+     * @throws Exception if an error occurs while reading the content of the package
+     */
+    private static List<String> getClassNamesInPackage(String packageName) throws Exception {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+        List<String> classNames = new ArrayList<String>();
 
         String originalPackageName = packageName;
         packageName = packageName.replace(".", "/");
         URL packageURL = classLoader.getResource(packageName);
+        if (packageURL == null) {
+            return classNames;
+        }
 
         if (packageURL.getProtocol().equals("jar")) {
             String jarFileName;
-            JarFile jf;
             Enumeration<JarEntry> jarEntries;
             String entryName;
 
             // build jar file name, then loop through zipped entries
             jarFileName = URLDecoder.decode(packageURL.getFile(), StandardCharsets.UTF_8);
             jarFileName = jarFileName.substring(5, jarFileName.indexOf('!'));
-            System.out.println(">" + jarFileName);
-            jf = new JarFile(jarFileName);
-            jarEntries = jf.entries();
-            while (jarEntries.hasMoreElements()) {
-                entryName = jarEntries.nextElement().getName();
-                if (entryName.startsWith(packageName) && entryName.endsWith(".class")) {
-                    entryName = entryName.substring(packageName.length(),
-                            entryName.lastIndexOf('.'));
-                    // Get the class
-//					System.out.println("ENTRY NAME : " + entryName);
-//					System.out.println("PACKAGE NAME : " + packageName);
-//					System.out.println("PACKAGE URL : " + packageURL);
-//					System.out.println("ORIGINAL PACKAGE NAME : " + originalPackageName);
-                    Class theClass = Class.forName(originalPackageName + entryName);
-                    if (theClass.getSuperclass() == DescriptionOfAlgorithm.class) {
-                        DescriptionOfAlgorithm instance = (DescriptionOfAlgorithm) theClass.newInstance();
-                        classes.add(instance);
+            try (JarFile jf = new JarFile(jarFileName)) {
+                jarEntries = jf.entries();
+                while (jarEntries.hasMoreElements()) {
+                    entryName = jarEntries.nextElement().getName();
+                    if (entryName.startsWith(packageName) && entryName.endsWith(".class")) {
+                        entryName = entryName.substring(packageName.length(),
+                                entryName.lastIndexOf('.'));
+                        // the classes of sub-packages are ignored
+                        if (entryName.indexOf('/') < 0) {
+                            classNames.add(originalPackageName + entryName);
+                        }
                     }
                 }
             }
-            jf.close();
 
             // loop through files in classpath
         } else {
@@ -156,16 +327,11 @@ public class AlgorithmManager {
                 entryName = actual.getName();
                 if (entryName.endsWith(".class")) {
                     entryName = entryName.substring(0, entryName.lastIndexOf('.'));
-                    // Get the class
-                    Class theClass = Class.forName(originalPackageName + entryName);
-                    if (theClass.getSuperclass().equals(DescriptionOfAlgorithm.class)) {
-                        DescriptionOfAlgorithm instance = (DescriptionOfAlgorithm) theClass.newInstance();
-                        classes.add(instance);
-                    }
+                    classNames.add(originalPackageName + entryName);
                 }
             }
         }
-        return classes;
+        return classNames;
     }
 
     /**
@@ -177,7 +343,8 @@ public class AlgorithmManager {
      * @param includeExperiments include algorithms for running experiments
      * @return the list of algorithms as String
      */
-    public List<String> getListOfAlgorithmsAsString(boolean includeTools, boolean includeAlgorithms, boolean includeExperiments) {
+    public synchronized List<String> getListOfAlgorithmsAsString(boolean includeTools, boolean includeAlgorithms,
+                                                                 boolean includeExperiments) {
         // Create the list of String objects
         List<String> listOfNames = new ArrayList<String>();
 
@@ -185,7 +352,7 @@ public class AlgorithmManager {
         String previousCategory = null;
 
         // for each algorithm
-        for (DescriptionOfAlgorithm algorithm : algorithms) {
+        for (DescriptionOfAlgorithm algorithm : getAlgorithms()) {
             // if this algorithm is of type TOOLS
             if ("DATASET TOOLS".equals(algorithm.getAlgorithmCategory())) {
                 // if we don't want to include the tools, we skip it
@@ -219,13 +386,39 @@ public class AlgorithmManager {
     }
 
     /**
-     * Get the description of a specific algorithm
+     * Get the description of a specific algorithm. If the algorithm is in the catalog,
+     * only its description is created.
      *
      * @param algorithm the name of the algorithm
      * @return the description of the algorithm (a DescriptionOfAlgorithm object), or null if not found
      */
-    public DescriptionOfAlgorithm getDescriptionOfAlgorithm(String nameOfAlgorithm) {
-        for (DescriptionOfAlgorithm algorithm : algorithms) {
+    public synchronized DescriptionOfAlgorithm getDescriptionOfAlgorithm(String nameOfAlgorithm) {
+        // if the description was already created
+        DescriptionOfAlgorithm description = mapNameToDescription.get(nameOfAlgorithm);
+        if (description != null) {
+            return description;
+        }
+        // if all the descriptions are not loaded, we look in the catalog
+        if (algorithms == null) {
+            String className = catalog.get(nameOfAlgorithm);
+            if (className != null) {
+                try {
+                    description = createDescription(className);
+                    // check that the catalog is up to date
+                    if (description.getName().equals(nameOfAlgorithm)) {
+                        mapNameToDescription.put(nameOfAlgorithm, description);
+                        return description;
+                    }
+                } catch (ReflectiveOperationException e) {
+                    // the catalog is not up to date, all the descriptions will be loaded
+                }
+            }
+            // otherwise, we check the descriptions for which the name is not in the catalog
+            if (catalogClassesWithoutName.isEmpty() && !catalog.containsKey(nameOfAlgorithm)) {
+                return null;
+            }
+        }
+        for (DescriptionOfAlgorithm algorithm : getAlgorithms()) {
             // if this algorithm belong to a new category, we will add the category name to the list of algorithms
             if (algorithm.getName().equals(nameOfAlgorithm)) {
                 return algorithm;
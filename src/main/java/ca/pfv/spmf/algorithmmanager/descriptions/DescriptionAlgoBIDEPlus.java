@@ -53,6 +53,11 @@ public class DescriptionAlgoBIDEPlus extends DescriptionOfAlgorithm {
             algo.setShowSequenceIdentifiers(getParamAsBoolean(parameters[2]));
         }
 
+        // Get the optional heap budget (MB), above which the database is partitioned on disk
+        if (parameters.length >= 4 && !"".equals(parameters[3])) {
+            algo.setMemoryBudget(getParamAsInteger(parameters[3]));
+        }
+
         // Run the algorithm
         algo.runAlgorithm(inputFile, minsup, outputFile);
         algo.printStatistics();
@@ -61,10 +66,11 @@ public class DescriptionAlgoBIDEPlus extends DescriptionOfAlgorithm {
     @Override
     public DescriptionOfParameter[] getParametersDescription() {
 
-        DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
+        DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
         parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
         parameters[1] = new DescriptionOfParameter("Max pattern length", "", Integer.class, true);
         parameters[2] = new DescriptionOfParameter("Show sequence ids?", "(default: false)", Boolean.class, true);
+        parameters[3] = new DescriptionOfParameter("Heap budget (MB)", "(default: no budget)", Integer.class, true);
         return parameters;
     }
 
@@ -0,0 +1,87 @@
+package ca.pfv.spmf.algorithmmanager.descriptions;
+
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
+import ca.pfv.spmf.tools.dataset_converter.BinaryDatabaseConverter;
+
+import java.io.IOException;
+/* This file is copyright (c) 2008-2016 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This class describes the algorithm to convert a transaction database to the binary format of SPMF.
+ * It is designed to be used by the graphical and command line interface.
+ *
+ * @author Philippe Fournier-Viger
+ * @see BinaryDatabaseConverter
+ */
+public class DescriptionAlgoConvertTransactionDBToBinary extends DescriptionOfAlgorithm {
+
+    /**
+     * Default constructor
+     */
+    public DescriptionAlgoConvertTransactionDBToBinary() {
+    }
+
+    @Override
+    public String getName() {
+        return "Convert_transaction_database_to_binary_format";
+    }
+
+    @Override
+    public String getAlgorithmCategory() {
+        return "DATASET TOOLS";
+    }
+
+    @Override
+    public String getURLOfDocumentation() {
+        return "http://www.philippe-fournier-viger.com/spmf/index.php?link=documentation.php";
+    }
+
+    @Override
+    public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
+        long startTime = System.currentTimeMillis();
+        BinaryDatabaseConverter converter = new BinaryDatabaseConverter();
+        converter.convertTransactionDatabase(inputFile, outputFile);
+        long endTIme = System.currentTimeMillis();
+        System.out.println("Transaction database converted to binary format.  Time spent for conversion = "
+                           + (endTIme - startTime) + " ms.");
+    }
+
+    @Override
+    public DescriptionOfParameter[] getParametersDescription() {
+
+        DescriptionOfParameter[] parameters = new DescriptionOfParameter[0];
+        return parameters;
+    }
+
+    @Override
+    public String getImplementationAuthorNames() {
+        return "Philippe Fournier-Viger";
+    }
+
+    @Override
+    public String[] getInputFileTypes() {
+        return new String[] { "Database of instances", "Transaction database", "Simple transaction database" };
+    }
+
+    @Override
+    public String[] getOutputFileTypes() {
+        return new String[] { "Database of instances", "Transaction database", "Simple transaction database" };
+    }
+
+}
@@ -2,7 +2,6 @@ package ca.pfv.spmf.algorithmmanager.descriptions;
 
 import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
-import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.AlgoClaSP;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.AlgoSPAM_AGP;
 
 import java.io.IOException;
@@ -25,7 +24,8 @@ import java.io.IOException;
 
 /**
  * This class describes the SPAM algorithm parameters (version implemented
- * by Antonio G.P. which applies post-processing to find closed sequential patterns).
+ * by Antonio G.P. which only keeps the closed sequential patterns, checking
+ * the closedness of each pattern as soon as it is found).
  * It is designed to be used by the graphical and command line interface.
  *
  * @author Philippe Fournier-Viger
@@ -63,19 +63,21 @@ public class DescriptionAlgoSPAMPostprocessingClosed extends DescriptionOfAlgori
             outputSeqIdentifiers = getParamAsBoolean(parameters[1]);
         }
 
-        ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.AbstractionCreator abstractionCreator =
-                ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.AbstractionCreator_Qualitative
+        ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator abstractionCreator =
+                ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator_Qualitative
                         .getInstance();
-        ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.creators.IdListCreator idListCreator =
-                ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.creators.IdListCreatorStandard_Map
+        ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator idListCreator =
+                ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator_FatBitmap
                         .getInstance();
-        ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.database.SequenceDatabase sd =
-                new ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.database.SequenceDatabase(
+        ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase sd =
+                new ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase(
                         abstractionCreator, idListCreator);
 
-        double relativeMinSup = sd.loadFile(inputFile, minSupport);
+        sd.loadFile(inputFile, minSupport);
 
-        AlgoClaSP algo = new AlgoClaSP(relativeMinSup, abstractionCreator, true, false);
+        // the closed patterns are kept as soon as they are found, rather than by a post-processing step
+        AlgoSPAM_AGP algo = new AlgoSPAM_AGP(minSupport);
+        algo.setFindClosedPatterns(true);
 
         algo.runAlgorithm(sd, true, false, outputFile, outputSeqIdentifiers);
         System.out.println(algo.printStatistics());
@@ -18,6 +18,7 @@ package ca.pfv.spmf.algorithms.associationrules.TopKRules_and_TNR;
  */
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.bitmaps.LongBitSet;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.BufferedWriter;
@@ -167,6 +168,17 @@ public class AlgoTopKRules {
         // We will now try to generate rules with one item in the
         // antecedent and one item in the consequent using
         // frequent items.
+        // To check if two items appear together frequently, a copy of the
+        // bitset of each frequent item is made as a LongBitSet, because the
+        // support of the intersection of two LongBitSets can be calculated
+        // without creating a new bitset.
+        LongBitSet[] tableItemBits = new LongBitSet[database.maxItem + 1];
+        for (int item = 0; item <= database.maxItem; item++) {
+            if (tableItemCount[item] >= minsuppRelative) {
+                tableItemBits[item] = LongBitSet.valueOf(tableItemTids[item]);
+            }
+        }
+
 
         // for each item I in the database
         main:
@@ -190,17 +202,16 @@ public class AlgoTopKRules {
                 // Get the bitset corresponding to item J
                 BitSet tidsJ = tableItemTids[itemJ];
 
-                // Calculate the list of transaction IDs shared
-                // by I and J.
-                // To do that with a bitset, we just do a logical AND.
-                BitSet commonTids = (BitSet) tidsI.clone();
-                commonTids.and(tidsJ);
-                // We keep the cardinality of the new bitset because in java
-                // the cardinality() method is expensive, and we will need it again later.
-                int support = commonTids.cardinality();
+                // Calculate the number of transactions shared by I and J.
+                int support = tableItemBits[itemI].andCardinality(tableItemBits[itemJ]);
 
                 // If the rules I ==> J and J ==> I have enough support
                 if (support >= minsuppRelative) {
+                    // Calculate the list of transaction IDs shared
+                    // by I and J.
+                    // To do that with a bitset, we just do a logical AND.
+                    BitSet commonTids = (BitSet) tidsI.clone();
+                    commonTids.and(tidsJ);
                     // generate  rules I ==> J and J ==> I and remember these rules
                     // for future possible expansions
                     generateRuleSize11(itemI, tidsI, itemJ, tidsJ, commonTids,
@@ -107,7 +107,7 @@ public class Database {
             }
             // convert from string to integer
             Integer item = items.get(itemString);
-            if (item != null) {
+            if (item == null) {
                 item = Integer.parseInt(itemString);
                 items.put(itemString, item);
             }
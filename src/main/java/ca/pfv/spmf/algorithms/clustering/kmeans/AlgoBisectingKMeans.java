@@ -93,10 +93,11 @@ public class AlgoBisectingKMeans extends AlgoKMeans {
      * @param minValue         the min value
      * @param maxValue         the max value
      * @param vectorsSize      the vector size
+     * @throws IOException if the threads were interrupted
      */
     void applyAlgorithm(int k, DistanceFunction distanceFunction,
                         List<DoubleArray> vectors, double minValue, double maxValue,
-                        int vectorsSize) {
+                        int vectorsSize) throws IOException {
 
         clusters = new ArrayList<ClusterWithMean>();
 
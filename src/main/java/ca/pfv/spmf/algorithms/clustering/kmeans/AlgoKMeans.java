@@ -29,6 +29,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * An implementation of the K-means algorithm (J. MacQueen, 1967).
@@ -40,8 +42,15 @@ import java.util.Random;
  * nearest cluster center. 4) Recompute the new cluster centers. 5) Repeat the two
  * previous steps until some convergence criterion is met (usually that the
  * assignment hasn't changed).
+ * <br/><br/>
+ * <p>
+ * The iterations are done by a KMeansEngine, which avoids most distance calculations for the
+ * euclidian and manhattan distances, and can use several threads. Optionally, the initial cluster
+ * centers can be chosen with the k-means++ seeding instead of being random vectors, and the
+ * mini-batch K-Means algorithm can be used for very large inputs.
  *
  * @author Philippe Fournier-Viger
+ * @see KMeansEngine
  */
 
 public class AlgoKMeans {
@@ -56,6 +65,27 @@ public class AlgoKMeans {
     /* The distance function to be used for clustering */
     protected DistanceFunction distanceFunction = null;
     long iterationCount; // the number of iterations that was performed
+    long distanceCount; // the number of distances between a vector and a cluster center that were calculated
+    /**
+     * the number of threads used to assign the vectors to the clusters
+     */
+    private int threadCount = 1;
+    /**
+     * if true, the initial cluster centers are chosen with the k-means++ seeding
+     */
+    private boolean kMeansPlusPlusSeeding = false;
+    /**
+     * the number of vectors of a mini-batch (0 if the mini-batch K-Means algorithm is not used)
+     */
+    private int miniBatchSize = 0;
+    /**
+     * the number of iterations of the mini-batch K-Means algorithm
+     */
+    private int miniBatchIterations = 0;
+    /**
+     * the threads of the current execution, or null if only one thread is used
+     */
+    ExecutorService pool = null;
     /**
      * The names of the attributes
      **/
@@ -84,6 +114,7 @@ public class AlgoKMeans {
         startTimestamp = System.currentTimeMillis();
         // reset the number of iterations
         iterationCount = 0;
+        distanceCount = 0;
 
         this.distanceFunction = distanceFunction;
 
@@ -160,8 +191,18 @@ public class AlgoKMeans {
             k = instances.size();
         }
 
-        applyAlgorithm(k, distanceFunction, instances, minValue, maxValue,
-                vectorsSize);
+        if (threadCount > 1) {
+            pool = Executors.newFixedThreadPool(threadCount);
+        }
+        try {
+            applyAlgorithm(k, distanceFunction, instances, minValue, maxValue,
+                    vectorsSize);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
 
         // check memory usage
         MemoryLogger.getInstance().checkMemory();
@@ -182,10 +223,11 @@ public class AlgoKMeans {
      * @param minValue         the min value
      * @param maxValue         the max value
      * @param vectorsSize      the vector size
+     * @throws IOException if the threads were interrupted
      */
     void applyAlgorithm(int k, DistanceFunction distanceFunction,
                         List<DoubleArray> vectors, double minValue, double maxValue,
-                        int vectorsSize) {
+                        int vectorsSize) throws IOException {
         // apply kmeans
         clusters = applyKMeans(k, distanceFunction, vectors, minValue, maxValue, vectorsSize);
     }
@@ -199,10 +241,12 @@ public class AlgoKMeans {
      * @param minValue         the min value
      * @param maxValue         the max value
      * @param vectorsSize      the vector size
+     * @return the clusters
+     * @throws IOException if the threads were interrupted
      */
     List<ClusterWithMean> applyKMeans(int k, DistanceFunction distanceFunction,
                                       List<DoubleArray> vectors, double minValue, double maxValue,
-                                      int vectorsSize) {
+                                      int vectorsSize) throws IOException {
         List<ClusterWithMean> newClusters = new ArrayList<ClusterWithMean>();
 
         // SPECIAL CASE: If only one vector
@@ -215,73 +259,34 @@ public class AlgoKMeans {
             return newClusters;
         }
 
-        // (1) Randomly generate k empty clusters with a random mean (cluster
-        // center)
-        for (int i = 0; i < k; i++) {
-            DoubleArray meanVector = generateRandomVector(minValue, maxValue, vectorsSize);
-            ClusterWithMean cluster = new ClusterWithMean(vectorsSize);
-            cluster.setMean(meanVector);
-            newClusters.add(cluster);
-        }
-
-        // (2) Repeat the two next steps until the assignment hasn't changed
-        boolean changed;
-        while (true) {
-            iterationCount++;
-            changed = false;
-            // (2.1) Assign each point to the nearest cluster center.
-
-            // / for each vector
-            for (DoubleArray vector : vectors) {
-                // find the nearest cluster and the cluster containing the item
-                ClusterWithMean nearestCluster = null;
-                ClusterWithMean containingCluster = null;
-                double distanceToNearestCluster = Double.MAX_VALUE;
-
-                // for each cluster
-                for (ClusterWithMean cluster : newClusters) {
-                    // calculate the distance of the cluster mean to the vector
-                    double distance = distanceFunction.calculateDistance(cluster.getmean(), vector);
-                    // if it is the smallest distance until now, record this cluster
-                    // and the distance
-                    if (distance < distanceToNearestCluster) {
-                        nearestCluster = cluster;
-                        distanceToNearestCluster = distance;
-                    }
-                    // if the cluster contain the vector already,
-                    // remember that too!
-                    if (cluster.contains(vector)) {
-                        containingCluster = cluster;
-                    }
-                }
+        KMeansEngine engine = new KMeansEngine(vectors, vectorsSize, distanceFunction, pool, random);
 
-                // if the nearest cluster is not the cluster containing
-                // the vector
-                if (containingCluster != nearestCluster) {
-                    // remove the vector from the containing cluster
-                    if (containingCluster != null) {
-                        containingCluster.remove(vector);
-                    }
-                    // add the vector to the nearest cluster
-                    nearestCluster.addVector(vector);
-                    changed = true;
-                }
-            }
-
-            // check the memory usage
-            MemoryLogger.getInstance().checkMemory();
-
-            if (!changed) {     // exit condition for main loop
-                break;
+        // (1) Choose the k initial cluster centers
+        if (kMeansPlusPlusSeeding) {
+            engine.chooseInitialCentersKMeansPlusPlus(k);
+        } else {
+            // generate k random vectors
+            List<DoubleArray> meanVectors = new ArrayList<DoubleArray>(k);
+            for (int i = 0; i < k; i++) {
+                meanVectors.add(generateRandomVector(minValue, maxValue, vectorsSize));
             }
+            engine.setInitialCenters(meanVectors);
+        }
 
-            // (2.2) Recompute the new cluster means
-            for (ClusterWithMean cluster : newClusters) {
-                cluster.recomputeClusterMean();
-            }
+        // (2) Repeat the assignment of each vector to the nearest cluster center and the
+        // computation of the new cluster centers until the assignment hasn't changed
+        if (miniBatchSize > 0) {
+            engine.clusterWithMiniBatches(miniBatchSize, miniBatchIterations);
+        } else {
+            engine.cluster();
         }
+        iterationCount += engine.getIterationCount();
+        distanceCount += engine.getDistanceCount();
 
-        return newClusters;
+        // check the memory usage
+        MemoryLogger.getInstance().checkMemory();
+
+        return engine.getClusters();
     }
 
     /**
@@ -305,6 +310,45 @@ public class AlgoKMeans {
     }
 
 
+    /**
+     * Set the number of threads used to assign the vectors to the clusters (default: 1).
+     * The vectors are divided in blocks, and the result is the same as with one thread.
+     *
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Choose the initial cluster centers with the k-means++ seeding (default: false, the initial
+     * centers are random vectors between the minimum and maximum values of the input)
+     *
+     * @param kMeansPlusPlusSeeding if true, the k-means++ seeding is used
+     */
+    public void setKMeansPlusPlusSeeding(boolean kMeansPlusPlusSeeding) {
+        this.kMeansPlusPlusSeeding = kMeansPlusPlusSeeding;
+    }
+
+    /**
+     * Use the mini-batch K-Means algorithm: at each iteration, the cluster centers are updated with
+     * a random sample of the vectors instead of all the vectors, and the vectors are assigned to
+     * their nearest center at the end. The result is an approximation, for very large inputs.
+     *
+     * @param batchSize  the number of vectors of a sample (0 to use the regular K-Means algorithm)
+     * @param iterations the number of iterations
+     */
+    public void setMiniBatch(int batchSize, int iterations) {
+        if (batchSize < 0 || (batchSize > 0 && iterations < 1)) {
+            throw new IllegalArgumentException("The size of a mini-batch must be at least 0 and the number of iterations at least 1");
+        }
+        this.miniBatchSize = batchSize;
+        this.miniBatchIterations = iterations;
+    }
+
     /**
      * Save the clusters to an output file
      *
@@ -347,6 +391,10 @@ public class AlgoKMeans {
         System.out.println(" SSE (Sum of Squared Errors) (lower is better) : " + ClustersEvaluation.calculateSSE(clusters, distanceFunction));
         System.out.println(" Max memory:" + MemoryLogger.getInstance().getMaxMemory() + " mb ");
         System.out.println(" Iteration count: " + iterationCount);
+        System.out.println(" Distance calculations: " + distanceCount);
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
         System.out.println("=====================================");
     }
 
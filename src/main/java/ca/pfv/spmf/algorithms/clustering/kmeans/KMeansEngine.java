@@ -0,0 +1,760 @@
+package ca.pfv.spmf.algorithms.clustering.kmeans;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceEuclidian;
+import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceFunction;
+import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceManathan;
+import ca.pfv.spmf.patterns.cluster.ClusterWithMean;
+import ca.pfv.spmf.patterns.cluster.DoubleArray;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The engine used by AlgoKMeans and AlgoBisectingKMeans to cluster a list of vectors.
+ * <br/><br/>
+ * <p>
+ * The vectors are copied in a row-major matrix of doubles, divided in blocks of BLOCK_SIZE vectors,
+ * and the cluster of each vector is stored in an array, so that finding the nearest cluster
+ * of a vector does not require to search the vector in the clusters. The blocks are the units
+ * of work of the threads: if a pool of threads is given, the vectors of each block are assigned
+ * to their nearest cluster by a different task. The changes of clusters are then applied to the sums
+ * of the vectors of the clusters block by block, so that the result does not depend on the
+ * number of threads.
+ * <br/><br/>
+ * <p>
+ * If the distance function is the euclidian distance or the manhattan distance, which respect the
+ * triangle inequality, most distance calculations are avoided using the bounds of Hamerly (2010):
+ * an upper bound on the distance of each vector to its cluster center, and a lower bound on its
+ * distance to the second nearest center. A vector keeps its cluster if its upper bound is not
+ * greater than its lower bound or than half the distance of its center to the nearest other center.
+ * The bounds are updated with the distance that each center has moved. For these two distances,
+ * the distance between a vector and a center is also calculated directly on the matrix instead
+ * of calling the distance function. For other distance functions, the distance of each vector to
+ * each center is calculated at each iteration. In both cases, the iterations are those of the
+ * original algorithm, except that an empty cluster keeps its last center.
+ * <br/><br/>
+ * <p>
+ * The initial centers are either given, or chosen with the k-means++ seeding (Arthur and
+ * Vassilvitskii, 2007). The engine can also use the mini-batch K-Means algorithm (Sculley, 2010),
+ * which updates the centers using small random samples of the vectors, for very large inputs.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AlgoKMeans
+ */
+class KMeansEngine {
+
+    /**
+     * the number of vectors in a block of the matrix (the last block may be smaller)
+     */
+    static final int BLOCK_SIZE = 4096;
+
+    /**
+     * the vectors
+     */
+    private final List<DoubleArray> vectors;
+    /**
+     * the number of vectors
+     */
+    private final int vectorCount;
+    /**
+     * the size of the vectors
+     */
+    private final int vectorsSize;
+    /**
+     * the vectors, block by block, each block being a row-major matrix
+     */
+    private final double[][] blocks;
+    /**
+     * the distance function
+     */
+    private final DistanceFunction distanceFunction;
+    /**
+     * true if the distance is the euclidian distance, which is calculated directly on the matrix
+     */
+    private final boolean euclidian;
+    /**
+     * true if the distance is the manhattan distance, which is calculated directly on the matrix
+     */
+    private final boolean manhattan;
+    /**
+     * the threads used to process the blocks, or null to process them in the current thread
+     */
+    private final ExecutorService pool;
+    /**
+     * the random number generator used for the k-means++ seeding and the mini-batches
+     */
+    private final Random random;
+
+    /**
+     * the number of clusters
+     */
+    private int k;
+    /**
+     * the center of each cluster
+     */
+    private double[][] centers;
+    /**
+     * the centers, wrapped to be passed to the distance function
+     */
+    private DoubleArray[] centerArrays;
+    /**
+     * the cluster of each vector (-1 if the vector is not assigned yet)
+     */
+    private int[] assignment;
+    /**
+     * the upper bound on the distance of each vector to its center (only with Hamerly's bounds)
+     */
+    private double[] upperBounds;
+    /**
+     * the lower bound on the distance of each vector to its second nearest center (only with Hamerly's bounds)
+     */
+    private double[] lowerBounds;
+    /**
+     * half the distance of each center to the nearest other center (only with Hamerly's bounds)
+     */
+    private double[] halfDistancesToNearestCenter;
+    /**
+     * the distance that each center has moved during the last update
+     */
+    private double[] centerMoves;
+    /**
+     * the largest distance that a center has moved, the cluster of this center, and the second largest distance
+     */
+    private double largestMove;
+    private int largestMoveCluster;
+    private double secondLargestMove;
+    /**
+     * true if the bounds must be updated with the moves of the centers before the next assignment
+     */
+    private boolean boundsNeedUpdate;
+    /**
+     * the vectors that changed of cluster during the last assignment (each block uses the positions of its vectors)
+     * and the cluster that each of them left
+     */
+    private int[] movedVectors;
+    private int[] previousClusters;
+    /**
+     * the sum of the vectors of each cluster and the number of vectors of each cluster
+     */
+    private double[][] sums;
+    private int[] counts;
+    /**
+     * the number of iterations of the last execution
+     */
+    private long iterationCount;
+    /**
+     * the number of calculated distances between a vector and a center
+     */
+    private long distanceCount;
+
+    /**
+     * Constructor
+     *
+     * @param vectors          the vectors to be clustered
+     * @param vectorsSize      the size of the vectors
+     * @param distanceFunction the distance function
+     * @param pool             the threads used to process the blocks, or null to use the current thread
+     * @param random           a random number generator
+     */
+    KMeansEngine(List<DoubleArray> vectors, int vectorsSize, DistanceFunction distanceFunction,
+                 ExecutorService pool, Random random) {
+        this.vectors = vectors;
+        this.vectorCount = vectors.size();
+        this.vectorsSize = vectorsSize;
+        this.distanceFunction = distanceFunction;
+        this.euclidian = distanceFunction instanceof DistanceEuclidian;
+        this.manhattan = distanceFunction instanceof DistanceManathan;
+        this.pool = pool;
+        this.random = random;
+
+        // copy the vectors in the blocks of the matrix
+        blocks = new double[(vectorCount + BLOCK_SIZE - 1) / BLOCK_SIZE][];
+        for (int b = 0; b < blocks.length; b++) {
+            int first = b * BLOCK_SIZE;
+            int last = Math.min(vectorCount, first + BLOCK_SIZE);
+            double[] block = new double[(last - first) * vectorsSize];
+            for (int i = first, offset = 0; i < last; i++, offset += vectorsSize) {
+                System.arraycopy(vectors.get(i).data, 0, block, offset, vectorsSize);
+            }
+            blocks[b] = block;
+        }
+    }
+
+    /**
+     * Check if Hamerly's bounds can be used with the distance function
+     *
+     * @return true if the distance function respects the triangle inequality
+     */
+    private boolean usesBounds() {
+        return euclidian || manhattan;
+    }
+
+    /**
+     * Set the initial centers
+     *
+     * @param initialCenters the initial centers (k arrays of doubles, which are not modified)
+     */
+    void setInitialCenters(List<DoubleArray> initialCenters) {
+        initializeClusters(initialCenters.size());
+        for (int j = 0; j < k; j++) {
+            System.arraycopy(initialCenters.get(j).data, 0, centers[j], 0, vectorsSize);
+        }
+    }
+
+    /**
+     * Choose the initial centers with the k-means++ seeding: the first center is a random vector,
+     * and each next center is a vector chosen with a probability proportional to the square of
+     * its distance to the nearest center already chosen.
+     *
+     * @param k the number of clusters
+     * @throws IOException if the threads were interrupted
+     */
+    void chooseInitialCentersKMeansPlusPlus(int k) throws IOException {
+        initializeClusters(k);
+        // the square of the distance of each vector to its nearest center
+        final double[] weights = new double[vectorCount];
+        Arrays.fill(weights, Double.MAX_VALUE);
+
+        int chosen = random.nextInt(vectorCount);
+        copyVector(chosen, centers[0]);
+        for (int j = 1; j < k; j++) {
+            final int lastCenter = j - 1;
+            // update the weights with the last chosen center, block by block
+            double[] blockWeights = runOnBlocks(new BlockTask() {
+                double run(int block) {
+                    double[] rows = blocks[block];
+                    int first = block * BLOCK_SIZE;
+                    int last = first + rows.length / vectorsSize;
+                    double total = 0;
+                    for (int i = first, offset = 0; i < last; i++, offset += vectorsSize) {
+                        double distance = distance(i, rows, offset, lastCenter);
+                        double weight = distance * distance;
+                        if (weight < weights[i]) {
+                            weights[i] = weight;
+                        }
+                        total += weights[i];
+                    }
+                    return total;
+                }
+            });
+            distanceCount += vectorCount;
+
+            double total = 0;
+            for (double blockWeight : blockWeights) {
+                total += blockWeight;
+            }
+            if (!(total > 0)) {
+                // all vectors are equal to a center: choose any vector
+                chosen = random.nextInt(vectorCount);
+            } else {
+                // find the block, and then the vector, where the random value falls
+                double value = random.nextDouble() * total;
+                int block = 0;
+                while (block < blocks.length - 1 && value >= blockWeights[block]) {
+                    value -= blockWeights[block];
+                    block++;
+                }
+                int first = block * BLOCK_SIZE;
+                int last = first + blocks[block].length / vectorsSize;
+                chosen = last - 1;
+                for (int i = first; i < last; i++) {
+                    if (value < weights[i]) {
+                        chosen = i;
+                        break;
+                    }
+                    value -= weights[i];
+                }
+            }
+            copyVector(chosen, centers[j]);
+        }
+    }
+
+    /**
+     * Create the structures of the clusters
+     *
+     * @param k the number of clusters
+     */
+    private void initializeClusters(int k) {
+        this.k = k;
+        centers = new double[k][vectorsSize];
+        centerArrays = new DoubleArray[k];
+        for (int j = 0; j < k; j++) {
+            centerArrays[j] = new DoubleArray(centers[j]);
+        }
+        assignment = new int[vectorCount];
+        Arrays.fill(assignment, -1);
+        sums = new double[k][vectorsSize];
+        counts = new int[k];
+        centerMoves = new double[k];
+        boundsNeedUpdate = false;
+        iterationCount = 0;
+    }
+
+    /**
+     * Copy a vector of the matrix in an array
+     *
+     * @param i     the vector
+     * @param array the array
+     */
+    private void copyVector(int i, double[] array) {
+        System.arraycopy(blocks[i / BLOCK_SIZE], (i % BLOCK_SIZE) * vectorsSize, array, 0, vectorsSize);
+    }
+
+    /**
+     * Apply the K-Means algorithm from the initial centers: assign each vector to the nearest center,
+     * and recompute the centers, until the assignment hasn't changed.
+     *
+     * @throws IOException if the threads were interrupted
+     */
+    void cluster() throws IOException {
+        if (usesBounds()) {
+            upperBounds = new double[vectorCount];
+            lowerBounds = new double[vectorCount];
+            halfDistancesToNearestCenter = new double[k];
+        }
+        movedVectors = new int[vectorCount];
+        previousClusters = new int[vectorCount];
+
+        while (true) {
+            iterationCount++;
+            if (usesBounds()) {
+                calculateHalfDistancesToNearestCenter();
+            }
+
+            // (1) Assign each vector to the nearest center, block by block
+            double[] blockMoveCounts = runOnBlocks(new BlockTask() {
+                double run(int block) {
+                    return assignBlock(block);
+                }
+            });
+            boundsNeedUpdate = false;
+
+            // (2) Update the sums of the clusters with the vectors that changed of cluster
+            int moveCount = 0;
+            for (int b = 0; b < blocks.length; b++) {
+                moveCount += (int) blockMoveCounts[b];
+                applyMoves(b, (int) blockMoveCounts[b]);
+            }
+
+            if (moveCount == 0) { // exit condition for main loop
+                break;
+            }
+
+            // (3) Recompute the centers
+            updateCenters();
+        }
+    }
+
+    /**
+     * Assign the vectors of a block to their nearest center
+     *
+     * @param block the block
+     * @return the number of vectors that changed of cluster
+     */
+    private int assignBlock(int block) {
+        double[] rows = blocks[block];
+        int first = block * BLOCK_SIZE;
+        int last = first + rows.length / vectorsSize;
+        boolean bounds = usesBounds();
+        long distances = 0;
+        int moveCount = 0;
+
+        for (int i = first, offset = 0; i < last; i++, offset += vectorsSize) {
+            int cluster = assignment[i];
+            if (bounds && cluster >= 0) {
+                if (boundsNeedUpdate) {
+                    // the center of the vector may be farther and the others nearer
+                    upperBounds[i] += centerMoves[cluster];
+                    lowerBounds[i] -= cluster == largestMoveCluster ? secondLargestMove : largestMove;
+                }
+                // the vector keeps its cluster if its bounds show that no other center is nearer
+                double bound = Math.max(halfDistancesToNearestCenter[cluster], lowerBounds[i]);
+                if (upperBounds[i] <= bound) {
+                    continue;
+                }
+                upperBounds[i] = distance(i, rows, offset, cluster);
+                distances++;
+                if (upperBounds[i] <= bound) {
+                    continue;
+                }
+            }
+
+            // find the nearest center and the distance to the second nearest center
+            int nearest = -1;
+            double nearestDistance = Double.MAX_VALUE;
+            double secondDistance = Double.MAX_VALUE;
+            for (int j = 0; j < k; j++) {
+                double distance = distance(i, rows, offset, j);
+                if (distance < nearestDistance) {
+                    secondDistance = nearestDistance;
+                    nearestDistance = distance;
+                    nearest = j;
+                } else if (distance < secondDistance) {
+                    secondDistance = distance;
+                }
+            }
+            distances += k;
+            if (nearest == -1) {
+                // the distance function returned NaN for all centers
+                nearest = cluster >= 0 ? cluster : 0;
+            }
+            if (bounds) {
+                upperBounds[i] = nearestDistance;
+                lowerBounds[i] = secondDistance;
+            }
+
+            // if the nearest cluster is not the cluster containing the vector, remember the move
+            if (nearest != cluster) {
+                movedVectors[first + moveCount] = i;
+                previousClusters[first + moveCount] = cluster;
+                moveCount++;
+                assignment[i] = nearest;
+            }
+        }
+        addDistanceCount(distances);
+        return moveCount;
+    }
+
+    /**
+     * Update the sums and sizes of the clusters with the vectors of a block that changed of cluster
+     *
+     * @param block     the block
+     * @param moveCount the number of vectors of the block that changed of cluster
+     */
+    private void applyMoves(int block, int moveCount) {
+        double[] rows = blocks[block];
+        int first = block * BLOCK_SIZE;
+        for (int m = first; m < first + moveCount; m++) {
+            int i = movedVectors[m];
+            int offset = (i - first) * vectorsSize;
+            int previous = previousClusters[m];
+            if (previous >= 0) {
+                double[] sum = sums[previous];
+                for (int t = 0; t < vectorsSize; t++) {
+                    sum[t] -= rows[offset + t];
+                }
+                counts[previous]--;
+            }
+            double[] sum = sums[assignment[i]];
+            for (int t = 0; t < vectorsSize; t++) {
+                sum[t] += rows[offset + t];
+            }
+            counts[assignment[i]]++;
+        }
+    }
+
+    /**
+     * Recompute the center of each non empty cluster as the mean of its vectors, and record how far
+     * each center has moved
+     */
+    private void updateCenters() {
+        largestMove = 0;
+        largestMoveCluster = -1;
+        secondLargestMove = 0;
+        double[] previousCenter = new double[vectorsSize];
+        for (int j = 0; j < k; j++) {
+            double move = 0;
+            if (counts[j] > 0) {
+                System.arraycopy(centers[j], 0, previousCenter, 0, vectorsSize);
+                for (int t = 0; t < vectorsSize; t++) {
+                    centers[j][t] = sums[j][t] / counts[j];
+                }
+                if (usesBounds()) {
+                    move = distanceBetween(previousCenter, centers[j]);
+                }
+            }
+            centerMoves[j] = move;
+            if (move > largestMove) {
+                secondLargestMove = largestMove;
+                largestMove = move;
+                largestMoveCluster = j;
+            } else if (move > secondLargestMove) {
+                secondLargestMove = move;
+            }
+        }
+        boundsNeedUpdate = usesBounds();
+    }
+
+    /**
+     * Calculate half the distance of each center to the nearest other center
+     */
+    private void calculateHalfDistancesToNearestCenter() {
+        Arrays.fill(halfDistancesToNearestCenter, Double.MAX_VALUE);
+        for (int j1 = 0; j1 < k; j1++) {
+            for (int j2 = j1 + 1; j2 < k; j2++) {
+                double half = distanceBetween(centers[j1], centers[j2]) / 2;
+                if (half < halfDistancesToNearestCenter[j1]) {
+                    halfDistancesToNearestCenter[j1] = half;
+                }
+                if (half < halfDistancesToNearestCenter[j2]) {
+                    halfDistancesToNearestCenter[j2] = half;
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the mini-batch K-Means algorithm: at each iteration, a random sample of the vectors is
+     * assigned to the nearest centers, and each center is moved toward each of its vectors of the
+     * sample, with a learning rate that is the inverse of the number of vectors that it received until now.
+     * Then, all the vectors are assigned to their nearest center.
+     *
+     * @param batchSize  the number of vectors of a sample
+     * @param iterations the number of iterations
+     * @throws IOException if the threads were interrupted
+     */
+    void clusterWithMiniBatches(int batchSize, int iterations) throws IOException {
+        final int[] batch = new int[batchSize];
+        final int[] nearestCenters = new int[batchSize];
+        long[] receivedCounts = new long[k];
+        int partCount = (batchSize + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            iterationCount++;
+            for (int s = 0; s < batchSize; s++) {
+                batch[s] = random.nextInt(vectorCount);
+            }
+
+            // (1) Find the nearest center of each vector of the sample, part by part
+            runOnParts(partCount, new BlockTask() {
+                double run(int part) {
+                    int last = Math.min(batch.length, (part + 1) * BLOCK_SIZE);
+                    for (int s = part * BLOCK_SIZE; s < last; s++) {
+                        int i = batch[s];
+                        nearestCenters[s] = nearestCenter(i, blocks[i / BLOCK_SIZE], (i % BLOCK_SIZE) * vectorsSize);
+                    }
+                    return 0;
+                }
+            });
+            distanceCount += (long) batchSize * k;
+
+            // (2) Move the centers toward the vectors of the sample
+            for (int s = 0; s < batchSize; s++) {
+                int j = nearestCenters[s];
+                receivedCounts[j]++;
+                double rate = 1.0 / receivedCounts[j];
+                double[] rows = blocks[batch[s] / BLOCK_SIZE];
+                int offset = (batch[s] % BLOCK_SIZE) * vectorsSize;
+                double[] center = centers[j];
+                for (int t = 0; t < vectorsSize; t++) {
+                    center[t] += rate * (rows[offset + t] - center[t]);
+                }
+            }
+        }
+
+        // (3) Assign all the vectors to their nearest center
+        runOnBlocks(new BlockTask() {
+            double run(int block) {
+                double[] rows = blocks[block];
+                int first = block * BLOCK_SIZE;
+                int last = first + rows.length / vectorsSize;
+                for (int i = first, offset = 0; i < last; i++, offset += vectorsSize) {
+                    assignment[i] = nearestCenter(i, rows, offset);
+                }
+                return 0;
+            }
+        });
+        distanceCount += (long) vectorCount * k;
+    }
+
+    /**
+     * Find the nearest center of a vector
+     *
+     * @param i      the vector
+     * @param rows   the block of the vector
+     * @param offset the position of the vector in its block
+     * @return the cluster of the nearest center
+     */
+    private int nearestCenter(int i, double[] rows, int offset) {
+        int nearest = 0;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int j = 0; j < k; j++) {
+            double distance = distance(i, rows, offset, j);
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = j;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Calculate the distance between a vector and a center
+     *
+     * @param i      the vector
+     * @param rows   the block of the vector
+     * @param offset the position of the vector in its block
+     * @param j      the cluster of the center
+     * @return the distance
+     */
+    private double distance(int i, double[] rows, int offset, int j) {
+        double[] center = centers[j];
+        if (euclidian) {
+            double sum = 0;
+            for (int t = 0; t < vectorsSize; t++) {
+                double difference = center[t] - rows[offset + t];
+                sum += difference * difference;
+            }
+            return Math.sqrt(sum);
+        }
+        if (manhattan) {
+            double sum = 0;
+            for (int t = 0; t < vectorsSize; t++) {
+                sum += Math.abs(center[t] - rows[offset + t]);
+            }
+            return sum;
+        }
+        return distanceFunction.calculateDistance(centerArrays[j], vectors.get(i));
+    }
+
+    /**
+     * Calculate the distance between two centers
+     *
+     * @param center1 a center
+     * @param center2 another center
+     * @return the distance
+     */
+    private double distanceBetween(double[] center1, double[] center2) {
+        return distanceFunction.calculateDistance(new DoubleArray(center1), new DoubleArray(center2));
+    }
+
+    /**
+     * Add a number of calculated distances to the statistics (the blocks may be processed by several threads)
+     *
+     * @param distances the number of distances
+     */
+    private synchronized void addDistanceCount(long distances) {
+        distanceCount += distances;
+    }
+
+    /**
+     * Run a task on each block
+     *
+     * @param task the task
+     * @return the result of the task for each block
+     * @throws IOException if the threads were interrupted
+     */
+    private double[] runOnBlocks(BlockTask task) throws IOException {
+        return runOnParts(blocks.length, task);
+    }
+
+    /**
+     * Run a task on each part of some work, in the current thread or with the pool of threads
+     *
+     * @param partCount the number of parts
+     * @param task      the task
+     * @return the result of the task for each part
+     * @throws IOException if the threads were interrupted
+     */
+    private double[] runOnParts(int partCount, final BlockTask task) throws IOException {
+        double[] results = new double[partCount];
+        if (pool == null || partCount == 1) {
+            for (int part = 0; part < partCount; part++) {
+                results[part] = task.run(part);
+            }
+            return results;
+        }
+        List<Callable<Double>> parts = new ArrayList<Callable<Double>>(partCount);
+        for (int part = 0; part < partCount; part++) {
+            final int index = part;
+            parts.add(new Callable<Double>() {
+                public Double call() {
+                    return task.run(index);
+                }
+            });
+        }
+        try {
+            int part = 0;
+            for (Future<Double> future : pool.invokeAll(parts)) {
+                results[part++] = future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The clustering was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Create the clusters found by the last execution. The mean of each non empty cluster is the
+     * mean of its vectors, and the mean of an empty cluster is its last center.
+     *
+     * @return the clusters, containing the vectors in their original order
+     */
+    List<ClusterWithMean> getClusters() {
+        List<ClusterWithMean> clusters = new ArrayList<ClusterWithMean>(k);
+        for (int j = 0; j < k; j++) {
+            ClusterWithMean cluster = new ClusterWithMean(vectorsSize);
+            cluster.setMean(new DoubleArray(centers[j].clone()));
+            clusters.add(cluster);
+        }
+        for (int i = 0; i < vectorCount; i++) {
+            clusters.get(assignment[i]).addVector(vectors.get(i));
+        }
+        for (ClusterWithMean cluster : clusters) {
+            if (cluster.getVectors().size() > 0) {
+                cluster.recomputeClusterMean();
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * Get the number of iterations of the last execution
+     *
+     * @return the number of iterations
+     */
+    long getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * Get the number of distances between a vector and a center that were calculated
+     *
+     * @return the number of distances
+     */
+    long getDistanceCount() {
+        return distanceCount;
+    }
+
+    /**
+     * A task that processes one block of the matrix (or one part of some work)
+     */
+    private abstract static class BlockTask {
+        /**
+         * Process a block
+         *
+         * @param block the block
+         * @return a value computed for this block
+         */
+        abstract double run(int block);
+    }
+}
@@ -17,13 +17,15 @@ package ca.pfv.spmf.algorithms.frequentpatterns.apriori;
  */
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.primitivemaps.IntIntMap;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.RunMetrics;
 
 import java.io.*;
 import java.util.*;
-import java.util.Map.Entry;
 
 /**
  * This is an optimized implementation of the Apriori algorithm that uses binary search to
@@ -100,6 +102,10 @@ public class AlgoApriori {
      * maximum pattern length
      */
     private int maxPatternLength = 10000;
+    /**
+     * the statistics of the last execution (phases, memory)
+     */
+    private RunMetrics metrics = null;
 
     /**
      * Default constructor
@@ -119,6 +125,27 @@ public class AlgoApriori {
      * @throws IOException exception if error while writting or reading the input/output file
      */
     public Itemsets runAlgorithm(double minsup, String input, String output) throws IOException {
+        // the memory usage and statistics are recorded separately for this execution
+        metrics = RunMetrics.start("Apriori");
+        try {
+            return apriori(minsup, input, output);
+        } finally {
+            metrics.setCounter(RunMetrics.CANDIDATES, totalCandidateCount);
+            metrics.setCounter(RunMetrics.PATTERNS, itemsetCount);
+            metrics.end();
+        }
+    }
+
+    /**
+     * Run the algorithm (called by runAlgorithm())
+     *
+     * @param minsup a minimum support value as a percentage
+     * @param input  the path of an input file
+     * @param output the path of an input if the result should be saved to a file or null
+     * @return the result if it is kept into memory
+     * @throws IOException exception if error while writting or reading the input/output file
+     */
+    private Itemsets apriori(double minsup, String input, String output) throws IOException {
 
         // if the user wants to keep the result into memory
         if (output == null) {
@@ -140,45 +167,33 @@ public class AlgoApriori {
         MemoryLogger.getInstance().reset();
 
         // READ THE INPUT FILE
+        metrics.startPhase(RunMetrics.Phase.SCAN);
         // variable to count the number of transactions
         databaseSize = 0;
         // Map to count the support of each item
         // Key: item  Value : support
-        Map<Integer, Integer> mapItemCount = new HashMap<Integer, Integer>(); // to count the support of each item
+        IntIntMap mapItemCount = new IntIntMap(); // to count the support of each item
 
         database = new ArrayList<int[]>(); // the database in memory (intially empty)
 
         // scan the database to load it into memory and count the support of each single item at the same time
-        BufferedReader reader = new BufferedReader(new FileReader(input));
-        String line;
-        // for each line (transactions) until the end of the file
-        while (((line = reader.readLine()) != null)) {
-            // if the line is  a comment, is  empty or is a
-            // kind of metadata
-            if (line.isEmpty() ||
-                line.charAt(0) == '#' || line.charAt(0) == '%'
-                || line.charAt(0) == '@') {
-                continue;
-            }
-            // split the line according to spaces
-            String[] lineSplited = line.split(" ");
+        // (empty lines, comments and metadata are skipped by the reader)
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+        // for each transaction until the end of the file
+        while (reader.nextTransaction()) {
+            // the items of the transaction (this buffer is reused by the reader)
+            int[] items = reader.getItems();
 
             // create an array of int to store the items in this transaction
-            int[] transaction = new int[lineSplited.length];
+            int[] transaction = new int[reader.getItemCount()];
 
             // for each item in this line (transaction)
-            for (int i = 0; i < lineSplited.length; i++) {
-                // transform this item from a string to an integer
-                Integer item = Integer.parseInt(lineSplited[i]);
+            for (int i = 0; i < transaction.length; i++) {
+                int item = items[i];
                 // store the item in the memory representation of the database
                 transaction[i] = item;
                 // increase the support count
-                Integer count = mapItemCount.get(item);
-                if (count == null) {
-                    mapItemCount.put(item, 1);
-                } else {
-                    mapItemCount.put(item, ++count);
-                }
+                mapItemCount.increment(item, 1);
             }
             // add the transaction to the database
             database.add(transaction);
@@ -193,14 +208,19 @@ public class AlgoApriori {
         this.minsupRelative = (int) Math.ceil(minsup * databaseSize);
 
         // we start looking for itemset of size 1
+        metrics.startPhase(RunMetrics.Phase.MINE);
         k = 1;
 
         // We add all frequent items to the set of candidate of size 1
         List<Integer> frequent1 = new ArrayList<Integer>();
-        for (Entry<Integer, Integer> entry : mapItemCount.entrySet()) {
-            if (entry.getValue() >= minsupRelative) {
-                frequent1.add(entry.getKey());
-                saveItemsetToFile(entry.getKey(), entry.getValue());
+        // (the items are considered by ascending order)
+        int[] items = mapItemCount.keys();
+        Arrays.sort(items);
+        for (int item : items) {
+            int support = mapItemCount.get(item);
+            if (support >= minsupRelative) {
+                frequent1.add(item);
+                saveItemsetToFile(item, support);
             }
         }
         mapItemCount = null;
@@ -222,6 +242,7 @@ public class AlgoApriori {
             MemoryLogger.getInstance().checkMemory();
 
             // close the output file if we used it
+            metrics.startPhase(RunMetrics.Phase.WRITE);
             if (writer != null) {
                 writer.close();
             }
@@ -320,6 +341,7 @@ public class AlgoApriori {
         MemoryLogger.getInstance().checkMemory();
 
         // close the output file if the result was saved to a file.
+        metrics.startPhase(RunMetrics.Phase.WRITE);
         if (writer != null) {
             writer.close();
         }
@@ -494,11 +516,22 @@ public class AlgoApriori {
         System.out.println(" Candidates count : " + totalCandidateCount);
         System.out.println(" The algorithm stopped at size " + (k - 1));
         System.out.println(" Frequent itemsets count : " + itemsetCount);
-        System.out.println(" Maximum memory usage : " + MemoryLogger.getInstance().getMaxMemory() + " mb");
+        System.out.println(" Maximum memory usage : " + metrics.getPeakMemory() + " mb");
         System.out.println(" Total time ~ " + (endTimestamp - startTimestamp) + " ms");
+        System.out.println(" Phases : " + metrics.getPhaseTimesAsString());
         System.out.println("===================================================");
     }
 
+    /**
+     * Get the statistics of the last execution (time of each phase, memory usage, counters),
+     * e.g. to save them in a machine-readable format with RunMetrics.toJSON()
+     *
+     * @return the statistics or null if the algorithm was not run
+     */
+    public RunMetrics getRunMetrics() {
+        return metrics;
+    }
+
     /**
      * Set the maximum pattern length
      *
@@ -17,6 +17,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.charm;
  */
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.bitmaps.LongBitSet;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
@@ -383,6 +384,7 @@ public class AlgoCharm_Bitset {
                 // If no tidset, then we create one
                 if (tids == null) {
                     tids = new BitSetSupport();
+                    tids.bitset = new LongBitSet(database.size());
                     mapItemTIDS.put(item, tids);
                     // we remember the largest item seen until now
                     if (item > maxItemId) {
@@ -411,8 +413,7 @@ public class AlgoCharm_Bitset {
                                       BitSetSupport tidsetJ, int supportIJ) {
         // Create the new tidset and perform the logical AND to intersect the tidset
         BitSetSupport bitsetSupportIJ = new BitSetSupport();
-        bitsetSupportIJ.bitset = (BitSet) tidsetI.bitset.clone();
-        bitsetSupportIJ.bitset.and(tidsetJ.bitset);
+        bitsetSupportIJ.bitset = tidsetI.bitset.intersect(tidsetJ.bitset);
         // set the support as the support provided as parameter
         bitsetSupportIJ.support = supportIJ;
         // return the new tidset
@@ -427,12 +428,15 @@ public class AlgoCharm_Bitset {
      * @return the resulting tidset and its support
      */
     BitSetSupport performAND(BitSetSupport tidsetI, BitSetSupport tidsetJ) {
-        // Create the new tidset and perform the logical AND to intersect the tidset
         BitSetSupport bitsetSupportIJ = new BitSetSupport();
-        bitsetSupportIJ.bitset = (BitSet) tidsetI.bitset.clone();
-        bitsetSupportIJ.bitset.and(tidsetJ.bitset);
-        // set the support as the cardinality of the new tidset
-        bitsetSupportIJ.support = bitsetSupportIJ.bitset.cardinality();
+        // Calculate the support as the cardinality of the intersection of the tidsets,
+        // without creating the new tidset
+        bitsetSupportIJ.support = tidsetI.bitset.andCardinality(tidsetJ.bitset);
+        // The new tidset is only created if the itemset is frequent
+        // because otherwise it will not be used
+        if (bitsetSupportIJ.support >= minsupRelative) {
+            bitsetSupportIJ.bitset = tidsetI.bitset.intersect(tidsetJ.bitset);
+        }
         // return the new tidset
         return bitsetSupportIJ;
     }
@@ -665,14 +669,14 @@ public class AlgoCharm_Bitset {
             // if the result should be saved to memory
             if (writer == null) {
                 // save it to memory with its tidset
-                Itemset itemsetWithTidset = new Itemset(prefixSuffix, tidset.bitset, tidset.support);
+                Itemset itemsetWithTidset = new Itemset(prefixSuffix, tidset.bitset.toBitSet(), tidset.support);
                 closedItemsets.addItemset(itemsetWithTidset, itemset.size());
             } else {
                 // otherwise if the result should be saved to a file,
                 // then write it to the output file
                 writer.write(itemset + " #SUP: " + itemset.support);
                 if (showTransactionIdentifiers) {
-                    BitSet bitset = tidset.bitset;
+                    LongBitSet bitset = tidset.bitset;
                     writer.append(" #TID:");
                     for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
                         writer.append(" " + tid);
@@ -691,7 +695,7 @@ public class AlgoCharm_Bitset {
      * of a bitset in Java is very expensive.
      */
     public class BitSetSupport {
-        BitSet bitset = new BitSet();
+        LongBitSet bitset;
         int support;
     }
 
@@ -17,6 +17,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.charm;
  */
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.bitmaps.LongBitSet;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
@@ -25,7 +26,6 @@ import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.BitSet;
 import java.util.Map;
 
 /**
@@ -102,7 +102,8 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
                 if (tids == null) {
                     tids = new BitSetSupport();
                     // For a new item, we sets all the bits of its diffset to true
-                    tids.bitset.set(0, database.size(), true);
+                    tids.bitset = new LongBitSet(database.size());
+                    tids.bitset.set(0, database.size());
                     mapItemTIDS.put(item, tids);
                     // we remember the largest item seen until now
                     if (item > maxItemId) {
@@ -111,7 +112,7 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
                 }
                 //We set to false the bit corresponding to this transaction
                 // in the diffset of that item
-                tids.bitset.set(i, false);
+                tids.bitset.clear(i);
                 // we increase the support of that item
                 tids.support++;
             }
@@ -131,7 +132,7 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
         // Create the new diffset
         BitSetSupport bitsetSupportIJ = new BitSetSupport();
         // Calculate the diffset
-        bitsetSupportIJ.bitset = (BitSet) tidsetJ.bitset.clone();
+        bitsetSupportIJ.bitset = tidsetJ.bitset.clone();
         bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
         // Calculate the support
         bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
@@ -153,7 +154,7 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
         // Create the new diffset and perform the logical AND to intersect the diffsets
         BitSetSupport bitsetSupportIJ = new BitSetSupport();
         //Calculate the diffset
-        bitsetSupportIJ.bitset = (BitSet) tidsetJ.bitset.clone();
+        bitsetSupportIJ.bitset = tidsetJ.bitset.clone();
         bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
         // Calculate the support
         bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
@@ -207,7 +208,7 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
                 // then write it to the output file
                 writer.write(itemset + " #SUP: " + itemset.support);
                 if (showTransactionIdentifiers) {
-                    BitSet bitset = tidset.bitset;
+                    LongBitSet bitset = tidset.bitset;
                     writer.append(" #TID:");
                     for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
                         writer.append(" " + tid);
@@ -16,6 +16,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.charm;
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
 
+import ca.pfv.spmf.datastructures.bitmaps.LongBitSet;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -121,6 +122,30 @@ class HashTable {
         return (hashcode % table.length);
     }
 
+    /**
+     * Calculate the hashcode of an itemset as the sum of the tids of its tidset,
+     * modulo the internal array length.
+     *
+     * @param tidset the tidset of the itemset
+     * @return the hashcode (an integer)
+     */
+    public int hashCode(LongBitSet tidset) {
+        int hashcode = 0;
+        // for each tid in the tidset
+        for (int tid = tidset.nextSetBit(0); tid >= 0; tid = tidset.nextSetBit(tid + 1)) {
+            // make the sum
+            hashcode += tid;
+        }
+        // If an integer overflow occurs and the hashcode is negative,
+        // then we make it positive.
+        if (hashcode < 0) {
+            hashcode = -hashcode;
+        }
+        // Finally the hashcode is obtained by performing the modulo
+        // operation using the size of the internal array.
+        return (hashcode % table.length);
+    }
+
     /**
      * Calculate the hashcode of an itemset as the sum of the tids of its tidset,
      * modulo the internal array length.
@@ -16,13 +16,13 @@ package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
 
+import ca.pfv.spmf.datastructures.bitmaps.LongBitSet;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
 
-import java.util.BitSet;
 import java.util.Map;
 
 /**
@@ -102,7 +102,8 @@ public class AlgoDEclat_Bitset extends AlgoEclat_Bitset {
                 if (tids == null) {
                     tids = new BitSetSupport();
                     // For a new item, we sets all the bits of its diffset to true
-                    tids.bitset.set(0, database.size(), true);
+                    tids.bitset = new LongBitSet(database.size());
+                    tids.bitset.set(0, database.size());
                     mapItemTIDS.put(item, tids);
                     // we remember the largest item seen until now
                     if (item > maxItemId) {
@@ -111,7 +112,7 @@ public class AlgoDEclat_Bitset extends AlgoEclat_Bitset {
                 }
                 //We set to false the bit corresponding to this transaction
                 // in the diffset of that item
-                tids.bitset.set(i, false);
+                tids.bitset.clear(i);
                 // END DECLAT
                 // we increase the support of that item
                 tids.support++;
@@ -132,7 +133,7 @@ public class AlgoDEclat_Bitset extends AlgoEclat_Bitset {
         // Create the new diffset
         BitSetSupport bitsetSupportIJ = new BitSetSupport();
         // Calculate the diffset
-        bitsetSupportIJ.bitset = (BitSet) tidsetJ.bitset.clone();
+        bitsetSupportIJ.bitset = tidsetJ.bitset.clone();
         bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
         // Calculate the support
         bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
@@ -155,7 +156,7 @@ public class AlgoDEclat_Bitset extends AlgoEclat_Bitset {
         // Create the new diffset and perform the logical AND to intersect the diffsets
         BitSetSupport bitsetSupportIJ = new BitSetSupport();
         //Calculate the diffset
-        bitsetSupportIJ.bitset = (BitSet) tidsetJ.bitset.clone();
+        bitsetSupportIJ.bitset = tidsetJ.bitset.clone();
         bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
         // Calculate the support
         bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
@@ -16,6 +16,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
 
+import ca.pfv.spmf.datastructures.bitmaps.LongBitSet;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -334,6 +335,7 @@ public class AlgoEclat_Bitset {
                 // If none, then we create one
                 if (tids == null) {
                     tids = new BitSetSupport();
+                    tids.bitset = new LongBitSet(database.size());
                     mapItemTIDS.put(item, tids);
                     // we remember the largest item seen until now
                     if (item > maxItemId) {
@@ -356,14 +358,16 @@ public class AlgoEclat_Bitset {
      * @param tidsetJ the second tidset
      * @return the resulting tidset and its support
      */
-    BitSetSupport performAND(BitSetSupport tidsetI,
-                             BitSetSupport tidsetJ) {
-        // Create the new tidset and perform the logical AND to intersect the tidset
+    BitSetSupport performAND(BitSetSupport tidsetI, BitSetSupport tidsetJ) {
         BitSetSupport bitsetSupportIJ = new BitSetSupport();
-        bitsetSupportIJ.bitset = (BitSet) tidsetI.bitset.clone();
-        bitsetSupportIJ.bitset.and(tidsetJ.bitset);
-        // set the support as the cardinality of the new tidset
-        bitsetSupportIJ.support = bitsetSupportIJ.bitset.cardinality();
+        // Calculate the support as the cardinality of the intersection of the tidsets,
+        // without creating the new tidset
+        bitsetSupportIJ.support = tidsetI.bitset.andCardinality(tidsetJ.bitset);
+        // The new tidset is only created if the itemset is frequent
+        // because otherwise it will not be used
+        if (bitsetSupportIJ.support >= minsupRelative) {
+            bitsetSupportIJ.bitset = tidsetI.bitset.intersect(tidsetJ.bitset);
+        }
         // return the new tidset
         return bitsetSupportIJ;
     }
@@ -381,8 +385,7 @@ public class AlgoEclat_Bitset {
                                       BitSetSupport tidsetJ, int supportIJ) {
         // Create the new tidset and perform the logical AND to intersect the tidset
         BitSetSupport bitsetSupportIJ = new BitSetSupport();
-        bitsetSupportIJ.bitset = (BitSet) tidsetI.bitset.clone();
-        bitsetSupportIJ.bitset.and(tidsetJ.bitset);
+        bitsetSupportIJ.bitset = tidsetI.bitset.intersect(tidsetJ.bitset);
         // set the support as the support provided as parameter
         bitsetSupportIJ.support = supportIJ;
         // return the new tidset
@@ -579,7 +582,7 @@ public class AlgoEclat_Bitset {
             buffer.append(" #SUP: ");
             buffer.append(tidset.support);
             if (showTransactionIdentifiers) {
-                BitSet bitset = tidset.bitset;
+                LongBitSet bitset = tidset.bitset;
                 buffer.append(" #TID:");
                 for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
                     buffer.append(" " + tid);
@@ -598,7 +601,7 @@ public class AlgoEclat_Bitset {
      * @param tidset  the tidset of this itemset
      * @throws IOException if an error occurrs when writing to disk.
      */
-    private void saveSingleItem(int item, int support, BitSet tidset) throws IOException {
+    private void saveSingleItem(int item, int support, LongBitSet tidset) throws IOException {
         // increase the itemset count
         itemsetCount++;
         // if the result should be saved to memory
@@ -674,7 +677,7 @@ public class AlgoEclat_Bitset {
      * more than once.
      */
     public class BitSetSupport {
-        BitSet bitset = new BitSet();
+        LongBitSet bitset;
         int support;
     }
 }
@@ -6,6 +6,8 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /* This file is copyright (c) 2012-2015 Souleymane Zida & Philippe Fournier-Viger
@@ -132,6 +134,11 @@ public class AlgoEFIM {
      */
     private boolean activateSubtreeUtilityPruning;
 
+    /**
+     * the number of threads used for exploring the primary items of the initial database
+     */
+    private int threadCount = 1;
+
     /**
      * Constructor
      */
@@ -139,6 +146,20 @@ public class AlgoEFIM {
 
     }
 
+    /**
+     * Set the number of threads used for mining. If more than one thread is used, the primary items
+     * of the initial database are explored in parallel. The same itemsets are found as with a single
+     * thread, but they are written in the order in which the threads find them.
+     *
+     * @param threadCount the number of threads (1 by default)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
     /**
      * Implementation of Insertion sort for sorting a list of items by increasing order of TWU.
      * This has an average performance of O(n log n)
@@ -203,6 +224,9 @@ public class AlgoEFIM {
         transactionReadingCount = 0;
         timeIntersections = 0;
         timeDatabaseReduction = 0;
+        timeIdentifyPromisingItems = 0;
+        timeBinarySearch = 0;
+        candidateCount = 0;
 
         // save parameters about activating or not the optimizations
         this.activateTransactionMerging = activateTransactionMerging;
@@ -465,55 +489,169 @@ public class AlgoEFIM {
         // update the number of candidates explored so far
         candidateCount += itemsToExplore.size();
 
-        // ========  for each frequent item  e  =============
-        for (int j = 0; j < itemsToExplore.size(); j++) {
-            Integer e = itemsToExplore.get(j);
+        if (prefixLength == 0 && threadCount > 1) {
+            // the primary items of the initial database are explored by several threads
+            exploreInParallel(transactionsOfP, itemsToKeep, itemsToExplore);
+        } else {
+            // ========  for each frequent item  e  =============
+            for (int j = 0; j < itemsToExplore.size(); j++) {
+                exploreItem(transactionsOfP, itemsToKeep, itemsToExplore, j, prefixLength);
+            }
+        }
 
-            // ========== PERFORM INTERSECTION =====================
-            // Calculate transactions containing P U {e}
-            // At the same time project transactions to keep what appears after "e"
-            List<Transaction> transactionsPe = new ArrayList<Transaction>();
+        // check the maximum memory usage for statistics purpose
+        MemoryLogger.getInstance().checkMemory();
+    }
 
-            // variable to calculate the utility of P U {e}
-            int utilityPe = 0;
+    /**
+     * Explore the primary items of the initial database using several threads.
+     * Each thread has its own worker (with its own utility-bin arrays, itemset buffer and
+     * projected transactions) and repeatedly takes the next primary item that has not been explored.
+     * Thus, each worker explores its items by increasing order, as the sequential algorithm does.
+     * Because the offsets of the transactions are updated while exploring the items,
+     * each worker uses its own copy of the initial transactions (the arrays of items and utilities
+     * are shared since they are only read). The high-utility itemsets are written directly to
+     * the output file (or added to the set of itemsets) by the workers.
+     *
+     * @param transactions   the transactions of the initial database
+     * @param itemsToKeep    the list of secondary items
+     * @param itemsToExplore the list of primary items
+     * @throws IOException if error writing to output file
+     */
+    private void exploreInParallel(final List<Transaction> transactions, final List<Integer> itemsToKeep,
+                                   final List<Integer> itemsToExplore) throws IOException {
+        // the position of the next primary item to be explored
+        final AtomicInteger nextItem = new AtomicInteger(0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<AlgoEFIM>> futures = new ArrayList<Future<AlgoEFIM>>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(pool.submit(new Callable<AlgoEFIM>() {
+                    public AlgoEFIM call() throws IOException {
+                        AlgoEFIM worker = createWorker();
+                        List<Transaction> transactionsOfWorker = new ArrayList<Transaction>(transactions.size());
+                        for (Transaction transaction : transactions) {
+                            transactionsOfWorker.add(new Transaction(transaction.items, transaction.utilities,
+                                                                     transaction.transactionUtility));
+                        }
+                        int j;
+                        while ((j = nextItem.getAndIncrement()) < itemsToExplore.size()) {
+                            worker.exploreItem(transactionsOfWorker, itemsToKeep, itemsToExplore, j, 0);
+                        }
+                        return worker;
+                    }
+                }));
+            }
 
-            // For merging transactions, we will keep track of the last transaction read
-            // and the number of identical consecutive transactions
-            Transaction previousTransaction = null;
-            int consecutiveMergeCount = 0;
+            // add the statistics of the workers
+            for (Future<AlgoEFIM> future : futures) {
+                AlgoEFIM worker = future.get();
+                patternCount += worker.patternCount;
+                candidateCount += worker.candidateCount;
+                mergeCount += worker.mergeCount;
+                transactionReadingCount += worker.transactionReadingCount;
+                timeIntersections += worker.timeIntersections;
+                timeDatabaseReduction += worker.timeDatabaseReduction;
+                timeIdentifyPromisingItems += worker.timeIdentifyPromisingItems;
+                timeBinarySearch += worker.timeBinarySearch;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-            // this variable is to record the time for performing intersection
-            long timeFirstIntersection = System.currentTimeMillis();
+    /**
+     * Create a worker for exploring the primary items of the initial database in parallel.
+     * A worker has the same parameters and output as this object, but its own utility-bin arrays
+     * and itemset buffer.
+     *
+     * @return the worker
+     */
+    private AlgoEFIM createWorker() {
+        AlgoEFIM worker = new AlgoEFIM();
+        worker.minUtil = minUtil;
+        worker.activateTransactionMerging = activateTransactionMerging;
+        worker.activateSubtreeUtilityPruning = activateSubtreeUtilityPruning;
+        worker.newNamesToOldNames = newNamesToOldNames;
+        worker.oldNameToNewNames = oldNameToNewNames;
+        worker.newItemCount = newItemCount;
+        worker.writer = writer;
+        worker.highUtilityItemsets = highUtilityItemsets;
+        worker.utilityBinArraySU = utilityBinArraySU.clone();
+        worker.utilityBinArrayLU = utilityBinArrayLU.clone();
+        return worker;
+    }
 
-            // For each transaction
-            for (Transaction transaction : transactionsOfP) {
-                // Increase the number of transaction read
-                transactionReadingCount++;
+    /**
+     * Explore the itemset P U {e} where e is a primary item of the p-projected database:
+     * project the database on e, output P U {e} if it is a high-utility itemset, calculate the upper-bounds
+     * of the items that can extend P U {e} and make a recursive call.
+     *
+     * @param transactionsOfP the list of transactions containing the current prefix P
+     * @param itemsToKeep     the list of secondary items in the p-projected database
+     * @param itemsToExplore  the list of primary items in the p-projected database
+     * @param j               the position of e in the list of primary items
+     * @param prefixLength    the current prefixLength
+     * @throws IOException if error writing to output file
+     */
+    private void exploreItem(List<Transaction> transactionsOfP, List<Integer> itemsToKeep,
+                             List<Integer> itemsToExplore, int j, int prefixLength) throws IOException {
+        Integer e = itemsToExplore.get(j);
 
-                // To record the time for performing binary searh
-                long timeBinaryLocal = System.currentTimeMillis();
+        // ========== PERFORM INTERSECTION =====================
+        // Calculate transactions containing P U {e}
+        // At the same time project transactions to keep what appears after "e"
+        List<Transaction> transactionsPe = new ArrayList<Transaction>();
 
-                // we remember the position where e appears.
-                // we will call this position an "offset"
-                int positionE = -1;
-                // Variables low and high for binary search
-                int low = transaction.offset;
-                int high = transaction.items.length - 1;
+        // variable to calculate the utility of P U {e}
+        int utilityPe = 0;
 
-                // perform binary search to find e in the transaction
-                while (high >= low) {
-                    int middle = (low + high) >>> 1; // divide by 2
-                    if (transaction.items[middle] < e) {
-                        low = middle + 1;
-                    } else if (transaction.items[middle] == e) {
-                        positionE = middle;
-                        break;
-                    } else {
-                        high = middle - 1;
-                    }
+        // For merging transactions, we will keep track of the last transaction read
+        // and the number of identical consecutive transactions
+        Transaction previousTransaction = null;
+        int consecutiveMergeCount = 0;
+
+        // this variable is to record the time for performing intersection
+        long timeFirstIntersection = System.currentTimeMillis();
+
+        // For each transaction
+        for (Transaction transaction : transactionsOfP) {
+            // Increase the number of transaction read
+            transactionReadingCount++;
+
+            // To record the time for performing binary searh
+            long timeBinaryLocal = System.currentTimeMillis();
+
+            // we remember the position where e appears.
+            // we will call this position an "offset"
+            int positionE = -1;
+            // Variables low and high for binary search
+            int low = transaction.offset;
+            int high = transaction.items.length - 1;
+
+            // perform binary search to find e in the transaction
+            while (high >= low) {
+                int middle = (low + high) >>> 1; // divide by 2
+                if (transaction.items[middle] < e) {
+                    low = middle + 1;
+                } else if (transaction.items[middle] == e) {
+                    positionE = middle;
+                    break;
+                } else {
+                    high = middle - 1;
                 }
-                // record the time spent for performing the binary search
-                timeBinarySearch += System.currentTimeMillis() - timeBinaryLocal;
+            }
+            // record the time spent for performing the binary search
+            timeBinarySearch += System.currentTimeMillis() - timeBinaryLocal;
 
 //	        	if(prefixLength == 0 && newNamesToOldNames[e] == 385) {
 //		        	for(int i=0; i < transaction.getItems().length; i++) {
@@ -523,174 +661,170 @@ public class AlgoEFIM {
 //		        	}
 //		        }
 
-                // if 'e' was found in the transaction
-                if (positionE > -1) {
+            // if 'e' was found in the transaction
+            if (positionE > -1) {
 
-                    // optimization: if the 'e' is the last one in this transaction,
-                    // we don't keep the transaction
-                    if (transaction.getLastPosition() == positionE) {
-                        // but we still update the sum of the utility of P U {e}
-                        utilityPe += transaction.utilities[positionE] + transaction.prefixUtility;
-                    } else {
-                        // otherwise
-                        if (activateTransactionMerging && MAXIMUM_SIZE_MERGING >= (transaction.items.length - positionE)) {
-                            // we cut the transaction starting from position 'e'
-                            Transaction projectedTransaction = new Transaction(transaction, positionE);
-                            utilityPe += projectedTransaction.prefixUtility;
-
-                            // if it is the first transaction that we read
-                            if (previousTransaction == null) {
-                                // we keep the transaction in memory
-                                previousTransaction = projectedTransaction;
-                            } else if (isEqualTo(projectedTransaction, previousTransaction)) {
-                                // If it is not the first transaction of the database and
-                                // if the transaction is equal to the previously read transaction,
-                                // we will merge the transaction with the previous one
-
-                                // increase the number of consecutive transactions merged
-                                mergeCount++;
-
-                                // if the first consecutive merge
-                                if (consecutiveMergeCount == 0) {
-                                    // copy items and their profit from the previous transaction
-                                    int itemsCount = previousTransaction.items.length - previousTransaction.offset;
-                                    int[] items = new int[itemsCount];
-                                    System.arraycopy(previousTransaction.items, previousTransaction.offset, items, 0, itemsCount);
-                                    int[] utilities = new int[itemsCount];
-                                    System.arraycopy(previousTransaction.utilities, previousTransaction.offset, utilities, 0, itemsCount);
-
-                                    // make the sum of utilities from the previous transaction
-                                    int positionPrevious = 0;
-                                    int positionProjection = projectedTransaction.offset;
-                                    while (positionPrevious < itemsCount) {
-                                        utilities[positionPrevious] += projectedTransaction.utilities[positionProjection];
-                                        positionPrevious++;
-                                        positionProjection++;
-                                    }
-
-                                    // make the sum of prefix utilities
-                                    int sumUtilities = previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
-
-                                    // create the new transaction replacing the two merged transactions
-                                    previousTransaction = new Transaction(items, utilities,
-                                            previousTransaction.transactionUtility + projectedTransaction.transactionUtility);
-                                    previousTransaction.prefixUtility = sumUtilities;
-
-                                } else {
-                                    // if not the first consecutive merge
-
-                                    // add the utilities in the projected transaction to the previously
-                                    // merged transaction
-                                    int positionPrevious = 0;
-                                    int positionProjected = projectedTransaction.offset;
-                                    int itemsCount = previousTransaction.items.length;
-                                    while (positionPrevious < itemsCount) {
-                                        previousTransaction.utilities[positionPrevious] += projectedTransaction.utilities[positionProjected];
-                                        positionPrevious++;
-                                        positionProjected++;
-                                    }
-
-                                    // make also the sum of transaction utility and prefix utility
-                                    previousTransaction.transactionUtility += projectedTransaction.transactionUtility;
-                                    previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
+                // optimization: if the 'e' is the last one in this transaction,
+                // we don't keep the transaction
+                if (transaction.getLastPosition() == positionE) {
+                    // but we still update the sum of the utility of P U {e}
+                    utilityPe += transaction.utilities[positionE] + transaction.prefixUtility;
+                } else {
+                    // otherwise
+                    if (activateTransactionMerging && MAXIMUM_SIZE_MERGING >= (transaction.items.length - positionE)) {
+                        // we cut the transaction starting from position 'e'
+                        Transaction projectedTransaction = new Transaction(transaction, positionE);
+                        utilityPe += projectedTransaction.prefixUtility;
+
+                        // if it is the first transaction that we read
+                        if (previousTransaction == null) {
+                            // we keep the transaction in memory
+                            previousTransaction = projectedTransaction;
+                        } else if (isEqualTo(projectedTransaction, previousTransaction)) {
+                            // If it is not the first transaction of the database and
+                            // if the transaction is equal to the previously read transaction,
+                            // we will merge the transaction with the previous one
+
+                            // increase the number of consecutive transactions merged
+                            mergeCount++;
+
+                            // if the first consecutive merge
+                            if (consecutiveMergeCount == 0) {
+                                // copy items and their profit from the previous transaction
+                                int itemsCount = previousTransaction.items.length - previousTransaction.offset;
+                                int[] items = new int[itemsCount];
+                                System.arraycopy(previousTransaction.items, previousTransaction.offset, items, 0, itemsCount);
+                                int[] utilities = new int[itemsCount];
+                                System.arraycopy(previousTransaction.utilities, previousTransaction.offset, utilities, 0, itemsCount);
+
+                                // make the sum of utilities from the previous transaction
+                                int positionPrevious = 0;
+                                int positionProjection = projectedTransaction.offset;
+                                while (positionPrevious < itemsCount) {
+                                    utilities[positionPrevious] += projectedTransaction.utilities[positionProjection];
+                                    positionPrevious++;
+                                    positionProjection++;
                                 }
-                                // increment the number of consecutive transaction merged
-                                consecutiveMergeCount++;
+
+                                // make the sum of prefix utilities
+                                int sumUtilities = previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
+
+                                // create the new transaction replacing the two merged transactions
+                                previousTransaction = new Transaction(items, utilities,
+                                        previousTransaction.transactionUtility + projectedTransaction.transactionUtility);
+                                previousTransaction.prefixUtility = sumUtilities;
+
                             } else {
-                                // if the transaction is not equal to the preceding transaction
-                                // we cannot merge it so we just add it to the database
-                                transactionsPe.add(previousTransaction);
-                                // the transaction becomes the previous transaction
-                                previousTransaction = projectedTransaction;
-                                // and we reset the number of consecutive transactions merged
-                                consecutiveMergeCount = 0;
+                                // if not the first consecutive merge
+
+                                // add the utilities in the projected transaction to the previously
+                                // merged transaction
+                                int positionPrevious = 0;
+                                int positionProjected = projectedTransaction.offset;
+                                int itemsCount = previousTransaction.items.length;
+                                while (positionPrevious < itemsCount) {
+                                    previousTransaction.utilities[positionPrevious] += projectedTransaction.utilities[positionProjected];
+                                    positionPrevious++;
+                                    positionProjected++;
+                                }
+
+                                // make also the sum of transaction utility and prefix utility
+                                previousTransaction.transactionUtility += projectedTransaction.transactionUtility;
+                                previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
                             }
+                            // increment the number of consecutive transaction merged
+                            consecutiveMergeCount++;
                         } else {
-                            // Otherwise, if merging has been deactivated
-                            // then we just create the projected transaction
-                            Transaction projectedTransaction = new Transaction(transaction, positionE);
-                            // we add the utility of Pe in that transaction to the total utility of Pe
-                            utilityPe += projectedTransaction.prefixUtility;
-                            // we put the projected transaction in the projected database of Pe
-                            transactionsPe.add(projectedTransaction);
+                            // if the transaction is not equal to the preceding transaction
+                            // we cannot merge it so we just add it to the database
+                            transactionsPe.add(previousTransaction);
+                            // the transaction becomes the previous transaction
+                            previousTransaction = projectedTransaction;
+                            // and we reset the number of consecutive transactions merged
+                            consecutiveMergeCount = 0;
                         }
+                    } else {
+                        // Otherwise, if merging has been deactivated
+                        // then we just create the projected transaction
+                        Transaction projectedTransaction = new Transaction(transaction, positionE);
+                        // we add the utility of Pe in that transaction to the total utility of Pe
+                        utilityPe += projectedTransaction.prefixUtility;
+                        // we put the projected transaction in the projected database of Pe
+                        transactionsPe.add(projectedTransaction);
                     }
-                    // This is an optimization for binary search:
-                    // we remember the position of E so that for the next item, we will not search
-                    // before "e" in the transaction since items are visited in lexicographical order
-                    transaction.offset = positionE;
-                } else {
-                    // This is an optimization for binary search:
-                    // we remember the position of E so that for the next item, we will not search
-                    // before "e" in the transaction since items are visited in lexicographical order
-                    transaction.offset = low;
                 }
+                // This is an optimization for binary search:
+                // we remember the position of E so that for the next item, we will not search
+                // before "e" in the transaction since items are visited in lexicographical order
+                transaction.offset = positionE;
+            } else {
+                // This is an optimization for binary search:
+                // we remember the position of E so that for the next item, we will not search
+                // before "e" in the transaction since items are visited in lexicographical order
+                transaction.offset = low;
             }
-            // remember the total time for peforming the database projection
-            timeIntersections += (System.currentTimeMillis() - timeFirstIntersection);
-
-            // Add the last read transaction to the database if there is one
-            if (previousTransaction != null) {
-                transactionsPe.add(previousTransaction);
-            }
+        }
+        // remember the total time for peforming the database projection
+        timeIntersections += (System.currentTimeMillis() - timeFirstIntersection);
 
-            // Append item "e" to P to obtain P U {e}
-            // but at the same time translate from new name of "e"  to its old name
-            temp[prefixLength] = newNamesToOldNames[e];
+        // Add the last read transaction to the database if there is one
+        if (previousTransaction != null) {
+            transactionsPe.add(previousTransaction);
+        }
 
-            // if the utility of PU{e} is enough to be a high utility itemset
-            if (utilityPe >= minUtil) {
-                // output PU{e}
-                output(prefixLength, utilityPe);
-            }
+        // Append item "e" to P to obtain P U {e}
+        // but at the same time translate from new name of "e"  to its old name
+        temp[prefixLength] = newNamesToOldNames[e];
 
-            //==== Next, we will calculate the Local Utility and Sub-tree utility of
-            // all items that could be appended to PU{e} ====
-            useUtilityBinArraysToCalculateUpperBounds(transactionsPe, j, itemsToKeep);
+        // if the utility of PU{e} is enough to be a high utility itemset
+        if (utilityPe >= minUtil) {
+            // output PU{e}
+            output(prefixLength, utilityPe);
+        }
 
-            // we now record time for identifying promising items
-            long initialTime = System.currentTimeMillis();
+        //==== Next, we will calculate the Local Utility and Sub-tree utility of
+        // all items that could be appended to PU{e} ====
+        useUtilityBinArraysToCalculateUpperBounds(transactionsPe, j, itemsToKeep);
 
-            // We will create the new list of secondary items
-            List<Integer> newItemsToKeep = new ArrayList<Integer>();
-            // We will create the new list of primary items
-            List<Integer> newItemsToExplore = new ArrayList<Integer>();
+        // we now record time for identifying promising items
+        long initialTime = System.currentTimeMillis();
 
-            // for each item
-            for (int k = j + 1; k < itemsToKeep.size(); k++) {
-                Integer itemk = itemsToKeep.get(k);
-
-                // if the sub-tree utility is no less than min util
-                if (utilityBinArraySU[itemk] >= minUtil) {
-                    // and if sub-tree utility pruning is activated
-                    if (activateSubtreeUtilityPruning) {
-                        // consider that item as a primary item
-                        newItemsToExplore.add(itemk);
-                    }
-                    // consider that item as a secondary item
-                    newItemsToKeep.add(itemk);
-                } else if (utilityBinArrayLU[itemk] >= minUtil) {
-                    // otherwise, if local utility is no less than minutil,
-                    // consider this itemt to be a secondary item
-                    newItemsToKeep.add(itemk);
+        // We will create the new list of secondary items
+        List<Integer> newItemsToKeep = new ArrayList<Integer>();
+        // We will create the new list of primary items
+        List<Integer> newItemsToExplore = new ArrayList<Integer>();
+
+        // for each item
+        for (int k = j + 1; k < itemsToKeep.size(); k++) {
+            Integer itemk = itemsToKeep.get(k);
+
+            // if the sub-tree utility is no less than min util
+            if (utilityBinArraySU[itemk] >= minUtil) {
+                // and if sub-tree utility pruning is activated
+                if (activateSubtreeUtilityPruning) {
+                    // consider that item as a primary item
+                    newItemsToExplore.add(itemk);
                 }
-            }
-            // update the total time  for identifying promising items
-            timeIdentifyPromisingItems += (System.currentTimeMillis() - initialTime);
-
-            // === recursive call to explore larger itemsets
-            if (activateSubtreeUtilityPruning) {
-                // if sub-tree utility pruning is activated, we consider primary and secondary items
-                backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToExplore, prefixLength + 1);
-            } else {
-                // if sub-tree utility pruning is deactivated, we consider secondary items also
-                // as primary items
-                backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToKeep, prefixLength + 1);
+                // consider that item as a secondary item
+                newItemsToKeep.add(itemk);
+            } else if (utilityBinArrayLU[itemk] >= minUtil) {
+                // otherwise, if local utility is no less than minutil,
+                // consider this itemt to be a secondary item
+                newItemsToKeep.add(itemk);
             }
         }
+        // update the total time  for identifying promising items
+        timeIdentifyPromisingItems += (System.currentTimeMillis() - initialTime);
 
-        // check the maximum memory usage for statistics purpose
-        MemoryLogger.getInstance().checkMemory();
+        // === recursive call to explore larger itemsets
+        if (activateSubtreeUtilityPruning) {
+            // if sub-tree utility pruning is activated, we consider primary and secondary items
+            backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToExplore, prefixLength + 1);
+        } else {
+            // if sub-tree utility pruning is deactivated, we consider secondary items also
+            // as primary items
+            backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToKeep, prefixLength + 1);
+        }
     }
 
 
@@ -873,8 +1007,10 @@ public class AlgoEFIM {
             int[] copy = new int[tempPosition + 1];
             System.arraycopy(temp, 0, copy, 0, tempPosition + 1);
             // we create the itemset using this array and add it to the list of itemsets
-            // found until now
-            highUtilityItemsets.addItemset(new Itemset(copy, utility), copy.length);
+            // found until now (the set is shared by the workers if several threads are used)
+            synchronized (highUtilityItemsets) {
+                highUtilityItemsets.addItemset(new Itemset(copy, utility), copy.length);
+            }
         } else {
             // if user wants to save the results to file
             // create a stringuffer
@@ -892,8 +1028,11 @@ public class AlgoEFIM {
 
             // write the stringbuffer to file and create a new line
             // so that we are ready for writing the next itemset.
-            writer.write(buffer.toString());
-            writer.newLine();
+            // (the writer is shared by the workers if several threads are used)
+            synchronized (writer) {
+                writer.write(buffer.toString());
+                writer.newLine();
+            }
         }
     }
 
@@ -908,6 +1047,9 @@ public class AlgoEFIM {
         System.out.println(" High utility itemsets count: " + patternCount);
         System.out.println(" Total time ~: " + (endTimestamp - startTimestamp)
                            + " ms");
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
         // if in debug mode, we show more information
         if (DEBUG) {
             System.out.println(" Transaction merge count ~: " + mergeCount);
@@ -1,7 +1,7 @@
 package ca.pfv.spmf.algorithms.frequentpatterns.efim;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -51,20 +51,15 @@ public class Dataset {
         // Initialize a list to store transactions in memory
         transactions = new ArrayList<Transaction>();
 
-        // Create a buffered reader to read the input file
-        BufferedReader br = new BufferedReader(new FileReader(datasetPath));
-        String line;
+        // Create a reader to read the input file
+        // (empty lines, comments and metadata are skipped by the reader)
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(datasetPath);
         int i = 0;
-        // iterate over the lines to build the transaction
-        while ((line = br.readLine()) != null) {
-            // if the line is  a comment, is  empty or is  metadata
-            if (line.isEmpty() || line.charAt(0) == '#'
-                || line.charAt(0) == '%' || line.charAt(0) == '@') {
-                continue;
-            }
+        // iterate over the transactions
+        while (reader.nextTransaction()) {
             i++;
             // read the transaction
-            transactions.add(createTransaction(line));
+            transactions.add(createTransaction(reader));
             // if the number of transaction to be read is reached, we stop
             if (i == maximumTransactionCount) {
                 break;
@@ -73,40 +68,25 @@ public class Dataset {
         }
         //****** Show the number of transactions in this dataset**************************//
         System.out.println("Transaction count :" + transactions.size());
-        br.close();
+        reader.close();
     }
 
     /**
-     * Create a transaction object from a line from the input file
+     * Create a transaction object from the current transaction of the reader
      *
-     * @param line a line from input file
+     * @param reader a reader positioned on a transaction of the input file
      * @return a transaction
      */
-    private Transaction createTransaction(String line) {
-        // split the line into tokens according to the ":" separator
-        String[] split = line.split(":");
-
+    private Transaction createTransaction(SPMFMappedFileReader reader) {
         // Get the transaction utility
-        int transactionUtility = Integer.parseInt(split[1]);
-
-        // Get the list of items
-        String[] itemsString = split[0].split(" ");
+        int transactionUtility = reader.getTransactionUtility();
 
-        // Get the list of item utilities
-        String[] itemsUtilitiesString = split[2].split(" ");
-
-        //Create array to store the items and their utilities
-        int[] items = new int[itemsString.length];
-        int[] utilities = new int[itemsString.length];
+        //Copy the items and their utilities from the buffers of the reader
+        int[] items = reader.copyItems();
+        int[] utilities = reader.copyUtilities();
 
         // for each item
         for (int i = 0; i < items.length; i++) {
-            //store the item
-            items[i] = Integer.parseInt(itemsString[i]);
-
-            // store its utility in that transaction
-            utilities[i] = Integer.parseInt(itemsUtilitiesString[i]);
-
             // if the item name is larger than the largest item read from the database until now, we remember
             // its name
             if (items[i] > maxItem) {
@@ -18,6 +18,10 @@ package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
  */
 
 
+import ca.pfv.spmf.datastructures.primitivemaps.AbstractIntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntMaps;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -71,8 +75,16 @@ public class AlgoFPClose {
     private int[] itemsetBuffer = null;
     // Buffer for storing the counts of the current itemset that is mined
     private int[] countBuffer = null;
+    // Buffer for storing the ranks of the items of the current itemset
+    // (only used with the array-based FP-tree)
+    private int[] rankBuffer = null;
+
+    // if true, the array-based FP-tree (ArrayFPTree) is used instead of FPTree
+    private boolean useArrayTree = false;
+    // the initial tree, if the array-based FP-tree is used (for statistics)
+    private ArrayFPTree arrayTree = null;
     // Map to store the support of single items in the original databse
-    private Map<Integer, Integer> originalMapSupport = null;
+    private AbstractIntIntMap originalMapSupport = null;
     // Comparator to compare the items based on the order of decreasing support in the original DB.
     Comparator<Integer> comparatorOriginalOrder = new Comparator<Integer>() {
         public int compare(Integer item1, Integer item2) {
@@ -135,61 +147,85 @@ public class AlgoFPClose {
 
         // Create the CFI Tree
         cfiTree = new CFITree();
+        cfiTree.setComparator(comparatorOriginalOrder);
 
-        // (2) Scan the database again to build the initial FP-Tree
-        // Before inserting a transaction in the FPTree, we sort the items
-        // by descending order of support.  We ignore items that
-        // do not have the minimum support.
-        FPTree tree = new FPTree();
-
-        // read the file
-        BufferedReader reader = new BufferedReader(new FileReader(input));
-        String line;
-        // for each line (transaction) until the end of the file
-        while (((line = reader.readLine()) != null)) {
-            // if the line is  a comment, is  empty or is a
-            // kind of metadata
-            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
-                || line.charAt(0) == '@') {
-                continue;
+        if (useArrayTree) {
+            // (2) Scan the database again to build the initial FP-Tree,
+            // where the items are recoded to their ranks
+            arrayTree = ArrayFPTree.buildInitialTree(input, originalMapSupport, minSupportRelative);
+            MemoryLogger.getInstance().checkMemory();
+
+            // We create the header table for the tree
+            arrayTree.createHeaderListByRank();
+
+            // (5) We start to mine the FP-Tree by calling the recursive method.
+            // if at least an item is frequent
+            if (arrayTree.headerListSize > 0) {
+                itemsetBuffer = new int[BUFFERS_SIZE];
+                countBuffer = new int[BUFFERS_SIZE];
+                rankBuffer = new int[BUFFERS_SIZE];
+                fpclose(arrayTree, itemsetBuffer, 0, transactionCount);
             }
-
-            String[] lineSplited = line.split(" ");
-            List<Integer> transaction = new ArrayList<Integer>();
-
-            // for each item in the transaction
-            for (String itemString : lineSplited) {
-                Integer item = Integer.parseInt(itemString);
-                // only add items that have the minimum support
-                if (originalMapSupport.get(item) >= minSupportRelative) {
-                    transaction.add(item);
+            // the conditional trees are not needed anymore
+            arrayTree.releaseConditionalTrees();
+        } else {
+            arrayTree = null;
+            // (2) Scan the database again to build the initial FP-Tree
+            // Before inserting a transaction in the FPTree, we sort the items
+            // by descending order of support.  We ignore items that
+            // do not have the minimum support.
+            FPTree tree = new FPTree();
+
+            // read the file
+            // (empty lines, comments and metadata are skipped by the reader)
+            SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+            // buffers for the items of a transaction and for sorting them
+            int[] transaction = new int[64];
+            long[] sortBuffer = new long[64];
+            // for each transaction until the end of the file
+            while (reader.nextTransaction()) {
+                // the items of the transaction (this buffer is reused by the reader)
+                int[] items = reader.getItems();
+                int itemCount = reader.getItemCount();
+                if (transaction.length < itemCount) {
+                    transaction = new int[itemCount];
+                    sortBuffer = new long[itemCount];
                 }
+                int transactionLength = 0;
+
+                // for each item in the transaction
+                for (int i = 0; i < itemCount; i++) {
+                    int item = items[i];
+                    // only add items that have the minimum support
+                    if (originalMapSupport.get(item) >= minSupportRelative) {
+                        transaction[transactionLength++] = item;
+                    }
+                }
+                // sort item in the transaction by descending order of support
+                // (if the same frequency, we check the lexical ordering)
+                FPTree.sortByDescendingSupport(transaction, transactionLength, originalMapSupport, sortBuffer);
+                // add the sorted transaction to the fptree.
+                tree.addTransaction(transaction, transactionLength);
             }
-            // sort item in the transaction by descending order of support
-            Collections.sort(transaction, comparatorOriginalOrder);
-            // add the sorted transaction to the fptree.
-            tree.addTransaction(transaction);
-        }
-
-        cfiTree.setComparator(comparatorOriginalOrder);
-        // close the input file
-        reader.close();
+            // close the input file
+            reader.close();
 
-        // We create the header table for the tree using the calculated support of single items
-        tree.createHeaderList(originalMapSupport);
+            // We create the header table for the tree using the calculated support of single items
+            tree.createHeaderList(originalMapSupport);
 
 
-//		System.out.println(tree);
+    //		System.out.println(tree);
 
-        // (5) We start to mine the FP-Tree by calling the recursive method.
-        // Initially, the prefix alpha is empty.
-        // if at least an item is frequent
-        if (tree.headerList.size() > 0) {
-            // initialize the buffer for storing the current itemset
-            itemsetBuffer = new int[BUFFERS_SIZE];
-            countBuffer = new int[BUFFERS_SIZE];
-            // Next we will recursively generate frequent itemsets using the fp-tree
-            fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+            // (5) We start to mine the FP-Tree by calling the recursive method.
+            // Initially, the prefix alpha is empty.
+            // if at least an item is frequent
+            if (tree.headerList.size() > 0) {
+                // initialize the buffer for storing the current itemset
+                itemsetBuffer = new int[BUFFERS_SIZE];
+                countBuffer = new int[BUFFERS_SIZE];
+                // Next we will recursively generate frequent itemsets using the fp-tree
+                fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+            }
         }
 
         // close the output file if the result was saved to a file
@@ -215,7 +251,7 @@ public class AlgoFPClose {
      * @param mapSupport the frequency of items in the FP-Tree
      * @throws IOException exception if error writing the output file
      */
-    private void fpclose(FPTree tree, int[] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+    private void fpclose(FPTree tree, int[] prefix, int prefixLength, int prefixSupport, AbstractIntIntMap mapSupport) throws IOException {
 //		======= DEBUG ========
         if (DEBUG) {
             System.out.print("###### Prefix: ");
@@ -263,45 +299,7 @@ public class AlgoFPClose {
         if (singlePath && countBuffer[position - 1] >= minSupportRelative) {
 //			System.out.println();
             // generate all the CFIs from this path
-            // for each CFI X generated, we will check if X is closed
-            // by looking at the CFI-tree. If yes we will insert X in
-            // the CFI-Tree
-            for (int i = prefixLength; i <= position; i++) {
-                // if  the last item
-                if (i == position) {
-                    int pathSupport = countBuffer[i - 1];
-
-                    // if he current itemset passes the closure checking
-                    // we save this as a closed itemset
-                    int[] headWithP = new int[i];
-                    System.arraycopy(itemsetBuffer, 0, headWithP, 0, i);
-                    sortOriginalOrder(headWithP, i);
-
-                    if (cfiTree.passSubsetChecking(headWithP, i, pathSupport)) {
-                        saveItemset(headWithP, i, pathSupport);
-                    }
-                } else {
-                    // if the counter of item in the i+1 th position is different
-                    // from the counter of item in the i th position:
-                    if (i > 0 && countBuffer[i - 1] != 0 && countBuffer[i - 1] != countBuffer[i]) {
-                        int pathSupport = countBuffer[i - 1];  // NEW
-
-                        // if he current itemset passes the closure checking
-                        // we save this as a closed itemset
-                        int[] headWithP = new int[i];
-                        System.arraycopy(itemsetBuffer, 0, headWithP, 0, i);
-                        sortOriginalOrder(headWithP, i);
-
-                        if (cfiTree.passSubsetChecking(headWithP, i, pathSupport)) {
-                            // if the itemset ending in the i th position passes
-                            // the closure checking,
-                            // we save the itemset ending in the i th position as a closed itemset
-                            saveItemset(headWithP, i, pathSupport);
-                        }
-                    }
-                }
-
-            }
+            saveClosedItemsetsOfSinglePath(prefixLength, position);
         } else {
             // Case 2: There are multiple paths.
 
@@ -328,7 +326,7 @@ public class AlgoFPClose {
 
                 // Map to count the support of items in the conditional prefix tree
                 // Key: item   Value: support
-                Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+                IntIntMap mapSupportBeta = new IntIntMap();
 
                 while (path != null) {
                     // if the path is not just the root node
@@ -348,14 +346,8 @@ public class AlgoFPClose {
                             prefixPath.add(parent);
 
                             // FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-                            // if the first time we see that node id
-                            if (mapSupportBeta.get(parent.itemID) == null) {
-                                // just add the path count
-                                mapSupportBeta.put(parent.itemID, pathCount);
-                            } else {
-                                // otherwise, make the sum with the value already stored
-                                mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-                            }
+                            // (the path count is added to the value already stored, if any)
+                            mapSupportBeta.increment(parent.itemID, pathCount);
                             parent = parent.parent;
                         }
                         // add the path to the list of prefixpaths
@@ -421,6 +413,135 @@ public class AlgoFPClose {
         }
     }
 
+    /**
+     * Mine an FP-Tree stored in arrays. This method does the same thing as the method
+     * for FPTree, except that the conditional trees are taken from the pool of trees
+     * of the ArrayFPTree, and that items are sorted according to the original order
+     * by sorting their ranks.
+     *
+     * @param tree          the FP-tree
+     * @param prefix        the current prefix, named "alpha"
+     * @param prefixLength  the current prefix length
+     * @param prefixSupport the support of the current prefix
+     * @throws IOException exception if error writing the output file
+     */
+    private void fpclose(ArrayFPTree tree, int[] prefix, int prefixLength, int prefixSupport) throws IOException {
+        // We first check if the FPtree contains a single path
+        // and copy the items and their counters in the buffers
+        int position = tree.copySinglePath(itemsetBuffer, countBuffer, prefixLength);
+
+        // Case 1: the FPtree contains a single path
+        // If this path has enough support:
+        if (position >= 0 && countBuffer[position - 1] >= minSupportRelative) {
+            // generate all the CFIs from this path
+            saveClosedItemsetsOfSinglePath(prefixLength, position);
+        } else {
+            // Case 2: There are multiple paths.
+
+            // For each frequent item in the header table list of the tree in reverse order. (in decreasing order of support...)
+            for (int i = tree.headerListSize - 1; i >= 0; i--) {
+                // get the item (rank)
+                int rank = tree.headerList[i];
+
+                // get the item support
+                int support = tree.support[rank];
+
+                // calculate the support of the new prefix beta
+                int betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+                // Create Beta by concatening item to the current prefix  alpha
+                prefix[prefixLength] = tree.getItem(rank);
+                rankBuffer[prefixLength] = rank;
+                countBuffer[prefixLength] = betaSupport;
+
+                // ===== FP-CLOSE ======
+                // concatenate Beta (Head) with the item "item" (i) to check
+                // for closure, sorted according to the original header list total order on items
+                int[] headRanks = new int[prefixLength + 1];
+                System.arraycopy(rankBuffer, 0, headRanks, 0, prefixLength + 1);
+                Arrays.sort(headRanks);
+                int[] headWithP = new int[prefixLength + 1];
+                for (int j = 0; j < headRanks.length; j++) {
+                    headWithP[j] = tree.getItem(headRanks[j]);
+                }
+
+                // CHECK IF HEAD U P IS A SUBSET OF A CFI ACCORDING TO THE CFI-TREE
+                if (cfiTree.passSubsetChecking(headWithP, prefixLength + 1, betaSupport)) {
+                    // (A) Construct beta's conditional pattern base
+                    // and (B) construct beta's conditional FP-Tree
+                    ArrayFPTree treeBeta = tree.getConditionalTree(prefixLength + 1);
+                    treeBeta.countPrefixPaths(tree, rank);
+                    treeBeta.addPrefixPaths(tree, rank, minSupportRelative);
+                    // Mine recursively the Beta tree if the root has child(s)
+                    if (!treeBeta.isEmpty()) {
+                        // Create the header list.
+                        treeBeta.createHeaderListByRank();
+                        // recursive call
+                        fpclose(treeBeta, prefix, prefixLength + 1, betaSupport);
+                    }
+                    // if the tree is empty we still need to try to save the
+                    // itemset
+                    if (cfiTree.passSubsetChecking(headWithP, prefixLength + 1, betaSupport)) {
+                        saveItemset(headWithP, prefixLength + 1, betaSupport);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Generate the closed itemsets from a single path. The items of the path
+     * are in the itemsetBuffer after the prefix, and their counters are in the countBuffer.
+     * For each itemset X generated, we check if X is closed by looking at the CFI-tree.
+     * If yes we insert X in the CFI-Tree.
+     *
+     * @param prefixLength the length of the prefix
+     * @param position     the position after the last item of the path in the buffers
+     * @throws IOException exception if error writing the output file
+     */
+    private void saveClosedItemsetsOfSinglePath(int prefixLength, int position) throws IOException {
+        // generate all the CFIs from this path
+        // for each CFI X generated, we will check if X is closed
+        // by looking at the CFI-tree. If yes we will insert X in
+        // the CFI-Tree
+        for (int i = prefixLength; i <= position; i++) {
+            // if  the last item
+            if (i == position) {
+                int pathSupport = countBuffer[i - 1];
+
+                // if he current itemset passes the closure checking
+                // we save this as a closed itemset
+                int[] headWithP = new int[i];
+                System.arraycopy(itemsetBuffer, 0, headWithP, 0, i);
+                sortOriginalOrder(headWithP, i);
+
+                if (cfiTree.passSubsetChecking(headWithP, i, pathSupport)) {
+                    saveItemset(headWithP, i, pathSupport);
+                }
+            } else {
+                // if the counter of item in the i+1 th position is different
+                // from the counter of item in the i th position:
+                if (i > 0 && countBuffer[i - 1] != 0 && countBuffer[i - 1] != countBuffer[i]) {
+                    int pathSupport = countBuffer[i - 1];  // NEW
+
+                    // if he current itemset passes the closure checking
+                    // we save this as a closed itemset
+                    int[] headWithP = new int[i];
+                    System.arraycopy(itemsetBuffer, 0, headWithP, 0, i);
+                    sortOriginalOrder(headWithP, i);
+
+                    if (cfiTree.passSubsetChecking(headWithP, i, pathSupport)) {
+                        // if the itemset ending in the i th position passes
+                        // the closure checking,
+                        // we save the itemset ending in the i th position as a closed itemset
+                        saveItemset(headWithP, i, pathSupport);
+                    }
+                }
+            }
+
+        }
+    }
+
     /**
      * Write a frequent itemset that is found to the output file or
      * keep into memory if the user prefer that the result be saved into memory.
@@ -508,34 +629,22 @@ public class AlgoFPClose {
      * @return a map for storing the support of each item (key: item, value: support)
      * @throws IOException exception if error while writing the file
      */
-    private Map<Integer, Integer> scanDatabaseToDetermineFrequencyOfSingleItems(String input)
+    private AbstractIntIntMap scanDatabaseToDetermineFrequencyOfSingleItems(String input)
             throws IOException {
         // a map for storing the support of each item (key: item, value: support)
-        Map<Integer, Integer> mapSupport = new HashMap<Integer, Integer>();
+        IntIntMap mapSupport = new IntIntMap();
         //Create object for reading the input file
-        BufferedReader reader = new BufferedReader(new FileReader(input));
-        String line;
-        // for each line (transaction) until the end of file
-        while (((line = reader.readLine()) != null)) {
-            // if the line is  a comment, is  empty or is a
-            // kind of metadata
-            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
-                continue;
-            }
-
-            // split the line into items
-            String[] lineSplited = line.split(" ");
+        // (empty lines, comments and metadata are skipped by the reader)
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+        // for each transaction until the end of file
+        while (reader.nextTransaction()) {
+            // the items of the transaction (this buffer is reused by the reader)
+            int[] items = reader.getItems();
+            int itemCount = reader.getItemCount();
             // for each item
-            for (String itemString : lineSplited) {
+            for (int i = 0; i < itemCount; i++) {
                 // increase the support count of the item
-                Integer item = Integer.parseInt(itemString);
-                // increase the support count of the item
-                Integer count = mapSupport.get(item);
-                if (count == null) {
-                    mapSupport.put(item, 1);
-                } else {
-                    mapSupport.put(item, ++count);
-                }
+                mapSupport.increment(items[i], 1);
             }
             // increase the transaction count
             transactionCount++;
@@ -543,7 +652,8 @@ public class AlgoFPClose {
         // close the input file
         reader.close();
 
-        return mapSupport;
+        // the map is only read from now on, so it is converted to the fastest representation
+        return IntMaps.optimizeForLookups(mapSupport);
     }
 
 
@@ -556,10 +666,25 @@ public class AlgoFPClose {
         System.out.println(" Transactions count from database : " + transactionCount);
         System.out.print(" Max memory usage: " + MemoryLogger.getInstance().getMaxMemory() + " mb \n");
         System.out.println(" Closed frequent itemset count : " + itemsetCount);
+        if (arrayTree != null) {
+            System.out.println(" Array FP-tree nodes : " + arrayTree.getNodeCount()
+                               + "  pooled trees : " + arrayTree.getAllocatedTreeCount()
+                               + "  arrays memory ~ " + String.format("%.2f", arrayTree.getAllocatedMemory()) + " mb");
+        }
         System.out.println(" Total time ~ " + temps + " ms");
         System.out.println("===================================================");
     }
 
+    /**
+     * Set whether the array-based FP-tree (ArrayFPTree) should be used instead of FPTree.
+     * Both produce the same result.
+     *
+     * @param useArrayTree true to use the array-based FP-tree
+     */
+    public void setUseArrayTree(boolean useArrayTree) {
+        this.useArrayTree = useArrayTree;
+    }
+
     /**
      * Get the number of transactions in the last transaction database read.
      *
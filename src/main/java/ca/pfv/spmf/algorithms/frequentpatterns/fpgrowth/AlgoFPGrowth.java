@@ -18,12 +18,18 @@ package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
  */
 
 
+import ca.pfv.spmf.datastructures.primitivemaps.AbstractIntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntMaps;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.RunMetrics;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * This is an implementation of the FPGROWTH algorithm (Han et al., 2004).
@@ -62,8 +68,10 @@ public class AlgoFPGrowth {
     // buffer for storing the current itemset that is mined when performing mining
     // the idea is to always reuse the same buffer to reduce memory usage.
     private int[] itemsetBuffer = null;
-    // another buffer for storing fpnodes in a single path of the tree
-    private FPNode[] fpNodeTempBuffer = null;
+    // other buffers for storing the items and support counters of the nodes
+    // in a single path of the tree
+    private int[] singlePathItems = null;
+    private int[] singlePathCounts = null;
 
     // This buffer is used to store an itemset that will be written to file
     // so that the algorithm can sort the itemset before it is output to file
@@ -80,6 +88,37 @@ public class AlgoFPGrowth {
      */
     private int minPatternLength = 0;
 
+    /**
+     * if true, the array-based FP-tree (ArrayFPTree) is used instead of FPTree
+     */
+    private boolean useArrayTree = false;
+
+    /**
+     * the initial tree, if the array-based FP-tree is used (for statistics)
+     */
+    private ArrayFPTree arrayTree = null;
+
+    /**
+     * the number of threads used for mining the items of the header table of the initial tree
+     */
+    private int threadCount = 1;
+
+    /**
+     * the maximum number of items of the header table that are mined in parallel per thread,
+     * ahead of the next item whose itemsets are written
+     */
+    private static final int PENDING_TASKS_PER_THREAD = 2;
+
+    /**
+     * the output buffer of a worker thread (only used by workers when mining in parallel)
+     */
+    private StringWriter workerOutput = null;
+
+    /**
+     * the statistics of the last execution (phases, memory)
+     */
+    private RunMetrics metrics = null;
+
 
     /**
      * Constructor
@@ -99,6 +138,26 @@ public class AlgoFPGrowth {
      * @throws IOException exception if error reading or writing files
      */
     public Itemsets runAlgorithm(String input, String output, double minsupp) throws IOException {
+        // the memory usage and statistics are recorded separately for this execution
+        metrics = RunMetrics.start("FPGrowth");
+        try {
+            return runFPGrowth(input, output, minsupp);
+        } finally {
+            metrics.setCounter(RunMetrics.PATTERNS, itemsetCount);
+            metrics.end();
+        }
+    }
+
+    /**
+     * Run the algorithm (called by runAlgorithm())
+     *
+     * @param input   the path to an input file containing a transaction database.
+     * @param output  the output file path or null
+     * @param minsupp the minimum support threshold.
+     * @return the result if no output file path is provided.
+     * @throws IOException exception if error reading or writing files
+     */
+    private Itemsets runFPGrowth(String input, String output, double minsupp) throws IOException {
         // record start time
         startTimestamp = System.currentTimeMillis();
         // number of itemsets found
@@ -121,82 +180,101 @@ public class AlgoFPGrowth {
         // (1) PREPROCESSING: Initial database scan to determine the frequency of each item
         // The frequency is stored in a map:
         //    key: item   value: support
-        final Map<Integer, Integer> mapSupport = scanDatabaseToDetermineFrequencyOfSingleItems(input);
+        metrics.startPhase(RunMetrics.Phase.SCAN);
+        final AbstractIntIntMap mapSupport = scanDatabaseToDetermineFrequencyOfSingleItems(input);
 
         // convert the minimum support as percentage to a
         // relative minimum support
         this.minSupportRelative = (int) Math.ceil(minsupp * transactionCount);
 
-        // (2) Scan the database again to build the initial FP-Tree
-        // Before inserting a transaction in the FPTree, we sort the items
-        // by descending order of support.  We ignore items that
-        // do not have the minimum support.
-        FPTree tree = new FPTree();
-
-        // read the file
-        BufferedReader reader = new BufferedReader(new FileReader(input));
-        String line;
-        // for each line (transaction) until the end of the file
-        while (((line = reader.readLine()) != null)) {
-            // if the line is  a comment, is  empty or is a
-            // kind of metadata
-            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
-                || line.charAt(0) == '@') {
-                continue;
+        // initialize the buffer for storing the current itemset
+        itemsetBuffer = new int[BUFFERS_SIZE];
+        // and the buffers for storing a single path
+        singlePathItems = new int[BUFFERS_SIZE];
+        singlePathCounts = new int[BUFFERS_SIZE];
+
+        if (useArrayTree) {
+            // (2) Scan the database again to build the initial FP-Tree,
+            // where the items are recoded to their ranks
+            metrics.startPhase(RunMetrics.Phase.BUILD);
+            arrayTree = ArrayFPTree.buildInitialTree(input, mapSupport, minSupportRelative);
+            MemoryLogger.getInstance().checkMemory();
+
+            // We create the header table for the tree
+            arrayTree.createHeaderList();
+
+            // (5) We start to mine the FP-Tree by calling the recursive method.
+            // if at least an item is frequent
+            metrics.startPhase(RunMetrics.Phase.MINE);
+            if (arrayTree.headerListSize > 0) {
+                fpgrowth(arrayTree, itemsetBuffer, 0, transactionCount);
             }
-
-            String[] lineSplited = line.split(" ");
-//			Set<Integer> alreadySeen = new HashSet<Integer>();
-            List<Integer> transaction = new ArrayList<Integer>();
-
-            // for each item in the transaction
-            for (String itemString : lineSplited) {
-                Integer item = Integer.parseInt(itemString);
-                // only add items that have the minimum support
-                if (mapSupport.get(item) >= minSupportRelative) {
-                    transaction.add(item);
+            // the conditional trees are not needed anymore
+            arrayTree.releaseConditionalTrees();
+        } else {
+            arrayTree = null;
+            // (2) Scan the database again to build the initial FP-Tree
+            // Before inserting a transaction in the FPTree, we sort the items
+            // by descending order of support.  We ignore items that
+            // do not have the minimum support.
+            metrics.startPhase(RunMetrics.Phase.BUILD);
+            FPTree tree = new FPTree();
+
+            // read the file
+            // (empty lines, comments and metadata are skipped by the reader)
+            SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+            // buffers for the items of a transaction and for sorting them
+            int[] transaction = new int[64];
+            long[] sortBuffer = new long[64];
+            // for each transaction until the end of the file
+            while (reader.nextTransaction()) {
+                // the items of the transaction (this buffer is reused by the reader)
+                int[] items = reader.getItems();
+                int itemCount = reader.getItemCount();
+                if (transaction.length < itemCount) {
+                    transaction = new int[itemCount];
+                    sortBuffer = new long[itemCount];
                 }
-            }
-            // sort item in the transaction by descending order of support
-            Collections.sort(transaction, new Comparator<Integer>() {
-                public int compare(Integer item1, Integer item2) {
-                    // compare the frequency
-                    int compare = mapSupport.get(item2) - mapSupport.get(item1);
-                    // if the same frequency, we check the lexical ordering!
-                    if (compare == 0) {
-                        return (item1 - item2);
+                int transactionLength = 0;
+
+                // for each item in the transaction
+                for (int i = 0; i < itemCount; i++) {
+                    int item = items[i];
+                    // only add items that have the minimum support
+                    if (mapSupport.get(item) >= minSupportRelative) {
+                        transaction[transactionLength++] = item;
                     }
-                    // otherwise, just use the frequency
-                    return compare;
                 }
-            });
-            // add the sorted transaction to the fptree.
-            tree.addTransaction(transaction);
-        }
-        // close the input file
-        reader.close();
-
-        // We create the header table for the tree using the calculated support of single items
-        tree.createHeaderList(mapSupport);
-
-        // (5) We start to mine the FP-Tree by calling the recursive method.
-        // Initially, the prefix alpha is empty.
-        // if at least an item is frequent
-        if (tree.headerList.size() > 0) {
-            // initialize the buffer for storing the current itemset
-            itemsetBuffer = new int[BUFFERS_SIZE];
-            // and another buffer
-            fpNodeTempBuffer = new FPNode[BUFFERS_SIZE];
-            // recursively generate frequent itemsets using the fp-tree
-            // Note: we assume that the initial FP-Tree has more than one path
-            // which should generally be the case.
-            fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
+                // sort item in the transaction by descending order of support
+                // (if the same frequency, we check the lexical ordering)
+                FPTree.sortByDescendingSupport(transaction, transactionLength, mapSupport, sortBuffer);
+                // add the sorted transaction to the fptree.
+                tree.addTransaction(transaction, transactionLength);
+            }
+            // close the input file
+            reader.close();
+
+            // We create the header table for the tree using the calculated support of single items
+            tree.createHeaderList(mapSupport);
+
+            // (5) We start to mine the FP-Tree by calling the recursive method.
+            // Initially, the prefix alpha is empty.
+            // if at least an item is frequent
+            metrics.startPhase(RunMetrics.Phase.MINE);
+            if (tree.headerList.size() > 0) {
+                // recursively generate frequent itemsets using the fp-tree
+                // Note: we assume that the initial FP-Tree has more than one path
+                // which should generally be the case.
+                fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
+            }
         }
 
         // close the output file if the result was saved to a file
+        metrics.startPhase(RunMetrics.Phase.WRITE);
         if (writer != null) {
             writer.close();
         }
+        metrics.endPhase();
         // record the execution end time
         endTime = System.currentTimeMillis();
 
@@ -216,7 +294,7 @@ public class AlgoFPGrowth {
      * @param mapSupport the frequency of items in the FP-Tree
      * @throws IOException exception if error writing the output file
      */
-    private void fpgrowth(FPTree tree, int[] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+    private void fpgrowth(FPTree tree, int[] prefix, int prefixLength, int prefixSupport, AbstractIntIntMap mapSupport) throws IOException {
 
         if (prefixLength == maxPatternLength) {
             return;
@@ -253,8 +331,9 @@ public class AlgoFPGrowth {
                     break;
                 }
                 // otherwise, we copy the current item in the buffer and move to the child
-                // the buffer will be used to store all items in the path
-                fpNodeTempBuffer[position] = currentNode;
+                // the buffers will be used to store all items in the path
+                singlePathItems[position] = currentNode.itemID;
+                singlePathCounts[position] = currentNode.counter;
 
                 position++;
                 // if this node has no child, that means that this is the end of this path
@@ -269,105 +348,342 @@ public class AlgoFPGrowth {
         // Case 1: the FPtree contains a single path
         if (singlePath) {
             // We save the path, because it is a maximal itemset
-            saveAllCombinationsOfPrefixPath(fpNodeTempBuffer, position, prefix, prefixLength);
+            saveAllCombinationsOfPrefixPath(position, prefix, prefixLength);
+        } else if (prefixLength == 0 && threadCount > 1) {
+            // the items of the header table of the initial tree are mined by several threads
+            mineInParallel(tree, null, mapSupport);
         } else {
             // For each frequent item in the header table list of the tree in reverse order.
             for (int i = tree.headerList.size() - 1; i >= 0; i--) {
-                // get the item
-                Integer item = tree.headerList.get(i);
-
-                // get the item support
-                int support = mapSupport.get(item);
-
-                // Create Beta by concatening prefix Alpha by adding the current item to alpha
-                prefix[prefixLength] = item;
-
-                // calculate the support of the new prefix beta
-                int betaSupport = (prefixSupport < support) ? prefixSupport : support;
-
-                // save beta to the output file
-                saveItemset(prefix, prefixLength + 1, betaSupport);
-
-                if (prefixLength + 1 < maxPatternLength) {
-
-                    // === (A) Construct beta's conditional pattern base ===
-                    // It is a subdatabase which consists of the set of prefix paths
-                    // in the FP-tree co-occuring with the prefix pattern.
-                    List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-                    FPNode path = tree.mapItemNodes.get(item);
-
-                    // Map to count the support of items in the conditional prefix tree
-                    // Key: item   Value: support
-                    Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-
-                    while (path != null) {
-                        // if the path is not just the root node
-                        if (path.parent.itemID != -1) {
-                            // create the prefixpath
-                            List<FPNode> prefixPath = new ArrayList<FPNode>();
-                            // add this node.
-                            prefixPath.add(path);   // NOTE: we add it just to keep its support,
-                            // actually it should not be part of the prefixPath
-
-                            // ####
-                            int pathCount = path.counter;
-
-                            //Recursively add all the parents of this node.
-                            FPNode parent = path.parent;
-                            while (parent.itemID != -1) {
-                                prefixPath.add(parent);
-
-                                // FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-                                // if the first time we see that node id
-                                if (mapSupportBeta.get(parent.itemID) == null) {
-                                    // just add the path count
-                                    mapSupportBeta.put(parent.itemID, pathCount);
-                                } else {
-                                    // otherwise, make the sum with the value already stored
-                                    mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-                                }
-                                parent = parent.parent;
-                            }
-                            // add the path to the list of prefixpaths
-                            prefixPaths.add(prefixPath);
-                        }
-                        // We will look for the next prefixpath
-                        path = path.nodeLink;
-                    }
+                mineHeaderItem(tree, i, prefix, prefixLength, prefixSupport, mapSupport);
+            }
+        }
+
+    }
 
-                    // (B) Construct beta's conditional FP-Tree
-                    // Create the tree.
-                    FPTree treeBeta = new FPTree();
-                    // Add each prefixpath in the FP-tree.
-                    for (List<FPNode> prefixPath : prefixPaths) {
-                        treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative);
+    /**
+     * Mine the itemsets starting with the prefix and an item of the header table of an FP-Tree:
+     * the prefix followed by the item is saved, and then its conditional FP-Tree is built
+     * and mined recursively.
+     *
+     * @param tree          the FP-tree
+     * @param i             the position of the item in the header table
+     * @param prefix        the current prefix, named "alpha"
+     * @param prefixLength  the current prefix length
+     * @param prefixSupport the support of the current prefix
+     * @param mapSupport    the frequency of items in the FP-Tree
+     * @throws IOException exception if error writing the output file
+     */
+    private void mineHeaderItem(FPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+                                AbstractIntIntMap mapSupport) throws IOException {
+        // get the item
+        Integer item = tree.headerList.get(i);
+
+        // get the item support
+        int support = mapSupport.get(item);
+
+        // Create Beta by concatening prefix Alpha by adding the current item to alpha
+        prefix[prefixLength] = item;
+
+        // calculate the support of the new prefix beta
+        int betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+        // save beta to the output file
+        saveItemset(prefix, prefixLength + 1, betaSupport);
+
+        if (prefixLength + 1 < maxPatternLength) {
+
+            // === (A) Construct beta's conditional pattern base ===
+            // It is a subdatabase which consists of the set of prefix paths
+            // in the FP-tree co-occuring with the prefix pattern.
+            List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+            FPNode path = tree.mapItemNodes.get(item);
+
+            // Map to count the support of items in the conditional prefix tree
+            // Key: item   Value: support
+            IntIntMap mapSupportBeta = new IntIntMap();
+
+            while (path != null) {
+                // if the path is not just the root node
+                if (path.parent.itemID != -1) {
+                    // create the prefixpath
+                    List<FPNode> prefixPath = new ArrayList<FPNode>();
+                    // add this node.
+                    prefixPath.add(path);   // NOTE: we add it just to keep its support,
+                    // actually it should not be part of the prefixPath
+
+                    // ####
+                    int pathCount = path.counter;
+
+                    //Recursively add all the parents of this node.
+                    FPNode parent = path.parent;
+                    while (parent.itemID != -1) {
+                        prefixPath.add(parent);
+
+                        // FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+                        // (the path count is added to the value already stored, if any)
+                        mapSupportBeta.increment(parent.itemID, pathCount);
+                        parent = parent.parent;
                     }
+                    // add the path to the list of prefixpaths
+                    prefixPaths.add(prefixPath);
+                }
+                // We will look for the next prefixpath
+                path = path.nodeLink;
+            }
+
+            // (B) Construct beta's conditional FP-Tree
+            // Create the tree.
+            FPTree treeBeta = new FPTree();
+            // Add each prefixpath in the FP-tree.
+            for (List<FPNode> prefixPath : prefixPaths) {
+                treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative);
+            }
+
+            // Mine recursively the Beta tree if the root has child(s)
+            if (treeBeta.root.childs.size() > 0) {
 
-                    // Mine recursively the Beta tree if the root has child(s)
-                    if (treeBeta.root.childs.size() > 0) {
+                // Create the header list.
+                treeBeta.createHeaderList(mapSupportBeta);
+                // recursive call
+                fpgrowth(treeBeta, prefix, prefixLength + 1, betaSupport, mapSupportBeta);
+            }
+        }
+    }
+
+
+    /**
+     * Mine an FP-Tree stored in arrays. This method does the same thing as the method
+     * for FPTree, except that the conditional trees are taken from the pool of trees
+     * of the ArrayFPTree.
+     *
+     * @param tree          the FP-tree
+     * @param prefix        the current prefix, named "alpha"
+     * @param prefixLength  the current prefix length
+     * @param prefixSupport the support of the current prefix
+     * @throws IOException exception if error writing the output file
+     */
+    private void fpgrowth(ArrayFPTree tree, int[] prefix, int prefixLength, int prefixSupport) throws IOException {
+        if (prefixLength == maxPatternLength) {
+            return;
+        }
+
+        // We will check if the FPtree contains a single path
+        // and copy the items in that path in the buffers
+        int position = tree.copySinglePath(singlePathItems, singlePathCounts, 0);
 
-                        // Create the header list.
-                        treeBeta.createHeaderList(mapSupportBeta);
-                        // recursive call
-                        fpgrowth(treeBeta, prefix, prefixLength + 1, betaSupport, mapSupportBeta);
+        // Case 1: the FPtree contains a single path
+        if (position >= 0) {
+            saveAllCombinationsOfPrefixPath(position, prefix, prefixLength);
+        } else if (prefixLength == 0 && threadCount > 1) {
+            // the items of the header table of the initial tree are mined by several threads
+            mineInParallel(null, tree, null);
+        } else {
+            // For each frequent item in the header table list of the tree in reverse order.
+            for (int i = tree.headerListSize - 1; i >= 0; i--) {
+                mineHeaderItem(tree, i, prefix, prefixLength, prefixSupport);
+            }
+        }
+    }
+
+    /**
+     * Mine the itemsets starting with the prefix and an item of the header table of
+     * an FP-Tree stored in arrays.
+     *
+     * @param tree          the FP-tree
+     * @param i             the position of the item in the header table
+     * @param prefix        the current prefix, named "alpha"
+     * @param prefixLength  the current prefix length
+     * @param prefixSupport the support of the current prefix
+     * @throws IOException exception if error writing the output file
+     */
+    private void mineHeaderItem(ArrayFPTree tree, int i, int[] prefix, int prefixLength,
+                                int prefixSupport) throws IOException {
+        // get the item (rank)
+        int rank = tree.headerList[i];
+
+        // get the item support
+        int support = tree.support[rank];
+
+        // Create Beta by concatening prefix Alpha by adding the current item to alpha
+        prefix[prefixLength] = tree.getItem(rank);
+
+        // calculate the support of the new prefix beta
+        int betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+        // save beta to the output file
+        saveItemset(prefix, prefixLength + 1, betaSupport);
+
+        if (prefixLength + 1 < maxPatternLength) {
+            // (A) Calculate the support of items in beta's conditional pattern base
+            // and (B) construct beta's conditional FP-Tree
+            ArrayFPTree treeBeta = tree.getConditionalTree(prefixLength + 1);
+            treeBeta.countPrefixPaths(tree, rank);
+            treeBeta.addPrefixPaths(tree, rank, minSupportRelative);
+
+            // Mine recursively the Beta tree if the root has child(s)
+            if (!treeBeta.isEmpty()) {
+                // Create the header list.
+                treeBeta.createHeaderList();
+                // recursive call
+                fpgrowth(treeBeta, prefix, prefixLength + 1, betaSupport);
+            }
+        }
+    }
+
+    /**
+     * Mine the items of the header table of the initial FP-Tree using several threads.
+     * Each item is mined by a worker (an instance of this class having its own buffers)
+     * that writes the itemsets in its own output buffer. The output buffers are then
+     * merged in the order of the header table, so that the result is the same as when a single
+     * thread is used. Each output buffer is written as soon as the buffers of the previous items
+     * are written, and at most PENDING_TASKS_PER_THREAD items per thread are mined ahead of
+     * the next item to write, so that the buffers waiting to be written do not hold the whole result.
+     *
+     * @param tree       the initial FP-Tree (or null if the array-based FP-Tree is used)
+     * @param arrayTree  the initial array-based FP-Tree (or null if FPTree is used)
+     * @param mapSupport the frequency of items in the FP-Tree (or null if the array-based FP-Tree is used)
+     * @throws IOException exception if error writing the output file
+     */
+    private void mineInParallel(final FPTree tree, final ArrayFPTree arrayTree,
+                                final AbstractIntIntMap mapSupport) throws IOException {
+        // each thread has its own worker
+        final ThreadLocal<AlgoFPGrowth> workers = new ThreadLocal<AlgoFPGrowth>() {
+            @Override
+            protected AlgoFPGrowth initialValue() {
+                return createWorker();
+            }
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            // For each frequent item in the header table list of the tree in reverse order,
+            // a task is submitted (the tasks that are submitted and not yet merged are pending)
+            int headerListSize = (tree != null) ? tree.headerList.size() : arrayTree.headerListSize;
+            int maxPendingTasks = threadCount * PENDING_TASKS_PER_THREAD;
+            Deque<Future<WorkerResult>> pendingTasks = new ArrayDeque<Future<WorkerResult>>(maxPendingTasks);
+            int nextPosition = headerListSize - 1;
+            while (nextPosition >= 0 || !pendingTasks.isEmpty()) {
+                // submit the next items, until the maximum number of pending tasks is reached
+                while (nextPosition >= 0 && pendingTasks.size() < maxPendingTasks) {
+                    final int position = nextPosition--;
+                    pendingTasks.add(pool.submit(new Callable<WorkerResult>() {
+                        public WorkerResult call() throws IOException {
+                            AlgoFPGrowth worker = workers.get();
+                            worker.startWorkerTask(writer != null);
+                            if (tree != null) {
+                                worker.mineHeaderItem(tree, position, worker.itemsetBuffer, 0, transactionCount, mapSupport);
+                            } else {
+                                worker.mineHeaderItem(arrayTree, position, worker.itemsetBuffer, 0, transactionCount);
+                            }
+                            return worker.endWorkerTask();
+                        }
+                    }));
+                }
+
+                // merge the result of the oldest pending task, in the order of the header table
+                WorkerResult result = pendingTasks.poll().get();
+                itemsetCount += result.itemsetCount;
+                if (writer != null) {
+                    writer.write(result.output);
+                } else {
+                    for (List<Itemset> level : result.patterns.getLevels()) {
+                        for (Itemset itemset : level) {
+                            patterns.addItemset(itemset, itemset.size());
+                        }
                     }
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
         }
+    }
 
+    /**
+     * Create a worker for mining the items of the header table in parallel.
+     * A worker has the same parameters as this object, but its own buffers.
+     *
+     * @return the worker
+     */
+    private AlgoFPGrowth createWorker() {
+        AlgoFPGrowth worker = new AlgoFPGrowth();
+        worker.minSupportRelative = minSupportRelative;
+        worker.maxPatternLength = maxPatternLength;
+        worker.minPatternLength = minPatternLength;
+        worker.useArrayTree = useArrayTree;
+        worker.itemsetBuffer = new int[BUFFERS_SIZE];
+        worker.singlePathItems = new int[BUFFERS_SIZE];
+        worker.singlePathCounts = new int[BUFFERS_SIZE];
+        worker.itemsetOutputBuffer = new int[BUFFERS_SIZE];
+        return worker;
     }
 
+    /**
+     * Prepare a worker for mining an item of the header table
+     *
+     * @param saveToFile true if the itemsets are written to a file, false if they are kept in memory
+     */
+    private void startWorkerTask(boolean saveToFile) {
+        itemsetCount = 0;
+        if (saveToFile) {
+            workerOutput = new StringWriter();
+            writer = new BufferedWriter(workerOutput);
+            patterns = null;
+        } else {
+            writer = null;
+            patterns = new Itemsets("");
+        }
+    }
 
     /**
-     * This method saves all combinations of a prefix path if it has enough support
+     * Get the itemsets found by a worker for an item of the header table
      *
+     * @return the result
+     * @throws IOException if error while writing to the output buffer
+     */
+    private WorkerResult endWorkerTask() throws IOException {
+        WorkerResult result = new WorkerResult();
+        result.itemsetCount = itemsetCount;
+        if (writer != null) {
+            writer.flush();
+            result.output = workerOutput.toString();
+        } else {
+            result.patterns = patterns;
+        }
+        return result;
+    }
+
+    /**
+     * The itemsets found by a worker for an item of the header table
+     */
+    private static class WorkerResult {
+        // the number of itemsets
+        int itemsetCount;
+        // the itemsets written in the format of the output file (if the result is saved to a file)
+        String output;
+        // the itemsets (if the result is kept in memory)
+        Itemsets patterns;
+    }
+
+    /**
+     * This method saves all combinations of a prefix path if it has enough support.
+     * The items and support counters of the nodes of the path are read from the buffers
+     * singlePathItems and singlePathCounts.
+     *
+     * @param position     the number of nodes in the path
      * @param prefix       the current prefix
      * @param prefixLength the current prefix length
-     * @param prefixPath   the prefix path
      * @throws IOException if exception while writting to output file
      */
-    private void saveAllCombinationsOfPrefixPath(FPNode[] fpNodeTempBuffer, int position,
-                                                 int[] prefix, int prefixLength) throws IOException {
+    private void saveAllCombinationsOfPrefixPath(int position, int[] prefix, int prefixLength) throws IOException {
 
         int support = 0;
         // Generate all subsets of the prefixPath except the empty set
@@ -389,11 +705,11 @@ public class AlgoFPGrowth {
                         continue loop1;
                     }
 
-                    prefix[newPrefixLength++] = fpNodeTempBuffer[j].itemID;
+                    prefix[newPrefixLength++] = singlePathItems[j];
                     // 2018-03-18: REMOVED THE FOLLOWING "IF" to fix
                     // support counting error.
 //					if(support == 0) {
-                    support = fpNodeTempBuffer[j].counter;
+                    support = singlePathCounts[j];
 //					}
                 }
             }
@@ -410,34 +726,22 @@ public class AlgoFPGrowth {
      * @return a map for storing the support of each item (key: item, value: support)
      * @throws IOException exception if error while writing the file
      */
-    private Map<Integer, Integer> scanDatabaseToDetermineFrequencyOfSingleItems(String input)
+    private AbstractIntIntMap scanDatabaseToDetermineFrequencyOfSingleItems(String input)
             throws IOException {
         // a map for storing the support of each item (key: item, value: support)
-        Map<Integer, Integer> mapSupport = new HashMap<Integer, Integer>();
+        IntIntMap mapSupport = new IntIntMap();
         //Create object for reading the input file
-        BufferedReader reader = new BufferedReader(new FileReader(input));
-        String line;
-        // for each line (transaction) until the end of file
-        while (((line = reader.readLine()) != null)) {
-            // if the line is  a comment, is  empty or is a
-            // kind of metadata
-            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
-                continue;
-            }
-
-            // split the line into items
-            String[] lineSplited = line.split(" ");
+        // (empty lines, comments and metadata are skipped by the reader)
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+        // for each transaction until the end of file
+        while (reader.nextTransaction()) {
+            // the items of the transaction (this buffer is reused by the reader)
+            int[] items = reader.getItems();
+            int itemCount = reader.getItemCount();
             // for each item
-            for (String itemString : lineSplited) {
+            for (int i = 0; i < itemCount; i++) {
                 // increase the support count of the item
-                Integer item = Integer.parseInt(itemString);
-                // increase the support count of the item
-                Integer count = mapSupport.get(item);
-                if (count == null) {
-                    mapSupport.put(item, 1);
-                } else {
-                    mapSupport.put(item, ++count);
-                }
+                mapSupport.increment(items[i], 1);
             }
             // increase the transaction count
             transactionCount++;
@@ -445,7 +749,8 @@ public class AlgoFPGrowth {
         // close the input file
         reader.close();
 
-        return mapSupport;
+        // the map is only read from now on, so it is converted to the fastest representation
+        return IntMaps.optimizeForLookups(mapSupport);
     }
 
 
@@ -506,12 +811,31 @@ public class AlgoFPGrowth {
         System.out.println("=============  FP-GROWTH 2.42 - STATS =============");
         long temps = endTime - startTimestamp;
         System.out.println(" Transactions count from database : " + transactionCount);
-        System.out.print(" Max memory usage: " + MemoryLogger.getInstance().getMaxMemory() + " mb \n");
+        System.out.print(" Max memory usage: " + metrics.getPeakMemory() + " mb \n");
         System.out.println(" Frequent itemsets count : " + itemsetCount);
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
+        if (arrayTree != null) {
+            System.out.println(" Array FP-tree nodes : " + arrayTree.getNodeCount()
+                               + "  pooled trees : " + arrayTree.getAllocatedTreeCount()
+                               + "  arrays memory ~ " + String.format("%.2f", arrayTree.getAllocatedMemory()) + " mb");
+        }
         System.out.println(" Total time ~ " + temps + " ms");
+        System.out.println(" Phases : " + metrics.getPhaseTimesAsString());
         System.out.println("===================================================");
     }
 
+    /**
+     * Get the statistics of the last execution (time of each phase, memory usage, counters),
+     * e.g. to save them in a machine-readable format with RunMetrics.toJSON()
+     *
+     * @return the statistics or null if the algorithm was not run
+     */
+    public RunMetrics getRunMetrics() {
+        return metrics;
+    }
+
     /**
      * Get the number of transactions in the last transaction database read.
      *
@@ -530,6 +854,30 @@ public class AlgoFPGrowth {
         maxPatternLength = length;
     }
 
+    /**
+     * Set whether the array-based FP-tree (ArrayFPTree) should be used instead of FPTree.
+     * Both produce the same result.
+     *
+     * @param useArrayTree true to use the array-based FP-tree
+     */
+    public void setUseArrayTree(boolean useArrayTree) {
+        this.useArrayTree = useArrayTree;
+    }
+
+    /**
+     * Set the number of threads used for mining. If more than one thread is used,
+     * the items of the header table of the initial FP-tree are mined in parallel,
+     * and the result is the same as with a single thread.
+     *
+     * @param threadCount the number of threads (1 by default)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
     /**
      * Set the minimum pattern length
      *
@@ -18,13 +18,16 @@ package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
  */
 
 
+import ca.pfv.spmf.datastructures.primitivemaps.AbstractIntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntMaps;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.*;
 import java.util.*;
-import java.util.Map.Entry;
 
 /**
  * This is an implementation of the FPMax algorithm (Grahne et al., 2004).
@@ -66,8 +69,17 @@ public class AlgoFPMax {
     // buffer for storing the current itemset that is mined when performing mining
     // the idea is to always reuse the same buffer to reduce memory usage.
     private int[] itemsetBuffer = null;
+    // buffers for storing the ranks of the items of the current itemset and the support
+    // counters of a single path (only used with the array-based FP-tree)
+    private int[] rankBuffer = null;
+    private int[] countBuffer = null;
+
+    // if true, the array-based FP-tree (ArrayFPTree) is used instead of FPTree
+    private boolean useArrayTree = false;
+    // the initial tree, if the array-based FP-tree is used (for statistics)
+    private ArrayFPTree arrayTree = null;
     // Map to store the support of single items in the original databse
-    private Map<Integer, Integer> originalMapSupport = null;
+    private AbstractIntIntMap originalMapSupport = null;
     // Comparator to compare the items based on the order of decreasing support in the original DB.
     Comparator<Integer> comparatorOriginalOrder = new Comparator<Integer>() {
         public int compare(Integer item1, Integer item2) {
@@ -131,57 +143,82 @@ public class AlgoFPMax {
         // Create the MFI Tree
         mfiTree = new MFITree();
 
-        // (2) Scan the database again to build the initial FP-Tree
-        // Before inserting a transaction in the FPTree, we sort the items
-        // by descending order of support.  We ignore items that
-        // do not have the minimum support.
-        FPTree tree = new FPTree();
-
-        // read the file
-        BufferedReader reader = new BufferedReader(new FileReader(input));
-        String line;
-        // for each line (transaction) until the end of the file
-        while (((line = reader.readLine()) != null)) {
-            // if the line is  a comment, is  empty or is a
-            // kind of metadata
-            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
-                || line.charAt(0) == '@') {
-                continue;
+        if (useArrayTree) {
+            // (2) Scan the database again to build the initial FP-Tree,
+            // where the items are recoded to their ranks
+            arrayTree = ArrayFPTree.buildInitialTree(input, originalMapSupport, minSupportRelative);
+            MemoryLogger.getInstance().checkMemory();
+
+            // We create the header table for the tree
+            arrayTree.createHeaderListByRank();
+
+            // (5) We start to mine the FP-Tree by calling the recursive method.
+            // if at least an item is frequent
+            if (arrayTree.headerListSize > 0) {
+                itemsetBuffer = new int[BUFFERS_SIZE];
+                rankBuffer = new int[BUFFERS_SIZE];
+                countBuffer = new int[BUFFERS_SIZE];
+                fpMax(arrayTree, itemsetBuffer, 0, transactionCount);
             }
-
-            String[] lineSplited = line.split(" ");
-            List<Integer> transaction = new ArrayList<Integer>();
-
-            // for each item in the transaction
-            for (String itemString : lineSplited) {
-                Integer item = Integer.parseInt(itemString);
-                // only add items that have the minimum support
-                if (originalMapSupport.get(item) >= minSupportRelative) {
-                    transaction.add(item);
+            // the conditional trees are not needed anymore
+            arrayTree.releaseConditionalTrees();
+        } else {
+            arrayTree = null;
+            // (2) Scan the database again to build the initial FP-Tree
+            // Before inserting a transaction in the FPTree, we sort the items
+            // by descending order of support.  We ignore items that
+            // do not have the minimum support.
+            FPTree tree = new FPTree();
+
+            // read the file
+            // (empty lines, comments and metadata are skipped by the reader)
+            SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+            // buffers for the items of a transaction and for sorting them
+            int[] transaction = new int[64];
+            long[] sortBuffer = new long[64];
+            // for each transaction until the end of the file
+            while (reader.nextTransaction()) {
+                // the items of the transaction (this buffer is reused by the reader)
+                int[] items = reader.getItems();
+                int itemCount = reader.getItemCount();
+                if (transaction.length < itemCount) {
+                    transaction = new int[itemCount];
+                    sortBuffer = new long[itemCount];
+                }
+                int transactionLength = 0;
+
+                // for each item in the transaction
+                for (int i = 0; i < itemCount; i++) {
+                    int item = items[i];
+                    // only add items that have the minimum support
+                    if (originalMapSupport.get(item) >= minSupportRelative) {
+                        transaction[transactionLength++] = item;
+                    }
                 }
+                // sort item in the transaction by descending order of support
+                // (if the same frequency, we check the lexical ordering)
+                FPTree.sortByDescendingSupport(transaction, transactionLength, originalMapSupport, sortBuffer);
+                // add the sorted transaction to the fptree.
+                tree.addTransaction(transaction, transactionLength);
             }
-            // sort item in the transaction by descending order of support
-            Collections.sort(transaction, comparatorOriginalOrder);
-            // add the sorted transaction to the fptree.
-            tree.addTransaction(transaction);
-        }
-        // close the input file
-        reader.close();
+            // close the input file
+            reader.close();
 
-        // We create the header table for the tree using the calculated support of single items
-        tree.createHeaderList(originalMapSupport);
+            // We create the header table for the tree using the calculated support of single items
+            tree.createHeaderList(originalMapSupport);
 
 
-//		System.out.println(tree);
+    //		System.out.println(tree);
 
-        // (5) We start to mine the FP-Tree by calling the recursive method.
-        // Initially, the prefix alpha is empty.
-        // if at least an item is frequent
-        if (tree.headerList.size() > 0) {
-            // initialize the buffer for storing the current itemset
-            itemsetBuffer = new int[BUFFERS_SIZE];
-            // Next we will recursively generate frequent itemsets using the fp-tree
-            fpMax(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+            // (5) We start to mine the FP-Tree by calling the recursive method.
+            // Initially, the prefix alpha is empty.
+            // if at least an item is frequent
+            if (tree.headerList.size() > 0) {
+                // initialize the buffer for storing the current itemset
+                itemsetBuffer = new int[BUFFERS_SIZE];
+                // Next we will recursively generate frequent itemsets using the fp-tree
+                fpMax(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+            }
         }
 
         // close the output file if the result was saved to a file
@@ -207,7 +244,7 @@ public class AlgoFPMax {
      * @param mapSupport the frequency of items in the FP-Tree
      * @throws IOException exception if error writing the output file
      */
-    private void fpMax(FPTree tree, int[] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+    private void fpMax(FPTree tree, int[] prefix, int prefixLength, int prefixSupport, AbstractIntIntMap mapSupport) throws IOException {
 //		======= DEBUG ========
         if (DEBUG) {
             System.out.print("###### Prefix: ");
@@ -282,7 +319,7 @@ public class AlgoFPMax {
 
                 // Map to count the support of items in the conditional prefix tree
                 // Key: item   Value: support
-                Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+                IntIntMap mapSupportBeta = new IntIntMap();
 
                 while (path != null) {
                     // if the path is not just the root node
@@ -302,14 +339,8 @@ public class AlgoFPMax {
                             prefixPath.add(parent);
 
                             // FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-                            // if the first time we see that node id
-                            if (mapSupportBeta.get(parent.itemID) == null) {
-                                // just add the path count
-                                mapSupportBeta.put(parent.itemID, pathCount);
-                            } else {
-                                // otherwise, make the sum with the value already stored
-                                mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-                            }
+                            // (the path count is added to the value already stored, if any)
+                            mapSupportBeta.increment(parent.itemID, pathCount);
                             parent = parent.parent;
                         }
                         // add the path to the list of prefixpaths
@@ -330,10 +361,10 @@ public class AlgoFPMax {
                 }
                 // concatenate the other FREQUENT items in the pattern base
                 // for each item
-                for (Entry<Integer, Integer> entry : mapSupportBeta.entrySet()) {
+                for (int itemBeta : mapSupportBeta.keys()) {
                     // if the item is frequent
-                    if (entry.getValue() >= minSupportRelative) {
-                        headWithP.add(entry.getKey());
+                    if (mapSupportBeta.get(itemBeta) >= minSupportRelative) {
+                        headWithP.add(itemBeta);
                     }
                 }
 
@@ -388,6 +419,99 @@ public class AlgoFPMax {
         }
     }
 
+    /**
+     * Mine an FP-Tree stored in arrays. This method does the same thing as the method
+     * for FPTree, except that the conditional trees are taken from the pool of trees
+     * of the ArrayFPTree, and that items are sorted according to the original order
+     * by sorting their ranks.
+     *
+     * @param tree          the FP-tree
+     * @param prefix        the current prefix, named "alpha"
+     * @param prefixLength  the current prefix length
+     * @param prefixSupport the support of the current prefix
+     * @throws IOException exception if error writing the output file
+     */
+    private void fpMax(ArrayFPTree tree, int[] prefix, int prefixLength, int prefixSupport) throws IOException {
+        // We first check if the FPtree contains a single path
+        // and copy the items in that path in the buffer
+        int position = tree.copySinglePath(itemsetBuffer, countBuffer, prefixLength);
+
+        // Case 1: the FPtree contains a single path
+        if (position >= 0 && countBuffer[position - 1] >= minSupportRelative) {
+            // We save the path, because it is a maximal itemset
+            saveItemset(itemsetBuffer, position, countBuffer[position - 1]);
+        } else {
+            // Case 2: There are multiple paths.
+
+            // For each frequent item in the header table list of the tree in reverse order. (in decreasing order of support...)
+            for (int i = tree.headerListSize - 1; i >= 0; i--) {
+                // get the item (rank)
+                int rank = tree.headerList[i];
+
+                // get the item support
+                int support = tree.support[rank];
+
+                // Create Beta by concatening item to the current prefix  alpha
+                prefix[prefixLength] = tree.getItem(rank);
+                rankBuffer[prefixLength] = rank;
+
+                // calculate the support of the new prefix beta
+                int betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+                // === (A) Calculate the support of items in beta's conditional pattern base ===
+                ArrayFPTree treeBeta = tree.getConditionalTree(prefixLength + 1);
+                treeBeta.countPrefixPaths(tree, rank);
+
+                // ===== FPMAX ======
+                // concatenate Beta with all the frequent items in the pattern base
+                // to get head U P, sorted according to the original header list total order on items
+                int[] headRanks = new int[prefixLength + 1 + treeBeta.getSupportedCount()];
+                System.arraycopy(rankBuffer, 0, headRanks, 0, prefixLength + 1);
+                int headLength = treeBeta.copyFrequentRanks(headRanks, prefixLength + 1, minSupportRelative);
+                List<Integer> headWithP = toItemsInOriginalOrder(tree, headRanks, headLength);
+
+                // CHECK IF HEAD U P IS A SUBSET OF A MFI ACCORDING TO THE MFI-TREE
+                if (mfiTree.passSubsetChecking(headWithP)) {
+                    // (B) Construct beta's conditional FP-Tree using its prefix path
+                    treeBeta.addPrefixPaths(tree, rank, minSupportRelative);
+                    // Mine recursively the Beta tree if the root has child(s)
+                    if (!treeBeta.isEmpty()) {
+                        // Create the header list.
+                        treeBeta.createHeaderListByRank();
+                        // recursive call
+                        fpMax(treeBeta, prefix, prefixLength + 1, betaSupport);
+                    }
+
+                    // ======= After that, we still need to check if beta is a maximal itemset ====
+                    System.arraycopy(rankBuffer, 0, headRanks, 0, prefixLength + 1);
+                    List<Integer> temp = toItemsInOriginalOrder(tree, headRanks, prefixLength + 1);
+                    // if beta pass the test, we save it
+                    if (mfiTree.passSubsetChecking(temp)) {
+                        saveItemset(prefix, prefixLength + 1, betaSupport);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Convert ranks of items to a list of items sorted according to the original order
+     * (the order of decreasing support in the original database).
+     *
+     * @param tree   an array-based FP-tree
+     * @param ranks  the ranks (this array is sorted by this method)
+     * @param length the number of ranks
+     * @return the list of items
+     */
+    private List<Integer> toItemsInOriginalOrder(ArrayFPTree tree, int[] ranks, int length) {
+        Arrays.sort(ranks, 0, length);
+        List<Integer> items = new ArrayList<Integer>(length);
+        for (int i = 0; i < length; i++) {
+            items.add(tree.getItem(ranks[i]));
+        }
+        return items;
+    }
+
     /**
      * Write a frequent itemset that is found to the output file or
      * keep into memory if the user prefer that the result be saved into memory.
@@ -475,34 +599,22 @@ public class AlgoFPMax {
      * @return a map for storing the support of each item (key: item, value: support)
      * @throws IOException exception if error while writing the file
      */
-    private Map<Integer, Integer> scanDatabaseToDetermineFrequencyOfSingleItems(String input)
+    private AbstractIntIntMap scanDatabaseToDetermineFrequencyOfSingleItems(String input)
             throws IOException {
         // a map for storing the support of each item (key: item, value: support)
-        Map<Integer, Integer> mapSupport = new HashMap<Integer, Integer>();
+        IntIntMap mapSupport = new IntIntMap();
         //Create object for reading the input file
-        BufferedReader reader = new BufferedReader(new FileReader(input));
-        String line;
-        // for each line (transaction) until the end of file
-        while (((line = reader.readLine()) != null)) {
-            // if the line is  a comment, is  empty or is a
-            // kind of metadata
-            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
-                continue;
-            }
-
-            // split the line into items
-            String[] lineSplited = line.split(" ");
+        // (empty lines, comments and metadata are skipped by the reader)
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+        // for each transaction until the end of file
+        while (reader.nextTransaction()) {
+            // the items of the transaction (this buffer is reused by the reader)
+            int[] items = reader.getItems();
+            int itemCount = reader.getItemCount();
             // for each item
-            for (String itemString : lineSplited) {
+            for (int i = 0; i < itemCount; i++) {
                 // increase the support count of the item
-                Integer item = Integer.parseInt(itemString);
-                // increase the support count of the item
-                Integer count = mapSupport.get(item);
-                if (count == null) {
-                    mapSupport.put(item, 1);
-                } else {
-                    mapSupport.put(item, ++count);
-                }
+                mapSupport.increment(items[i], 1);
             }
             // increase the transaction count
             transactionCount++;
@@ -510,7 +622,8 @@ public class AlgoFPMax {
         // close the input file
         reader.close();
 
-        return mapSupport;
+        // the map is only read from now on, so it is converted to the fastest representation
+        return IntMaps.optimizeForLookups(mapSupport);
     }
 
 
@@ -523,10 +636,25 @@ public class AlgoFPMax {
         System.out.println(" Transactions count from database : " + transactionCount);
         System.out.print(" Max memory usage: " + MemoryLogger.getInstance().getMaxMemory() + " mb \n");
         System.out.println(" Maximal frequent itemset count : " + itemsetCount);
+        if (arrayTree != null) {
+            System.out.println(" Array FP-tree nodes : " + arrayTree.getNodeCount()
+                               + "  pooled trees : " + arrayTree.getAllocatedTreeCount()
+                               + "  arrays memory ~ " + String.format("%.2f", arrayTree.getAllocatedMemory()) + " mb");
+        }
         System.out.println(" Total time ~ " + temps + " ms");
         System.out.println("===================================================");
     }
 
+    /**
+     * Set whether the array-based FP-tree (ArrayFPTree) should be used instead of FPTree.
+     * Both produce the same result.
+     *
+     * @param useArrayTree true to use the array-based FP-tree
+     */
+    public void setUseArrayTree(boolean useArrayTree) {
+        this.useArrayTree = useArrayTree;
+    }
+
     /**
      * Get the number of transactions in the last transaction database read.
      *
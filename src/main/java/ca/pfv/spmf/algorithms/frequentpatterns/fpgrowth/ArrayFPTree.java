@@ -0,0 +1,567 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+import ca.pfv.spmf.datastructures.primitivemaps.AbstractIntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntMaps;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * This is an implementation of a FPTree where the nodes are stored in parallel int arrays
+ * instead of FPNode objects. It is an alternative to FPTree that can be used by FPGrowth,
+ * FPMax and FPClose (see the setUseArrayTree() method of these algorithms).
+ * <br/><br/>
+ * Items are recoded once to their rank in the order of decreasing support (rank 0 is the
+ * most frequent item, and if two items have the same support, the smallest item comes first).
+ * A node is an index in the arrays item, count, parent, nodeLink, firstChild and sibling.
+ * The node 0 is the root. Because the root is never a child or in a node link, the value 0
+ * also means "no node" in these arrays.
+ * <br/><br/>
+ * Conditional trees are not created for each prefix. There is one tree for each
+ * depth of the recursion (see getConditionalTree()), which is cleared and reused for the next
+ * prefix of the same length. Thus, the arrays are allocated only a few times during the mining.
+ * The pool of conditional trees is kept for each thread, so that several threads can mine
+ * the conditional trees of different items of the same tree at the same time (a tree is only
+ * read when its conditional trees are built). The pools belong to the execution and not to the
+ * threads: they must be released by calling releaseConditionalTrees() when the mining is done.
+ *
+ * @author Philippe Fournier-Viger
+ * @see FPTree
+ * @see AlgoFPGrowth
+ * @see AlgoFPMax
+ * @see AlgoFPClose
+ */
+public class ArrayFPTree {
+
+    // the index of the root node
+    static final int ROOT = 0;
+
+    // the initial number of nodes of a tree
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // the recoding of items, shared by the initial tree and all the conditional trees
+    private final Recoding recoding;
+
+    // the nodes of the tree: rank of the item, support counter, parent node,
+    // next node with the same item, first child and next sibling
+    int[] item;
+    int[] count;
+    int[] parent;
+    int[] nodeLink;
+    int[] firstChild;
+    int[] sibling;
+    // the number of nodes (including the root)
+    int nodeCount;
+
+    // the first and last nodes of each item (rank) in the tree, or 0 if none
+    private final int[] headerFirst;
+    private final int[] headerLast;
+
+    // the support of each item (rank) in this tree
+    final int[] support;
+    // the items (ranks) having a support in this tree (to clear the support array)
+    private final int[] supportedRanks;
+    private int supportedCount;
+
+    // List of items (ranks) in the header table
+    int[] headerList;
+    int headerListSize;
+
+    // buffers used for building conditional trees and sorting the header table
+    private final int[] pathBuffer;
+    private final long[] sortBuffer;
+
+    /**
+     * The recoding of the items to their ranks. It is shared by all the trees of an execution,
+     * as well as the pool of conditional trees.
+     */
+    private static final class Recoding {
+        // the item of each rank
+        final int[] rankToItem;
+        // the rank of each item plus one (0 if the item is not frequent)
+        final AbstractIntIntMap itemToRank;
+        // the position of each rank in the lexical order of items, and the reverse
+        final int[] lexicalPosition;
+        final int[] lexicalToRank;
+        // the conditional trees of each depth of the recursion, for each thread of the execution
+        final Map<Thread, ArrayFPTree[]> pools = new ConcurrentHashMap<Thread, ArrayFPTree[]>();
+        // all the trees that were created and not released yet (for statistics)
+        final List<ArrayFPTree> allocatedTrees = new ArrayList<ArrayFPTree>();
+        // the number of trees and the memory of their arrays, when they were released (for statistics)
+        int releasedTreeCount;
+        long releasedBytes;
+
+        Recoding(int[] rankToItem) {
+            this.rankToItem = rankToItem;
+            IntIntMap ranks = new IntIntMap();
+            for (int rank = 0; rank < rankToItem.length; rank++) {
+                ranks.put(rankToItem[rank], rank + 1);
+            }
+            itemToRank = IntMaps.optimizeForLookups(ranks);
+
+            int[] itemsByLexicalOrder = rankToItem.clone();
+            Arrays.sort(itemsByLexicalOrder);
+            lexicalPosition = new int[rankToItem.length];
+            lexicalToRank = new int[rankToItem.length];
+            for (int i = 0; i < itemsByLexicalOrder.length; i++) {
+                int rank = itemToRank.get(itemsByLexicalOrder[i]) - 1;
+                lexicalPosition[rank] = i;
+                lexicalToRank[i] = rank;
+            }
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param recoding the recoding of items
+     */
+    private ArrayFPTree(Recoding recoding) {
+        this.recoding = recoding;
+        int rankCount = recoding.rankToItem.length;
+        item = new int[INITIAL_CAPACITY];
+        count = new int[INITIAL_CAPACITY];
+        parent = new int[INITIAL_CAPACITY];
+        nodeLink = new int[INITIAL_CAPACITY];
+        firstChild = new int[INITIAL_CAPACITY];
+        sibling = new int[INITIAL_CAPACITY];
+        item[ROOT] = -1;
+        nodeCount = 1;
+        headerFirst = new int[rankCount];
+        headerLast = new int[rankCount];
+        support = new int[rankCount];
+        supportedRanks = new int[rankCount];
+        headerList = new int[rankCount];
+        pathBuffer = new int[rankCount];
+        sortBuffer = new long[rankCount];
+        synchronized (recoding.allocatedTrees) {
+            recoding.allocatedTrees.add(this);
+        }
+    }
+
+    /**
+     * Build the initial FP-tree by reading a transaction database.
+     * The items having less than the minimum support are ignored, and the other items are recoded
+     * to their ranks, so that sorting the items of a transaction is just sorting an int array.
+     *
+     * @param input              the path of the input file
+     * @param mapSupport         the support of each item in the database
+     * @param minSupportRelative the minimum support
+     * @return the tree
+     * @throws IOException if error while reading the file
+     */
+    static ArrayFPTree buildInitialTree(String input, AbstractIntIntMap mapSupport,
+                                        int minSupportRelative) throws IOException {
+        // the frequent items sorted by descending order of support
+        int[] frequentItems = mapSupport.keys();
+        int frequentCount = 0;
+        for (int item : frequentItems) {
+            if (mapSupport.get(item) >= minSupportRelative) {
+                frequentItems[frequentCount++] = item;
+            }
+        }
+        frequentItems = Arrays.copyOf(frequentItems, frequentCount);
+        FPTree.sortByDescendingSupport(frequentItems, frequentCount, mapSupport, new long[frequentCount]);
+
+        Recoding recoding = new Recoding(frequentItems);
+        ArrayFPTree tree = new ArrayFPTree(recoding);
+
+        // read the file
+        // (empty lines, comments and metadata are skipped by the reader)
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+        int[] transaction = new int[64];
+        while (reader.nextTransaction()) {
+            int[] items = reader.getItems();
+            int itemCount = reader.getItemCount();
+            if (transaction.length < itemCount) {
+                transaction = new int[itemCount];
+            }
+            // only keep the frequent items, replaced by their ranks
+            int length = 0;
+            for (int i = 0; i < itemCount; i++) {
+                int rank = recoding.itemToRank.get(items[i]) - 1;
+                if (rank >= 0) {
+                    transaction[length++] = rank;
+                }
+            }
+            // sort the items by descending order of support
+            Arrays.sort(transaction, 0, length);
+            for (int i = 0; i < length; i++) {
+                tree.addSupport(transaction[i], 1);
+            }
+            tree.addPath(transaction, length, 1);
+        }
+        reader.close();
+        return tree;
+    }
+
+    /**
+     * Get the tree used for a given depth of the recursion by the current thread. The tree is
+     * reused for all the prefixes having that length, so it must be cleared before being filled.
+     *
+     * @param depth the depth (the length of the prefix)
+     * @return the tree
+     */
+    ArrayFPTree getConditionalTree(int depth) {
+        Thread thread = Thread.currentThread();
+        ArrayFPTree[] pool = recoding.pools.get(thread);
+        if (pool == null) {
+            pool = new ArrayFPTree[Math.max(depth + 1, 16)];
+            recoding.pools.put(thread, pool);
+        } else if (depth >= pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(depth + 1, pool.length * 2));
+            recoding.pools.put(thread, pool);
+        }
+        if (pool[depth] == null) {
+            pool[depth] = new ArrayFPTree(recoding);
+        }
+        return pool[depth];
+    }
+
+    /**
+     * Release the conditional trees of all the threads, when the mining is done.
+     * Otherwise, they would be kept in memory as long as this tree is referenced.
+     * The statistics of the trees remain available (see getAllocatedTreeCount()).
+     */
+    void releaseConditionalTrees() {
+        recoding.pools.clear();
+        synchronized (recoding.allocatedTrees) {
+            for (ArrayFPTree tree : recoding.allocatedTrees) {
+                recoding.releasedTreeCount++;
+                recoding.releasedBytes += tree.getArraysBytes();
+            }
+            recoding.allocatedTrees.clear();
+        }
+    }
+
+    /**
+     * Get the memory used by the arrays of this tree
+     *
+     * @return the memory in bytes
+     */
+    private long getArraysBytes() {
+        return 4L * (6L * item.length + 6L * support.length) + 8L * sortBuffer.length;
+    }
+
+    /**
+     * Remove all the nodes of the tree, while keeping the arrays for the next use.
+     */
+    private void clear() {
+        for (int i = 0; i < supportedCount; i++) {
+            support[supportedRanks[i]] = 0;
+        }
+        supportedCount = 0;
+        for (int i = 0; i < headerListSize; i++) {
+            headerFirst[headerList[i]] = 0;
+            headerLast[headerList[i]] = 0;
+        }
+        headerListSize = 0;
+        firstChild[ROOT] = 0;
+        nodeCount = 1;
+    }
+
+    /**
+     * Increase the support of an item
+     *
+     * @param rank   the item
+     * @param amount the amount
+     */
+    private void addSupport(int rank, int amount) {
+        if (support[rank] == 0) {
+            supportedRanks[supportedCount++] = rank;
+        }
+        support[rank] += amount;
+    }
+
+    /**
+     * Add a path to the tree, starting from the root.
+     *
+     * @param ranks     the items of the path
+     * @param length    the number of items
+     * @param pathCount the support of the path
+     */
+    private void addPath(int[] ranks, int length, int pathCount) {
+        int currentNode = ROOT;
+        for (int i = 0; i < length; i++) {
+            int rank = ranks[i];
+            // look if there is a node already in the FP-Tree
+            int child = firstChild[currentNode];
+            while (child != 0 && item[child] != rank) {
+                child = sibling[child];
+            }
+            if (child == 0) {
+                // there is no node, we create a new one
+                child = newNode(rank, currentNode, pathCount);
+            } else {
+                // there is a node already, we update it
+                count[child] += pathCount;
+            }
+            currentNode = child;
+        }
+    }
+
+    /**
+     * Create a new node and update the node links
+     *
+     * @param rank        the item
+     * @param parentNode  the parent node
+     * @param nodeSupport the support of the node
+     * @return the new node
+     */
+    private int newNode(int rank, int parentNode, int nodeSupport) {
+        if (nodeCount == item.length) {
+            int capacity = item.length * 2;
+            item = Arrays.copyOf(item, capacity);
+            count = Arrays.copyOf(count, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            nodeLink = Arrays.copyOf(nodeLink, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            sibling = Arrays.copyOf(sibling, capacity);
+        }
+        int node = nodeCount++;
+        item[node] = rank;
+        count[node] = nodeSupport;
+        parent[node] = parentNode;
+        firstChild[node] = 0;
+        nodeLink[node] = 0;
+        sibling[node] = firstChild[parentNode];
+        firstChild[parentNode] = node;
+
+        // update the node links
+        if (headerFirst[rank] == 0) {
+            headerFirst[rank] = node;
+            headerList[headerListSize++] = rank;
+        } else {
+            nodeLink[headerLast[rank]] = node;
+        }
+        headerLast[rank] = node;
+        return node;
+    }
+
+    /**
+     * Clear this tree and calculate the support of the items in the conditional pattern base
+     * of an item of another tree (the prefix paths of the nodes of that item).
+     * After calling this method, the support of items can be read from the support array.
+     *
+     * @param tree the tree
+     * @param rank the item
+     */
+    void countPrefixPaths(ArrayFPTree tree, int rank) {
+        clear();
+        for (int node = tree.headerFirst[rank]; node != 0; node = tree.nodeLink[node]) {
+            int pathCount = tree.count[node];
+            for (int p = tree.parent[node]; p != ROOT; p = tree.parent[p]) {
+                addSupport(tree.item[p], pathCount);
+            }
+        }
+    }
+
+    /**
+     * Build this tree from the prefix paths of an item of another tree. The method
+     * countPrefixPaths() must have been called before. Only the items having the minimum
+     * support are added to the tree.
+     *
+     * @param tree               the tree
+     * @param rank               the item
+     * @param minSupportRelative the minimum support
+     */
+    void addPrefixPaths(ArrayFPTree tree, int rank, int minSupportRelative) {
+        for (int node = tree.headerFirst[rank]; node != 0; node = tree.nodeLink[node]) {
+            int length = 0;
+            for (int p = tree.parent[node]; p != ROOT; p = tree.parent[p]) {
+                // if the item is not frequent we skip it
+                if (support[tree.item[p]] >= minSupportRelative) {
+                    pathBuffer[length++] = tree.item[p];
+                }
+            }
+            // the path was read from the bottom, so we reverse it
+            for (int i = 0, j = length - 1; i < j; i++, j--) {
+                int temp = pathBuffer[i];
+                pathBuffer[i] = pathBuffer[j];
+                pathBuffer[j] = temp;
+            }
+            addPath(pathBuffer, length, tree.count[node]);
+        }
+    }
+
+    /**
+     * Sort the header table by descending order of support in this tree
+     * (and by lexical order if the support is the same), as FPTree.createHeaderList() does.
+     */
+    void createHeaderList() {
+        for (int i = 0; i < headerListSize; i++) {
+            int rank = headerList[i];
+            sortBuffer[i] = ((long) (Integer.MAX_VALUE - support[rank]) << 32) | recoding.lexicalPosition[rank];
+        }
+        Arrays.sort(sortBuffer, 0, headerListSize);
+        for (int i = 0; i < headerListSize; i++) {
+            headerList[i] = recoding.lexicalToRank[(int) sortBuffer[i]];
+        }
+    }
+
+    /**
+     * Sort the header table by descending order of support in the original database,
+     * which is the order of ranks.
+     */
+    void createHeaderListByRank() {
+        Arrays.sort(headerList, 0, headerListSize);
+    }
+
+    /**
+     * Check if the tree has no node except the root
+     *
+     * @return true if the tree is empty
+     */
+    boolean isEmpty() {
+        return firstChild[ROOT] == 0;
+    }
+
+    /**
+     * Check if the tree contains a single path, and if yes, copy the items (not the ranks)
+     * and the support counters of the nodes of that path in two buffers.
+     *
+     * @param items    a buffer for the items of the path
+     * @param counts   a buffer for the support of each node of the path
+     * @param position the position in the buffers where the path should be copied
+     * @return the position after the last node of the path, or -1 if the tree is not a single path
+     */
+    int copySinglePath(int[] items, int[] counts, int position) {
+        int node = firstChild[ROOT];
+        while (node != 0) {
+            // if the node has a sibling, it is not a single path!
+            if (sibling[node] != 0) {
+                return -1;
+            }
+            items[position] = recoding.rankToItem[item[node]];
+            counts[position] = count[node];
+            position++;
+            node = firstChild[node];
+        }
+        return position;
+    }
+
+    /**
+     * Copy the items (ranks) having at least a given support in this tree into a buffer.
+     * The items are copied in no particular order.
+     *
+     * @param buffer             the buffer
+     * @param position           the position in the buffer where the first item should be copied
+     * @param minSupportRelative the minimum support
+     * @return the position after the last item that was copied
+     */
+    int copyFrequentRanks(int[] buffer, int position, int minSupportRelative) {
+        for (int i = 0; i < supportedCount; i++) {
+            if (support[supportedRanks[i]] >= minSupportRelative) {
+                buffer[position++] = supportedRanks[i];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Get the number of items (ranks) having a support in this tree
+     *
+     * @return the number of items
+     */
+    int getSupportedCount() {
+        return supportedCount;
+    }
+
+    /**
+     * Get the item corresponding to a rank
+     *
+     * @param rank the rank
+     * @return the item
+     */
+    int getItem(int rank) {
+        return recoding.rankToItem[rank];
+    }
+
+    /**
+     * Get the number of nodes of this tree (including the root)
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Get the number of trees allocated during the mining (the initial tree and the
+     * pooled conditional trees of all threads)
+     *
+     * @return the number of trees
+     */
+    public int getAllocatedTreeCount() {
+        synchronized (recoding.allocatedTrees) {
+            return recoding.releasedTreeCount + recoding.allocatedTrees.size();
+        }
+    }
+
+    /**
+     * Get the memory used by the arrays of the initial tree and of the pooled conditional trees
+     *
+     * @return the memory in megabytes
+     */
+    public double getAllocatedMemory() {
+        long bytes;
+        synchronized (recoding.allocatedTrees) {
+            bytes = recoding.releasedBytes;
+            for (ArrayFPTree tree : recoding.allocatedTrees) {
+                bytes += tree.getArraysBytes();
+            }
+        }
+        return bytes / 1024d / 1024d;
+    }
+
+    @Override
+    /**
+     * Method for getting a string representation of the tree
+     * (to be used for debugging purposes).
+     * @return a string
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder("F HeaderList: [");
+        for (int i = 0; i < headerListSize; i++) {
+            buffer.append(i == 0 ? "" : ", ").append(getItem(headerList[i]));
+        }
+        buffer.append("]\n");
+        toString(buffer, firstChild[ROOT], "");
+        return buffer.toString();
+    }
+
+    /**
+     * Append the string representation of a node and its siblings
+     */
+    private void toString(StringBuilder buffer, int node, String indent) {
+        for (; node != 0; node = sibling[node]) {
+            buffer.append(indent).append(getItem(item[node])).append(" (count=").append(count[node]).append(")\n");
+            toString(buffer, firstChild[node], indent + " ");
+        }
+    }
+}
@@ -18,6 +18,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
  */
 
 
+import ca.pfv.spmf.datastructures.primitivemaps.AbstractIntIntMap;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 
 import java.util.*;
@@ -52,16 +53,41 @@ public class FPTree {
 
     }
 
+    /**
+     * Sort items by descending order of support, and by lexical order if the support is the same.
+     * Each item is encoded with its support in a long, so that the items can be
+     * sorted without comparator and without looking up the support more than once per item.
+     *
+     * @param items      an array of items
+     * @param length     the number of items in the array
+     * @param mapSupport the support of each item
+     * @param buffer     a buffer that is at least as large as the number of items
+     */
+    static void sortByDescendingSupport(int[] items, int length, AbstractIntIntMap mapSupport, long[] buffer) {
+        for (int i = 0; i < length; i++) {
+            // the support is stored in the high bits (inverted for descending order)
+            // and the item in the low bits (offset to keep the order of negative items)
+            buffer[i] = ((long) (Integer.MAX_VALUE - mapSupport.get(items[i])) << 32)
+                        | ((items[i] ^ 0x80000000) & 0xFFFFFFFFL);
+        }
+        Arrays.sort(buffer, 0, length);
+        for (int i = 0; i < length; i++) {
+            items[i] = ((int) buffer[i]) ^ 0x80000000;
+        }
+    }
+
     /**
      * Method for adding a transaction to the fp-tree (for the initial construction
      * of the FP-Tree).
      *
-     * @param transaction
+     * @param transaction an array containing the items of the transaction
+     * @param length      the number of items in the transaction
      */
-    public void addTransaction(List<Integer> transaction) {
+    public void addTransaction(int[] transaction, int length) {
         FPNode currentNode = root;
         // For each item in the transaction
-        for (Integer item : transaction) {
+        for (int i = 0; i < length; i++) {
+            int item = transaction[i];
             // look if there is a node already in the FP-Tree
             FPNode child = currentNode.getChildWithID(item);
             if (child == null) {
@@ -115,7 +141,7 @@ public class FPTree {
      * @param mapSupportBeta  The frequencies of items in the prefixpaths
      * @param relativeMinsupp
      */
-    void addPrefixPath(List<FPNode> prefixPath, Map<Integer, Integer> mapSupportBeta, int relativeMinsupp) {
+    void addPrefixPath(List<FPNode> prefixPath, AbstractIntIntMap mapSupportBeta, int relativeMinsupp) {
         // the first element of the prefix path contains the path support
         int pathCount = prefixPath.get(0).counter;
 
@@ -156,7 +182,7 @@ public class FPTree {
      * @param mapSupportBeta  The frequencies of items in the prefixpaths
      * @param relativeMinsupp
      */
-    void addPrefixPathGRGrowth(List<FPNode> prefixPath, Map<Integer, Integer> mapSupportBeta, int relativeMinsupp) {
+    void addPrefixPathGRGrowth(List<FPNode> prefixPath, AbstractIntIntMap mapSupportBeta, int relativeMinsupp) {
         // the first element of the prefix path contains the path support
         int pathCount = prefixPath.get(0).counter;
 
@@ -200,21 +226,23 @@ public class FPTree {
      *
      * @param mapSupport the frequencies of each item (key: item  value: support)
      */
-    void createHeaderList(final Map<Integer, Integer> mapSupport) {
+    void createHeaderList(final AbstractIntIntMap mapSupport) {
         // create an array to store the header list with
         // all the items stored in the map received as parameter
-        headerList = new ArrayList<Integer>(mapItemNodes.keySet());
+        int[] items = new int[mapItemNodes.size()];
+        int i = 0;
+        for (Integer item : mapItemNodes.keySet()) {
+            items[i++] = item;
+        }
 
         // sort the header table by decreasing order of support
-        Collections.sort(headerList, new Comparator<Integer>() {
-            public int compare(Integer id1, Integer id2) {
-                // compare the support
-                int compare = mapSupport.get(id2) - mapSupport.get(id1);
-                // if the same frequency, we check the lexical ordering!
-                // otherwise we use the support
-                return (compare == 0) ? (id1 - id2) : compare;
-            }
-        });
+        // (if the same frequency, we check the lexical ordering)
+        sortByDescendingSupport(items, items.length, mapSupport, new long[items.length]);
+
+        headerList = new ArrayList<Integer>(items.length);
+        for (int item : items) {
+            headerList.add(item);
+        }
     }
 
     @Override
@@ -19,6 +19,8 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
  */
 
 
+import ca.pfv.spmf.datastructures.primitivemaps.IntLongMap;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.*;
@@ -63,7 +65,7 @@ public class AlgoFHM {
     /**
      * Map to remember the TWU of each item
      */
-    Map<Integer, Long> mapItemToTWU;
+    IntLongMap mapItemToTWU;
     /**
      * writer to write the output file
      */
@@ -81,6 +83,15 @@ public class AlgoFHM {
      */
     boolean DEBUG = false;
     private int[] itemsetBuffer = null;
+    /**
+     * if true, the utility-lists are stored as arrays (ArrayUtilityList) that are reused
+     * during the search, instead of lists of Element objects
+     */
+    private boolean useArrayUtilityLists = false;
+    /**
+     * the pool of utility-lists (if array utility-lists are used)
+     */
+    private ArrayUtilityListPool utilityListPool = null;
 
     /**
      * Default constructor
@@ -89,6 +100,17 @@ public class AlgoFHM {
 
     }
 
+    /**
+     * Set whether the utility-lists should be stored as arrays of primitive values that are
+     * reused during the search (ArrayUtilityList) rather than as lists of Element objects.
+     * The result is the same but much fewer objects are created.
+     *
+     * @param useArrayUtilityLists true to use array utility-lists
+     */
+    public void setUseArrayUtilityLists(boolean useArrayUtilityLists) {
+        this.useArrayUtilityLists = useArrayUtilityLists;
+    }
+
     /**
      * Run the algorithm
      *
@@ -111,40 +133,25 @@ public class AlgoFHM {
         writer = new BufferedWriter(new FileWriter(output));
 
         //  We create a  map to store the TWU of each item
-        mapItemToTWU = new HashMap<Integer, Long>();
+        mapItemToTWU = new IntLongMap();
 
         // We scan the database a first time to calculate the TWU of each item.
-        BufferedReader myInput = null;
-        String thisLine;
+        SPMFMappedFileReader myInput = null;
         try {
             // prepare the object for reading the file
-            myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
-            // for each line (transaction) until the end of file
-            while ((thisLine = myInput.readLine()) != null) {
-                // if the line is  a comment, is  empty or is a
-                // kind of metadata
-                if (thisLine.isEmpty() ||
-                    thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-                    || thisLine.charAt(0) == '@') {
-                    continue;
-                }
-
-                // split the transaction according to the : separator
-                String[] split = thisLine.split(":");
+            // (empty lines, comments and metadata are skipped by the reader)
+            myInput = new SPMFMappedFileReader(input);
+            // for each transaction until the end of file
+            while (myInput.nextTransaction()) {
                 // the first part is the list of items
-                String[] items = split[0].split(" ");
+                int[] items = myInput.getItems();
+                int itemCount = myInput.getItemCount();
                 // the second part is the transaction utility
-                int transactionUtility = Integer.parseInt(split[1]);
+                int transactionUtility = myInput.getTransactionUtility();
                 // for each item, we add the transaction utility to its TWU
-                for (int i = 0; i < items.length; i++) {
-                    // convert item to integer
-                    Integer item = Integer.parseInt(items[i]);
-                    // get the current TWU of that item
-                    Long twu = mapItemToTWU.get(item);
+                for (int i = 0; i < itemCount; i++) {
                     // add the utility of the item in the current transaction to its twu
-                    twu = (twu == null) ?
-                          transactionUtility : twu + transactionUtility;
-                    mapItemToTWU.put(item, twu);
+                    mapItemToTWU.increment(items[i], transactionUtility);
                 }
             }
         } catch (Exception e) {
@@ -163,7 +170,7 @@ public class AlgoFHM {
         Map<Integer, UtilityList> mapItemToUtilityList = new HashMap<Integer, UtilityList>();
 
         // For each item
-        for (Integer item : mapItemToTWU.keySet()) {
+        for (int item : mapItemToTWU.keys()) {
             // if the item is promising  (TWU >= minutility)
             if (mapItemToTWU.get(item) >= minUtility) {
                 // create an empty Utility List that we will fill later.
@@ -182,30 +189,36 @@ public class AlgoFHM {
             }
         });
 
+        // If array utility-lists are used, the utility-lists of items are the first level of the pool
+        utilityListPool = null;
+        ArrayUtilityList[] arrayUtilityLists = null;
+        Map<Integer, ArrayUtilityList> mapItemToArrayUtilityList = null;
+        if (useArrayUtilityLists) {
+            utilityListPool = new ArrayUtilityListPool();
+            arrayUtilityLists = utilityListPool.getLevel(0, listOfUtilityLists.size());
+            mapItemToArrayUtilityList = new HashMap<Integer, ArrayUtilityList>();
+            for (int i = 0; i < listOfUtilityLists.size(); i++) {
+                int item = listOfUtilityLists.get(i).item;
+                arrayUtilityLists[i].reset(item);
+                mapItemToArrayUtilityList.put(item, arrayUtilityLists[i]);
+            }
+        }
+
         // SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
         // OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
         try {
             // prepare object for reading the file
-            myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
+            myInput = new SPMFMappedFileReader(input);
             // variable to count the number of transaction
             int tid = 0;
-            // for each line (transaction) until the end of file
-            while ((thisLine = myInput.readLine()) != null) {
-                // if the line is  a comment, is  empty or is a
-                // kind of metadata
-                if (thisLine.isEmpty() ||
-                    thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-                    || thisLine.charAt(0) == '@') {
-                    continue;
-                }
-
-                // split the line according to the separator
-                String[] split = thisLine.split(":");
+            // for each transaction until the end of file
+            while (myInput.nextTransaction()) {
                 // get the list of items
-                String[] items = split[0].split(" ");
+                int[] items = myInput.getItems();
+                int itemCount = myInput.getItemCount();
                 // get the list of utility values corresponding to each item
                 // for that transaction
-                String[] utilityValues = split[2].split(" ");
+                int[] utilityValues = myInput.getUtilities();
 
                 // Copy the transaction into lists but
                 // without items with TWU < minutility
@@ -218,11 +231,11 @@ public class AlgoFHM {
                 // Create a list to store items
                 List<Pair> revisedTransaction = new ArrayList<Pair>();
                 // for each item
-                for (int i = 0; i < items.length; i++) {
-                    /// convert values to integers
+                for (int i = 0; i < itemCount; i++) {
+                    /// copy the values from the buffers of the reader
                     Pair pair = new Pair();
-                    pair.item = Integer.parseInt(items[i]);
-                    pair.utility = Integer.parseInt(utilityValues[i]);
+                    pair.item = items[i];
+                    pair.utility = utilityValues[i];
                     // if the item has enough utility
                     if (mapItemToTWU.get(pair.item) >= minUtility) {
                         // add it
@@ -249,13 +262,17 @@ public class AlgoFHM {
                     // subtract the utility of this item from the remaining utility
                     remainingUtility = remainingUtility - pair.utility;
 
-                    // get the utility list of this item
-                    UtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
+                    if (useArrayUtilityLists) {
+                        mapItemToArrayUtilityList.get(pair.item).addElement(tid, pair.utility, remainingUtility);
+                    } else {
+                        // get the utility list of this item
+                        UtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
 
-                    // Add a new Element to the utility list of this item corresponding to this transaction
-                    Element element = new Element(tid, pair.utility, remainingUtility);
+                        // Add a new Element to the utility list of this item corresponding to this transaction
+                        Element element = new Element(tid, pair.utility, remainingUtility);
 
-                    utilityListOfItem.addElement(element);
+                        utilityListOfItem.addElement(element);
+                    }
 
                     // BEGIN NEW OPTIMIZATION for FHM
                     Map<Integer, Long> mapFMAPItem = mapFMAP.get(pair.item);
@@ -291,7 +308,11 @@ public class AlgoFHM {
         MemoryLogger.getInstance().checkMemory();
 
         // Mine the database recursively
-        fhm(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+        if (useArrayUtilityLists) {
+            fhm(itemsetBuffer, 0, null, arrayUtilityLists, listOfUtilityLists.size(), minUtility);
+        } else {
+            fhm(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+        }
 
         // check the memory usage again and close the file.
         MemoryLogger.getInstance().checkMemory();
@@ -378,6 +399,72 @@ public class AlgoFHM {
         MemoryLogger.getInstance().checkMemory();
     }
 
+    /**
+     * This is the recursive method to find all high utility itemsets when array utility-lists
+     * are used. The utility-lists of the extensions of pX are taken from the pool at depth
+     * prefixLength + 1 and are reused for each X.
+     *
+     * @param prefix       This is the current prefix. Initially, it is empty.
+     * @param pUL          This is the Utility List of the prefix. Initially, it is empty.
+     * @param ULs          The utility lists corresponding to each extension of the prefix.
+     * @param ULCount      The number of utility lists in ULs.
+     * @param minUtility   The minUtility threshold.
+     * @param prefixLength The current prefix length
+     * @throws IOException
+     */
+    private void fhm(int[] prefix, int prefixLength, ArrayUtilityList pUL,
+                     ArrayUtilityList[] ULs, int ULCount, int minUtility)
+            throws IOException {
+
+        // For each extension X of prefix P
+        for (int i = 0; i < ULCount; i++) {
+            ArrayUtilityList X = ULs[i];
+
+            // If pX is a high utility itemset.
+            // we save the itemset:  pX
+            if (X.sumIutils >= minUtility) {
+                // save to file
+                writeOut(prefix, prefixLength, X.item, X.sumIutils);
+            }
+
+            // If the sum of the remaining utilities for pX
+            // is higher than minUtility, we explore extensions of pX.
+            // (this is the pruning condition)
+            if (X.sumIutils + X.sumRutils >= minUtility) {
+                // The utility lists of pX extensions are reused from the pool
+                ArrayUtilityList[] exULs = utilityListPool.getLevel(prefixLength + 1, ULCount - i - 1);
+                int exULCount = 0;
+                // For each extension of p appearing
+                // after X according to the ascending order
+                for (int j = i + 1; j < ULCount; j++) {
+                    ArrayUtilityList Y = ULs[j];
+
+                    // ======================== NEW OPTIMIZATION USED IN FHM
+                    Map<Integer, Long> mapTWUF = mapFMAP.get(X.item);
+                    if (mapTWUF != null) {
+                        Long twuF = mapTWUF.get(Y.item);
+                        if (twuF == null || twuF < minUtility) {
+                            continue;
+                        }
+                    }
+                    candidateCount++;
+                    // =========================== END OF NEW OPTIMIZATION
+
+                    // we construct the extension pXY (if it is not pruned by LA-prune,
+                    // the utility list is kept, otherwise it will be overwritten)
+                    if (exULs[exULCount].construct(pUL, X, Y, ENABLE_LA_PRUNE, minUtility)) {
+                        exULCount++;
+                    }
+                }
+                // We create new prefix pX
+                itemsetBuffer[prefixLength] = X.item;
+                // We make a recursive call to discover all itemsets with the prefix pXY
+                fhm(itemsetBuffer, prefixLength + 1, X, exULs, exULCount, minUtility);
+            }
+        }
+        MemoryLogger.getInstance().checkMemory();
+    }
+
     /**
      * This method constructs the utility list of pXY
      *
@@ -501,6 +588,10 @@ public class AlgoFHM {
         System.out.println(" Memory ~ " + MemoryLogger.getInstance().getMaxMemory() + " MB");
         System.out.println(" High-utility itemsets count : " + huiCount);
         System.out.println(" Candidate count : " + candidateCount);
+        if (utilityListPool != null) {
+            System.out.println(" Array utility-lists : " + utilityListPool.getAllocatedListCount()
+                               + " arrays memory ~ " + utilityListPool.getAllocatedMemory() + " mb");
+        }
 
         if (DEBUG) {
             int pairCount = 0;
@@ -19,6 +19,8 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
  */
 
 
+import ca.pfv.spmf.datastructures.primitivemaps.IntIntMap;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.*;
@@ -57,7 +59,7 @@ public class AlgoHUIMiner {
     /**
      * Map to remember the TWU of each item
      */
-    Map<Integer, Integer> mapItemToTWU;
+    IntIntMap mapItemToTWU;
     /**
      * writer to write the output file
      */
@@ -67,6 +69,15 @@ public class AlgoHUIMiner {
      */
     private int joinCount;
     private int[] itemsetBuffer = null;
+    /**
+     * if true, the utility-lists are stored as arrays (ArrayUtilityList) that are reused
+     * during the search, instead of lists of Element objects
+     */
+    private boolean useArrayUtilityLists = false;
+    /**
+     * the pool of utility-lists (if array utility-lists are used)
+     */
+    private ArrayUtilityListPool utilityListPool = null;
 
     /**
      * Default constructor
@@ -74,6 +85,17 @@ public class AlgoHUIMiner {
     public AlgoHUIMiner() {
     }
 
+    /**
+     * Set whether the utility-lists should be stored as arrays of primitive values that are
+     * reused during the search (ArrayUtilityList) rather than as lists of Element objects.
+     * The result is the same but much fewer objects are created.
+     *
+     * @param useArrayUtilityLists true to use array utility-lists
+     */
+    public void setUseArrayUtilityLists(boolean useArrayUtilityLists) {
+        this.useArrayUtilityLists = useArrayUtilityLists;
+    }
+
     /**
      * Run the algorithm
      *
@@ -94,40 +116,25 @@ public class AlgoHUIMiner {
         writer = new BufferedWriter(new FileWriter(output));
 
         //  We create a  map to store the TWU of each item
-        mapItemToTWU = new HashMap<Integer, Integer>();
+        mapItemToTWU = new IntIntMap();
 
         // We scan the database a first time to calculate the TWU of each item.
-        BufferedReader myInput = null;
-        String thisLine;
+        SPMFMappedFileReader myInput = null;
         try {
             // prepare the object for reading the file
-            myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
-            // for each line (transaction) until the end of file
-            while ((thisLine = myInput.readLine()) != null) {
-                // if the line is  a comment, is  empty or is a
-                // kind of metadata
-                if (thisLine.isEmpty() ||
-                    thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-                    || thisLine.charAt(0) == '@') {
-                    continue;
-                }
-
-                // split the transaction according to the : separator
-                String[] split = thisLine.split(":");
+            // (empty lines, comments and metadata are skipped by the reader)
+            myInput = new SPMFMappedFileReader(input);
+            // for each transaction until the end of file
+            while (myInput.nextTransaction()) {
                 // the first part is the list of items
-                String[] items = split[0].split(" ");
+                int[] items = myInput.getItems();
+                int itemCount = myInput.getItemCount();
                 // the second part is the transaction utility
-                int transactionUtility = Integer.parseInt(split[1]);
+                int transactionUtility = myInput.getTransactionUtility();
                 // for each item, we add the transaction utility to its TWU
-                for (int i = 0; i < items.length; i++) {
-                    // convert item to integer
-                    Integer item = Integer.parseInt(items[i]);
-                    // get the current TWU of that item
-                    Integer twu = mapItemToTWU.get(item);
+                for (int i = 0; i < itemCount; i++) {
                     // add the utility of the item in the current transaction to its twu
-                    twu = (twu == null) ?
-                          transactionUtility : twu + transactionUtility;
-                    mapItemToTWU.put(item, twu);
+                    mapItemToTWU.increment(items[i], transactionUtility);
                 }
             }
         } catch (Exception e) {
@@ -146,7 +153,7 @@ public class AlgoHUIMiner {
         Map<Integer, UtilityList> mapItemToUtilityList = new HashMap<Integer, UtilityList>();
 
         // For each item
-        for (Integer item : mapItemToTWU.keySet()) {
+        for (int item : mapItemToTWU.keys()) {
             // if the item is promising  (TWU >= minutility)
             if (mapItemToTWU.get(item) >= minUtility) {
                 // create an empty Utility List that we will fill later.
@@ -165,30 +172,36 @@ public class AlgoHUIMiner {
             }
         });
 
+        // If array utility-lists are used, the utility-lists of items are the first level of the pool
+        utilityListPool = null;
+        ArrayUtilityList[] arrayUtilityLists = null;
+        Map<Integer, ArrayUtilityList> mapItemToArrayUtilityList = null;
+        if (useArrayUtilityLists) {
+            utilityListPool = new ArrayUtilityListPool();
+            arrayUtilityLists = utilityListPool.getLevel(0, listOfUtilityLists.size());
+            mapItemToArrayUtilityList = new HashMap<Integer, ArrayUtilityList>();
+            for (int i = 0; i < listOfUtilityLists.size(); i++) {
+                int item = listOfUtilityLists.get(i).item;
+                arrayUtilityLists[i].reset(item);
+                mapItemToArrayUtilityList.put(item, arrayUtilityLists[i]);
+            }
+        }
+
         // SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
         // OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
         try {
             // prepare object for reading the file
-            myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
+            myInput = new SPMFMappedFileReader(input);
             // variable to count the number of transaction
             int tid = 0;
-            // for each line (transaction) until the end of file
-            while ((thisLine = myInput.readLine()) != null) {
-                // if the line is  a comment, is  empty or is a
-                // kind of metadata
-                if (thisLine.isEmpty() ||
-                    thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-                    || thisLine.charAt(0) == '@') {
-                    continue;
-                }
-
-                // split the line according to the separator
-                String[] split = thisLine.split(":");
+            // for each transaction until the end of file
+            while (myInput.nextTransaction()) {
                 // get the list of items
-                String[] items = split[0].split(" ");
+                int[] items = myInput.getItems();
+                int itemCount = myInput.getItemCount();
                 // get the list of utility values corresponding to each item
                 // for that transaction
-                String[] utilityValues = split[2].split(" ");
+                int[] utilityValues = myInput.getUtilities();
 
                 // Copy the transaction into lists but
                 // without items with TWU < minutility
@@ -198,11 +211,11 @@ public class AlgoHUIMiner {
                 // Create a list to store items
                 List<Pair> revisedTransaction = new ArrayList<Pair>();
                 // for each item
-                for (int i = 0; i < items.length; i++) {
-                    /// convert values to integers
+                for (int i = 0; i < itemCount; i++) {
+                    /// copy the values from the buffers of the reader
                     Pair pair = new Pair();
-                    pair.item = Integer.parseInt(items[i]);
-                    pair.utility = Integer.parseInt(utilityValues[i]);
+                    pair.item = items[i];
+                    pair.utility = utilityValues[i];
                     // if the item has enough utility
                     if (mapItemToTWU.get(pair.item) >= minUtility) {
                         // add it
@@ -223,6 +236,11 @@ public class AlgoHUIMiner {
                     // subtract the utility of this item from the remaining utility
                     remainingUtility = remainingUtility - pair.utility;
 
+                    if (useArrayUtilityLists) {
+                        mapItemToArrayUtilityList.get(pair.item).addElement(tid, pair.utility, remainingUtility);
+                        continue;
+                    }
+
                     // get the utility list of this item
                     UtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
 
@@ -247,7 +265,11 @@ public class AlgoHUIMiner {
         MemoryLogger.getInstance().checkMemory();
 
         // Mine the database recursively
-        huiMiner(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+        if (useArrayUtilityLists) {
+            huiMiner(itemsetBuffer, 0, null, arrayUtilityLists, listOfUtilityLists.size(), minUtility);
+        } else {
+            huiMiner(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+        }
 
         // check the memory usage again and close the file.
         MemoryLogger.getInstance().checkMemory();
@@ -313,6 +335,57 @@ public class AlgoHUIMiner {
         }
     }
 
+    /**
+     * This is the recursive method to find all high utility itemsets when array utility-lists
+     * are used. The utility-lists of the extensions of pX are taken from the pool at depth
+     * prefixLength + 1 and are reused for each X.
+     *
+     * @param prefix       This is the current prefix. Initially, it is empty.
+     * @param pUL          This is the Utility List of the prefix. Initially, it is empty.
+     * @param ULs          The utility lists corresponding to each extension of the prefix.
+     * @param ULCount      The number of utility lists in ULs.
+     * @param minUtility   The minUtility threshold.
+     * @param prefixLength The current prefix length
+     * @throws IOException
+     */
+    private void huiMiner(int[] prefix, int prefixLength, ArrayUtilityList pUL,
+                          ArrayUtilityList[] ULs, int ULCount, int minUtility)
+            throws IOException {
+
+        // For each extension X of prefix P
+        for (int i = 0; i < ULCount; i++) {
+            ArrayUtilityList X = ULs[i];
+
+            // If pX is a high utility itemset.
+            // we save the itemset:  pX
+            if (X.sumIutils >= minUtility) {
+                // save to file
+                writeOut(prefix, prefixLength, X.item, X.sumIutils);
+            }
+
+            // If the sum of the remaining utilities for pX
+            // is higher than minUtility, we explore extensions of pX.
+            // (this is the pruning condition)
+            if (X.sumIutils + X.sumRutils >= minUtility) {
+                // The utility lists of pX extensions are reused from the pool
+                ArrayUtilityList[] exULs = utilityListPool.getLevel(prefixLength + 1, ULCount - i - 1);
+                int exULCount = 0;
+                // For each extension of p appearing
+                // after X according to the ascending order
+                for (int j = i + 1; j < ULCount; j++) {
+                    // we construct the extension pXY
+                    exULs[exULCount++].construct(pUL, X, ULs[j], false, minUtility);
+                    joinCount++;
+                }
+                // We create new prefix pX
+                itemsetBuffer[prefixLength] = X.item;
+
+                // We make a recursive call to discover all itemsets with the prefix pXY
+                huiMiner(itemsetBuffer, prefixLength + 1, X, exULs, exULCount, minUtility);
+            }
+        }
+    }
+
     /**
      * This method constructs the utility list of pXY
      *
@@ -420,6 +493,10 @@ public class AlgoHUIMiner {
         System.out.println(" Memory ~ " + MemoryLogger.getInstance().getMaxMemory() + " MB");
         System.out.println(" High-utility itemsets count : " + huiCount);
         System.out.println(" Join count : " + joinCount);
+        if (utilityListPool != null) {
+            System.out.println(" Array utility-lists : " + utilityListPool.getAllocatedListCount()
+                               + " arrays memory ~ " + utilityListPool.getAllocatedMemory() + " mb");
+        }
         System.out.println("===================================================");
     }
 
@@ -0,0 +1,267 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * This class represents a utility-list stored as a structure of arrays: the elements
+ * of the list are stored in three parallel arrays (tids, iutils and rutils) instead of
+ * a list of Element objects. The tids are stored by ascending order.
+ * <br/><br/>
+ * An ArrayUtilityList is meant to be reused: calling reset() empties the list but keeps
+ * its arrays, so that once the arrays are large enough, filling the list again does
+ * not allocate memory. The utility-lists used during the search are obtained from an
+ * ArrayUtilityListPool.
+ *
+ * @author Philippe Fournier-Viger
+ * @see UtilityList
+ * @see ArrayUtilityListPool
+ */
+public class ArrayUtilityList {
+    public int item;  // the item
+    public long sumIutils = 0;  // the sum of item utilities
+    public long sumRutils = 0;  // the sum of remaining utilities
+    int[] tids;  // the tids of the elements
+    long[] iutils;  // the item utilities of the elements
+    long[] rutils;  // the remaining utilities of the elements
+    int size = 0;  // the number of elements
+
+    /**
+     * Constructor.
+     *
+     * @param item     the item that is used for this utility list
+     * @param capacity the initial capacity
+     */
+    public ArrayUtilityList(int item, int capacity) {
+        this.item = item;
+        capacity = Math.max(capacity, 1);
+        tids = new int[capacity];
+        iutils = new long[capacity];
+        rutils = new long[capacity];
+    }
+
+    /**
+     * Empty this utility-list so that it can be reused for another item.
+     * The arrays are kept.
+     *
+     * @param item the new item of this utility list
+     */
+    public void reset(int item) {
+        this.item = item;
+        sumIutils = 0;
+        sumRutils = 0;
+        size = 0;
+    }
+
+    /**
+     * Make sure that the arrays can store a given number of elements
+     *
+     * @param capacity the number of elements
+     */
+    void ensureCapacity(int capacity) {
+        if (tids.length < capacity) {
+            int newCapacity = Math.max(capacity, tids.length + (tids.length >> 1));
+            tids = Arrays.copyOf(tids, newCapacity);
+            iutils = Arrays.copyOf(iutils, newCapacity);
+            rutils = Arrays.copyOf(rutils, newCapacity);
+        }
+    }
+
+    /**
+     * Add an element to this utility list and update the sums at the same time.
+     * The tid must be larger than the tid of the last element.
+     *
+     * @param tid   the tid
+     * @param iutil the utility of the item(set) in that transaction
+     * @param rutil the remaining utility in that transaction
+     */
+    public void addElement(int tid, long iutil, long rutil) {
+        if (size == tids.length) {
+            ensureCapacity(size + 1);
+        }
+        tids[size] = tid;
+        iutils[size] = iutil;
+        rutils[size] = rutil;
+        size++;
+        sumIutils += iutil;
+        sumRutils += rutil;
+    }
+
+    /**
+     * Add an element without checking the capacity (used by the join)
+     */
+    private void addElementUnchecked(int tid, long iutil, long rutil) {
+        tids[size] = tid;
+        iutils[size] = iutil;
+        rutils[size] = rutil;
+        size++;
+        sumIutils += iutil;
+        sumRutils += rutil;
+    }
+
+    /**
+     * Get the support of the itemset represented by this utility-list
+     *
+     * @return the support as a number of transactions
+     */
+    public int getSupport() {
+        return size;
+    }
+
+    /**
+     * Get the sum of iutil values
+     *
+     * @return the sum
+     */
+    public long getUtils() {
+        return this.sumIutils;
+    }
+
+    /**
+     * Get the tid of an element
+     *
+     * @param i the position of the element
+     * @return the tid
+     */
+    public int getTid(int i) {
+        return tids[i];
+    }
+
+    /**
+     * Get the item utility of an element
+     *
+     * @param i the position of the element
+     * @return the utility
+     */
+    public long getIutils(int i) {
+        return iutils[i];
+    }
+
+    /**
+     * Get the remaining utility of an element
+     *
+     * @param i the position of the element
+     * @return the remaining utility
+     */
+    public long getRutils(int i) {
+        return rutils[i];
+    }
+
+    /**
+     * Find the first element having a tid that is greater or equal to a given tid, starting
+     * from a given position. A galloping search is used: the distance to the next element is doubled
+     * until an element with a greater or equal tid is found, and then a binary search is done
+     * in the last interval. This is faster than a binary search on the whole list when the
+     * tids that are searched are increasing, as in a join.
+     *
+     * @param tid  the tid
+     * @param from the position where the search starts
+     * @return the position of the element (equal to the size if all tids are smaller)
+     */
+    int gallop(int tid, int from) {
+        if (from >= size || tids[from] >= tid) {
+            return from;
+        }
+        // tids[low] < tid
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < size && tids[high] < tid) {
+            low = high;
+            step <<= 1;
+            high = low + step;
+        }
+        if (high > size) {
+            high = size;
+        }
+        // the element is in the interval ]low, high]
+        low++;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tids[middle] < tid) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Fill this utility-list with the utility-list of pXY by joining the utility-lists of pX and pY.
+     * This is the construct() procedure of HUI-Miner. Since the tids of all lists are sorted,
+     * the elements of pY and P having the tids of pX are found by galloping searches that always
+     * resume from the last position found. No memory is allocated once the arrays of this list are
+     * large enough.
+     *
+     * @param P          the utility list of the prefix P or null if the prefix is empty
+     * @param px         the utility list of pX
+     * @param py         the utility list of pY
+     * @param laPrune    if true, the LA-prune strategy of FHM is applied
+     * @param minUtility the minimum utility threshold (only used if laPrune is true)
+     * @return false if the join was stopped by the LA-prune strategy, otherwise true
+     */
+    public boolean construct(ArrayUtilityList P, ArrayUtilityList px, ArrayUtilityList py,
+                             boolean laPrune, long minUtility) {
+        reset(py.item);
+        ensureCapacity(Math.min(px.size, py.size));
+
+        // Initialize the sum of total utility (LA-prune)
+        long totalUtility = px.sumIutils + px.sumRutils;
+
+        int positionY = 0;
+        int positionP = 0;
+        // for each element in the utility list of pX
+        for (int i = 0; i < px.size; i++) {
+            int tid = px.tids[i];
+            // find element ey in py with tid = ex.tid
+            positionY = py.gallop(tid, positionY);
+            if (positionY == py.size || py.tids[positionY] != tid) {
+                if (laPrune) {
+                    totalUtility -= (px.iutils[i] + px.rutils[i]);
+                    if (totalUtility < minUtility) {
+                        return false;
+                    }
+                }
+                continue;
+            }
+            // if the prefix p is null
+            if (P == null) {
+                addElementUnchecked(tid, px.iutils[i] + py.iutils[positionY], py.rutils[positionY]);
+            } else {
+                // find the element in the utility list of p with the same tid
+                positionP = P.gallop(tid, positionP);
+                if (positionP < P.size && P.tids[positionP] == tid) {
+                    addElementUnchecked(tid, px.iutils[i] + py.iutils[positionY] - P.iutils[positionP],
+                                        py.rutils[positionY]);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of bytes used by the arrays of this utility list
+     *
+     * @return the number of bytes
+     */
+    long getAllocatedBytes() {
+        return 20L * tids.length;
+    }
+}
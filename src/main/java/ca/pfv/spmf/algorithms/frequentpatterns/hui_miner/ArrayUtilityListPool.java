@@ -0,0 +1,96 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A pool of ArrayUtilityList objects organized by depth of the search.
+ * <br/><br/>
+ * In HUI-Miner and FHM, the utility-lists of the extensions of an itemset pX are only needed
+ * until the recursive call for pX returns. Then, the utility-lists of the extensions of the next
+ * itemset pX' are constructed at the same depth. Thus, the utility-lists of a depth can be reused
+ * for each itemset that is extended at that depth, and the number of utility-lists that are
+ * allocated during the whole search is bounded by the maximum depth multiplied by the number of items.
+ *
+ * @author Philippe Fournier-Viger
+ * @see ArrayUtilityList
+ */
+public class ArrayUtilityListPool {
+
+    /**
+     * the utility lists of each depth
+     */
+    private ArrayUtilityList[][] levels = new ArrayUtilityList[8][];
+
+    /**
+     * the number of utility lists allocated by this pool
+     */
+    private int allocatedListCount = 0;
+
+    /**
+     * Get the utility-lists of a given depth. The array contains at least the requested number of
+     * utility-lists. They may contain elements from a previous use, and must be reset before being filled.
+     *
+     * @param depth the depth
+     * @param count the number of utility-lists that are needed
+     * @return the utility-lists
+     */
+    public ArrayUtilityList[] getLevel(int depth, int count) {
+        if (depth >= levels.length) {
+            levels = Arrays.copyOf(levels, Math.max(depth + 1, levels.length * 2));
+        }
+        ArrayUtilityList[] level = levels[depth];
+        if (level == null || level.length < count) {
+            int oldLength = level == null ? 0 : level.length;
+            level = level == null ? new ArrayUtilityList[count] : Arrays.copyOf(level, count);
+            for (int i = oldLength; i < count; i++) {
+                level[i] = new ArrayUtilityList(0, 16);
+                allocatedListCount++;
+            }
+            levels[depth] = level;
+        }
+        return level;
+    }
+
+    /**
+     * Get the number of utility-lists allocated by this pool
+     *
+     * @return the number of utility-lists
+     */
+    public int getAllocatedListCount() {
+        return allocatedListCount;
+    }
+
+    /**
+     * Get the memory used by the arrays of the utility lists of this pool
+     *
+     * @return the memory in MB
+     */
+    public double getAllocatedMemory() {
+        long bytes = 0;
+        for (ArrayUtilityList[] level : levels) {
+            if (level != null) {
+                for (ArrayUtilityList list : level) {
+                    bytes += list.getAllocatedBytes();
+                }
+            }
+        }
+        return bytes / 1024d / 1024d;
+    }
+}
@@ -1,10 +1,9 @@
 package ca.pfv.spmf.algorithms.frequentpatterns.lcm;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
+
 import java.io.IOException;
 import java.util.*;
-import java.util.regex.Pattern;
 /* This file is copyright (c) 2012-2014 Alan Souza
  *
  * This file is part of the SPMF DATA MINING SOFTWARE
@@ -39,18 +38,12 @@ public class Dataset {
 
         transactions = new ArrayList<Transaction>();
 
-        BufferedReader br = new BufferedReader(new FileReader(datasetPath));
-        String items;
-        while ((items = br.readLine()) != null) { // iterate over the lines to build the transaction
-            // if the line is  a comment, is  empty or is  metadata
-            if (items.isEmpty() || items.charAt(0) == '#'
-                || items.charAt(0) == '%' || items.charAt(0) == '@') {
-                continue;
-            }
-
-            getTransactions().add(createTransaction(items));
+        // (empty lines, comments and metadata are skipped by the reader)
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(datasetPath);
+        while (reader.nextTransaction()) { // iterate over the transactions
+            getTransactions().add(createTransaction(reader));
         }
-        br.close();
+        reader.close();
 
         /// sort transactions by increasing last item (optimization)
         Collections.sort(transactions, new Comparator<Transaction>() {
@@ -72,21 +65,20 @@ public class Dataset {
     }
 
     /**
-     * Create a transaction object from a line from the input file
+     * Create a transaction object from the current transaction of the reader
      *
-     * @param line a line from input file
+     * @param reader a reader positioned on a transaction of the input file
      * @return a transaction
      */
-    private Transaction createTransaction(String line) {
+    private Transaction createTransaction(SPMFMappedFileReader reader) {
 
         //build the items
-        Pattern splitPattern = Pattern.compile(" ");
-        String[] items = splitPattern.split(line);
+        int[] items = reader.getItems();
 
-        Integer[] itemsSorted = new Integer[items.length];
+        Integer[] itemsSorted = new Integer[reader.getItemCount()];
 
-        for (int i = 0; i < items.length; i++) {
-            Integer item = Integer.valueOf(items[i]);
+        for (int i = 0; i < itemsSorted.length; i++) {
+            Integer item = items[i];
             itemsSorted[i] = item;
 
             uniqueItems.add(item);
@@ -170,6 +170,26 @@ public abstract class AlgoCGSPANAbstract {
     // for debugging only, monitors progress by counting number of rightmost extended projections
     protected long rightMostExtendedProjectionsCount = 0;
 
+    /**
+     * the number of threads used for mining, by default the number of processors
+     */
+    protected int threadCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * threads of the current execution of the algorithm
+     */
+    protected ThreadPool threadPool;
+
+    /**
+     * the maximum number of graph invariants in the cache of minimum DFS codes (0 to disable the cache)
+     */
+    protected int canonicalCodeCacheCapacity = CanonicalCodeCache.DEFAULT_CAPACITY;
+
+    /**
+     * the cache of minimum DFS codes of the current execution of the algorithm
+     */
+    protected CanonicalCodeCache canonicalCodeCache;
+
     /**
      * Output the DOT files to a given file path
      *
@@ -360,7 +380,7 @@ public abstract class AlgoCGSPANAbstract {
         List<Map<Integer, Integer>> isoms = new ArrayList<>();
 
         // initial isomorphisms by finding all vertices with same label as vertex 0 in C
-        int startLabel = c.getEeL().get(0).getvLabel1(); // only non-empty DFSCode will be real parameter
+        int startLabel = c.getVLabel1(0); // only non-empty DFSCode will be real parameter
         for (int vID : g.findAllWithLabel(startLabel)) {
             Map<Integer, Integer> map = new HashMap<>();
             map.put(0, vID);
@@ -370,11 +390,11 @@ public abstract class AlgoCGSPANAbstract {
         // each extended edge will update partial isomorphisms
         // for forward edge, each isomorphism will be either extended or discarded
         // for backward edge, each isomorphism will be either unchanged or discarded
-        for (ExtendedEdge ee : c.getEeL()) {
-            int v1 = ee.getV1();
-            int v2 = ee.getV2();
-            int v2Label = ee.getvLabel2();
-            int eLabel = ee.getEdgeLabel();
+        for (int i = 0; i < c.size(); i++) {
+            int v1 = c.getV1(i);
+            int v2 = c.getV2(i);
+            int v2Label = c.getVLabel2(i);
+            int eLabel = c.getEdgeLabel(i);
 
             List<Map<Integer, Integer>> updateIsoms = new ArrayList<>();
             // For each isomorphism
@@ -388,22 +408,21 @@ public abstract class AlgoCGSPANAbstract {
                     Collection<Integer> mappedVertices = iso.values();
 
                     // For each neighbor of the vertex corresponding to V1
-                    for (Vertex mappedV2 : g.getAllNeighbors(mappedV1)) {
+                    for (int p = g.getNeighborStart(mappedV1), neighborEnd = g.getNeighborEnd(mappedV1); p < neighborEnd; p++) {
+                        int mappedV2 = g.getNeighborId(p);
 
                         // If the neighbor has the same label as V2 and is not already mapped and the
                         // edge label is
                         // the same as that between v1 and v2.
-                        if (v2Label == mappedV2.getLabel() && (!mappedVertices.contains(mappedV2.getId()))
-                            && eLabel == g.getEdgeLabel(mappedV1, mappedV2.getId())) {
+                        if (v2Label == g.getNeighborLabel(p) && (!mappedVertices.contains(mappedV2))
+                            && eLabel == g.getNeighborEdgeLabel(p)) {
 
-                            // TODO: PHILIPPE: getEdgeLabel() in the above line could be precalculated in
-                            // Graph.java ...
 
                             // because there may exist multiple extensions, need to copy original partial
                             // isomorphism
                             HashMap<Integer, Integer> tempM = new HashMap<>(iso.size() + 1);
                             tempM.putAll(iso);
-                            tempM.put(v2, mappedV2.getId());
+                            tempM.put(v2, mappedV2);
 
                             updateIsoms.add(tempM);
                         }
@@ -434,15 +453,16 @@ public abstract class AlgoCGSPANAbstract {
             // IF WE HAVE AN EMPTY SUBGRAPH THAT WE WANT TO EXTEND
 
             // find all distinct label tuples
-            for (Vertex vertex : g.vertices) {
-                for (Edge e : vertex.getEdgeList()) {
-                    int v1L = g.getVLabel(e.v1);
-                    int v2L = g.getVLabel(e.v2);
+            for (int vertexIndex = 0; vertexIndex < g.getVertexCount(); vertexIndex++) {
+                int vertex = g.getVertexId(vertexIndex);
+                int v1L = g.getVLabel(vertex);
+                for (int p = g.getNeighborStart(vertex), neighborEnd = g.getNeighborEnd(vertex); p < neighborEnd; p++) {
+                    int v2L = g.getNeighborLabel(p);
                     ExtendedEdge ee1;
                     if (v1L < v2L) {
-                        ee1 = new ExtendedEdge(0, 1, v1L, v2L, e.getEdgeLabel());
+                        ee1 = new ExtendedEdge(0, 1, v1L, v2L, g.getNeighborEdgeLabel(p));
                     } else {
-                        ee1 = new ExtendedEdge(0, 1, v2L, v1L, e.getEdgeLabel());
+                        ee1 = new ExtendedEdge(0, 1, v2L, v1L, g.getNeighborEdgeLabel(p));
                     }
 
                     // Update the set of graph ids for this pattern
@@ -471,15 +491,16 @@ public abstract class AlgoCGSPANAbstract {
                 }
                 int mappedRM = isom.get(rightMost);
                 int mappedRMlabel = g.getVLabel(mappedRM);
-                for (Vertex x : g.getAllNeighbors(mappedRM)) {
-                    Integer invertedX = invertedISOM.get(x.getId());
+                for (int p = g.getNeighborStart(mappedRM), neighborEnd = g.getNeighborEnd(mappedRM); p < neighborEnd; p++) {
+                    int x = g.getNeighborId(p);
+                    Integer invertedX = invertedISOM.get(x);
                     if (invertedX != null && c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                         && !c.containEdge(rightMost, invertedX)) {
                         // rightmost and invertedX both have correspondings in g, so label of vertices
                         // and edge all
                         // can be found by correspondings
-                        ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                g.getEdgeLabel(mappedRM, x.getId()));
+                        ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                g.getNeighborEdgeLabel(p));
                         if (extensions.get(ee) == null) {
                             extensions.put(ee, new HashSet<>());
                         }
@@ -488,13 +509,14 @@ public abstract class AlgoCGSPANAbstract {
                 }
                 // forward extensions from nodes on rightmost path
                 Collection<Integer> mappedVertices = isom.values();
-                for (int v : c.getRightMostPath()) {
+                for (int v : c.getRightMostPathVertices()) {
                     int mappedV = isom.get(v);
                     int mappedVlabel = g.getVLabel(mappedV);
-                    for (Vertex x : g.getAllNeighbors(mappedV)) {
-                        if (!mappedVertices.contains(x.getId())) {
-                            ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, x.getLabel(),
-                                    g.getEdgeLabel(mappedV, x.getId()));
+                    for (int p = g.getNeighborStart(mappedV), neighborEnd = g.getNeighborEnd(mappedV); p < neighborEnd; p++) {
+                        int x = g.getNeighborId(p);
+                        if (!mappedVertices.contains(x)) {
+                            ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, g.getNeighborLabel(p),
+                                    g.getNeighborEdgeLabel(p));
                             if (extensions.get(ee) == null) {
                                 extensions.put(ee, new HashSet<>());
                             }
@@ -560,9 +582,8 @@ public abstract class AlgoCGSPANAbstract {
                             extensions.put(ee1, extensionProjected);
                         }
 
-                        EdgeEnumeration edgeEnumeration = g.getEdgeEnumeration(e);
                         boolean isReversed = (v1L >= v2L && (v2L < v1L || vertex.getId() != e.v1));
-                        ProjectedEdge projectedEdge = ProjectedEdge.get(edgeEnumeration, isReversed);
+                        ProjectedEdge projectedEdge = g.getProjectedEdge(e, isReversed);
                         extensionProjected.addProjection(projectedEdge);
                     }
                 }
@@ -590,11 +611,10 @@ public abstract class AlgoCGSPANAbstract {
             }
 
             // start projections producer threads
-            ProjectedIteratorConsumer iterator = projected.iterator(ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() * 10,
-                    ThreadPool.getProjectedIteratorProducersInstance().getThreadCount(), callbacks);
+            ProjectedIteratorConsumer iterator = projected.iterator(threadPool, threadPool.getThreadCount() * 10,
+                    threadPool.getThreadCount(), callbacks);
 
             // start rightmost extender threads
-            ThreadPool threadPool = ThreadPool.getRightMostExtenderInstance();
             /*
             List<RightPathExtenderSynchronized> extenders = new LinkedList<RightPathExtenderSynchronized>();
             for (int i = 0; i < threadPool.getThreadCount(); i++) {
@@ -609,7 +629,7 @@ public abstract class AlgoCGSPANAbstract {
                 extenders.add(rightPathExtender);
             }
 
-            List<Future<Integer>> futures = threadPool.getExecutorService().invokeAll(extenders);
+            List<Future<Integer>> futures = threadPool.getRightMostExtenders().invokeAll(extenders);
 
             // check equivalent occurrence for each rightmost extension by comparing number of projections to the number of extended projections
             for (ExtendedEdge ee : extensionPDFSCounter.keySet()) {
@@ -676,7 +696,8 @@ public abstract class AlgoCGSPANAbstract {
         boolean earlyTermination = false;
         for (ClosedSubgraph closedSubgraph : closedSubgraphs) {
             // checks equivalent occurrence of the DFS code with a previously discovered closed subgraph
-            Map<Integer, Integer> isomorphism = closedSubgraph.checkEquivalentOccurrence(setOfGraphsIDs, setOfGraphsIDs.size(), projected);
+            Map<Integer, Integer> isomorphism = closedSubgraph.checkEquivalentOccurrence(setOfGraphsIDs, setOfGraphsIDs.size(), projected,
+                    threadPool);
             if (isomorphism != null) {
                 earlyTermination = true;
                 if (detectEarlyTerminationFailure) {
@@ -797,9 +818,6 @@ public abstract class AlgoCGSPANAbstract {
         }
 
         if (frequentVertexLabels.size() != 0) {
-            // initialize projected edges cache
-            ProjectedEdge.init(graphDB);
-
             if (outputClosedVertices) {
                 ProjectedCompact projected = new ProjectedCompact(null, graphDB);
                 projected.setGraphIds(graphIds);
@@ -831,9 +849,18 @@ public abstract class AlgoCGSPANAbstract {
      * @return true if it is canonical, and otherwise, false.
      */
     protected boolean isCanonical(DFSCode c) {
+        Graph g = new Graph(c);
         DFSCode canC = new DFSCode();
         for (int i = 0; i < c.size(); i++) {
-            Map<ExtendedEdge, Set<Integer>> extensions = rightMostPathExtensionsFromSingle(canC, new Graph(c));
+            // if the first edge is minimal, the minimum DFS code of the graph may be in the cache
+            if (i == 1 && canonicalCodeCache != null) {
+                Boolean canonical = canonicalCodeCache.isCanonical(c, g);
+                if (canonical != null) {
+                    return canonical;
+                }
+            }
+
+            Map<ExtendedEdge, Set<Integer>> extensions = rightMostPathExtensionsFromSingle(canC, g);
             ExtendedEdge minEE = null;
             for (ExtendedEdge ee : extensions.keySet()) {
                 if (ee.smallerThanOriginal(minEE)) {
@@ -846,6 +873,9 @@ public abstract class AlgoCGSPANAbstract {
             }
             canC.add(minEE);
         }
+        if (canonicalCodeCache != null && c.size() > 1) {
+            canonicalCodeCache.addMinimumCode(c);
+        }
         return true;
     }
 
@@ -918,6 +948,34 @@ public abstract class AlgoCGSPANAbstract {
         this.pdfsAutomorphismOptimization = pdfsAutomorphismOptimization;
     }
 
+    /**
+     * Set the number of threads used for mining. The rightmost path extensions of a
+     * DFS code and the projections they extend are computed by this number of threads.
+     * By default, one thread per processor is used.
+     *
+     * @param threadCount the number of threads (at least 1)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Set the maximum number of graph invariants in the cache of minimum DFS codes, which is used to
+     * check if a DFS code is canonical without computing the minimum DFS code of its graph again.
+     * The least recently used invariants are removed when the cache is full.
+     *
+     * @param capacity the capacity (100000 by default, 0 to disable the cache)
+     */
+    public void setCanonicalCodeCacheCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity of the cache must be at least 0");
+        }
+        this.canonicalCodeCacheCapacity = capacity;
+    }
+
     /**
      * Pair
      */
@@ -96,8 +96,14 @@ public class AlgoCGSPANMNI extends AlgoCGSPANAbstract {
         // read graphs
         List<DatabaseGraph> graphDB = readGraphs(inPath);
 
+        // Create the threads of this execution
+        threadPool = new ThreadPool(threadCount);
+
+        // Create the cache of minimum DFS codes of this execution
+        canonicalCodeCache = canonicalCodeCacheCapacity > 0 ? new CanonicalCodeCache(canonicalCodeCacheCapacity) : null;
+
         // Create early termination failure handler
-        IEarlyTerminationFailureHandler earlyTerminationFailureHandler = new EarlyTerminationFailureHandlerMNI(graphDB, minMNI);
+        IEarlyTerminationFailureHandler earlyTerminationFailureHandler = new EarlyTerminationFailureHandlerMNI(graphDB, threadPool, minMNI);
 
         // projections automorphism optimization is enabled by default
         pdfsAutomorphismOptimization = true;
@@ -107,7 +113,12 @@ public class AlgoCGSPANMNI extends AlgoCGSPANAbstract {
         }
 
         // mining
-        cgSpan(graphDB, outputSingleVertices, earlyTerminationFailureHandler);
+        try {
+            cgSpan(graphDB, outputSingleVertices, earlyTerminationFailureHandler);
+        } finally {
+            // stop the threads of this execution
+            threadPool.shutdown();
+        }
 
         // check the memory usage
         MemoryLogger.getInstance().checkMemory();
@@ -126,8 +137,6 @@ public class AlgoCGSPANMNI extends AlgoCGSPANAbstract {
         if (outputDotFile) {
             outputDotFile(outPath);
         }
-
-        ThreadPool.shutdown();
     }
 
     /**
@@ -546,6 +555,13 @@ public class AlgoCGSPANMNI extends AlgoCGSPANAbstract {
         System.out.println(" Total time ~ " + runtime + " s");
         System.out.println(" MinMNI : " + minMNI + " nodes");
         System.out.println(" Maximum memory usage : " + maxmemory + " mb");
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
+        if (canonicalCodeCache != null) {
+            System.out.println(" Canonical code cache hits : " + canonicalCodeCache.getHitCount()
+                               + " misses : " + canonicalCodeCache.getMissCount());
+        }
 
         if (DEBUG_MODE) {
             if (ELIMINATE_INFREQUENT_VERTEX_PAIRS || ELIMINATE_INFREQUENT_VERTICES) {
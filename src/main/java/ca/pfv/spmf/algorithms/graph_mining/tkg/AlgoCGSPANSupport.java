@@ -101,8 +101,14 @@ public class AlgoCGSPANSupport extends AlgoCGSPANAbstract {
         // Calculate the minimum support as a number of graphs
         minSup = (int) Math.ceil(minFrequency * graphDB.size());
 
+        // Create the threads of this execution
+        threadPool = new ThreadPool(threadCount);
+
+        // Create the cache of minimum DFS codes of this execution
+        canonicalCodeCache = canonicalCodeCacheCapacity > 0 ? new CanonicalCodeCache(canonicalCodeCacheCapacity) : null;
+
         // Create early termination failure handler
-        IEarlyTerminationFailureHandler earlyTerminationFailureHandler = new EarlyTerminationFailureHandlerSupport(graphDB, minSup);
+        IEarlyTerminationFailureHandler earlyTerminationFailureHandler = new EarlyTerminationFailureHandlerSupport(graphDB, threadPool, minSup);
 
         // projections automorphism optimization is disabled by default
         pdfsAutomorphismOptimization = false;
@@ -112,7 +118,12 @@ public class AlgoCGSPANSupport extends AlgoCGSPANAbstract {
         }
 
         // mining
-        cgSpan(graphDB, outputSingleVertices, earlyTerminationFailureHandler);
+        try {
+            cgSpan(graphDB, outputSingleVertices, earlyTerminationFailureHandler);
+        } finally {
+            // stop the threads of this execution
+            threadPool.shutdown();
+        }
 
         // check the memory usage
         MemoryLogger.getInstance().checkMemory();
@@ -131,8 +142,6 @@ public class AlgoCGSPANSupport extends AlgoCGSPANAbstract {
         if (outputDotFile) {
             outputDotFile(outPath);
         }
-
-        ThreadPool.shutdown();
     }
 
     /**
@@ -510,6 +519,13 @@ public class AlgoCGSPANSupport extends AlgoCGSPANAbstract {
         System.out.println(" Total time ~ " + runtime + " s");
         System.out.println(" Minsup : " + minSup + " graphs");
         System.out.println(" Maximum memory usage : " + maxmemory + " mb");
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
+        if (canonicalCodeCache != null) {
+            System.out.println(" Canonical code cache hits : " + canonicalCodeCache.getHitCount()
+                               + " misses : " + canonicalCodeCache.getMissCount());
+        }
 
         if (DEBUG_MODE) {
             if (ELIMINATE_INFREQUENT_VERTEX_PAIRS || ELIMINATE_INFREQUENT_VERTICES) {
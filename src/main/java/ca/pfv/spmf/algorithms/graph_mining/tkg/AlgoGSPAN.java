@@ -5,6 +5,9 @@ import ca.pfv.spmf.tools.MemoryLogger;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /* This file is copyright (c) 2018 by Chao Cheng, Philippe Fournier-Viger
  *
@@ -82,6 +85,10 @@ public class AlgoGSPAN {
      * remove infrequent edge labels
      */
     int edgeRemovedByLabel;
+    /**
+     * infrequent edges not loaded when reading the graphs
+     */
+    int infrequentEdgesRemovedWhileReading;
     /**
      * remove infrequent edge labels
      */
@@ -133,6 +140,10 @@ public class AlgoGSPAN {
      * number of graph in the input database
      */
     private int graphCount = 0;
+    /**
+     * the number of threads used for mining
+     */
+    private int threadCount = 1;
 
     /**
      * Output the DOT files to a given file path
@@ -149,6 +160,20 @@ public class AlgoGSPAN {
         VizGraph.visulizeFromFile(outputPath, dirName);
     }
 
+    /**
+     * Set the number of threads used for mining. If more than one thread is used, the subtrees
+     * of the search space starting with each frequent edge are explored in parallel. The same
+     * subgraphs are found, and written in the same order, as with a single thread.
+     *
+     * @param threadCount the number of threads (1 by default)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
     /**
      * Run the GSpan algorithm
      *
@@ -191,6 +216,7 @@ public class AlgoGSPAN {
         // initialize variables for statistics
         infrequentVertexPairsRemoved = 0;
         infrequentVerticesRemovedCount = 0;
+        infrequentEdgesRemovedWhileReading = 0;
         edgeRemovedByLabel = 0;
         eliminatedWithMaxSize = 0;
         emptyGraphsRemoved = 0;
@@ -208,14 +234,18 @@ public class AlgoGSPAN {
         // Record the start time
         Long t1 = System.currentTimeMillis();
 
-        // read graphs
-        List<Graph> graphDB = readGraphs(inPath);
+        // count the support of the vertex labels and edges
+        GraphDatabaseReader reader = new GraphDatabaseReader(inPath);
+        graphCount = reader.getGraphCount();
 
         // Calculate the minimum support as a number of graphs
-        minSup = (int) Math.ceil(minFrequency * graphDB.size());
+        minSup = (int) Math.ceil(minFrequency * graphCount);
+
+        // read graphs
+        List<Graph> graphDB = readGraphs(reader);
 
         // mining
-        gSpan(graphDB, outputSingleVertices);
+        gSpan(graphDB, reader.getVertexLabelGraphIds(), outputSingleVertices);
 
         // check the memory usage
         MemoryLogger.getInstance().checkMemory();
@@ -293,59 +323,24 @@ public class AlgoGSPAN {
     }
 
     /**
-     * Read graph from the input file
+     * Read graph from the input file. Since the support of the vertex labels and edges was counted by
+     * a first pass, the vertices and edges that cannot appear in a frequent subgraph are not loaded.
      *
-     * @param path the input file
+     * @param reader the reader of the input file
      * @return a list of input graph from the input graph database
      * @throws IOException if error reading or writing to file
      */
-    private List<Graph> readGraphs(String path) throws IOException {
+    private List<Graph> readGraphs(GraphDatabaseReader reader) throws IOException {
         if (DEBUG_MODE) {
             System.out.println("start reading graphs...");
         }
-        BufferedReader br = new BufferedReader(new FileReader(new File(path)));
-        List<Graph> graphDatabase = new ArrayList<>();
-
-        String line = br.readLine();
-        Boolean hasNextGraph = (line != null) && line.startsWith("t");
-
-        // For each graph of the graph database
-        while (hasNextGraph) {
-            hasNextGraph = false;
-            int gId = Integer.parseInt(line.split(" ")[2]);
-            Map<Integer, Vertex> vMap = new HashMap<>();
-            while ((line = br.readLine()) != null && !line.startsWith("t")) {
-
-                String[] items = line.split(" ");
-
-                if (line.startsWith("v")) {
-                    // If it is a vertex
-                    int vId = Integer.parseInt(items[1]);
-                    int vLabel = Integer.parseInt(items[2]);
-                    vMap.put(vId, new Vertex(vId, vLabel));
-                } else if (line.startsWith("e")) {
-                    // If it is an edge
-                    int v1 = Integer.parseInt(items[1]);
-                    int v2 = Integer.parseInt(items[2]);
-                    int eLabel = Integer.parseInt(items[3]);
-                    Edge e = new Edge(v1, v2, eLabel);
-//                    System.out.println(v1 + " " + v2 + " " + vMap.get(v1).id + " " + vMap.get(v2).id);
-                    vMap.get(v1).addEdge(e);
-                    vMap.get(v2).addEdge(e);
-                }
-            }
-            graphDatabase.add(new Graph(gId, vMap));
-            if (line != null) {
-                hasNextGraph = true;
-            }
-        }
-
-        br.close();
+        List<Graph> graphDatabase = reader.readGraphs(minSup);
+        infrequentVerticesRemovedCount = reader.getRemovedVertexCount();
+        infrequentEdgesRemovedWhileReading = reader.getRemovedEdgeCount();
 
         if (DEBUG_MODE) {
             System.out.println("read successfully, totally " + graphDatabase.size() + " graphs");
         }
-        graphCount = graphDatabase.size();
         return graphDatabase;
     }
 
@@ -362,7 +357,7 @@ public class AlgoGSPAN {
         List<Map<Integer, Integer>> isoms = new ArrayList<>();
 
         // initial isomorphisms by finding all vertices with same label as vertex 0 in C
-        int startLabel = c.getEeL().get(0).getvLabel1(); // only non-empty DFSCode will be real parameter
+        int startLabel = c.getVLabel1(0); // only non-empty DFSCode will be real parameter
         for (int vID : g.findAllWithLabel(startLabel)) {
             Map<Integer, Integer> map = new HashMap<>();
             map.put(0, vID);
@@ -372,11 +367,11 @@ public class AlgoGSPAN {
         // each extended edge will update partial isomorphisms
         // for forward edge, each isomorphism will be either extended or discarded
         // for backward edge, each isomorphism will be either unchanged or discarded
-        for (ExtendedEdge ee : c.getEeL()) {
-            int v1 = ee.getV1();
-            int v2 = ee.getV2();
-            int v2Label = ee.getvLabel2();
-            int eLabel = ee.getEdgeLabel();
+        for (int i = 0; i < c.size(); i++) {
+            int v1 = c.getV1(i);
+            int v2 = c.getV2(i);
+            int v2Label = c.getVLabel2(i);
+            int eLabel = c.getEdgeLabel(i);
 
             List<Map<Integer, Integer>> updateIsoms = new ArrayList<>();
             // For each isomorphism
@@ -390,22 +385,21 @@ public class AlgoGSPAN {
                     Collection<Integer> mappedVertices = iso.values();
 
                     // For each neighbor of the vertex corresponding to V1
-                    for (Vertex mappedV2 : g.getAllNeighbors(mappedV1)) {
+                    for (int p = g.getNeighborStart(mappedV1), neighborEnd = g.getNeighborEnd(mappedV1); p < neighborEnd; p++) {
+                        int mappedV2 = g.getNeighborId(p);
 
                         // If the neighbor has the same label as V2 and is not already mapped and the
                         // edge label is
                         // the same as that between v1 and v2.
-                        if (v2Label == mappedV2.getLabel() && (!mappedVertices.contains(mappedV2.getId()))
-                            && eLabel == g.getEdgeLabel(mappedV1, mappedV2.getId())) {
+                        if (v2Label == g.getNeighborLabel(p) && (!mappedVertices.contains(mappedV2))
+                            && eLabel == g.getNeighborEdgeLabel(p)) {
 
-                            // TODO: PHILIPPE: getEdgeLabel() in the above line could be precalculated in
-                            // Graph.java ...
 
                             // because there may exist multiple extensions, need to copy original partial
                             // isomorphism
                             HashMap<Integer, Integer> tempM = new HashMap<>(iso.size() + 1);
                             tempM.putAll(iso);
-                            tempM.put(v2, mappedV2.getId());
+                            tempM.put(v2, mappedV2);
 
                             updateIsoms.add(tempM);
                         }
@@ -436,15 +430,16 @@ public class AlgoGSPAN {
             // IF WE HAVE AN EMPTY SUBGRAPH THAT WE WANT TO EXTEND
 
             // find all distinct label tuples
-            for (Vertex vertex : g.vertices) {
-                for (Edge e : vertex.getEdgeList()) {
-                    int v1L = g.getVLabel(e.v1);
-                    int v2L = g.getVLabel(e.v2);
+            for (int vertexIndex = 0; vertexIndex < g.getVertexCount(); vertexIndex++) {
+                int vertex = g.getVertexId(vertexIndex);
+                int v1L = g.getVLabel(vertex);
+                for (int p = g.getNeighborStart(vertex), neighborEnd = g.getNeighborEnd(vertex); p < neighborEnd; p++) {
+                    int v2L = g.getNeighborLabel(p);
                     ExtendedEdge ee1;
                     if (v1L < v2L) {
-                        ee1 = new ExtendedEdge(0, 1, v1L, v2L, e.getEdgeLabel());
+                        ee1 = new ExtendedEdge(0, 1, v1L, v2L, g.getNeighborEdgeLabel(p));
                     } else {
-                        ee1 = new ExtendedEdge(0, 1, v2L, v1L, e.getEdgeLabel());
+                        ee1 = new ExtendedEdge(0, 1, v2L, v1L, g.getNeighborEdgeLabel(p));
                     }
 
                     // Update the set of graph ids for this pattern
@@ -473,15 +468,16 @@ public class AlgoGSPAN {
                 }
                 int mappedRM = isom.get(rightMost);
                 int mappedRMlabel = g.getVLabel(mappedRM);
-                for (Vertex x : g.getAllNeighbors(mappedRM)) {
-                    Integer invertedX = invertedISOM.get(x.getId());
+                for (int p = g.getNeighborStart(mappedRM), neighborEnd = g.getNeighborEnd(mappedRM); p < neighborEnd; p++) {
+                    int x = g.getNeighborId(p);
+                    Integer invertedX = invertedISOM.get(x);
                     if (invertedX != null && c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                         && !c.containEdge(rightMost, invertedX)) {
                         // rightmost and invertedX both have correspondings in g, so label of vertices
                         // and edge all
                         // can be found by correspondings
-                        ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                g.getEdgeLabel(mappedRM, x.getId()));
+                        ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                g.getNeighborEdgeLabel(p));
                         if (extensions.get(ee) == null) {
                             extensions.put(ee, new HashSet<>());
                         }
@@ -490,13 +486,14 @@ public class AlgoGSPAN {
                 }
                 // forward extensions from nodes on rightmost path
                 Collection<Integer> mappedVertices = isom.values();
-                for (int v : c.getRightMostPath()) {
+                for (int v : c.getRightMostPathVertices()) {
                     int mappedV = isom.get(v);
                     int mappedVlabel = g.getVLabel(mappedV);
-                    for (Vertex x : g.getAllNeighbors(mappedV)) {
-                        if (!mappedVertices.contains(x.getId())) {
-                            ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, x.getLabel(),
-                                    g.getEdgeLabel(mappedV, x.getId()));
+                    for (int p = g.getNeighborStart(mappedV), neighborEnd = g.getNeighborEnd(mappedV); p < neighborEnd; p++) {
+                        int x = g.getNeighborId(p);
+                        if (!mappedVertices.contains(x)) {
+                            ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, g.getNeighborLabel(p),
+                                    g.getNeighborEdgeLabel(p));
                             if (extensions.get(ee) == null) {
                                 extensions.put(ee, new HashSet<>());
                             }
@@ -529,15 +526,16 @@ public class AlgoGSPAN {
                 }
 
                 // find all distinct label tuples
-                for (Vertex vertex : g.vertices) {
-                    for (Edge e : vertex.getEdgeList()) {
-                        int v1L = g.getVLabel(e.v1);
-                        int v2L = g.getVLabel(e.v2);
+                for (int vertexIndex = 0; vertexIndex < g.getVertexCount(); vertexIndex++) {
+                    int vertex = g.getVertexId(vertexIndex);
+                    int v1L = g.getVLabel(vertex);
+                    for (int p = g.getNeighborStart(vertex), neighborEnd = g.getNeighborEnd(vertex); p < neighborEnd; p++) {
+                        int v2L = g.getNeighborLabel(p);
                         ExtendedEdge ee1;
                         if (v1L < v2L) {
-                            ee1 = new ExtendedEdge(0, 1, v1L, v2L, e.getEdgeLabel());
+                            ee1 = new ExtendedEdge(0, 1, v1L, v2L, g.getNeighborEdgeLabel(p));
                         } else {
-                            ee1 = new ExtendedEdge(0, 1, v2L, v1L, e.getEdgeLabel());
+                            ee1 = new ExtendedEdge(0, 1, v2L, v1L, g.getNeighborEdgeLabel(p));
                         }
 
                         // Update the set of graph ids for this pattern
@@ -583,15 +581,16 @@ public class AlgoGSPAN {
                     }
                     int mappedRM = isom.get(rightMost);
                     int mappedRMlabel = g.getVLabel(mappedRM);
-                    for (Vertex x : g.getAllNeighbors(mappedRM)) {
-                        Integer invertedX = invertedISOM.get(x.getId());
+                    for (int p = g.getNeighborStart(mappedRM), neighborEnd = g.getNeighborEnd(mappedRM); p < neighborEnd; p++) {
+                        int x = g.getNeighborId(p);
+                        Integer invertedX = invertedISOM.get(x);
                         if (invertedX != null && c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                             && !c.containEdge(rightMost, invertedX)) {
                             // rightmost and invertedX both have correspondings in g, so label of vertices
                             // and edge all
                             // can be found by correspondings
-                            ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                    g.getEdgeLabel(mappedRM, x.getId()));
+                            ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                    g.getNeighborEdgeLabel(p));
                             if (extensions.get(ee) == null) {
                                 extensions.put(ee, new HashSet<>());
                             }
@@ -600,13 +599,14 @@ public class AlgoGSPAN {
                     }
                     // forward extensions from nodes on rightmost path
                     Collection<Integer> mappedVertices = isom.values();
-                    for (int v : c.getRightMostPath()) {
+                    for (int v : c.getRightMostPathVertices()) {
                         int mappedV = isom.get(v);
                         int mappedVlabel = g.getVLabel(mappedV);
-                        for (Vertex x : g.getAllNeighbors(mappedV)) {
-                            if (!mappedVertices.contains(x.getId())) {
-                                ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, x.getLabel(),
-                                        g.getEdgeLabel(mappedV, x.getId()));
+                        for (int p = g.getNeighborStart(mappedV), neighborEnd = g.getNeighborEnd(mappedV); p < neighborEnd; p++) {
+                            int x = g.getNeighborId(p);
+                            if (!mappedVertices.contains(x)) {
+                                ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, g.getNeighborLabel(p),
+                                        g.getNeighborEdgeLabel(p));
                                 if (extensions.get(ee) == null) {
                                     extensions.put(ee, new HashSet<>());
                                 }
@@ -638,18 +638,19 @@ public class AlgoGSPAN {
     /**
      * Initial call of the depth-first search
      *
-     * @param c                      the initial DFS code
      * @param graphDB                a graph database
+     * @param vertexLabelGraphIds    the graphs where each vertex label appears on a vertex having some edges
      * @param outputFrequentVertices if true, include frequent subgraph with a
      *                               single vertex in the output
      * @throws IOException            exception if error writing/reading to file
      * @throws ClassNotFoundException if error casting a class
      */
-    private void gSpan(List<Graph> graphDB, boolean outputFrequentVertices) throws IOException, ClassNotFoundException {
+    private void gSpan(List<Graph> graphDB, Map<Integer, Set<Integer>> vertexLabelGraphIds,
+                       boolean outputFrequentVertices) throws IOException, ClassNotFoundException {
 
         // If the user wants single vertex graph, we will output them
         if (outputFrequentVertices || ELIMINATE_INFREQUENT_VERTICES) {
-            findAllOnlyOneVertex(graphDB, outputFrequentVertices);
+            findAllOnlyOneVertex(vertexLabelGraphIds, outputFrequentVertices);
         }
 
         for (Graph g : graphDB) {
@@ -670,11 +671,6 @@ public class AlgoGSPAN {
             Graph g = graphDB.get(i);
 
             if (g.vertices == null || g.vertices.length != 0) {
-                // If we deleted some vertices, we recalculate again the vertex list
-                if (infrequentVerticesRemovedCount > 0) {
-                    g.precalculateVertexList();
-                }
-
                 graphIds.add(i);
 
                 // Precalculate the list of neighbors of each vertex
@@ -682,6 +678,9 @@ public class AlgoGSPAN {
 
                 // Precalculate the list of vertices having each label
                 g.precalculateLabelsToVertices();
+
+                // The search only reads the compressed representation of the graph
+                g.releaseVertexObjects();
             } else {
                 if (DEBUG_MODE) {
                     System.out.println("EMPTY GRAPHS REMOVED");
@@ -696,7 +695,11 @@ public class AlgoGSPAN {
             }
 
             // Start the depth-first search
-            gSpanDFS(new DFSCode(), graphDB, graphIds);
+            if (threadCount > 1) {
+                exploreInParallel(graphDB, graphIds);
+            } else {
+                gSpanDFS(new DFSCode(), graphDB, graphIds);
+            }
         }
     }
 
@@ -867,6 +870,87 @@ public class AlgoGSPAN {
         MemoryLogger.getInstance().checkMemory();
     }
 
+    /**
+     * Perform the depth-first search with several threads. The subtree of each frequent edge
+     * is explored by a worker having its own list of frequent subgraphs, and these lists are
+     * then appended in the order of the edges, as the sequential search would have found them.
+     * The graphs are only read during the search, so the workers can share them.
+     *
+     * @param graphDB  the graph database
+     * @param graphIds the ids of the graphs that are not empty
+     * @throws IOException            exception if error writing/reading to file
+     * @throws ClassNotFoundException if error casting a class
+     */
+    private void exploreInParallel(final List<Graph> graphDB, Set<Integer> graphIds)
+            throws IOException, ClassNotFoundException {
+        // If we have reached the maximum size, we do not need to extend the empty graph
+        if (maxNumberOfEdges == 1) {
+            return;
+        }
+
+        // Find all the frequent edges, as the first level of gSpanDFS
+        Map<ExtendedEdge, Set<Integer>> extensions = rightMostPathExtensions(new DFSCode(), graphDB, graphIds);
+
+        List<Callable<AlgoGSPAN>> tasks = new ArrayList<Callable<AlgoGSPAN>>();
+        for (Map.Entry<ExtendedEdge, Set<Integer>> entry : extensions.entrySet()) {
+            final Set<Integer> newGraphIDs = entry.getValue();
+            final int sup = newGraphIDs.size();
+            if (sup >= minSup) {
+                final DFSCode newC = new DFSCode();
+                newC.add(entry.getKey());
+                if (isCanonical(newC)) {
+                    tasks.add(new Callable<AlgoGSPAN>() {
+                        public AlgoGSPAN call() throws IOException, ClassNotFoundException {
+                            AlgoGSPAN worker = createWorker();
+                            worker.frequentSubgraphs.add(new FrequentSubgraph(newC, newGraphIDs, sup));
+                            worker.gSpanDFS(newC, graphDB, newGraphIDs);
+                            return worker;
+                        }
+                    });
+                }
+            }
+        }
+
+        ThreadPool threadPool = new ThreadPool(threadCount);
+        try {
+            // add the subgraphs and the statistics of the workers
+            for (Future<AlgoGSPAN> future : threadPool.getSearchWorkers().invokeAll(tasks)) {
+                AlgoGSPAN worker = future.get();
+                frequentSubgraphs.addAll(worker.frequentSubgraphs);
+                pruneByEdgeCountCount += worker.pruneByEdgeCountCount;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    /**
+     * Create a worker for exploring a subtree of the search space in parallel.
+     * A worker has the same parameters as this object, but its own list of frequent
+     * subgraphs and statistics.
+     *
+     * @return the worker
+     */
+    private AlgoGSPAN createWorker() {
+        AlgoGSPAN worker = new AlgoGSPAN();
+        worker.minSup = minSup;
+        worker.maxNumberOfEdges = maxNumberOfEdges;
+        worker.outputGraphIds = outputGraphIds;
+        worker.frequentSubgraphs = new ArrayList<FrequentSubgraph>();
+        return worker;
+    }
+
     /**
      * Check if a DFS code is canonical
      *
@@ -893,42 +977,16 @@ public class AlgoGSPAN {
     }
 
     /**
-     * This method finds all frequent vertex labels from a graph database.
+     * This method finds all frequent vertex labels from a graph database. The infrequent
+     * vertices were not loaded by the reader of the graph database.
      *
-     * @param graphDB                a graph database
+     * @param labelM                 the graphs where each vertex label appears on a vertex having some edges
      * @param outputFrequentVertices if true, the frequent vertices will be output
      */
-    private void findAllOnlyOneVertex(List<Graph> graphDB, boolean outputFrequentVertices) {
+    private void findAllOnlyOneVertex(Map<Integer, Set<Integer>> labelM, boolean outputFrequentVertices) {
 
         frequentVertexLabels = new ArrayList<Integer>();
 
-        // Create a map (key = vertex label, value = graph ids)
-        // to count the support of each vertex
-        Map<Integer, Set<Integer>> labelM = new HashMap<>();
-
-        // For each graph
-        for (Graph g : graphDB) {
-            // For each vertex
-            for (Vertex v : g.getNonPrecalculatedAllVertices()) {
-
-                // if it has some edges
-                if (!v.getEdgeList().isEmpty()) {
-
-                    // Get the vertex label
-                    Integer vLabel = v.getLabel();
-
-                    // Store the graph id in the map entry for this label
-                    // if it is not there already
-                    Set<Integer> set = labelM.get(vLabel);
-                    if (set == null) {
-                        set = new HashSet<>();
-                        labelM.put(vLabel, set);
-                    }
-                    set.add(g.getId());
-                }
-            }
-        }
-
         // For each vertex label
         for (Entry<Integer, Set<Integer>> entry : labelM.entrySet()) {
             int label = entry.getKey();
@@ -946,14 +1004,6 @@ public class AlgoGSPAN {
 
                     frequentSubgraphs.add(new FrequentSubgraph(tempD, tempSupG, sup));
                 }
-            } else if (ELIMINATE_INFREQUENT_VERTICES) {
-                // for each graph
-                for (Integer graphid : tempSupG) {
-                    Graph g = graphDB.get(graphid);
-
-                    g.removeInfrequentLabel(label);
-                    infrequentVerticesRemovedCount++;
-                }
             }
         }
     }
@@ -968,6 +1018,9 @@ public class AlgoGSPAN {
         System.out.println(" Total time ~ " + runtime + " s");
         System.out.println(" Minsup : " + minSup + " graphs");
         System.out.println(" Maximum memory usage : " + maxmemory + " mb");
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
 
         if (DEBUG_MODE) {
             if (ELIMINATE_INFREQUENT_VERTEX_PAIRS || ELIMINATE_INFREQUENT_VERTICES) {
@@ -977,6 +1030,7 @@ public class AlgoGSPAN {
                 System.out.println("  Number of infrequent vertices pruned : " + infrequentVerticesRemovedCount);
                 System.out.println("  Empty graphs removed : " + emptyGraphsRemoved);
             }
+            System.out.println("  Number of infrequent edges not loaded : " + infrequentEdgesRemovedWhileReading);
             if (ELIMINATE_INFREQUENT_VERTEX_PAIRS) {
                 System.out.println("  Number of infrequent vertex pairs pruned : " + infrequentVertexPairsRemoved);
             }
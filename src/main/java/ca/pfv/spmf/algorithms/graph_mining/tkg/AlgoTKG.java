@@ -5,6 +5,9 @@ import ca.pfv.spmf.tools.MemoryLogger;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /* This file is copyright (c) 2018 by Chao Cheng, Philippe Fournier-Viger
  *
@@ -88,6 +91,10 @@ public class AlgoTKG {
      * remove infrequent edge labels
      */
     int edgeRemovedByLabel;
+    /**
+     * infrequent edges not loaded when reading the graphs
+     */
+    int infrequentEdgesRemovedWhileReading;
     /**
      * remove infrequent edge labels
      */
@@ -121,8 +128,9 @@ public class AlgoTKG {
     private int k;
     /**
      * the minimum support represented as a count (number of subgraph occurrences)
+     * (it is raised by the thread saving a pattern, and read by the other threads)
      */
-    private int minSup;
+    private volatile int minSup;
     /**
      * runtime of the most recent execution
      */
@@ -139,7 +147,24 @@ public class AlgoTKG {
      * number of graph in the input database
      */
     private int graphCount = 0;
-    private final int THREAD_COUNT = 1; //Runtime.getRuntime().availableProcessors();
+    /**
+     * the number of threads used for mining
+     */
+    private int threadCount = 1;
+    /**
+     * the number of threads that are expanding a candidate
+     */
+    private int busyWorkerCount = 0;
+
+    /**
+     * the maximum number of graph invariants in the cache of minimum DFS codes (0 to disable the cache)
+     */
+    private int canonicalCodeCacheCapacity = CanonicalCodeCache.DEFAULT_CAPACITY;
+
+    /**
+     * the cache of minimum DFS codes of the current execution of the algorithm
+     */
+    private CanonicalCodeCache canonicalCodeCache;
 
     /**
      * Output the DOT files to a given file path
@@ -156,6 +181,36 @@ public class AlgoTKG {
         VizGraph.visulizeFromFile(outputPath, dirName);
     }
 
+    /**
+     * Set the number of threads used for mining. If more than one thread is used, the candidates
+     * are expanded in parallel, each thread taking the candidate having the highest support.
+     * The top-k subgraphs are the same as with a single thread, but they may be written in another
+     * order, and the subgraphs having the same support as the k-th subgraph may differ, as when
+     * the patterns are found in another order.
+     *
+     * @param threadCount the number of threads (1 by default)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Set the maximum number of graph invariants in the cache of minimum DFS codes, which is used to
+     * check if a DFS code is canonical without computing the minimum DFS code of its graph again.
+     * The least recently used invariants are removed when the cache is full.
+     *
+     * @param capacity the capacity (100000 by default, 0 to disable the cache)
+     */
+    public void setCanonicalCodeCacheCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity of the cache must be at least 0");
+        }
+        this.canonicalCodeCacheCapacity = capacity;
+    }
+
     /**
      * Run the GSpan algorithm
      *
@@ -194,6 +249,7 @@ public class AlgoTKG {
         // initialize variables for statistics
         infrequentVertexPairsRemoved = 0;
         infrequentVerticesRemovedCount = 0;
+        infrequentEdgesRemovedWhileReading = 0;
         edgeRemovedByLabel = 0;
         eliminatedWithMaxSize = 0;
         emptyGraphsRemoved = 0;
@@ -218,14 +274,21 @@ public class AlgoTKG {
         // Record the start time
         Long t1 = System.currentTimeMillis();
 
-        // read graphs
-        List<Graph> graphDB = readGraphs(inPath);
+        // count the support of the vertex labels and edges
+        GraphDatabaseReader reader = new GraphDatabaseReader(inPath);
 
-        // Calculate the minimum support as a number of graphs
+        // Calculate the minimum support as a number of graphs. It starts at 1 and is raised by
+        // savePattern(): a higher initial value would remove some patterns tied at the k-th support
         minSup = 1;
 
+        // read graphs
+        List<Graph> graphDB = readGraphs(reader);
+
+        // Create the cache of minimum DFS codes of this execution
+        canonicalCodeCache = canonicalCodeCacheCapacity > 0 ? new CanonicalCodeCache(canonicalCodeCacheCapacity) : null;
+
         // mining
-        gSpan(graphDB, outputSingleVertices);
+        gSpan(graphDB, reader.getVertexLabelGraphIds(), outputSingleVertices);
 
         // check the memory usage
         MemoryLogger.getInstance().checkMemory();
@@ -261,7 +324,6 @@ public class AlgoTKG {
                 do {
                     lower = kSubgraphs.peek();
                     if (lower.support > minSup || lower == null) {
-                        System.out.println("YES");
                         break; // / IMPORTANT
                     }
                     kSubgraphs.remove(lower);
@@ -333,54 +395,20 @@ public class AlgoTKG {
     }
 
     /**
-     * Read graph from the input file
+     * Read graph from the input file. Since the initial minimum support is 1, all the edges are loaded,
+     * and only the vertices whose label never appears on a vertex having edges are not loaded.
      *
-     * @param path the input file
+     * @param reader the reader of the input file, which has counted the support of the vertex labels and edges
      * @return a list of input graph from the input graph database
      * @throws IOException if error reading or writing to file
      */
-    private List<Graph> readGraphs(String path) throws IOException {
+    private List<Graph> readGraphs(GraphDatabaseReader reader) throws IOException {
         if (DEBUG_MODE) {
             System.out.println("start reading graphs...");
         }
-        BufferedReader br = new BufferedReader(new FileReader(new File(path)));
-        List<Graph> graphDatabase = new ArrayList<>();
-
-        String line = br.readLine();
-        Boolean hasNextGraph = (line != null) && line.startsWith("t");
-
-        // For each graph of the graph database
-        while (hasNextGraph) {
-            hasNextGraph = false;
-            int gId = Integer.parseInt(line.split(" ")[2]);
-            Map<Integer, Vertex> vMap = new HashMap<>();
-            while ((line = br.readLine()) != null && !line.startsWith("t")) {
-
-                String[] items = line.split(" ");
-
-                if (line.startsWith("v")) {
-                    // If it is a vertex
-                    int vId = Integer.parseInt(items[1]);
-                    int vLabel = Integer.parseInt(items[2]);
-                    vMap.put(vId, new Vertex(vId, vLabel));
-                } else if (line.startsWith("e")) {
-                    // If it is an edge
-                    int v1 = Integer.parseInt(items[1]);
-                    int v2 = Integer.parseInt(items[2]);
-                    int eLabel = Integer.parseInt(items[3]);
-                    Edge e = new Edge(v1, v2, eLabel);
-//                    System.out.println(v1 + " " + v2 + " " + vMap.get(v1).id + " " + vMap.get(v2).id);
-                    vMap.get(v1).addEdge(e);
-                    vMap.get(v2).addEdge(e);
-                }
-            }
-            graphDatabase.add(new Graph(gId, vMap));
-            if (line != null) {
-                hasNextGraph = true;
-            }
-        }
-
-        br.close();
+        List<Graph> graphDatabase = reader.readGraphs(minSup);
+        infrequentVerticesRemovedCount = reader.getRemovedVertexCount();
+        infrequentEdgesRemovedWhileReading = reader.getRemovedEdgeCount();
 
         if (DEBUG_MODE) {
             System.out.println("read successfully, totally " + graphDatabase.size() + " graphs");
@@ -402,7 +430,7 @@ public class AlgoTKG {
         List<Map<Integer, Integer>> isoms = new ArrayList<>();
 
         // initial isomorphisms by finding all vertices with same label as vertex 0 in C
-        int startLabel = c.getEeL().get(0).getvLabel1(); // only non-empty DFSCode will be real parameter
+        int startLabel = c.getVLabel1(0); // only non-empty DFSCode will be real parameter
         for (int vID : g.findAllWithLabel(startLabel)) {
             Map<Integer, Integer> map = new HashMap<>();
             map.put(0, vID);
@@ -412,11 +440,11 @@ public class AlgoTKG {
         // each extended edge will update partial isomorphisms
         // for forward edge, each isomorphism will be either extended or discarded
         // for backward edge, each isomorphism will be either unchanged or discarded
-        for (ExtendedEdge ee : c.getEeL()) {
-            int v1 = ee.getV1();
-            int v2 = ee.getV2();
-            int v2Label = ee.getvLabel2();
-            int eLabel = ee.getEdgeLabel();
+        for (int i = 0; i < c.size(); i++) {
+            int v1 = c.getV1(i);
+            int v2 = c.getV2(i);
+            int v2Label = c.getVLabel2(i);
+            int eLabel = c.getEdgeLabel(i);
 
             List<Map<Integer, Integer>> updateIsoms = new ArrayList<>();
             // For each isomorphism
@@ -430,22 +458,21 @@ public class AlgoTKG {
                     Collection<Integer> mappedVertices = iso.values();
 
                     // For each neighbor of the vertex corresponding to V1
-                    for (Vertex mappedV2 : g.getAllNeighbors(mappedV1)) {
+                    for (int p = g.getNeighborStart(mappedV1), neighborEnd = g.getNeighborEnd(mappedV1); p < neighborEnd; p++) {
+                        int mappedV2 = g.getNeighborId(p);
 
                         // If the neighbor has the same label as V2 and is not already mapped and the
                         // edge label is
                         // the same as that between v1 and v2.
-                        if (v2Label == mappedV2.getLabel() && (!mappedVertices.contains(mappedV2.getId()))
-                            && eLabel == g.getEdgeLabel(mappedV1, mappedV2.getId())) {
+                        if (v2Label == g.getNeighborLabel(p) && (!mappedVertices.contains(mappedV2))
+                            && eLabel == g.getNeighborEdgeLabel(p)) {
 
-                            // TODO: PHILIPPE: getEdgeLabel() in the above line could be precalculated in
-                            // Graph.java ...
 
                             // because there may exist multiple extensions, need to copy original partial
                             // isomorphism
                             HashMap<Integer, Integer> tempM = new HashMap<>(iso.size() + 1);
                             tempM.putAll(iso);
-                            tempM.put(v2, mappedV2.getId());
+                            tempM.put(v2, mappedV2);
 
                             updateIsoms.add(tempM);
                         }
@@ -476,15 +503,16 @@ public class AlgoTKG {
             // IF WE HAVE AN EMPTY SUBGRAPH THAT WE WANT TO EXTEND
 
             // find all distinct label tuples
-            for (Vertex vertex : g.vertices) {
-                for (Edge e : vertex.getEdgeList()) {
-                    int v1L = g.getVLabel(e.v1);
-                    int v2L = g.getVLabel(e.v2);
+            for (int vertexIndex = 0; vertexIndex < g.getVertexCount(); vertexIndex++) {
+                int vertex = g.getVertexId(vertexIndex);
+                int v1L = g.getVLabel(vertex);
+                for (int p = g.getNeighborStart(vertex), neighborEnd = g.getNeighborEnd(vertex); p < neighborEnd; p++) {
+                    int v2L = g.getNeighborLabel(p);
                     ExtendedEdge ee1;
                     if (v1L < v2L) {
-                        ee1 = new ExtendedEdge(0, 1, v1L, v2L, e.getEdgeLabel());
+                        ee1 = new ExtendedEdge(0, 1, v1L, v2L, g.getNeighborEdgeLabel(p));
                     } else {
-                        ee1 = new ExtendedEdge(0, 1, v2L, v1L, e.getEdgeLabel());
+                        ee1 = new ExtendedEdge(0, 1, v2L, v1L, g.getNeighborEdgeLabel(p));
                     }
 
                     // Update the set of graph ids for this pattern
@@ -513,15 +541,16 @@ public class AlgoTKG {
                 }
                 int mappedRM = isom.get(rightMost);
                 int mappedRMlabel = g.getVLabel(mappedRM);
-                for (Vertex x : g.getAllNeighbors(mappedRM)) {
-                    Integer invertedX = invertedISOM.get(x.getId());
+                for (int p = g.getNeighborStart(mappedRM), neighborEnd = g.getNeighborEnd(mappedRM); p < neighborEnd; p++) {
+                    int x = g.getNeighborId(p);
+                    Integer invertedX = invertedISOM.get(x);
                     if (invertedX != null && c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                         && !c.containEdge(rightMost, invertedX)) {
                         // rightmost and invertedX both have correspondings in g, so label of vertices
                         // and edge all
                         // can be found by correspondings
-                        ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                g.getEdgeLabel(mappedRM, x.getId()));
+                        ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                g.getNeighborEdgeLabel(p));
                         if (extensions.get(ee) == null) {
                             extensions.put(ee, new HashSet<>());
                         }
@@ -530,13 +559,14 @@ public class AlgoTKG {
                 }
                 // forward extensions from nodes on rightmost path
                 Collection<Integer> mappedVertices = isom.values();
-                for (int v : c.getRightMostPath()) {
+                for (int v : c.getRightMostPathVertices()) {
                     int mappedV = isom.get(v);
                     int mappedVlabel = g.getVLabel(mappedV);
-                    for (Vertex x : g.getAllNeighbors(mappedV)) {
-                        if (!mappedVertices.contains(x.getId())) {
-                            ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, x.getLabel(),
-                                    g.getEdgeLabel(mappedV, x.getId()));
+                    for (int p = g.getNeighborStart(mappedV), neighborEnd = g.getNeighborEnd(mappedV); p < neighborEnd; p++) {
+                        int x = g.getNeighborId(p);
+                        if (!mappedVertices.contains(x)) {
+                            ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, g.getNeighborLabel(p),
+                                    g.getNeighborEdgeLabel(p));
                             if (extensions.get(ee) == null) {
                                 extensions.put(ee, new HashSet<>());
                             }
@@ -569,15 +599,16 @@ public class AlgoTKG {
                 }
 
                 // find all distinct label tuples
-                for (Vertex vertex : g.vertices) {
-                    for (Edge e : vertex.getEdgeList()) {
-                        int v1L = g.getVLabel(e.v1);
-                        int v2L = g.getVLabel(e.v2);
+                for (int vertexIndex = 0; vertexIndex < g.getVertexCount(); vertexIndex++) {
+                    int vertex = g.getVertexId(vertexIndex);
+                    int v1L = g.getVLabel(vertex);
+                    for (int p = g.getNeighborStart(vertex), neighborEnd = g.getNeighborEnd(vertex); p < neighborEnd; p++) {
+                        int v2L = g.getNeighborLabel(p);
                         ExtendedEdge ee1;
                         if (v1L < v2L) {
-                            ee1 = new ExtendedEdge(0, 1, v1L, v2L, e.getEdgeLabel());
+                            ee1 = new ExtendedEdge(0, 1, v1L, v2L, g.getNeighborEdgeLabel(p));
                         } else {
-                            ee1 = new ExtendedEdge(0, 1, v2L, v1L, e.getEdgeLabel());
+                            ee1 = new ExtendedEdge(0, 1, v2L, v1L, g.getNeighborEdgeLabel(p));
                         }
 
                         // Update the set of graph ids for this pattern
@@ -615,15 +646,16 @@ public class AlgoTKG {
                     }
                     int mappedRM = isom.get(rightMost);
                     int mappedRMlabel = g.getVLabel(mappedRM);
-                    for (Vertex x : g.getAllNeighbors(mappedRM)) {
-                        Integer invertedX = invertedISOM.get(x.getId());
+                    for (int p = g.getNeighborStart(mappedRM), neighborEnd = g.getNeighborEnd(mappedRM); p < neighborEnd; p++) {
+                        int x = g.getNeighborId(p);
+                        Integer invertedX = invertedISOM.get(x);
                         if (invertedX != null && c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                             && !c.containEdge(rightMost, invertedX)) {
                             // rightmost and invertedX both have correspondings in g, so label of vertices
                             // and edge all
                             // can be found by correspondings
-                            ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                    g.getEdgeLabel(mappedRM, x.getId()));
+                            ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                    g.getNeighborEdgeLabel(p));
                             if (extensions.get(ee) == null) {
                                 extensions.put(ee, new HashSet<>());
                             }
@@ -632,13 +664,14 @@ public class AlgoTKG {
                     }
                     // forward extensions from nodes on rightmost path
                     Collection<Integer> mappedVertices = isom.values();
-                    for (int v : c.getRightMostPath()) {
+                    for (int v : c.getRightMostPathVertices()) {
                         int mappedV = isom.get(v);
                         int mappedVlabel = g.getVLabel(mappedV);
-                        for (Vertex x : g.getAllNeighbors(mappedV)) {
-                            if (!mappedVertices.contains(x.getId())) {
-                                ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, x.getLabel(),
-                                        g.getEdgeLabel(mappedV, x.getId()));
+                        for (int p = g.getNeighborStart(mappedV), neighborEnd = g.getNeighborEnd(mappedV); p < neighborEnd; p++) {
+                            int x = g.getNeighborId(p);
+                            if (!mappedVertices.contains(x)) {
+                                ExtendedEdge ee = new ExtendedEdge(v, rightMost + 1, mappedVlabel, g.getNeighborLabel(p),
+                                        g.getNeighborEdgeLabel(p));
                                 if (extensions.get(ee) == null) {
                                     extensions.put(ee, new HashSet<>());
                                 }
@@ -669,18 +702,19 @@ public class AlgoTKG {
     /**
      * Initial call of the depth-first search
      *
-     * @param c                      the initial DFS code
      * @param graphDB                a graph database
+     * @param vertexLabelGraphIds    the graphs where each vertex label appears on a vertex having some edges
      * @param outputFrequentVertices if true, include frequent subgraph with a
      *                               single vertex in the output
      * @throws IOException            exception if error writing/reading to file
      * @throws ClassNotFoundException if error casting a class
      */
-    private void gSpan(List<Graph> graphDB, boolean outputFrequentVertices) throws IOException, ClassNotFoundException {
+    private void gSpan(List<Graph> graphDB, Map<Integer, Set<Integer>> vertexLabelGraphIds,
+                       boolean outputFrequentVertices) throws IOException, ClassNotFoundException {
 
         // If the user wants single vertex graph, we will output them
         if (outputFrequentVertices || ELIMINATE_INFREQUENT_VERTICES) {
-            findAllOnlyOneVertex(graphDB, outputFrequentVertices);
+            findAllOnlyOneVertex(vertexLabelGraphIds, outputFrequentVertices);
         }
         if (DEBUG_MODE) {
             System.out.println("AFTER FINDING 1-SUBGRAPHS  TopKQueueSize=" + kSubgraphs.size() + " minsup =" + minSup);
@@ -704,11 +738,6 @@ public class AlgoTKG {
             Graph g = graphDB.get(i);
 
             if (g.vertices == null || g.vertices.length != 0) {
-                // If we deleted some vertices, we recalculate again the vertex list
-                if (infrequentVerticesRemovedCount > 0) {
-                    g.precalculateVertexList();
-                }
-
                 graphIds.add(i);
 
                 // Precalculate the list of neighbors of each vertex
@@ -716,6 +745,9 @@ public class AlgoTKG {
 
                 // Precalculate the list of vertices having each label
                 g.precalculateLabelsToVertices();
+
+                // The search only reads the compressed representation of the graph
+                g.releaseVertexObjects();
             } else {
                 if (DEBUG_MODE) {
                     System.out.println("EMPTY GRAPHS REMOVED");
@@ -736,11 +768,11 @@ public class AlgoTKG {
                 gSpanDynamicDFS(new DFSCode(), graphDB, graphIds);
 
                 if (THREADED_DYNAMIC_SEARCH) {
-                    for (int i = 0; i < THREAD_COUNT; i++) {
-                        Thread thread = new DFSThread(graphDB);
-                        thread.start();
+                    if (threadCount > 1) {
+                        expandCandidatesInParallel(graphDB);
+                    } else {
+                        expandCandidates(graphDB);
                     }
-
                 } else {
                     // Now we have finished checking all the rules containing 1 item
                     // in the left side and 1 in the right side,
@@ -947,9 +979,38 @@ public class AlgoTKG {
      */
     private void gSpanDynamicDFS(DFSCode c, List<Graph> graphDB, Set<Integer> graphIds)
             throws IOException, ClassNotFoundException {
+        // For each extension that is frequent and canonical
+        for (FrequentSubgraph subgraph : findFrequentExtensions(c, graphDB, graphIds)) {
+            // if the support is still enough (the previous extensions may have raised the minimum support)
+            if (subgraph.support >= minSup) {
+                // Save the graph
+                savePattern(subgraph);
+
+                registerAsCandidate(subgraph);
+            }
+        }
+
+        // check the memory usage
+        MemoryLogger.getInstance().checkMemory();
+    }
+
+    /**
+     * Find the extensions of a graph that have enough support and are canonical
+     *
+     * @param c        the current DFS code
+     * @param graphDB  the graph database
+     * @param graphIds the ids of graph where the graph "c" appears
+     * @return the new subgraphs, in the order of the extensions
+     * @throws IOException            exception if error writing/reading to file
+     * @throws ClassNotFoundException if error casting a class
+     */
+    private List<FrequentSubgraph> findFrequentExtensions(DFSCode c, List<Graph> graphDB, Set<Integer> graphIds)
+            throws IOException, ClassNotFoundException {
+        List<FrequentSubgraph> subgraphs = new ArrayList<FrequentSubgraph>();
+
         // If we have reached the maximum size, we do not need to extend this graph
         if (c.size() == maxNumberOfEdges - 1) {
-            return;
+            return subgraphs;
         }
 
         // Find all the extensions of this graph, with their support values
@@ -958,10 +1019,6 @@ public class AlgoTKG {
         // is the list of graph ids where this edge extends the current subgraph c.
         Map<ExtendedEdge, Set<Integer>> extensions = rightMostPathExtensions(c, graphDB, graphIds);
 
-//		if(extensions == null){
-//			return;
-//		}
-
         // For each extension
         for (Map.Entry<ExtendedEdge, Set<Integer>> entry : extensions.entrySet()) {
 
@@ -980,18 +1037,130 @@ public class AlgoTKG {
                 // if the resulting graph is canonical (it means that the graph is non
                 // redundant)
                 if (isCanonical(newC)) {
+                    subgraphs.add(new FrequentSubgraph(newC, newGraphIDs, sup));
+                }
+            }
+        }
+        return subgraphs;
+    }
 
-                    // Save the graph
-                    FrequentSubgraph subgraph = new FrequentSubgraph(newC, newGraphIDs, sup);
-                    savePattern(subgraph);
+    /**
+     * Expand the candidates, starting with the candidate having the highest support, until
+     * no candidate has enough support
+     *
+     * @param graphDB the graph database
+     * @throws IOException            exception if error writing/reading to file
+     * @throws ClassNotFoundException if error casting a class
+     */
+    private void expandCandidates(List<Graph> graphDB) throws IOException, ClassNotFoundException {
+        while (candidates.size() > 0) {
+            // We take the rule that has the highest support first
+            FrequentSubgraph candidate = candidates.poll();
+            // if there is no more candidates with enough support, then we stop
+            if (candidate.setOfGraphsIDs.size() < minSup) {
+                break;
+            }
+            // Otherwise, we try to expand the rule
+            gSpanDynamicDFS(candidate.dfsCode, graphDB, candidate.setOfGraphsIDs);
+        }
+    }
 
-                    registerAsCandidate(subgraph);
+    /**
+     * Expand the candidates with several threads. Each thread takes the candidate having the highest
+     * support and finds its extensions without holding a lock, which is the costly part. Then it saves
+     * the new patterns and registers them as candidates while holding the lock of the candidates,
+     * which also protects the top-k subgraphs and the minimum support. A thread finding no candidate
+     * waits until the other threads have registered the extensions of their candidates.
+     *
+     * @param graphDB the graph database
+     * @throws IOException            exception if error writing/reading to file
+     * @throws ClassNotFoundException if error casting a class
+     */
+    private void expandCandidatesInParallel(final List<Graph> graphDB) throws IOException, ClassNotFoundException {
+        busyWorkerCount = 0;
+
+        List<Callable<Void>> workers = new ArrayList<Callable<Void>>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            workers.add(new Callable<Void>() {
+                public Void call() throws IOException, ClassNotFoundException, InterruptedException {
+                    expandCandidatesOfWorker(graphDB);
+                    return null;
                 }
+            });
+        }
+
+        ThreadPool threadPool = new ThreadPool(threadCount);
+        try {
+            for (Future<Void> future : threadPool.getSearchWorkers().invokeAll(workers)) {
+                future.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            threadPool.shutdown();
         }
+    }
 
-        // check the memory usage
-        MemoryLogger.getInstance().checkMemory();
+    /**
+     * Expand candidates until there is no candidate with enough support and no other thread
+     * expanding a candidate
+     *
+     * @param graphDB the graph database
+     * @throws IOException            exception if error writing/reading to file
+     * @throws ClassNotFoundException if error casting a class
+     * @throws InterruptedException   if the thread is interrupted while waiting for candidates
+     */
+    private void expandCandidatesOfWorker(List<Graph> graphDB)
+            throws IOException, ClassNotFoundException, InterruptedException {
+        while (true) {
+            FrequentSubgraph candidate;
+            synchronized (candidates) {
+                while (candidates.isEmpty() && busyWorkerCount > 0) {
+                    candidates.wait();
+                }
+                if (candidates.isEmpty()) {
+                    return;
+                }
+                // We take the candidate that has the highest support first
+                candidate = candidates.poll();
+                // if there is no more candidates with enough support, the remaining ones are
+                // dropped, but the candidates of the other threads may still have extensions
+                if (candidate.setOfGraphsIDs.size() < minSup) {
+                    candidates.clear();
+                    continue;
+                }
+                busyWorkerCount++;
+            }
+
+            List<FrequentSubgraph> subgraphs = Collections.emptyList();
+            try {
+                subgraphs = findFrequentExtensions(candidate.dfsCode, graphDB, candidate.setOfGraphsIDs);
+            } finally {
+                synchronized (candidates) {
+                    for (FrequentSubgraph subgraph : subgraphs) {
+                        // the other threads may have raised the minimum support
+                        if (subgraph.support >= minSup) {
+                            savePattern(subgraph);
+                            registerAsCandidate(subgraph);
+                        }
+                    }
+                    busyWorkerCount--;
+                    candidates.notifyAll();
+                }
+            }
+
+            // check the memory usage
+            MemoryLogger.getInstance().checkMemory();
+        }
     }
 
     /**
@@ -1011,9 +1180,18 @@ public class AlgoTKG {
      * @return true if it is canonical, and otherwise, false.
      */
     private boolean isCanonical(DFSCode c) {
+        Graph g = new Graph(c);
         DFSCode canC = new DFSCode();
         for (int i = 0; i < c.size(); i++) {
-            Map<ExtendedEdge, Set<Integer>> extensions = rightMostPathExtensionsFromSingle(canC, new Graph(c));
+            // if the first edge is minimal, the minimum DFS code of the graph may be in the cache
+            if (i == 1 && canonicalCodeCache != null) {
+                Boolean canonical = canonicalCodeCache.isCanonical(c, g);
+                if (canonical != null) {
+                    return canonical;
+                }
+            }
+
+            Map<ExtendedEdge, Set<Integer>> extensions = rightMostPathExtensionsFromSingle(canC, g);
             ExtendedEdge minEE = null;
             for (ExtendedEdge ee : extensions.keySet()) {
                 if (ee.smallerThan(minEE)) {
@@ -1026,46 +1204,23 @@ public class AlgoTKG {
             }
             canC.add(minEE);
         }
+        if (canonicalCodeCache != null && c.size() > 1) {
+            canonicalCodeCache.addMinimumCode(c);
+        }
         return true;
     }
 
     /**
-     * This method finds all frequent vertex labels from a graph database.
+     * This method finds all frequent vertex labels from a graph database. The infrequent
+     * vertices were not loaded by the reader of the graph database.
      *
-     * @param graphDB                a graph database
+     * @param labelM                 the graphs where each vertex label appears on a vertex having some edges
      * @param outputFrequentVertices if true, the frequent vertices will be output
      */
-    private void findAllOnlyOneVertex(List<Graph> graphDB, boolean outputFrequentVertices) {
+    private void findAllOnlyOneVertex(Map<Integer, Set<Integer>> labelM, boolean outputFrequentVertices) {
 
         frequentVertexLabels = new ArrayList<Integer>();
 
-        // Create a map (key = vertex label, value = graph ids)
-        // to count the support of each vertex
-        Map<Integer, Set<Integer>> labelM = new HashMap<>();
-
-        // For each graph
-        for (Graph g : graphDB) {
-            // For each vertex
-            for (Vertex v : g.getNonPrecalculatedAllVertices()) {
-
-                // if it has some edges
-                if (!v.getEdgeList().isEmpty()) {
-
-                    // Get the vertex label
-                    Integer vLabel = v.getLabel();
-
-                    // Store the graph id in the map entry for this label
-                    // if it is not there already
-                    Set<Integer> set = labelM.get(vLabel);
-                    if (set == null) {
-                        set = new HashSet<>();
-                        labelM.put(vLabel, set);
-                    }
-                    set.add(g.getId());
-                }
-            }
-        }
-
         // For each vertex label
         for (Entry<Integer, Set<Integer>> entry : labelM.entrySet()) {
             int label = entry.getKey();
@@ -1083,14 +1238,6 @@ public class AlgoTKG {
 
                     savePattern(new FrequentSubgraph(tempD, tempSupG, sup));
                 }
-            } else if (ELIMINATE_INFREQUENT_VERTICES) {
-                // for each graph
-                for (Integer graphid : tempSupG) {
-                    Graph g = graphDB.get(graphid);
-
-                    g.removeInfrequentLabel(label);
-                    infrequentVerticesRemovedCount++;
-                }
             }
         }
     }
@@ -1105,6 +1252,16 @@ public class AlgoTKG {
         System.out.println(" Minsup: " + minSup / (double) graphCount + " (i.e. " + minSup + " graphs)");
         System.out.println(" Total time ~ " + runtime + " s");
         System.out.println(" Maximum memory usage : " + maxmemory + " mb");
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
+        if (canonicalCodeCache != null) {
+            System.out.println(" Canonical code cache hits : " + canonicalCodeCache.getHitCount()
+                               + " misses : " + canonicalCodeCache.getMissCount());
+        }
+        if (infrequentEdgesRemovedWhileReading > 0) {
+            System.out.println(" Infrequent edges not loaded : " + infrequentEdgesRemovedWhileReading);
+        }
 
         if (ELIMINATE_INFREQUENT_VERTEX_PAIRS || ELIMINATE_INFREQUENT_VERTICES) {
             System.out.println("  -------------------");
@@ -1128,36 +1285,6 @@ public class AlgoTKG {
         System.out.println("===================================================");
     }
 
-    class DFSThread extends Thread {
-        List<Graph> graphDB;
-
-        public DFSThread(List<Graph> graphDB) {
-            this.graphDB = graphDB;
-        }
-
-        public void start() {
-            while (candidates.size() > 0) {
-                // We take the rule that has the highest support first
-                FrequentSubgraph candidate = candidates.poll();
-                // if there is no more candidates with enough support, then we stop
-                if (candidate.setOfGraphsIDs.size() < minSup) {
-                    // candidates.remove(rule);
-                    break;
-                }
-                // Otherwise, we try to expand the rule
-                try {
-                    gSpanDynamicDFS(candidate.dfsCode, graphDB, candidate.setOfGraphsIDs);
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-
-
-            }
-        }
-    }
-
     /**
      * Pair
      */
@@ -0,0 +1,323 @@
+package ca.pfv.spmf.algorithms.graph_mining.tkg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* This file is copyright (c) 2018 by Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A cache of the minimum DFS codes found during an execution of TKG or CGSPAN, used
+ * to check if a DFS code is canonical without recomputing the minimum DFS code of its graph.
+ * <br/><br/>
+ * <p>
+ * A same subgraph is generated several times with different DFS codes, from its different
+ * subgraphs having one edge less. Only one of these codes is canonical (the minimum DFS code),
+ * and it is usually generated first, since the search explores the codes in lexicographical order.
+ * The cache stores the minimum DFS codes that were verified, grouped by a graph invariant
+ * (the number of vertices, the labels and degrees of the vertices and the labels of the edges),
+ * which is the same for all the codes of a graph. A DFS code is then canonical if it is
+ * a stored code, and it is not canonical if the graph of a stored code having the same
+ * invariant is isomorphic to its graph.
+ * <br/><br/>
+ * <p>
+ * The number of invariants in the cache is bounded, and the least recently used one is
+ * removed when the cache is full. The cache can be used by several threads.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AlgoTKG
+ * @see AlgoCGSPANAbstract
+ */
+public class CanonicalCodeCache {
+
+    /**
+     * the default maximum number of invariants in the cache
+     */
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    /**
+     * the minimum DFS codes having each invariant, from the least recently used invariant
+     * to the most recently used invariant
+     */
+    private final LinkedHashMap<Invariant, List<DFSCode>> minimumCodes;
+    /**
+     * the number of DFS codes whose status was found in the cache
+     */
+    private long hitCount = 0;
+    /**
+     * the number of DFS codes whose status was not found in the cache
+     */
+    private long missCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param capacity the maximum number of invariants in the cache (at least 1)
+     */
+    public CanonicalCodeCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the cache must be at least 1");
+        }
+        this.minimumCodes = new LinkedHashMap<Invariant, List<DFSCode>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Invariant, List<DFSCode>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Check if a DFS code is canonical using the minimum DFS codes in the cache
+     *
+     * @param c a DFS code
+     * @param g the graph of this DFS code
+     * @return true if the code is canonical, false if it is not, or null if the cache
+     * does not contain the minimum DFS code of the graph
+     */
+    public Boolean isCanonical(DFSCode c, Graph g) {
+        Invariant invariant = new Invariant(c);
+        List<DFSCode> codes;
+        synchronized (this) {
+            codes = minimumCodes.get(invariant);
+            codes = codes == null ? null : new ArrayList<DFSCode>(codes);
+        }
+
+        Boolean canonical = null;
+        if (codes != null) {
+            for (DFSCode minimumCode : codes) {
+                if (isSameCode(minimumCode, c)) {
+                    canonical = Boolean.TRUE;
+                    break;
+                }
+                if (isIsomorphic(minimumCode, g)) {
+                    // the graph has another minimum DFS code
+                    canonical = Boolean.FALSE;
+                    break;
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (canonical == null) {
+                missCount++;
+            } else {
+                hitCount++;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Add a minimum DFS code to the cache
+     *
+     * @param c a DFS code that is canonical
+     */
+    public void addMinimumCode(DFSCode c) {
+        Invariant invariant = new Invariant(c);
+        DFSCode copy = c.copy();
+
+        synchronized (this) {
+            List<DFSCode> codes = minimumCodes.get(invariant);
+            if (codes == null) {
+                codes = new ArrayList<DFSCode>(1);
+                minimumCodes.put(invariant, codes);
+            }
+            for (DFSCode code : codes) {
+                if (isSameCode(code, c)) {
+                    return;
+                }
+            }
+            codes.add(copy);
+        }
+    }
+
+    /**
+     * Get the number of DFS codes whose status was found in the cache
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of DFS codes whose status was not found in the cache
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get the number of invariants in the cache
+     *
+     * @return the number of invariants
+     */
+    public synchronized int size() {
+        return minimumCodes.size();
+    }
+
+    /**
+     * Check if two DFS codes have the same edges
+     *
+     * @param c1 a DFS code
+     * @param c2 another DFS code
+     * @return true if they are equal
+     */
+    private static boolean isSameCode(DFSCode c1, DFSCode c2) {
+        if (c1.size() != c2.size()) {
+            return false;
+        }
+        for (int i = 0; i < c1.size(); i++) {
+            if (c1.getV1(i) != c2.getV1(i) || c1.getV2(i) != c2.getV2(i)
+                || c1.getVLabel1(i) != c2.getVLabel1(i) || c1.getVLabel2(i) != c2.getVLabel2(i)
+                || c1.getEdgeLabel(i) != c2.getEdgeLabel(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the graph of a DFS code is isomorphic to a graph having the same invariant,
+     * by searching an embedding of the DFS code in the graph. Since both graphs have the same
+     * number of vertices and edges, an embedding is an isomorphism.
+     *
+     * @param c a DFS code
+     * @param g a graph created from a DFS code (its vertex ids are 0, 1, 2...)
+     * @return true if they are isomorphic
+     */
+    private static boolean isIsomorphic(DFSCode c, Graph g) {
+        int[] mapping = new int[c.getRightMost() + 1];
+        boolean[] mapped = new boolean[g.getVertexCount()];
+        for (int vertex : g.findAllWithLabel(c.getVLabel1(0))) {
+            mapping[0] = vertex;
+            mapped[vertex] = true;
+            if (embed(c, g, 0, mapping, mapped)) {
+                return true;
+            }
+            mapped[vertex] = false;
+        }
+        return false;
+    }
+
+    /**
+     * Extend an embedding of the first edges of a DFS code in a graph with the next edges
+     *
+     * @param c       a DFS code
+     * @param g       a graph
+     * @param i       the position of the next edge of the DFS code
+     * @param mapping the vertex of the graph mapped to each vertex of the DFS code
+     * @param mapped  indicates if each vertex of the graph is mapped
+     * @return true if the embedding could be extended with all the edges
+     */
+    private static boolean embed(DFSCode c, Graph g, int i, int[] mapping, boolean[] mapped) {
+        if (i == c.size()) {
+            return true;
+        }
+        int v1 = c.getV1(i);
+        int v2 = c.getV2(i);
+        int mappedV1 = mapping[v1];
+
+        if (v1 > v2) {
+            // backward edge: both vertices are already mapped
+            return g.getEdgeLabel(mappedV1, mapping[v2]) == c.getEdgeLabel(i)
+                   && embed(c, g, i + 1, mapping, mapped);
+        }
+
+        // forward edge: try each neighbor that is not mapped yet
+        for (int p = g.getNeighborStart(mappedV1), neighborEnd = g.getNeighborEnd(mappedV1); p < neighborEnd; p++) {
+            int x = g.getNeighborId(p);
+            if (!mapped[x] && g.getNeighborLabel(p) == c.getVLabel2(i) && g.getNeighborEdgeLabel(p) == c.getEdgeLabel(i)) {
+                mapping[v2] = x;
+                mapped[x] = true;
+                if (embed(c, g, i + 1, mapping, mapped)) {
+                    return true;
+                }
+                mapped[x] = false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An invariant of the graph of a DFS code: two isomorphic graphs have the same invariant.
+     * It contains the number of vertices, the sorted (label, degree) pairs of the vertices,
+     * and the sorted (edge label, smallest vertex label, largest vertex label) triples of the edges.
+     */
+    private static final class Invariant {
+        // the values of the invariant
+        private final long[] values;
+        // the hash code
+        private final int hashcode;
+
+        /**
+         * Constructor
+         *
+         * @param c a DFS code
+         */
+        Invariant(DFSCode c) {
+            int vertexCount = c.getRightMost() + 1;
+            int[] labels = new int[vertexCount];
+            int[] degrees = new int[vertexCount];
+            long[] edges = new long[c.size()];
+            for (int i = 0; i < c.size(); i++) {
+                labels[c.getV1(i)] = c.getVLabel1(i);
+                labels[c.getV2(i)] = c.getVLabel2(i);
+                degrees[c.getV1(i)]++;
+                degrees[c.getV2(i)]++;
+                int minLabel = Math.min(c.getVLabel1(i), c.getVLabel2(i));
+                int maxLabel = Math.max(c.getVLabel1(i), c.getVLabel2(i));
+                // the edge label and the vertex labels are combined in one value
+                edges[i] = ((long) c.getEdgeLabel(i) << 42) ^ ((long) minLabel << 21) ^ maxLabel;
+            }
+
+            long[] vertices = new long[vertexCount];
+            for (int v = 0; v < vertexCount; v++) {
+                vertices[v] = ((long) labels[v] << 32) | degrees[v];
+            }
+            Arrays.sort(vertices);
+            Arrays.sort(edges);
+
+            values = new long[1 + vertexCount + edges.length];
+            values[0] = vertexCount;
+            System.arraycopy(vertices, 0, values, 1, vertexCount);
+            System.arraycopy(edges, 0, values, 1 + vertexCount, edges.length);
+            hashcode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashcode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Invariant)) {
+                return false;
+            }
+            Invariant that = (Invariant) obj;
+            return hashcode == that.hashcode && Arrays.equals(values, that.values);
+        }
+    }
+}
@@ -134,9 +134,11 @@ public class ClosedSubgraph extends FrequentSubgraph {
      * @param otherSetOfGraphsIDs ids of database graphs where other subgraph has projection
      * @param otherSupport        support of other subgraph
      * @param otherProjected      projections of the other subgraph
+     * @param threadPool          threads of the current execution of the algorithm
      * @return isomorphism of frequent subgraph into this closed subgraph if equivalent occurrence exists, null otherwise
      */
-    public Map<Integer, Integer> checkEquivalentOccurrence(Set<Integer> otherSetOfGraphsIDs, int otherSupport, ProjectedCompact otherProjected) {
+    public Map<Integer, Integer> checkEquivalentOccurrence(Set<Integer> otherSetOfGraphsIDs, int otherSupport, ProjectedCompact otherProjected,
+                                                          ThreadPool threadPool) {
         if (otherSupport > support) {
             return null;
         }
@@ -154,8 +156,8 @@ public class ClosedSubgraph extends FrequentSubgraph {
 
         // find all possible isomorphisms of projections of other subgraph into projections of this closed graph in database graph with id exampleGid
         List<Map<Integer, Integer>> possibleIsomorphisms =
-                findPossibleIsomorphisms(otherProjected.iterator(ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() * 2,
-                        ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() / 2, exampleGid));
+                findPossibleIsomorphisms(otherProjected.iterator(threadPool, threadPool.getThreadCount() * 2,
+                        Math.max(1, threadPool.getThreadCount() / 2), exampleGid), threadPool);
 
         //System.out.println("number of possible isomorphisms " + possibleIsomorphisms + " for dfs code " + otherProjected.getDfsCode().toString());
         Map<Integer, Integer> isomorphism = null;
@@ -166,8 +168,7 @@ public class ClosedSubgraph extends FrequentSubgraph {
             isomorphismFound = true;
             for (int gid : otherProjected.getGraphIds()) {
                 ProjectedIteratorConsumer otherIterator =
-                        otherProjected.iterator(ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() * 2,
-                                ThreadPool.getProjectedIteratorProducersInstance().getThreadCount(), gid);
+                        otherProjected.iterator(threadPool, threadPool.getThreadCount() * 2, threadPool.getThreadCount(), gid);
                 while (otherIterator.hasNext()) {
                     List<ProjectedEdge> otherProjectedEdges = otherIterator.next().getProjectedEdges();
 
@@ -213,9 +214,10 @@ public class ClosedSubgraph extends FrequentSubgraph {
      * exampleGid
      *
      * @param edgesProjectionListIterator projections to be checked for isomorphism(s)
+     * @param threadPool                  threads of the current execution of the algorithm
      * @return list of isomorphisms
      */
-    private List<Map<Integer, Integer>> findPossibleIsomorphisms(ProjectedIteratorConsumer edgesProjectionListIterator) {
+    private List<Map<Integer, Integer>> findPossibleIsomorphisms(ProjectedIteratorConsumer edgesProjectionListIterator, ThreadPool threadPool) {
         //Set<Map<Integer, Integer>> isomorphisms = new HashSet<Map<Integer, Integer>>();
         List<Map<Integer, Integer>> isomorphisms = new LinkedList();
 
@@ -223,6 +225,8 @@ public class ClosedSubgraph extends FrequentSubgraph {
             return new LinkedList<Map<Integer, Integer>>(isomorphisms);
         }
         List<ProjectedEdge> otherProjectedEdges = edgesProjectionListIterator.next().getProjectedEdges();
+        // only the first projection is needed, the producers of the other ones are stopped to free their threads
+        edgesProjectionListIterator.stop();
         Map<EdgeEnumeration, Integer> otherProjectedEdgesIndices = new HashMap<EdgeEnumeration, Integer>();
         for (int i = 0; i < otherProjectedEdges.size(); i++) {
             ProjectedEdge otherProjectedEdge = otherProjectedEdges.get(i);
@@ -230,8 +234,7 @@ public class ClosedSubgraph extends FrequentSubgraph {
         }
 
         ProjectedIteratorConsumer myEdgesProjectionListIterator =
-                projected.iterator(ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() * 2,
-                        ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() / 2, exampleGid);
+                projected.iterator(threadPool, threadPool.getThreadCount() * 2, Math.max(1, threadPool.getThreadCount() / 2), exampleGid);
         while (myEdgesProjectionListIterator.hasNext()) {
             PDFSCompact myPDFS = myEdgesProjectionListIterator.next();
             List<ProjectedEdge> myProjectedEdges = myPDFS.getProjectedEdges();
@@ -1,6 +1,6 @@
 package ca.pfv.spmf.algorithms.graph_mining.tkg;
 
-import java.io.*;
+import java.io.Serializable;
 import java.util.*;
 
 /* This file is copyright (c) 2018 by Chao Cheng
@@ -24,6 +24,12 @@ import java.util.*;
  * This is an implementation of the DFS code of the GSPAN algorithm
  * <br/><br/>
  * <p>
+ * The edges of the code are packed in an array of integers (five per edge: the two
+ * vertices, their labels and the edge label), and the rightmost path in another array,
+ * so that a code can be copied with two array copies. The ExtendedEdge objects returned
+ * by getAt() and getEeL() are created from this array.
+ * <br/><br/>
+ * <p>
  * The gspan algorithm is described  in :
  * <br/><br/>
  * <p>
@@ -47,8 +53,22 @@ public class DFSCode implements Serializable {
      * Serial UID
      */
     private static final long serialVersionUID = -3332379071310578036L;
-    private final Stack<Integer> rightMostPath;
-    private final List<ExtendedEdge> eeL;
+    /**
+     * number of integers used to store an edge
+     */
+    private static final int EDGE_LENGTH = 5;
+    /**
+     * the edges (v1, v2, vLabel1, vLabel2, edgeLabel for each edge)
+     */
+    private int[] edges;
+    /**
+     * the vertices of the rightmost path, from the root to the rightmost vertex
+     */
+    private int[] rightMostPath;
+    /**
+     * the number of vertices of the rightmost path
+     */
+    private int rightMostPathLength;
     /**
      * maintain rightmost child and current rightmost path
      */
@@ -61,35 +81,32 @@ public class DFSCode implements Serializable {
     public DFSCode() {
         rightMost = -1;
         size = 0;
-        rightMostPath = new Stack<>();
-        eeL = new LinkedList<>();
+        edges = new int[EDGE_LENGTH * 4];
+        rightMostPath = new int[4];
+        rightMostPathLength = 0;
     }
 
     /**
      * Make a copy of a DFS code
      *
      * @return a copy
-     * @throws IOException
-     * @throws ClassNotFoundException
-     */
-    public DFSCode copy() throws IOException, ClassNotFoundException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeObject(this);
-        oos.close();
-
-        ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-        ObjectInputStream ois = new ObjectInputStream(bais);
-        DFSCode clonedObj = (DFSCode) ois.readObject();
-        ois.close();
+     */
+    public DFSCode copy() {
+        DFSCode clonedObj = new DFSCode();
+        // leave room for the edge that is usually added to the copy
+        clonedObj.edges = Arrays.copyOf(edges, EDGE_LENGTH * (size + 1));
+        clonedObj.rightMostPath = Arrays.copyOf(rightMostPath, Math.max(2, rightMostPathLength + 1));
+        clonedObj.rightMostPathLength = rightMostPathLength;
+        clonedObj.rightMost = rightMost;
+        clonedObj.size = size;
         return clonedObj;
     }
 
     public boolean notPreOfRM(int v) {
-        if (rightMostPath.size() <= 1) {
+        if (rightMostPathLength <= 1) {
             return true;
         }
-        return v != rightMostPath.elementAt(rightMostPath.size() - 2);
+        return v != rightMostPath[rightMostPathLength - 2];
     }
 
     /**
@@ -98,21 +115,15 @@ public class DFSCode implements Serializable {
      * @return a list of vertex label
      */
     public List<Integer> getAllVLabels() {
-        List<Integer> labels = new ArrayList<>();
-        Map<Integer, Integer> map = new LinkedHashMap<>();
-        for (ExtendedEdge ee : eeL) {
-            int v1 = ee.getV1();
-            int v1L = ee.getvLabel1();
-            int v2 = ee.getV2();
-            int v2L = ee.getvLabel2();
-            map.put(v1, v1L);
-            map.put(v2, v2L);
+        // the vertices of a DFS code are numbered from 0 to rightMost
+        int[] vertexLabels = new int[rightMost + 1];
+        for (int i = 0; i < size; i++) {
+            vertexLabels[getV1(i)] = getVLabel1(i);
+            vertexLabels[getV2(i)] = getVLabel2(i);
         }
-        int count = 0;
-        Set<Integer> vSet = map.keySet();
-        while (vSet.contains(count)) {
-            labels.add(map.get(count));
-            count++;
+        List<Integer> labels = new ArrayList<>(vertexLabels.length);
+        for (int label : vertexLabels) {
+            labels.add(label);
         }
         return labels;
     }
@@ -125,39 +136,111 @@ public class DFSCode implements Serializable {
     public void add(ExtendedEdge ee) {
         if (size == 0) {
             rightMost = 1;
-            rightMostPath.push(0);
-            rightMostPath.push(1);
+            rightMostPath[0] = 0;
+            rightMostPath[1] = 1;
+            rightMostPathLength = 2;
         } else {
             int v1 = ee.getV1();
             int v2 = ee.getV2();
             if (v1 < v2) {
                 //if forward edge, need to modify right most vertex and right most path
                 rightMost = v2;
-                while (!rightMostPath.isEmpty() && rightMostPath.peek() > v1) {
-                    rightMostPath.pop();
+                while (rightMostPathLength > 0 && rightMostPath[rightMostPathLength - 1] > v1) {
+                    rightMostPathLength--;
+                }
+                if (rightMostPathLength == rightMostPath.length) {
+                    rightMostPath = Arrays.copyOf(rightMostPath, rightMostPathLength * 2);
                 }
-                rightMostPath.push(v2);
+                rightMostPath[rightMostPathLength++] = v2;
             } else {
                 //if backward edge, no change
             }
         }
-        eeL.add(ee);
+        if (EDGE_LENGTH * (size + 1) > edges.length) {
+            edges = Arrays.copyOf(edges, Math.max(EDGE_LENGTH * (size + 1), edges.length * 2));
+        }
+        int position = EDGE_LENGTH * size;
+        edges[position] = ee.getV1();
+        edges[position + 1] = ee.getV2();
+        edges[position + 2] = ee.getvLabel1();
+        edges[position + 3] = ee.getvLabel2();
+        edges[position + 4] = ee.getEdgeLabel();
         this.size++;
     }
 
 
     public ExtendedEdge getAt(int i) {
-        return eeL.get(i);
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        int position = EDGE_LENGTH * i;
+        return new ExtendedEdge(edges[position], edges[position + 1], edges[position + 2], edges[position + 3],
+                edges[position + 4]);
+    }
+
+    /**
+     * Get the first vertex of an edge
+     *
+     * @param i the position of the edge
+     * @return the vertex
+     */
+    public int getV1(int i) {
+        return edges[EDGE_LENGTH * i];
+    }
+
+    /**
+     * Get the second vertex of an edge
+     *
+     * @param i the position of the edge
+     * @return the vertex
+     */
+    public int getV2(int i) {
+        return edges[EDGE_LENGTH * i + 1];
+    }
+
+    /**
+     * Get the label of the first vertex of an edge
+     *
+     * @param i the position of the edge
+     * @return the label
+     */
+    public int getVLabel1(int i) {
+        return edges[EDGE_LENGTH * i + 2];
+    }
+
+    /**
+     * Get the label of the second vertex of an edge
+     *
+     * @param i the position of the edge
+     * @return the label
+     */
+    public int getVLabel2(int i) {
+        return edges[EDGE_LENGTH * i + 3];
+    }
+
+    /**
+     * Get the label of an edge
+     *
+     * @param i the position of the edge
+     * @return the label
+     */
+    public int getEdgeLabel(int i) {
+        return edges[EDGE_LENGTH * i + 4];
     }
 
     public boolean onRightMostPath(int v) {
-        return rightMostPath.contains(v);
+        for (int i = 0; i < rightMostPathLength; i++) {
+            if (rightMostPath[i] == v) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public boolean containEdge(int v1, int v2) {
-        for (ExtendedEdge ee : eeL) {
-            int eeV1 = ee.getV1();
-            int eeV2 = ee.getV2();
+        for (int position = 0; position < EDGE_LENGTH * size; position += EDGE_LENGTH) {
+            int eeV1 = edges[position];
+            int eeV2 = edges[position + 1];
             if ((eeV1 == v1 && eeV2 == v2) || (eeV1 == v2 && eeV2 == v1)) {
                 return true;
             }
@@ -170,7 +253,7 @@ public class DFSCode implements Serializable {
     }
 
     public boolean isEmpty() {
-        return eeL.isEmpty();
+        return size == 0;
     }
 
     public int getRightMost() {
@@ -178,18 +261,46 @@ public class DFSCode implements Serializable {
     }
 
     public Iterable<Integer> getRightMostPath() {
-        return rightMostPath;
+        List<Integer> path = new ArrayList<>(rightMostPathLength);
+        for (int i = 0; i < rightMostPathLength; i++) {
+            path.add(rightMostPath[i]);
+        }
+        return path;
+    }
+
+    /**
+     * Get the vertices of the rightmost path, from the root to the rightmost vertex
+     *
+     * @return a new array of vertices
+     */
+    public int[] getRightMostPathVertices() {
+        return Arrays.copyOf(rightMostPath, rightMostPathLength);
     }
 
+    /**
+     * Get the edges of this code. The list is a read-only view of the code.
+     *
+     * @return the list of edges
+     */
     public List<ExtendedEdge> getEeL() {
-        return eeL;
+        return new AbstractList<ExtendedEdge>() {
+            @Override
+            public ExtendedEdge get(int index) {
+                return getAt(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("DFSCode: ");
-        for (ExtendedEdge ee : eeL) {
+        for (ExtendedEdge ee : getEeL()) {
             sb.append(ee).append(" ");
         }
         return sb.toString();
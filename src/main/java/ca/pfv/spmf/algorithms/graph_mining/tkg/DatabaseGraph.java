@@ -52,20 +52,53 @@ public class DatabaseGraph extends Graph {
      */
     private Map<Edge, EdgeEnumeration> edgesEnumeration;
 
+    /**
+     * the two projected edges of each edge in a graph, the reversed one first
+     */
+    private Map<Edge, ProjectedEdge[]> projectedEdges;
+
     public DatabaseGraph(int id, Map<Integer, Vertex> vMap) {
         super(id, vMap);
     }
 
     /**
-     * builds enumeration of graph edges
+     * builds enumeration of graph edges.
+     * For each edge, two projected edges are also created, one for each direction.
      */
     public void buildEdgeEnumeration() {
         edgesEnumeration = new ConcurrentHashMap<Edge, EdgeEnumeration>();
+        projectedEdges = new ConcurrentHashMap<Edge, ProjectedEdge[]>();
 
         Set<Edge> allEdges = getAllEdges();
 
         for (Edge edge : allEdges) {
-            edgesEnumeration.put(edge, new EdgeEnumeration(getId(), edge));
+            EdgeEnumeration edgeEnumeration = new EdgeEnumeration(getId(), edge);
+            edgesEnumeration.put(edge, edgeEnumeration);
+
+            ProjectedEdge[] arr = new ProjectedEdge[2];
+            arr[0] = new ProjectedEdge(edgeEnumeration, true);
+            arr[1] = new ProjectedEdge(edgeEnumeration, false);
+            projectedEdges.put(edge, arr);
+        }
+    }
+
+    /**
+     * retrieves the projected edge of an edge of this graph
+     *
+     * @param edge       database graph edge
+     * @param isReversed projected edge direction
+     * @return projected edge, or null if the edge is not in this graph
+     */
+    public ProjectedEdge getProjectedEdge(Edge edge, boolean isReversed) {
+        ProjectedEdge[] arr = projectedEdges.get(edge);
+        if (arr == null) {
+            return null;
+        }
+
+        if (isReversed) {
+            return arr[0];
+        } else {
+            return arr[1];
         }
     }
 
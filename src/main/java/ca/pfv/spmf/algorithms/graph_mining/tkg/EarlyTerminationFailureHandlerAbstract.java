@@ -51,9 +51,14 @@ public abstract class EarlyTerminationFailureHandlerAbstract implements IEarlyTe
      * DFS codes trie
      */
     protected Trie trie;
+    /**
+     * threads of the current execution of the algorithm
+     */
+    protected ThreadPool threadPool;
 
-    public EarlyTerminationFailureHandlerAbstract(List<DatabaseGraph> graphDB) {
+    public EarlyTerminationFailureHandlerAbstract(List<DatabaseGraph> graphDB, ThreadPool threadPool) {
         this.graphDB = graphDB;
+        this.threadPool = threadPool;
         trie = new Trie();
     }
 
@@ -152,8 +157,7 @@ public abstract class EarlyTerminationFailureHandlerAbstract implements IEarlyTe
 
         if (dfsCode.getAt(length - 1).v2 < dfsCode.getAt(length - 1).v1) {
             Integer rmpathLoop = null;
-            ProjectedIteratorConsumer iterator = projected.iterator(ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() * 2,
-                    ThreadPool.getProjectedIteratorProducersInstance().getThreadCount());
+            ProjectedIteratorConsumer iterator = projected.iterator(threadPool, threadPool.getThreadCount() * 2, threadPool.getThreadCount());
             while (iterator.hasNext()) {
                 PDFSCompact pdfs = iterator.next();
                 DatabaseGraph g = graphDB.get(pdfs.getProjectedEdges().get(0).getEdgeEnumeration().getGid());
@@ -34,8 +34,8 @@ public class EarlyTerminationFailureHandlerMNI extends EarlyTerminationFailureHa
      */
     private final int minMNI;
 
-    public EarlyTerminationFailureHandlerMNI(List<DatabaseGraph> graphDB, int minMNI) {
-        super(graphDB);
+    public EarlyTerminationFailureHandlerMNI(List<DatabaseGraph> graphDB, ThreadPool threadPool, int minMNI) {
+        super(graphDB, threadPool);
         this.minMNI = minMNI;
     }
 
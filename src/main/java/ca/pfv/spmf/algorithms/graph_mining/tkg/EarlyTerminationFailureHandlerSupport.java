@@ -31,8 +31,8 @@ public class EarlyTerminationFailureHandlerSupport extends EarlyTerminationFailu
      */
     private final int minSup;
 
-    public EarlyTerminationFailureHandlerSupport(List<DatabaseGraph> graphDB, int minSup) {
-        super(graphDB);
+    public EarlyTerminationFailureHandlerSupport(List<DatabaseGraph> graphDB, ThreadPool threadPool, int minSup) {
+        super(graphDB, threadPool);
         this.minSup = minSup;
     }
 
@@ -54,8 +54,7 @@ public class EarlyTerminationFailureHandlerSupport extends EarlyTerminationFailu
 
         if (dfsCode.getAt(length - 1).v2 > dfsCode.getAt(length - 1).v1) {
             Map<ElbVlbKey, Set<Integer>> elbVlbGids = new HashMap<ElbVlbKey, Set<Integer>>();
-            ProjectedIteratorConsumer iterator = projected.iterator(ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() * 2,
-                    ThreadPool.getProjectedIteratorProducersInstance().getThreadCount());
+            ProjectedIteratorConsumer iterator = projected.iterator(threadPool, threadPool.getThreadCount() * 2, threadPool.getThreadCount());
             while (iterator.hasNext()) {
                 PDFSCompact pdfs = iterator.next();
 
@@ -135,8 +134,7 @@ public class EarlyTerminationFailureHandlerSupport extends EarlyTerminationFailu
         if (dfsCode.getAt(length - 1).v2 > dfsCode.getAt(length - 1).v1) {
             Map<VertexElbVlbKey, Set<Integer>> vertexElbVlbGids = new HashMap<VertexElbVlbKey, Set<Integer>>();
 
-            ProjectedIteratorConsumer iterator = projected.iterator(ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() * 2,
-                    ThreadPool.getProjectedIteratorProducersInstance().getThreadCount());
+            ProjectedIteratorConsumer iterator = projected.iterator(threadPool, threadPool.getThreadCount() * 2, threadPool.getThreadCount());
             while (iterator.hasNext()) {
                 PDFSCompact pdfs = iterator.next();
                 DatabaseGraph g = graphDB.get(pdfs.getProjectedEdges().get(0).getEdgeEnumeration().getGid());
@@ -244,8 +242,7 @@ public class EarlyTerminationFailureHandlerSupport extends EarlyTerminationFailu
             && (dfsCode.getAt(rightMostPathEdges.get(rightMostPathEdges.size() - 1)).vLabel2 ==
                 dfsCode.getAt(rightMostPathEdges.get(rightMostPathEdges.size() - 2)).vLabel2)) {
             Map<ElbVlbKey, Set<Integer>> elbVlbGids = new HashMap<ElbVlbKey, Set<Integer>>();
-            ProjectedIteratorConsumer iterator = projected.iterator(ThreadPool.getProjectedIteratorProducersInstance().getThreadCount() * 2,
-                    ThreadPool.getProjectedIteratorProducersInstance().getThreadCount());
+            ProjectedIteratorConsumer iterator = projected.iterator(threadPool, threadPool.getThreadCount() * 2, threadPool.getThreadCount());
             while (iterator.hasNext()) {
                 PDFSCompact pdfs = iterator.next();
                 DatabaseGraph g = graphDB.get(pdfs.getProjectedEdges().get(0).getEdgeEnumeration().getGid());
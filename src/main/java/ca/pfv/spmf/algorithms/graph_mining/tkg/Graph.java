@@ -64,17 +64,64 @@ public class Graph {
      */
     Vertex[] vertices;
     /**
-     * Map each vertex label to the list of vertex ids having this label
+     * Number of edges
      */
-    Map<Integer, int[]> mapLabelToVertexIDs;
+    private int edgeCount = 0;
+
+    // ======== Compressed sparse row representation of the graph ============
+    // The vertices are numbered by their position in the list of vertices
+    // (their index). These arrays are built by the precalculate methods and are
+    // used by the depth-first searches instead of the Vertex and Edge objects.
     /**
-     * Map each vertex id to the ids of its neighbors
+     * the id of each vertex index
      */
-    private Map<Integer, Vertex[]> neighborCache;
+    private int[] vertexIds;
     /**
-     * Number of edges
+     * the label of each vertex index
      */
-    private int edgeCount = 0;
+    private int[] vertexLabels;
+    /**
+     * the smallest vertex id
+     */
+    private int minVertexId;
+    /**
+     * the index of each vertex id minus the smallest vertex id (-1 if there is no such vertex),
+     * or null if the vertex ids are too sparse, in which case sortedVertexIds is used
+     */
+    private int[] vertexIndexes;
+    /**
+     * the vertex ids in ascending order, used if the vertex ids are too sparse
+     */
+    private int[] sortedVertexIds;
+    /**
+     * the index of each vertex id of sortedVertexIds
+     */
+    private int[] sortedVertexIndexes;
+    /**
+     * the position of the first neighbor of each vertex index in the neighbor arrays,
+     * followed by the total number of neighbors
+     */
+    private int[] neighborOffsets;
+    /**
+     * the index of the neighbors of each vertex, sorted by vertex id
+     */
+    private int[] neighbors;
+    /**
+     * the label of the edge to each neighbor
+     */
+    private int[] neighborEdgeLabels;
+    /**
+     * the vertex labels, in ascending order
+     */
+    private int[] labels;
+    /**
+     * the position of the vertices of each label in labelVertexIds, followed by the number of vertices
+     */
+    private int[] labelOffsets;
+    /**
+     * the ids of the vertices having each label
+     */
+    private int[] labelVertexIds;
 
     /**
      * Constructor
@@ -94,12 +141,12 @@ public class Graph {
      */
     public Graph(DFSCode c) {
         this.vMap = new HashMap<>();
-        for (ExtendedEdge ee : c.getEeL()) {
-            int v1 = ee.getV1();
-            int v2 = ee.getV2();
-            int v1L = ee.getvLabel1();
-            int v2L = ee.getvLabel2();
-            int eL = ee.getEdgeLabel();
+        for (int i = 0; i < c.size(); i++) {
+            int v1 = c.getV1(i);
+            int v2 = c.getV2(i);
+            int v1L = c.getVLabel1(i);
+            int v2L = c.getVLabel2(i);
+            int eL = c.getEdgeLabel(i);
 
             Edge e = new Edge(v1, v2, eL);
             if (vMap.get(v1) == null) {
@@ -145,48 +192,52 @@ public class Graph {
     }
 
     /**
-     * For optimization purposes, precalculate the list of neighbors of each vertex.
+     * For optimization purposes, precalculate the list of neighbors of each vertex,
+     * in the compressed sparse row representation of the graph. The list of vertices
+     * must have been precalculated.
      */
     public void precalculateVertexNeighbors() {
 
-        neighborCache = new HashMap<>();
-
-        List<Vertex> neighbors = new ArrayList<Vertex>();
+        neighborOffsets = new int[vertices.length + 1];
+        for (int i = 0; i < vertices.length; i++) {
+            neighborOffsets[i + 1] = neighborOffsets[i] + vertices[i].getEdgeList().size();
+        }
+        neighbors = new int[neighborOffsets[vertices.length]];
+        neighborEdgeLabels = new int[neighbors.length];
 
         // For each vertex
-        for (Entry<Integer, Vertex> entry : vMap.entrySet()) {
-            int vertexID = entry.getKey();
-            Vertex vertex = entry.getValue();
-            List<Edge> vertexEdgeList = vertex.getEdgeList();
-
-            // For each edge
-            for (Edge e : vertexEdgeList) {
-                Vertex vertexNeighboor = vMap.get(e.another(vertexID));
-                neighbors.add(vertexNeighboor);
-            }
-
-            // Convert to array
-            Vertex[] arrayNeighbors = new Vertex[neighbors.size()];
-            for (int i = 0; i < neighbors.size(); i++) {
-                arrayNeighbors[i] = neighbors.get(i);
+        for (int i = 0; i < vertices.length; i++) {
+            int vertexID = vertexIds[i];
+            int start = neighborOffsets[i];
+            int end = start;
+
+            // For each edge, insert the neighbor so that the neighbors stay sorted by id
+            for (Edge e : vertices[i].getEdgeList()) {
+                int neighbor = getVertexIndex(e.another(vertexID));
+                int neighborID = vertexIds[neighbor];
+                int position = end;
+                while (position > start && vertexIds[neighbors[position - 1]] > neighborID) {
+                    neighbors[position] = neighbors[position - 1];
+                    neighborEdgeLabels[position] = neighborEdgeLabels[position - 1];
+                    position--;
+                }
+                neighbors[position] = neighbor;
+                neighborEdgeLabels[position] = e.getEdgeLabel();
+                end++;
             }
-
-            // Sort the array
-            Arrays.sort(arrayNeighbors);
-
-            neighborCache.put(vertexID, arrayNeighbors);
-            edgeCount += neighbors.size();
-            neighbors.clear();
         }
-        edgeCount = edgeCount / 2;
+        edgeCount = neighbors.length / 2;
     }
 
     /**
-     * For optimization purposes, precalculate the list of vertices in this graph.
+     * For optimization purposes, precalculate the list of vertices in this graph,
+     * with the id and label of each vertex index.
      */
     public void precalculateVertexList() {
 
         vertices = new Vertex[vMap.size()];
+        vertexIds = new int[vertices.length];
+        vertexLabels = new int[vertices.length];
 
         // For each vertex
         int j = 0;
@@ -195,47 +246,100 @@ public class Graph {
 
             // Add the vertex to the precalculated array of vertices
             vertices[j] = vertex;
+            vertexIds[j] = vertex.getId();
+            vertexLabels[j] = vertex.getLabel();
             j++;
         }
+
+        precalculateVertexIndexes();
     }
 
     /**
-     * Precalculate the list of vertices having each label
+     * Precalculate the index of each vertex id. A table covering the range of the ids is used
+     * if the ids are dense enough, as in most graph databases, and otherwise a sorted array.
      */
-    public void precalculateLabelsToVertices() {
-        mapLabelToVertexIDs = new HashMap<Integer, int[]>();
+    private void precalculateVertexIndexes() {
+        vertexIndexes = null;
+        sortedVertexIds = null;
+        sortedVertexIndexes = null;
+        if (vertexIds.length == 0) {
+            vertexIndexes = EMPTY_INTEGER_ARRAY;
+            return;
+        }
 
-        // create a temporary list to store vertex id
-        List<Integer> sameIDs = new ArrayList<Integer>();
+        int maxVertexId = vertexIds[0];
+        minVertexId = vertexIds[0];
+        for (int vertexID : vertexIds) {
+            maxVertexId = Math.max(maxVertexId, vertexID);
+            minVertexId = Math.min(minVertexId, vertexID);
+        }
 
-        // for each vertex
-        for (int i = 0; i < vertices.length; i++) {
-            // get the label
-            int label = vertices[i].getLabel();
-            // if we did not already process that label
-            if (!mapLabelToVertexIDs.containsKey(label)) {
-                // Find all other vertices having that label
-
-                for (int j = i + 1; j < vertices.length; j++) {
-                    if (vertices[j].getLabel() == label) {
-                        sameIDs.add(vertices[j].getId());
-                    }
-                }
+        if ((long) maxVertexId - minVertexId < 4L * vertexIds.length) {
+            vertexIndexes = new int[maxVertexId - minVertexId + 1];
+            Arrays.fill(vertexIndexes, -1);
+            for (int i = 0; i < vertexIds.length; i++) {
+                vertexIndexes[vertexIds[i] - minVertexId] = i;
+            }
+        } else {
+            long[] pairs = new long[vertexIds.length];
+            for (int i = 0; i < vertexIds.length; i++) {
+                pairs[i] = ((long) vertexIds[i] << 32) | i;
+            }
+            Arrays.sort(pairs);
+            sortedVertexIds = new int[pairs.length];
+            sortedVertexIndexes = new int[pairs.length];
+            for (int i = 0; i < pairs.length; i++) {
+                sortedVertexIds[i] = (int) (pairs[i] >> 32);
+                sortedVertexIndexes[i] = (int) pairs[i];
+            }
+        }
+    }
 
-                // Create an array  to store the vertice IDs
-                int[] verticeIDs = new int[sameIDs.size() + 1];
-                verticeIDs[0] = vertices[i].getId();
-                for (int k = 0; k < sameIDs.size(); k++) {
-                    verticeIDs[k + 1] = sameIDs.get(k);
-                }
+    /**
+     * Precalculate the list of vertices having each label. The list of vertices
+     * must have been precalculated.
+     */
+    public void precalculateLabelsToVertices() {
+        // sort the vertex indexes by label, keeping the order of the list of vertices for each label
+        long[] pairs = new long[vertexLabels.length];
+        for (int i = 0; i < vertexLabels.length; i++) {
+            pairs[i] = ((long) vertexLabels[i] << 32) | i;
+        }
+        Arrays.sort(pairs);
 
-                mapLabelToVertexIDs.put(label, verticeIDs);
+        int labelCount = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || (int) (pairs[i] >> 32) != (int) (pairs[i - 1] >> 32)) {
+                labelCount++;
+            }
+        }
 
-                sameIDs.clear();
+        labels = new int[labelCount];
+        labelOffsets = new int[labelCount + 1];
+        labelVertexIds = new int[pairs.length];
+        int labelIndex = -1;
+        for (int i = 0; i < pairs.length; i++) {
+            int label = (int) (pairs[i] >> 32);
+            if (labelIndex < 0 || labels[labelIndex] != label) {
+                labelIndex++;
+                labels[labelIndex] = label;
+                labelOffsets[labelIndex] = i;
             }
+            labelVertexIds[i] = vertexIds[(int) pairs[i]];
         }
+        labelOffsets[labelCount] = pairs.length;
     }
 
+    /**
+     * Release the Vertex and Edge objects of this graph, after its compressed sparse row
+     * representation has been precalculated. Afterwards, the graph can only be read with
+     * getVLabel(), getEdgeLabel(), isNeighboring(), findAllWithLabel(), the neighbor
+     * accessors, getVertexCount() and getEdgeCount().
+     */
+    public void releaseVertexObjects() {
+        vMap = null;
+        vertices = null;
+    }
 
     /**
      * Get all vertice IDs having a given label
@@ -244,11 +348,11 @@ public class Graph {
      * @return the list of vertice IDs
      */
     public int[] findAllWithLabel(int targetLabel) {
-        int[] vertexIds = mapLabelToVertexIDs.get(targetLabel);
-        if (vertexIds == null) {
+        int labelIndex = Arrays.binarySearch(labels, targetLabel);
+        if (labelIndex < 0) {
             return EMPTY_INTEGER_ARRAY;
         }
-        return vertexIds;
+        return Arrays.copyOfRange(labelVertexIds, labelOffsets[labelIndex], labelOffsets[labelIndex + 1]);
     }
 
     /**
@@ -293,8 +397,37 @@ public class Graph {
         return edges;
     }
 
+    /**
+     * Get the index of a vertex in the compressed sparse row representation
+     *
+     * @param v the id of the vertex
+     * @return the index, or -1 if there is no such vertex
+     */
+    int getVertexIndex(int v) {
+        if (vertexIndexes != null) {
+            int i = v - minVertexId;
+            return i >= 0 && i < vertexIndexes.length ? vertexIndexes[i] : -1;
+        }
+        int i = Arrays.binarySearch(sortedVertexIds, v);
+        return i < 0 ? -1 : sortedVertexIndexes[i];
+    }
+
+    /**
+     * Get the id of the vertex having an index in the compressed sparse row representation
+     *
+     * @param index the index, from 0 to getVertexCount() - 1
+     * @return the vertex id
+     */
+    public int getVertexId(int index) {
+        return vertexIds[index];
+    }
+
     public int getVLabel(int v) {
-        return vMap.get(v).getLabel();
+        if (vertexLabels == null) {
+            // the list of vertices is not precalculated yet
+            return vMap.get(v).getLabel();
+        }
+        return vertexLabels[getVertexIndex(v)];
     }
 
     /**
@@ -305,15 +438,8 @@ public class Graph {
      * @return the label if the edge exists, or otherwise -1.
      */
     public int getEdgeLabel(int v1, int v2) {
-        for (Edge e : vMap.get(v1).getEdgeList()) {
-            if (e.v1 == v1 && e.v2 == v2) {
-                return e.getEdgeLabel();
-            }
-            if (e.v2 == v1 && e.v1 == v2) {
-                return e.getEdgeLabel();
-            }
-        }
-        return -1;
+        int position = findNeighbor(v1, v2);
+        return position < 0 ? -1 : neighborEdgeLabels[position];
     }
 
     public Edge getEdge(int v1, int v2) {
@@ -329,19 +455,82 @@ public class Graph {
     }
 
     /**
-     * Get the list of vertices connected to a given vertex
+     * Get the list of vertices connected to a given vertex. The depth-first searches
+     * read the neighbors with getNeighborStart() and getNeighborEnd() instead, which
+     * does not create an array.
      *
      * @param v the vertex
      * @return the list of vertices
      */
     public Vertex[] getAllNeighbors(int v) {
-        Vertex[] neighboors = neighborCache.get(v);
-        if (neighboors == null) {
+        int start = getNeighborStart(v);
+        int end = getNeighborEnd(v);
+        if (start == end) {
             return EMPTY_VERTEX_LIST;
         }
+        Vertex[] neighboors = new Vertex[end - start];
+        for (int position = start; position < end; position++) {
+            neighboors[position - start] = vertices[neighbors[position]];
+        }
         return neighboors;
     }
 
+    /**
+     * Get the position of the first neighbor of a vertex in the compressed sparse row
+     * representation. The neighbors of the vertex are at the positions from
+     * getNeighborStart(v) to getNeighborEnd(v) (exclusive), sorted by vertex id.
+     *
+     * @param v the vertex
+     * @return the position
+     */
+    public int getNeighborStart(int v) {
+        int index = getVertexIndex(v);
+        return index < 0 ? 0 : neighborOffsets[index];
+    }
+
+    /**
+     * Get the position after the last neighbor of a vertex in the compressed sparse row
+     * representation
+     *
+     * @param v the vertex
+     * @return the position
+     */
+    public int getNeighborEnd(int v) {
+        int index = getVertexIndex(v);
+        return index < 0 ? 0 : neighborOffsets[index + 1];
+    }
+
+    /**
+     * Get the id of the neighbor at a position of the compressed sparse row representation
+     *
+     * @param position the position
+     * @return the vertex id
+     */
+    public int getNeighborId(int position) {
+        return vertexIds[neighbors[position]];
+    }
+
+    /**
+     * Get the label of the neighbor at a position of the compressed sparse row representation
+     *
+     * @param position the position
+     * @return the vertex label
+     */
+    public int getNeighborLabel(int position) {
+        return vertexLabels[neighbors[position]];
+    }
+
+    /**
+     * Get the label of the edge to the neighbor at a position of the compressed sparse
+     * row representation
+     *
+     * @param position the position
+     * @return the edge label
+     */
+    public int getNeighborEdgeLabel(int position) {
+        return neighborEdgeLabels[position];
+    }
+
     /**
      * Check if two vertices are neighbors
      *
@@ -350,32 +539,34 @@ public class Graph {
      * @return true if they are neighbors
      */
     public boolean isNeighboring(int v1, int v2) {
-        Vertex[] neighborsOfV1 = neighborCache.get(v1);
-
-//    	for(Vertex vertex: neighborsOfV1){
-//    		if(vertex.getId() == v2){
-//    			return true;
-//    		}
-//    	}
+        return findNeighbor(v1, v2) >= 0;
+    }
 
-        // ================ binary search ==========
-        int low = 0;
-        int high = neighborsOfV1.length - 1;
+    /**
+     * Find the position of the first edge between two vertices in the compressed
+     * sparse row representation, with a binary search
+     *
+     * @param v1 the first vertex
+     * @param v2 the second vertex
+     * @return the position, or -1 if they are not neighbors
+     */
+    private int findNeighbor(int v1, int v2) {
+        int low = getNeighborStart(v1);
+        int high = getNeighborEnd(v1) - 1;
 
         while (high >= low) {
-            int middle = (low + high) / 2;
-            int val = neighborsOfV1[middle].getId();
-            if (val == v2) {
-                return true;
-            }
+            int middle = (low + high) >>> 1;
+            int val = vertexIds[neighbors[middle]];
             if (val < v2) {
                 low = middle + 1;
-            }
-            if (val > v2) {
+            } else {
                 high = middle - 1;
             }
         }
-        return false;
+        if (low < getNeighborEnd(v1) && vertexIds[neighbors[low]] == v2) {
+            return low;
+        }
+        return -1;
     }
 
     /**
@@ -384,7 +575,7 @@ public class Graph {
      * @return the number of vertex
      */
     public int getVertexCount() {
-        return vertices.length;
+        return vertexIds.length;
     }
 
     /**
@@ -393,13 +584,6 @@ public class Graph {
      * @return the number of edges
      */
     public int getEdgeCount() {
-//    	if(edgeCount == - 1){
-//	        int num = 0;
-//	        for (Vertex v : vertices) {
-//	            num += v.getEdgeList().size();
-//	        }
-//	        edgeCount = num/2;
-//    	}
         return edgeCount;
     }
 
@@ -0,0 +1,331 @@
+package ca.pfv.spmf.algorithms.graph_mining.tkg;
+
+import ca.pfv.spmf.datastructures.primitivemaps.IntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.LongIntMap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* This file is copyright (c) 2018 by Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A reader of a graph database in the SPMF format (used by GSPAN and TKG) that reads the file
+ * twice, so that the infrequent vertices and edges are never loaded in memory.
+ * <br/><br/>
+ * <p>
+ * The first pass only keeps one graph at a time in memory, and counts the support of each vertex label
+ * and of each edge, where an edge is identified by the labels of its two vertices and its label.
+ * The second pass creates the graphs, keeping only the vertices and edges that can appear in a
+ * pattern having a given minimum support: an edge is kept if its support is enough, and a vertex
+ * is kept if the support of its label is enough. As in the original readers, the support of a vertex
+ * label only counts the vertices having some edges, and the second pass also records the graphs
+ * where each label appears on such a vertex (even if its edges were not kept), which is used to
+ * find the frequent subgraphs having a single vertex.
+ * <br/><br/>
+ * <p>
+ * All the graphs are created, even if they become empty, so that the position of each graph
+ * in the list stays its position in the file.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AlgoGSPAN
+ * @see AlgoTKG
+ */
+public class GraphDatabaseReader {
+
+    /**
+     * the input file
+     */
+    private final String path;
+    /**
+     * the number of graphs in the file
+     */
+    private int graphCount = 0;
+    /**
+     * the support of each vertex label
+     */
+    private final IntIntMap vertexLabelSupports = new IntIntMap();
+    /**
+     * a number for each pair of vertex labels (the smallest label is in the highest bits of the key)
+     */
+    private final LongIntMap vertexLabelPairs = new LongIntMap();
+    /**
+     * the support of each edge (the number of its pair of vertex labels is in the highest bits of the key)
+     */
+    private final LongIntMap edgeSupports = new LongIntMap();
+    /**
+     * the graphs where each vertex label appears on a vertex having some edges (filled by the second pass)
+     */
+    private Map<Integer, Set<Integer>> vertexLabelGraphIds;
+    /**
+     * the number of vertices having some edges that were not kept by the second pass
+     */
+    private int removedVertexCount = 0;
+    /**
+     * the number of edges that were not kept by the second pass
+     */
+    private int removedEdgeCount = 0;
+
+    /**
+     * Constructor. It reads the file a first time to count the support of the vertex labels and edges.
+     *
+     * @param path the input file
+     * @throws IOException if error reading the file
+     */
+    public GraphDatabaseReader(String path) throws IOException {
+        this.path = path;
+        countSupports();
+    }
+
+    /**
+     * First pass: count the support of each vertex label and each edge
+     *
+     * @throws IOException if error reading the file
+     */
+    private void countSupports() throws IOException {
+        BufferedReader br = new BufferedReader(new FileReader(new File(path)));
+
+        // the labels of the vertices of the current graph
+        IntIntMap vertexLabels = new IntIntMap();
+        // the number of the last graph where each vertex label and each edge were counted (starting at 1)
+        IntIntMap lastGraphOfVertexLabel = new IntIntMap();
+        LongIntMap lastGraphOfEdge = new LongIntMap();
+
+        String line = br.readLine();
+        boolean hasNextGraph = (line != null) && line.startsWith("t");
+
+        // For each graph of the graph database
+        while (hasNextGraph) {
+            hasNextGraph = false;
+            graphCount++;
+            vertexLabels.clear();
+            while ((line = br.readLine()) != null && !line.startsWith("t")) {
+
+                String[] items = line.split(" ");
+
+                if (line.startsWith("v")) {
+                    // If it is a vertex
+                    vertexLabels.put(Integer.parseInt(items[1]), Integer.parseInt(items[2]));
+                } else if (line.startsWith("e")) {
+                    // If it is an edge
+                    int v1 = Integer.parseInt(items[1]);
+                    int v2 = Integer.parseInt(items[2]);
+                    if (!vertexLabels.containsKey(v1) || !vertexLabels.containsKey(v2)) {
+                        throw new IOException("The edge \"" + line + "\" of the graph " + graphCount
+                                              + " has a vertex that is not declared before it");
+                    }
+                    int label1 = vertexLabels.get(v1);
+                    int label2 = vertexLabels.get(v2);
+                    int eLabel = Integer.parseInt(items[3]);
+
+                    // the support is only increased once per graph
+                    if (lastGraphOfVertexLabel.get(label1) != graphCount) {
+                        lastGraphOfVertexLabel.put(label1, graphCount);
+                        vertexLabelSupports.increment(label1, 1);
+                    }
+                    if (lastGraphOfVertexLabel.get(label2) != graphCount) {
+                        lastGraphOfVertexLabel.put(label2, graphCount);
+                        vertexLabelSupports.increment(label2, 1);
+                    }
+                    long edgeKey = getEdgeKey(label1, label2, eLabel, true);
+                    if (lastGraphOfEdge.get(edgeKey) != graphCount) {
+                        lastGraphOfEdge.put(edgeKey, graphCount);
+                        edgeSupports.increment(edgeKey, 1);
+                    }
+                }
+            }
+            if (line != null) {
+                hasNextGraph = true;
+            }
+        }
+
+        br.close();
+    }
+
+    /**
+     * Get the key of an edge in the map of edge supports
+     *
+     * @param label1 the label of a vertex
+     * @param label2 the label of the other vertex
+     * @param eLabel the edge label
+     * @param create if true, a number is given to the pair of vertex labels if it has none
+     * @return the key, or -1 if the pair of vertex labels has no number
+     */
+    private long getEdgeKey(int label1, int label2, int eLabel, boolean create) {
+        long pairKey = label1 <= label2
+                       ? ((long) label1 << 32) | (label2 & 0xFFFFFFFFL)
+                       : ((long) label2 << 32) | (label1 & 0xFFFFFFFFL);
+        int pair;
+        if (vertexLabelPairs.containsKey(pairKey)) {
+            pair = vertexLabelPairs.get(pairKey);
+        } else if (create) {
+            pair = vertexLabelPairs.size();
+            vertexLabelPairs.put(pairKey, pair);
+        } else {
+            return -1;
+        }
+        return ((long) pair << 32) | (eLabel & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Second pass: create the graphs, keeping the vertices and edges that can appear in a pattern
+     * having a minimum support
+     *
+     * @param minSup the minimum support as a number of graphs
+     * @return the graphs, in the order of the file
+     * @throws IOException if error reading the file
+     */
+    public List<Graph> readGraphs(int minSup) throws IOException {
+        BufferedReader br = new BufferedReader(new FileReader(new File(path)));
+        List<Graph> graphDatabase = new ArrayList<Graph>(graphCount);
+        vertexLabelGraphIds = new HashMap<Integer, Set<Integer>>();
+        removedVertexCount = 0;
+        removedEdgeCount = 0;
+
+        String line = br.readLine();
+        boolean hasNextGraph = (line != null) && line.startsWith("t");
+
+        // For each graph of the graph database
+        while (hasNextGraph) {
+            hasNextGraph = false;
+            int gId = Integer.parseInt(line.split(" ")[2]);
+            Map<Integer, Vertex> vMap = new HashMap<>();
+            // the label of each vertex of this graph, and the vertices having some edges
+            Map<Integer, Integer> vertexLabels = new HashMap<>();
+            Set<Integer> verticesWithEdges = new HashSet<>();
+            while ((line = br.readLine()) != null && !line.startsWith("t")) {
+
+                String[] items = line.split(" ");
+
+                if (line.startsWith("v")) {
+                    // If it is a vertex, it is kept only if its label is frequent
+                    int vId = Integer.parseInt(items[1]);
+                    int vLabel = Integer.parseInt(items[2]);
+                    vertexLabels.put(vId, vLabel);
+                    if (vertexLabelSupports.get(vLabel) >= minSup) {
+                        vMap.put(vId, new Vertex(vId, vLabel));
+                    }
+                } else if (line.startsWith("e")) {
+                    // If it is an edge, it is kept only if it is frequent
+                    int v1 = Integer.parseInt(items[1]);
+                    int v2 = Integer.parseInt(items[2]);
+                    int eLabel = Integer.parseInt(items[3]);
+                    verticesWithEdges.add(v1);
+                    verticesWithEdges.add(v2);
+                    if (getEdgeSupport(vertexLabels.get(v1), vertexLabels.get(v2), eLabel) >= minSup) {
+                        Edge e = new Edge(v1, v2, eLabel);
+                        vMap.get(v1).addEdge(e);
+                        vMap.get(v2).addEdge(e);
+                    } else {
+                        removedEdgeCount++;
+                    }
+                }
+            }
+
+            // Record the graphs where each label appears on a vertex having some edges
+            for (Map.Entry<Integer, Integer> entry : vertexLabels.entrySet()) {
+                if (verticesWithEdges.contains(entry.getKey())) {
+                    Set<Integer> set = vertexLabelGraphIds.get(entry.getValue());
+                    if (set == null) {
+                        set = new HashSet<>();
+                        vertexLabelGraphIds.put(entry.getValue(), set);
+                    }
+                    set.add(gId);
+                    if (!vMap.containsKey(entry.getKey())) {
+                        removedVertexCount++;
+                    }
+                }
+            }
+
+            graphDatabase.add(new Graph(gId, vMap));
+            if (line != null) {
+                hasNextGraph = true;
+            }
+        }
+
+        br.close();
+        return graphDatabase;
+    }
+
+    /**
+     * Get the number of graphs in the file
+     *
+     * @return the number of graphs
+     */
+    public int getGraphCount() {
+        return graphCount;
+    }
+
+    /**
+     * Get the support of a vertex label (the number of graphs where it appears on a vertex having some edges)
+     *
+     * @param label the vertex label
+     * @return the support
+     */
+    public int getVertexLabelSupport(int label) {
+        return vertexLabelSupports.get(label);
+    }
+
+    /**
+     * Get the support of an edge (the number of graphs containing an edge having these labels)
+     *
+     * @param label1 the label of a vertex
+     * @param label2 the label of the other vertex
+     * @param eLabel the edge label
+     * @return the support
+     */
+    public int getEdgeSupport(int label1, int label2, int eLabel) {
+        long edgeKey = getEdgeKey(label1, label2, eLabel, false);
+        return edgeKey == -1 ? 0 : edgeSupports.get(edgeKey);
+    }
+
+    /**
+     * Get the graphs where each vertex label appears on a vertex having some edges, found by the last
+     * call to readGraphs()
+     *
+     * @return a map (key = vertex label, value = graph ids)
+     */
+    public Map<Integer, Set<Integer>> getVertexLabelGraphIds() {
+        return vertexLabelGraphIds;
+    }
+
+    /**
+     * Get the number of vertices having some edges that were not kept by the last call to readGraphs()
+     *
+     * @return the number of vertices
+     */
+    public int getRemovedVertexCount() {
+        return removedVertexCount;
+    }
+
+    /**
+     * Get the number of edges that were not kept by the last call to readGraphs()
+     *
+     * @return the number of edges
+     */
+    public int getRemovedEdgeCount() {
+        return removedEdgeCount;
+    }
+}
@@ -214,6 +214,7 @@ public class IsomorphicSubgraph {
         }
 
         int gid = pdfs.get(0).getEdgeEnumeration().getGid();
+        DatabaseGraph databaseGraph = projectedCompact.getGraphDatabase().get(gid);
 
         Map<Integer, Set<Integer>> labelIsomorphicVertices = new HashMap<Integer, Set<Integer>>();
         Set<Integer> isomorphicVertices = new HashSet<Integer>();
@@ -265,8 +266,7 @@ public class IsomorphicSubgraph {
                         int v2 = sortedVertices.get(t);
                         Edge edge = new Edge(v1, v2, edgeLabel);
                         Edge edgeDB = new Edge(edge.v1 < edge.v2 ? edge.v1 : edge.v2, edge.v1 < edge.v2 ? edge.v2 : edge.v1, edgeLabel);
-                        EdgeEnumeration edgeEnumeration = new EdgeEnumeration(gid, edgeDB);
-                        ProjectedEdge projectedEdge = ProjectedEdge.getIfExists(edgeEnumeration, edge.v1 != edgeDB.v1);
+                        ProjectedEdge projectedEdge = databaseGraph.getProjectedEdge(edgeDB, edge.v1 != edgeDB.v1);
 
                         if (projectedEdge != null && projectedCompact.getProjected().get(i).get(gid).get(v1).contains(projectedEdge)) {
                             if (!projectionsAt.get(gid).containsKey(v1)) {
@@ -296,8 +296,7 @@ public class IsomorphicSubgraph {
                             for (int v2 : labelIsomorphicVerticesSorted.get(vLabel2)) {
                                 Edge edge = new Edge(v1, v2, edgeLabel);
                                 Edge edgeDB = new Edge(edge.v1 < edge.v2 ? edge.v1 : edge.v2, edge.v1 < edge.v2 ? edge.v2 : edge.v1, edgeLabel);
-                                EdgeEnumeration edgeEnumeration = new EdgeEnumeration(gid, edgeDB);
-                                ProjectedEdge projectedEdge = ProjectedEdge.getIfExists(edgeEnumeration, edge.v1 != edgeDB.v1);
+                                ProjectedEdge projectedEdge = databaseGraph.getProjectedEdge(edgeDB, edge.v1 != edgeDB.v1);
 
                                 if (projectedEdge != null && projectedCompact.getProjected().get(i).get(gid).get(v1).contains(projectedEdge)) {
                                     if (!projectionsAt.get(gid).containsKey(v1)) {
@@ -317,8 +316,7 @@ public class IsomorphicSubgraph {
                                 }
                                 Edge edge = new Edge(v1, v2, edgeLabel);
                                 Edge edgeDB = new Edge(edge.v1 < edge.v2 ? edge.v1 : edge.v2, edge.v1 < edge.v2 ? edge.v2 : edge.v1, edgeLabel);
-                                EdgeEnumeration edgeEnumeration = new EdgeEnumeration(gid, edgeDB);
-                                ProjectedEdge projectedEdge = ProjectedEdge.getIfExists(edgeEnumeration, edge.v1 != edgeDB.v1);
+                                ProjectedEdge projectedEdge = databaseGraph.getProjectedEdge(edgeDB, edge.v1 != edgeDB.v1);
 
                                 if (projectedEdge != null && projectedCompact.getProjected().get(i).get(gid).get(v1).contains(projectedEdge)) {
                                     if (!projectionsAt.get(gid).containsKey(v1)) {
@@ -354,12 +352,11 @@ public class IsomorphicSubgraph {
                                 Edge edgeDB = new Edge(edge.v1 < edge.v2 ? edge.v1 : edge.v2, edge.v1 < edge.v2
                                                                                               ? edge.v2
                                                                                               : edge.v1, edge.getEdgeLabel());
-                                EdgeEnumeration edgeEnumeration = new EdgeEnumeration(gid, edgeDB);
                                 boolean reversed = edge.v1 != edgeDB.v1;
                                 if (outgoingProjectedEdge.isReversed()) {
                                     reversed = !reversed;
                                 }
-                                ProjectedEdge projectedEdge = ProjectedEdge.getIfExists(edgeEnumeration, reversed);
+                                ProjectedEdge projectedEdge = databaseGraph.getProjectedEdge(edgeDB, reversed);
 
                                 if (projectedEdge != null && projectedCompact.getProjected().get(i).get(gid).get(v1).contains(projectedEdge)) {
                                     if (!projectionsAt.get(gid).containsKey(v1)) {
@@ -375,12 +372,11 @@ public class IsomorphicSubgraph {
                                     Edge edgeDB = new Edge(edge.v1 < edge.v2 ? edge.v1 : edge.v2, edge.v1 < edge.v2
                                                                                                   ? edge.v2
                                                                                                   : edge.v1, edge.getEdgeLabel());
-                                    EdgeEnumeration edgeEnumeration = new EdgeEnumeration(gid, edgeDB);
                                     boolean reversed = edge.v1 != edgeDB.v1;
                                     if (outgoingProjectedEdge.isReversed()) {
                                         reversed = !reversed;
                                     }
-                                    ProjectedEdge projectedEdge = ProjectedEdge.getIfExists(edgeEnumeration, reversed);
+                                    ProjectedEdge projectedEdge = databaseGraph.getProjectedEdge(edgeDB, reversed);
 
                                     if (projectedEdge != null && projectedCompact.getProjected().get(i).get(gid).get(outgoingEdge.v1).contains(projectedEdge)) {
                                         if (!projectionsAt.get(gid).containsKey(outgoingEdge.v1)) {
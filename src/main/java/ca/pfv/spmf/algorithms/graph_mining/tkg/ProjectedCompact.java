@@ -202,49 +202,53 @@ public class ProjectedCompact {
     /**
      * Consumer side of consumers/producers projections iterator implementation
      *
+     * @param threadPool   threads of the current execution of the algorithm
      * @param queueSize    maximal number of projections to be produced by the producers at any point of time
      * @param numProducers number of producer threads
      * @return projections consumer
      */
-    public ProjectedIteratorConsumer iterator(int queueSize, int numProducers) {
-        return new ProjectedIteratorConsumer(this, queueSize, numProducers);
+    public ProjectedIteratorConsumer iterator(ThreadPool threadPool, int queueSize, int numProducers) {
+        return new ProjectedIteratorConsumer(this, threadPool, queueSize, numProducers);
     }
 
     /**
      * Consumer side of consumers/producers projections iterator implementation
      *
+     * @param threadPool   threads of the current execution of the algorithm
      * @param queueSize    maximal number of projections to be produced by the producers at any point of time
      * @param numProducers number of producer threads
      * @param callbacks    list of callbacks to be called by producer
      * @return projections consumer
      */
-    public ProjectedIteratorConsumer iterator(int queueSize, int numProducers, List<IProjectedIteratorCallback> callbacks) {
-        return new ProjectedIteratorConsumer(this, queueSize, numProducers, callbacks);
+    public ProjectedIteratorConsumer iterator(ThreadPool threadPool, int queueSize, int numProducers, List<IProjectedIteratorCallback> callbacks) {
+        return new ProjectedIteratorConsumer(this, threadPool, queueSize, numProducers, callbacks);
     }
 
     /**
      * Consumer side of consumers/producers projections iterator implementation
      *
+     * @param threadPool   threads of the current execution of the algorithm
      * @param queueSize    maximal number of projections to be produced by the producers at any point of time
      * @param numProducers number of producer threads
      * @param gid          database graph id, producers will produce projections from this graph only
      * @return projections consumer
      */
-    public ProjectedIteratorConsumer iterator(int queueSize, int numProducers, int gid) {
-        return new ProjectedIteratorConsumer(this, queueSize, numProducers, gid);
+    public ProjectedIteratorConsumer iterator(ThreadPool threadPool, int queueSize, int numProducers, int gid) {
+        return new ProjectedIteratorConsumer(this, threadPool, queueSize, numProducers, gid);
     }
 
     /**
      * Consumer side of consumers/producers projections iterator implementation
      *
+     * @param threadPool   threads of the current execution of the algorithm
      * @param queueSize    maximal number of projections to be produced by the producers at any point of time
      * @param numProducers number of producer threads
      * @param gid          database graph id, producers will produce projections from this graph only
      * @param callbacks    list of callbacks to be called by producer
      * @return projections consumer
      */
-    public ProjectedIteratorConsumer iterator(int queueSize, int numProducers, int gid, List<IProjectedIteratorCallback> callbacks) {
-        return new ProjectedIteratorConsumer(this, queueSize, numProducers, gid, callbacks);
+    public ProjectedIteratorConsumer iterator(ThreadPool threadPool, int queueSize, int numProducers, int gid, List<IProjectedIteratorCallback> callbacks) {
+        return new ProjectedIteratorConsumer(this, threadPool, queueSize, numProducers, gid, callbacks);
     }
 
     /**
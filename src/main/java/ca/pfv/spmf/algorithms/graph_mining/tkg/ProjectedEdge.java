@@ -1,9 +1,6 @@
 package ca.pfv.spmf.algorithms.graph_mining.tkg;
 
-import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 
 /* This file is copyright (c) 2022 by Shaul Zevin
  *
@@ -24,6 +21,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This is an implementation of a DFS code edge projection into a database graph, used by the CGSPAN algorithm.
+ * The two projected edges of each database graph edge (one for each direction) are created once by
+ * DatabaseGraph.buildEdgeEnumeration(), so that they can be compared by reference.
  * <br/><br/>
  * <p>
  * The cgspan algorithm is described in : <br/>
@@ -46,10 +45,6 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 
 public class ProjectedEdge {
-    /**
-     * projected edges cache
-     */
-    public static Map<EdgeEnumeration, ProjectedEdge[]> projectedEdges = new ConcurrentHashMap<EdgeEnumeration, ProjectedEdge[]>();
     private final int hash;
     /**
      * projection of the DFS code edge into database graph edge
@@ -66,64 +61,6 @@ public class ProjectedEdge {
         hash = Objects.hash(edgeEnumeration, isReversed);
     }
 
-    /**
-     * retrieves projected edge from cache
-     *
-     * @param edgeEnumeration database graph edge
-     * @param isReversed      projected edge direction
-     * @return projected edge
-     */
-    public static ProjectedEdge get(EdgeEnumeration edgeEnumeration, boolean isReversed) {
-        if (isReversed) {
-            return projectedEdges.get(edgeEnumeration)[0];
-        } else {
-            return projectedEdges.get(edgeEnumeration)[1];
-        }
-    }
-
-    /**
-     * retrieves projected edge from cache
-     *
-     * @param edgeEnumeration database graph edge
-     * @param isReversed      projected edge direction
-     * @return projected edge if found in cache, null otherwise
-     */
-    public static ProjectedEdge getIfExists(EdgeEnumeration edgeEnumeration, boolean isReversed) {
-        if (!projectedEdges.containsKey(edgeEnumeration)) {
-            return null;
-
-        }
-
-        if (isReversed) {
-            return projectedEdges.get(edgeEnumeration)[0];
-        } else {
-            return projectedEdges.get(edgeEnumeration)[1];
-        }
-    }
-
-    /**
-     * initializes projected edges cache with all edges from graphs database.
-     * For each database graph edge, two projected edges are created, one for each direction.
-     *
-     * @param graphDB
-     */
-    public static void init(List<DatabaseGraph> graphDB) {
-        projectedEdges = new ConcurrentHashMap<EdgeEnumeration, ProjectedEdge[]>();
-
-        for (DatabaseGraph databaseGraph : graphDB) {
-            Map<Edge, EdgeEnumeration> edgeEdgeEnumerationMap = databaseGraph.getEdgesEnumeration();
-            for (EdgeEnumeration edgeEnumeration : edgeEdgeEnumerationMap.values()) {
-                ProjectedEdge reversed = new ProjectedEdge(edgeEnumeration, true);
-                ProjectedEdge notReversed = new ProjectedEdge(edgeEnumeration, false);
-                ProjectedEdge[] arr = new ProjectedEdge[2];
-                arr[0] = reversed;
-                arr[1] = notReversed;
-                projectedEdges.put(edgeEnumeration, arr);
-            }
-        }
-    }
-
-
     public EdgeEnumeration getEdgeEnumeration() {
         return edgeEnumeration;
     }
@@ -59,6 +59,8 @@ public class ProjectedIteratorConsumer implements Iterator<PDFSCompact> {
     private final Stack<Vertex> vertices = new Stack<Vertex>();
     // projections queue from which projections are consumed
     private final BlockingQueue<PDFSCompact> pdfsQueue;
+    // threads of the current execution of the algorithm
+    private final ThreadPool threadPool;
     // number of producer threads
     private final int numProducers;
     // flag used by the consumer to signal producer threads to stop
@@ -72,8 +74,9 @@ public class ProjectedIteratorConsumer implements Iterator<PDFSCompact> {
     // list of callbacks to allow control on iterators output
     private List<IProjectedIteratorCallback> callbacks = new LinkedList<IProjectedIteratorCallback>();
 
-    public ProjectedIteratorConsumer(ProjectedCompact projected, int queueSize, int numProducers) {
+    public ProjectedIteratorConsumer(ProjectedCompact projected, ThreadPool threadPool, int queueSize, int numProducers) {
         this.projected = projected;
+        this.threadPool = threadPool;
         this.numProducers = numProducers;
         pdfsQueue = new LinkedBlockingDeque<PDFSCompact>(queueSize);
         firstEdges = new ArrayList<ProjectedEdge>();
@@ -87,8 +90,9 @@ public class ProjectedIteratorConsumer implements Iterator<PDFSCompact> {
         advance();
     }
 
-    public ProjectedIteratorConsumer(ProjectedCompact projected, int queueSize, int numProducers, int gid) {
+    public ProjectedIteratorConsumer(ProjectedCompact projected, ThreadPool threadPool, int queueSize, int numProducers, int gid) {
         this.projected = projected;
+        this.threadPool = threadPool;
         this.numProducers = numProducers;
         pdfsQueue = new LinkedBlockingDeque<PDFSCompact>(queueSize);
         firstEdges = new ArrayList<ProjectedEdge>();
@@ -107,8 +111,9 @@ public class ProjectedIteratorConsumer implements Iterator<PDFSCompact> {
         advance();
     }
 
-    public ProjectedIteratorConsumer(ProjectedCompact projected, int queueSize, int numProducers, List<IProjectedIteratorCallback> callbacks) {
+    public ProjectedIteratorConsumer(ProjectedCompact projected, ThreadPool threadPool, int queueSize, int numProducers, List<IProjectedIteratorCallback> callbacks) {
         this.projected = projected;
+        this.threadPool = threadPool;
         this.numProducers = numProducers;
         this.callbacks = callbacks;
         pdfsQueue = new LinkedBlockingDeque<PDFSCompact>(queueSize);
@@ -123,9 +128,10 @@ public class ProjectedIteratorConsumer implements Iterator<PDFSCompact> {
         advance();
     }
 
-    public ProjectedIteratorConsumer(ProjectedCompact projected, int queueSize, int numProducers, int gid,
+    public ProjectedIteratorConsumer(ProjectedCompact projected, ThreadPool threadPool, int queueSize, int numProducers, int gid,
                                      List<IProjectedIteratorCallback> callbacks) {
         this.projected = projected;
+        this.threadPool = threadPool;
         this.numProducers = numProducers;
         this.callbacks = callbacks;
         pdfsQueue = new LinkedBlockingDeque<PDFSCompact>(queueSize);
@@ -197,7 +203,7 @@ public class ProjectedIteratorConsumer implements Iterator<PDFSCompact> {
             int to = from + size + 1;
             if (to > from) {
                 List<ProjectedEdge> producerFirstEdges = firstEdges.subList(from, to);
-                ThreadPool.getProjectedIteratorProducersInstance().getExecutorService().submit(new ProjectedIteratorProducer(projected, pdfsQueue,
+                threadPool.getProjectedIteratorProducers().submit(new ProjectedIteratorProducer(projected, pdfsQueue,
                         control, producerFirstEdges, callbacks));
                 numRunningProducers++;
             }
@@ -209,7 +215,7 @@ public class ProjectedIteratorConsumer implements Iterator<PDFSCompact> {
             int to = from + size;
             if (to > from) {
                 List<ProjectedEdge> producerFirstEdges = firstEdges.subList(from, to);
-                ThreadPool.getProjectedIteratorProducersInstance().getExecutorService().submit(new ProjectedIteratorProducer(projected, pdfsQueue,
+                threadPool.getProjectedIteratorProducers().submit(new ProjectedIteratorProducer(projected, pdfsQueue,
                         control, producerFirstEdges, callbacks));
                 numRunningProducers++;
             }
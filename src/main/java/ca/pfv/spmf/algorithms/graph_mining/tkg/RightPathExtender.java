@@ -153,15 +153,16 @@ public class RightPathExtender implements Callable<Integer> {
         }
         int mappedRM = isom.get(rightMost);
         int mappedRMlabel = g.getVLabel(mappedRM);
-        for (Vertex x : g.getAllNeighbors(mappedRM)) {
-            Integer invertedX = invertedISOM.get(x.getId());
+        for (int p = g.getNeighborStart(mappedRM), neighborEnd = g.getNeighborEnd(mappedRM); p < neighborEnd; p++) {
+            int x = g.getNeighborId(p);
+            Integer invertedX = invertedISOM.get(x);
             if (invertedX != null && c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                 && !c.containEdge(rightMost, invertedX)) {
                 // rightmost and invertedX both have correspondings in g, so label of vertices
                 // and edge all
                 // can be found by correspondings
-                ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                        g.getEdgeLabel(mappedRM, x.getId()));
+                ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                        g.getNeighborEdgeLabel(p));
 
                 ProjectedCompact extensionProjected;
                 extensionProjected = extensionsLocal.get(ee);
@@ -176,10 +177,9 @@ public class RightPathExtender implements Callable<Integer> {
 
                 extensionPDFSCounterLocal.put(ee, extensionPDFSCounterLocal.get(ee) + 1);
 
-                Edge e = g.getEdge(mappedRM, x.getId());
-                EdgeEnumeration edgeEnumeration = g.getEdgeEnumeration(e);
+                Edge e = g.getEdge(mappedRM, x);
                 boolean isReversed = e.v1 != mappedRM;
-                ProjectedEdge projectedEdge = ProjectedEdge.get(edgeEnumeration, isReversed);
+                ProjectedEdge projectedEdge = g.getProjectedEdge(e, isReversed);
 
                 extensionProjected.addProjection(pdfs, projectedEdge);
 
@@ -202,17 +202,18 @@ public class RightPathExtender implements Callable<Integer> {
             }
             int mappedRM = isom.get(rightMost);
             int mappedRMlabel = g.getVLabel(mappedRM);
-            for (Vertex x : g.getAllNeighbors(mappedRM)) {
+            for (int p = g.getNeighborStart(mappedRM), neighborEnd = g.getNeighborEnd(mappedRM); p < neighborEnd; p++) {
+                int x = g.getNeighborId(p);
                 // 'to' vertex of the backward edge does not belong to isomorphic graph
-                if (!projections.getVertexRightMostPathIndexProjections().containsKey(x.getId())) {
-                    Integer invertedX = invertedISOM.get(x.getId());
+                if (!projections.getVertexRightMostPathIndexProjections().containsKey(x)) {
+                    Integer invertedX = invertedISOM.get(x);
                     if (invertedX != null && c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                         && !c.containEdge(rightMost, invertedX)) {
                         // rightmost and invertedX both have correspondings in g, so label of vertices
                         // and edge all
                         // can be found by correspondings
-                        ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                g.getEdgeLabel(mappedRM, x.getId()));
+                        ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                g.getNeighborEdgeLabel(p));
 
                         ProjectedCompact extensionProjected;
                         extensionProjected = extensionsLocal.get(ee);
@@ -227,22 +228,21 @@ public class RightPathExtender implements Callable<Integer> {
 
                         extensionPDFSCounterLocal.put(ee, extensionPDFSCounterLocal.get(ee) + projections.getNumProjections());
 
-                        Edge e = g.getEdge(mappedRM, x.getId());
-                        EdgeEnumeration edgeEnumeration = g.getEdgeEnumeration(e);
+                        Edge e = g.getEdge(mappedRM, x);
                         boolean isReversed = e.v1 != mappedRM;
-                        ProjectedEdge projectedEdge = ProjectedEdge.get(edgeEnumeration, isReversed);
+                        ProjectedEdge projectedEdge = g.getProjectedEdge(e, isReversed);
                         extensionProjected.addProjection(projections.getProjections(), projections.getNumProjections(), projectedEdge);
                     }
                 } else {
                     // 'to' vertex of the backward edge belongs to isomorphic graph on the projection
-                    for (int invertedX : projections.getVertexRightMostPathIndexProjections().get(x.getId()).keySet()) {
+                    for (int invertedX : projections.getVertexRightMostPathIndexProjections().get(x).keySet()) {
                         if (c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                             && !c.containEdge(rightMost, invertedX)) {
                             // rightmost and invertedX both have correspondings in g, so label of vertices
                             // and edge all
                             // can be found by correspondings
-                            ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                    g.getEdgeLabel(mappedRM, x.getId()));
+                            ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                    g.getNeighborEdgeLabel(p));
 
                             ProjectedCompact extensionProjected;
                             extensionProjected = extensionsLocal.get(ee);
@@ -256,14 +256,13 @@ public class RightPathExtender implements Callable<Integer> {
                             }
 
                             extensionPDFSCounterLocal.put(ee,
-                                    extensionPDFSCounterLocal.get(ee) + projections.getVertexRightMostPathIndexProjectionsCount().get(x.getId()).get(invertedX));
+                                    extensionPDFSCounterLocal.get(ee) + projections.getVertexRightMostPathIndexProjectionsCount().get(x).get(invertedX));
 
-                            Edge e = g.getEdge(mappedRM, x.getId());
-                            EdgeEnumeration edgeEnumeration = g.getEdgeEnumeration(e);
+                            Edge e = g.getEdge(mappedRM, x);
                             boolean isReversed = e.v1 != mappedRM;
-                            ProjectedEdge projectedEdge = ProjectedEdge.get(edgeEnumeration, isReversed);
-                            extensionProjected.addProjection(projections.getVertexRightMostPathIndexProjections().get(x.getId()).get(invertedX),
-                                    projections.getVertexRightMostPathIndexProjectionsCount().get(x.getId()).get(invertedX), projectedEdge);
+                            ProjectedEdge projectedEdge = g.getProjectedEdge(e, isReversed);
+                            extensionProjected.addProjection(projections.getVertexRightMostPathIndexProjections().get(x).get(invertedX),
+                                    projections.getVertexRightMostPathIndexProjectionsCount().get(x).get(invertedX), projectedEdge);
                         }
                     }
                 }
@@ -272,21 +271,22 @@ public class RightPathExtender implements Callable<Integer> {
             // rightmost vertex belongs to isomorphic subgraph on the projection
             for (int mappedRM : projections.getRightMostVertexVertexRightMostPathIndexProjections().keySet()) {
                 int mappedRMlabel = g.getVLabel(mappedRM);
-                for (Vertex x : g.getAllNeighbors(mappedRM)) {
+                for (int p = g.getNeighborStart(mappedRM), neighborEnd = g.getNeighborEnd(mappedRM); p < neighborEnd; p++) {
+                    int x = g.getNeighborId(p);
                     // 'to' vertex of the backward edge does not belong to isomorphic subgraph on the projection
-                    if (!projections.getRightMostVertexVertexRightMostPathIndexProjections().get(mappedRM).containsKey(x.getId())) {
+                    if (!projections.getRightMostVertexVertexRightMostPathIndexProjections().get(mappedRM).containsKey(x)) {
                         // if x belongs to isomorphism, then skip
-                        if (projections.getVertexRightMostPathIndexProjections().containsKey(x.getId())) {
+                        if (projections.getVertexRightMostPathIndexProjections().containsKey(x)) {
                             continue;
                         }
-                        Integer invertedX = invertedISOM.get(x.getId());
+                        Integer invertedX = invertedISOM.get(x);
                         if (invertedX != null && c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                             && !c.containEdge(rightMost, invertedX)) {
                             // rightmost and invertedX both have correspondings in g, so label of vertices
                             // and edge all
                             // can be found by correspondings
-                            ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                    g.getEdgeLabel(mappedRM, x.getId()));
+                            ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                    g.getNeighborEdgeLabel(p));
 
                             ProjectedCompact extensionProjected;
                             extensionProjected = extensionsLocal.get(ee);
@@ -303,24 +303,23 @@ public class RightPathExtender implements Callable<Integer> {
                             extensionPDFSCounterLocal.put(ee,
                                     extensionPDFSCounterLocal.get(ee) + projections.getVertexRightMostPathIndexProjectionsCount().get(mappedRM).get(rightMost));
 
-                            Edge e = g.getEdge(mappedRM, x.getId());
-                            EdgeEnumeration edgeEnumeration = g.getEdgeEnumeration(e);
+                            Edge e = g.getEdge(mappedRM, x);
                             boolean isReversed = e.v1 != mappedRM;
-                            ProjectedEdge projectedEdge = ProjectedEdge.get(edgeEnumeration, isReversed);
+                            ProjectedEdge projectedEdge = g.getProjectedEdge(e, isReversed);
                             extensionProjected.addProjection(projections.getVertexRightMostPathIndexProjections().get(mappedRM).get(rightMost),
                                     projections.getVertexRightMostPathIndexProjectionsCount().get(mappedRM).get(rightMost), projectedEdge);
                         }
                     } else {
                         // 'to' vertex of the backward edge belongs to isomorphic subgraph on the projection
                         for (int invertedX :
-                                projections.getRightMostVertexVertexRightMostPathIndexProjections().get(mappedRM).get(x.getId()).keySet()) {
+                                projections.getRightMostVertexVertexRightMostPathIndexProjections().get(mappedRM).get(x).keySet()) {
                             if (c.onRightMostPath(invertedX) && c.notPreOfRM(invertedX)
                                 && !c.containEdge(rightMost, invertedX)) {
                                 // rightmost and invertedX both have correspondings in g, so label of vertices
                                 // and edge all
                                 // can be found by correspondings
-                                ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, x.getLabel(),
-                                        g.getEdgeLabel(mappedRM, x.getId()));
+                                ExtendedEdge ee = new ExtendedEdge(rightMost, invertedX, mappedRMlabel, g.getNeighborLabel(p),
+                                        g.getNeighborEdgeLabel(p));
 
                                 ProjectedCompact extensionProjected;
                                 extensionProjected = extensionsLocal.get(ee);
@@ -335,13 +334,12 @@ public class RightPathExtender implements Callable<Integer> {
 
 
                                 extensionPDFSCounterLocal.put(ee,
-                                        extensionPDFSCounterLocal.get(ee) + projections.getRightMostVertexVertexRightMostPathIndexProjectionsCount().get(mappedRM).get(x.getId()).get(invertedX));
+                                        extensionPDFSCounterLocal.get(ee) + projections.getRightMostVertexVertexRightMostPathIndexProjectionsCount().get(mappedRM).get(x).get(invertedX));
 
-                                Edge e = g.getEdge(mappedRM, x.getId());
-                                EdgeEnumeration edgeEnumeration = g.getEdgeEnumeration(e);
+                                Edge e = g.getEdge(mappedRM, x);
                                 boolean isReversed = e.v1 != mappedRM;
-                                ProjectedEdge projectedEdge = ProjectedEdge.get(edgeEnumeration, isReversed);
-                                extensionProjected.addProjection(projections.getRightMostVertexVertexRightMostPathIndexProjections().get(mappedRM).get(x.getId()).get(invertedX), projections.getRightMostVertexVertexRightMostPathIndexProjectionsCount().get(mappedRM).get(x.getId()).get(invertedX), projectedEdge);
+                                ProjectedEdge projectedEdge = g.getProjectedEdge(e, isReversed);
+                                extensionProjected.addProjection(projections.getRightMostVertexVertexRightMostPathIndexProjections().get(mappedRM).get(x).get(invertedX), projections.getRightMostVertexVertexRightMostPathIndexProjectionsCount().get(mappedRM).get(x).get(invertedX), projectedEdge);
                             }
                         }
                     }
@@ -355,7 +353,7 @@ public class RightPathExtender implements Callable<Integer> {
             throws IOException, ClassNotFoundException {
 
         Collection<Integer> mappedVertices = isom.values();
-        for (int v : c.getRightMostPath()) {
+        for (int v : c.getRightMostPathVertices()) {
             Set<ExtendedEdge> countedExtensions = new HashSet<ExtendedEdge>();
 
             int mappedV = isom.get(v);
@@ -390,9 +388,8 @@ public class RightPathExtender implements Callable<Integer> {
             extensionPDFSCounterLocal.put(ee, 0);
         }
 
-        EdgeEnumeration edgeEnumeration = g.getEdgeEnumeration(e);
         boolean isReversed = e.v1 != mappedV;
-        ProjectedEdge projectedEdge = ProjectedEdge.get(edgeEnumeration, isReversed);
+        ProjectedEdge projectedEdge = g.getProjectedEdge(e, isReversed);
         if (!countedExtensions.contains(ee)) {
             extensionProjected.addProjection(pdfs, projectedEdge);
             extensionPDFSCounterLocal.put(ee, extensionPDFSCounterLocal.get(ee) + 1);
@@ -411,7 +408,7 @@ public class RightPathExtender implements Callable<Integer> {
         Collection<Integer> mappedVertices = isom.values();
 
         // rightmost vertex does not belong to isomorphic subgraph on the projection
-        for (int v : c.getRightMostPath()) {
+        for (int v : c.getRightMostPathVertices()) {
             Set<ExtendedEdge> countedExtensions = new HashSet<ExtendedEdge>();
 
             int mappedV = isom.get(v);
@@ -471,9 +468,8 @@ public class RightPathExtender implements Callable<Integer> {
             extensionPDFSCounterLocal.put(ee, 0);
         }
 
-        EdgeEnumeration edgeEnumeration = g.getEdgeEnumeration(e);
         boolean isReversed = e.v1 != mappedV;
-        ProjectedEdge projectedEdge = ProjectedEdge.get(edgeEnumeration, isReversed);
+        ProjectedEdge projectedEdge = g.getProjectedEdge(e, isReversed);
         if (!countedExtensions.contains(ee)) {
             extensionProjected.addProjection(projections, numProjections, projectedEdge);
             extensionPDFSCounterLocal.put(ee, extensionPDFSCounterLocal.get(ee) + numProjections);
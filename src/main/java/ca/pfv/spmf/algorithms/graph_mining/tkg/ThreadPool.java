@@ -21,96 +21,114 @@ import java.util.concurrent.Executors;
  */
 
 /**
- * This is implementation CGspan thread pools.
+ * The threads used by one execution of a graph mining algorithm of this package
+ * (GSPAN, TKG and CGSPAN).
  * <br/><br/>
  * <p>
+ * An algorithm creates its pool when it starts and shuts it down when it ends, and passes it to
+ * the objects that need threads, so that two algorithms can run at the same time in the same JVM.
+ * The pool has three groups of threads, each one created when it is first used:
+ * <ul>
+ * <li>the rightmost path extender threads of CGSPAN,</li>
+ * <li>the producer threads of the projections iterators of CGSPAN,</li>
+ * <li>the threads exploring the search space of GSPAN and TKG.</li>
+ * </ul>
+ * Each group has the same number of threads, which is by default the number of processors.
+ * The producers have their own threads because the consumer of their projections may be a
+ * rightmost path extender thread.
+ * <p>
  * The cgspan algorithm is described in : <br/>
  * <br/>
  * <p>
  * cgSpan: Closed Graph-Based Substructure Pattern Mining, by Zevin Shaul, Sheikh Naaz
  * IEEE BigData 2021 7th Special Session on Intelligent Data Mining
- * <p>
- * <p>
- * <br/>
- * <p>
- * The CGspan algorithm finds all the closed subgraphs and their support in a
- * graph provided by the user.
- * <br/><br/>
- * <p>
- * This implementation saves the result to a file
  *
  * @author Shaul Zevin
  */
 public final class ThreadPool {
 
-    // number rightmost path extender threads
-    public static int RIGHT_MOST_EXTENDER_THREAD_COUNT = 4;
-    // number of extensions producer threads
-    public static int PROJECTED_ITERATOR_PRODUCERS_THREAD_COUNT = 4;
-    // rightmost path extender threads pool singleton
-    private static ThreadPool RIGHT_MOST_EXTENDER_INSTANCE;
-    // projections producer threads pool singleton
-    private static ThreadPool PROJECTED_ITERATOR_PRODUCERS_INSTANCE;
-    private ExecutorService executorService;
-    private int threadCount;
+    // number of threads of each group
+    private final int threadCount;
+    // rightmost path extender threads
+    private ExecutorService rightMostExtenders;
+    // projections producer threads
+    private ExecutorService projectedIteratorProducers;
+    // search space exploration threads
+    private ExecutorService searchWorkers;
 
-    private ThreadPool(int threadCount) {
-        this.threadCount = threadCount;
-        executorService = Executors.newFixedThreadPool(threadCount);
+    /**
+     * Constructor of a pool with one thread per processor in each group
+     */
+    public ThreadPool() {
+        this(Runtime.getRuntime().availableProcessors());
     }
 
     /**
-     * @return rightmost path extender threads pool singleton
+     * Constructor
+     *
+     * @param threadCount the number of threads of each group (at least 1)
      */
-    public static synchronized ThreadPool getRightMostExtenderInstance() {
-        if (RIGHT_MOST_EXTENDER_INSTANCE == null) {
-            RIGHT_MOST_EXTENDER_INSTANCE = new ThreadPool(RIGHT_MOST_EXTENDER_THREAD_COUNT);
+    public ThreadPool(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
         }
-
-        return RIGHT_MOST_EXTENDER_INSTANCE;
+        this.threadCount = threadCount;
     }
 
     /**
-     * @return projections producer threads pool singleton
+     * @return rightmost path extender threads
      */
-    public static synchronized ThreadPool getProjectedIteratorProducersInstance() {
-        if (PROJECTED_ITERATOR_PRODUCERS_INSTANCE == null) {
-            PROJECTED_ITERATOR_PRODUCERS_INSTANCE = new ThreadPool(PROJECTED_ITERATOR_PRODUCERS_THREAD_COUNT);
+    public synchronized ExecutorService getRightMostExtenders() {
+        if (rightMostExtenders == null) {
+            rightMostExtenders = Executors.newFixedThreadPool(threadCount);
         }
-
-        return PROJECTED_ITERATOR_PRODUCERS_INSTANCE;
+        return rightMostExtenders;
     }
 
-    // getters and setters
-
     /**
-     * thread pools shutdown
+     * @return projections producer threads
      */
-    public static synchronized void shutdown() {
-        if (RIGHT_MOST_EXTENDER_INSTANCE != null) {
-            RIGHT_MOST_EXTENDER_INSTANCE.getExecutorService().shutdown();
-            RIGHT_MOST_EXTENDER_INSTANCE = null;
-        }
-
-        if (PROJECTED_ITERATOR_PRODUCERS_INSTANCE != null) {
-            PROJECTED_ITERATOR_PRODUCERS_INSTANCE.getExecutorService().shutdown();
-            PROJECTED_ITERATOR_PRODUCERS_INSTANCE = null;
+    public synchronized ExecutorService getProjectedIteratorProducers() {
+        if (projectedIteratorProducers == null) {
+            projectedIteratorProducers = Executors.newFixedThreadPool(threadCount);
         }
+        return projectedIteratorProducers;
     }
 
-    public ExecutorService getExecutorService() {
-        return executorService;
-    }
-
-    public void setExecutorService(ExecutorService executorService) {
-        this.executorService = executorService;
+    /**
+     * @return search space exploration threads
+     */
+    public synchronized ExecutorService getSearchWorkers() {
+        if (searchWorkers == null) {
+            searchWorkers = Executors.newFixedThreadPool(threadCount);
+        }
+        return searchWorkers;
     }
 
+    /**
+     * @return number of threads of each group
+     */
     public int getThreadCount() {
         return threadCount;
     }
 
-    public void setThreadCount(int threadCount) {
-        this.threadCount = threadCount;
+    /**
+     * thread pools shutdown
+     */
+    public synchronized void shutdown() {
+        if (rightMostExtenders != null) {
+            rightMostExtenders.shutdown();
+            rightMostExtenders = null;
+        }
+
+        if (projectedIteratorProducers != null) {
+            projectedIteratorProducers.shutdown();
+            projectedIteratorProducers = null;
+        }
+
+        if (searchWorkers != null) {
+            searchWorkers.shutdown();
+            searchWorkers = null;
+        }
     }
 }
@@ -1,5 +1,11 @@
 package ca.pfv.spmf.algorithms.sequenceprediction.ipredict.predictor.CPT.CPTPlus;
 
+import ca.pfv.spmf.datastructures.bitmaps.LongBitSet;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.BitSet;
 /*
@@ -16,23 +22,37 @@ import java.util.BitSet;
 
 /**
  * PHIL08
- * This class encapsulate the BitSet class and make sure
+ * This class encapsulate a bitset and make sure
  * that when we call cardinality, it is not calculated more than once.
+ * The bitset is a LongBitSet, so that the AND operation and the
+ * cardinality are calculated on several words at a time when possible.
  * <p>
  * There are two cases:
  * - When we do a AND operation, the cardinality is recalculated.
  * - When we set a it  during the "preload" phase, we do cardinality ++;.
+ * <p>
+ * The serialized form is the one of the previous versions, where the bitset was a BitSet,
+ * so that the models saved by previous versions can still be loaded (and the reverse).
  */
 public class Bitvector implements Serializable {
 
-    BitSet bitset = new BitSet(); // the bitset
+    // the serialVersionUID computed by Java for the previous versions
+    private static final long serialVersionUID = 1429709102045812754L;
+
+    // the serialized fields: the bitset is serialized as a BitSet
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("bitset", BitSet.class),
+            new ObjectStreamField("cardinality", int.class)
+    };
+
+    transient LongBitSet bitset; // the bitset
     int cardinality;  // the cardinality
 
     /**
      * Public constructor
      */
     public Bitvector() {
-        bitset = new BitSet();
+        bitset = new LongBitSet();
         cardinality = 0;
     }
 
@@ -42,7 +62,7 @@ public class Bitvector implements Serializable {
      * @param bitset      a bitset to be cloned
      * @param cardinality the cardinality of the bitset
      */
-    private Bitvector(BitSet bitset, int cardinality) {
+    private Bitvector(LongBitSet bitset, int cardinality) {
         this.bitset = bitset;
         this.cardinality = cardinality;
     }
@@ -64,7 +84,7 @@ public class Bitvector implements Serializable {
      */
     public Object clone() {
         try {
-            return new Bitvector((BitSet) bitset.clone(), cardinality);
+            return new Bitvector(bitset.clone(), cardinality);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -95,6 +115,20 @@ public class Bitvector implements Serializable {
         }
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("bitset", bitset.toBitSet());
+        fields.put("cardinality", cardinality);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        BitSet oldBitset = (BitSet) fields.get("bitset", null);
+        bitset = oldBitset == null ? new LongBitSet() : LongBitSet.valueOf(oldBitset);
+        cardinality = fields.get("cardinality", 0);
+    }
+
     // FOR DEBUGGING
     public String toString() {
         return bitset.toString() + " cardinality : " + cardinality;
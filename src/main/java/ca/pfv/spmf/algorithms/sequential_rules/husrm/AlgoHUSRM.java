@@ -23,6 +23,12 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This is the implementation of the HUSRM algorithm that we have submited at MLDM 2015.
@@ -112,6 +118,10 @@ public class AlgoHUSRM {
      * /* contain
      */
     private int maxSizeConsequent;
+    /**
+     * the number of threads used for exploring the rules of size 2
+     */
+    private int threadCount = 1;
 
 
     /**
@@ -120,6 +130,20 @@ public class AlgoHUSRM {
     public AlgoHUSRM() {
     }
 
+    /**
+     * Set the number of threads used for mining. If more than one thread is used, the rules
+     * of size 2 are explored in parallel, by antecedent. The same rules are found as with a
+     * single thread, but they are written in the order in which the threads find them.
+     *
+     * @param threadCount the number of threads (1 by default)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
     /**
      * The main method to run the algorithm
      *
@@ -579,277 +603,365 @@ public class AlgoHUSRM {
         }
 
         // For each rule X --> Y
-        for (Entry<Integer, Map<Integer, EstimatedUtilityAndSequences>> entryX : mapItemItemEstimatedUtility.entrySet()) {
-            // Get the item X
-            Integer itemX = entryX.getKey();
-
-            // Get the list of sequence ids containing the item X
-            ListSequenceIDs sequenceIDsX = mapItemSequences.get(itemX);
-            // Get the support of item X
-            double supportX = sequenceIDsX.getSize();
-
-            // For each Y
-            for (Entry<Integer, EstimatedUtilityAndSequences> entryYUtility : entryX.getValue().entrySet()) {
-                Integer itemY = entryYUtility.getKey();
-
-                // Get the estimated utility and list of sequences ids for the rule X -> Y
-                EstimatedUtilityAndSequences structure = entryYUtility.getValue();
-                List<Integer> sequencesIDsXY = structure.sequenceIds;
-
-                // Get the support of the rule X ->Y
-                double supportXY = sequencesIDsXY.size();
-
-                // We create the utility table of rule X -é> Y
-                UtilityTable table = new UtilityTable();
-
-                // We will scan each sequence to fill the utility table
-                // and update the other variable to calculate the confidence of the rule.
-
-                // for each sequence containing X -> Y
-                for (Integer numeroSequence : sequencesIDsXY) {
-                    // Get the sequence
-                    SequenceWithUtility sequence = database.getSequences().get(numeroSequence);
-
-                    // Create a new element in the table
-                    ElementOfTable element = new ElementOfTable(numeroSequence);
-
-                    // we reset position alpha and beta
-                    int positionAlphaItem = -1;
-                    int positionBetaItem = -1;
-
-                    // (1) We will scan the sequence from left to right to find X
-                    // and stop at the first position ALPHA where X has been seen completely.
-                    // At the same time, we will add the utility of items in X.
-
-                    // For each itemset I
-                    loop1:
-                    for (int i = 0; i < sequence.getItemsets().size(); i++) {
-                        // get the itemset I
-                        List<Integer> itemset = sequence.getItemsets().get(i);
-
-                        // For each item J
-                        for (int j = 0; j < itemset.size(); j++) {
-                            Integer itemIJ = itemset.get(j);
-
-                            // if we found the item X
-                            if (itemX.equals(itemIJ)) {
-                                // we get its utility
-                                double utilityXPositionIJ = sequence.getUtilities().get(i).get(j);
-                                // we add it to the exact utility in the current utility table element
-                                element.utility += utilityXPositionIJ;
-
-                                // Stop and remember that position
-                                element.positionAlphaItemset = i;
-                                // remember the position ALPHA (which in this case means where the item in
-                                // the right side
-                                // of a rule was found)
-                                positionAlphaItem = j;
-
-                                // since we found j, we don't need to continue this loop since we assume
-                                // that an item do not occur more than once per sequence
-                                break loop1;
-                            } else if (itemIJ > itemX) {
-                                // If the item is greater than the item X,
-                                // we add the profit of this item to the "lutil" value of its element.
-                                double profitXPositionIJ = sequence.getUtilities().get(i).get(j);
-                                element.utilityLeft += profitXPositionIJ;
-                            }
-                        }
-                    }
+        if (threadCount > 1) {
+            exploreInParallel(mapItemItemEstimatedUtility);
+        } else {
+            for (Entry<Integer, Map<Integer, EstimatedUtilityAndSequences>> entryX : mapItemItemEstimatedUtility.entrySet()) {
+                exploreItem(entryX.getKey(), entryX.getValue());
+            }
+        }
 
-                    // If X does not appear, we don't do the following steps
-                    if (element.positionAlphaItemset == -1) {
-                        continue;
-                    }
 
-                    // (2) Now we will scan the sequence from right to left to find
-                    //  Y and stop if we find it. That position where we find it will be called beta.
-                    // At the same time as we scan the sequence, we will add the utility of items in Y
-
-                    // for each itemset starting from the last one until itemset alpha+1
-                    loop2:
-                    for (int i = sequence.getItemsets().size() - 1;
-                         i > element.positionAlphaItemset; i--) {
-                        // get the current itemset
-                        List<Integer> itemset = sequence.getItemsets().get(i);
-
-                        // for each item J in that itemset
-                        for (int j = itemset.size() - 1; j >= 0; j--) {
-                            // get the item J
-                            Integer itemIJ = itemset.get(j);
-
-                            // if that item is Y
-                            if (itemY.equals(itemIJ)) {
-                                // we add Y's profit to the exact utility of the current element
-                                double profitYPositionIJ = sequence.getUtilities().get(i).get(j);
-                                element.utility += profitYPositionIJ;
-
-                                // we stop and remember that we stopped at the i-th itemset
-                                // we will call this position "beta".
-                                element.positionBetaItemset = i;
-                                positionBetaItem = j;
-
-                                break loop2;
-                            } else if (itemIJ > itemY) {
-                                // If the item is greater than the item Y,
-                                // we add the profit of this item to the "rutil" value of its element.
-                                double profitXPositionIJ = sequence.getUtilities().get(i).get(j);
-                                element.utilityRight += profitXPositionIJ;
-                            }
+        //We will check the current memory usage
+        MemoryLogger.getInstance().checkMemory();
+
+        // save end time
+        timeEnd = System.currentTimeMillis();
+
+        // close the file
+        writer.close();
+
+        // after the algorithm ends, we don't need a reference to the database
+        // anymore.
+        database = null;
+    }
+
+    /**
+     * Explore the rules X --> Y of size 2 having a given item X as antecedent, and the
+     * larger rules obtained by expanding them.
+     *
+     * @param itemX    the item X
+     * @param mapItemY a map where the KEY is an item Y and the VALUE is the estimated utility
+     *                 and list of sequences of the rule X --> Y
+     * @throws IOException if an error occurs when writing to file
+     */
+    private void exploreItem(Integer itemX, Map<Integer, EstimatedUtilityAndSequences> mapItemY) throws IOException {
+        // Get the list of sequence ids containing the item X
+        ListSequenceIDs sequenceIDsX = mapItemSequences.get(itemX);
+        // Get the support of item X
+        double supportX = sequenceIDsX.getSize();
+
+        // For each Y
+        for (Entry<Integer, EstimatedUtilityAndSequences> entryYUtility : mapItemY.entrySet()) {
+            Integer itemY = entryYUtility.getKey();
+
+            // Get the estimated utility and list of sequences ids for the rule X -> Y
+            EstimatedUtilityAndSequences structure = entryYUtility.getValue();
+            List<Integer> sequencesIDsXY = structure.sequenceIds;
+
+            // Get the support of the rule X ->Y
+            double supportXY = sequencesIDsXY.size();
+
+            // We create the utility table of rule X -é> Y
+            UtilityTable table = new UtilityTable();
+
+            // We will scan each sequence to fill the utility table
+            // and update the other variable to calculate the confidence of the rule.
+
+            // for each sequence containing X -> Y
+            for (Integer numeroSequence : sequencesIDsXY) {
+                // Get the sequence
+                SequenceWithUtility sequence = database.getSequences().get(numeroSequence);
+
+                // Create a new element in the table
+                ElementOfTable element = new ElementOfTable(numeroSequence);
+
+                // we reset position alpha and beta
+                int positionAlphaItem = -1;
+                int positionBetaItem = -1;
+
+                // (1) We will scan the sequence from left to right to find X
+                // and stop at the first position ALPHA where X has been seen completely.
+                // At the same time, we will add the utility of items in X.
+
+                // For each itemset I
+                loop1:
+                for (int i = 0; i < sequence.getItemsets().size(); i++) {
+                    // get the itemset I
+                    List<Integer> itemset = sequence.getItemsets().get(i);
+
+                    // For each item J
+                    for (int j = 0; j < itemset.size(); j++) {
+                        Integer itemIJ = itemset.get(j);
+
+                        // if we found the item X
+                        if (itemX.equals(itemIJ)) {
+                            // we get its utility
+                            double utilityXPositionIJ = sequence.getUtilities().get(i).get(j);
+                            // we add it to the exact utility in the current utility table element
+                            element.utility += utilityXPositionIJ;
+
+                            // Stop and remember that position
+                            element.positionAlphaItemset = i;
+                            // remember the position ALPHA (which in this case means where the item in
+                            // the right side
+                            // of a rule was found)
+                            positionAlphaItem = j;
+
+                            // since we found j, we don't need to continue this loop since we assume
+                            // that an item do not occur more than once per sequence
+                            break loop1;
+                        } else if (itemIJ > itemX) {
+                            // If the item is greater than the item X,
+                            // we add the profit of this item to the "lutil" value of its element.
+                            double profitXPositionIJ = sequence.getUtilities().get(i).get(j);
+                            element.utilityLeft += profitXPositionIJ;
                         }
                     }
-                    /// If Y does not appear, we don't do the following steps
-                    if (element.positionBetaItemset == -1) {
-                        continue;
-                    }
+                }
 
-                    // (3) THIRD STEP:  WE WILL SCAN THE SEQUENCE BETWEEN THE ALPHA
-                    // AND BETA POSITIONS WHERE WE HAVE STOPPED TO CALCUlATE THE "LRUTIL" VALUE
-                    // FOR X ->Y in that SEQUENCE
+                // If X does not appear, we don't do the following steps
+                if (element.positionAlphaItemset == -1) {
+                    continue;
+                }
 
-                    // (A) WE SCAN THE ALPHA ITEMSET
-                    List<Integer> itemsetAlpha = sequence.getItemsets().get(element.positionAlphaItemset);
-                    // FOR EACH ITEM J IN THE ALPHA ITEMSET
-                    for (int j = positionAlphaItem + 1; j < itemsetAlpha.size(); j++) {
+                // (2) Now we will scan the sequence from right to left to find
+                //  Y and stop if we find it. That position where we find it will be called beta.
+                // At the same time as we scan the sequence, we will add the utility of items in Y
 
-                        // we add the utility of the item to the "LUTIL" value of the current element.
-                        double profitPositionIJ = sequence.getUtilities().get(element.positionAlphaItemset).get(j);
-                        element.utilityLeft += profitPositionIJ;
-                    }
+                // for each itemset starting from the last one until itemset alpha+1
+                loop2:
+                for (int i = sequence.getItemsets().size() - 1;
+                     i > element.positionAlphaItemset; i--) {
+                    // get the current itemset
+                    List<Integer> itemset = sequence.getItemsets().get(i);
 
+                    // for each item J in that itemset
+                    for (int j = itemset.size() - 1; j >= 0; j--) {
+                        // get the item J
+                        Integer itemIJ = itemset.get(j);
 
-                    // (B) Scan the other itemsets after the alpha itemset but before the beta itemset
-                    for (int i = element.positionAlphaItemset + 1; i < element.positionBetaItemset; i++) {
-                        // get the itemset
-                        List<Integer> itemset = sequence.getItemsets().get(i);
-
-                        // For each item J
-                        for (int j = 0; j < itemset.size(); j++) {
-                            Integer itemIJ = itemset.get(j);
-
-                            // if the item is greater than X and Y
-                            if (itemIJ > itemX && itemIJ > itemY) {
-                                // it means that this item could be used to extend the left or right side
-                                // of the rule
-                                // We add its utility to "LRUTIL"
-                                double utilityPositionIJ = sequence.getUtilities().get(i).get(j);
-                                element.utilityLeftRight += utilityPositionIJ;
-                            } else if (itemIJ > itemX) {
-                                // if the item is only greater than X
-                                // We add its utility to "RUTIL"
-                                double utilityPositionIJ = sequence.getUtilities().get(i).get(j);
-                                element.utilityLeft += utilityPositionIJ;
-                            } else if (itemIJ > itemY) {
-                                // if the item is only greater than Y
-                                // We add its utility to "RUTIL"
-                                double utilityPositionIJ = sequence.getUtilities().get(i).get(j);
-                                element.utilityRight += utilityPositionIJ;
-                            }
+                        // if that item is Y
+                        if (itemY.equals(itemIJ)) {
+                            // we add Y's profit to the exact utility of the current element
+                            double profitYPositionIJ = sequence.getUtilities().get(i).get(j);
+                            element.utility += profitYPositionIJ;
+
+                            // we stop and remember that we stopped at the i-th itemset
+                            // we will call this position "beta".
+                            element.positionBetaItemset = i;
+                            positionBetaItem = j;
+
+                            break loop2;
+                        } else if (itemIJ > itemY) {
+                            // If the item is greater than the item Y,
+                            // we add the profit of this item to the "rutil" value of its element.
+                            double profitXPositionIJ = sequence.getUtilities().get(i).get(j);
+                            element.utilityRight += profitXPositionIJ;
                         }
                     }
+                }
+                /// If Y does not appear, we don't do the following steps
+                if (element.positionBetaItemset == -1) {
+                    continue;
+                }
+
+                // (3) THIRD STEP:  WE WILL SCAN THE SEQUENCE BETWEEN THE ALPHA
+                // AND BETA POSITIONS WHERE WE HAVE STOPPED TO CALCUlATE THE "LRUTIL" VALUE
+                // FOR X ->Y in that SEQUENCE
 
-                    // (c) Scan item in the itemset BETA after the item beta (i.e. the item Y)
-                    List<Integer> itemset = sequence.getItemsets().get(element.positionBetaItemset);
+                // (A) WE SCAN THE ALPHA ITEMSET
+                List<Integer> itemsetAlpha = sequence.getItemsets().get(element.positionAlphaItemset);
+                // FOR EACH ITEM J IN THE ALPHA ITEMSET
+                for (int j = positionAlphaItem + 1; j < itemsetAlpha.size(); j++) {
 
-                    // For each item J after the beta item (i.e. the item Y)
-                    for (int j = 0; j < positionBetaItem - 1; j++) {
+                    // we add the utility of the item to the "LUTIL" value of the current element.
+                    double profitPositionIJ = sequence.getUtilities().get(element.positionAlphaItemset).get(j);
+                    element.utilityLeft += profitPositionIJ;
+                }
+
+
+                // (B) Scan the other itemsets after the alpha itemset but before the beta itemset
+                for (int i = element.positionAlphaItemset + 1; i < element.positionBetaItemset; i++) {
+                    // get the itemset
+                    List<Integer> itemset = sequence.getItemsets().get(i);
+
+                    // For each item J
+                    for (int j = 0; j < itemset.size(); j++) {
                         Integer itemIJ = itemset.get(j);
 
-                        // if the item is greater than Y
-                        if (itemIJ > itemY) {
+                        // if the item is greater than X and Y
+                        if (itemIJ > itemX && itemIJ > itemY) {
+                            // it means that this item could be used to extend the left or right side
+                            // of the rule
+                            // We add its utility to "LRUTIL"
+                            double utilityPositionIJ = sequence.getUtilities().get(i).get(j);
+                            element.utilityLeftRight += utilityPositionIJ;
+                        } else if (itemIJ > itemX) {
+                            // if the item is only greater than X
                             // We add its utility to "RUTIL"
-                            double profitPositionIJ = sequence.getUtilities().get(element.positionBetaItemset).get(j);
-                            element.utilityRight += profitPositionIJ;
+                            double utilityPositionIJ = sequence.getUtilities().get(i).get(j);
+                            element.utilityLeft += utilityPositionIJ;
+                        } else if (itemIJ > itemY) {
+                            // if the item is only greater than Y
+                            // We add its utility to "RUTIL"
+                            double utilityPositionIJ = sequence.getUtilities().get(i).get(j);
+                            element.utilityRight += utilityPositionIJ;
                         }
                     }
+                }
 
-                    // Finally, we add the element of this sequence to the utility table of X->Y
-                    table.addElement(element);
+                // (c) Scan item in the itemset BETA after the item beta (i.e. the item Y)
+                List<Integer> itemset = sequence.getItemsets().get(element.positionBetaItemset);
 
-                }
+                // For each item J after the beta item (i.e. the item Y)
+                for (int j = 0; j < positionBetaItem - 1; j++) {
+                    Integer itemIJ = itemset.get(j);
 
-                // We calculate the confidence of X -> Y
-                double confidence = (supportXY / supportX);
-
-                double conditionExpandLeft;
-                double conditionExpandRight;
-
-                // if strategy 4 is deactivated
-                // we use a worse upper bound
-                if (deactivateStrategy4) {
-                    conditionExpandLeft = table.totalUtility + table.totalUtilityLeft + table.totalUtilityLeftRight
-                                          + table.totalUtilityRight;
-                    conditionExpandRight = conditionExpandLeft;
-                } else {
-                    // otherwise we use a better upper bound
-                    conditionExpandLeft = table.totalUtility + table.totalUtilityLeft + table.totalUtilityLeftRight;
-                    conditionExpandRight = table.totalUtility + table.totalUtilityRight + table.totalUtilityLeftRight
-                                           + table.totalUtilityLeft;
+                    // if the item is greater than Y
+                    if (itemIJ > itemY) {
+                        // We add its utility to "RUTIL"
+                        double profitPositionIJ = sequence.getUtilities().get(element.positionBetaItemset).get(j);
+                        element.utilityRight += profitPositionIJ;
+                    }
                 }
 
+                // Finally, we add the element of this sequence to the utility table of X->Y
+                table.addElement(element);
 
-                // if in debug mode
-                if (DEBUG) {
-                    //We will print the rule and its profit and whether it is a high utility rule or not
-                    String isInteresting = (table.totalUtility >= minutil) ? " *** HIGH UTILITY RULE! ***" : " ";
-                    System.out.println("\n  RULE: " + itemX + " --> " + itemY + "   utility " + table.totalUtility
-                                       + " frequence : " + supportXY
-                                       + " confiance : " + confidence + isInteresting);
-
-                    // we will print the utility table of the rule
-                    for (ElementOfTable element : table.elements) {
-                        System.out.println("      SEQ:" + element.numeroSequence + " \t utility: " + element.utility
-                                           + " \t lutil: " + element.utilityLeft
-                                           + " \t lrutil: " + element.utilityLeftRight + " \t rutil: " + element.utilityRight
-                                           + " alpha : " + element.positionAlphaItemset
-                                           + " beta : " + element.positionBetaItemset);
-                    }
+            }
 
-                    System.out.println("      TOTAL: " + " \t utility: " + table.totalUtility + " \t lutil: " + table.totalUtilityLeft
-                                       + " \t lrutil: " + table.totalUtilityLeftRight + " \t rutil: " + table.totalUtilityRight);
-                    System.out.println("      Should we explore larger rules by left expansions ? " + (conditionExpandLeft >= minutil)
-                                       + " (" + conditionExpandLeft + " )");
-                    System.out.println("       Should we explore larger rules by right expansions ? " + (conditionExpandRight >= minutil)
-                                       + " (" + conditionExpandRight + " )");
-                }
+            // We calculate the confidence of X -> Y
+            double confidence = (supportXY / supportX);
 
-                // create the rule antecedent and consequence
-                int[] antecedent = new int[] { itemX };
-                int[] consequent = new int[] { itemY };
+            double conditionExpandLeft;
+            double conditionExpandRight;
 
-                // if high utility with ENOUGH  confidence
-                if ((table.totalUtility >= minutil) && confidence >= minConfidence) {
-                    // we output the rule
-                    saveRule(antecedent, consequent, table.totalUtility, supportXY, confidence);
-                }
+            // if strategy 4 is deactivated
+            // we use a worse upper bound
+            if (deactivateStrategy4) {
+                conditionExpandLeft = table.totalUtility + table.totalUtilityLeft + table.totalUtilityLeftRight
+                                      + table.totalUtilityRight;
+                conditionExpandRight = conditionExpandLeft;
+            } else {
+                // otherwise we use a better upper bound
+                conditionExpandLeft = table.totalUtility + table.totalUtilityLeft + table.totalUtilityLeftRight;
+                conditionExpandRight = table.totalUtility + table.totalUtilityRight + table.totalUtilityLeftRight
+                                       + table.totalUtilityLeft;
+            }
 
-                // if the right side size is less than the maximum size, we will try to expand the rule
-                if (conditionExpandRight >= minutil && maxConsequentSize > 1) {
-                    expandRight(table, antecedent, consequent, sequenceIDsX);
-                }
 
-                // if the left side size is less than the maximum size, we will try to expand the rule
-                if (conditionExpandLeft >= minutil && maxAntecedentSize > 1) {
-                    expandFirstLeft(table, antecedent, consequent, sequenceIDsX);
+            // if in debug mode
+            if (DEBUG) {
+                //We will print the rule and its profit and whether it is a high utility rule or not
+                String isInteresting = (table.totalUtility >= minutil) ? " *** HIGH UTILITY RULE! ***" : " ";
+                System.out.println("\n  RULE: " + itemX + " --> " + itemY + "   utility " + table.totalUtility
+                                   + " frequence : " + supportXY
+                                   + " confiance : " + confidence + isInteresting);
+
+                // we will print the utility table of the rule
+                for (ElementOfTable element : table.elements) {
+                    System.out.println("      SEQ:" + element.numeroSequence + " \t utility: " + element.utility
+                                       + " \t lutil: " + element.utilityLeft
+                                       + " \t lrutil: " + element.utilityLeftRight + " \t rutil: " + element.utilityRight
+                                       + " alpha : " + element.positionAlphaItemset
+                                       + " beta : " + element.positionBetaItemset);
                 }
+
+                System.out.println("      TOTAL: " + " \t utility: " + table.totalUtility + " \t lutil: " + table.totalUtilityLeft
+                                   + " \t lrutil: " + table.totalUtilityLeftRight + " \t rutil: " + table.totalUtilityRight);
+                System.out.println("      Should we explore larger rules by left expansions ? " + (conditionExpandLeft >= minutil)
+                                   + " (" + conditionExpandLeft + " )");
+                System.out.println("       Should we explore larger rules by right expansions ? " + (conditionExpandRight >= minutil)
+                                   + " (" + conditionExpandRight + " )");
             }
-        }
 
+            // create the rule antecedent and consequence
+            int[] antecedent = new int[] { itemX };
+            int[] consequent = new int[] { itemY };
 
-        //We will check the current memory usage
-        MemoryLogger.getInstance().checkMemory();
+            // if high utility with ENOUGH  confidence
+            if ((table.totalUtility >= minutil) && confidence >= minConfidence) {
+                // we output the rule
+                saveRule(antecedent, consequent, table.totalUtility, supportXY, confidence);
+            }
 
-        // save end time
-        timeEnd = System.currentTimeMillis();
+            // if the right side size is less than the maximum size, we will try to expand the rule
+            if (conditionExpandRight >= minutil && maxSizeConsequent > 1) {
+                expandRight(table, antecedent, consequent, sequenceIDsX);
+            }
 
-        // close the file
-        writer.close();
+            // if the left side size is less than the maximum size, we will try to expand the rule
+            if (conditionExpandLeft >= minutil && maxSizeAntecedent > 1) {
+                expandFirstLeft(table, antecedent, consequent, sequenceIDsX);
+            }
+        }
+    }
 
-        // after the algorithm ends, we don't need a reference to the database
-        // anymore.
-        database = null;
+    /**
+     * Explore the rules of size 2 using several threads. Each thread has its own worker and
+     * repeatedly takes the next item X that has not been explored, to explore the rules
+     * X --> Y and their expansions. The database and the lists of sequence ids are shared
+     * since they are only read. The rules are written directly to the output file by the workers.
+     *
+     * @param mapItemItemEstimatedUtility the rules of size 2 of each item X
+     * @throws IOException if an error occurs when writing to file
+     */
+    private void exploreInParallel(Map<Integer, Map<Integer, EstimatedUtilityAndSequences>> mapItemItemEstimatedUtility)
+            throws IOException {
+        final List<Entry<Integer, Map<Integer, EstimatedUtilityAndSequences>>> entries =
+                new ArrayList<Entry<Integer, Map<Integer, EstimatedUtilityAndSequences>>>(mapItemItemEstimatedUtility.entrySet());
+        // the size of a list of sequence ids is calculated the first time that it is requested,
+        // so it is done here before the lists are shared by the workers
+        for (ListSequenceIDs sequenceIDs : mapItemSequences.values()) {
+            sequenceIDs.getSize();
+        }
+        // the position of the next item X to be explored
+        final AtomicInteger nextItem = new AtomicInteger(0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<AlgoHUSRM>> futures = new ArrayList<Future<AlgoHUSRM>>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(pool.submit(new Callable<AlgoHUSRM>() {
+                    public AlgoHUSRM call() throws IOException {
+                        AlgoHUSRM worker = createWorker();
+                        int j;
+                        while ((j = nextItem.getAndIncrement()) < entries.size()) {
+                            Entry<Integer, Map<Integer, EstimatedUtilityAndSequences>> entryX = entries.get(j);
+                            worker.exploreItem(entryX.getKey(), entryX.getValue());
+                        }
+                        return worker;
+                    }
+                }));
+            }
+
+            // add the number of rules found by the workers
+            for (Future<AlgoHUSRM> future : futures) {
+                ruleCount += future.get().ruleCount;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Create a worker for exploring the rules of size 2 in parallel. A worker has the same
+     * parameters, database and output as this object, and counts the rules that it finds.
+     *
+     * @return the worker
+     */
+    private AlgoHUSRM createWorker() {
+        AlgoHUSRM worker = new AlgoHUSRM();
+        worker.minConfidence = minConfidence;
+        worker.minutil = minutil;
+        worker.maxSizeAntecedent = maxSizeAntecedent;
+        worker.maxSizeConsequent = maxSizeConsequent;
+        worker.database = database;
+        worker.mapItemSequences = mapItemSequences;
+        worker.writer = writer;
+        return worker;
     }
 
+
     /**
      * This method save a rule to the output file
      *
@@ -895,8 +1007,10 @@ public class AlgoHUSRM {
         buffer.append(confidence);
         buffer.append("\t#UTIL: ");
         buffer.append(utility);
-        writer.write(buffer.toString());
-        writer.newLine();
+        synchronized (writer) {
+            writer.write(buffer.toString());
+            writer.newLine();
+        }
 
         //if we are in debug mode, we will automatically check that the utility, confidence and support
         // are correct to ensure that there is no bug.
@@ -1901,6 +2015,9 @@ public class AlgoHUSRM {
         System.out.println(" Total time : " + (timeEnd - timeStart) + " ms");
         System.out.println(" Max memory (mb) : "
                            + MemoryLogger.getInstance().getMaxMemory());
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
         System.out.println("============================================================");
     }
 
@@ -1,6 +1,8 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.BIDE_and_prefixspan;
 
 import ca.pfv.spmf.datastructures.redblacktree.RedBlackTree;
+import ca.pfv.spmf.datastructures.topk.ConcurrentCandidateQueue;
+import ca.pfv.spmf.datastructures.topk.ConcurrentTopKSet;
 import ca.pfv.spmf.input.sequence_database_list_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
@@ -11,6 +13,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /*** 
@@ -24,6 +28,13 @@ import java.util.Map.Entry;
  * NOTE: The TSP original algorithm uses a minimum length constraint
  * which is not included in this implementation
  *
+ * The candidates can be extended by several threads (see setThreadCount()). The threads
+ * take the candidate with the highest support from a shared queue, and the top-k patterns
+ * are kept in a ConcurrentTopKSet, which raises the minimum support used by all the threads.
+ * The patterns having the same support are then ordered by lexical order, and exactly k
+ * patterns are kept, so that each execution gives the same result. With one thread, more
+ * than k patterns may be found if several patterns have the same support as the k-th pattern.
+ *
  * Copyright (c) 2013 Philippe Fournier-Viger
  *
  * This file is part of the SPMF DATA MINING SOFTWARE
@@ -48,6 +59,9 @@ public class AlgoTSP_nonClosed {
     PriorityQueue<SequentialPattern> kPatterns;
     // the candidates for expansion
     RedBlackTree<Candidate> candidates;
+    // the top k patterns and the candidates, when several threads are used (otherwise null)
+    ConcurrentTopKSet<SequentialPattern> concurrentKPatterns;
+    ConcurrentCandidateQueue<Candidate> concurrentCandidates;
     /**
      * if true, sequence identifiers of each pattern will be shown
      */
@@ -55,10 +69,12 @@ public class AlgoTSP_nonClosed {
     // for statistics
     private long startTime;
     private long endTime;
-    // absolute minimum support
-    private int minsupAbsolute;
+    // absolute minimum support (read by all the threads when several threads are used)
+    private final AtomicInteger minsupAbsolute = new AtomicInteger();
     // the number of patterns to be found
     private int k = 0;
+    // the number of threads used to extend the candidates
+    private int threadCount = 1;
 
     /**
      * Default constructor
@@ -89,7 +105,27 @@ public class AlgoTSP_nonClosed {
         candidates = new RedBlackTree<Candidate>();
 
         // set minsup to 1
-        this.minsupAbsolute = 1;
+        this.minsupAbsolute.set(1);
+
+        // if several threads are used, the top k patterns and the candidates
+        // are stored in structures that they can share
+        if (threadCount > 1) {
+            concurrentKPatterns = new ConcurrentTopKSet<SequentialPattern>(k, minsupAbsolute) {
+                @Override
+                protected int getSupport(SequentialPattern pattern) {
+                    return pattern.getAbsoluteSupport();
+                }
+
+                @Override
+                protected int comparePatterns(SequentialPattern pattern1, SequentialPattern pattern2) {
+                    return compareLexically(pattern1.getItemsets(), pattern2.getItemsets());
+                }
+            };
+            concurrentCandidates = new ConcurrentCandidateQueue<Candidate>(Collections.<Candidate>reverseOrder());
+        } else {
+            concurrentKPatterns = null;
+            concurrentCandidates = null;
+        }
 
         // save the start time
         startTime = System.currentTimeMillis();
@@ -97,6 +133,13 @@ public class AlgoTSP_nonClosed {
         // run the algorithm (it uses the prefixspan search procedure)
         prefixSpan(database);
 
+        if (concurrentKPatterns != null) {
+            // keep the patterns found by the threads
+            kPatterns.addAll(concurrentKPatterns.getPatterns());
+            concurrentKPatterns = null;
+            concurrentCandidates = null;
+        }
+
         // save the end time
         endTime = System.currentTimeMillis();
 
@@ -125,7 +168,7 @@ public class AlgoTSP_nonClosed {
             Map.Entry<java.lang.Integer, java.util.Set<java.lang.Integer>> entry =
                     iter
                             .next();
-            if (entry.getValue().size() < minsupAbsolute) {
+            if (entry.getValue().size() < minsupAbsolute.get()) {
                 // we remove this item from the database.
                 iter.remove();
             } else {
@@ -148,7 +191,7 @@ public class AlgoTSP_nonClosed {
         // for each sequence in  the database
         for (Sequence sequence : database.getSequences()) {
             // remove infrequent items
-            Sequence optimizedSequence = sequence.cloneSequenceMinusItems(mapSequenceID, minsupAbsolute);
+            Sequence optimizedSequence = sequence.cloneSequenceMinusItems(mapSequenceID, minsupAbsolute.get());
             if (optimizedSequence.size() != 0) {
                 // if the size is > 0, create a pseudo sequence with this sequence
                 initialDatabase.add(new PseudoSequence(optimizedSequence, 0, 0));
@@ -203,34 +246,105 @@ public class AlgoTSP_nonClosed {
         // For each candidate pattern that can be extended,
         // we take the one with the highest support for extension first
         // because it is most likely to generate a top k pattern
+        if (threadCount > 1) {
+            // the candidates are extended by several threads
+            extendCandidatesInParallel();
+            return;
+        }
         while (!candidates.isEmpty()) {
             // we take the pattern with the highest support first
             // and call it a "candidate"
             Candidate cand = candidates.popMaximum();
             // if there is no more pattern with enough support, then we stop
-            if (cand.prefix.getAbsoluteSupport() < minsupAbsolute) {
+            if (cand.prefix.getAbsoluteSupport() < minsupAbsolute.get()) {
                 break;
             }
+            extendCandidate(cand);
+        }
+    }
 
-            // if the candidate last itemset is a postfix
-            if (cand.isPostfix == null) {
-                // build the projected database for that item
-                List<PseudoSequence> projectedContext
-                        = buildProjectedDatabaseForSingleItem(cand.item, cand.databaseBeforeProjection, cand.prefix.getSequenceIDs());
-
-                // We make a recursive call to try to find larger sequential
-                // patterns starting with this prefix
-                recursion(cand.prefix, projectedContext);
-
-            } else {
-                // build the projected database with this item
-                List<PseudoSequence> projectedDatabase = buildProjectedDatabase(cand.item, cand.databaseBeforeProjection,
-                        cand.prefix.getSequenceIDs(), cand.isPostfix);
+    /**
+     * Extend a candidate
+     *
+     * @param cand the candidate
+     * @throws IOException exception if an error while writing the output file
+     */
+    private void extendCandidate(Candidate cand) throws IOException {
+        // if the candidate last itemset is a postfix
+        if (cand.isPostfix == null) {
+            // build the projected database for that item
+            List<PseudoSequence> projectedContext
+                    = buildProjectedDatabaseForSingleItem(cand.item, cand.databaseBeforeProjection, cand.prefix.getSequenceIDs());
+
+            // We make a recursive call to try to find larger sequential
+            // patterns starting with this prefix
+            recursion(cand.prefix, projectedContext);
+
+        } else {
+            // build the projected database with this item
+            List<PseudoSequence> projectedDatabase = buildProjectedDatabase(cand.item, cand.databaseBeforeProjection,
+                    cand.prefix.getSequenceIDs(), cand.isPostfix);
+
+            // make a recursive call to extend the candidate
+            recursion(cand.prefix, projectedDatabase);
+        }
+    }
 
-                // make a recursive call to extend the candidate
-                recursion(cand.prefix, projectedDatabase);
+    /**
+     * Extend the candidates with several threads. Each thread takes the candidate with
+     * the highest support from the shared queue and extends it, until no thread can find
+     * a new candidate.
+     *
+     * @throws IOException if the threads are interrupted
+     */
+    private void extendCandidatesInParallel() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try {
+                            Candidate cand;
+                            while ((cand = concurrentCandidates.take()) != null) {
+                                try {
+                                    // if the candidate does not have enough support, the candidates
+                                    // that are not more promising do not either
+                                    if (cand.prefix.getAbsoluteSupport() < minsupAbsolute.get()) {
+                                        concurrentCandidates.clearNotBetterThan(cand);
+                                    } else {
+                                        extendCandidate(cand);
+                                    }
+                                } finally {
+                                    concurrentCandidates.done();
+                                }
+                            }
+                        } catch (Exception | Error e) {
+                            // the other threads are stopped
+                            concurrentCandidates.stop();
+                            throw e;
+                        }
+                        return null;
+                    }
+                }));
             }
-
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
         }
     }
 
@@ -240,13 +354,18 @@ public class AlgoTSP_nonClosed {
      * @param pattern the pattern to be saved
      */
     private void save(SequentialPattern pattern) {
+        // if several threads are used, the pattern is added to the concurrent set
+        if (concurrentKPatterns != null) {
+            concurrentKPatterns.add(pattern);
+            return;
+        }
         // We add the pattern to the set of top-k patterns
         kPatterns.add(pattern);
         // if the size becomes larger than k
         if (kPatterns.size() > k) {
             // if the support of the pattern that we haved added is higher than
             // the minimum support, we will need to take out at least one pattern
-            if (pattern.getAbsoluteSupport() > this.minsupAbsolute) {
+            if (pattern.getAbsoluteSupport() > this.minsupAbsolute.get()) {
                 // we recursively remove the pattern having the lowest support, until only k patterns are left
                 do {
                     kPatterns.poll();
@@ -255,7 +374,7 @@ public class AlgoTSP_nonClosed {
             }
             // we raise the minimum support to the lowest support in the
             // set of top-k patterns
-            this.minsupAbsolute = kPatterns.peek().getAbsoluteSupport();
+            this.minsupAbsolute.set(kPatterns.peek().getAbsoluteSupport());
         }
     }
 
@@ -265,6 +384,11 @@ public class AlgoTSP_nonClosed {
      * @param candidate the candidate
      */
     private void registerAsCandidate(Candidate candidate) {
+        // if several threads are used, the candidate is added to the concurrent queue
+        if (concurrentCandidates != null) {
+            concurrentCandidates.add(candidate);
+            return;
+        }
         candidates.add(candidate); // add the pattern
     }
 
@@ -432,7 +556,7 @@ public class AlgoTSP_nonClosed {
         // where it appears in the projected database).
         for (Pair pair : pairs) {
             // if the item is frequent in the current projected database
-            if (pair.getCount() >= minsupAbsolute) {
+            if (pair.getCount() >= minsupAbsolute.get()) {
                 // create the new postfix by appending this item to the prefix
                 SequentialPattern newPrefix;
                 // if the item is part of a postfix
@@ -547,8 +671,9 @@ public class AlgoTSP_nonClosed {
                          "Max memory (mb) : " +
                          MemoryLogger.getInstance().getMaxMemory() +
                          '\n' +
-                         "Final minsup value: " + minsupAbsolute +
+                         "Final minsup value: " + minsupAbsolute.get() +
                          '\n' +
+                         (threadCount > 1 ? " Threads : " + threadCount + '\n' : "") +
                          "===================================================\n";
         System.out.println(r);
     }
@@ -604,4 +729,44 @@ public class AlgoTSP_nonClosed {
     public void setShowSequenceIdentifiers(boolean showSequenceIdentifiers) {
         this.showSequenceIdentifiers = showSequenceIdentifiers;
     }
+
+    /**
+     * Compare two patterns in lexical order: itemset by itemset, and item by item in an itemset
+     * (a pattern or an itemset that is a prefix of another comes first)
+     *
+     * @param itemsets1 the itemsets of a pattern
+     * @param itemsets2 the itemsets of another pattern
+     * @return a negative value, zero or a positive value if the first pattern comes before,
+     * is the same as or comes after the second pattern
+     */
+    private static int compareLexically(List<Itemset> itemsets1, List<Itemset> itemsets2) {
+        int itemsetCount = Math.min(itemsets1.size(), itemsets2.size());
+        for (int i = 0; i < itemsetCount; i++) {
+            List<Integer> items1 = itemsets1.get(i).getItems();
+            List<Integer> items2 = itemsets2.get(i).getItems();
+            int itemCount = Math.min(items1.size(), items2.size());
+            for (int j = 0; j < itemCount; j++) {
+                int compare = Integer.compare(items1.get(j), items2.get(j));
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            if (items1.size() != items2.size()) {
+                return Integer.compare(items1.size(), items2.size());
+            }
+        }
+        return Integer.compare(itemsets1.size(), itemsets2.size());
+    }
+
+    /**
+     * Set the number of threads used to extend the candidates (by default, 1).
+     *
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
 }
@@ -29,6 +29,8 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This is an implementation of the GSP algorithm. GSP was proposed by Srikant
@@ -73,6 +75,8 @@ public class AlgoGSP {
     private boolean isSorted;
     //counter for the frequent patterns already found
     private int numberOfFrequentPatterns;
+    //the number of threads used for counting the support of the candidates
+    private int threadCount = 1;
 
     /**
      * Constructor for GSP algorithm. It initializes most of the class'
@@ -119,15 +123,23 @@ public class AlgoGSP {
             this.minSupAbsolute = 1;
         }
 
-        CandidateGeneration candidateGenerator = new CandidateGeneration();
-        SupportCounting supportCounter = new SupportCounting(database, abstractionCreator);
+        // the threads used for counting the support, if more than one thread is used
+        ExecutorService pool = threadCount > 1 ? Executors.newFixedThreadPool(threadCount) : null;
+        try {
+            CandidateGeneration candidateGenerator = new CandidateGeneration();
+            SupportCounting supportCounter = new SupportCounting(database, abstractionCreator, pool, threadCount);
 
-        // reset the stats about memory usage
-        MemoryLogger.getInstance().reset();
+            // reset the stats about memory usage
+            MemoryLogger.getInstance().reset();
 
-        start = System.currentTimeMillis();
-        runGsp(database, candidateGenerator, supportCounter, keepPatterns, verbose);
-        end = System.currentTimeMillis();
+            start = System.currentTimeMillis();
+            runGsp(database, candidateGenerator, supportCounter, keepPatterns, verbose);
+            end = System.currentTimeMillis();
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
 
         // close the output file if the result was saved to a file
         if (writer != null) {
@@ -137,6 +149,20 @@ public class AlgoGSP {
         return patterns;
     }
 
+    /**
+     * Set the number of threads used for counting the support of the candidates. If more than one
+     * thread is used, the database is split in one part per thread and the parts are scanned in
+     * parallel at each level. The patterns found are the same as with a single thread.
+     *
+     * @param threadCount the number of threads (1 by default)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
     /**
      * The actual method that executes GSP. It start from the frequent
      * 1-sequences level
@@ -276,6 +302,11 @@ public class AlgoGSP {
         sb.append(" Max memory (mb):");
         sb.append(MemoryLogger.getInstance().getMaxMemory());
         sb.append('\n');
+        if (threadCount > 1) {
+            sb.append(" Threads : ");
+            sb.append(threadCount);
+            sb.append('\n');
+        }
         if (writer == null) {
             sb.append(patterns.toString());
         }
@@ -0,0 +1,356 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A hash tree of the candidate k-sequences of a level of GSP, as described by Srikant and
+ * Agrawal (1996), and similar to the itemset hash tree of AprioriHT.
+ * <br/><br/>
+ * The candidates and the sequences of the database are encoded as arrays of item codes, where
+ * the items of each itemset are sorted, together with the positions where the itemsets start.
+ * A candidate is thus contained in a sequence only if its items appear in the same order among
+ * the items of the sequence. The i-th inner node of a path hashes the i-th item of the candidates,
+ * and a leaf hashes their last item. As in AprioriHT, all nodes are always subdivided. To count
+ * the candidates of a sequence, the tree is traversed with each combination of k items of the
+ * sequence (in order), and each candidate of a reached leaf that has exactly these items is
+ * checked against the itemsets of the sequence.
+ * <br/><br/>
+ * The tree is only read when counting the support, so several threads can count the support
+ * of the candidates in different sequences, each one with its own Counter.
+ *
+ * @author Philippe Fournier-Viger
+ * @see SupportCounting
+ */
+class CandidateHashTree {
+
+    /**
+     * the number of items of the candidates
+     */
+    private final int k;
+    /**
+     * the number of child nodes of a node
+     */
+    private final int branchCount;
+    /**
+     * the root of the tree
+     */
+    private final InnerNode root;
+    /**
+     * the items of each candidate
+     */
+    private int[][] candidateItems;
+    /**
+     * the position where each itemset of each candidate starts (followed by the number of items)
+     */
+    private int[][] candidateItemsetStarts;
+    /**
+     * the number of candidates in the tree
+     */
+    private int candidateCount;
+
+    /**
+     * Constructor
+     *
+     * @param k           the number of items of the candidates (at least 2)
+     * @param branchCount the number of child nodes of a node
+     * @param capacity    the expected number of candidates
+     */
+    CandidateHashTree(int k, int branchCount, int capacity) {
+        this.k = k;
+        this.branchCount = branchCount;
+        this.root = new InnerNode();
+        this.candidateItems = new int[Math.max(capacity, 1)][];
+        this.candidateItemsetStarts = new int[Math.max(capacity, 1)][];
+    }
+
+    /**
+     * Insert a candidate in the tree. The candidates are numbered in the order of insertion.
+     *
+     * @param items         the k items of the candidate
+     * @param itemsetStarts the position where each itemset of the candidate starts, followed by k
+     * @return the number of the candidate
+     */
+    int insertCandidate(int[] items, int[] itemsetStarts) {
+        if (candidateCount == candidateItems.length) {
+            candidateItems = Arrays.copyOf(candidateItems, candidateCount * 2);
+            candidateItemsetStarts = Arrays.copyOf(candidateItemsetStarts, candidateCount * 2);
+        }
+        int candidate = candidateCount++;
+        candidateItems[candidate] = items;
+        candidateItemsetStarts[candidate] = itemsetStarts;
+
+        // go down the inner nodes using the first k-1 items
+        InnerNode node = root;
+        for (int level = 0; level < k - 2; level++) {
+            int branchIndex = items[level] % branchCount;
+            Node child = node.childs[branchIndex];
+            if (child == null) {
+                child = new InnerNode();
+                node.childs[branchIndex] = child;
+            }
+            node = (InnerNode) child;
+        }
+        int branchIndex = items[k - 2] % branchCount;
+        LeafNode leaf = (LeafNode) node.childs[branchIndex];
+        if (leaf == null) {
+            leaf = new LeafNode();
+            node.childs[branchIndex] = leaf;
+        }
+        // and add the candidate in the list of the leaf for the last item
+        leaf.add(items[k - 1] % branchCount, candidate);
+        return candidate;
+    }
+
+    /**
+     * Get the number of candidates in the tree
+     *
+     * @return the number of candidates
+     */
+    int getCandidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * Count the candidates contained in a sequence
+     *
+     * @param counter       the counter of the current thread
+     * @param items         the items of the sequence
+     * @param itemsetStarts the position where each itemset of the sequence starts, followed by the number of items
+     * @param sequence      the number of the sequence
+     */
+    void countSupport(Counter counter, int[] items, int[] itemsetStarts, int sequence) {
+        if (items.length >= k) {
+            countSupport(counter, items, itemsetStarts, sequence, root, 0, 0);
+        }
+    }
+
+    /**
+     * Recursive method to count the candidates contained in a sequence
+     *
+     * @param counter              the counter of the current thread
+     * @param items                the items of the sequence
+     * @param itemsetStarts        the position where each itemset of the sequence starts
+     * @param sequence             the number of the sequence
+     * @param node                 the current node
+     * @param level                the level of the current node (the root is at level 0)
+     * @param firstPositionToCheck the first position of the sequence that can be hashed by this node
+     */
+    private void countSupport(Counter counter, int[] items, int[] itemsetStarts, int sequence, InnerNode node,
+                              int level, int firstPositionToCheck) {
+        // the last position that leaves enough items for the remaining levels
+        int lastPositionToCheck = items.length - k + level;
+        for (int i = firstPositionToCheck; i <= lastPositionToCheck; i++) {
+            Node child = node.childs[items[i] % branchCount];
+            if (child == null) {
+                // there is no candidate on this path
+                continue;
+            }
+            counter.path[level] = i;
+            if (child instanceof InnerNode) {
+                countSupport(counter, items, itemsetStarts, sequence, (InnerNode) child, level + 1, i + 1);
+            } else {
+                LeafNode leaf = (LeafNode) child;
+                // for each item that can be the last item of a candidate
+                for (int j = i + 1; j < items.length; j++) {
+                    int branchIndex = items[j] % branchCount;
+                    int[] candidates = leaf.candidates[branchIndex];
+                    for (int c = 0; c < leaf.sizes[branchIndex]; c++) {
+                        int candidate = candidates[c];
+                        // each candidate is checked once per sequence, and only if
+                        // it has the items of the current path
+                        if (counter.lastSequence[candidate] != sequence
+                            && hasItemsOfPath(candidateItems[candidate], items, counter.path, items[j])) {
+                            counter.lastSequence[candidate] = sequence;
+                            if (isContained(candidateItems[candidate], candidateItemsetStarts[candidate], items, itemsetStarts)) {
+                                counter.addOccurrence(candidate, sequence);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if the items of a candidate are the items at the positions of the current path,
+     * followed by a given last item
+     *
+     * @param candidate the items of the candidate
+     * @param items     the items of the sequence
+     * @param path      the positions of the first k-1 items in the sequence
+     * @param lastItem  the last item
+     * @return true if the candidate has these items
+     */
+    private boolean hasItemsOfPath(int[] candidate, int[] items, int[] path, int lastItem) {
+        if (candidate[k - 1] != lastItem) {
+            return false;
+        }
+        for (int i = 0; i < k - 1; i++) {
+            if (candidate[i] != items[path[i]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if a candidate is contained in a sequence: each itemset of the candidate must be included
+     * in an itemset of the sequence, and these itemsets must appear in the same order. Taking the
+     * first itemset that includes each itemset of the candidate is enough to answer.
+     *
+     * @param candidate              the items of the candidate
+     * @param candidateItemsetStarts the position where each itemset of the candidate starts
+     * @param items                  the items of the sequence
+     * @param itemsetStarts          the position where each itemset of the sequence starts
+     * @return true if the candidate is contained in the sequence
+     */
+    static boolean isContained(int[] candidate, int[] candidateItemsetStarts, int[] items, int[] itemsetStarts) {
+        int itemset = 0;
+        int itemsetCount = itemsetStarts.length - 1;
+        for (int c = 0; c < candidateItemsetStarts.length - 1; c++) {
+            int start = candidateItemsetStarts[c];
+            int end = candidateItemsetStarts[c + 1];
+            // search the first itemset of the sequence that includes this itemset
+            while (itemset < itemsetCount
+                   && !isIncluded(candidate, start, end, items, itemsetStarts[itemset], itemsetStarts[itemset + 1])) {
+                itemset++;
+            }
+            if (itemset == itemsetCount) {
+                return false;
+            }
+            itemset++;
+        }
+        return true;
+    }
+
+    /**
+     * Check if the sorted items in a range of an array are included in the sorted items in a range of another array
+     *
+     * @param items1 the first array
+     * @param start1 the start of the first range
+     * @param end1   the end of the first range (exclusive)
+     * @param items2 the second array
+     * @param start2 the start of the second range
+     * @param end2   the end of the second range (exclusive)
+     * @return true if the first items are included in the second items
+     */
+    private static boolean isIncluded(int[] items1, int start1, int end1, int[] items2, int start2, int end2) {
+        if (end1 - start1 > end2 - start2) {
+            return false;
+        }
+        int j = start2;
+        for (int i = start1; i < end1; i++) {
+            while (j < end2 && items2[j] < items1[i]) {
+                j++;
+            }
+            if (j == end2 || items2[j] != items1[i]) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    /**
+     * Abstract class for a node of the tree
+     */
+    abstract static class Node {
+    }
+
+    /**
+     * A node that is not a leaf
+     */
+    class InnerNode extends Node {
+        // the child nodes
+        final Node[] childs = new Node[branchCount];
+    }
+
+    /**
+     * A leaf, containing the numbers of the candidates, grouped by their last item
+     */
+    class LeafNode extends Node {
+        // the candidates of each branch
+        final int[][] candidates = new int[branchCount][];
+        // the number of candidates of each branch
+        final int[] sizes = new int[branchCount];
+
+        /**
+         * Add a candidate to a branch
+         *
+         * @param branchIndex the branch
+         * @param candidate   the number of the candidate
+         */
+        void add(int branchIndex, int candidate) {
+            int[] list = candidates[branchIndex];
+            if (list == null) {
+                list = new int[4];
+                candidates[branchIndex] = list;
+            } else if (sizes[branchIndex] == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                candidates[branchIndex] = list;
+            }
+            list[sizes[branchIndex]++] = candidate;
+        }
+    }
+
+    /**
+     * The support counts of the candidates in a part of the database, and the sequences where they
+     * appear. Each thread counting the support uses its own counter.
+     */
+    static class Counter {
+        // the support of each candidate
+        final int[] supports;
+        // the last sequence where each candidate was checked
+        final int[] lastSequence;
+        // the positions of the items of the current path of the tree in the current sequence
+        final int[] path;
+        // the candidate and the sequence of each occurrence (two values per occurrence)
+        int[] occurrences = new int[64];
+        // the number of values in the array of occurrences
+        int occurrenceSize = 0;
+
+        /**
+         * Constructor
+         *
+         * @param tree the tree of the candidates
+         */
+        Counter(CandidateHashTree tree) {
+            supports = new int[tree.getCandidateCount()];
+            lastSequence = new int[tree.getCandidateCount()];
+            Arrays.fill(lastSequence, -1);
+            path = new int[tree.k];
+        }
+
+        /**
+         * Record that a candidate appears in a sequence
+         *
+         * @param candidate the number of the candidate
+         * @param sequence  the number of the sequence
+         */
+        void addOccurrence(int candidate, int sequence) {
+            supports[candidate]++;
+            if (occurrenceSize == occurrences.length) {
+                occurrences = Arrays.copyOf(occurrences, occurrenceSize * 2);
+            }
+            occurrences[occurrenceSize++] = candidate;
+            occurrences[occurrenceSize++] = sequence;
+        }
+    }
+}
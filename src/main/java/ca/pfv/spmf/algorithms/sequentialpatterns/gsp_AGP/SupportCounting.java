@@ -1,14 +1,20 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP;
 
-import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.CandidateInSequenceFinder;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.Item;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.Itemset;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.Sequence;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.SequenceDatabase;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.abstractions.Abstraction_Qualitative;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.abstractions.ItemAbstractionPair;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.creators.AbstractionCreator;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.patterns.Pattern;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 /**
@@ -16,6 +22,12 @@ import java.util.*;
  * This class is one of the two method continuously repeated by means of the GSP's main loop.
  * Here, from a set of (k+1)-sequences candidates we check which of those sequences are actually frequent and which can be ruled out.
  * <p>
+ * The sequences of the database are encoded once as arrays of item codes with the positions where
+ * their itemsets start, and the candidates of each level are inserted in a CandidateHashTree, so that
+ * only the candidates having items of a sequence are checked against it. If a pool of threads is given,
+ * the database is split in one part per thread, each thread counts the support of the candidates in
+ * its part, and the counts of the parts are added at the end of the level.
+ * <p>
  * Copyright Antonio Gomariz Peñalver 2013
  * <p>
  * This file is part of the SPMF DATA MINING SOFTWARE
@@ -40,25 +52,87 @@ import java.util.*;
 class SupportCounting {
 
     /**
-     * Original database where we have to look for each candidate.
+     * The maximum number of child nodes of a node of the hash tree
      */
-    private final SequenceDatabase database;
+    private static final int MAX_BRANCH_COUNT = 64;
     /**
      * Indexation map. A tool for the next candidate generation step.
      */
     private final Map<Item, Set<Pattern>> indexationMap;
     private final AbstractionCreator abstractionCreator;
+    /**
+     * The code of each item of the original database
+     */
+    private final Map<Item<?>, Integer> itemCodes;
+    /**
+     * The item codes of each sequence of the original database, sorted in each itemset
+     */
+    private final int[][] sequenceItems;
+    /**
+     * The position where each itemset of each sequence starts, followed by the number of items
+     */
+    private final int[][] sequenceItemsetStarts;
+    /**
+     * The identifier of each sequence
+     */
+    private final int[] sequenceIds;
+    /**
+     * The threads used to count the support, or null to count it in the current thread
+     */
+    private final ExecutorService pool;
+    /**
+     * The number of parts of the database that are counted in parallel
+     */
+    private final int partCount;
 
     /**
      * The only constructor
      *
-     * @param database the original sequence database
+     * @param database  the original sequence database
      * @param creador
+     * @param pool      the threads used to count the support, or null to count it in the current thread
+     * @param partCount the number of parts of the database that are counted in parallel (the number of threads)
      */
-    public SupportCounting(SequenceDatabase database, AbstractionCreator creador) {
-        this.database = database;
+    public SupportCounting(SequenceDatabase database, AbstractionCreator creador, ExecutorService pool, int partCount) {
         this.abstractionCreator = creador;
         this.indexationMap = new HashMap<Item, Set<Pattern>>();
+        this.pool = pool;
+        this.partCount = pool == null ? 1 : partCount;
+
+        // we encode the sequences of the database
+        itemCodes = new HashMap<Item<?>, Integer>();
+        List<Sequence> sequences = database.getSequences();
+        sequenceItems = new int[sequences.size()][];
+        sequenceItemsetStarts = new int[sequences.size()][];
+        sequenceIds = new int[sequences.size()];
+        for (int i = 0; i < sequences.size(); i++) {
+            Sequence sequence = sequences.get(i);
+            int itemCount = 0;
+            for (int j = 0; j < sequence.size(); j++) {
+                itemCount += sequence.get(j).size();
+            }
+            int[] items = new int[itemCount];
+            int[] itemsetStarts = new int[sequence.size() + 1];
+            int length = 0;
+            for (int j = 0; j < sequence.size(); j++) {
+                itemsetStarts[j] = length;
+                Itemset itemset = sequence.get(j);
+                for (int w = 0; w < itemset.size(); w++) {
+                    Item<?> item = itemset.get(w);
+                    Integer code = itemCodes.get(item);
+                    if (code == null) {
+                        code = itemCodes.size();
+                        itemCodes.put(item, code);
+                    }
+                    items[length++] = code;
+                }
+                Arrays.sort(items, itemsetStarts[j], length);
+            }
+            itemsetStarts[sequence.size()] = length;
+            sequenceItems[i] = items;
+            sequenceItemsetStarts[i] = itemsetStarts;
+            sequenceIds[i] = sequence.getId();
+        }
     }
 
     /**
@@ -70,18 +144,68 @@ class SupportCounting {
      * @param minSupportAbsolute the absolute minimum support, i.e. the minimum number of
      *                           sequences where a candidate have to appear
      * @return the set of frequent patterns.
+     * @throws IOException if the counting was interrupted
      */
-    public Set<Pattern> countSupport(List<Pattern> candidateSet, int k, double minSupportAbsolute) {
+    public Set<Pattern> countSupport(List<Pattern> candidateSet, int k, double minSupportAbsolute) throws IOException {
         indexationMap.clear();
-        //For each sequence of the original database
-        for (Sequence sequence : database.getSequences()) {
-            //we check for each candidate if it appears in that sequence
-            checkCandidateInSequence(sequence, k, candidateSet);
+        //We put the candidates in a hash tree, numbering them by their position in the candidate set
+        int branchCount = Math.max(1, Math.min(itemCodes.size(), MAX_BRANCH_COUNT));
+        final CandidateHashTree tree = new CandidateHashTree(k, branchCount, candidateSet.size());
+        for (Pattern candidate : candidateSet) {
+            insertCandidate(tree, candidate, k);
+        }
+        //For each part of the original database, we count the candidates that appear in its sequences
+        List<CandidateHashTree.Counter> counters = new ArrayList<CandidateHashTree.Counter>(partCount);
+        if (pool == null) {
+            counters.add(countSupport(tree, 0, sequenceItems.length));
+        } else {
+            List<Callable<CandidateHashTree.Counter>> parts = new ArrayList<Callable<CandidateHashTree.Counter>>(partCount);
+            for (int i = 0; i < partCount; i++) {
+                final int first = (int) ((long) sequenceItems.length * i / partCount);
+                final int last = (int) ((long) sequenceItems.length * (i + 1) / partCount);
+                parts.add(new Callable<CandidateHashTree.Counter>() {
+                    public CandidateHashTree.Counter call() {
+                        return countSupport(tree, first, last);
+                    }
+                });
+            }
+            try {
+                for (Future<CandidateHashTree.Counter> future : pool.invokeAll(parts)) {
+                    counters.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("The mining was interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        //We add the support counts of the parts
+        int[] supports = new int[tree.getCandidateCount()];
+        for (CandidateHashTree.Counter counter : counters) {
+            for (int i = 0; i < supports.length; i++) {
+                supports[i] += counter.supports[i];
+            }
+        }
+        /*and we add the sequence Ids to the lists of appearances of the frequent
+         * candidates, part by part
+         */
+        for (CandidateHashTree.Counter counter : counters) {
+            for (int i = 0; i < counter.occurrenceSize; i += 2) {
+                int candidate = counter.occurrences[i];
+                if (supports[candidate] >= minSupportAbsolute) {
+                    candidateSet.get(candidate).addAppearance(sequenceIds[counter.occurrences[i + 1]]);
+                }
+            }
         }
         Set<Pattern> result = new LinkedHashSet<Pattern>();
         //We keep all the frequent candidates and we put them in the indexation map
-        for (Pattern candidate : candidateSet) {
-            if (candidate.getSupport() >= minSupportAbsolute) {
+        for (int i = 0; i < candidateSet.size(); i++) {
+            if (supports[i] >= minSupportAbsolute) {
+                Pattern candidate = candidateSet.get(i);
                 result.add(candidate);
                 putInIndexationMap(candidate);
             }
@@ -92,30 +216,50 @@ class SupportCounting {
     }
 
     /**
-     * We check, for a sequence, if each candidate from the candidate set it appears or not
+     * Count the support of the candidates of a hash tree in a range of sequences
      *
-     * @param sequence     a sequence
-     * @param k            he level where we are checking
-     * @param candidateSet the candidate set
+     * @param tree  the hash tree of the candidates
+     * @param first the first sequence of the range
+     * @param last  the sequence after the range
+     * @return the support counts
      */
-    private void checkCandidateInSequence(Sequence sequence, int k, List<Pattern> candidateSet) {
-        //For each candidate
-        for (Pattern candidate : candidateSet) {
-            //We define a list of k positions, all initialized at itemset 0, item 0, i.e. first itemset, first item.
-            List<int[]> position = new ArrayList<int[]>(k);
-            for (int i = 0; i < k; i++) {
-                position.add(new int[] { 0, 0 });
-            }
-            CandidateInSequenceFinder finder = new CandidateInSequenceFinder(abstractionCreator);
-            //we check if the current candidate appears in the sequence
-            abstractionCreator.isCandidateInSequence(finder, candidate, sequence, k, 0, position);
-            if (finder.isPresent()) {
-                /*if we have a positive result, we add the sequence Id to the list
-                 * of appearances associated with the candidate pattern
-                 */
-                candidate.addAppearance(sequence.getId());
+    private CandidateHashTree.Counter countSupport(CandidateHashTree tree, int first, int last) {
+        CandidateHashTree.Counter counter = new CandidateHashTree.Counter(tree);
+        for (int i = first; i < last; i++) {
+            tree.countSupport(counter, sequenceItems[i], sequenceItemsetStarts[i], i);
+        }
+        return counter;
+    }
+
+    /**
+     * Encode a candidate and insert it in the hash tree. An element of the candidate
+     * with an equal relation is in the same itemset as the previous element.
+     *
+     * @param tree      the hash tree
+     * @param candidate the candidate
+     * @param k         the number of elements of the candidate
+     */
+    private void insertCandidate(CandidateHashTree tree, Pattern candidate, int k) {
+        int[] items = new int[k];
+        int[] itemsetStarts = new int[k + 1];
+        int itemsetCount = 0;
+        for (int i = 0; i < k; i++) {
+            ItemAbstractionPair pair = candidate.getIthElement(i);
+            Integer code = itemCodes.get(pair.getItem());
+            // an item that is not in the database (it can not happen) gets a code that appears in no sequence
+            items[i] = code == null ? itemCodes.size() : code;
+            boolean sameItemset = i > 0 && pair.getAbstraction() instanceof Abstraction_Qualitative
+                                  && ((Abstraction_Qualitative) pair.getAbstraction()).hasEqualRelation();
+            if (!sameItemset) {
+                if (itemsetCount > 0) {
+                    Arrays.sort(items, itemsetStarts[itemsetCount - 1], i);
+                }
+                itemsetStarts[itemsetCount++] = i;
             }
         }
+        Arrays.sort(items, itemsetStarts[itemsetCount - 1], k);
+        itemsetStarts[itemsetCount] = k;
+        tree.insertCandidate(items, Arrays.copyOf(itemsetStarts, itemsetCount + 1));
     }
 
     /**
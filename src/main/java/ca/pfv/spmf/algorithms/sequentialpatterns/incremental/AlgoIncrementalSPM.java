@@ -0,0 +1,315 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.incremental;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan.SequenceDatabase;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This is an algorithm for incremental sequential pattern mining. The
+ * algorithm is applied on a first sequence database, and then it can be
+ * applied again each time that new sequences are added to the database, or
+ * that itemsets are appended to sequences of the database. Each time, the
+ * patterns found are the same as those found by PrefixSpan on the whole
+ * database, but the database is not mined again from scratch: the algorithm
+ * keeps a lattice of the frequent patterns and of their negative border, with
+ * the IDLists of these patterns, and only computes the positions of the
+ * patterns in the sequences that changed. The lattice can be saved to a file
+ * and loaded later to continue the updates.
+ * <br/><br/>
+ * The minimum support is relative to the size of the database, so that the
+ * minimum number of sequences increases as sequences are added.
+ *
+ * @author Philippe Fournier-Viger
+ * @see SequentialPatternLattice
+ */
+public class AlgoIncrementalSPM {
+
+    /**
+     * the time the last update started
+     */
+    long startTime;
+    /**
+     * the time the last update terminated
+     */
+    long endTime;
+    /**
+     * the total time of all the updates
+     */
+    long totalTimeForAllRuns = 0;
+    /**
+     * the number of sequences added or modified by the last update
+     */
+    int updatedSequenceCount;
+    /**
+     * if true, sequence identifiers of each pattern will be shown
+     */
+    boolean showSequenceIdentifiers = false;
+    /**
+     * the lattice of patterns, or null before the first update
+     */
+    private SequentialPatternLattice lattice = null;
+    /**
+     * the absolute minimum support used by the last update
+     */
+    private int minsupAbsolute;
+    /**
+     * the number of frequent patterns after the last update
+     */
+    private int patternCount;
+
+    /**
+     * Default constructor
+     */
+    public AlgoIncrementalSPM() {
+    }
+
+    /**
+     * Run the algorithm on a file of sequences. The first time, the patterns
+     * of these sequences are found. The next times, the sequences are added
+     * to the sequences of the previous runs and the patterns are updated.
+     *
+     * @param inputFile      a sequence database in SPMF format
+     * @param minsupRelative the minimum support as a percentage (e.g. 50%) as a value in [0,1]
+     * @throws IOException exception if error while reading the file
+     */
+    public void runAlgorithm(String inputFile, double minsupRelative) throws IOException {
+        SequenceDatabase sequenceDatabase = new SequenceDatabase();
+        sequenceDatabase.loadFile(inputFile);
+        update(sequenceDatabase.getSequences(), Collections.<Integer, int[]>emptyMap(), minsupRelative);
+    }
+
+    /**
+     * Update the patterns after itemsets have been appended to some
+     * sequences of the database.
+     *
+     * @param appendedItemsets the itemsets appended to each sequence, in SPMF format, by sequence identifier
+     * @param minsupRelative   the minimum support as a percentage (e.g. 50%) as a value in [0,1]
+     */
+    public void appendItemsets(Map<Integer, int[]> appendedItemsets, double minsupRelative) {
+        update(Collections.<int[]>emptyList(), appendedItemsets, minsupRelative);
+    }
+
+    /**
+     * Update the patterns after sequences have been added to the database
+     * and itemsets have been appended to some sequences of the database. The
+     * new sequences are given the next sequence identifiers, starting from 0
+     * for the first sequence of the first update.
+     *
+     * @param newSequences     the new sequences, in SPMF format
+     * @param appendedItemsets the itemsets appended to each sequence, in SPMF format, by sequence identifier
+     * @param minsupRelative   the minimum support as a percentage (e.g. 50%) as a value in [0,1]
+     */
+    public void update(List<int[]> newSequences, Map<Integer, int[]> appendedItemsets, double minsupRelative) {
+        // record start time
+        startTime = System.currentTimeMillis();
+        // reset memory
+        MemoryLogger.getInstance().reset();
+
+        if (lattice == null) {
+            lattice = new SequentialPatternLattice();
+        }
+        updatedSequenceCount = newSequences.size() + appendedItemsets.size();
+
+        // convert to a absolute minimum support, for the size of the updated database
+        int sequenceCount = lattice.getSequenceCount() + newSequences.size();
+        this.minsupAbsolute = (int) Math.ceil(minsupRelative * sequenceCount);
+        if (this.minsupAbsolute == 0) { // protection
+            this.minsupAbsolute = 1;
+        }
+
+        patternCount = lattice.update(newSequences, appendedItemsets, minsupAbsolute);
+
+        MemoryLogger.getInstance().checkMemory();
+        // record end time
+        endTime = System.currentTimeMillis();
+        totalTimeForAllRuns += (endTime - startTime);
+    }
+
+    /**
+     * Write the frequent patterns found until now to a file, in the same
+     * format as PrefixSpan
+     *
+     * @param outputFilePath the path of the output file
+     * @throws IOException exception if error while writing the file
+     */
+    public void writePatternsToFile(String outputFilePath) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilePath));
+        try {
+            if (lattice != null) {
+                StringBuilder pattern = new StringBuilder();
+                for (LatticeNode itemNode : lattice.getItemNodes().values()) {
+                    writePatterns(itemNode, pattern, writer);
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Write a pattern and its frequent extensions to a file, if the pattern is
+     * frequent
+     *
+     * @param node    the node of the pattern
+     * @param prefix  the string representation of the parent pattern
+     * @param writer  the writer
+     * @throws IOException exception if error while writing the file
+     */
+    private void writePatterns(LatticeNode node, StringBuilder prefix, BufferedWriter writer) throws IOException {
+        if (node.getSupport() < minsupAbsolute) {
+            return;
+        }
+        int prefixLength = prefix.length();
+        if (prefixLength > 0 && !node.itemsetExtension) {
+            prefix.append("-1 ");
+        }
+        prefix.append(node.item).append(' ');
+
+        StringBuilder r = new StringBuilder(prefix);
+        r.append("-1 #SUP: ");
+        r.append(node.idList.getSupport());
+        if (showSequenceIdentifiers) {
+            r.append(" #SID: ");
+            List<Integer> sequenceIDs = new ArrayList<Integer>(node.idList.getSequenceIDs());
+            Collections.sort(sequenceIDs);
+            for (Integer sequenceID : sequenceIDs) {
+                r.append(sequenceID);
+                r.append(" ");
+            }
+        }
+        writer.write(r.toString());
+        writer.newLine();
+
+        if (node.isExpanded()) {
+            for (LatticeNode child : node.itemsetExtensions.values()) {
+                writePatterns(child, prefix, writer);
+            }
+            for (LatticeNode child : node.sequenceExtensions.values()) {
+                writePatterns(child, prefix, writer);
+            }
+        }
+        prefix.setLength(prefixLength);
+    }
+
+    /**
+     * Save the lattice of patterns to a file (as a serialized object), to
+     * continue the updates later
+     *
+     * @param outputPath the file path
+     * @throws IOException if error while writing the file
+     */
+    public void saveLatticeToFile(String outputPath) throws IOException {
+        ObjectOutputStream stream = new ObjectOutputStream(new FileOutputStream(outputPath));
+        try {
+            stream.writeObject(lattice);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Load a lattice of patterns that was saved to a file, to continue the
+     * updates. The patterns are only available after the next update, which
+     * can be done without new sequences to find the patterns of the lattice.
+     *
+     * @param inputPath the file path
+     * @throws IOException if error while reading the file
+     */
+    public void loadLatticeFromFile(String inputPath) throws IOException {
+        ObjectInputStream stream = new ObjectInputStream(new FileInputStream(inputPath));
+        try {
+            lattice = (SequentialPatternLattice) stream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("The file does not contain a lattice of patterns", e);
+        } finally {
+            stream.close();
+        }
+        patternCount = 0;
+        minsupAbsolute = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Print statistics about the last update to System.out.
+     */
+    public void printStatistics() {
+        final String r = "=============  INCREMENTAL SPM - STATISTICS =============\n Total time ~ " +
+                         (endTime - startTime) +
+                         " ms\n" +
+                         " Total time for all updates ~ " +
+                         totalTimeForAllRuns +
+                         " ms\n" +
+                         " Sequences added or modified : " + updatedSequenceCount +
+                         '\n' +
+                         " Sequence count : " + (lattice == null ? 0 : lattice.getSequenceCount()) +
+                         '\n' +
+                         " minsup = " + minsupAbsolute + " sequences." +
+                         '\n' +
+                         " Frequent sequences count : " + patternCount +
+                         '\n' +
+                         " Patterns in the lattice (with the negative border) : " + (lattice == null ? 0 : lattice.getNodeCount()) +
+                         '\n' +
+                         " Join count : " + (lattice == null ? 0 : lattice.getJoinCount()) +
+                         '\n' +
+                         " Max memory (mb) : " +
+                         MemoryLogger.getInstance().getMaxMemory() +
+                         '\n' +
+                         "===================================================\n";
+        System.out.println(r);
+    }
+
+    /**
+     * Get the number of frequent patterns found by the last update
+     *
+     * @return the number of patterns
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Get the number of sequences in the database
+     *
+     * @return the number of sequences
+     */
+    public int getSequenceCount() {
+        return lattice == null ? 0 : lattice.getSequenceCount();
+    }
+
+    /**
+     * Set that the sequence identifiers should be shown (true) or not (false) for each
+     * pattern found
+     *
+     * @param showSequenceIdentifiers true or false
+     */
+    public void setShowSequenceIdentifiers(boolean showSequenceIdentifiers) {
+        this.showSequenceIdentifiers = showSequenceIdentifiers;
+    }
+}
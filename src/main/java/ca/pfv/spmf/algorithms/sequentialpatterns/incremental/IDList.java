@@ -0,0 +1,208 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.incremental;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Set;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The vertical representation of a pattern, used by the incremental sequential
+ * pattern miner. For each sequence where the pattern appears, the IDList
+ * stores the positions of the itemsets (in increasing order) where an
+ * occurrence of the pattern ends. The support of the pattern is the number of
+ * sequences in the IDList.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AlgoIncrementalSPM
+ */
+public class IDList implements Serializable {
+
+    /**
+     * serial UID
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the positions where the pattern ends, by sequence identifier
+     */
+    private final HashMap<Integer, int[]> positionsBySequence = new HashMap<Integer, int[]>();
+
+    /**
+     * Get the positions where the pattern ends in a sequence
+     *
+     * @param sequenceID a sequence identifier
+     * @return the positions in increasing order, or null if the pattern does not appear in the sequence
+     */
+    public int[] getPositions(int sequenceID) {
+        return positionsBySequence.get(sequenceID);
+    }
+
+    /**
+     * Set the positions where the pattern ends in a sequence
+     *
+     * @param sequenceID a sequence identifier
+     * @param positions  the positions in increasing order
+     */
+    public void setPositions(int sequenceID, int[] positions) {
+        positionsBySequence.put(sequenceID, positions);
+    }
+
+    /**
+     * Forget the positions of the pattern in a sequence
+     *
+     * @param sequenceID a sequence identifier
+     */
+    public void removePositions(int sequenceID) {
+        positionsBySequence.remove(sequenceID);
+    }
+
+    /**
+     * Get the support of the pattern
+     *
+     * @return the number of sequences where the pattern appears
+     */
+    public int getSupport() {
+        return positionsBySequence.size();
+    }
+
+    /**
+     * Get the identifiers of the sequences where the pattern appears
+     *
+     * @return the sequence identifiers
+     */
+    public Set<Integer> getSequenceIDs() {
+        return positionsBySequence.keySet();
+    }
+
+    /**
+     * Get the positions of the sequence extension of a pattern, in a sequence.
+     * The item must appear in an itemset after the first itemset where an
+     * occurrence of the pattern ends.
+     *
+     * @param prefixPositions the positions where the pattern ends, or null
+     * @param itemPositions   the positions of the item, or null
+     * @return the positions where the extension ends, or null if it does not appear
+     */
+    static int[] sequenceExtension(int[] prefixPositions, int[] itemPositions) {
+        if (prefixPositions == null || itemPositions == null) {
+            return null;
+        }
+        int first = prefixPositions[0];
+        // find the first position of the item after the first occurrence of the prefix
+        int low = 0;
+        int high = itemPositions.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (itemPositions[middle] <= first) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (low == itemPositions.length) {
+            return null;
+        }
+        return low == 0 ? itemPositions : Arrays.copyOfRange(itemPositions, low, itemPositions.length);
+    }
+
+    /**
+     * Get the first position of the sequence extension of a pattern, in a
+     * sequence.
+     *
+     * @param prefixPositions the positions where the pattern ends, or null
+     * @param itemPositions   the positions of the item, or null
+     * @return the first position where the extension ends, or -1 if it does not appear
+     */
+    static int firstSequenceExtensionPosition(int[] prefixPositions, int[] itemPositions) {
+        if (prefixPositions == null || itemPositions == null) {
+            return -1;
+        }
+        // the last position of the item is checked first, since most items do not follow the prefix
+        if (itemPositions[itemPositions.length - 1] <= prefixPositions[0]) {
+            return -1;
+        }
+        for (int position : itemPositions) {
+            if (position > prefixPositions[0]) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the first position of the itemset extension of a pattern, in a
+     * sequence.
+     *
+     * @param prefixPositions the positions where the pattern ends, or null
+     * @param itemPositions   the positions of the item, or null
+     * @return the first position where the extension ends, or -1 if it does not appear
+     */
+    static int firstItemsetExtensionPosition(int[] prefixPositions, int[] itemPositions) {
+        if (prefixPositions == null || itemPositions == null) {
+            return -1;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < prefixPositions.length && j < itemPositions.length) {
+            if (prefixPositions[i] < itemPositions[j]) {
+                i++;
+            } else if (prefixPositions[i] > itemPositions[j]) {
+                j++;
+            } else {
+                return prefixPositions[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the positions of the itemset extension of a pattern, in a sequence.
+     * The item must appear in an itemset where an occurrence of the pattern
+     * ends.
+     *
+     * @param prefixPositions the positions where the pattern ends, or null
+     * @param itemPositions   the positions of the item, or null
+     * @return the positions where the extension ends, or null if it does not appear
+     */
+    static int[] itemsetExtension(int[] prefixPositions, int[] itemPositions) {
+        if (prefixPositions == null || itemPositions == null) {
+            return null;
+        }
+        int[] buffer = new int[Math.min(prefixPositions.length, itemPositions.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < prefixPositions.length && j < itemPositions.length) {
+            if (prefixPositions[i] < itemPositions[j]) {
+                i++;
+            } else if (prefixPositions[i] > itemPositions[j]) {
+                j++;
+            } else {
+                buffer[count++] = prefixPositions[i];
+                i++;
+                j++;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        return count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+    }
+}
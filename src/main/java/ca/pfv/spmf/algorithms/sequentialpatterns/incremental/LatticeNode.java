@@ -0,0 +1,109 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.incremental;
+
+import java.io.Serializable;
+import java.util.TreeMap;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A node of the lattice of the incremental sequential pattern miner. A node
+ * represents the pattern obtained by appending its item to the pattern of its
+ * parent, either in a new itemset (sequence extension) or in the last itemset
+ * (itemset extension). A node is expanded when the extensions of its pattern
+ * have been computed, which is done for the frequent patterns. The nodes that
+ * are not expanded form the negative border of the lattice: only their
+ * support is kept, except for the nodes of single items, which always keep
+ * their IDList.
+ *
+ * @author Philippe Fournier-Viger
+ * @see SequentialPatternLattice
+ */
+class LatticeNode implements Serializable {
+
+    /**
+     * serial UID
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the last item of the pattern
+     */
+    final int item;
+    /**
+     * true if the item was appended to the last itemset of the parent pattern
+     */
+    final boolean itemsetExtension;
+    /**
+     * the IDList of the pattern, or null if the pattern is in the negative border
+     */
+    IDList idList;
+    /**
+     * the support of the pattern, when it has no IDList
+     */
+    int support;
+    /**
+     * the sequence extensions of the pattern, by item, or null if the node is not expanded
+     */
+    TreeMap<Integer, LatticeNode> sequenceExtensions;
+    /**
+     * the itemset extensions of the pattern, by item, or null if the node is not expanded
+     */
+    TreeMap<Integer, LatticeNode> itemsetExtensions;
+
+    /**
+     * Constructor
+     *
+     * @param item             the last item of the pattern
+     * @param itemsetExtension true if the item is appended to the last itemset of the parent pattern
+     * @param idList           the IDList of the pattern, or null
+     * @param support          the support of the pattern, if it has no IDList
+     */
+    LatticeNode(int item, boolean itemsetExtension, IDList idList, int support) {
+        this.item = item;
+        this.itemsetExtension = itemsetExtension;
+        this.idList = idList;
+        this.support = support;
+    }
+
+    /**
+     * Get the support of the pattern
+     *
+     * @return the number of sequences where the pattern appears
+     */
+    int getSupport() {
+        return idList != null ? idList.getSupport() : support;
+    }
+
+    /**
+     * Check if the extensions of this pattern have been computed
+     *
+     * @return true if the node is expanded
+     */
+    boolean isExpanded() {
+        return sequenceExtensions != null;
+    }
+
+    /**
+     * Forget the extensions of this pattern, which puts the node back in the
+     * negative border
+     */
+    void collapse() {
+        sequenceExtensions = null;
+        itemsetExtensions = null;
+    }
+}
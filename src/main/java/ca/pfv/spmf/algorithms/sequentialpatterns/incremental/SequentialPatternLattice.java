@@ -0,0 +1,494 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.incremental;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The lattice of sequential patterns maintained by the incremental sequential
+ * pattern miner, with the IDLists of its patterns.
+ * <br/><br/>
+ * The first level of the lattice contains all the items of the database, and
+ * their IDLists are the vertical representation of the database, so that the
+ * sequences do not need to be kept. Each frequent pattern is expanded: its
+ * node has a child for every extension of the pattern with an "extension
+ * item" that appears in at least one sequence, frequent or not. The extension
+ * items are the items that have been frequent at least once. The children
+ * that are not frequent form the negative border, for which only the support
+ * is kept.
+ * <br/><br/>
+ * When sequences are added, or itemsets are appended to sequences, only the
+ * positions of the patterns in these sequences are computed, by joining the
+ * IDLists of the parent patterns with the IDLists of the items of these
+ * sequences only. For a border pattern, the sequences where it appears for
+ * the first time are added to its support. The border patterns that become
+ * frequent get their IDList from the IDList of their parent and are then
+ * expanded, so that the database never has to be scanned again.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AlgoIncrementalSPM
+ */
+public class SequentialPatternLattice implements Serializable {
+
+    /**
+     * serial UID
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the nodes of the patterns containing a single item, by item
+     */
+    private final TreeMap<Integer, LatticeNode> itemNodes = new TreeMap<Integer, LatticeNode>();
+    /**
+     * the items used to extend the frequent patterns
+     */
+    private final TreeSet<Integer> extensionItems = new TreeSet<Integer>();
+    /**
+     * the number of itemsets of each sequence
+     */
+    private int[] itemsetCounts = new int[16];
+    /**
+     * the number of sequences
+     */
+    private int sequenceCount = 0;
+    /**
+     * the number of IDList joins done by the last update
+     */
+    private transient long joinCount;
+    /**
+     * during an update, the position of the first new itemset of each sequence that changed
+     */
+    private transient Map<Integer, Integer> firstNewPositions;
+    /**
+     * during an update, the items of each sequence that changed
+     */
+    private transient Map<Integer, List<Integer>> updatedSequenceItems;
+
+    /**
+     * Update the lattice with new sequences and with itemsets appended to
+     * existing sequences. The sequences are in SPMF format, as arrays of items
+     * where -1 ends an itemset and -2 ends the sequence. After the update, all
+     * the patterns having at least the given support are expanded.
+     *
+     * @param newSequences      the new sequences, which are given the next sequence identifiers
+     * @param appendedItemsets  the itemsets appended to existing sequences, by sequence identifier
+     * @param minsupAbsolute    the minimum support, as a number of sequences
+     * @return the number of frequent patterns
+     */
+    public int update(List<int[]> newSequences, Map<Integer, int[]> appendedItemsets, int minsupAbsolute) {
+        joinCount = 0;
+        firstNewPositions = new HashMap<Integer, Integer>();
+        updatedSequenceItems = new HashMap<Integer, List<Integer>>();
+
+        // Update the IDLists of the items and remember the sequences that changed for each item
+        Map<Integer, List<Integer>> updatedSequencesByItem = new HashMap<Integer, List<Integer>>();
+        for (Entry<Integer, int[]> entry : appendedItemsets.entrySet()) {
+            int sequenceID = entry.getKey();
+            if (sequenceID < 0 || sequenceID >= sequenceCount) {
+                throw new IllegalArgumentException("There is no sequence with the identifier " + sequenceID);
+            }
+            firstNewPositions.put(sequenceID, itemsetCounts[sequenceID]);
+            addItemsets(sequenceID, entry.getValue(), itemsetCounts[sequenceID], null);
+        }
+        for (int[] sequence : newSequences) {
+            if (sequenceCount == itemsetCounts.length) {
+                itemsetCounts = Arrays.copyOf(itemsetCounts, sequenceCount * 2);
+            }
+            firstNewPositions.put(sequenceCount, 0);
+            addItemsets(sequenceCount, sequence, 0, updatedSequencesByItem);
+            sequenceCount++;
+        }
+        // A pattern may have new occurrences in a sequence where itemsets were appended
+        // even if its own items were not appended, so all the items appearing in such a
+        // sequence are updated for it
+        if (!appendedItemsets.isEmpty()) {
+            for (LatticeNode itemNode : itemNodes.values()) {
+                for (Integer sequenceID : appendedItemsets.keySet()) {
+                    if (itemNode.idList.getPositions(sequenceID) != null) {
+                        getList(updatedSequencesByItem, itemNode.item).add(sequenceID);
+                        getList(updatedSequenceItems, sequenceID).add(itemNode.item);
+                    }
+                }
+            }
+        }
+
+        // Compute the positions of the patterns in the sequences that changed
+        for (Entry<Integer, List<Integer>> entry : updatedSequencesByItem.entrySet()) {
+            LatticeNode itemNode = itemNodes.get(entry.getKey());
+            if (itemNode.isExpanded()) {
+                updateExtensions(itemNode, entry.getValue());
+            }
+        }
+
+        // The items that become frequent are used to extend the patterns that were already expanded
+        List<Integer> newExtensionItems = new ArrayList<Integer>();
+        for (LatticeNode itemNode : itemNodes.values()) {
+            if (itemNode.idList.getSupport() >= minsupAbsolute && extensionItems.add(itemNode.item)) {
+                newExtensionItems.add(itemNode.item);
+            }
+        }
+
+        // Expand the frequent patterns and collapse the patterns that are not frequent anymore
+        int frequentPatternCount = 0;
+        for (LatticeNode itemNode : itemNodes.values()) {
+            frequentPatternCount += expandFrequentPatterns(itemNode, null, minsupAbsolute, newExtensionItems);
+        }
+        firstNewPositions = null;
+        updatedSequenceItems = null;
+        return frequentPatternCount;
+    }
+
+    /**
+     * Add itemsets to a sequence, in the IDLists of their items
+     *
+     * @param sequenceID             the sequence identifier
+     * @param sequence               the itemsets, in SPMF format
+     * @param firstPosition          the position of the first itemset in the sequence
+     * @param updatedSequencesByItem where the sequence is recorded for each item that appears, or null
+     */
+    private void addItemsets(int sequenceID, int[] sequence, int firstPosition, Map<Integer, List<Integer>> updatedSequencesByItem) {
+        Map<Integer, List<Integer>> positionsByItem = new HashMap<Integer, List<Integer>>();
+        int position = firstPosition;
+        boolean itemsetIsEmpty = true;
+        for (int token : sequence) {
+            if (token >= 0) {
+                List<Integer> positions = getList(positionsByItem, token);
+                // an item appearing twice in the same itemset is counted once
+                if (positions.isEmpty() || positions.get(positions.size() - 1) != position) {
+                    positions.add(position);
+                }
+                itemsetIsEmpty = false;
+            } else if (token == -1) {
+                if (!itemsetIsEmpty) {
+                    position++;
+                    itemsetIsEmpty = true;
+                }
+            } else if (token == -2) {
+                break;
+            }
+        }
+        if (!itemsetIsEmpty) {
+            position++;
+        }
+        itemsetCounts[sequenceID] = position;
+
+        for (Entry<Integer, List<Integer>> entry : positionsByItem.entrySet()) {
+            int item = entry.getKey();
+            LatticeNode itemNode = itemNodes.get(item);
+            if (itemNode == null) {
+                itemNode = new LatticeNode(item, false, new IDList(), 0);
+                itemNodes.put(item, itemNode);
+            }
+            int[] oldPositions = itemNode.idList.getPositions(sequenceID);
+            int oldLength = oldPositions == null ? 0 : oldPositions.length;
+            int[] positions = oldPositions == null ? new int[entry.getValue().size()]
+                    : Arrays.copyOf(oldPositions, oldLength + entry.getValue().size());
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                positions[oldLength + i] = entry.getValue().get(i);
+            }
+            itemNode.idList.setPositions(sequenceID, positions);
+            if (updatedSequencesByItem != null) {
+                getList(updatedSequencesByItem, item).add(sequenceID);
+                getList(updatedSequenceItems, sequenceID).add(item);
+            }
+        }
+    }
+
+    /**
+     * Compute again the positions of the extensions of an expanded pattern in
+     * some sequences, and do the same for the extensions that are expanded.
+     * Only the extensions with the items of these sequences can change.
+     *
+     * @param node        the node of the pattern
+     * @param sequenceIDs the sequences that changed and where the pattern appears
+     */
+    private void updateExtensions(LatticeNode node, List<Integer> sequenceIDs) {
+        TreeSet<Integer> items = new TreeSet<Integer>();
+        for (Integer sequenceID : sequenceIDs) {
+            for (Integer item : updatedSequenceItems.get(sequenceID)) {
+                if (extensionItems.contains(item)) {
+                    items.add(item);
+                }
+            }
+        }
+        for (Integer item : items) {
+            IDList itemIDList = itemNodes.get(item).idList;
+            updateExtension(node, node.sequenceExtensions, item, false, itemIDList, sequenceIDs);
+            if (item > node.item) {
+                updateExtension(node, node.itemsetExtensions, item, true, itemIDList, sequenceIDs);
+            }
+        }
+    }
+
+    /**
+     * Compute again the positions of an extension of a pattern in some
+     * sequences. If the extension is in the negative border, only its support
+     * is updated, by counting the sequences where it did not appear before
+     * the update. The extension is added to the lattice if it did not appear
+     * in any sequence before.
+     *
+     * @param node             the node of the pattern
+     * @param extensions       the extensions of the pattern of the same kind
+     * @param item             the item of the extension
+     * @param itemsetExtension true for an itemset extension, false for a sequence extension
+     * @param itemIDList       the IDList of the item
+     * @param sequenceIDs      the sequences that changed and where the pattern appears
+     */
+    private void updateExtension(LatticeNode node, TreeMap<Integer, LatticeNode> extensions, int item, boolean itemsetExtension,
+                                 IDList itemIDList, List<Integer> sequenceIDs) {
+        joinCount++;
+        LatticeNode child = extensions.get(item);
+        if (child != null && child.idList != null) {
+            List<Integer> childSequenceIDs = new ArrayList<Integer>();
+            for (Integer sequenceID : sequenceIDs) {
+                int[] prefixPositions = node.idList.getPositions(sequenceID);
+                int[] itemPositions = itemIDList.getPositions(sequenceID);
+                int[] positions = itemsetExtension ? IDList.itemsetExtension(prefixPositions, itemPositions)
+                        : IDList.sequenceExtension(prefixPositions, itemPositions);
+                if (positions != null) {
+                    child.idList.setPositions(sequenceID, positions);
+                    childSequenceIDs.add(sequenceID);
+                } else {
+                    child.idList.removePositions(sequenceID);
+                }
+            }
+            if (child.isExpanded() && !childSequenceIDs.isEmpty()) {
+                updateExtensions(child, childSequenceIDs);
+            }
+        } else {
+            int newSupport = 0;
+            for (Integer sequenceID : sequenceIDs) {
+                int first = firstPosition(node.idList.getPositions(sequenceID), itemIDList.getPositions(sequenceID), itemsetExtension);
+                // an occurrence ending before the new itemsets was already counted
+                if (first >= firstNewPositions.get(sequenceID)) {
+                    newSupport++;
+                }
+            }
+            if (newSupport > 0) {
+                if (child == null) {
+                    extensions.put(item, new LatticeNode(item, itemsetExtension, null, newSupport));
+                } else {
+                    child.support += newSupport;
+                }
+            }
+        }
+    }
+
+    /**
+     * Expand a pattern and its frequent extensions recursively if the
+     * pattern is frequent, otherwise put it back in the negative border
+     *
+     * @param node              the node of the pattern
+     * @param parent            the node of the parent pattern, or null for a single item
+     * @param minsupAbsolute    the minimum support
+     * @param newExtensionItems the items that have just become extension items
+     * @return the number of frequent patterns in the sub-lattice of this pattern
+     */
+    private int expandFrequentPatterns(LatticeNode node, LatticeNode parent, int minsupAbsolute, List<Integer> newExtensionItems) {
+        if (node.getSupport() < minsupAbsolute) {
+            node.collapse();
+            // the IDLists of the items are kept, since they are the database
+            if (parent != null && node.idList != null) {
+                node.support = node.idList.getSupport();
+                node.idList = null;
+            }
+            return 0;
+        }
+        if (node.idList == null) {
+            node.idList = computeIDList(parent, node);
+        }
+        if (!node.isExpanded()) {
+            node.sequenceExtensions = new TreeMap<Integer, LatticeNode>();
+            node.itemsetExtensions = new TreeMap<Integer, LatticeNode>();
+            addExtensions(node, extensionItems);
+        } else {
+            addExtensions(node, newExtensionItems);
+        }
+        int frequentPatternCount = 1;
+        for (LatticeNode child : node.sequenceExtensions.values()) {
+            frequentPatternCount += expandFrequentPatterns(child, node, minsupAbsolute, newExtensionItems);
+        }
+        for (LatticeNode child : node.itemsetExtensions.values()) {
+            frequentPatternCount += expandFrequentPatterns(child, node, minsupAbsolute, newExtensionItems);
+        }
+        return frequentPatternCount;
+    }
+
+    /**
+     * Compute the IDList of a pattern of the negative border that becomes
+     * frequent, from the IDList of its parent
+     *
+     * @param parent the node of the parent pattern
+     * @param node   the node of the pattern
+     * @return the IDList
+     */
+    private IDList computeIDList(LatticeNode parent, LatticeNode node) {
+        joinCount++;
+        IDList itemIDList = itemNodes.get(node.item).idList;
+        IDList idList = new IDList();
+        for (Integer sequenceID : parent.idList.getSequenceIDs()) {
+            int[] prefixPositions = parent.idList.getPositions(sequenceID);
+            int[] itemPositions = itemIDList.getPositions(sequenceID);
+            int[] positions = node.itemsetExtension ? IDList.itemsetExtension(prefixPositions, itemPositions)
+                    : IDList.sequenceExtension(prefixPositions, itemPositions);
+            if (positions != null) {
+                idList.setPositions(sequenceID, positions);
+            }
+        }
+        return idList;
+    }
+
+    /**
+     * Add the extensions of a pattern with some items to the negative border,
+     * with their support computed from the whole IDList of the pattern
+     *
+     * @param node  the node of the pattern
+     * @param items the items
+     */
+    private void addExtensions(LatticeNode node, Collection<Integer> items) {
+        for (Integer item : items) {
+            IDList itemIDList = itemNodes.get(item).idList;
+            addExtension(node.sequenceExtensions, node.idList, item, false, itemIDList);
+            if (item > node.item) {
+                addExtension(node.itemsetExtensions, node.idList, item, true, itemIDList);
+            }
+        }
+    }
+
+    /**
+     * Add an extension of a pattern to the negative border, if it appears in
+     * at least one sequence
+     *
+     * @param extensions       the extensions of the pattern of the same kind
+     * @param prefixIDList     the IDList of the pattern
+     * @param item             the item of the extension
+     * @param itemsetExtension true for an itemset extension, false for a sequence extension
+     * @param itemIDList       the IDList of the item
+     */
+    private void addExtension(TreeMap<Integer, LatticeNode> extensions, IDList prefixIDList, int item, boolean itemsetExtension,
+                              IDList itemIDList) {
+        joinCount++;
+        int support = 0;
+        for (Integer sequenceID : prefixIDList.getSequenceIDs()) {
+            if (firstPosition(prefixIDList.getPositions(sequenceID), itemIDList.getPositions(sequenceID), itemsetExtension) >= 0) {
+                support++;
+            }
+        }
+        if (support > 0) {
+            extensions.put(item, new LatticeNode(item, itemsetExtension, null, support));
+        }
+    }
+
+    /**
+     * Get the first position where an extension of a pattern ends in a sequence
+     *
+     * @param prefixPositions  the positions of the pattern, or null
+     * @param itemPositions    the positions of the item, or null
+     * @param itemsetExtension true for an itemset extension, false for a sequence extension
+     * @return the position, or -1 if the extension does not appear in the sequence
+     */
+    private static int firstPosition(int[] prefixPositions, int[] itemPositions, boolean itemsetExtension) {
+        return itemsetExtension ? IDList.firstItemsetExtensionPosition(prefixPositions, itemPositions)
+                : IDList.firstSequenceExtensionPosition(prefixPositions, itemPositions);
+    }
+
+    /**
+     * Get the list associated to a key in a map, creating it if necessary
+     *
+     * @param map a map
+     * @param key a key
+     * @return the list
+     */
+    private static List<Integer> getList(Map<Integer, List<Integer>> map, Integer key) {
+        List<Integer> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<Integer>();
+            map.put(key, list);
+        }
+        return list;
+    }
+
+    /**
+     * Get the nodes of the patterns containing a single item
+     *
+     * @return the nodes, by item
+     */
+    Map<Integer, LatticeNode> getItemNodes() {
+        return Collections.unmodifiableMap(itemNodes);
+    }
+
+    /**
+     * Get the number of sequences
+     *
+     * @return the number of sequences
+     */
+    public int getSequenceCount() {
+        return sequenceCount;
+    }
+
+    /**
+     * Get the number of IDList joins done by the last update
+     *
+     * @return the number of joins
+     */
+    public long getJoinCount() {
+        return joinCount;
+    }
+
+    /**
+     * Get the number of patterns in the lattice, including the negative border
+     *
+     * @return the number of patterns
+     */
+    public int getNodeCount() {
+        int count = 0;
+        for (LatticeNode itemNode : itemNodes.values()) {
+            count += getNodeCount(itemNode);
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of nodes in the sub-lattice of a node
+     *
+     * @param node a node
+     * @return the number of nodes
+     */
+    private static int getNodeCount(LatticeNode node) {
+        int count = 1;
+        if (node.isExpanded()) {
+            for (LatticeNode child : node.sequenceExtensions.values()) {
+                count += getNodeCount(child);
+            }
+            for (LatticeNode child : node.itemsetExtensions.values()) {
+                count += getNodeCount(child);
+            }
+        }
+        return count;
+    }
+}
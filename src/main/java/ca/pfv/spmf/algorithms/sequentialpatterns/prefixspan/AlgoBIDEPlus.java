@@ -124,6 +124,20 @@ public class AlgoBIDEPlus {
      */
     private int maximumPatternLength = 1000;
     private final int[] patternBuffer = new int[BUFFERS_SIZE];
+    /**
+     * the heap budget in megabytes for the sequences loaded at the same time, or 0 if the
+     * whole database is always loaded
+     */
+    private int memoryBudget = 0;
+    /**
+     * the number of partitions of the database that were mined, if it did not fit in the budget
+     */
+    private int partitionCount = 0;
+    /**
+     * the identifier in the whole database of each sequence of the current partition,
+     * or null if the whole database is loaded
+     */
+    private int[] sequenceIdentifiers = null;
 
     /**
      * Default constructor
@@ -148,10 +162,17 @@ public class AlgoBIDEPlus {
         // reset memory
         MemoryLogger.getInstance().reset();
 
-        // Load the sequence database
-        sequenceDatabase = new SequenceDatabase();
-        sequenceDatabase.loadFile(inputFile);
-        sequenceCount = sequenceDatabase.size();
+        // if there is a memory budget, the database is scanned before loading it
+        PartitionedSequenceDatabase partitionedDatabase = null;
+        if (memoryBudget > 0) {
+            partitionedDatabase = new PartitionedSequenceDatabase(inputFile, memoryBudget);
+            sequenceCount = partitionedDatabase.getSequenceCount();
+        } else {
+            // Load the sequence database
+            sequenceDatabase = new SequenceDatabase();
+            sequenceDatabase.loadFile(inputFile);
+            sequenceCount = sequenceDatabase.size();
+        }
 
         // convert to a absolute minimum support
         this.minsuppAbsolute = (int) Math.ceil(minsupRelative * sequenceCount);
@@ -160,7 +181,11 @@ public class AlgoBIDEPlus {
         }
 
         // run the algorithm
-        bide(sequenceDatabase, outputFilePath);
+        if (partitionedDatabase != null) {
+            bide(partitionedDatabase, outputFilePath);
+        } else {
+            bide(sequenceDatabase, outputFilePath);
+        }
 
         // release memory used by the sequence database
         sequenceDatabase = null;
@@ -195,13 +220,16 @@ public class AlgoBIDEPlus {
         // save the start time
         startTime = System.currentTimeMillis();
 
-        // Load the sequence database
-        sequenceDatabase = new SequenceDatabase();
-        sequenceDatabase.loadFile(inputFile);
-//		sequenceDatabase.print();
-
         // run the algorithm
-        bide(sequenceDatabase, outputFilePath);
+        if (memoryBudget > 0) {
+            bide(new PartitionedSequenceDatabase(inputFile, memoryBudget), outputFilePath);
+        } else {
+            // Load the sequence database
+            sequenceDatabase = new SequenceDatabase();
+            sequenceDatabase.loadFile(inputFile);
+//		    sequenceDatabase.print();
+            bide(sequenceDatabase, outputFilePath);
+        }
 
         // release memory
         sequenceDatabase = null;
@@ -255,6 +283,58 @@ public class AlgoBIDEPlus {
         }
     }
 
+    /**
+     * Run the BIDE+ algorithm on a database that may not fit in the memory budget.
+     * If it does not fit, the database is partitioned on disk by groups of frequent items,
+     * and the closed patterns starting with the items of each group are found by loading the
+     * partition of the group only. This gives the same result, since the sequences where a
+     * pattern or one of its extensions appears all contain the first item of the pattern.
+     *
+     * @param partitionedDatabase the database
+     * @param outputFilePath      an output file path if the result should be saved to a file
+     *                            or null if the result should be saved to memory.
+     * @throws IOException exception if an error while reading or writing a file
+     */
+    private void bide(PartitionedSequenceDatabase partitionedDatabase, String outputFilePath) throws IOException {
+        partitionCount = 0;
+        if (partitionedDatabase.fitsInMemory()) {
+            sequenceDatabase = partitionedDatabase.load();
+            bide(sequenceDatabase, outputFilePath);
+            return;
+        }
+        // if the user want to keep the result into memory
+        if (outputFilePath == null) {
+            writer = null;
+            patterns = new SequentialPatterns("FREQUENT SEQUENTIAL PATTERNS");
+        } else { // if the user want to save the result to a file
+            patterns = null;
+            writer = new BufferedWriter(new FileWriter(outputFilePath));
+        }
+        sequenceCount = partitionedDatabase.getSequenceCount();
+        containsItemsetsWithMultipleItems = partitionedDatabase.containsItemsetsWithMultipleItems();
+
+        try {
+            partitionedDatabase.partition(minsuppAbsolute);
+            partitionCount = partitionedDatabase.getPartitionCount();
+            // explore the projected databases of the items of each partition
+            for (int i = 0; i < partitionCount; i++) {
+                PartitionedSequenceDatabase.Partition partition = partitionedDatabase.loadPartition(i);
+                sequenceDatabase = partition.database;
+                sequenceIdentifiers = partition.sequenceIdentifiers;
+                MemoryLogger.getInstance().checkMemory();
+                if (containsItemsetsWithMultipleItems) {
+                    exploreMultipleItems(partition.mapSequenceID);
+                } else {
+                    exploreSingleItems(partition.mapSequenceID);
+                }
+                sequenceDatabase = null;
+            }
+        } finally {
+            sequenceIdentifiers = null;
+            partitionedDatabase.close();
+        }
+    }
+
     /**
      * Remove infrequent items from the sequence database, then save each pattern of length 1 having a frequency no less than
      * minsup, then recursively explore larger patterns.
@@ -313,6 +393,17 @@ public class AlgoBIDEPlus {
         }
 
         //============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+        exploreSingleItems(mapSequenceID);
+    }
+
+    /**
+     * Save each closed pattern of length 1 and recursively explore larger patterns, for a database
+     * where all itemsets contain a single item.
+     *
+     * @param mapSequenceID the set of items (Integer) with the corresponding IDs of sequence where they appears (List<Integer>)
+     * @throws IOException if error writing to file
+     */
+    private void exploreSingleItems(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
         // For each  item
         for (Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()) {
             // Get its support
@@ -603,6 +694,17 @@ public class AlgoBIDEPlus {
         }
 
         //============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+        exploreMultipleItems(mapSequenceID);
+    }
+
+    /**
+     * Save each closed pattern of length 1 and recursively explore larger patterns, for a database
+     * where itemsets may contain several items.
+     *
+     * @param mapSequenceID the set of items (Integer) with the corresponding IDs of sequence where they appears (List<Integer>)
+     * @throws IOException if error writing to file
+     */
+    private void exploreMultipleItems(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
         // For each  item
         for (Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()) {
             // Get its support
@@ -935,7 +1037,7 @@ public class AlgoBIDEPlus {
             if (showSequenceIdentifiers) {
                 r.append(" #SID: ");
                 for (Integer sid : sequenceIDs) {
-                    r.append(sid);
+                    r.append(getOriginalSequenceID(sid));
                     r.append(" ");
                 }
             }
@@ -949,6 +1051,13 @@ public class AlgoBIDEPlus {
             // Create an object to store the pattern
             SequentialPattern pattern = new SequentialPattern();
             pattern.addItemset(new Itemset(item));
+            if (sequenceIdentifiers != null) {
+                List<Integer> originalSequenceIDs = new ArrayList<Integer>(sequenceIDs.size());
+                for (Integer sid : sequenceIDs) {
+                    originalSequenceIDs.add(sequenceIdentifiers[sid]);
+                }
+                sequenceIDs = originalSequenceIDs;
+            }
             pattern.setSequenceIDs(sequenceIDs);
 
             // Store in a structure to store patterns
@@ -1000,7 +1109,7 @@ public class AlgoBIDEPlus {
             if (showSequenceIdentifiers) {
                 r.append(" #SID: ");
                 for (PseudoSequence sequence : pseudoSequences) {
-                    r.append(sequence.sequenceID);
+                    r.append(getOriginalSequenceID(sequence.sequenceID));
                     r.append(" ");
                 }
             }
@@ -1036,7 +1145,7 @@ public class AlgoBIDEPlus {
             // create a list to store the identifiers of sequences containing that pattern
             List<Integer> sequencesIDs = new ArrayList<Integer>(pseudoSequences.size());
             for (int i = 0; i < pseudoSequences.size(); i++) {
-                sequencesIDs.add(pseudoSequences.get(i).sequenceID);
+                sequencesIDs.add(getOriginalSequenceID(pseudoSequences.get(i).sequenceID));
             }
             pattern.setSequenceIDs(sequencesIDs);
 
@@ -1046,6 +1155,16 @@ public class AlgoBIDEPlus {
     }
 
 
+    /**
+     * Get the identifier in the whole database of a sequence of the loaded database
+     *
+     * @param sequenceID the position of the sequence in the loaded database
+     * @return the identifier of the sequence
+     */
+    private int getOriginalSequenceID(int sequenceID) {
+        return sequenceIdentifiers == null ? sequenceID : sequenceIdentifiers[sequenceID];
+    }
+
     /**
      * Scan the database to obtain the list of identifiers of sequences where each item appears, and also
      * determine if this database contains multiple items per itemset.
@@ -2385,6 +2504,7 @@ public class AlgoBIDEPlus {
                          " Pattern count : " +
                          patternCount +
                          '\n' +
+                         (partitionCount > 0 ? " Partitions on disk : " + partitionCount + '\n' : "") +
                          "==========================================================\n";
         // if the result was save into memory, print it
         System.out.println(r);
@@ -2408,6 +2528,21 @@ public class AlgoBIDEPlus {
         this.maximumPatternLength = maximumPatternLength;
     }
 
+    /**
+     * Set a heap budget for the sequences of the database (default: 0, no budget).
+     * If the database does not fit in half of the budget, it is partitioned on disk
+     * by groups of frequent items, and the partitions are loaded one at a time
+     * (see PartitionedSequenceDatabase). The result is the same.
+     *
+     * @param memoryBudget the budget in megabytes, or 0 to always load the whole database
+     */
+    public void setMemoryBudget(int memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("The memory budget cannot be negative");
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
     /**
      * Set that the sequence identifiers should be shown (true) or not (false) for each
      * pattern found
@@ -6,11 +6,16 @@ import ca.pfv.spmf.tools.MemoryLogger;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 /*** 
@@ -94,6 +99,29 @@ public class AlgoPrefixSpan {
      */
     private int maximumPatternLength = 1000;
     private final int[] patternBuffer = new int[BUFFERS_SIZE];
+    /**
+     * the number of threads used for exploring the projected databases
+     */
+    private int threadCount = 1;
+    /**
+     * the maximum number of frequent items explored in parallel per thread, ahead of
+     * the next item whose patterns are saved
+     */
+    private static final int PENDING_TASKS_PER_THREAD = 2;
+    /**
+     * the heap budget in megabytes for the sequences loaded at the same time, or 0 if the
+     * whole database is always loaded
+     */
+    private int memoryBudget = 0;
+    /**
+     * the number of partitions of the database that were mined, if it did not fit in the budget
+     */
+    private int partitionCount = 0;
+    /**
+     * the identifier in the whole database of each sequence of the current partition,
+     * or null if the whole database is loaded
+     */
+    private int[] sequenceIdentifiers = null;
 
     /**
      * Default constructor
@@ -118,10 +146,17 @@ public class AlgoPrefixSpan {
         // reset memory
         MemoryLogger.getInstance().reset();
 
-        // Load the sequence database
-        sequenceDatabase = new SequenceDatabase();
-        sequenceDatabase.loadFile(inputFile);
-        sequenceCount = sequenceDatabase.size();
+        // if there is a memory budget, the database is scanned before loading it
+        PartitionedSequenceDatabase partitionedDatabase = null;
+        if (memoryBudget > 0) {
+            partitionedDatabase = new PartitionedSequenceDatabase(inputFile, memoryBudget);
+            sequenceCount = partitionedDatabase.getSequenceCount();
+        } else {
+            // Load the sequence database
+            sequenceDatabase = new SequenceDatabase();
+            sequenceDatabase.loadFile(inputFile);
+            sequenceCount = sequenceDatabase.size();
+        }
 
         // convert to a absolute minimum support
         this.minsuppAbsolute = (int) Math.ceil(minsupRelative * sequenceCount);
@@ -130,7 +165,11 @@ public class AlgoPrefixSpan {
         }
 
         // run the algorithm
-        prefixSpan(sequenceDatabase, outputFilePath);
+        if (partitionedDatabase != null) {
+            prefixSpan(partitionedDatabase, outputFilePath);
+        } else {
+            prefixSpan(sequenceDatabase, outputFilePath);
+        }
 
         sequenceDatabase = null;
 
@@ -162,12 +201,15 @@ public class AlgoPrefixSpan {
         // save the start time
         startTime = System.currentTimeMillis();
 
-        // Load the sequence database
-        sequenceDatabase = new SequenceDatabase();
-        sequenceDatabase.loadFile(inputFile);
-
         // run the algorithm
-        prefixSpan(sequenceDatabase, outputFilePath);
+        if (memoryBudget > 0) {
+            prefixSpan(new PartitionedSequenceDatabase(inputFile, memoryBudget), outputFilePath);
+        } else {
+            // Load the sequence database
+            sequenceDatabase = new SequenceDatabase();
+            sequenceDatabase.loadFile(inputFile);
+            prefixSpan(sequenceDatabase, outputFilePath);
+        }
 
         sequenceDatabase = null;
 
@@ -217,6 +259,57 @@ public class AlgoPrefixSpan {
         }
     }
 
+    /**
+     * Run the PrefixSpan algorithm on a database that may not fit in the memory budget.
+     * If it does not fit, the database is partitioned on disk by groups of frequent items,
+     * and the patterns starting with the items of each group are found by loading the
+     * partition of the group only.
+     *
+     * @param partitionedDatabase the database
+     * @param outputFilePath      an output file path if the result should be saved to a file
+     *                            or null if the result should be saved to memory.
+     * @throws IOException exception if an error while reading or writing a file
+     */
+    private void prefixSpan(PartitionedSequenceDatabase partitionedDatabase, String outputFilePath) throws IOException {
+        partitionCount = 0;
+        if (partitionedDatabase.fitsInMemory()) {
+            sequenceDatabase = partitionedDatabase.load();
+            prefixSpan(sequenceDatabase, outputFilePath);
+            return;
+        }
+        // if the user want to keep the result into memory
+        if (outputFilePath == null) {
+            writer = null;
+            patterns = new SequentialPatterns("FREQUENT SEQUENTIAL PATTERNS");
+        } else { // if the user want to save the result to a file
+            patterns = null;
+            writer = new BufferedWriter(new FileWriter(outputFilePath));
+        }
+        sequenceCount = partitionedDatabase.getSequenceCount();
+        containsItemsetsWithMultipleItems = partitionedDatabase.containsItemsetsWithMultipleItems();
+
+        try {
+            partitionedDatabase.partition(minsuppAbsolute);
+            partitionCount = partitionedDatabase.getPartitionCount();
+            // explore the projected databases of the items of each partition
+            for (int i = 0; i < partitionCount; i++) {
+                PartitionedSequenceDatabase.Partition partition = partitionedDatabase.loadPartition(i);
+                sequenceDatabase = partition.database;
+                sequenceIdentifiers = partition.sequenceIdentifiers;
+                MemoryLogger.getInstance().checkMemory();
+                if (containsItemsetsWithMultipleItems) {
+                    exploreMultipleItems(partition.mapSequenceID);
+                } else {
+                    exploreSingleItems(partition.mapSequenceID);
+                }
+                sequenceDatabase = null;
+            }
+        } finally {
+            sequenceIdentifiers = null;
+            partitionedDatabase.close();
+        }
+    }
+
     /**
      * Remove infrequent items and explore each projected databas for itemsets of size 1
      *
@@ -271,6 +364,22 @@ public class AlgoPrefixSpan {
         }
 
         //============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+        exploreSingleItems(mapSequenceID);
+    }
+
+    /**
+     * Save each frequent item and explore its projected database, for a database
+     * where itemsets contain a single item
+     *
+     * @param mapSequenceID the set of items with the IDs of the sequences containing them
+     * @throws IOException if error writing to file
+     */
+    private void exploreSingleItems(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
+        // if several threads are used
+        if (threadCount > 1) {
+            exploreInParallel(mapSequenceID);
+            return;
+        }
         // For each frequent item
         for (Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()) {
             int support = entry.getValue().size();
@@ -368,6 +477,22 @@ public class AlgoPrefixSpan {
         }
 
         //============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+        exploreMultipleItems(mapSequenceID);
+    }
+
+    /**
+     * Save each frequent item and explore its projected database, for a database
+     * where itemsets may contain several items
+     *
+     * @param mapSequenceID the set of items with the IDs of the sequences containing them
+     * @throws IOException if error writing to file
+     */
+    private void exploreMultipleItems(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
+        // if several threads are used
+        if (threadCount > 1) {
+            exploreInParallel(mapSequenceID);
+            return;
+        }
         // For each frequent item
         for (Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()) {
             int support = entry.getValue().size();
@@ -396,6 +521,74 @@ public class AlgoPrefixSpan {
         }
     }
 
+    /**
+     * Explore the projected databases of the frequent items with several threads
+     * (see ParallelPrefixSpan). The patterns are saved in the same order as by the sequential version.
+     * The patterns of each item are saved as soon as the patterns of the previous items are saved,
+     * and at most PENDING_TASKS_PER_THREAD items per thread are explored ahead of the next item to save,
+     * so that the buffers of patterns waiting to be saved do not hold the whole result. However, the patterns
+     * of the subtree of an item are only saved when the whole subtree is explored, so the memory used by the
+     * buffers is not bounded if a single item has a very large number of patterns.
+     *
+     * @param mapSequenceID the set of items with the IDs of the sequences containing them
+     * @throws IOException if error writing to file
+     */
+    private void exploreInParallel(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
+        ParallelPrefixSpan engine = new ParallelPrefixSpan(sequenceDatabase.getSequences(), minsuppAbsolute,
+                                                           maximumPatternLength, showSequenceIdentifiers, writer == null,
+                                                           containsItemsetsWithMultipleItems, BUFFERS_SIZE,
+                                                           sequenceIdentifiers);
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            // the frequent items
+            List<Entry<Integer, List<Integer>>> frequentItems = new ArrayList<Entry<Integer, List<Integer>>>();
+            for (Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()) {
+                if (entry.getValue().size() >= minsuppAbsolute) {
+                    frequentItems.add(entry);
+                }
+            }
+            // the tasks of the items that are submitted and whose patterns are not saved yet
+            int maxPendingTasks = threadCount * PENDING_TASKS_PER_THREAD;
+            Deque<ForkJoinTask<ParallelPrefixSpan.Output>> pendingTasks =
+                    new ArrayDeque<ForkJoinTask<ParallelPrefixSpan.Output>>(maxPendingTasks);
+            int nextItem = 0;
+            // save the patterns of each item in order
+            for (int i = 0; i < frequentItems.size(); i++) {
+                // submit the tasks of the next items, until the maximum number of pending tasks is reached
+                if (maximumPatternLength > 1) {
+                    while (nextItem < frequentItems.size() && pendingTasks.size() < maxPendingTasks) {
+                        Entry<Integer, List<Integer>> next = frequentItems.get(nextItem++);
+                        pendingTasks.add(pool.submit(engine.createTask(next.getKey(), next.getValue())));
+                    }
+                }
+                Entry<Integer, List<Integer>> entry = frequentItems.get(i);
+                savePattern(entry.getKey(), entry.getValue().size(), entry.getValue());
+                if (maximumPatternLength > 1) {
+                    ParallelPrefixSpan.Output output = pendingTasks.poll().get();
+                    patternCount += output.patternCount;
+                    if (writer != null) {
+                        writer.write(output.text.toString());
+                    } else {
+                        for (SequentialPattern pattern : output.patterns) {
+                            patterns.addSequence(pattern, pattern.size());
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        MemoryLogger.getInstance().checkMemory();
+    }
+
     /**
      * This method saves a sequential pattern containing a single item to the output file or
      * in memory, depending on if the user provided an output file path or not
@@ -420,7 +613,7 @@ public class AlgoPrefixSpan {
             if (showSequenceIdentifiers) {
                 r.append(" #SID: ");
                 for (Integer sid : sequenceIDs) {
-                    r.append(sid);
+                    r.append(getOriginalSequenceID(sid));
                     r.append(" ");
                 }
             }
@@ -433,6 +626,13 @@ public class AlgoPrefixSpan {
         else {
             SequentialPattern pattern = new SequentialPattern();
             pattern.addItemset(new Itemset(item));
+            if (sequenceIdentifiers != null) {
+                List<Integer> originalSequenceIDs = new ArrayList<Integer>(sequenceIDs.size());
+                for (Integer sid : sequenceIDs) {
+                    originalSequenceIDs.add(sequenceIdentifiers[sid]);
+                }
+                sequenceIDs = originalSequenceIDs;
+            }
             pattern.setSequenceIDs(sequenceIDs);
             patterns.addSequence(pattern, 1);
         }
@@ -471,7 +671,7 @@ public class AlgoPrefixSpan {
             if (showSequenceIdentifiers) {
                 r.append(" #SID: ");
                 for (PseudoSequence sequence : pseudoSequences) {
-                    r.append(sequence.sequenceID);
+                    r.append(getOriginalSequenceID(sequence.sequenceID));
                     r.append(" ");
                 }
             }
@@ -500,7 +700,7 @@ public class AlgoPrefixSpan {
 
             List<Integer> sequencesIDs = new ArrayList<Integer>(pseudoSequences.size());
             for (int i = 0; i < pseudoSequences.size(); i++) {
-                sequencesIDs.add(pseudoSequences.get(i).sequenceID);
+                sequencesIDs.add(getOriginalSequenceID(pseudoSequences.get(i).sequenceID));
             }
             pattern.setSequenceIDs(sequencesIDs);
 //			System.out.println(pattern);
@@ -509,6 +709,16 @@ public class AlgoPrefixSpan {
     }
 
 
+    /**
+     * Get the identifier in the whole database of a sequence of the loaded database
+     *
+     * @param sequenceID the position of the sequence in the loaded database
+     * @return the identifier of the sequence
+     */
+    private int getOriginalSequenceID(int sequenceID) {
+        return sequenceIdentifiers == null ? sequenceID : sequenceIdentifiers[sequenceID];
+    }
+
     /**
      * For each item, calculate the sequence id of sequences containing that item
      *
@@ -980,6 +1190,8 @@ public class AlgoPrefixSpan {
                          " Pattern count : " +
                          patternCount +
                          '\n' +
+                         (threadCount > 1 ? " Threads : " + threadCount + '\n' : "") +
+                         (partitionCount > 0 ? " Partitions on disk : " + partitionCount + '\n' : "") +
                          "===================================================\n";
         // if the result was save into memory, print it
         if (patterns != null) {
@@ -1006,6 +1218,36 @@ public class AlgoPrefixSpan {
         this.maximumPatternLength = maximumPatternLength;
     }
 
+    /**
+     * Set the number of threads used for exploring the projected databases (default: 1).
+     * If more than one thread is used, the subtree of each frequent prefix is explored by
+     * a task of a ForkJoinPool, and the result is the same as with one thread. The patterns of
+     * the subtree of each frequent item are kept in memory until they are written to the file.
+     *
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Set a heap budget for the sequences of the database (default: 0, no budget).
+     * If the database does not fit in half of the budget, it is partitioned on disk
+     * by groups of frequent items, and the partitions are loaded one at a time
+     * (see PartitionedSequenceDatabase). The result is the same.
+     *
+     * @param memoryBudget the budget in megabytes, or 0 to always load the whole database
+     */
+    public void setMemoryBudget(int memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("The memory budget cannot be negative");
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
     /**
      * Set that the sequence identifiers should be shown (true) or not (false) for each
      * pattern found
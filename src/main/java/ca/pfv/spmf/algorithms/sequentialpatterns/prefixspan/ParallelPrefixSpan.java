@@ -0,0 +1,669 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
+import ca.pfv.spmf.tools.MemoryLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/***
+ * This class performs the depth-first search of PrefixSpan with several threads. It is used by
+ * AlgoPrefixSpan when the number of threads is larger than 1.
+ * <br/><br/>
+ * The subtree of each frequent prefix is explored by a task of a ForkJoinPool. A task explores
+ * the small projected databases itself, and creates a new task for each large projected database, which
+ * may be executed by another thread (work-stealing).
+ * <br/><br/>
+ * Instead of PseudoSequence objects, a projected database is an array of int where each pseudo-sequence is stored as two
+ * values (sequence ID, index of the first item). The items of a projected database are counted with arrays
+ * indexed by item (one set of arrays per thread) instead of maps, and the projected databases of the frequent items are created by a second
+ * scan, with arrays of the exact size.
+ * <br/><br/>
+ * The output of each task is kept in a buffer, and the buffers are appended in the order in which the sequential
+ * version of PrefixSpan finds the patterns. The items are also explored in the same order as the sequential version (the
+ * order of iteration of its HashMaps). Thus, the output is identical to the output of the sequential version.
+ * Note that the output of a frequent item is kept in memory until all the patterns of its subtree are found,
+ * since the patterns of the previous items must be written first. Thus, if the subtree of a single item contains
+ * a very large number of patterns, they are all held in memory at the same time.
+ * <br/><br/>
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AlgoPrefixSpan
+ */
+class ParallelPrefixSpan {
+
+    /**
+     * a projected database containing at least this number of pseudo-sequences
+     * is explored by a new task (the smaller ones are explored by the current task)
+     */
+    static final int FORK_THRESHOLD = 64;
+
+    /**
+     * the sequences of the database (after removing the infrequent items)
+     */
+    private final List<int[]> sequences;
+    /**
+     * absolute minimum support
+     */
+    private final int minsuppAbsolute;
+    /**
+     * maximum pattern length in terms of item count
+     */
+    private final int maximumPatternLength;
+    /**
+     * if true, sequence identifiers of each pattern will be shown
+     */
+    private final boolean showSequenceIdentifiers;
+    /**
+     * if true, the patterns are kept in memory, otherwise they are written as text
+     */
+    private final boolean saveToMemory;
+    /**
+     * true if the database contains itemsets with multiple items
+     */
+    private final boolean containsItemsetsWithMultipleItems;
+    /**
+     * the largest item of the database
+     */
+    private final int maxItem;
+    /**
+     * the size of the buffers for storing a prefix
+     */
+    private final int bufferSize;
+    /**
+     * the identifier in the whole database of each sequence, or null if the sequences are the whole database
+     */
+    private final int[] sequenceIdentifiers;
+
+    /**
+     * the arrays for counting the items (one per thread)
+     */
+    private final ThreadLocal<ItemCounters> counters = new ThreadLocal<ItemCounters>() {
+        @Override
+        protected ItemCounters initialValue() {
+            return new ItemCounters(maxItem);
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param sequences                         the sequences of the database (after removing the infrequent items)
+     * @param minsuppAbsolute                   the absolute minimum support
+     * @param maximumPatternLength              the maximum pattern length in terms of item count
+     * @param showSequenceIdentifiers           if true, the sequence identifiers of each pattern are written
+     * @param saveToMemory                      if true, the patterns are kept in memory
+     * @param containsItemsetsWithMultipleItems true if the database contains itemsets with multiple items
+     * @param bufferSize                        the size of the buffers for storing a prefix
+     * @param sequenceIdentifiers               the identifier in the whole database of each sequence,
+     *                                          or null if the sequences are the whole database
+     */
+    ParallelPrefixSpan(List<int[]> sequences, int minsuppAbsolute, int maximumPatternLength,
+                       boolean showSequenceIdentifiers, boolean saveToMemory,
+                       boolean containsItemsetsWithMultipleItems, int bufferSize, int[] sequenceIdentifiers) {
+        this.sequences = sequences;
+        this.minsuppAbsolute = minsuppAbsolute;
+        this.maximumPatternLength = maximumPatternLength;
+        this.showSequenceIdentifiers = showSequenceIdentifiers;
+        this.saveToMemory = saveToMemory;
+        this.containsItemsetsWithMultipleItems = containsItemsetsWithMultipleItems;
+        this.bufferSize = bufferSize;
+        this.sequenceIdentifiers = sequenceIdentifiers;
+
+        // find the largest item
+        int max = 0;
+        for (int[] sequence : sequences) {
+            if (sequence != null) {
+                for (int token : sequence) {
+                    if (token > max) {
+                        max = token;
+                    }
+                }
+            }
+        }
+        this.maxItem = max;
+    }
+
+    /**
+     * Create the task that explores the patterns starting with a frequent item
+     * (the pattern containing only the item is not saved by the task)
+     *
+     * @param item        the item
+     * @param sequenceIDs the IDs of the sequences containing the item
+     * @return the task
+     */
+    RecursiveTask<Output> createTask(final int item, final List<Integer> sequenceIDs) {
+        return new RecursiveTask<Output>() {
+            /**
+             * serial UID
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected Output compute() {
+                int[] buffer = new int[bufferSize];
+                buffer[0] = item;
+                return new PrefixTask(buffer, 0, 2, projectFirstItem(item, sequenceIDs)).compute();
+            }
+        };
+    }
+
+    /**
+     * Create the projected database of an item by pseudo-projection of the initial database
+     * (the same as buildProjectedDatabaseSingleItems() and buildProjectedDatabaseFirstTimeMultipleItems()
+     * of AlgoPrefixSpan)
+     *
+     * @param item        the item
+     * @param sequenceIDs the IDs of the sequences containing the item
+     * @return the projected database as pairs (sequence ID, index of the first item)
+     */
+    private int[] projectFirstItem(int item, List<Integer> sequenceIDs) {
+        int[] projection = new int[sequenceIDs.size() * 2];
+        int size = 0;
+        // for each sequence that contains the current item
+        loopSeq:
+        for (int sequenceID : sequenceIDs) {
+            int[] sequence = sequences.get(sequenceID);
+            for (int j = 0; sequence[j] != -2; j++) {
+                if (sequence[j] == item) {
+                    // if it is not the end of the sequence
+                    boolean isEndOfSequence = containsItemsetsWithMultipleItems
+                                              ? sequence[j + 1] == -1 && sequence[j + 2] == -2
+                                              : sequence[j + 1] == -2;
+                    if (!isEndOfSequence) {
+                        projection[size++] = sequenceID;
+                        projection[size++] = j + 1;
+                    }
+                    continue loopSeq;
+                }
+            }
+        }
+        return size == projection.length ? projection : Arrays.copyOf(projection, size);
+    }
+
+    /**
+     * A task that explores the extensions of a prefix
+     */
+    private class PrefixTask extends RecursiveTask<Output> {
+        /**
+         * serial UID
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * the prefix (this buffer belongs to the task)
+         */
+        private final int[] buffer;
+        /**
+         * the last position used in the buffer for storing the prefix
+         */
+        private final int lastBufferPosition;
+        /**
+         * the length of the extensions of the prefix in terms of items
+         */
+        private final int k;
+        /**
+         * the projected database of the prefix
+         */
+        private final int[] projection;
+
+        /**
+         * the output of the task, in order: the buffers of the task (Output) and the
+         * tasks created by this task (ForkJoinTask)
+         */
+        private transient List<Object> parts = null;
+        /**
+         * the buffer where the patterns are currently saved
+         */
+        private transient Output current = null;
+
+        PrefixTask(int[] buffer, int lastBufferPosition, int k, int[] projection) {
+            this.buffer = buffer;
+            this.lastBufferPosition = lastBufferPosition;
+            this.k = k;
+            this.projection = projection;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Output compute() {
+            parts = new ArrayList<Object>();
+            current = new Output();
+            if (containsItemsetsWithMultipleItems) {
+                recursion(lastBufferPosition, k, projection);
+            } else {
+                recursionSingleItems(lastBufferPosition, k, projection);
+            }
+            if (parts.isEmpty()) {
+                return current;
+            }
+            parts.add(current);
+            // append the output of the subtasks in order
+            Output result = new Output();
+            for (Object part : parts) {
+                if (part instanceof Output) {
+                    result.append((Output) part);
+                } else {
+                    result.append(((ForkJoinTask<Output>) part).join());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Explore the extensions of a prefix (database without itemsets of multiple items)
+         *
+         * @param lastBufferPosition the last position used in the buffer for storing the prefix
+         * @param k                  the length of the extensions in terms of items
+         * @param database           the projected database of the prefix
+         */
+        private void recursionSingleItems(int lastBufferPosition, int k, int[] database) {
+            ItemCounters counter = counters.get();
+            ItemCounter items = counter.normal;
+
+            // count the support of each item
+            for (int j = 0; j < database.length; j += 2) {
+                int sequenceID = database[j];
+                int[] sequence = sequences.get(sequenceID);
+                for (int i = database[j + 1]; sequence[i] != -2; i++) {
+                    if (sequence[i] > 0) {
+                        items.count(sequence[i], sequenceID);
+                    }
+                }
+            }
+            // create the projected databases of the frequent items
+            items.prepareProjections(minsuppAbsolute);
+            for (int j = 0; j < database.length; j += 2) {
+                int sequenceID = database[j];
+                int[] sequence = sequences.get(sequenceID);
+                for (int i = database[j + 1]; sequence[i] != -2; i++) {
+                    if (sequence[i] > 0) {
+                        items.project(sequence[i], sequenceID, i + 1);
+                    }
+                }
+            }
+            int[] frequentItems = items.getFrequentItems(minsuppAbsolute);
+            int[][] projections = items.getProjections(frequentItems);
+            items.clear();
+            MemoryLogger.getInstance().checkMemory();
+
+            // for each frequent item, in the order of the sequential version
+            for (int i = 0; i < frequentItems.length; i++) {
+                // Create the new pattern by appending the item as a new itemset to the sequence
+                buffer[lastBufferPosition + 1] = -1;
+                buffer[lastBufferPosition + 2] = frequentItems[i];
+                savePattern(lastBufferPosition + 2, projections[i]);
+                if (k < maximumPatternLength) {
+                    explore(lastBufferPosition + 2, k + 1, projections[i]);
+                }
+                projections[i] = null;
+            }
+        }
+
+        /**
+         * Explore the extensions of a prefix (database with itemsets of multiple items)
+         *
+         * @param lastBufferPosition the last position used in the buffer for storing the prefix
+         * @param k                  the length of the extensions in terms of items
+         * @param database           the projected database of the prefix
+         */
+        private void recursion(int lastBufferPosition, int k, int[] database) {
+            ItemCounters counter = counters.get();
+
+            // count the support of each item as an i-extension (postfix) and s-extension
+            scanMultipleItems(counter, lastBufferPosition, database, false);
+            // create the projected databases of the frequent items
+            counter.postfix.prepareProjections(minsuppAbsolute);
+            counter.normal.prepareProjections(minsuppAbsolute);
+            scanMultipleItems(counter, lastBufferPosition, database, true);
+
+            int[] postfixItems = counter.postfix.getFrequentItems(minsuppAbsolute);
+            int[][] postfixProjections = counter.postfix.getProjections(postfixItems);
+            int[] normalItems = counter.normal.getFrequentItems(minsuppAbsolute);
+            int[][] normalProjections = counter.normal.getProjections(normalItems);
+            counter.postfix.clear();
+            counter.normal.clear();
+            MemoryLogger.getInstance().checkMemory();
+
+            // For each item that extends the last itemset of the prefix
+            for (int i = 0; i < postfixItems.length; i++) {
+                // we append it to the last itemset of the prefix
+                int newBufferPosition = lastBufferPosition + 1;
+                buffer[newBufferPosition] = postfixItems[i];
+                savePattern(newBufferPosition, postfixProjections[i]);
+                if (k < maximumPatternLength) {
+                    explore(newBufferPosition, k + 1, postfixProjections[i]);
+                }
+                postfixProjections[i] = null;
+            }
+            // For each item that extends the prefix with a new itemset
+            for (int i = 0; i < normalItems.length; i++) {
+                int newBufferPosition = lastBufferPosition + 1;
+                buffer[newBufferPosition] = -1;
+                newBufferPosition++;
+                buffer[newBufferPosition] = normalItems[i];
+                savePattern(newBufferPosition, normalProjections[i]);
+                if (k < maximumPatternLength) {
+                    explore(newBufferPosition, k + 1, normalProjections[i]);
+                }
+                normalProjections[i] = null;
+            }
+        }
+
+        /**
+         * Scan a projected database to count the items (same as findAllFrequentPairs() of AlgoPrefixSpan)
+         * or to create their projected databases.
+         *
+         * @param counter            the arrays for counting the items
+         * @param lastBufferPosition the last position used in the buffer for storing the prefix
+         * @param database           the projected database
+         * @param project            false to count the items, true to create their projected databases
+         */
+        private void scanMultipleItems(ItemCounters counter, int lastBufferPosition, int[] database, boolean project) {
+            // find the position of the first item of the last itemset of the prefix
+            int firstPositionOfLastItemsetInBuffer = lastBufferPosition;
+            while (lastBufferPosition > 0) {
+                firstPositionOfLastItemsetInBuffer--;
+                if (firstPositionOfLastItemsetInBuffer < 0 || buffer[firstPositionOfLastItemsetInBuffer] == -1) {
+                    firstPositionOfLastItemsetInBuffer++;
+                    break;
+                }
+            }
+            // use a variable to try to match the last itemset of the pattern in the buffer
+            int positionToBeMatched = firstPositionOfLastItemsetInBuffer;
+
+            for (int j = 0; j < database.length; j += 2) {
+                int sequenceID = database[j];
+                int[] sequence = sequences.get(sequenceID);
+                int indexFirstItem = database[j + 1];
+
+                // the first itemset is a postfix if the previous token is not the end of an itemset
+                boolean currentItemsetIsPostfix = (sequence[indexFirstItem - 1] != -1);
+                boolean isFirstItemset = true;
+
+                for (int i = indexFirstItem; sequence[i] != -2; i++) {
+                    int token = sequence[i];
+                    if (token > 0) {
+                        ItemCounter items = currentItemsetIsPostfix ? counter.postfix : counter.normal;
+                        if (project) {
+                            items.project(token, sequenceID, i + 1);
+                        } else {
+                            items.count(token, sequenceID);
+                        }
+                        // if the current itemset is a postfix and it is not the first itemset
+                        // the item may also extend the prefix with a new itemset
+                        if (currentItemsetIsPostfix && !isFirstItemset) {
+                            if (project) {
+                                counter.normal.project(token, sequenceID, i + 1);
+                            } else {
+                                counter.normal.count(token, sequenceID);
+                            }
+                        }
+                        //  try to match this item with the last itemset in the prefix
+                        if (!currentItemsetIsPostfix && buffer[positionToBeMatched] == token) {
+                            positionToBeMatched++;
+                            if (positionToBeMatched > lastBufferPosition) {
+                                currentItemsetIsPostfix = true;
+                            }
+                        }
+                    } else if (token == -1) {
+                        isFirstItemset = false;
+                        currentItemsetIsPostfix = false;
+                        positionToBeMatched = firstPositionOfLastItemsetInBuffer;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Explore the extensions of a pattern in this task or in a new task
+         *
+         * @param lastBufferPosition the last position used in the buffer for storing the pattern
+         * @param k                  the length of the extensions in terms of items
+         * @param database           the projected database of the pattern
+         */
+        private void explore(int lastBufferPosition, int k, int[] database) {
+            if (database.length / 2 >= FORK_THRESHOLD) {
+                // the output of the new task will be inserted here
+                PrefixTask task = new PrefixTask(Arrays.copyOf(buffer, buffer.length), lastBufferPosition, k, database);
+                task.fork();
+                parts.add(current);
+                parts.add(task);
+                current = new Output();
+            } else if (containsItemsetsWithMultipleItems) {
+                recursion(lastBufferPosition, k, database);
+            } else {
+                recursionSingleItems(lastBufferPosition, k, database);
+            }
+        }
+
+        /**
+         * Save a pattern containing two or more items (same as savePattern() of AlgoPrefixSpan)
+         *
+         * @param lastBufferPosition the last position in the buffer for this pattern
+         * @param database           the projected database of the pattern
+         */
+        private void savePattern(int lastBufferPosition, int[] database) {
+            current.patternCount++;
+            int support = database.length / 2;
+            if (!saveToMemory) {
+                StringBuilder r = current.text;
+                for (int i = 0; i <= lastBufferPosition; i++) {
+                    r.append(buffer[i]);
+                    r.append(' ');
+                }
+                if (buffer[lastBufferPosition] != -1) {
+                    r.append("-1 ");
+                }
+                r.append("#SUP: ");
+                r.append(support);
+                if (showSequenceIdentifiers) {
+                    r.append(" #SID: ");
+                    for (int j = 0; j < database.length; j += 2) {
+                        r.append(sequenceIdentifiers == null ? database[j] : sequenceIdentifiers[database[j]]);
+                        r.append(' ');
+                    }
+                }
+                r.append(System.lineSeparator());
+            } else {
+                SequentialPattern pattern = new SequentialPattern();
+                Itemset currentItemset = new Itemset();
+                for (int i = 0; i <= lastBufferPosition; i++) {
+                    int token = buffer[i];
+                    if (token > 0) {
+                        currentItemset.addItem(token);
+                    } else if (token == -1) {
+                        pattern.addItemset(currentItemset);
+                        currentItemset = new Itemset();
+                    }
+                }
+                pattern.addItemset(currentItemset);
+                List<Integer> sequencesIDs = new ArrayList<Integer>(support);
+                for (int j = 0; j < database.length; j += 2) {
+                    sequencesIDs.add(sequenceIdentifiers == null ? database[j] : sequenceIdentifiers[database[j]]);
+                }
+                pattern.setSequenceIDs(sequencesIDs);
+                current.patterns.add(pattern);
+            }
+        }
+    }
+
+    /**
+     * The patterns found by a task
+     */
+    static class Output {
+        /**
+         * the patterns as text (if they are written to a file)
+         */
+        final StringBuilder text = new StringBuilder();
+        /**
+         * the patterns (if they are kept in memory)
+         */
+        final List<SequentialPattern> patterns = new ArrayList<SequentialPattern>();
+        /**
+         * the number of patterns
+         */
+        int patternCount = 0;
+
+        void append(Output other) {
+            text.append(other.text);
+            patterns.addAll(other.patterns);
+            patternCount += other.patternCount;
+        }
+    }
+
+    /**
+     * The arrays of a thread for counting the items as i-extensions and s-extensions
+     */
+    private static class ItemCounters {
+        /**
+         * items in an itemset that is cut (i-extensions)
+         */
+        final ItemCounter postfix;
+        /**
+         * items in the next itemsets (s-extensions)
+         */
+        final ItemCounter normal;
+
+        ItemCounters(int maxItem) {
+            postfix = new ItemCounter(maxItem);
+            normal = new ItemCounter(maxItem);
+        }
+    }
+
+    /**
+     * Arrays indexed by item for counting the support of items in a projected database and creating
+     * their projected databases. Only the entries of the items that were seen are reset after use.
+     */
+    private static class ItemCounter {
+        /**
+         * the support of each item
+         */
+        final int[] support;
+        /**
+         * the last sequence where each item was counted (or projected)
+         */
+        final int[] lastSequenceID;
+        /**
+         * the projected database of each frequent item, and the next position to fill in it
+         */
+        final int[][] projections;
+        final int[] fillPositions;
+        /**
+         * the items that were seen, in the order in which they were seen
+         */
+        int[] seenItems = new int[64];
+        int seenCount = 0;
+
+        ItemCounter(int maxItem) {
+            support = new int[maxItem + 1];
+            lastSequenceID = new int[maxItem + 1];
+            Arrays.fill(lastSequenceID, -1);
+            projections = new int[maxItem + 1][];
+            fillPositions = new int[maxItem + 1];
+        }
+
+        /**
+         * Count an item of a sequence (once per sequence)
+         */
+        void count(int item, int sequenceID) {
+            if (lastSequenceID[item] != sequenceID) {
+                lastSequenceID[item] = sequenceID;
+                if (support[item]++ == 0) {
+                    if (seenCount == seenItems.length) {
+                        seenItems = Arrays.copyOf(seenItems, seenCount * 2);
+                    }
+                    seenItems[seenCount++] = item;
+                }
+            }
+        }
+
+        /**
+         * Create the arrays for the projected databases of the frequent items (after counting)
+         */
+        void prepareProjections(int minsuppAbsolute) {
+            for (int i = 0; i < seenCount; i++) {
+                int item = seenItems[i];
+                lastSequenceID[item] = -1;
+                if (support[item] >= minsuppAbsolute) {
+                    projections[item] = new int[support[item] * 2];
+                    fillPositions[item] = 0;
+                }
+            }
+        }
+
+        /**
+         * Add a pseudo-sequence to the projected database of an item, if the item is frequent
+         * and the sequence was not already added
+         */
+        void project(int item, int sequenceID, int indexFirstItem) {
+            int[] projection = projections[item];
+            if (projection != null && lastSequenceID[item] != sequenceID) {
+                lastSequenceID[item] = sequenceID;
+                projection[fillPositions[item]++] = sequenceID;
+                projection[fillPositions[item]++] = indexFirstItem;
+            }
+        }
+
+        /**
+         * Get the frequent items in the order in which the sequential version explores them,
+         * that is the order of iteration of a HashMap where the items are inserted in the order in which they
+         * were seen (the hashcode of Pair is the item, as for Integer).
+         */
+        int[] getFrequentItems(int minsuppAbsolute) {
+            HashSet<Integer> map = new HashSet<Integer>();
+            for (int i = 0; i < seenCount; i++) {
+                map.add(seenItems[i]);
+            }
+            int[] frequentItems = new int[seenCount];
+            int count = 0;
+            for (int item : map) {
+                if (support[item] >= minsuppAbsolute) {
+                    frequentItems[count++] = item;
+                }
+            }
+            return Arrays.copyOf(frequentItems, count);
+        }
+
+        int[][] getProjections(int[] items) {
+            int[][] result = new int[items.length][];
+            for (int i = 0; i < items.length; i++) {
+                result[i] = projections[items[i]];
+            }
+            return result;
+        }
+
+        /**
+         * Reset the entries of the items that were seen
+         */
+        void clear() {
+            for (int i = 0; i < seenCount; i++) {
+                int item = seenItems[i];
+                support[item] = 0;
+                lastSequenceID[item] = -1;
+                projections[item] = null;
+            }
+            seenCount = 0;
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/*
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A sequence database that is split into partitions on disk, so that PrefixSpan and
+ * BIDE+ can mine a database that does not fit in the heap. This is the partitioned
+ * projection of PrefixSpan: the frequent items are grouped so that the sequences
+ * containing the items of a group fit in the memory budget, and each sequence is written
+ * (without its infrequent items) to the temporary file of each group that contains one of
+ * its items. Since every sequence containing a pattern contains the first item of that
+ * pattern, the patterns starting with the items of a group can be found in its partition
+ * only. The partitions are then loaded one at a time, by mapping their file in memory.
+ * <br/><br/>
+ * The input file is read twice: once to count the support of the items, and once to remove
+ * the infrequent items. If the database fits in the memory budget, it is simply loaded.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AlgoPrefixSpan
+ * @see AlgoBIDEPlus
+ */
+public class PartitionedSequenceDatabase {
+
+    /**
+     * the maximum number of partition files that are written at the same time
+     */
+    private static final int MAX_OPEN_FILES = 64;
+    /**
+     * the maximum size of a region of a file that is mapped in memory
+     */
+    private static final long MAX_MAPPED_REGION = 1L << 30;
+
+    /**
+     * the path of the input file
+     */
+    private final String inputFile;
+    /**
+     * the maximum number of bytes of the sequences loaded at the same time
+     */
+    private final long memoryBudget;
+    /**
+     * the number of sequences
+     */
+    private int sequenceCount = 0;
+    /**
+     * the support of each item
+     */
+    private final Map<Integer, Integer> itemSupports = new HashMap<Integer, Integer>();
+    /**
+     * the estimated size in memory of the database, in bytes
+     */
+    private long databaseSize = 0;
+    /**
+     * true if the database contains itemsets with multiple items
+     */
+    private boolean containsItemsetsWithMultipleItems = false;
+    /**
+     * the frequent items of each partition
+     */
+    private final List<List<Integer>> partitionItems = new ArrayList<List<Integer>>();
+    /**
+     * the temporary file of each partition
+     */
+    private final List<File> partitionFiles = new ArrayList<File>();
+
+    /**
+     * Constructor. The input file is read to count the support of the items.
+     *
+     * @param inputFile    a sequence database in SPMF format
+     * @param memoryBudget the maximum size of the sequences loaded at the same time, in megabytes
+     * @throws IOException if error while reading the file
+     */
+    public PartitionedSequenceDatabase(String inputFile, int memoryBudget) throws IOException {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("The memory budget must be at least 1 MB");
+        }
+        this.inputFile = inputFile;
+        this.memoryBudget = memoryBudget * 1024L * 1024L;
+        countItems();
+    }
+
+    /**
+     * Read the input file to count the support of the items and the size of the database
+     *
+     * @throws IOException if error while reading the file
+     */
+    private void countItems() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(inputFile)));
+        try {
+            Map<Integer, Integer> lastSequence = new HashMap<Integer, Integer>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int[] sequence = parseLine(line);
+                if (sequence == null) {
+                    continue;
+                }
+                int itemCountInCurrentItemset = 0;
+                for (int token : sequence) {
+                    if (token > 0) {
+                        // count the sequence once for each item
+                        Integer last = lastSequence.put(token, sequenceCount);
+                        if (last == null || last != sequenceCount) {
+                            Integer support = itemSupports.get(token);
+                            itemSupports.put(token, support == null ? 1 : support + 1);
+                        }
+                        itemCountInCurrentItemset++;
+                        if (itemCountInCurrentItemset > 1) {
+                            containsItemsetsWithMultipleItems = true;
+                        }
+                    } else if (token == -1) {
+                        itemCountInCurrentItemset = 0;
+                    }
+                }
+                databaseSize += sizeOf(sequence.length);
+                sequenceCount++;
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Convert a line of the input file to a sequence
+     *
+     * @param line a line
+     * @return the sequence, or null if the line is not a sequence
+     */
+    private static int[] parseLine(String line) {
+        // if the line is a comment, is empty or is metadata
+        if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+            return null;
+        }
+        String[] tokens = line.split(" ");
+        int[] sequence = new int[tokens.length];
+        for (int j = 0; j < tokens.length; j++) {
+            sequence[j] = Integer.parseInt(tokens[j]);
+        }
+        return sequence;
+    }
+
+    /**
+     * Get the estimated size of a sequence in memory
+     *
+     * @param length the number of tokens of the sequence
+     * @return the size in bytes
+     */
+    private static long sizeOf(int length) {
+        // the array header, the tokens and the reference in the list of sequences
+        return 16 + 4L * length + 8;
+    }
+
+    /**
+     * Check if the whole database fits in the memory budget. Half of the budget is kept
+     * for the projected databases.
+     *
+     * @return true if the database can be loaded
+     */
+    public boolean fitsInMemory() {
+        return databaseSize <= memoryBudget / 2;
+    }
+
+    /**
+     * Load the whole database in memory
+     *
+     * @return the sequence database
+     * @throws IOException if error while reading the file
+     */
+    public SequenceDatabase load() throws IOException {
+        SequenceDatabase sequenceDatabase = new SequenceDatabase();
+        sequenceDatabase.loadFile(inputFile);
+        return sequenceDatabase;
+    }
+
+    /**
+     * Remove the infrequent items from the sequences and write the sequences of each
+     * group of frequent items to a temporary file. A sequence is written in the same format
+     * as it has after removing the infrequent items in memory: if the database has no
+     * itemset with multiple items, the itemset separators are removed.
+     *
+     * @param minsupAbsolute the minimum support
+     * @throws IOException if error while reading or writing a file
+     */
+    public void partition(int minsupAbsolute) throws IOException {
+        // Remove the infrequent items and compute the size of the sequences containing each item
+        Map<Integer, Long> itemSizes = new TreeMap<Integer, Long>();
+        for (Entry<Integer, Integer> entry : itemSupports.entrySet()) {
+            if (entry.getValue() >= minsupAbsolute) {
+                itemSizes.put(entry.getKey(), 0L);
+            }
+        }
+        File reducedFile = createTemporaryFile();
+        try {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(reducedFile)));
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(inputFile)));
+                try {
+                    Map<Integer, Integer> lastSequence = new HashMap<Integer, Integer>();
+                    int sequenceID = 0;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int[] sequence = parseLine(line);
+                        if (sequence == null) {
+                            continue;
+                        }
+                        int length = removeInfrequentItems(sequence, itemSizes);
+                        if (length > 0) {
+                            output.writeInt(sequenceID);
+                            output.writeInt(length);
+                            long size = sizeOf(length);
+                            for (int i = 0; i < length; i++) {
+                                output.writeInt(sequence[i]);
+                                // count the sequence once for each item
+                                if (sequence[i] > 0) {
+                                    Integer last = lastSequence.put(sequence[i], sequenceID);
+                                    if (last == null || last != sequenceID) {
+                                        itemSizes.put(sequence[i], itemSizes.get(sequence[i]) + size);
+                                    }
+                                }
+                            }
+                        }
+                        sequenceID++;
+                    }
+                } finally {
+                    reader.close();
+                }
+            } finally {
+                output.close();
+            }
+
+            // Group the frequent items, so that the sequences of each group fit in half of the budget
+            Map<Integer, Integer> itemPartitions = new HashMap<Integer, Integer>();
+            long partitionSize = 0;
+            for (Entry<Integer, Long> entry : itemSizes.entrySet()) {
+                // an item whose sequences do not fit in the budget has its own partition
+                if (partitionItems.isEmpty() || partitionSize + entry.getValue() > memoryBudget / 2) {
+                    partitionItems.add(new ArrayList<Integer>());
+                    partitionSize = 0;
+                }
+                partitionItems.get(partitionItems.size() - 1).add(entry.getKey());
+                itemPartitions.put(entry.getKey(), partitionItems.size() - 1);
+                partitionSize += entry.getValue();
+            }
+
+            // Write the partitions, a few at a time to limit the number of open files
+            for (int first = 0; first < partitionItems.size(); first += MAX_OPEN_FILES) {
+                writePartitions(reducedFile, itemPartitions, first, Math.min(partitionItems.size(), first + MAX_OPEN_FILES));
+            }
+        } finally {
+            reducedFile.delete();
+        }
+    }
+
+    /**
+     * Remove the infrequent items from a sequence, in place
+     *
+     * @param sequence        a sequence
+     * @param frequentItems   the frequent items
+     * @return the length of the sequence after removing the items, or 0 if it is empty
+     */
+    private int removeInfrequentItems(int[] sequence, Map<Integer, Long> frequentItems) {
+        int currentPosition = 0;
+        int currentItemsetItemCount = 0;
+        for (int token : sequence) {
+            if (token > 0) {
+                if (frequentItems.containsKey(token)) {
+                    sequence[currentPosition++] = token;
+                    currentItemsetItemCount++;
+                }
+            } else if (token == -1) {
+                // the separators are only kept if some itemsets have several items
+                if (currentItemsetItemCount > 0 && containsItemsetsWithMultipleItems) {
+                    sequence[currentPosition++] = -1;
+                }
+                currentItemsetItemCount = 0;
+            } else if (token == -2) {
+                break;
+            }
+        }
+        if (currentPosition == 0) {
+            return 0;
+        }
+        sequence[currentPosition] = -2;
+        return currentPosition + 1;
+    }
+
+    /**
+     * Write some partitions, by copying the sequences of the file of reduced sequences
+     *
+     * @param reducedFile    the file of reduced sequences
+     * @param itemPartitions the partition of each frequent item
+     * @param first          the first partition to write
+     * @param last           the partition after the last one to write
+     * @throws IOException if error while reading or writing a file
+     */
+    private void writePartitions(File reducedFile, Map<Integer, Integer> itemPartitions, int first, int last) throws IOException {
+        List<DataOutputStream> outputs = new ArrayList<DataOutputStream>();
+        try {
+            for (int i = first; i < last; i++) {
+                File file = createTemporaryFile();
+                partitionFiles.add(file);
+                outputs.add(new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))));
+            }
+            MappedIntReader reader = new MappedIntReader(reducedFile);
+            try {
+                boolean[] written = new boolean[last - first];
+                while (reader.hasNext()) {
+                    int sequenceID = reader.next();
+                    int[] sequence = new int[reader.next()];
+                    for (int i = 0; i < sequence.length; i++) {
+                        sequence[i] = reader.next();
+                    }
+                    // write the sequence once in each partition containing one of its items
+                    for (int token : sequence) {
+                        if (token > 0) {
+                            int partition = itemPartitions.get(token);
+                            if (partition >= first && partition < last && !written[partition - first]) {
+                                written[partition - first] = true;
+                                DataOutputStream output = outputs.get(partition - first);
+                                output.writeInt(sequenceID);
+                                output.writeInt(sequence.length);
+                                for (int value : sequence) {
+                                    output.writeInt(value);
+                                }
+                            }
+                        }
+                    }
+                    Arrays.fill(written, false);
+                }
+            } finally {
+                reader.close();
+            }
+        } finally {
+            for (DataOutputStream output : outputs) {
+                output.close();
+            }
+        }
+    }
+
+    /**
+     * Create a temporary file that is deleted when the program ends
+     *
+     * @return the file
+     * @throws IOException if the file cannot be created
+     */
+    private static File createTemporaryFile() throws IOException {
+        File file = File.createTempFile("spmf_partition", ".bin");
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Get the number of partitions
+     *
+     * @return the number of partitions
+     */
+    public int getPartitionCount() {
+        return partitionItems.size();
+    }
+
+    /**
+     * Load a partition in memory. Its temporary file is deleted.
+     *
+     * @param index the index of the partition
+     * @return the partition
+     * @throws IOException if error while reading the file
+     */
+    public Partition loadPartition(int index) throws IOException {
+        File file = partitionFiles.get(index);
+        List<int[]> sequences = new ArrayList<int[]>();
+        List<Integer> sequenceIdentifiers = new ArrayList<Integer>();
+        Map<Integer, List<Integer>> mapSequenceID = new HashMap<Integer, List<Integer>>();
+        for (Integer item : partitionItems.get(index)) {
+            mapSequenceID.put(item, new ArrayList<Integer>());
+        }
+        MappedIntReader reader = new MappedIntReader(file);
+        try {
+            while (reader.hasNext()) {
+                sequenceIdentifiers.add(reader.next());
+                int[] sequence = new int[reader.next()];
+                for (int i = 0; i < sequence.length; i++) {
+                    sequence[i] = reader.next();
+                    // note the sequences containing the items of the partition
+                    List<Integer> sequenceIDs = mapSequenceID.get(sequence[i]);
+                    if (sequenceIDs != null && (sequenceIDs.isEmpty() || sequenceIDs.get(sequenceIDs.size() - 1) != sequences.size())) {
+                        sequenceIDs.add(sequences.size());
+                    }
+                }
+                sequences.add(sequence);
+            }
+        } finally {
+            reader.close();
+        }
+        file.delete();
+
+        SequenceDatabase database = new SequenceDatabase();
+        database.sequences = sequences;
+        int[] identifiers = new int[sequenceIdentifiers.size()];
+        for (int i = 0; i < identifiers.length; i++) {
+            identifiers[i] = sequenceIdentifiers.get(i);
+        }
+        // keep the order of the items
+        Map<Integer, List<Integer>> orderedMap = new LinkedHashMap<Integer, List<Integer>>();
+        for (Integer item : partitionItems.get(index)) {
+            orderedMap.put(item, mapSequenceID.get(item));
+        }
+        return new Partition(database, identifiers, orderedMap);
+    }
+
+    /**
+     * Delete the temporary files that were not loaded
+     */
+    public void close() {
+        for (File file : partitionFiles) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Get the number of sequences
+     *
+     * @return the number of sequences
+     */
+    public int getSequenceCount() {
+        return sequenceCount;
+    }
+
+    /**
+     * Check if the database contains itemsets with multiple items
+     *
+     * @return true if it does
+     */
+    public boolean containsItemsetsWithMultipleItems() {
+        return containsItemsetsWithMultipleItems;
+    }
+
+    /**
+     * A partition of the database, loaded in memory
+     */
+    public static class Partition {
+        /**
+         * the sequences of the partition (without the infrequent items)
+         */
+        public final SequenceDatabase database;
+        /**
+         * the identifier of each sequence of the partition in the whole database
+         */
+        public final int[] sequenceIdentifiers;
+        /**
+         * the items of the partition, with the positions in the partition of the sequences containing them
+         */
+        public final Map<Integer, List<Integer>> mapSequenceID;
+
+        /**
+         * Constructor
+         *
+         * @param database            the sequences of the partition
+         * @param sequenceIdentifiers the identifier of each sequence in the whole database
+         * @param mapSequenceID       the items of the partition, with the sequences containing them
+         */
+        Partition(SequenceDatabase database, int[] sequenceIdentifiers, Map<Integer, List<Integer>> mapSequenceID) {
+            this.database = database;
+            this.sequenceIdentifiers = sequenceIdentifiers;
+            this.mapSequenceID = mapSequenceID;
+        }
+    }
+
+    /**
+     * Reads the integers of a file by mapping it in memory, one region at a time
+     */
+    private static final class MappedIntReader {
+        /**
+         * the file
+         */
+        private final RandomAccessFile file;
+        /**
+         * the channel of the file
+         */
+        private final FileChannel channel;
+        /**
+         * the size of the file
+         */
+        private final long size;
+        /**
+         * the position of the next region to map
+         */
+        private long position = 0;
+        /**
+         * the integers of the current region
+         */
+        private IntBuffer buffer = IntBuffer.allocate(0);
+
+        MappedIntReader(File file) throws IOException {
+            this.file = new RandomAccessFile(file, "r");
+            this.channel = this.file.getChannel();
+            this.size = channel.size();
+        }
+
+        boolean hasNext() {
+            return buffer.hasRemaining() || position < size;
+        }
+
+        int next() throws IOException {
+            if (!buffer.hasRemaining()) {
+                // the regions have a size that is a multiple of 4, so that an integer is never split
+                long regionSize = Math.min(MAX_MAPPED_REGION, size - position);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize).asIntBuffer();
+                position += regionSize;
+            }
+            return buffer.get();
+        }
+
+        void close() throws IOException {
+            file.close();
+        }
+    }
+}
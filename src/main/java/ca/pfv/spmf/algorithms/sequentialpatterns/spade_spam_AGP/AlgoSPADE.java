@@ -4,6 +4,8 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePattern
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.ClosedPatternSaver;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.ConcurrentSaver;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoFile;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoMemory;
@@ -11,7 +13,6 @@ import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.*;
 
 /**
  * This is an implementation of the SPADE. SPADE was proposed by ZAKI in 2001.
@@ -77,6 +78,23 @@ public class AlgoSPADE {
      * Number of frequent patterns found by the algorithm
      */
     private int numberOfFrequentPatterns;
+    /**
+     * The number of threads used by runAlgorithmParallelized()
+     */
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    /**
+     * Flag indicating if only the closed patterns are kept
+     */
+    private boolean findClosedPatterns = false;
+    /**
+     * Number of closed patterns found by the algorithm, if only the closed
+     * patterns are kept
+     */
+    private int numberOfClosedPatterns;
+    /**
+     * The number of threads used by the last execution of the algorithm
+     */
+    private int threadsUsed = 1;
 
     /**
      * Constructor of the class that calls SPADE algorithm.
@@ -121,6 +139,11 @@ public class AlgoSPADE {
             //Otherwise, the user wants to save them in the given file
             saver = new SaverIntoFile(outputFilePath, outputSequenceIdentifiers);
         }
+        if (findClosedPatterns) {
+            //Only the closed patterns are kept
+            saver = new ClosedPatternSaver(saver, abstractionCreator);
+        }
+        threadsUsed = 1;
         //this.minSupRelative = minSup; // PFV 2013
         this.minSupRelative = (int) Math.ceil(database.size() * minSup);
         if (this.minSupRelative == 0) { // protection
@@ -138,6 +161,9 @@ public class AlgoSPADE {
         end = System.currentTimeMillis();
         //Search for frequent patterns: Finished
         saver.finish();
+        if (findClosedPatterns) {
+            numberOfClosedPatterns = ((ClosedPatternSaver) saver).getClosedPatternCount();
+        }
     }
 
     /**
@@ -169,6 +195,14 @@ public class AlgoSPADE {
             //Otherwise, the user wants to save them in the given file
             saver = new SaverIntoFile(outputFilePath, outputSequenceIdentifiers);
         }
+        if (findClosedPatterns) {
+            //Only the closed patterns are kept, by an index that several threads can use at the same time
+            saver = new ClosedPatternSaver(saver, abstractionCreator);
+        } else {
+            //The patterns are found by several threads at the same time
+            saver = new ConcurrentSaver(saver);
+        }
+        threadsUsed = threadCount;
         this.minSupRelative = (int) Math.ceil(minSup * database.size());
         //this.minSupRelative = (int) (database.size() * minSup);
         if (this.minSupRelative == 0) { // protection
@@ -180,12 +214,15 @@ public class AlgoSPADE {
         start = System.currentTimeMillis();
 
         //We run SPADE algorithm
-        runSPADEFromSize2PatternsParallelized2(database, candidateGenerator, (long) minSupRelative, dfs, keepPatterns, verbose);
+        runSPADEFromSize2PatternsParallelized(database, candidateGenerator, (long) minSupRelative, dfs, keepPatterns, verbose);
 
         //keeping the ending time
         end = System.currentTimeMillis();
         //Search for frequent patterns: Finished
         saver.finish();
+        if (findClosedPatterns) {
+            numberOfClosedPatterns = ((ClosedPatternSaver) saver).getClosedPatternCount();
+        }
     }
 
     /**
@@ -243,7 +280,7 @@ public class AlgoSPADE {
         // check the memory usage for statistics
         MemoryLogger.getInstance().checkMemory();
 
-        joinCount = FrequentPatternEnumeration.INTERSECTION_COUNTER;
+        joinCount = frequentPatternEnumeration.getIntersectionCounter();
     }
 
     /**
@@ -325,12 +362,14 @@ public class AlgoSPADE {
                           " Frequent sequences count : " +
                           numberOfFrequentPatterns +
                           '\n' +
+                          (findClosedPatterns ? " Frequent closed sequences count : " + numberOfClosedPatterns + '\n' : "") +
                           " Join count : " +
                           joinCount +
                           '\n' +
                           " Max memory (mb):" +
                           MemoryLogger.getInstance().getMaxMemory() +
                           '\n' +
+                          (threadsUsed > 1 ? " Threads : " + threadsUsed + '\n' : "") +
                           saver.print() +
                           "\n===================================================\n";
         return sb;
@@ -340,6 +379,43 @@ public class AlgoSPADE {
         return numberOfFrequentPatterns;
     }
 
+    /**
+     * Set the number of threads used by runAlgorithmParallelized(). By
+     * default, it is the number of available processors.
+     *
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Set if only the closed patterns must be kept. The closedness of each
+     * pattern is checked as soon as the pattern is found, also when the search
+     * is done by several threads, so that the frequent patterns that are not
+     * closed are not kept until the end of the search. The patterns must be
+     * kept (keepPatterns) to find the closed ones. By default, all the
+     * frequent patterns are kept.
+     *
+     * @param findClosedPatterns true to keep only the closed patterns
+     */
+    public void setFindClosedPatterns(boolean findClosedPatterns) {
+        this.findClosedPatterns = findClosedPatterns;
+    }
+
+    /**
+     * It returns the number of closed patterns found by the last execution of
+     * the algorithm, if only the closed patterns were kept.
+     *
+     * @return the number of closed patterns
+     */
+    public int getNumberOfClosedPatterns() {
+        return numberOfClosedPatterns;
+    }
+
     /**
      * It gets the time spent by the algoritm in its execution.
      *
@@ -374,7 +450,10 @@ public class AlgoSPADE {
     /**
      * The actual method for extracting frequent sequences. This method it starts
      * with both the frequent 1-patterns and 2-patterns already found. Besides, it
-     * resolves each equivalence class formed by the 1-patterns independently.
+     * resolves each equivalence class formed by the 1-patterns independently,
+     * with several threads. The subtrees of large equivalence classes are
+     * split into other tasks, that are balanced between the threads by work
+     * stealing.
      *
      * @param database           The original database
      * @param candidateGenerator The candidate generator used by the algorithm
@@ -388,86 +467,6 @@ public class AlgoSPADE {
      */
     protected void runSPADEFromSize2PatternsParallelized(SequenceDatabase database, CandidateGenerator candidateGenerator, long minSupportCount,
                                                          boolean dfs, boolean keepPatterns, boolean verbose) {
-
-        frequentItems = database.frequentItems();
-        Collection<Pattern> size1Patterns = getPatterns(frequentItems);
-        saver.savePatterns(size1Patterns);
-        List<EquivalenceClass> size2EquivalenceClass = database.getSize2FrecuentSequences(minSupRelative);
-        Collection<Pattern> size2Sequences = getPatterns(size2EquivalenceClass);
-        saver.savePatterns(size2Sequences);
-
-        size2EquivalenceClass = null;
-        database = null;
-
-        FrequentPatternEnumeration frequentPatternEnumeration = new FrequentPatternEnumeration(candidateGenerator, minSupRelative, saver);
-        frequentPatternEnumeration.setFrequentPatterns(size1Patterns.size() + size2Sequences.size());
-
-        size1Patterns = null;
-        size2Sequences = null;
-
-        Runtime runtime = Runtime.getRuntime();
-        int numberOfAvailableProcessors = runtime.availableProcessors();
-        ExecutorService pool = Executors.newFixedThreadPool(numberOfAvailableProcessors);
-        ArrayList<Future<Void>> set = new ArrayList<Future<Void>>();
-        while (frequentItems.size() > 0) {
-            EquivalenceClass frequentItem = frequentItems.get(frequentItems.size() - 1);
-
-            if (verbose) {
-                System.out.println("Exploring " + frequentItem);
-            }
-
-            Callable<Void> callable = new FrequentPatternEnumerationFacade(frequentPatternEnumeration, frequentItem, dfs, keepPatterns, verbose,
-                    saver);
-            Future<Void> future = pool.submit(callable);
-            set.add(future);
-            frequentItems.remove(frequentItems.size() - 1);
-
-            // check the memory usage for statistics
-            MemoryLogger.getInstance().checkMemory();
-        }
-
-        try {
-            int cont = 1;
-            System.err.println("There are " + set.size() + " equivalence classes and " + numberOfAvailableProcessors + " available processors");
-            while (!set.isEmpty()) {
-                for (int i = 0; i < set.size(); i++) {
-                    Future<Void> future = set.get(i);
-                    if (future.isDone()) {
-                        System.err.println(cont++ + ":this thread is done.");
-                        set.remove(i);
-                        i--;
-                    }
-                }
-            }
-
-            numberOfFrequentPatterns = frequentPatternEnumeration.getFrequentPatterns();// check the memory usage for statistics
-            MemoryLogger.getInstance().checkMemory();
-
-            pool.shutdown();
-            pool.awaitTermination(1, TimeUnit.DAYS);
-        } catch (Exception e) {
-            System.err.println("Problems with the concurrency!!");
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * The actual method for extracting frequent sequences. This method it starts
-     * with both the frequent 1-patterns and 2-patterns already found. Besides, it
-     * resolves each equivalence class formed by the 1-patterns independently.
-     *
-     * @param database           The original database
-     * @param candidateGenerator The candidate generator used by the algorithm
-     *                           SPADE
-     * @param minSupportCount    The minimum relative support
-     * @param dfs                Flag for indicating if we want a depth first search. If false,
-     *                           we indicate that we want a breath-first search.
-     * @param keepPatterns       flag indicating if we are interested in keeping the
-     *                           output of the algorithm
-     * @param verbose            Flag for debugging purposes
-     */
-    protected void runSPADEFromSize2PatternsParallelized2(SequenceDatabase database, CandidateGenerator candidateGenerator, long minSupportCount,
-                                                          boolean dfs, boolean keepPatterns, boolean verbose) {
         frequentItems = database.frequentItems();
         Collection<Pattern> size1Sequences = getPatterns(frequentItems);
         saver.savePatterns(size1Sequences);
@@ -475,44 +474,24 @@ public class AlgoSPADE {
         Collection<Pattern> size2Sequences = getPatterns(size2EquivalenceClasses);
         saver.savePatterns(size2Sequences);
 
-        numberOfFrequentPatterns = size1Sequences.size() + size2Sequences.size();
         size2EquivalenceClasses = null;
         database = null;
 
-        Runtime runtime = Runtime.getRuntime();
-        ExecutorService pool = Executors.newFixedThreadPool(runtime.availableProcessors());
-        Set<Future<Void>> set = new LinkedHashSet<Future<Void>>();
-
-        ArrayList<FrequentPatternEnumeration> enumerates = new ArrayList<FrequentPatternEnumeration>();
-
-        while (frequentItems.size() > 0) {
-            EquivalenceClass frequentAtom = frequentItems.get(frequentItems.size() - 1);
-
-            if (verbose) {
-                System.out.println("Exploring " + frequentAtom);
-            }
-            FrequentPatternEnumeration frequentPatternEnumeration = new FrequentPatternEnumeration(candidateGenerator, minSupRelative, saver);
-
-            enumerates.add(frequentPatternEnumeration);
+        FrequentPatternEnumeration frequentPatternEnumeration = new FrequentPatternEnumeration(candidateGenerator, minSupRelative, saver);
+        frequentPatternEnumeration.setFrequentPatterns(size1Sequences.size() + size2Sequences.size());
 
-            Callable<Void> callable = new FrequentPatternEnumerationFacade(frequentPatternEnumeration, frequentAtom, dfs, keepPatterns, verbose,
-                    saver);
-            Future<Void> future = pool.submit(callable);
-            set.add(future);
-            frequentItems.remove(frequentItems.size() - 1);
+        size1Sequences = null;
+        size2Sequences = null;
 
-            // check the memory usage for statistics
-            MemoryLogger.getInstance().checkMemory();
+        if (verbose) {
+            System.out.println("Exploring " + frequentItems.size() + " equivalence classes with " + threadCount + " threads");
         }
+        //We explore the equivalence classes of the frequent items, and wait until all of them are explored
+        frequentPatternEnumeration.executeInParallel(frequentItems, dfs, keepPatterns, verbose, null, null, threadCount);
+        frequentItems.clear();
 
-        try {
-            pool.shutdown();
-            pool.awaitTermination(1, TimeUnit.DAYS);
-        } catch (Exception e) {
-            System.err.println("Problems with the concurrency!!");
-        }
-        FrequentPatternEnumeration fpe = new FrequentPatternEnumeration(candidateGenerator, minSup, saver);
-        numberOfFrequentPatterns += fpe.getFrequentPatterns();
+        numberOfFrequentPatterns = frequentPatternEnumeration.getFrequentPatterns();
+        joinCount = frequentPatternEnumeration.getIntersectionCounter();
 
         // check the memory usage for statistics
         MemoryLogger.getInstance().checkMemory();
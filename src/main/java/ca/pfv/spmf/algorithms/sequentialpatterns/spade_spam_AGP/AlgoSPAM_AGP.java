@@ -18,8 +18,11 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP;
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
 
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator_Qualitative;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.ClosedPatternSaver;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.ConcurrentSaver;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoFile;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoMemory;
@@ -69,6 +72,19 @@ public class AlgoSPAM_AGP {
      * Number of frequent patterns found by the algorithm
      */
     private int numberOfFrequentPatterns;
+    /**
+     * The number of threads
+     */
+    private int threadCount = 1;
+    /**
+     * Flag indicating if only the closed patterns are kept
+     */
+    private boolean findClosedPatterns = false;
+    /**
+     * Number of closed patterns found by the algorithm, if only the closed
+     * patterns are kept
+     */
+    private int numberOfClosedPatterns;
 
     /**
      * Constructor of the class that calls SPAM algorithm.
@@ -106,6 +122,13 @@ public class AlgoSPAM_AGP {
             //Otherwise, the user wants to save them in the given file
             saver = new SaverIntoFile(outputFilePath, outputSequenceIdentifiers);
         }
+        if (findClosedPatterns) {
+            //Only the closed patterns are kept, by an index that several threads can use at the same time
+            saver = new ClosedPatternSaver(saver, AbstractionCreator_Qualitative.getInstance());
+        } else if (threadCount > 1) {
+            //The patterns are found by several threads at the same time
+            saver = new ConcurrentSaver(saver);
+        }
 
         this.minSupAbsolute = (int) Math.ceil(minSupRelative * database.size());
         if (this.minSupAbsolute == 0) { // protection
@@ -121,6 +144,9 @@ public class AlgoSPAM_AGP {
         end = System.currentTimeMillis();
         //Search for frequent patterns: Finished
         saver.finish();
+        if (findClosedPatterns) {
+            numberOfClosedPatterns = ((ClosedPatternSaver) saver).getClosedPatternCount();
+        }
     }
 
     /**
@@ -159,7 +185,11 @@ public class AlgoSPAM_AGP {
         //Inizialitation of the class that is in charge of find the frequent patterns
         FrequentPatternEnumeration_SPAM frequentPatternEnumeration = new FrequentPatternEnumeration_SPAM(minSupAbsolute, saver);
         //We execute the search
-        frequentPatternEnumeration.execute(rootClass, keepPatterns, verbose);
+        if (threadCount > 1) {
+            frequentPatternEnumeration.executeInParallel(rootClass, keepPatterns, verbose, threadCount);
+        } else {
+            frequentPatternEnumeration.execute(rootClass, keepPatterns, verbose);
+        }
 
         //Once we had finished, we keep the number of frequent patterns that we found
         numberOfFrequentPatterns = frequentPatternEnumeration.getFrequentPatterns();
@@ -190,9 +220,11 @@ public class AlgoSPAM_AGP {
                           " Frequent sequences count : " +
                           numberOfFrequentPatterns +
                           '\n' +
+                          (findClosedPatterns ? " Frequent closed sequences count : " + numberOfClosedPatterns + '\n' : "") +
                           " Max memory (mb):" +
                           MemoryLogger.getInstance().getMaxMemory() +
                           '\n' +
+                          (threadCount > 1 ? " Threads : " + threadCount + '\n' : "") +
                           saver.print() +
                           "\n===================================================\n";
         return sb;
@@ -202,6 +234,43 @@ public class AlgoSPAM_AGP {
         return numberOfFrequentPatterns;
     }
 
+    /**
+     * Set the number of threads used to search for the patterns. By default,
+     * only one thread is used.
+     *
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Set if only the closed patterns must be kept. The closedness of each
+     * pattern is checked as soon as the pattern is found, also when the search
+     * is done by several threads, so that the frequent patterns that are not
+     * closed are not kept until the end of the search. The patterns must be
+     * kept (keepPatterns) to find the closed ones. By default, all the
+     * frequent patterns are kept.
+     *
+     * @param findClosedPatterns true to keep only the closed patterns
+     */
+    public void setFindClosedPatterns(boolean findClosedPatterns) {
+        this.findClosedPatterns = findClosedPatterns;
+    }
+
+    /**
+     * It returns the number of closed patterns found by the last execution of
+     * the algorithm, if only the closed patterns were kept.
+     *
+     * @return the number of closed patterns
+     */
+    public int getNumberOfClosedPatterns() {
+        return numberOfClosedPatterns;
+    }
+
     /**
      * It gets the time spent by the algoritm in its execution.
      *
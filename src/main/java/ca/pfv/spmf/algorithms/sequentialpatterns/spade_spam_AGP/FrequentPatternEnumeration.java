@@ -5,8 +5,14 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.p
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.IDList;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is an implementation of the main methods of SPADE algorithm. We keep
@@ -19,6 +25,11 @@ import java.util.Map;
  * NOTE: This implementation saves the pattern to a file as soon as they are
  * found or can keep the pattern into memory, depending on what the user choose.
  * <p>
+ * The search can also be done by several threads (see executeInParallel()).
+ * In that case, the subtrees of the equivalence classes that have several
+ * members are explored by separate tasks of a work-stealing pool, and the
+ * saver must be thread-safe (e.g. a ConcurrentSaver).
+ * <p>
  * Copyright Antonio Gomariz Peñalver 2013
  * <p>
  * This file is part of the SPMF DATA MINING SOFTWARE
@@ -40,12 +51,21 @@ import java.util.Map;
  */
 public class FrequentPatternEnumeration {
 
-    public static int INTERSECTION_COUNTER = 0;
+    /**
+     * The minimum number of members that an equivalence class must have for
+     * its subtree to be explored by a separate task, when the search is done
+     * in parallel
+     */
+    private static final int MINIMUM_MEMBERS_TO_FORK = 2;
     /**
      * Number of frequent patterns found by the algorithm. Initially set to
      * zero.
      */
-    private static int frequentPatterns = 0;
+    private final AtomicInteger frequentPatterns = new AtomicInteger();
+    /**
+     * Number of joins of IdLists done by the algorithm
+     */
+    private final AtomicLong intersectionCounter = new AtomicLong();
     /**
      * The candidate generator used by SPADE
      */
@@ -60,6 +80,10 @@ public class FrequentPatternEnumeration {
      * the case
      */
     private Saver saver = null;
+    /**
+     * The pool of threads used when the search is done in parallel, or null
+     */
+    private volatile ForkJoinPool pool = null;
 
     /**
      * Standard constructor of the class.
@@ -70,17 +94,51 @@ public class FrequentPatternEnumeration {
      *                           results, if it the case
      */
     public FrequentPatternEnumeration(CandidateGenerator candidateGenerator, double minSupportAbsolute, Saver saver) {
-        INTERSECTION_COUNTER = 0;
         this.candidateGenerator = candidateGenerator;
         this.minSupportAbsolute = minSupportAbsolute;
         this.saver = saver;
     }
 
     /**
-     * Increase the number of frequent patterns
+     * Execution of the search of frequent patterns from several equivalence
+     * classes, using several threads. Each class is explored by a separate
+     * task, and the subtrees of the classes that have several members are
+     * split recursively into other tasks, which are balanced between the
+     * threads by work stealing. This method returns when all the tasks are
+     * finished.
+     *
+     * @param equivalenceClasses The equivalence classes from we start to
+     *                           search for. They must be independent of each other.
+     * @param dfs                Flag indicating if we are interested in a depth-first search
+     *                           if activated. Otherwise, we understand that we are interested in a
+     *                           breadth-first search
+     * @param keepPatterns       Flag to indicate if we want to keep the patterns
+     *                           found. The saver must then be thread-safe.
+     * @param verbose            Flag for debugging purposes
+     * @param coocMapAfter       the co-occurrence map of items appearing after an item, or null
+     * @param coocMapEquals      the co-occurrence map of items appearing in the same itemset, or null
+     * @param threadCount        the number of threads
      */
-    private synchronized static void increaseFrequentPatterns() {
-        frequentPatterns++;
+    public void executeInParallel(List<EquivalenceClass> equivalenceClasses, boolean dfs, boolean keepPatterns, boolean verbose,
+                                  Map<Integer, Map<Integer, Integer>> coocMapAfter, Map<Integer, Map<Integer, Integer>> coocMapEquals,
+                                  int threadCount) {
+        final List<ExplorationTask> tasks = new ArrayList<ExplorationTask>(equivalenceClasses.size());
+        for (EquivalenceClass equivalenceClass : equivalenceClasses) {
+            tasks.add(new ExplorationTask(equivalenceClass, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals));
+        }
+        pool = new ForkJoinPool(threadCount);
+        try {
+            // block until all the tasks, including those that they split, are done
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
     /**
@@ -103,6 +161,8 @@ public class FrequentPatternEnumeration {
          eq.setClassIdentifier(null);*/
         //flag indicating if a new pattern has been created
         boolean anyPatternCreated = false;
+        //the subtrees that are explored by other tasks, when the search is done in parallel
+        List<ExplorationTask> forkedTasks = null;
         List<EquivalenceClass> eqMembers = eq.getClassMembers();
 
         //For all the members of the equivalence class
@@ -163,7 +223,7 @@ public class FrequentPatternEnumeration {
                 //For each candidate generated
                 for (Pattern extension : extensions) {
                     IDList newIdList = candidateGenerator.join(extension, child_X, child_Y, (int) minSupportAbsolute);
-                    INTERSECTION_COUNTER++;
+                    intersectionCounter.incrementAndGet();
                     //If the the pattern is frequent
                     if (newIdList != null && newIdList.getSupport() >= minSupportAbsolute) {
                         //we activated the flag
@@ -185,7 +245,7 @@ public class FrequentPatternEnumeration {
                         newEq.setIdList(newIdList);
 
                         //We increment the number of frequent patterns
-                        increaseFrequentPatterns();
+                        frequentPatterns.incrementAndGet();
 
                         /*Finally, we keep the new class as a member of the
                          * parent class that is its prefix
@@ -206,14 +266,34 @@ public class FrequentPatternEnumeration {
                  * with the child that we have just removed
                  */
                 if (anyPatternCreated) {
-                    execute(child_X, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals);
+                    /* child_X is not modified anymore by this loop, so its
+                     * subtree can be explored by another task
+                     */
+                    if (canFork(child_X)) {
+                        ExplorationTask task = new ExplorationTask(child_X, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals);
+                        task.fork();
+                        if (forkedTasks == null) {
+                            forkedTasks = new ArrayList<ExplorationTask>();
+                        }
+                        forkedTasks.add(task);
+                    } else {
+                        execute(child_X, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals);
+                    }
                 }
             }
         }
         //If dfs is not activated, therefore we are interested in a breadth-first search
         if (!dfs) {
             //if any pattern has been created
-            if (anyPatternCreated) {
+            if (anyPatternCreated && pool != null && ForkJoinTask.inForkJoinPool()) {
+                // the members are independent of each other, so we explore them in parallel
+                List<ExplorationTask> tasks = new ArrayList<ExplorationTask>(eqMembers.size());
+                for (int i = eqMembers.size() - 1; i >= 0; i--) {
+                    tasks.add(new ExplorationTask(eqMembers.get(i), dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals));
+                }
+                ForkJoinTask.invokeAll(tasks);
+                eqMembers.clear();
+            } else if (anyPatternCreated) {
                 for (int i = eqMembers.size() - 1; i >= 0; i--) {
                     // we make a recursive call with the child pointed by i
                     execute(eqMembers.get(i), dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals);
@@ -224,6 +304,23 @@ public class FrequentPatternEnumeration {
             }
             eqMembers = null;
         }
+        //We wait for the subtrees explored by other tasks, the last one first
+        if (forkedTasks != null) {
+            for (int i = forkedTasks.size() - 1; i >= 0; i--) {
+                forkedTasks.get(i).join();
+            }
+        }
+    }
+
+    /**
+     * Check if the subtree of an equivalence class should be explored by a
+     * separate task
+     *
+     * @param eq the equivalence class
+     * @return true if the search is done in parallel and the class has enough members
+     */
+    private boolean canFork(EquivalenceClass eq) {
+        return pool != null && ForkJoinTask.inForkJoinPool() && eq.getClassMembers().size() >= MINIMUM_MEMBERS_TO_FORK;
     }
 
     /**
@@ -252,11 +349,21 @@ public class FrequentPatternEnumeration {
      * @return
      */
     public int getFrequentPatterns() {
-        return frequentPatterns;
+        return frequentPatterns.get();
     }
 
     public void setFrequentPatterns(int patronesFrecuentes) {
-        FrequentPatternEnumeration.frequentPatterns = patronesFrecuentes;
+        frequentPatterns.set(patronesFrecuentes);
+    }
+
+    /**
+     * It returns the number of joins of IdLists done by the last execution of
+     * the algorithm.
+     *
+     * @return the number of joins
+     */
+    public long getIntersectionCounter() {
+        return intersectionCounter.get();
     }
 
     /**
@@ -264,7 +371,37 @@ public class FrequentPatternEnumeration {
      *
      * @param pattern The pattern that we want to keep.
      */
-    private synchronized void keepPattern(Pattern pattern) {
+    private void keepPattern(Pattern pattern) {
         saver.savePattern(pattern);
     }
-}
\ No newline at end of file
+
+    /**
+     * A task that explores the subtree of an equivalence class, when the
+     * search is done in parallel
+     */
+    private class ExplorationTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final transient EquivalenceClass equivalenceClass;
+        private final boolean dfs;
+        private final boolean keepPatterns;
+        private final boolean verbose;
+        private final transient Map<Integer, Map<Integer, Integer>> coocMapAfter;
+        private final transient Map<Integer, Map<Integer, Integer>> coocMapEquals;
+
+        ExplorationTask(EquivalenceClass equivalenceClass, boolean dfs, boolean keepPatterns, boolean verbose,
+                        Map<Integer, Map<Integer, Integer>> coocMapAfter, Map<Integer, Map<Integer, Integer>> coocMapEquals) {
+            this.equivalenceClass = equivalenceClass;
+            this.dfs = dfs;
+            this.keepPatterns = keepPatterns;
+            this.verbose = verbose;
+            this.coocMapAfter = coocMapAfter;
+            this.coocMapEquals = coocMapEquals;
+        }
+
+        @Override
+        protected void compute() {
+            execute(equivalenceClass, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals);
+        }
+    }
+}
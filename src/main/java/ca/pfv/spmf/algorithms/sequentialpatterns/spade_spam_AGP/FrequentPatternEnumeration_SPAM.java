@@ -10,6 +10,10 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This is an implementation of the main methods of SPAM algorithm. We keep open
@@ -21,6 +25,11 @@ import java.util.List;
  * NOTE: This implementation saves the pattern to a file as soon as they are
  * found or can keep the pattern into memory, depending on what the user choose.
  * <p>
+ * The search can also be done by several threads (see executeInParallel()).
+ * In that case, the patterns that can be extended with several items are
+ * explored by separate tasks of a work-stealing pool, and the saver must be
+ * thread-safe (e.g. a ConcurrentSaver).
+ * <p>
  * Copyright Antonio Gomariz Peñalver 2013
  * <p>
  * This file is part of the SPMF DATA MINING SOFTWARE
@@ -41,6 +50,12 @@ import java.util.List;
  * @author agomariz
  */
 public class FrequentPatternEnumeration_SPAM {
+    /**
+     * The minimum number of frequent extensions that a pattern must have for
+     * them to be explored by separate tasks, when the search is done in
+     * parallel
+     */
+    private static final int MINIMUM_EXTENSIONS_TO_FORK = 2;
     /**
      * The pattern creator.
      */
@@ -58,7 +73,11 @@ public class FrequentPatternEnumeration_SPAM {
     /**
      * Number of frequent patterns found by the algorithm. Initially set to zero.
      */
-    private int frequentPatterns = 0;
+    private final AtomicInteger frequentPatterns = new AtomicInteger();
+    /**
+     * The pool of threads used when the search is done in parallel, or null
+     */
+    private volatile ForkJoinPool pool = null;
 
     /**
      * Standard constructor of the class.
@@ -90,6 +109,41 @@ public class FrequentPatternEnumeration_SPAM {
         }
     }
 
+    /**
+     * Execution of the search of frequent patterns, using several threads.
+     * Each member of the given equivalence class is explored by a separate
+     * task, and the patterns that can be extended with several items are
+     * split recursively into other tasks, which are balanced between the
+     * threads by work stealing. This method returns when all the tasks are
+     * finished.
+     *
+     * @param equivalenceClass The equivalence class from we start to search for.
+     * @param keepPatterns     Flag to indicate if we want to keep the patterns found.
+     *                         The saver must then be thread-safe.
+     * @param verbose          Flag for debugging purposes
+     * @param threadCount      the number of threads
+     */
+    public void executeInParallel(EquivalenceClass equivalenceClass, boolean keepPatterns, boolean verbose, int threadCount) {
+        List<EquivalenceClass> members = equivalenceClass.getClassMembers();
+        final List<ExtensionTask> tasks = new ArrayList<ExtensionTask>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            tasks.add(new ExtensionTask(members.get(i), members, members, i + 1, keepPatterns, false));
+        }
+        pool = new ForkJoinPool(threadCount);
+        try {
+            // block until all the tasks, including those that they split, are done
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
     /**
      * Main method of SPAM algorithm. For each processed patterns, the algorithm
      * tries to make a s-extension first, and then, once it found all the possible
@@ -112,7 +166,7 @@ public class FrequentPatternEnumeration_SPAM {
     private void dfs_pruning(EquivalenceClass currentClass, List<EquivalenceClass> sequenceExtensions, List<EquivalenceClass> itemsetsExtensions,
                              int beginning, boolean keepPatterns) {
         //We start increasing the number of frequent patterns
-        frequentPatterns++;
+        frequentPatterns.incrementAndGet();
 
         //We get the class identifier
         Pattern classIdentifier = currentClass.getClassIdentifier();
@@ -121,6 +175,9 @@ public class FrequentPatternEnumeration_SPAM {
         List<EquivalenceClass> new_sequenceExtension = new ArrayList<EquivalenceClass>();
         List<EquivalenceClass> new_itemsetExtension = new ArrayList<EquivalenceClass>();
         List<EquivalenceClass> new_classes = new ArrayList<EquivalenceClass>();
+        //the extensions that are explored by other tasks, when the search is done in parallel
+        List<ExtensionTask> forkedTasks = null;
+        boolean fork = pool != null && ForkJoinTask.inForkJoinPool();
 
         //Clone for the class identifier
         Pattern clone = classIdentifier.clonePattern();
@@ -177,6 +234,10 @@ public class FrequentPatternEnumeration_SPAM {
         }
 
         int sequenceExtensionSize = new_sequenceExtension.size();
+        //The recursive calls are independent of each other, so they can be done by other tasks
+        if (fork && sequenceExtensionSize >= MINIMUM_EXTENSIONS_TO_FORK) {
+            forkedTasks = new ArrayList<ExtensionTask>();
+        }
         //For all the elements valuables as future s-extensions
         for (int i = 0; i < sequenceExtensionSize; i++) {
             //we get the new pattern
@@ -186,6 +247,12 @@ public class FrequentPatternEnumeration_SPAM {
              * extension. Besides we establish the same set as the set which we will
              * make the i-extensions, but beginning from the (i+1)-th element
              */
+            if (forkedTasks != null) {
+                ExtensionTask task = new ExtensionTask(newClass, new_sequenceExtension, new_sequenceExtension, i + 1, keepPatterns, true);
+                task.fork();
+                forkedTasks.add(task);
+                continue;
+            }
             dfs_pruning(newClass, new_sequenceExtension, new_sequenceExtension, i + 1, keepPatterns);
             /* Once we had finished the search for this patterns and their children,
              * we can to remove that class (and its desdendants) from the memory
@@ -257,6 +324,9 @@ public class FrequentPatternEnumeration_SPAM {
         }
 
         int itemsetExtensionSize = new_itemsetExtension.size();
+        if (fork && forkedTasks == null && itemsetExtensionSize >= MINIMUM_EXTENSIONS_TO_FORK) {
+            forkedTasks = new ArrayList<ExtensionTask>();
+        }
         //For all the elements valuables as future i-extensions
         for (int i = 0; i < itemsetExtensionSize; i++) {
             //we get the new pattern
@@ -265,10 +335,23 @@ public class FrequentPatternEnumeration_SPAM {
              * extension. The beginning of the itemset extension set will be
              * starting from the (i+1)-th element.
              */
+            if (forkedTasks != null) {
+                ExtensionTask task = new ExtensionTask(newClass, new_sequenceExtension, new_itemsetExtension, i + 1, keepPatterns, true);
+                task.fork();
+                forkedTasks.add(task);
+                continue;
+            }
             dfs_pruning(newClass, new_sequenceExtension, new_itemsetExtension, i + 1, keepPatterns);
 
             newClass.clear();
         }
+
+        //We wait for the extensions explored by other tasks, the last one first
+        if (forkedTasks != null) {
+            for (int i = forkedTasks.size() - 1; i >= 0; i--) {
+                forkedTasks.get(i).join();
+            }
+        }
     }
 
     /**
@@ -278,10 +361,46 @@ public class FrequentPatternEnumeration_SPAM {
      * @return the number of frequent patterns found.
      */
     public int getFrequentPatterns() {
-        return frequentPatterns;
+        return frequentPatterns.get();
     }
 
     public void setFrequentPatterns(int frequentPatterns) {
-        this.frequentPatterns = frequentPatterns;
+        this.frequentPatterns.set(frequentPatterns);
+    }
+
+    /**
+     * A task that explores the extensions of a pattern, when the search is
+     * done in parallel
+     */
+    private class ExtensionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final transient EquivalenceClass currentClass;
+        private final transient List<EquivalenceClass> sequenceExtensions;
+        private final transient List<EquivalenceClass> itemsetsExtensions;
+        private final int beginning;
+        private final boolean keepPatterns;
+        /**
+         * if true, the class is removed from the memory once explored
+         */
+        private final boolean clearWhenDone;
+
+        ExtensionTask(EquivalenceClass currentClass, List<EquivalenceClass> sequenceExtensions, List<EquivalenceClass> itemsetsExtensions,
+                      int beginning, boolean keepPatterns, boolean clearWhenDone) {
+            this.currentClass = currentClass;
+            this.sequenceExtensions = sequenceExtensions;
+            this.itemsetsExtensions = itemsetsExtensions;
+            this.beginning = beginning;
+            this.keepPatterns = keepPatterns;
+            this.clearWhenDone = clearWhenDone;
+        }
+
+        @Override
+        protected void compute() {
+            dfs_pruning(currentClass, sequenceExtensions, itemsetsExtensions, beginning, keepPatterns);
+            if (clearWhenDone) {
+                currentClass.clear();
+            }
+        }
     }
 }
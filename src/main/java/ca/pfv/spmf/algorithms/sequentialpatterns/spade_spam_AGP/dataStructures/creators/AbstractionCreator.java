@@ -42,6 +42,17 @@ public abstract class AbstractionCreator {
 
     public abstract Pattern getSubpattern(Pattern extension, int i);
 
+    /**
+     * It checks if a pattern is contained in another one, i.e. if the
+     * itemsets of the shorter pattern are included, in the same order, in
+     * itemsets of the larger pattern.
+     *
+     * @param shorter the pattern that could be contained
+     * @param larger  the pattern that could contain the shorter one
+     * @return true if shorter is a subpattern of larger, otherwise false
+     */
+    public abstract boolean isSubpattern(Pattern shorter, Pattern larger);
+
     public abstract List<EquivalenceClass> getFrequentSize2Sequences(Map<Integer, Map<Item, List<Integer>>> database,
                                                                      Map<Item, EquivalenceClass> frequentItems, IdListCreator idListCreator);
 
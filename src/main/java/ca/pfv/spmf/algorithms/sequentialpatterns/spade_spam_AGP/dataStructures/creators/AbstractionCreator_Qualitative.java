@@ -193,6 +193,58 @@ public class AbstractionCreator_Qualitative extends AbstractionCreator {
     }
 
 
+    /**
+     * It checks if a pattern is contained in another one. Each itemset of the
+     * shorter pattern is matched with the first itemset of the larger pattern
+     * that includes it and that comes after the itemset matched with the
+     * previous one, which is enough to find a matching if there is any.
+     *
+     * @param shorter the pattern that could be contained
+     * @param larger  the pattern that could contain the shorter one
+     * @return true if shorter is a subpattern of larger, otherwise false
+     */
+    @Override
+    public boolean isSubpattern(Pattern shorter, Pattern larger) {
+        if (shorter.size() > larger.size()) {
+            return false;
+        }
+        List<List<Item<?>>> shorterItemsets = getItemsets(shorter);
+        List<List<Item<?>>> largerItemsets = getItemsets(larger);
+        int position = 0;
+        for (List<Item<?>> itemset : shorterItemsets) {
+            //We search for the next itemset of the larger pattern that includes it
+            while (position < largerItemsets.size() && !largerItemsets.get(position).containsAll(itemset)) {
+                position++;
+            }
+            if (position == largerItemsets.size()) {
+                return false;
+            }
+            position++;
+        }
+        return true;
+    }
+
+    /**
+     * It splits a pattern in its itemsets. A new itemset starts with each item
+     * that does not have an equal relation with the previous one.
+     *
+     * @param pattern the pattern
+     * @return the items of each itemset of the pattern
+     */
+    private List<List<Item<?>>> getItemsets(Pattern pattern) {
+        List<List<Item<?>>> itemsets = new ArrayList<List<Item<?>>>();
+        List<Item<?>> itemset = null;
+        for (ItemAbstractionPair pair : pattern.getElements()) {
+            Abstraction_Qualitative abstraction = (Abstraction_Qualitative) pair.getAbstraction();
+            if (itemset == null || !abstraction.hasEqualRelation()) {
+                itemset = new ArrayList<Item<?>>();
+                itemsets.add(itemset);
+            }
+            itemset.add(pair.getItem());
+        }
+        return itemsets;
+    }
+
     @Override
     public List<EquivalenceClass> getFrequentSize2Sequences(Map<Integer, Map<Item, List<Integer>>> database,
                                                             Map<Item, EquivalenceClass> frequentItems, IdListCreator idListCreator) {
@@ -4,8 +4,8 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.I
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.abstractions.Abstraction_Generic;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.abstractions.ItemAbstractionPair;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Class that implements a creator for pairs <item,abstraction> that are used in a pattern implementation.
@@ -32,8 +32,12 @@ import java.util.Map;
  */
 public class ItemAbstractionPairCreator {
 
-    private static final Map<Item, Map<Abstraction_Generic, ItemAbstractionPair>> pailPoors = new HashMap<Item, Map<Abstraction_Generic,
-            ItemAbstractionPair>>();
+    /**
+     * The pairs already created. They are shared by the threads of the
+     * parallel versions of the algorithms.
+     */
+    private static final ConcurrentMap<Item, ConcurrentMap<Abstraction_Generic, ItemAbstractionPair>> pailPoors =
+            new ConcurrentHashMap<Item, ConcurrentMap<Abstraction_Generic, ItemAbstractionPair>>();
     /**
      * Static reference to make the class singleton
      */
@@ -60,19 +64,22 @@ public class ItemAbstractionPairCreator {
     }
 
     public ItemAbstractionPair getItemAbstractionPair(Item item, Abstraction_Generic abstraction) {
-        Map<Abstraction_Generic, ItemAbstractionPair> itemPair = pailPoors.get(item);
-        ItemAbstractionPair pair;
-        if (itemPair != null) {
-            pair = itemPair.get(abstraction);
+        ConcurrentMap<Abstraction_Generic, ItemAbstractionPair> itemPair = pailPoors.get(item);
+        if (itemPair == null) {
+            ConcurrentMap<Abstraction_Generic, ItemAbstractionPair> newItemPair = new ConcurrentHashMap<Abstraction_Generic, ItemAbstractionPair>();
+            // another thread may have created the map in the meantime
+            itemPair = pailPoors.putIfAbsent(item, newItemPair);
+            if (itemPair == null) {
+                itemPair = newItemPair;
+            }
+        }
+        ItemAbstractionPair pair = itemPair.get(abstraction);
+        if (pair == null) {
+            ItemAbstractionPair newPair = new ItemAbstractionPair(item, abstraction);
+            pair = itemPair.putIfAbsent(abstraction, newPair);
             if (pair == null) {
-                pair = new ItemAbstractionPair(item, abstraction);
-                itemPair.put(abstraction, pair);
+                pair = newPair;
             }
-        } else {
-            itemPair = new HashMap<Abstraction_Generic, ItemAbstractionPair>();
-            pair = new ItemAbstractionPair(item, abstraction);
-            itemPair.put(abstraction, pair);
-            pailPoors.put(item, itemPair);
         }
         return pair;
     }
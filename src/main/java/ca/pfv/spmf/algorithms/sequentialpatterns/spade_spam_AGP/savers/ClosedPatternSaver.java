@@ -0,0 +1,208 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This is an implementation of the Saver interface that only keeps the closed
+ * patterns, i.e. the patterns that are not included in another pattern having
+ * the same support. The closedness of a pattern is checked as soon as the
+ * pattern is found, by means of an index where the patterns that are closed
+ * up to now are grouped by their support and the sum of the identifiers of
+ * the sequences where they appear. A pattern only has to be compared with
+ * the patterns of its group: if one of them contains it, the pattern is not
+ * closed, and the patterns of the group that it contains are not closed
+ * anymore. Thus, the frequent patterns that are not closed are forgotten
+ * during the search, instead of being kept until the end to be removed by a
+ * post-processing step.
+ * <p>
+ * Several threads can save patterns at the same time, since each group is
+ * locked separately. The closed patterns are given to another saver (into a
+ * file or into memory) when finish() is called, which must be done once all
+ * the threads have finished.
+ * <p>
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ * <p>
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * <p>
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @author Philippe Fournier-Viger
+ * @see Saver
+ */
+public class ClosedPatternSaver implements Saver {
+
+    /**
+     * The saver that receives the closed patterns
+     */
+    private final Saver saver;
+    /**
+     * The abstraction creator, used to check if a pattern is contained in
+     * another one
+     */
+    private final AbstractionCreator abstractionCreator;
+    /**
+     * The groups of patterns that are closed up to now, by support and sum of
+     * sequence identifiers
+     */
+    private final ConcurrentMap<Key, List<Pattern>> index = new ConcurrentHashMap<Key, List<Pattern>>();
+    /**
+     * The number of patterns that are closed up to now
+     */
+    private final AtomicInteger closedPatternCount = new AtomicInteger();
+
+    /**
+     * Constructor
+     *
+     * @param saver              the saver that receives the closed patterns
+     * @param abstractionCreator the abstraction creator
+     */
+    public ClosedPatternSaver(Saver saver, AbstractionCreator abstractionCreator) {
+        this.saver = saver;
+        this.abstractionCreator = abstractionCreator;
+    }
+
+    /**
+     * Save a pattern, if no pattern found so far with the same support
+     * contains it
+     *
+     * @param p a pattern
+     */
+    @Override
+    public void savePattern(Pattern p) {
+        BitSet appearingIn = p.getAppearingIn();
+        long sumIdSequences = 0;
+        for (int sid = appearingIn.nextSetBit(0); sid >= 0; sid = appearingIn.nextSetBit(sid + 1)) {
+            sumIdSequences += sid;
+        }
+        Key key = new Key(appearingIn.cardinality(), sumIdSequences);
+        List<Pattern> group = index.get(key);
+        if (group == null) {
+            List<Pattern> newGroup = new ArrayList<Pattern>();
+            group = index.putIfAbsent(key, newGroup);
+            if (group == null) {
+                group = newGroup;
+            }
+        }
+        synchronized (group) {
+            Iterator<Pattern> iterator = group.iterator();
+            while (iterator.hasNext()) {
+                Pattern stored = iterator.next();
+                //Two patterns with the same support can only include each other if they appear in the same sequences
+                if (!stored.getAppearingIn().equals(appearingIn)) {
+                    continue;
+                }
+                if (stored.size() >= p.size()) {
+                    if (abstractionCreator.isSubpattern(p, stored)) {
+                        //The pattern is not closed
+                        return;
+                    }
+                } else if (abstractionCreator.isSubpattern(stored, p)) {
+                    //The stored pattern is not closed anymore
+                    iterator.remove();
+                    closedPatternCount.decrementAndGet();
+                }
+            }
+            group.add(p);
+            closedPatternCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * It returns the number of closed patterns found so far
+     *
+     * @return the number of closed patterns
+     */
+    public int getClosedPatternCount() {
+        return closedPatternCount.get();
+    }
+
+    @Override
+    public void finish() {
+        for (List<Pattern> group : index.values()) {
+            saver.savePatterns(group);
+        }
+        index.clear();
+        saver.finish();
+    }
+
+    @Override
+    public void clear() {
+        index.clear();
+        saver.clear();
+    }
+
+    /**
+     * Print patterns
+     *
+     * @return a string
+     */
+    @Override
+    public String print() {
+        return saver.print();
+    }
+
+    /**
+     * Save some patterns
+     *
+     * @param patterns a list of patterns
+     */
+    @Override
+    public void savePatterns(Collection<Pattern> patterns) {
+        for (Pattern pattern : patterns) {
+            this.savePattern(pattern);
+        }
+    }
+
+    /**
+     * The key of a group of patterns: their support and the sum of the
+     * identifiers of the sequences where they appear
+     */
+    private static final class Key {
+        /**
+         * the support
+         */
+        final int support;
+        /**
+         * the sum of the sequence identifiers
+         */
+        final long sumIdSequences;
+
+        Key(int support, long sumIdSequences) {
+            this.support = support;
+            this.sumIdSequences = sumIdSequences;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return support == other.support && sumIdSequences == other.sumIdSequences;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * support + Long.hashCode(sumIdSequences);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This is an implementation of the Saver interface that can be used by several
+ * threads at the same time. Each thread keeps the patterns that it finds in its
+ * own batch, and the batch is given to another saver (into a file or into
+ * memory) only when it is full, so that the threads rarely wait for each
+ * other. When the patterns are saved into a file, they are converted to text
+ * by the thread that found them.
+ * <p>
+ * The remaining batches are given to the other saver when finish() is called,
+ * which must be done once all the threads have finished.
+ * <p>
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ * <p>
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * <p>
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @author Philippe Fournier-Viger
+ * @see Saver
+ */
+public class ConcurrentSaver implements Saver {
+
+    /**
+     * The default number of patterns in a batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * The saver that receives the patterns
+     */
+    private final Saver saver;
+    /**
+     * The saver into a file that receives the patterns, or null if the
+     * patterns are not saved into a file
+     */
+    private final SaverIntoFile saverIntoFile;
+    /**
+     * The number of patterns in a batch
+     */
+    private final int batchSize;
+    /**
+     * The batches of all the threads
+     */
+    private final Queue<Batch> batches = new ConcurrentLinkedQueue<Batch>();
+    /**
+     * The batch of the current thread
+     */
+    private final ThreadLocal<Batch> batchOfThread = new ThreadLocal<Batch>() {
+        @Override
+        protected Batch initialValue() {
+            Batch batch = new Batch();
+            batches.add(batch);
+            return batch;
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param saver the saver that receives the patterns
+     */
+    public ConcurrentSaver(Saver saver) {
+        this(saver, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param saver     the saver that receives the patterns
+     * @param batchSize the number of patterns in a batch
+     */
+    public ConcurrentSaver(Saver saver, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The size of a batch must be at least 1");
+        }
+        this.saver = saver;
+        this.saverIntoFile = (saver instanceof SaverIntoFile) ? (SaverIntoFile) saver : null;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Save a pattern
+     *
+     * @param p a pattern
+     */
+    @Override
+    public void savePattern(Pattern p) {
+        Batch batch = batchOfThread.get();
+        if (saverIntoFile != null) {
+            batch.lines.append(saverIntoFile.format(p)).append(System.lineSeparator());
+        } else {
+            batch.patterns.add(p);
+        }
+        batch.size++;
+        if (batch.size >= batchSize) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * Give the content of a batch to the saver and empty the batch
+     *
+     * @param batch the batch
+     */
+    private void flush(Batch batch) {
+        if (batch.size == 0) {
+            return;
+        }
+        synchronized (saver) {
+            if (saverIntoFile != null) {
+                saverIntoFile.write(batch.lines);
+            } else {
+                saver.savePatterns(batch.patterns);
+            }
+        }
+        batch.lines.setLength(0);
+        batch.patterns.clear();
+        batch.size = 0;
+    }
+
+    @Override
+    public void finish() {
+        for (Batch batch : batches) {
+            flush(batch);
+        }
+        saver.finish();
+    }
+
+    @Override
+    public void clear() {
+        batches.clear();
+        saver.clear();
+    }
+
+    /**
+     * Print patterns
+     *
+     * @return a string
+     */
+    @Override
+    public String print() {
+        return saver.print();
+    }
+
+    /**
+     * Save some patterns
+     *
+     * @param patterns a list of patterns
+     */
+    @Override
+    public void savePatterns(Collection<Pattern> patterns) {
+        for (Pattern pattern : patterns) {
+            this.savePattern(pattern);
+        }
+    }
+
+    /**
+     * The patterns found by a thread that were not given to the saver yet
+     */
+    private static class Batch {
+        /**
+         * the patterns, if they are not saved into a file
+         */
+        final List<Pattern> patterns = new ArrayList<Pattern>();
+        /**
+         * the patterns as text, if they are saved into a file
+         */
+        final StringBuilder lines = new StringBuilder();
+        /**
+         * the number of patterns
+         */
+        int size;
+    }
+}
@@ -79,6 +79,32 @@ public class SaverIntoFile implements Saver {
         }
     }
 
+    /**
+     * Convert a pattern to the line that is written in the file
+     *
+     * @param p a pattern
+     * @return the line, without line separator
+     */
+    String format(Pattern p) {
+        return p.toStringToFile(outputSequenceIdentifiers);
+    }
+
+    /**
+     * Write some lines that were already converted by format(), each one
+     * followed by a line separator
+     *
+     * @param lines the lines
+     */
+    void write(CharSequence lines) {
+        if (writer != null) {
+            try {
+                writer.append(lines);
+            } catch (IOException ex) {
+                Logger.getLogger(SaverIntoFile.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
     @Override
     public void finish() {
         if (writer != null) {
@@ -16,6 +16,7 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
 
+import ca.pfv.spmf.datastructures.bitmaps.BitmapType;
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -65,6 +66,14 @@ public class AlgoSPAM {
      * the last bit position that is used in bitmaps
      */
     int lastBitIndex = 0;
+    /**
+     * the type of bitmaps used by the vertical database
+     */
+    private BitmapType bitmapType = BitmapType.BITSET;
+    /**
+     * the memory used by the bitmaps of the frequent items, in bytes (for statistics)
+     */
+    private long verticalDBMemory = 0;
     /**
      * for statistics
      */
@@ -115,6 +124,8 @@ public class AlgoSPAM {
         patternCount = 0;
         // to log the memory used
         MemoryLogger.getInstance().reset();
+        // reset the number of intersections
+        Bitmap.INTERSECTION_COUNT = 0;
 
         // record start time
         startTime = System.currentTimeMillis();
@@ -217,7 +228,7 @@ public class AlgoSPAM {
                         Integer item = Integer.parseInt(token);
                         Bitmap bitmapItem = verticalDB.get(item);
                         if (bitmapItem == null) {
-                            bitmapItem = new Bitmap(lastBitIndex);
+                            bitmapItem = new Bitmap(lastBitIndex, bitmapType);
                             verticalDB.put(item, bitmapItem);
                         }
                         // Register the bit in the bitmap for this item
@@ -253,6 +264,9 @@ public class AlgoSPAM {
             }
         }
 
+        // the bitmaps of the frequent items are not modified anymore, so they can be compressed
+        verticalDBMemory = optimizeVerticalDB();
+
         // STEP3: WE PERFORM THE RECURSIVE DEPTH FIRST SEARCH
         // to find longer sequential patterns recursively
 
@@ -295,6 +309,7 @@ public class AlgoSPAM {
         // for each item in sn
         for (Integer i : sn) {
             // perform the S-STEP with that item to get a new bitmap
+            Bitmap.INTERSECTION_COUNT++;
             Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize, lastBitIndex, maxGap);
             // if the support is higher than minsup
             if (newBitmap.getSupportWithoutGapTotal() >= minsup) {
@@ -338,6 +353,7 @@ public class AlgoSPAM {
 
                 // Perform an i-step with this item and the current prefix.
                 // This creates a new bitmap
+                Bitmap.INTERSECTION_COUNT++;
                 Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
                 // If the support is no less than minsup
                 if (newBitmap.getSupport() >= minsup) {
@@ -441,6 +457,8 @@ public class AlgoSPAM {
                          '\n' +
                          "minsup " + minsup +
                          '\n' +
+                         "Intersection count " + Bitmap.INTERSECTION_COUNT + " \n" +
+                         " Bitmaps : " + bitmapType + ", vertical database (mb) : " + verticalDBMemory / 1024d / 1024d + '\n' +
                          "===================================================\n";
         System.out.println(r);
     }
@@ -472,6 +490,31 @@ public class AlgoSPAM {
         this.minimumPatternLength = minimumPatternLength;
     }
 
+    /**
+     * Set the type of bitmaps used by the vertical database. Compressed bitmaps
+     * use less memory for sparse databases (by default, BitSets are used).
+     *
+     * @param bitmapType the type of bitmaps
+     */
+    public void setBitmapType(BitmapType bitmapType) {
+        this.bitmapType = bitmapType;
+    }
+
+    /**
+     * Optimize the bitmaps of the vertical database, when they will not be
+     * modified anymore
+     *
+     * @return the memory used by these bitmaps in bytes
+     */
+    private long optimizeVerticalDB() {
+        long memory = 0;
+        for (Bitmap bitmap : verticalDB.values()) {
+            bitmap.optimize();
+            memory += bitmap.getMemoryUsage();
+        }
+        return memory;
+    }
+
     /**
      * This method allows to specify the maximum gap
      * between itemsets of patterns found by the algorithm.
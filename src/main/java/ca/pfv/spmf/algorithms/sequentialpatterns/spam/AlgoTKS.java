@@ -1,17 +1,32 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
 
+import ca.pfv.spmf.datastructures.bitmaps.BitmapType;
+import ca.pfv.spmf.datastructures.topk.ConcurrentCandidateQueue;
+import ca.pfv.spmf.datastructures.topk.ConcurrentTopKSet;
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /***
  * This is the original implementation of the TKS algorithm for top-k sequential
  * patterns. <br/>
  * <br/>
  *
+ * The candidates can be extended by several threads (see setThreadCount()). The
+ * threads then take the most promising candidate from a shared queue, save the
+ * patterns in a ConcurrentTopKSet and prune with the minimum support that it raises.
+ * The patterns having the same support are then ordered by lexical order, and
+ * exactly k patterns are kept, so that each execution gives the same result. With
+ * one thread, more than k patterns may be found if several patterns have the same
+ * support as the k-th pattern. <br/>
+ * <br/>
+ *
  * Copyright (c) 2013 Philippe Fournier-Viger, Antonio Gomariz <br/>
  * <br/>
  *
@@ -76,6 +91,14 @@ public class AlgoTKS {
      * the last bit position that is used in bitmaps
      */
     int lastBitIndex = 0;
+    /**
+     * the type of bitmaps used by the vertical database
+     */
+    private BitmapType bitmapType = BitmapType.BITSET;
+    /**
+     * the memory used by the bitmaps of the frequent items, in bytes (for statistics)
+     */
+    private long verticalDBMemory = 0;
 
     /**
      * the top k patterns found until now
@@ -96,7 +119,22 @@ public class AlgoTKS {
     /**
      * the number of candidates considered (for stats)
      */
-    int candidateExplored = 0;
+    final AtomicInteger candidateExplored = new AtomicInteger();
+
+    /**
+     * the number of intersections of bitmaps (for stats)
+     */
+    final AtomicLong intersectionCount = new AtomicLong();
+
+    /**
+     * the top k patterns found until now, when several threads are used (otherwise null)
+     */
+    ConcurrentTopKSet<PatternTKS> concurrentKPatterns;
+
+    /**
+     * the candidates for expansion, when several threads are used (otherwise null)
+     */
+    ConcurrentCandidateQueue<Candidate> concurrentCandidates;
 
     /**
      * the set of items that have been discarded because their support has become
@@ -126,9 +164,10 @@ public class AlgoTKS {
      */
     private long endTime;
     /**
-     * minsup, which is dynamically raised during execution
+     * minsup, which is dynamically raised during execution (it is read by all the
+     * threads when several threads are used)
      */
-    private int minsup = 0;
+    private final AtomicInteger minsup = new AtomicInteger();
     /**
      * for stats, the minsup just after preprocessing
      */
@@ -157,6 +196,11 @@ public class AlgoTKS {
      */
     private boolean outputSequenceIdentifiers;
 
+    /**
+     * the number of threads used to extend the candidates
+     */
+    private int threadCount = 1;
+
     /**
      * Default constructor
      */
@@ -174,6 +218,8 @@ public class AlgoTKS {
 
         // to log the memory used
         MemoryLogger.getInstance().reset();
+        // reset the number of intersections
+        intersectionCount.set(0);
 
         // RUN THE ALGORITHM
         tks(input, k);
@@ -195,14 +241,41 @@ public class AlgoTKS {
         this.k = k;
 
         // set minsup = 1 (will be increased by the algorithm progressively)
-        minsup = 1;
+        minsup.set(1);
 
-        candidateExplored = 0;
+        candidateExplored.set(0);
+        maxCandidateCount = 0;
 
         // the sets that will contain the top-k patterns and the candidates
         kPatterns = new PriorityQueue<PatternTKS>();
         candidates = new PriorityQueue<Candidate>();
-        discardedItems = new HashSet<Integer>();
+        discardedItems = ConcurrentHashMap.newKeySet();
+        if (threadCount > 1) {
+            concurrentKPatterns = new ConcurrentTopKSet<PatternTKS>(k, minsup) {
+                @Override
+                protected int getSupport(PatternTKS pattern) {
+                    return pattern.support;
+                }
+
+                @Override
+                protected int comparePatterns(PatternTKS pattern1, PatternTKS pattern2) {
+                    return compareLexically(pattern1.prefix.getItemsets(), pattern2.prefix.getItemsets());
+                }
+
+                @Override
+                protected void removed(PatternTKS pattern) {
+                    // a pattern having the same support as the k-th pattern may be removed because of
+                    // the lexical order. Its item is only discarded if no pattern containing it can be in the top-k.
+                    if (pattern.support < minsup.get()) {
+                        recordIfDiscardedItem(pattern);
+                    }
+                }
+            };
+            concurrentCandidates = new ConcurrentCandidateQueue<Candidate>(null);
+        } else {
+            concurrentKPatterns = null;
+            concurrentCandidates = null;
+        }
 
         // the structure to store the vertical database
         // key: an item value : bitmap
@@ -291,7 +364,7 @@ public class AlgoTKS {
                     // Get the bitmap for this item. If none, create a new one.
                     Bitmap bitmapItem = verticalDB.get(item);
                     if (bitmapItem == null) {
-                        bitmapItem = new Bitmap(lastBitIndex);
+                        bitmapItem = new Bitmap(lastBitIndex, bitmapType);
                         verticalDB.put(item, bitmapItem);
                     }
                     // Register the bit in the bitmap for this item
@@ -311,7 +384,7 @@ public class AlgoTKS {
             Integer support = entry.getValue().getSupport();
 
 //			// if the cardinality of this bitmap is lower than minsup
-            if (support < minsup) {
+            if (support < minsup.get()) {
                 // we remove this item from the database.
                 iter.remove();
             } else {
@@ -330,6 +403,9 @@ public class AlgoTKS {
             }
         }
 
+        // the bitmaps of the frequent items are not modified anymore, so they can be compressed
+        verticalDBMemory = optimizeVerticalDB();
+
         if (maximumPatternLength > 1) {
             // STEP4:CREATE COOCURRENCE STRUCTURE
             if (useCooccurrenceInformation) {
@@ -364,7 +440,7 @@ public class AlgoTKS {
                         // }
 
                         Bitmap bitmapOfItem = verticalDB.get(itemI);
-                        if (bitmapOfItem == null || bitmapOfItem.getSupport() < minsup) {
+                        if (bitmapOfItem == null || bitmapOfItem.getSupport() < minsup.get()) {
                             continue;
                         }
 
@@ -380,7 +456,7 @@ public class AlgoTKS {
                             }
 
                             Bitmap bitmapOfitemJ = verticalDB.get(itemJ);
-                            if (bitmapOfitemJ == null || bitmapOfitemJ.getSupport() < minsup) {
+                            if (bitmapOfitemJ == null || bitmapOfitemJ.getSupport() < minsup.get()) {
                                 continue;
                             }
                             // if (itemI != itemJ){
@@ -431,8 +507,8 @@ public class AlgoTKS {
                 while (iter2.hasNext()) {
                     Entry<Integer, Bitmap> entry = iter2.next();
                     Bitmap bitmap = entry.getValue();
-                    if (bitmap.getSupport() >= minsup) {
-                        candidateExplored++;
+                    if (bitmap.getSupport() >= minsup.get()) {
+                        candidateExplored.incrementAndGet();
                         Integer item = entry.getKey();
                         // We create a prefix with that item
                         Prefix prefix = new Prefix();
@@ -448,12 +524,12 @@ public class AlgoTKS {
                 Iterator<Integer> iter2 = frequentItems.iterator();
                 while (iter2.hasNext()) {
                     Integer item = iter2.next();
-                    if (verticalDB.get(item).getSupport() < minsup) {
+                    if (verticalDB.get(item).getSupport() < minsup.get()) {
                         // we remove this item from the database.
                         iter2.remove();
                         verticalDB.remove(item);
                     } else {
-                        candidateExplored++;
+                        candidateExplored.incrementAndGet();
 
                         // We create a prefix with that item
                         Prefix prefix = new Prefix();
@@ -464,23 +540,28 @@ public class AlgoTKS {
                     }
                 }
             }
-            minsupAfterPreProcessing = minsup; // for stats
+            minsupAfterPreProcessing = minsup.get(); // for stats
 
             // STEP3: WE PERFORM THE RECURSIVE DEPTH FIRST SEARCH
             // to find longer sequential patterns recursively
 
             startMiningTime = System.currentTimeMillis();
 
+            if (threadCount > 1) {
+                // the candidates are extended by several threads
+                extendCandidatesInParallel();
+            }
+
             while (!candidates.isEmpty()) {
                 // we take the rule with the highest support first
                 Candidate cand = candidates.poll();
 
                 // if there is no more candidates with enough support, then we stop
-                if (cand.bitmap.getSupport() < minsup) {
+                if (cand.bitmap.getSupport() < minsup.get()) {
                     break;
                 }
 
-                candidateExplored++;
+                candidateExplored.incrementAndGet();
 
                 // we try to expand the candidate pattern
                 dfsPruning(cand.prefix, cand.bitmap, cand.sn, cand.in, cand.hasToBeGreaterThanForIStep,
@@ -490,7 +571,7 @@ public class AlgoTKS {
                     && addedCandidatesSinceLastRebuilt > MIN_ADDED_CANDIDATE_COUNT_SINCE_LAST_REBUILD_BEFORE_REBUILD) {
                     PriorityQueue<Candidate> temp = new PriorityQueue<Candidate>();
                     for (Candidate candidate : candidates) {
-                        if (candidate.bitmap.getSupport() >= minsup) {
+                        if (candidate.bitmap.getSupport() >= minsup.get()) {
                             temp.add(candidate);
                         }
                     }
@@ -501,12 +582,93 @@ public class AlgoTKS {
             }
         }
 
+        if (concurrentKPatterns != null) {
+            // keep the patterns found by the threads
+            kPatterns.addAll(concurrentKPatterns.getPatterns());
+            maxCandidateCount = concurrentCandidates.getMaxSize();
+            concurrentKPatterns = null;
+            concurrentCandidates = null;
+        }
+
         // check the memory usage
         MemoryLogger.getInstance().checkMemory();
         // return the top-rules
         return kPatterns;
     }
 
+    /**
+     * Extend the candidates with several threads. Each thread takes the candidate with
+     * the highest support from the shared queue and extends it, until no thread can find
+     * a new candidate.
+     *
+     * @throws IOException if the threads are interrupted
+     */
+    private void extendCandidatesInParallel() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try {
+                            extendCandidates();
+                        } catch (Exception | Error e) {
+                            // the other threads are stopped
+                            concurrentCandidates.stop();
+                            throw e;
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Extend the candidates of the shared queue until there is none (this is done by
+     * each thread).
+     *
+     * @throws IOException          if there is an error writing a pattern
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private void extendCandidates() throws IOException, InterruptedException {
+        Candidate cand;
+        while ((cand = concurrentCandidates.take()) != null) {
+            try {
+                // if the candidate does not have enough support, the candidates that are not
+                // more promising do not either
+                if (cand.bitmap.getSupport() < minsup.get()) {
+                    concurrentCandidates.clearNotBetterThan(cand);
+                    continue;
+                }
+                candidateExplored.incrementAndGet();
+
+                // we try to expand the candidate pattern
+                dfsPruning(cand.prefix, cand.bitmap, cand.sn, cand.in, cand.hasToBeGreaterThanForIStep,
+                        cand.candidateLength);
+            } finally {
+                concurrentCandidates.done();
+            }
+        }
+    }
+
     /**
      * Save a rule in the current top-k set
      *
@@ -539,28 +701,71 @@ public class AlgoTKS {
             }
         }
 
+        // if several threads are used, the pattern is added to the concurrent set
+        if (concurrentKPatterns != null) {
+            concurrentKPatterns.add(pattern);
+            return;
+        }
+
         // We add the rule to the set of top-k rules
         kPatterns.add(pattern);
         // if the size becomes larger than k
         if (kPatterns.size() > k) {
             // if the support of the rule that we haved added is higher than
             // the minimum support, we will need to take out at least one rule
-            if (pattern.support > this.minsup) {
+            if (pattern.support > this.minsup.get()) {
                 // we recursively remove the rule having the lowest support, until only k rules
                 // are left
                 do {
                     PatternTKS pat = kPatterns.poll();
-
-                    // STRATEGY TO RECORD DISCARDED SINGLE ITEMS SO THAT WE DON'T CONSIDER THEM FOR
-                    // EXPANSION
-                    if (useDiscardedItemsPruningStrategy && pat.prefix.size() == 1 && pat.prefix.get(0).size() == 1) {
-                        discardedItems.add(pat.prefix.get(0).get(0));
-                    }
+                    recordIfDiscardedItem(pat);
                 } while (kPatterns.size() > k);
             }
             // we raise the minimum support to the lowest support in the
             // set of top-k rules
-            this.minsup = kPatterns.peek().support;
+            this.minsup.set(kPatterns.peek().support);
+        }
+    }
+
+    /**
+     * Compare two patterns in lexical order: itemset by itemset, and item by item in an itemset
+     * (a pattern or an itemset that is a prefix of another comes first)
+     *
+     * @param itemsets1 the itemsets of a pattern
+     * @param itemsets2 the itemsets of another pattern
+     * @return a negative value, zero or a positive value if the first pattern comes before,
+     * is the same as or comes after the second pattern
+     */
+    private static int compareLexically(List<Itemset> itemsets1, List<Itemset> itemsets2) {
+        int itemsetCount = Math.min(itemsets1.size(), itemsets2.size());
+        for (int i = 0; i < itemsetCount; i++) {
+            List<Integer> items1 = itemsets1.get(i).getItems();
+            List<Integer> items2 = itemsets2.get(i).getItems();
+            int itemCount = Math.min(items1.size(), items2.size());
+            for (int j = 0; j < itemCount; j++) {
+                int compare = Integer.compare(items1.get(j), items2.get(j));
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            if (items1.size() != items2.size()) {
+                return Integer.compare(items1.size(), items2.size());
+            }
+        }
+        return Integer.compare(itemsets1.size(), itemsets2.size());
+    }
+
+    /**
+     * Record the item of a pattern that was removed from the top-k patterns, if it
+     * is a single item, so that it is not considered for expansion anymore
+     *
+     * @param pattern the pattern
+     */
+    private void recordIfDiscardedItem(PatternTKS pattern) {
+        // STRATEGY TO RECORD DISCARDED SINGLE ITEMS SO THAT WE DON'T CONSIDER THEM FOR
+        // EXPANSION
+        if (useDiscardedItemsPruningStrategy && pattern.prefix.size() == 1 && pattern.prefix.get(0).size() == 1) {
+            discardedItems.add(pattern.prefix.get(0).get(0));
         }
     }
 
@@ -570,6 +775,11 @@ public class AlgoTKS {
      * @param candidate the candidate
      */
     private void registerAsCandidate(Candidate candidate) {
+        // if several threads are used, the candidate is added to the concurrent queue
+        if (concurrentCandidates != null) {
+            concurrentCandidates.add(candidate);
+            return;
+        }
 
         candidates.add(candidate); // add the pattern
 
@@ -631,7 +841,7 @@ public class AlgoTKS {
                             continue loopi;
                         }
                         Integer support = mapSupportItemsAfter.get(i);
-                        if (support == null || support < minsup) {
+                        if (support == null || support < minsup.get()) {
 //							System.out.println("PRUNE");
                             continue loopi;
                         }
@@ -640,10 +850,11 @@ public class AlgoTKS {
             }
 
             // perform the S-STEP with that item to get a new bitmap
+            intersectionCount.incrementAndGet();
             Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize, lastBitIndex,
                     maxGap);
             // if the support is higher than minsup
-            if (newBitmap.getSupportWithoutGapTotal() >= minsup) {
+            if (newBitmap.getSupportWithoutGapTotal() >= minsup.get()) {
                 // record that item and pattern in temporary variables
                 sTemp.add(i);
                 sTempBitmaps.add(newBitmap);
@@ -657,7 +868,7 @@ public class AlgoTKS {
             Bitmap newBitmap = sTempBitmaps.get(k);
 
             // IMPORTANT ---- PRUNING *******************************
-            if (usePruneBranchesInsideDFSPruning && newBitmap.getSupport() < minsup) {
+            if (usePruneBranchesInsideDFSPruning && newBitmap.getSupport() < minsup.get()) {
                 continue;
             }
 
@@ -666,7 +877,7 @@ public class AlgoTKS {
             Prefix prefixSStep = prefix.cloneSequence();
             prefixSStep.addItemset(new Itemset(item));
 
-            if (newBitmap.getSupport() >= minsup) {
+            if (newBitmap.getSupport() >= minsup.get()) {
                 // save the pattern to the file
                 if (newCandidatesLength >= minimumPatternLength && newCandidatesLength <= maximumPatternLength) {
                     PatternTKS pattern = new PatternTKS(prefixSStep, newBitmap.getSupport());
@@ -703,16 +914,15 @@ public class AlgoTKS {
             }
 
             if (useCooccurrenceInformation) {
-                for (Itemset itemset : prefix.getItemsets()) {
-                    for (Integer itemX : itemset.getItems()) {
-                        Map<Integer, Integer> mapSupportItemsAfter = coocMapEquals.get(itemX);
-                        if (mapSupportItemsAfter == null) {
-                            continue loop2;
-                        }
-                        Integer support = mapSupportItemsAfter.get(i);
-                        if (support == null || support < minsup) {
-                            continue loop2;
-                        }
+                // only the items of the last itemset appear in the same itemset as the new item
+                for (Integer itemX : prefix.get(prefix.size() - 1).getItems()) {
+                    Map<Integer, Integer> mapSupportItemsEquals = coocMapEquals.get(itemX);
+                    if (mapSupportItemsEquals == null) {
+                        continue loop2;
+                    }
+                    Integer support = mapSupportItemsEquals.get(i);
+                    if (support == null || support < minsup.get()) {
+                        continue loop2;
                     }
                 }
             }
@@ -722,9 +932,10 @@ public class AlgoTKS {
 
             // Perform an i-step with this item and the current prefix.
             // This creates a new bitmap
+            intersectionCount.incrementAndGet();
             Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
             // If the support is no less than minsup
-            if (newBitmap.getSupport() >= minsup) {
+            if (newBitmap.getSupport() >= minsup.get()) {
                 // record that item and pattern in temporary variables
                 iTemp.add(i);
                 iTempBitmaps.add(newBitmap);
@@ -737,7 +948,7 @@ public class AlgoTKS {
             Bitmap newBitmap = iTempBitmaps.get(k);
 
             // IMPORTANT ---- PRUNING *******************************
-            if (usePruneBranchesInsideDFSPruning && newBitmap.getSupport() < minsup) {
+            if (usePruneBranchesInsideDFSPruning && newBitmap.getSupport() < minsup.get()) {
                 continue;
             }
 
@@ -775,9 +986,11 @@ public class AlgoTKS {
                          "Max memory (mb) : " +
                          MemoryLogger.getInstance().getMaxMemory() +
                          '\n' +
-                         "Final minsup value: " + minsup +
+                         "Final minsup value: " + minsup.get() +
                          '\n' +
-                         "Intersection count " + Bitmap.INTERSECTION_COUNT + " \n" +
+                         "Intersection count " + intersectionCount.get() + " \n" +
+                         " Bitmaps : " + bitmapType + ", vertical database (mb) : " + verticalDBMemory / 1024d / 1024d + '\n' +
+                         (threadCount > 1 ? " Threads : " + threadCount + '\n' : "") +
                          "===================================================\n";
         System.out.println(r);
     }
@@ -852,6 +1065,43 @@ public class AlgoTKS {
         return (mustAppearItems == null) || Arrays.binarySearch(mustAppearItems, item) >= 0;
     }
 
+    /**
+     * Set the type of bitmaps used by the vertical database. Compressed bitmaps
+     * use less memory for sparse databases (by default, BitSets are used).
+     *
+     * @param bitmapType the type of bitmaps
+     */
+    public void setBitmapType(BitmapType bitmapType) {
+        this.bitmapType = bitmapType;
+    }
+
+    /**
+     * Set the number of threads used to extend the candidates (by default, 1).
+     *
+     * @param threadCount the number of threads
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Optimize the bitmaps of the vertical database, when they will not be
+     * modified anymore
+     *
+     * @return the memory used by these bitmaps in bytes
+     */
+    private long optimizeVerticalDB() {
+        long memory = 0;
+        for (Bitmap bitmap : verticalDB.values()) {
+            bitmap.optimize();
+            memory += bitmap.getMemoryUsage();
+        }
+        return memory;
+    }
+
     /**
      * This method allows to specify the maximum gap between itemsets of patterns
      * found by the algorithm. If set to 1, only patterns of contiguous itemsets
@@ -1,5 +1,7 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
 
+import ca.pfv.spmf.datastructures.bitmaps.AbstractBitmap;
+import ca.pfv.spmf.datastructures.bitmaps.BitmapType;
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -62,6 +64,14 @@ public class AlgoVGEN {
      * the last bit position that is used in bitmaps
      */
     int lastBitIndex = 0;
+    /**
+     * the type of bitmaps used by the vertical database
+     */
+    private BitmapType bitmapType = BitmapType.BITSET;
+    /**
+     * the memory used by the bitmaps of the frequent items, in bytes (for statistics)
+     */
+    private long verticalDBMemory = 0;
     /**
      * Map: key: item value: another item that followed the first item + support
      * (could be replaced with a triangular matrix...)
@@ -321,7 +331,7 @@ public class AlgoVGEN {
                         Integer item = Integer.parseInt(token);
                         Bitmap bitmapItem = verticalDB.get(item);
                         if (bitmapItem == null) {
-                            bitmapItem = new Bitmap(lastBitIndex);
+                            bitmapItem = new Bitmap(lastBitIndex, bitmapType);
                             verticalDB.put(item, bitmapItem);
                         }
                         // Register the bit in the bitmap for this item
@@ -358,6 +368,9 @@ public class AlgoVGEN {
             }
         }
 
+        // the bitmaps of the frequent items are not modified anymore, so they can be compressed
+        verticalDBMemory = optimizeVerticalDB();
+
         // SET 2.1 SORT ITEMS BY DESCENDING SUPPORT
         Collections.sort(frequentItems, new Comparator<Integer>() {
 
@@ -807,8 +820,8 @@ public class AlgoVGEN {
 //    	System.out.println("is there backward?");
 //    	System.out.println(bitmap1.bitmap.toString());
 //    	System.out.println(bitmap2.bitmap.toString());
-        BitSet bitset1 = bitmap1.bitmap;
-        BitSet bitset2 = bitmap2.bitmap;
+        AbstractBitmap bitset1 = bitmap1.bitmap;
+        AbstractBitmap bitset2 = bitmap2.bitmap;
 
         int currentBit1 = bitset1.nextSetBit(0);
         int currentBit2 = bitset2.nextSetBit(0);
@@ -1005,6 +1018,7 @@ public class AlgoVGEN {
                          "minsup " + minsup +
                          '\n' +
                          "Intersection count " + Bitmap.INTERSECTION_COUNT + " \n" +
+                         " Bitmaps : " + bitmapType + ", vertical database (mb) : " + verticalDBMemory / 1024d / 1024d + '\n' +
                          "===================================================\n";
         System.out.println(r);
     }
@@ -1066,6 +1080,31 @@ public class AlgoVGEN {
         }
     }
 
+    /**
+     * Set the type of bitmaps used by the vertical database. Compressed bitmaps
+     * use less memory for sparse databases (by default, BitSets are used).
+     *
+     * @param bitmapType the type of bitmaps
+     */
+    public void setBitmapType(BitmapType bitmapType) {
+        this.bitmapType = bitmapType;
+    }
+
+    /**
+     * Optimize the bitmaps of the vertical database, when they will not be
+     * modified anymore
+     *
+     * @return the memory used by these bitmaps in bytes
+     */
+    private long optimizeVerticalDB() {
+        long memory = 0;
+        for (Bitmap bitmap : verticalDB.values()) {
+            bitmap.optimize();
+            memory += bitmap.getMemoryUsage();
+        }
+        return memory;
+    }
+
     /**
      * This method allows to specify the maximum gap between itemsets of patterns
      * found by the algorithm. If set to 1, only patterns of contiguous itemsets
@@ -1,5 +1,6 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
 
+import ca.pfv.spmf.datastructures.bitmaps.BitmapType;
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -62,6 +63,14 @@ public class AlgoVMSP {
      * the last bit position that is used in bitmaps
      */
     int lastBitIndex = 0;
+    /**
+     * the type of bitmaps used by the vertical database
+     */
+    private BitmapType bitmapType = BitmapType.BITSET;
+    /**
+     * the memory used by the bitmaps of the frequent items, in bytes (for statistics)
+     */
+    private long verticalDBMemory = 0;
     /**
      * Map: key: item value: another item that followed the first item + support /*
      * (could be replaced with a triangular matrix...)
@@ -276,7 +285,7 @@ public class AlgoVMSP {
                         Integer item = Integer.parseInt(token);
                         Bitmap bitmapItem = verticalDB.get(item);
                         if (bitmapItem == null) {
-                            bitmapItem = new Bitmap(lastBitIndex);
+                            bitmapItem = new Bitmap(lastBitIndex, bitmapType);
                             verticalDB.put(item, bitmapItem);
                         }
                         // Register the bit in the bitmap for this item
@@ -310,6 +319,9 @@ public class AlgoVMSP {
             }
         }
 
+        // the bitmaps of the frequent items are not modified anymore, so they can be compressed
+        verticalDBMemory = optimizeVerticalDB();
+
         // If in debugging mode, we will show the bitmaps
         if (DEBUG) {
             System.out.println(" == VERTICAL DATABASE ==");
@@ -1052,6 +1064,7 @@ public class AlgoVMSP {
                          "minsup " + minsup +
                          '\n' +
                          "Intersection count " + Bitmap.INTERSECTION_COUNT + " \n" +
+                         " Bitmaps : " + bitmapType + ", vertical database (mb) : " + verticalDBMemory / 1024d / 1024d + '\n' +
                          "===================================================\n";
 
 //        // PRINT PATTERNS
@@ -1132,6 +1145,31 @@ public class AlgoVMSP {
         }
     }
 
+    /**
+     * Set the type of bitmaps used by the vertical database. Compressed bitmaps
+     * use less memory for sparse databases (by default, BitSets are used).
+     *
+     * @param bitmapType the type of bitmaps
+     */
+    public void setBitmapType(BitmapType bitmapType) {
+        this.bitmapType = bitmapType;
+    }
+
+    /**
+     * Optimize the bitmaps of the vertical database, when they will not be
+     * modified anymore
+     *
+     * @return the memory used by these bitmaps in bytes
+     */
+    private long optimizeVerticalDB() {
+        long memory = 0;
+        for (Bitmap bitmap : verticalDB.values()) {
+            bitmap.optimize();
+            memory += bitmap.getMemoryUsage();
+        }
+        return memory;
+    }
+
     /**
      * This method allows to specify the maximum gap between itemsets of patterns
      * found by the algorithm. If set to 1, only patterns of contiguous itemsets
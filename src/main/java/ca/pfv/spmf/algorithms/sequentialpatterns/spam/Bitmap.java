@@ -1,12 +1,17 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
 
-import java.util.BitSet;
+import ca.pfv.spmf.datastructures.bitmaps.AbstractBitmap;
+import ca.pfv.spmf.datastructures.bitmaps.BitmapType;
+
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Implementation of a bitmap for SPAM.
  * <br/><br/>
+ * The bits are stored either in a BitSet or in a compressed bitmap
+ * (see BitmapType), which uses less memory for sparse databases.
+ * <br/><br/>
  * <p>
  * Copyright (c) 2008-2012 Philippe Fournier-Viger
  * <br/><br/>
@@ -40,8 +45,10 @@ public class Bitmap {
 
     public static long INTERSECTION_COUNT = 0;
 
-    // A bitmap is implemented using the BitSet class of Java.
-    BitSet bitmap = new BitSet();
+    // The bits of this bitmap (a BitSet or a compressed bitmap)
+    AbstractBitmap bitmap;
+    // The type of bitmap, which is also used for the bitmaps created from this one
+    private final BitmapType type;
 
     // For calculating the support more efficiently
     // we keep some information:
@@ -58,16 +65,29 @@ public class Bitmap {
      * @param lastBitIndex the desired size of the bitset minus 1
      */
     Bitmap(int lastBitIndex) {
-        this.bitmap = new BitSet(lastBitIndex + 1);
+        this(lastBitIndex, BitmapType.BITSET);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param lastBitIndex the desired size of the bitset minus 1
+     * @param type         the type of bitmap
+     */
+    Bitmap(int lastBitIndex, BitmapType type) {
+        this.type = type;
+        this.bitmap = type.newBitmap(lastBitIndex);
     }
 
     /**
      * Constructor
      *
-     * @param bitmap a bitset to initialize this Bitmap.
+     * @param bitmap a bitmap to initialize this Bitmap.
+     * @param type   the type of this bitmap
      */
-    private Bitmap(BitSet bitmap) {
+    private Bitmap(AbstractBitmap bitmap, BitmapType type) {
         this.bitmap = bitmap;
+        this.type = type;
     }
 
     /**
@@ -81,7 +101,7 @@ public class Bitmap {
         // calculate the position of the bit that we need to set to 1
         int pos = sequencesSize.get(sid) + tid;
         // set the bit to 1
-        bitmap.set(pos, true);
+        bitmap.set(pos);
 
         // Update the  count of bit set to 1
         if (sid != lastSID) {
@@ -147,7 +167,7 @@ public class Bitmap {
         //INTERSECTION_COUNT++;
 
         // create a new bitset that will be use for the new bitmap
-        Bitmap newBitmap = new Bitmap(new BitSet(lastBitIndex));
+        Bitmap newBitmap = new Bitmap(type.newBitmap(lastBitIndex), type);
 
         // if no maxGap constraint is used
         if (maxGap == Integer.MAX_VALUE) {
@@ -293,40 +313,50 @@ public class Bitmap {
     Bitmap createNewBitmapIStep(Bitmap bitmapItem, List<Integer> sequencesSize, int lastBitIndex) {
         //INTERSECTION_COUNT++;
 
-        // We create the new bitmap
-        BitSet newBitset = new BitSet(lastBitIndex);
-        Bitmap newBitmap = new Bitmap(newBitset);
+        // We create the new bitmap as a copy of this bitmap,
+        // and we do an AND with the bitmap of the item
+        Bitmap newBitmap = new Bitmap(bitmap.copy(), type);
+        newBitmap.bitmap.and(bitmapItem.bitmap);
 
-        // We do an AND with the bitmap of the item
-        for (int bit = bitmap.nextSetBit(0); bit >= 0; bit = bitmap.nextSetBit(bit + 1)) {
-            if (bitmapItem.bitmap.get(bit)) { // if both bits are TRUE
+        // For each bit that is TRUE in both bitmaps
+        for (int bit = newBitmap.bitmap.nextSetBit(0); bit >= 0; bit = newBitmap.bitmap.nextSetBit(bit + 1)) {
+            // update the support
+            int sid = bitToSID(bit, sequencesSize);
 
-                // set the bit
-                newBitmap.bitmap.set(bit);
-                // update the support
-                int sid = bitToSID(bit, sequencesSize);
-
-                if (sid != newBitmap.lastSID) {
-                    newBitmap.sidsum += sid;
-                    newBitmap.support++;
-                }
-                newBitmap.lastSID = sid; // remember the last SID
+            if (sid != newBitmap.lastSID) {
+                newBitmap.sidsum += sid;
+                newBitmap.support++;
+            }
+            newBitmap.lastSID = sid; // remember the last SID
 
-                // new
-                int tid = bit - sequencesSize.get(sid);
-                if (firstItemsetID == -1 || tid < firstItemsetID) {
-                    firstItemsetID = tid;
-                }
-                // end new
+            // new
+            int tid = bit - sequencesSize.get(sid);
+            if (firstItemsetID == -1 || tid < firstItemsetID) {
+                firstItemsetID = tid;
             }
+            // end new
         }
-//		 Then do the AND
-//		newBitset.and(bitmapItem.bitmap);
-
         // We return the resulting bitmap
         return newBitmap;
     }
 
+    /**
+     * Change the internal representation of this bitmap so that it uses less
+     * memory. This should be called when the bitmap will not be modified anymore.
+     */
+    void optimize() {
+        bitmap.optimize();
+    }
+
+    /**
+     * Get an estimation of the memory used by the bits of this bitmap
+     *
+     * @return the memory in bytes
+     */
+    public long getMemoryUsage() {
+        return bitmap.getMemoryUsage();
+    }
+
     /**
      * Get the list of sids corresponding to this bitmap as a string
      *
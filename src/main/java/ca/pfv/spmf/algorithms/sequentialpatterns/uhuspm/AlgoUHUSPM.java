@@ -1,9 +1,13 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.uhuspm;
 
+import ca.pfv.spmf.datastructures.primitivemaps.AbstractIntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntMaps;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /* This file is part of the SPMF DATA MINING SOFTWARE
  * (http://www.philippe-fournier-viger.com/spmf).
@@ -42,9 +46,21 @@ public class AlgoUHUSPM {
      */
     public static int numberOfCandidates = 0;
     /**
-     * the sequence datatabase
+     * the sequence datatabase: the items of each itemset of each sequence
      */
-    public static List<List<Itemset>> sequenceDatabase;
+    static int[][][] sequenceItems;
+    /**
+     * the utility of each item of each itemset of each sequence
+     */
+    static int[][][] sequenceItemUtilities;
+    /**
+     * the SWU of each sequence
+     */
+    static int[] sequenceSWU;
+    /**
+     * the probability of each sequence
+     */
+    static float[] sequenceProbabilities;
     /**
      * the maximum memory usage
      */
@@ -60,30 +76,27 @@ public class AlgoUHUSPM {
     /**
      * map of item to SWU
      */
-    Map<Integer, Integer> SWU;
+    AbstractIntIntMap SWU;
 
     /**
      * map of item to SWP
      */
     Map<Integer, Float> SWP;
 
-    /**
-     * map of order SWU
-     */
-    Map<Integer, Integer> orderSWU;
-
-    /**
-     * map of order SWP
-     */
-    Map<Integer, Float> orderSWP;
-
     /**
      * writer to write the output file
      **/
     BufferedWriter writer = null;
 
+    /**
+     * the number of threads used for generating the candidates
+     */
+    private int threadCount = 1;
+
     void initialDatabase(String input, int minUtility, float minProbability) throws IOException {
 
+        // the last line where each item was seen (starting from 1)
+        AbstractIntIntMap mapItemToLastLine = IntMaps.newIntIntMap(-1);
 
         BufferedReader myInput = null;
 
@@ -92,10 +105,11 @@ public class AlgoUHUSPM {
             // for each line (transaction) until the end of file
             myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
             String thisLine = null;
+            int lineNumber = 0;
             while ((thisLine = myInput.readLine()) != null) {
+                lineNumber++;
                 // if the line is  a comment, is  empty or is a
                 // kind of metadata
-                Set<Integer> set = new HashSet<Integer>();
                 String[] arry = thisLine.split(" -1 ");
 
                 int lineUtility = Integer.parseInt(arry[arry.length - 2]);
@@ -107,24 +121,16 @@ public class AlgoUHUSPM {
                     for (int j = 0; j < itemset.length; j++) {
                         String[] itemProperty = itemset[j].split(" ");
                         int item = Integer.parseInt(itemProperty[0]);
-                        set.add(item);
-                    }
-                }
 
-                Iterator<Integer> it = set.iterator();
-                while (it.hasNext()) {
-                    int item = it.next();
+                        // the SWU and SWP of an item are updated once per line
+                        if (mapItemToLastLine.get(item) != lineNumber) {
+                            mapItemToLastLine.put(item, lineNumber);
 
-                    if (!SWU.containsKey(item)) {
-                        SWU.put(item, lineUtility);
-                    } else {
-                        SWU.put(item, SWU.get(item) + lineUtility);
-                    }
+                            SWU.increment(item, lineUtility);
 
-                    if (!SWP.containsKey(item)) {
-                        SWP.put(item, lineProbability);
-                    } else {
-                        SWP.put(item, SWP.get(item) + lineProbability);
+                            Float probability = SWP.get(item);
+                            SWP.put(item, probability == null ? lineProbability : probability + lineProbability);
+                        }
                     }
                 }
             }
@@ -137,48 +143,60 @@ public class AlgoUHUSPM {
             }
         }
 
-
+        List<int[][]> items = new ArrayList<int[][]>();
+        List<int[][]> utilities = new ArrayList<int[][]>();
+        sequenceSWU = new int[16];
+        sequenceProbabilities = new float[16];
         try {
             // for each line (transaction) until the end of file
             myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
             String thisLine = null;
-            int order = 0;
+            // buffers for the items and utilities of an itemset
+            int[] itemBuffer = new int[16];
+            int[] utilityBuffer = new int[16];
             while ((thisLine = myInput.readLine()) != null) {
                 // if the line is  a comment, is  empty or is a
                 // kind of metadata
-                List<Itemset> sequnce = new ArrayList<Itemset>();
+                List<int[]> sequenceItemsets = new ArrayList<int[]>();
+                List<int[]> sequenceUtilities = new ArrayList<int[]>();
                 String[] arry = thisLine.split(" -1 ");
                 int lineSWU = Integer.parseInt(arry[arry.length - 2]);
                 float lineSWP = Float.parseFloat(arry[arry.length - 1]);
                 for (int i = 0; i < arry.length - 2; i++) {
-                    Itemset sitemset = new Itemset();
-
                     String[] itemset = arry[i].split(" , ");
+                    if (itemset.length > itemBuffer.length) {
+                        itemBuffer = new int[itemset.length];
+                        utilityBuffer = new int[itemset.length];
+                    }
+                    int itemCount = 0;
 
                     for (int j = 0; j < itemset.length; j++) {
 
                         String[] itemProperty = itemset[j].split(" ");
                         int item = Integer.parseInt(itemProperty[0]);
                         if (SWU.get(item) >= minUtility && SWP.get(item) >= minProbability) {
-                            int utility = Integer.parseInt(itemProperty[1]);
-
-                            Item sitem = new Item();
-                            sitem.item = item;
-                            sitem.utility = utility;
-                            sitemset.Itemset.add(sitem);
+                            itemBuffer[itemCount] = item;
+                            utilityBuffer[itemCount] = Integer.parseInt(itemProperty[1]);
+                            itemCount++;
                         }
                     }
 
-                    if (!sitemset.Itemset.isEmpty()) {
-                        sequnce.add(sitemset);
+                    if (itemCount > 0) {
+                        sequenceItemsets.add(Arrays.copyOf(itemBuffer, itemCount));
+                        sequenceUtilities.add(Arrays.copyOf(utilityBuffer, itemCount));
                     }
                 }
 
-                if (!sequnce.isEmpty()) {
-                    sequenceDatabase.add(sequnce);
-                    orderSWU.put(order, lineSWU);
-                    orderSWP.put(order, lineSWP);
-                    order++;
+                if (!sequenceItemsets.isEmpty()) {
+                    int order = items.size();
+                    items.add(sequenceItemsets.toArray(new int[sequenceItemsets.size()][]));
+                    utilities.add(sequenceUtilities.toArray(new int[sequenceUtilities.size()][]));
+                    if (order == sequenceSWU.length) {
+                        sequenceSWU = Arrays.copyOf(sequenceSWU, order * 2);
+                        sequenceProbabilities = Arrays.copyOf(sequenceProbabilities, order * 2);
+                    }
+                    sequenceSWU[order] = lineSWU;
+                    sequenceProbabilities[order] = lineSWP;
                 }
             }
         } catch (Exception e) {
@@ -189,6 +207,8 @@ public class AlgoUHUSPM {
                 myInput.close();
             }
         }
+        sequenceItems = items.toArray(new int[items.size()][][]);
+        sequenceItemUtilities = utilities.toArray(new int[utilities.size()][][]);
     }
 
     List<SequenceList> initialization(String input, int minUtility, float minProbability) throws IOException {
@@ -197,26 +217,22 @@ public class AlgoUHUSPM {
 
         initialDatabase(input, minUtility, minProbability);
 
-        for (int i = 0; i < sequenceDatabase.size(); i++) {
-            int lineSWU = orderSWU.get(i);
-            float lineProbability = orderSWP.get(i);
-
-            for (int j = 0; j < sequenceDatabase.get(i).size(); j++) {
-                for (int k = 0; k < sequenceDatabase.get(i).get(j).Itemset.size(); k++) {
-                    int item = sequenceDatabase.get(i).get(j).Itemset.get(k).item;
-                    int utility = sequenceDatabase.get(i).get(j).Itemset.get(k).utility;
+        for (int i = 0; i < sequenceItems.length; i++) {
+            for (int j = 0; j < sequenceItems[i].length; j++) {
+                for (int k = 0; k < sequenceItems[i][j].length; k++) {
+                    int item = sequenceItems[i][j][k];
+                    int utility = sequenceItemUtilities[i][j][k];
 
 
-                    if (!projectSequnce.containsKey(item)) {
-                        SequenceList list = new SequenceList();
+                    SequenceList list = projectSequnce.get(item);
+                    if (list == null) {
+                        list = new SequenceList();
                         List<Integer> itemset = new ArrayList<Integer>();
                         itemset.add(item);
                         list.addItemset(itemset);
-                        list.addElement(i, j, utility, lineProbability, lineSWU);
                         projectSequnce.put(item, list);
-                    } else {
-                        projectSequnce.get(item).addElement(i, j, utility, lineProbability, lineSWU);
                     }
+                    list.addElement(i, j, utility);
                 }
             }
         }
@@ -225,7 +241,7 @@ public class AlgoUHUSPM {
 
         /*calculate sumUtility and sumProbability of each sequnceList in projectOneItemset*/
         for (int i = 0; i < projectOneItemset.size(); i++) {
-            projectOneItemset.get(i).calculate();
+            projectOneItemset.get(i).calculate(sequenceProbabilities, sequenceSWU);
             if (projectOneItemset.get(i).sumSWU < minUtility || projectOneItemset.get(i).sumProbability < minProbability) {
                 projectOneItemset.remove(i);
                 i--;
@@ -258,38 +274,64 @@ public class AlgoUHUSPM {
         numberOfCandidates = 0;
         numberOfHUSP = 0;
         maxMemory = 0;
-        sequenceDatabase = new ArrayList<List<Itemset>>();
-        SWU = new HashMap<Integer, Integer>();
+        GenerateCandidates.reset();
+        SWU = IntMaps.newIntIntMap(-1);
         SWP = new HashMap<Integer, Float>();
-        orderSWU = new HashMap<Integer, Integer>();
-        orderSWP = new HashMap<Integer, Float>();
 
         // create a writer object to write results to file
         writer = new BufferedWriter(new FileWriter(output));
 
-        List<SequenceList> nextGeneration = initialization(input, minUtility, minProbability);
-        /* check the memory usage*/
-        MemoryLogger.getInstance().checkMemory();
-
-        if (!nextGeneration.isEmpty()) {
+        // the threads used to generate the candidates
+        ExecutorService pool = threadCount > 1 ? Executors.newFixedThreadPool(threadCount) : null;
+        try {
+            List<SequenceList> nextGeneration = initialization(input, minUtility, minProbability);
             /* check the memory usage*/
             MemoryLogger.getInstance().checkMemory();
-            nextGeneration = GenerateCandidates.generate2GenerationCandidates(nextGeneration, minUtility, minProbability, writer);
-        }
 
-        while (!nextGeneration.isEmpty()) {
-            /* check the memory usage*/
-            MemoryLogger.getInstance().checkMemory();
-            nextGeneration = GenerateCandidates.generateNextGenerationCandidates(nextGeneration, minUtility, minProbability, writer);
+            if (!nextGeneration.isEmpty()) {
+                /* check the memory usage*/
+                MemoryLogger.getInstance().checkMemory();
+                nextGeneration = GenerateCandidates.generate2GenerationCandidates(nextGeneration, minUtility, minProbability,
+                                                                                  writer, pool);
+            }
+
+            while (!nextGeneration.isEmpty()) {
+                /* check the memory usage*/
+                MemoryLogger.getInstance().checkMemory();
+                nextGeneration = GenerateCandidates.generateNextGenerationCandidates(nextGeneration, minUtility,
+                                                                                     minProbability, writer, pool);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            writer.close();
         }
 
         MemoryLogger.getInstance().checkMemory();
 
-        writer.close();
+        // the database is not needed anymore
+        sequenceItems = null;
+        sequenceItemUtilities = null;
+        GenerateCandidates.reset();
 
         endTimestamp = System.currentTimeMillis();
     }
 
+    /**
+     * Set the number of threads used for generating the candidates. If more than one
+     * thread is used, the patterns of a generation are joined in parallel. The patterns
+     * found and the output file are the same as with a single thread.
+     *
+     * @param threadCount the number of threads (1 by default)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
     /**
      * Print statistics about the algorithm execution
      *
@@ -301,6 +343,9 @@ public class AlgoUHUSPM {
         System.out.println(" Candidates count : " + numberOfCandidates);
         System.out.println(" HUSP count: " + numberOfHUSP);
         System.out.println(" Max memory: " + MemoryLogger.getInstance().getMaxMemory() + "  MB");
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
         System.out.println("======================================================");
     }
 }
@@ -22,9 +22,14 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.uhuspm;
 /**
  * This is an implementation of an element, as used by the UHUSPM algorithm.
  *
+ * <p>
+ * AlgoUHUSPM no longer uses this class: it now stores the items and utilities of the
+ * sequences in int arrays. The class is only kept so that code written against it still compiles.
+ *
  * @author Ting Li
  * @see AlgoUHUSPM
  */
+@Deprecated
 public class Element {
     /**
      * sequence identifier
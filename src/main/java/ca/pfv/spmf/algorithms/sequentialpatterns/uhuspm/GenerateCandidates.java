@@ -2,6 +2,11 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.uhuspm;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /* This file is part of the SPMF DATA MINING SOFTWARE
  * (http://www.philippe-fournier-viger.com/spmf).
@@ -33,11 +38,11 @@ public class GenerateCandidates {
     /**
      * Set of...
      */
-    static Set<List<List<Integer>>> PSs = new HashSet<List<List<Integer>>>();
+    static Set<List<List<Integer>>> PSs = ConcurrentHashMap.newKeySet();
     /**
      * Map of...
      */
-    static Map<List<List<Integer>>, Integer> USs = new HashMap<List<List<Integer>>, Integer>();
+    static Map<List<List<Integer>>, Integer> USs = new ConcurrentHashMap<List<List<Integer>>, Integer>();
 
     /**
      * private constructor
@@ -45,6 +50,14 @@ public class GenerateCandidates {
     private GenerateCandidates() {
     }
 
+    /**
+     * Clear the patterns recorded by the previous run of the algorithm
+     */
+    static void reset() {
+        PSs.clear();
+        USs.clear();
+    }
+
     /**
      * Generate candidate
      *
@@ -52,13 +65,13 @@ public class GenerateCandidates {
      * @param minUtility     minimum utility threshold
      * @param minProbability minimum probability threshold
      * @param writer         writer to write patterns to the output file
+     * @param pool           the threads used to join the patterns, or null to join them in the current thread
      * @return a list of new patterns
      * @throws IOException if error while writing to file
      */
     static List<SequenceList> generate2GenerationCandidates(
-            List<SequenceList> generation, int minUtility,
-            float minProbability, BufferedWriter writer) throws IOException {
-        List<SequenceList> candidates = new ArrayList<SequenceList>();
+            final List<SequenceList> generation, final int minUtility,
+            final float minProbability, BufferedWriter writer, ExecutorService pool) throws IOException {
         /*output high utility sequential pattern*/
 
         for (SequenceList list : generation) {
@@ -73,99 +86,141 @@ public class GenerateCandidates {
         }
 
         /*generate candidates*/
+        List<Join> joins = new ArrayList<Join>();
         for (int i = 0; i < generation.size(); i++) {
-            SequenceList pattern1 = generation.get(i);
+            final int index = i;
+            joins.add(new Join() {
+                public JoinResult call() {
+                    return join2Generation(generation, index, minUtility, minProbability);
+                }
+            });
+        }
 
-            for (int j = i; j < generation.size(); j++) {
+        /*generate candidates*/
+        for (int i = generation.size() - 1; i >= 0; i--) {
+            final int index = i;
+            joins.add(new Join() {
+                public JoinResult call() {
+                    return join2GenerationWithPreviousPatterns(generation, index, minUtility, minProbability);
+                }
+            });
+        }
 
-                SequenceList pattern2 = generation.get(j);
+        return runJoins(joins, pool);
+    }
 
-                //itemset-based
-                SequenceList combiner = new SequenceList();
-                combiner.itemsets.addAll(pattern1.itemsets);
+    /**
+     * Join a pattern of the first generation with itself and the patterns after it
+     *
+     * @param generation     list of patterns
+     * @param i              the position of the pattern
+     * @param minUtility     minimum utility threshold
+     * @param minProbability minimum probability threshold
+     * @return the new patterns
+     */
+    private static JoinResult join2Generation(List<SequenceList> generation, int i, int minUtility, float minProbability) {
+        JoinResult result = new JoinResult();
+        SequenceList pattern1 = generation.get(i);
 
-                int item = pattern2.itemsets.get(0).get(0);
-                combiner.addItemset(pattern2.itemsets.get(pattern2.itemsets.size() - 1));
-                combiner.itemsetBasedExtend(pattern1, item, AlgoUHUSPM.sequenceDatabase);
+        for (int j = i; j < generation.size(); j++) {
 
-                AlgoUHUSPM.numberOfCandidates++;
+            SequenceList pattern2 = generation.get(j);
 
-                combiner.calculate();
-                /**********************/
-                USs.put(combiner.itemsets, combiner.sumSWU);
-                if (combiner.sumProbability >= minProbability) {
-                    PSs.add(combiner.itemsets);
-                }
-                /**********************/
-                if (combiner.sumSWU >= minUtility && combiner.sumProbability >= minProbability) {
-                    candidates.add(combiner);
-                }
-                //item-based
-                if (pattern1 != pattern2) {
-                    //itemset-based extension
-                    SequenceList combiner2 = new SequenceList();
-                    List<Integer> itemset = new ArrayList<Integer>();
-                    itemset.addAll(pattern1.itemsets.get(0));
-                    itemset.add(item);
-
-                    Collections.sort(itemset, new Comparator<Integer>() {
-                        public int compare(Integer mc1, Integer mc2) {
-                            return mc1 - mc2;
-                        }
-                    });
-
-                    combiner2.itemsets.add(itemset);
-
-                    combiner2.itemBasedExtend(pattern1, item, AlgoUHUSPM.sequenceDatabase);
-
-                    AlgoUHUSPM.numberOfCandidates++;
-                    combiner2.calculate();
-                    /**************/
-                    USs.put(combiner2.itemsets, combiner2.sumSWU);
-                    if (combiner2.sumProbability >= minProbability) {
-                        PSs.add(combiner2.itemsets);
-                    }
-                    /**************/
-                    if (combiner2.sumSWU >= minUtility && combiner2.sumProbability >= minProbability) {
-                        candidates.add(combiner2);
+            //itemset-based
+            SequenceList combiner = new SequenceList();
+            combiner.itemsets.addAll(pattern1.itemsets);
+
+            int item = pattern2.itemsets.get(0).get(0);
+            combiner.addItemset(pattern2.itemsets.get(pattern2.itemsets.size() - 1));
+            combiner.itemsetBasedExtend(pattern1, item, AlgoUHUSPM.sequenceItems, AlgoUHUSPM.sequenceItemUtilities);
+
+            result.candidateCount++;
+
+            combiner.calculate(AlgoUHUSPM.sequenceProbabilities, AlgoUHUSPM.sequenceSWU);
+            /**********************/
+            USs.put(combiner.itemsets, combiner.sumSWU);
+            if (combiner.sumProbability >= minProbability) {
+                PSs.add(combiner.itemsets);
+            }
+            /**********************/
+            if (combiner.sumSWU >= minUtility && combiner.sumProbability >= minProbability) {
+                result.add(combiner);
+            }
+            //item-based
+            if (pattern1 != pattern2) {
+                //itemset-based extension
+                SequenceList combiner2 = new SequenceList();
+                List<Integer> itemset = new ArrayList<Integer>();
+                itemset.addAll(pattern1.itemsets.get(0));
+                itemset.add(item);
+
+                Collections.sort(itemset, new Comparator<Integer>() {
+                    public int compare(Integer mc1, Integer mc2) {
+                        return mc1 - mc2;
                     }
+                });
+
+                combiner2.itemsets.add(itemset);
+
+                combiner2.itemBasedExtend(pattern1, item, AlgoUHUSPM.sequenceItems, AlgoUHUSPM.sequenceItemUtilities);
+
+                result.candidateCount++;
+                combiner2.calculate(AlgoUHUSPM.sequenceProbabilities, AlgoUHUSPM.sequenceSWU);
+                /**************/
+                USs.put(combiner2.itemsets, combiner2.sumSWU);
+                if (combiner2.sumProbability >= minProbability) {
+                    PSs.add(combiner2.itemsets);
+                }
+                /**************/
+                if (combiner2.sumSWU >= minUtility && combiner2.sumProbability >= minProbability) {
+                    result.add(combiner2);
                 }
             }
         }
+        return result;
+    }
 
-        /*generate candidates*/
-        for (int i = generation.size() - 1; i >= 0; i--) {
-            SequenceList pattern1 = generation.get(i);
+    /**
+     * Join a pattern of the first generation with the patterns before it
+     *
+     * @param generation     list of patterns
+     * @param i              the position of the pattern
+     * @param minUtility     minimum utility threshold
+     * @param minProbability minimum probability threshold
+     * @return the new patterns
+     */
+    private static JoinResult join2GenerationWithPreviousPatterns(List<SequenceList> generation, int i, int minUtility,
+                                                                  float minProbability) {
+        JoinResult result = new JoinResult();
+        SequenceList pattern1 = generation.get(i);
 
-            for (int j = i - 1; j >= 0; j--) {
+        for (int j = i - 1; j >= 0; j--) {
 
-                SequenceList pattern2 = generation.get(j);
+            SequenceList pattern2 = generation.get(j);
 
-                SequenceList combiner = new SequenceList();
+            SequenceList combiner = new SequenceList();
 
-                int item = pattern2.itemsets.get(0).get(0);
-                /*generate itemsets*/
-                combiner.itemsets.addAll(pattern1.itemsets);
-                combiner.addItemset(pattern2.itemsets.get(pattern2.itemsets.size() - 1));
+            int item = pattern2.itemsets.get(0).get(0);
+            /*generate itemsets*/
+            combiner.itemsets.addAll(pattern1.itemsets);
+            combiner.addItemset(pattern2.itemsets.get(pattern2.itemsets.size() - 1));
 
-                combiner.itemsetBasedExtend(pattern1, item, AlgoUHUSPM.sequenceDatabase);
+            combiner.itemsetBasedExtend(pattern1, item, AlgoUHUSPM.sequenceItems, AlgoUHUSPM.sequenceItemUtilities);
 
-                AlgoUHUSPM.numberOfCandidates++;
-                /*calculate utility, probability*/
-                combiner.calculate();
-                /**********************/
-                USs.put(combiner.itemsets, combiner.sumSWU);
-                if (combiner.sumProbability >= minProbability) {
-                    PSs.add(combiner.itemsets);
-                }
-                /**********************/
-                if (combiner.sumSWU >= minUtility && combiner.sumProbability >= minProbability) {
-                    candidates.add(combiner);
-                }
+            result.candidateCount++;
+            /*calculate utility, probability*/
+            combiner.calculate(AlgoUHUSPM.sequenceProbabilities, AlgoUHUSPM.sequenceSWU);
+            /**********************/
+            USs.put(combiner.itemsets, combiner.sumSWU);
+            if (combiner.sumProbability >= minProbability) {
+                PSs.add(combiner.itemsets);
+            }
+            /**********************/
+            if (combiner.sumSWU >= minUtility && combiner.sumProbability >= minProbability) {
+                result.add(combiner);
             }
         }
-
-        return candidates;
+        return result;
     }
 
     /**
@@ -175,14 +230,15 @@ public class GenerateCandidates {
      * @param minUtility     a minimum utility threshold
      * @param minProbability a minimum probability threshold
      * @param writer         a buffered writer to write patterns to the output file
+     * @param pool           the threads used to join the patterns, or null to join them in the current thread
      * @return a list of new patterns
      * @throws IOException if error while writing patterns to the output file
      */
-    static List<SequenceList> generateNextGenerationCandidates(List<SequenceList> generation, int minUtility, float minProbability,
-                                                               BufferedWriter writer)
+    static List<SequenceList> generateNextGenerationCandidates(final List<SequenceList> generation, final int minUtility,
+                                                               final float minProbability, BufferedWriter writer,
+                                                               ExecutorService pool)
             throws IOException {
 
-        List<SequenceList> candidates = new ArrayList<SequenceList>();
         /*output high utility sequential pattern*/
         for (SequenceList list : generation) {
 
@@ -193,53 +249,110 @@ public class GenerateCandidates {
         }
 
         /*generate candidates*/
+        List<Join> joins = new ArrayList<Join>();
         for (int i = 0; i < generation.size(); i++) {
-            for (int j = i; j < generation.size(); j++) {
-                SequenceList candidate = combine(generation.get(i), generation.get(j), minUtility);
-
-                if (candidate != null) {
-                    AlgoUHUSPM.numberOfCandidates++;
-                    /*calculate utility, probability*/
-                    candidate.calculate();
-                    /**********************/
-                    if (candidate.sumProbability >= minProbability) {
-                        PSs.add(candidate.itemsets);
-                    }
-                    /**********************/
-                    /*put candidate into next generation*/
-                    if (candidate.sumSWU >= minUtility && candidate.sumProbability >= minProbability) {
-                        candidates.add(candidate);
+            final int index = i;
+            joins.add(new Join() {
+                public JoinResult call() {
+                    JoinResult result = new JoinResult();
+                    for (int j = index; j < generation.size(); j++) {
+                        joinNextGeneration(generation.get(index), generation.get(j), minUtility, minProbability, result);
                     }
-
+                    return result;
                 }
-            }
+            });
         }
 
         for (int i = generation.size() - 1; i >= 0; i--) {
-            for (int j = i - 1; j >= 0; j--) {
-                SequenceList candidate = combine(generation.get(i), generation.get(j), minUtility);
-
-                if (candidate != null) {
-
-                    AlgoUHUSPM.numberOfCandidates++;
-                    /*calculate utility, probability*/
-                    candidate.calculate();
-                    /**********************/
-                    if (candidate.sumProbability >= minProbability) {
-                        PSs.add(candidate.itemsets);
-                    }
-                    /**********************/
-                    /*put candidate into next generation*/
-                    if (candidate.sumSWU >= minUtility && candidate.sumProbability >= minProbability) {
-                        candidates.add(candidate);
+            final int index = i;
+            joins.add(new Join() {
+                public JoinResult call() {
+                    JoinResult result = new JoinResult();
+                    for (int j = index - 1; j >= 0; j--) {
+                        joinNextGeneration(generation.get(index), generation.get(j), minUtility, minProbability, result);
                     }
+                    return result;
                 }
+            });
+        }
+
+        return runJoins(joins, pool);
+    }
+
+    /**
+     * Join two patterns of a generation after the second one
+     *
+     * @param pattern1       a pattern
+     * @param pattern2       another pattern
+     * @param minUtility     a minimum utility threshold
+     * @param minProbability a minimum probability threshold
+     * @param result         the new patterns
+     */
+    private static void joinNextGeneration(SequenceList pattern1, SequenceList pattern2, int minUtility,
+                                           float minProbability, JoinResult result) {
+        SequenceList candidate = combine(pattern1, pattern2, minUtility);
+
+        if (candidate != null) {
+            result.candidateCount++;
+            /*calculate utility, probability*/
+            candidate.calculate(AlgoUHUSPM.sequenceProbabilities, AlgoUHUSPM.sequenceSWU);
+            /**********************/
+            if (candidate.sumProbability >= minProbability) {
+                PSs.add(candidate.itemsets);
+            }
+            /**********************/
+            /*put candidate into next generation*/
+            if (candidate.sumSWU >= minUtility && candidate.sumProbability >= minProbability) {
+                result.add(candidate);
             }
         }
+    }
 
+    /**
+     * Run the joins of a generation and collect the new patterns in the order of the joins.
+     * If there is a pool of threads, the joins are done in parallel: they only read the
+     * patterns of the generation and the database, and the maps PSs and USs are concurrent.
+     *
+     * @param joins the joins
+     * @param pool  the threads used to join the patterns, or null to join them in the current thread
+     * @return the new patterns
+     * @throws IOException if the joins were interrupted
+     */
+    private static List<SequenceList> runJoins(List<Join> joins, ExecutorService pool) throws IOException {
+        List<SequenceList> candidates = new ArrayList<SequenceList>();
+        if (pool == null) {
+            for (Join join : joins) {
+                addJoinResult(join.call(), candidates);
+            }
+            return candidates;
+        }
+        try {
+            for (Future<JoinResult> future : pool.invokeAll(joins)) {
+                addJoinResult(future.get(), candidates);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
         return candidates;
     }
 
+    /**
+     * Add the new patterns of a join to the candidates
+     *
+     * @param result     the result of a join
+     * @param candidates the candidates
+     */
+    private static void addJoinResult(JoinResult result, List<SequenceList> candidates) {
+        AlgoUHUSPM.numberOfCandidates += result.candidateCount;
+        candidates.addAll(result.patterns);
+    }
+
     /**
      * Combine two patterns to generate another pattern
      *
@@ -295,7 +408,7 @@ public class GenerateCandidates {
                     return null;
                 }
 
-                combiner.itemBasedExtend(pattern1, lastItem, AlgoUHUSPM.sequenceDatabase);
+                combiner.itemBasedExtend(pattern1, lastItem, AlgoUHUSPM.sequenceItems, AlgoUHUSPM.sequenceItemUtilities);
             } else {
                 //itemset-based
                 combiner.itemsets.add(pattern2.itemsets.get(pattern2.itemsets.size() - 1));
@@ -304,7 +417,7 @@ public class GenerateCandidates {
                     return null;
                 }
 
-                combiner.itemsetBasedExtend(pattern1, lastItem, AlgoUHUSPM.sequenceDatabase);
+                combiner.itemsetBasedExtend(pattern1, lastItem, AlgoUHUSPM.sequenceItems, AlgoUHUSPM.sequenceItemUtilities);
             }
             return combiner;
         }
@@ -425,4 +538,35 @@ public class GenerateCandidates {
         List dest = (List) in.readObject();
         return dest;
     }
+
+    /**
+     * A join of a pattern with other patterns of its generation
+     */
+    private abstract static class Join implements Callable<JoinResult> {
+        public abstract JoinResult call();
+    }
+
+    /**
+     * The new patterns found by a join
+     */
+    private static class JoinResult {
+        /**
+         * the new patterns that are kept for the next generation
+         */
+        List<SequenceList> patterns = new ArrayList<SequenceList>();
+        /**
+         * the number of candidates that were generated
+         */
+        int candidateCount = 0;
+
+        /**
+         * Keep a new pattern for the next generation
+         *
+         * @param pattern the pattern
+         */
+        void add(SequenceList pattern) {
+            pattern.chain.trimToSize();
+            patterns.add(pattern);
+        }
+    }
 }
@@ -25,9 +25,14 @@ import java.util.List;
 /**
  * This is an implementation of an Itemset, as used by the UHUSPM algorithm.
  *
+ * <p>
+ * AlgoUHUSPM no longer uses this class: it now stores the items and utilities of the
+ * sequences in int arrays. The class is only kept so that code written against it still compiles.
+ *
  * @author Ting Li
  * @see AlgoUHUSPM
  */
+@Deprecated
 public class Itemset {
 
     /**
@@ -1,5 +1,7 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.uhuspm;
 
+import ca.pfv.spmf.datastructures.utilitychain.UtilityChain;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,9 +27,13 @@ import java.util.List;
 
 /**
  * This is an implementation of a sequence or patterns, as used by the UHUSPM algorithm.
+ * The occurrences of the pattern are stored in a utility chain: for each sequence where
+ * the pattern appears, the itemsets (locations) where it ends, with its utility. The
+ * probability and SWU of an occurrence are those of its sequence.
  *
  * @author Ting Li
  * @see AlgoUHUSPM
+ * @see UtilityChain
  */
 public class SequenceList {
 
@@ -37,9 +43,9 @@ public class SequenceList {
     List<List<Integer>> itemsets = new ArrayList<List<Integer>>();
 
     /**
-     * the list of elements
+     * the occurrences of the pattern (sequence id, location, utility)
      */
-    List<Element> elements = new ArrayList<Element>();
+    UtilityChain chain = new UtilityChain();
 
     /**
      * the sum of the utility
@@ -57,26 +63,23 @@ public class SequenceList {
     int sumSWU = 0;
 
     /**
-     * Get the elements
+     * Get the occurrences of the pattern
      *
-     * @return the elements
+     * @return the utility chain of the pattern
      */
-    public List<Element> getElements() {
-        return this.elements;
+    public UtilityChain getChain() {
+        return this.chain;
     }
 
     /**
      * Add an element
      *
-     * @param SID         a sequence id
-     * @param location    the location (itemset number)
-     * @param utility     the utility
-     * @param probability the probability
-     * @param SWU         the SWU
+     * @param SID      a sequence id
+     * @param location the location (itemset number)
+     * @param utility  the utility
      */
-    void addElement(int SID, int location, int utility, float probability, int SWU) {
-        Element element = new Element(SID, location, utility, probability, SWU);
-        this.elements.add(element);
+    void addElement(int SID, int location, int utility) {
+        this.chain.add(SID, location, utility);
     }
 
     /**
@@ -93,11 +96,17 @@ public class SequenceList {
      *
      * @param pattern
      * @param item
-     * @param sequnceDatabase
+     * @param sequenceItems     the items of each itemset of each sequence
+     * @param sequenceUtilities the utility of each item of each itemset of each sequence
      */
-    void itemBasedExtend(SequenceList pattern, int item, List<List<Itemset>> sequnceDatabase) {
-        for (Element element : pattern.elements) {
-            itemBasedAddElement(element, item, sequnceDatabase);
+    void itemBasedExtend(SequenceList pattern, int item, int[][][] sequenceItems, int[][][] sequenceUtilities) {
+        UtilityChain elements = pattern.chain;
+        for (int segment = 0; segment < elements.getSequenceCount(); segment++) {
+            int SID = elements.getSequence(segment);
+            for (int i = elements.getStart(segment); i < elements.getEnd(segment); i++) {
+                itemBasedAddElement(SID, elements.getPosition(i), elements.getUtility(i), item,
+                                    sequenceItems[SID], sequenceUtilities[SID]);
+            }
         }
     }
 
@@ -106,40 +115,41 @@ public class SequenceList {
      *
      * @param pattern
      * @param item
-     * @param sequnceDatabase
+     * @param sequenceItems     the items of each itemset of each sequence
+     * @param sequenceUtilities the utility of each item of each itemset of each sequence
      */
-    void itemsetBasedExtend(SequenceList pattern, int item, List<List<Itemset>> sequnceDatabase) {
-        for (Element element : pattern.elements) {
-            itemsetBasedAddElement(element, item, sequnceDatabase);
+    void itemsetBasedExtend(SequenceList pattern, int item, int[][][] sequenceItems, int[][][] sequenceUtilities) {
+        UtilityChain elements = pattern.chain;
+        for (int segment = 0; segment < elements.getSequenceCount(); segment++) {
+            int SID = elements.getSequence(segment);
+            for (int i = elements.getStart(segment); i < elements.getEnd(segment); i++) {
+                itemsetBasedAddElement(SID, elements.getPosition(i), elements.getUtility(i), item,
+                                       sequenceItems[SID], sequenceUtilities[SID]);
+            }
         }
     }
 
     /**
-     * Extend using an item
+     * Extend an element using an item
      *
-     * @param element
-     * @param item
-     * @param sequnceDatabase
+     * @param SID       the sequence id of the element
+     * @param location  the location of the element
+     * @param utility   the utility of the element
+     * @param item      an item
+     * @param items     the items of each itemset of the sequence
+     * @param utilities the utility of each item of each itemset of the sequence
      */
-    private void itemBasedAddElement(Element element, int item, List<List<Itemset>> sequnceDatabase) {
-        //item-based add element
-        int SID = element.SID;
-        int location = element.location;
-        int utility = element.utility;
-        float probability = element.probability;
-        int SWU = element.SWU;
-
-        int size = this.elements.size() - 1;
-
-        for (Item Item : sequnceDatabase.get(element.SID).get(element.location).Itemset) {
-            if (item == Item.item) {
-                utility += Item.utility;
-
-                if (size >= 0 && SID == this.elements.get(size).SID && location == this.elements.get(size).location) {
-                    this.elements.get(size).utility = Integer.max(this.elements.get(size).utility, utility);
+    private void itemBasedAddElement(int SID, int location, int utility, int item, int[][] items, int[][] utilities) {
+        int[] itemset = items[location];
+        for (int j = 0; j < itemset.length; j++) {
+            if (item == itemset[j]) {
+                utility += utilities[location][j];
+
+                if (SID == chain.getLastSequence() && location == chain.getLastPosition()) {
+                    int size = chain.size() - 1;
+                    chain.setUtility(size, Integer.max(chain.getUtility(size), utility));
                 } else {
-                    Element newElement = new Element(SID, location, utility, probability, SWU);
-                    this.elements.add(newElement);
+                    chain.add(SID, location, utility);
                 }
                 break;
             }
@@ -147,33 +157,31 @@ public class SequenceList {
     }
 
     /**
-     * ...
+     * Extend an element using an item
      *
-     * @param element         an element
-     * @param item            an item
-     * @param sequnceDatabase a sequene database
+     * @param SID       the sequence id of the element
+     * @param location  the location of the element
+     * @param utility   the utility of the element
+     * @param item      an item
+     * @param items     the items of each itemset of the sequence
+     * @param utilities the utility of each item of each itemset of the sequence
      */
-    private void itemsetBasedAddElement(Element element, int item, List<List<Itemset>> sequnceDatabase) {
-        //itemset-based add element
-        int SID = element.SID;
-        int size = this.elements.size() - 1;
-        int SWU = element.SWU;
-
-        for (int i = element.location + 1; i < sequnceDatabase.get(SID).size(); i++) {
-            int utility = element.utility;
-            float probability = element.probability;
-            int location = i;
-
-            for (Item Item : sequnceDatabase.get(element.SID).get(i).Itemset) {
-                if (item == Item.item) {
-                    utility += Item.utility;
-
-                    if (size >= 0 && SID == this.elements.get(size).SID && location == this.elements.get(size).location) {
-                        this.elements.get(size).utility = Integer.max(this.elements.get(size).utility, utility);
-
+    private void itemsetBasedAddElement(int SID, int location, int utility, int item, int[][] items, int[][] utilities) {
+        // the last occurrence before this element is extended
+        int size = chain.size() - 1;
+        int lastSID = chain.getLastSequence();
+        int lastLocation = chain.getLastPosition();
+
+        for (int i = location + 1; i < items.length; i++) {
+            int[] itemset = items[i];
+            for (int j = 0; j < itemset.length; j++) {
+                if (item == itemset[j]) {
+                    int newUtility = utility + utilities[i][j];
+
+                    if (size >= 0 && SID == lastSID && i == lastLocation) {
+                        chain.setUtility(size, Integer.max(chain.getUtility(size), newUtility));
                     } else {
-                        Element newElement = new Element(SID, location, utility, probability, SWU);
-                        this.elements.add(newElement);
+                        chain.add(SID, i, newUtility);
                     }
                     break;
                 }
@@ -183,45 +191,23 @@ public class SequenceList {
 
     /**
      * Calculate various values (SWU, sum of utility...)
+     *
+     * @param sequenceProbabilities the probability of each sequence
+     * @param sequenceSWU           the SWU of each sequence
      */
-    void calculate() {
-
-        int order = 0;
-        int orderUtility = 0;
-        float orderProbability = 0;
-        int SWU = 0;
-
-        if (!this.elements.isEmpty()) {
-            order = this.elements.get(0).SID;
-            orderUtility = this.elements.get(0).utility;
-            orderProbability = this.elements.get(0).probability;
-            SWU = this.elements.get(0).SWU;
-        }
-        for (Element element : this.elements) {
-
-            if (element.SID == order) {
-
-                if (element.utility >= orderUtility) {
-                    orderUtility = element.utility;
-                }
-                if (element.probability >= orderProbability) {
-                    orderProbability = element.probability;
+    void calculate(float[] sequenceProbabilities, int[] sequenceSWU) {
+        for (int segment = 0; segment < chain.getSequenceCount(); segment++) {
+            int SID = chain.getSequence(segment);
+            int orderUtility = chain.getUtility(chain.getStart(segment));
+            for (int i = chain.getStart(segment) + 1; i < chain.getEnd(segment); i++) {
+                if (chain.getUtility(i) >= orderUtility) {
+                    orderUtility = chain.getUtility(i);
                 }
-            } else {
-                this.sumUtility += orderUtility;
-                this.sumProbability += orderProbability;
-                this.sumSWU += SWU;
-
-                order = element.SID;
-                orderUtility = element.utility;
-                orderProbability = element.probability;
-                SWU = element.SWU;
             }
+            this.sumUtility += orderUtility;
+            this.sumProbability += sequenceProbabilities[SID];
+            this.sumSWU += sequenceSWU[SID];
         }
-
-        this.sumUtility += orderUtility;
-        this.sumProbability += orderProbability;
-        this.sumSWU += SWU;
     }
 
 }
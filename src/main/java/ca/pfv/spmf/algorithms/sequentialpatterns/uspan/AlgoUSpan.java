@@ -17,11 +17,20 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.uspan;
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
 
+import ca.pfv.spmf.datastructures.primitivemaps.AbstractIntIntMap;
+import ca.pfv.spmf.datastructures.primitivemaps.IntMaps;
+import ca.pfv.spmf.datastructures.utilitychain.UtilityChain;
+import ca.pfv.spmf.datastructures.utilitychain.UtilityChainPool;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 import java.io.*;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This is an implementation of the "USPAN" algorithm for High-Utility Sequential Pattern Mining
@@ -32,11 +41,14 @@ import java.util.Map.Entry;
  * international conference on Knowledge discovery and data mining. ACM, 2012.
  * <p>
  * This implementation tries to be as faithful as possible to the article.
+ * The projected databases are stored as utility chains (the positions and utilities of a
+ * pattern in the QMatrixes, in arrays of int) that are reused for all the patterns of a
+ * given length, and the SWU of items are calculated in arrays indexed by item. The items of
+ * the first level can be explored by several threads (see setThreadCount()).
  *
  * @author Philippe Fournier-Viger, 2015
  * @see QMatrix
- * @see QMatrixProjection
- * @see MatrixProjection
+ * @see UtilityChain
  */
 public class AlgoUSpan {
 
@@ -81,7 +93,39 @@ public class AlgoUSpan {
      * the input file path
      **/
     String input;
+    /**
+     * the items of the QMatrixes, by index (the promising items by increasing order)
+     **/
+    int[] itemNames;
+    /**
+     * the QMatrix of each sequence
+     **/
+    QMatrix[] database;
+    /**
+     * the number of threads used for exploring the items of the first level
+     */
+    private int threadCount = 1;
     private int[] patternBuffer = null;
+    /**
+     * the utility chains of the patterns, by length (reused by all the patterns of a length)
+     **/
+    private UtilityChainPool chainPool;
+    /**
+     * the SWU of each item, when calculating the SWU of the items that can extend a pattern
+     **/
+    private int[] itemSWU;
+    /**
+     * the last sequence where each item was seen when calculating the SWU of items (or -1)
+     **/
+    private int[] itemLastSequence;
+    /**
+     * the items whose SWU is being calculated
+     **/
+    private int[] itemsWithSWU;
+    /**
+     * the number of items whose SWU is being calculated
+     **/
+    private int itemsWithSWUCount = 0;
 
     /**
      * Default constructor
@@ -105,8 +149,8 @@ public class AlgoUSpan {
         // input path
         this.input = input;
 
-        // initialize the buffer for storing the current itemset
-        patternBuffer = new int[BUFFERS_SIZE];
+        // reset the number of patterns found
+        patternCount = 0;
 
         // record the start time of the algorithm
         startTimestamp = System.currentTimeMillis();
@@ -119,10 +163,12 @@ public class AlgoUSpan {
 
         // create a map to store the SWU of each item
         // key: item  value: the swu of the item
-        final Map<Integer, Integer> mapItemToSWU = new HashMap<Integer, Integer>();
+        final AbstractIntIntMap mapItemToSWU = IntMaps.newIntIntMap(-1);
 
-        //Tin added:
-        List<Integer> consideredItems = new ArrayList<Integer>();
+        // create a map to store the last sequence where each item was seen, so that
+        // the utility of a sequence is added only once to the SWU of an item
+        // key: item  value: the last sequence number (starting from 1)
+        final AbstractIntIntMap mapItemToLastSequence = IntMaps.newIntIntMap(-1);
 
         // ==========  FIRST DATABASE SCAN TO IDENTIFY PROMISING ITEMS =========
         // We scan the database a first time to calculate the SWU of each item.
@@ -157,27 +203,18 @@ public class AlgoUSpan {
                         int positionLeftBracketString = currentToken.indexOf('[');
                         // get the item
                         String itemString = currentToken.substring(0, positionLeftBracketString);
-                        Integer item = Integer.parseInt(itemString);
-
-                        //Tin added:
-                        if (!consideredItems.contains(item)) {
-                            consideredItems.add(item);
+                        int item = Integer.parseInt(itemString);
 
-                            // get the current SWU of that item
-                            Integer swu = mapItemToSWU.get(item);
+                        // if the item was not already seen in this sequence
+                        if (mapItemToLastSequence.get(item) != sequenceCount + 1) {
+                            mapItemToLastSequence.put(item, sequenceCount + 1);
 
                             // add the utility of sequence utility to the swu of this item
-                            swu = (swu == null) ? sequenceUtility : swu + sequenceUtility;
-                            mapItemToSWU.put(item, swu);
-//							System.out.println(" -> " + swu);
+                            mapItemToSWU.increment(item, sequenceUtility);
                         }
-//						else System.out.println(item + " is already considered in the same (line) input sequence");								
                     }
                 }
 
-                // Philippe added:
-                consideredItems.clear();
-
                 // increase sequence count
                 sequenceCount++;
             }
@@ -196,14 +233,33 @@ public class AlgoUSpan {
             System.out.println("INITIAL ITEM COUNT " + mapItemToSWU.size());
             System.out.println("SEQUENCE COUNT = " + sequenceCount);
             System.out.println("INITIAL SWU OF ITEMS");
-            for (Entry<Integer, Integer> entry : mapItemToSWU.entrySet()) {
-                System.out.println("Item: " + entry.getKey() + " swu: " + entry.getValue());
+            for (int item : mapItemToSWU.keys()) {
+                System.out.println("Item: " + item + " swu: " + mapItemToSWU.get(item));
+            }
+        }
+
+        // The promising items are renamed by their index in the list of promising items
+        // sorted by increasing order. Thus, the order of items does not change but the SWU
+        // of the items can be stored in arrays during the search.
+        int[] items = mapItemToSWU.keys();
+        Arrays.sort(items);
+        int promisingItemCount = 0;
+        for (int item : items) {
+            if (mapItemToSWU.get(item) >= minUtility) {
+                items[promisingItemCount++] = item;
             }
         }
+        itemNames = Arrays.copyOf(items, promisingItemCount);
+        // key: item  value: its index in itemNames
+        AbstractIntIntMap mapItemToIndex =
+                IntMaps.newIntIntMap(promisingItemCount == 0 ? 0 : itemNames[promisingItemCount - 1]);
+        for (int i = 0; i < promisingItemCount; i++) {
+            mapItemToIndex.put(itemNames[i], i);
+        }
 
         //================  SECOND DATABASE SCAN ===================
         // Read the database again to create the QMatrix for each sequence
-        List<QMatrix> database = new ArrayList<QMatrix>(sequenceCount);
+        List<QMatrix> matrices = new ArrayList<QMatrix>(sequenceCount);
 
         try {
             // prepare the object for reading the file
@@ -287,26 +343,27 @@ public class AlgoUSpan {
                         int positionLeftBracketString = currentToken.indexOf('[');
                         int positionRightBracketString = currentToken.indexOf(']');
                         String itemString = currentToken.substring(0, positionLeftBracketString);
-                        Integer item = Integer.parseInt(itemString);
+                        int item = Integer.parseInt(itemString);
 
                         // We also extract the utility from the string:
                         String utilityString = currentToken.substring(positionLeftBracketString + 1, positionRightBracketString);
-                        Integer itemUtility = Integer.parseInt(utilityString);
+                        int itemUtility = Integer.parseInt(utilityString);
 
                         // it the item is promising (its SWU >= minutility), then
                         // we keep it in the sequence
-                        if (mapItemToSWU.get(item) >= minUtility) {
+                        if (mapItemToIndex.containsKey(item)) {
                             // We remember that this itemset contains a promising item
                             currentItemsetHasAPromisingItem = true;
 
-                            // We store the item and its utility in the buffers
+                            // We store the item (by its index) and its utility in the buffers
                             // for temporarily storing the sequence
-                            itemBuffer[itemBufferLength] = item;
+                            int itemIndex = mapItemToIndex.get(item);
+                            itemBuffer[itemBufferLength] = itemIndex;
                             utilityBuffer[itemBufferLength] = itemUtility;
                             itemBufferLength++;
 
                             // We also put this item in the buffer for all items of this sequence
-                            itemsSequenceBuffer[itemsLength++] = item;
+                            itemsSequenceBuffer[itemsLength++] = itemIndex;
                         } else {
                             // if the item is not promising, we subtract its utility
                             // from the sequence utility, and we do not add it to the buffers
@@ -330,7 +387,8 @@ public class AlgoUSpan {
                     // We will show the sequence after removing unpromising items
                     System.out.print("SEQUENCE AFTER REMOVING UNPROMISING ITEMS:\n ");
                     for (int i = 0; i < itemBufferLength; i++) {
-                        System.out.print(itemBuffer[i] + "[" + utilityBuffer[i] + "] ");
+                        int item = itemBuffer[i] == -1 ? -1 : itemNames[itemBuffer[i]];
+                        System.out.print(item + "[" + utilityBuffer[i] + "] ");
                     }
                     // And we will thow the sequence utility after removing the unpromising items.
                     System.out.println("NEW SEQUENCE UTILITY " + sequenceUtility);
@@ -364,7 +422,7 @@ public class AlgoUSpan {
                     // sorted in alphabetical order:
                     System.out.print("LIST OF PROMISING ITEMS IN THAT SEQUENCE:\n ");
                     for (int i = 0; i < newItemsPos; i++) {
-                        System.out.print(itemsSequenceBuffer[i] + " ");
+                        System.out.print(itemNames[itemsSequenceBuffer[i]] + " ");
                     }
                     System.out.println();
                 }
@@ -375,7 +433,7 @@ public class AlgoUSpan {
                 // And we will create the Qmatrix for that sequence
                 QMatrix matrix = new QMatrix(nbItems, nbItemsets, itemsSequenceBuffer, newItemsPos, sequenceUtility);
                 // We add the QMatrix to the initial sequence database.
-                database.add(matrix);
+                matrices.add(matrix);
 
                 // Next we will fill the matrix column by column
                 // This variable will represent the position in the sequence
@@ -435,149 +493,288 @@ public class AlgoUSpan {
                 myInput.close();
             }
         }
+        database = matrices.toArray(new QMatrix[matrices.size()]);
 
         // check the memory usage
         MemoryLogger.getInstance().checkMemory();
 
         // Mine the database recursively using the USpan procedure
-        // This procedure is the USPan procedure optimized for the first recursion
-        uspanFirstTime(patternBuffer, 0, database);
+        // This procedure is the USpan procedure optimized for the first recursion
+        try {
+            uspanFirstTime();
+        } finally {
+            // close output file
+            writer.close();
+        }
 
-        // check the memory usage again and close the file.
+        // check the memory usage again
         MemoryLogger.getInstance().checkMemory();
-        // close output file
-        writer.close();
+        // the database is not needed anymore
+        database = null;
         // record end time
         endTimestamp = System.currentTimeMillis();
     }
 
+    /**
+     * Prepare the buffers used for exploring the search space: the buffer for storing
+     * the current pattern, the pool of utility chains and the arrays for calculating
+     * the SWU of items.
+     */
+    private void initializeBuffers() {
+        patternBuffer = new int[BUFFERS_SIZE];
+        chainPool = new UtilityChainPool();
+        itemSWU = new int[itemNames.length];
+        itemLastSequence = new int[itemNames.length];
+        Arrays.fill(itemLastSequence, -1);
+        itemsWithSWU = new int[itemNames.length];
+    }
 
     /**
      * This is the initial call to the USpan procedure to find all High utility sequential patterns
      * of length 1. It is optimized for finding patterns of length 1.
      * To find larger patterns the "uspan" method is then used recursively.
      *
-     * @param prefix       This is the buffer for storing the current prefix. Initially, it is empty.
-     * @param prefixLength The current prefix length. Initially, it is zero.
-     * @param database     This is the original sequence database (as a set of QMatrix)
      * @throws IOException If an error occurs while reading/writting to file.
      */
-    private void uspanFirstTime(int[] prefix, int prefixLength, List<QMatrix> database) throws IOException {
+    private void uspanFirstTime() throws IOException {
+        initializeBuffers();
 
         // For the first call to USpan, we only need to check I-CONCATENATIONS
         // =======================  I-CONCATENATIONS  ===========================/
         // scan the projected database to
         // calculate the SWU of each item
-        Map<Integer, Integer> mapItemSWU = new HashMap<Integer, Integer>();
         for (QMatrix qmatrix : database) {
             // for each row (item) we will update the swu of the corresponding item
             for (int item : qmatrix.itemNames) {
-                // get its swu
-                Integer currentSWU = mapItemSWU.get(item);
-                // update its swu
-                if (currentSWU == null) {
-                    mapItemSWU.put(item, qmatrix.swu);
-                } else {
-                    mapItemSWU.put(item, currentSWU + qmatrix.swu);
-                }
+                itemSWU[item] += qmatrix.swu;
             }
         }
 
-        // For each item
-        for (Entry<Integer, Integer> entry : mapItemSWU.entrySet()) {
-            Integer itemSWU = entry.getValue();
-            // if the item is promising
-            if (itemSWU >= minUtility) {
-                // We get the item
-                int item = entry.getKey();
-                // We initialize two variables for calculating the total utility and remaining utility
-                // of that item
-                int totalUtility = 0;
-                int totalRemainingUtility = 0;
-
-                // We also initialize a variable to remember the projected qmatrixes of sequences
-                // where this item appears. This will be used for call to the recursive
-                // "uspan" method later.
-                List<QMatrixProjection> matrixProjections = new ArrayList<QMatrixProjection>();
-                // For each sequence
-                for (QMatrix qmatrix : database) {
-
-                    // if the item appear in that sequence (in that qmatrix)
-                    int row = Arrays.binarySearch(qmatrix.itemNames, item);
-                    if (row >= 0) {
-
-                        // create a list to store the positions (itemsets) where this item
-                        // appear in that sequence
-                        List<MatrixPosition> positions = new ArrayList<MatrixPosition>();
-
-                        // find the max utility of this item in that sequence
-                        // and the max remaining utility
-                        int maxUtility = 0;
-                        int maxRemainingUtility = 0;
-                        // for each itemset in that sequence
-                        for (int itemset = 0; itemset < qmatrix.matrixItemRemainingUtility[row].length; itemset++) {
-                            // get the utility of the item in that itemset
-                            int utility = qmatrix.matrixItemUtility[row][itemset];
-                            // if the utility is higher than 0
-                            if (utility > 0) {
-                                // record this position
-                                positions.add(new MatrixPosition(row, itemset, utility));
-
-                                // if it is the maximum utility until now
-                                if (utility > maxUtility) {
-                                    // record it as the maximum utility until now
-                                    maxUtility = utility;
-
-                                    // get the remaining utility at that position
-                                    int remaining = qmatrix.matrixItemRemainingUtility[row][itemset];
-                                    // If it is the first occurrence of this item
-                                    // we remember the remaining utility as the max remaining utility
-                                    if (remaining > 0 && maxRemainingUtility == 0) {
-                                        maxRemainingUtility = remaining;
-                                    }
-                                }
-                            }
-                        }
+        // the promising items
+        int[] promisingItems = new int[itemNames.length];
+        int promisingItemCount = 0;
+        for (int item = 0; item < itemNames.length; item++) {
+            if (itemSWU[item] >= minUtility) {
+                promisingItems[promisingItemCount++] = item;
+            }
+            itemSWU[item] = 0;
+        }
+        promisingItems = Arrays.copyOf(promisingItems, promisingItemCount);
 
-                        // update the total utility and total remaining utility for all sequences
-                        // until now by adding the utility and remaining utility of the current
-                        // sequence
-                        totalUtility += maxUtility;
-                        totalRemainingUtility += maxRemainingUtility;
+        // For each promising item, find its utility and explore its extensions
+        if (threadCount > 1 && promisingItemCount > 1) {
+            exploreInParallel(promisingItems);
+        } else {
+            for (int item : promisingItems) {
+                exploreItem(item);
+            }
+        }
+        // we check the memory usage.
+        MemoryLogger.getInstance().checkMemory();
+    }
+
+    /**
+     * Explore the promising items of the first level using several threads.
+     * Each thread has its own worker (with its own pattern buffer, utility chains and
+     * arrays for calculating the SWU of items) and repeatedly takes the next item that has
+     * not been explored. The QMatrixes are shared since they are only read. The patterns
+     * are written directly to the output file by the workers.
+     *
+     * @param promisingItems the promising items
+     * @throws IOException if error writing to output file
+     */
+    private void exploreInParallel(final int[] promisingItems) throws IOException {
+        // the position of the next item to be explored
+        final AtomicInteger nextItem = new AtomicInteger(0);
 
-                        // create the projected matrix for the current sequence
-                        QMatrixProjection projection = new QMatrixProjection(qmatrix, positions);
-                        // add the projected matrix to the current database projection with this item
-                        matrixProjections.add(projection);
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<AlgoUSpan>> futures = new ArrayList<Future<AlgoUSpan>>(threadCount);
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(pool.submit(new Callable<AlgoUSpan>() {
+                    public AlgoUSpan call() throws IOException {
+                        AlgoUSpan worker = createWorker();
+                        int j;
+                        while ((j = nextItem.getAndIncrement()) < promisingItems.length) {
+                            worker.exploreItem(promisingItems[j]);
+                        }
+                        return worker;
                     }
-                }
+                }));
+            }
 
-                // create the pattern consisting of this item
-                // by appending the item to the prefix in the buffer, which is empty
-                prefix[0] = item;
-                // if the pattern is high utility, then output it
-                if (totalUtility >= minUtility) {
-                    writeOut(prefix, 1, totalUtility);
-                }
-//				//Tin checks:
-//				if(itemSWU < totalUtility + totalRemainingUtility) {
-//					System.out.println("swu(" + item + ") = " + itemSWU + " < SPU(" + item + ") = " + (totalUtility + totalRemainingUtility));
-//					System.in.read();
-//				}
-
-                // if this item passes the depth pruning (remaining utility + totality >= minutil)
-                if (totalUtility + totalRemainingUtility >= minUtility) {
-
-                    //Then, we recursively call the procedure uspan for growing this pattern and
-                    // try to find larger high utility sequential patterns
-                    if (1 < maxPatternLength) {
-                        uspan(prefix, 1, matrixProjections, 1);
+            // add the statistics of the workers
+            for (Future<AlgoUSpan> future : futures) {
+                patternCount += future.get().patternCount;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The mining was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Create a worker for exploring the items of the first level in parallel.
+     * A worker has the same parameters, database and output as this object, but its own
+     * buffers.
+     *
+     * @return the worker
+     */
+    private AlgoUSpan createWorker() {
+        AlgoUSpan worker = new AlgoUSpan();
+        worker.input = input;
+        worker.minUtility = minUtility;
+        worker.maxPatternLength = maxPatternLength;
+        worker.itemNames = itemNames;
+        worker.database = database;
+        worker.writer = writer;
+        worker.initializeBuffers();
+        return worker;
+    }
+
+    /**
+     * Calculate the utility of a pattern containing a single item, output it if it
+     * is a high utility pattern, and recursively call the "uspan" method to find larger
+     * patterns starting with this item.
+     *
+     * @param item a promising item
+     * @throws IOException If an error occurs while writing to file.
+     */
+    private void exploreItem(int item) throws IOException {
+        // We initialize two variables for calculating the total utility and remaining utility
+        // of that item
+        int totalUtility = 0;
+        int totalRemainingUtility = 0;
+
+        // We also initialize a chain to remember the positions of this item in the
+        // sequences where it appears. This will be used for call to the recursive
+        // "uspan" method later.
+        UtilityChain chain = chainPool.get(0);
+        // For each sequence
+        for (int sequence = 0; sequence < database.length; sequence++) {
+            QMatrix qmatrix = database[sequence];
+
+            // if the item appear in that sequence (in that qmatrix)
+            int row = Arrays.binarySearch(qmatrix.itemNames, item);
+            if (row >= 0) {
+                // find the max utility of this item in that sequence
+                // and the max remaining utility
+                int maxUtility = 0;
+                int maxRemainingUtility = 0;
+                int[] utilities = qmatrix.matrixItemUtility[row];
+                // for each itemset in that sequence
+                for (int itemset = 0; itemset < utilities.length; itemset++) {
+                    // get the utility of the item in that itemset
+                    int utility = utilities[itemset];
+                    // if the utility is higher than 0
+                    if (utility > 0) {
+                        // record this position
+                        chain.add(sequence, itemset, utility);
+
+                        // if it is the maximum utility until now
+                        if (utility > maxUtility) {
+                            // record it as the maximum utility until now
+                            maxUtility = utility;
+
+                            // get the remaining utility at that position
+                            int remaining = qmatrix.matrixItemRemainingUtility[row][itemset];
+                            // If it is the first occurrence of this item
+                            // we remember the remaining utility as the max remaining utility
+                            if (remaining > 0 && maxRemainingUtility == 0) {
+                                maxRemainingUtility = remaining;
+                            }
+                        }
                     }
                 }
+
+                // update the total utility and total remaining utility for all sequences
+                // until now by adding the utility and remaining utility of the current
+                // sequence
+                totalUtility += maxUtility;
+                totalRemainingUtility += maxRemainingUtility;
+            }
+        }
+
+        // create the pattern consisting of this item
+        // by appending the item to the prefix in the buffer, which is empty
+        patternBuffer[0] = item;
+        // if the pattern is high utility, then output it
+        if (totalUtility >= minUtility) {
+            writeOut(patternBuffer, 1, totalUtility);
+        }
+
+        // if this item passes the depth pruning (remaining utility + totality >= minutil)
+        if (totalUtility + totalRemainingUtility >= minUtility) {
+
+            //Then, we recursively call the procedure uspan for growing this pattern and
+            // try to find larger high utility sequential patterns
+            if (1 < maxPatternLength) {
+                uspan(patternBuffer, 1, chain, 1);
             }
         }
-        // we check the memory usage.
-        MemoryLogger.getInstance().checkMemory();
+    }
+
+    /**
+     * Add the SWU of an item for a position of a pattern, when scanning a projected database
+     * to calculate the SWU of items.
+     *
+     * @param item     the item
+     * @param sequence the sequence where the item appears after the position
+     * @param swu      the utility of the pattern at the position plus the remaining utility
+     */
+    private void addSWU(int item, int sequence, int swu) {
+        int lastSequence = itemLastSequence[item];
+        // if it is the first time that we see this item
+        if (lastSequence == -1) {
+            itemsWithSWU[itemsWithSWUCount++] = item;
+            itemLastSequence[item] = sequence;
+            itemSWU[item] = swu;
+        } else if (lastSequence != sequence) {
+            // otherwise if it is not the first time that we see this item
+            // but it is the first time that we see it in this sequence:
+            // We remember this sequence as the last sequence where we have seen this item
+            itemLastSequence[item] = sequence;
+            // We add the local sequence utility to the SWU of the item
+            itemSWU[item] += swu;
+        } else if (swu > itemSWU[item]) {
+            // BUGFIX 2017: if it is the second occurrence
+            // of the same item in that sequence and the SWU
+            // is higher, we need to update it.
+            // Before, we were not doing it, so the utility
+            // could be underestimated, and some patterns were missing
+            // in some cases.
+            itemSWU[item] = swu;
+        }
+    }
+
+    /**
+     * Get the items whose SWU is at least minutil, after scanning a projected database
+     * to calculate the SWU of items, and reset the arrays for the next scan.
+     *
+     * @return the promising items by increasing order
+     */
+    private int[] getPromisingItems() {
+        int[] promisingItems = new int[itemsWithSWUCount];
+        int promisingItemCount = 0;
+        for (int i = 0; i < itemsWithSWUCount; i++) {
+            int item = itemsWithSWU[i];
+            if (itemSWU[item] >= minUtility) {
+                promisingItems[promisingItemCount++] = item;
+            }
+            itemSWU[item] = 0;
+            itemLastSequence[item] = -1;
+        }
+        itemsWithSWUCount = 0;
+        Arrays.sort(promisingItems, 0, promisingItemCount);
+        return promisingItemCount == promisingItems.length ? promisingItems
+                : Arrays.copyOf(promisingItems, promisingItemCount);
     }
 
     /**
@@ -586,80 +783,49 @@ public class AlgoUSpan {
      *
      * @param prefix       This is the buffer for storing the current prefix.
      * @param prefixLength The current prefix length.
-     * @param database     This is a projected sequence database (a set of projected QMatrixes)
+     * @param chain        The positions of the prefix in the sequences where it appears (the projected database)
      * @param itemCount    the number of items in the prefix
      * @throws IOException If an error occurs while reading/writting to file.
      */
-    private void uspan(int[] prefix, int prefixLength, List<QMatrixProjection> projectedDatabase, int itemCount) throws IOException {
+    private void uspan(int[] prefix, int prefixLength, UtilityChain chain, int itemCount) throws IOException {
         if (DEBUG) {
             // Print the current prefix
             for (int i = 0; i < prefixLength; i++) {
-                System.out.print(prefix[i] + " ");
+                System.out.print((prefix[i] == -1 ? -1 : itemNames[prefix[i]]) + " ");
             }
             System.out.println();
             System.out.println();
         }
 
+        // the last item of the prefix, which is the row of the positions in the QMatrixes
+        int lastItem = prefix[prefixLength - 1];
+
         // =======================  I-CONCATENATIONS  ===========================/
         // We first try to perform I-Concatenations to grow the pattern larger.
         // We scan the projected database to calculated the SWU of each item that could
         // be concatenated to the prefix.
-        // The following map will store for each item, their SWU (key: item  value: swu)
-        Map<Integer, Pair> mapItemSWU = new HashMap<Integer, Pair>();
         // For each sequence in the projected database
-        for (QMatrixProjection qmatrix : projectedDatabase) {
+        for (int segment = 0; segment < chain.getSequenceCount(); segment++) {
+            int sequence = chain.getSequence(segment);
+            QMatrix qmatrix = database[sequence];
+            int lastRow = Arrays.binarySearch(qmatrix.itemNames, lastItem);
 
             // For each position in that Q-matrix
-            for (MatrixPosition position : qmatrix.positions) {
+            for (int i = chain.getStart(segment); i < chain.getEnd(segment); i++) {
                 // Because we are looking for i-concatenation, we will search for items
                 // occurring in the same column (itemset) as the current position
                 // but from the next row
-                int row = position.row + 1;
-                int column = position.column;
+                int column = chain.getPosition(i);
 
                 // The sequence utility for updating the SWU
                 // will be the remaining utility at the current position
-                int localSequenceUtility = qmatrix.getLocalSequenceUtility(position);
+                int localSequenceUtility = chain.getUtility(i) + qmatrix.matrixItemRemainingUtility[lastRow][column];
 
                 // for each row we will update the local SWU of the corresponding item
-                for (; row < qmatrix.getItemNames().length; row++) {
-                    // get the item for this row
-                    int item = qmatrix.getItemNames()[row];
-
+                for (int row = lastRow + 1; row < qmatrix.itemNames.length; row++) {
                     // if the item appears in that column
-                    if (qmatrix.getItemUtility(row, column) > 0) {
-                        // get its swu until now
-                        Pair currentSWU = mapItemSWU.get(item);
-                        // if it is the first time that we see this item
-                        if (currentSWU == null) {
-                            // We use a Pair object to store the SWU of the item and the
-                            // last sequence where the item appears
-                            Pair pair = new Pair();
-                            pair.lastSID = qmatrix;
-                            pair.swu = position.utility + localSequenceUtility;
-                            // we put this Pair object in the map for storing the SWU of all items
-                            mapItemSWU.put(item, pair);
-                        } else if (currentSWU.lastSID != qmatrix) {
-                            // otherwise if it is not the first time that we see this item
-                            // but it is the first time that we see it in this sequence:
-                            // We remember this sequence as the last sequence where we have seen this item
-                            currentSWU.lastSID = qmatrix;
-                            // We add the local sequence utility to the SWU of the item
-                            currentSWU.swu += position.utility + localSequenceUtility;
-                        } else {
-                            // BUGFIX 2017: if it is the second occurrence
-                            // of the same item in that sequence and the SWU
-                            // is higher, we need to update it.
-                            // Before, we were not doing it, so the utility
-                            // could be underestimated, and some patterns were missing
-                            // in some cases.
-                            int tempSWU = position.utility + localSequenceUtility;
-
-                            if (tempSWU > currentSWU.swu) {
-                                currentSWU.swu = tempSWU;
-                            }
-                            //  END OF BUGFIX
-                        }
+                    if (qmatrix.matrixItemUtility[row][column] > 0) {
+                        addSWU(qmatrix.itemNames[row], sequence, localSequenceUtility);
                     }
                 }
             }
@@ -667,181 +833,121 @@ public class AlgoUSpan {
         //  Now that we have calculated the local SWU of each item,
         // We perform a loop on each item and for each promising item we will create
         // the i-concatenation and calculate the utility of the resulting pattern.
-
-        // For each item
-        for (Entry<Integer, Pair> entry : mapItemSWU.entrySet()) {
-            // Get the Pair object that store the calculated SWU for that item
-            Pair itemSWU = entry.getValue();
-            // if the item is promising (SWU >= minutil)
-            if (itemSWU.swu >= minUtility) {
-                // get the item
-                int item = entry.getKey();
-
-                // This variable will be used to calculate this item's utility for the whole database
-                int totalUtility = 0;
-                // This variable will be used to calculate this item's remaining utility for the whole database
-                int totalRemainingUtility = 0;
-
-                // Initialize a variable to store the projected QMatrixes for the i-concatenation
-                // of this item to the prefix
-                List<QMatrixProjection> matrixProjections = new ArrayList<QMatrixProjection>();
-
-                // for each sequence in the projected database
-                for (QMatrixProjection qmatrix : projectedDatabase) {
-
-                    // if the item appear in that sequence
-                    int rowItem = Arrays.binarySearch(qmatrix.getItemNames(), item);
-                    if (rowItem >= 0) {
-
-                        // We initialize two variables that will be used to calculate the maximum
-                        // utility and remaining utility for the i-concatenation with this item
-                        // in that sequence
-                        int maxUtility = 0;
-                        int maxRemainingUtility = 0;
-
-                        // create a list to store the matrix positions of i-concatenations with
-                        // this item in that sequence
-                        List<MatrixPosition> positions = new ArrayList<MatrixPosition>();
-
-                        // for each position of the prefix
-                        for (MatrixPosition position : qmatrix.positions) {
-                            // We will look for this item in the same column (in the same itemset)
-                            // because we look for a i-concatenation
-                            int column = position.column;
-
-                            // we will check if the new item appears in the same itemset
-                            int newItemUtility = qmatrix.getItemUtility(rowItem, column);
-                            // if the item appears in that itemset
-                            if (newItemUtility > 0) {
-                                // calculate the utility of the i-concatenation at this position
-                                // in that sequence
-                                int newPrefixUtility = position.utility + newItemUtility;
-                                // Add this new position and its utility in the list of position
-                                // for this pattern
-                                positions.add(new MatrixPosition(rowItem, column, newPrefixUtility));
-
-                                // If the utility of this new i-concatenation is higher than
-                                // previous occurrences of that same pattern
-                                if (newPrefixUtility > maxUtility) {
-                                    // record this utility as the maximum utility until now for that pattern
-                                    maxUtility = newPrefixUtility;
-
-                                    // Get the remaining utility at that position
-                                    int remaining = qmatrix.getRemainingUtility(rowItem, column);
-
-                                    // If it is the first position where this i-concatenation occurs
-                                    // we record its remaining utility as the largest remaining utility
-                                    // for this i-concatenation
-                                    if (remaining > 0 && maxRemainingUtility == 0) {
-                                        maxRemainingUtility = remaining;
-                                    }
+        for (int item : getPromisingItems()) {
+            // This variable will be used to calculate this item's utility for the whole database
+            int totalUtility = 0;
+            // This variable will be used to calculate this item's remaining utility for the whole database
+            int totalRemainingUtility = 0;
+
+            // Initialize a chain to store the positions of the i-concatenation
+            // of this item to the prefix
+            UtilityChain newChain = chainPool.get(itemCount);
+
+            // for each sequence in the projected database
+            for (int segment = 0; segment < chain.getSequenceCount(); segment++) {
+                int sequence = chain.getSequence(segment);
+                QMatrix qmatrix = database[sequence];
+
+                // if the item appear in that sequence
+                int rowItem = Arrays.binarySearch(qmatrix.itemNames, item);
+                if (rowItem >= 0) {
+
+                    // We initialize two variables that will be used to calculate the maximum
+                    // utility and remaining utility for the i-concatenation with this item
+                    // in that sequence
+                    int maxUtility = 0;
+                    int maxRemainingUtility = 0;
+
+                    // for each position of the prefix
+                    for (int i = chain.getStart(segment); i < chain.getEnd(segment); i++) {
+                        // We will look for this item in the same column (in the same itemset)
+                        // because we look for a i-concatenation
+                        int column = chain.getPosition(i);
+
+                        // we will check if the new item appears in the same itemset
+                        int newItemUtility = qmatrix.matrixItemUtility[rowItem][column];
+                        // if the item appears in that itemset
+                        if (newItemUtility > 0) {
+                            // calculate the utility of the i-concatenation at this position
+                            // in that sequence
+                            int newPrefixUtility = chain.getUtility(i) + newItemUtility;
+                            // Add this new position and its utility to the chain of this pattern
+                            newChain.add(sequence, column, newPrefixUtility);
+
+                            // If the utility of this new i-concatenation is higher than
+                            // previous occurrences of that same pattern
+                            if (newPrefixUtility > maxUtility) {
+                                // record this utility as the maximum utility until now for that pattern
+                                maxUtility = newPrefixUtility;
+
+                                // Get the remaining utility at that position
+                                int remaining = qmatrix.matrixItemRemainingUtility[rowItem][column];
+
+                                // If it is the first position where this i-concatenation occurs
+                                // we record its remaining utility as the largest remaining utility
+                                // for this i-concatenation
+                                if (remaining > 0 && maxRemainingUtility == 0) {
+                                    maxRemainingUtility = remaining;
                                 }
                             }
-
                         }
 
-                        // update the total utility and total remaining utility for that i-concatenation
-                        // for all sequences by adding the utility and remaining utility for the
-                        // current sequence
-                        totalUtility += maxUtility;
-                        totalRemainingUtility += maxRemainingUtility;
-
-                        // create the projected matrix for the current sequence
-                        QMatrixProjection projection = new QMatrixProjection(qmatrix, positions);
-                        // Add it to the projected database for that i-concatenation.
-                        matrixProjections.add(projection);
                     }
-                }
 
-                // create the i-concatenation by appending the item to the prefix in the buffer
-                prefix[prefixLength] = item;
-                // if the i-concatenation is high utility, then output it
-                if (totalUtility >= minUtility) {
-                    writeOut(prefix, prefixLength + 1, totalUtility);
+                    // update the total utility and total remaining utility for that i-concatenation
+                    // for all sequences by adding the utility and remaining utility for the
+                    // current sequence
+                    totalUtility += maxUtility;
+                    totalRemainingUtility += maxRemainingUtility;
                 }
+            }
 
-//				//Tin checks:
-//				if(itemSWU.swu < totalUtility + totalRemainingUtility) {
-//					System.out.println("swu(i-ext " + ToString(prefix, prefixLength+1) + "-1 -2) <= swu(" + item + ") = " + itemSWU.swu + " < SPU
-//					(i-ext " + ToString(prefix, prefixLength+1) + " -1 -2) = " + (totalUtility + totalRemainingUtility));
-//				System.in.read();
-//				}
-
-                // if his i-concatenation passes the depth pruning (remaining utility + totality)
-                if (totalUtility + totalRemainingUtility >= minUtility) {
+            // create the i-concatenation by appending the item to the prefix in the buffer
+            prefix[prefixLength] = item;
+            // if the i-concatenation is high utility, then output it
+            if (totalUtility >= minUtility) {
+                writeOut(prefix, prefixLength + 1, totalUtility);
+            }
 
-                    // Finally, we recursively call the procedure uspan for growing this pattern
-                    // to try to find larger patterns
-                    if (itemCount + 1 < maxPatternLength) {
-                        uspan(prefix, prefixLength + 1, matrixProjections, itemCount + 1);
-                    }
+            // if his i-concatenation passes the depth pruning (remaining utility + totality)
+            if (totalUtility + totalRemainingUtility >= minUtility) {
 
+                // Finally, we recursively call the procedure uspan for growing this pattern
+                // to try to find larger patterns
+                if (itemCount + 1 < maxPatternLength) {
+                    uspan(prefix, prefixLength + 1, newChain, itemCount + 1);
                 }
+
             }
         }
 
         // =======================  S-CONCATENATIONS  ===========================/
         // We will next look for for S-CONCATENATIONS.
-        // We first clear the map for calculating the SWU of items to reuse it instead
-        // of creating a new one
-        mapItemSWU.clear();
         // Now, we will loop over sequences of the projected database to calculate the local SWU
         // of each item.
         //For each sequence in the projected database
-        for (QMatrixProjection qmatrix : projectedDatabase) {
+        for (int segment = 0; segment < chain.getSequenceCount(); segment++) {
+            int sequence = chain.getSequence(segment);
+            QMatrix qmatrix = database[sequence];
+            int lastRow = Arrays.binarySearch(qmatrix.itemNames, lastItem);
+            int columnCount = qmatrix.matrixItemUtility[lastRow].length;
 
             // For each position where the current prefix appear in the current sequence
-            for (MatrixPosition position : qmatrix.positions) {
+            for (int i = chain.getStart(segment); i < chain.getEnd(segment); i++) {
+                int position = chain.getPosition(i);
 
                 // The local sequence utility is the remaining utility at the current position
-                int localSequenceUtility = qmatrix.getLocalSequenceUtility(position);
+                int localSequenceUtility = chain.getUtility(i) + qmatrix.matrixItemRemainingUtility[lastRow][position];
 
                 // For each item
-                for (int row = 0; row < qmatrix.getItemNames().length; row++) {
-                    // get the item
-                    int item = qmatrix.getItemNames()[row];
-
+                for (int row = 0; row < qmatrix.itemNames.length; row++) {
+                    int[] utilities = qmatrix.matrixItemUtility[row];
                     // We will look for s-concatenations starting from the next itemset (column)
                     // For each column
-                    for (int column = position.column + 1;
-                         column < qmatrix.originalMatrix.matrixItemUtility[row].length; column++) {
+                    for (int column = position + 1; column < columnCount; column++) {
                         // if the item appears in that column
-                        if (qmatrix.getItemUtility(row, column) > 0) {
-                            // get its swu until now
-                            Pair currentSWU = mapItemSWU.get(item);
-                            // if it is 0
-                            if (currentSWU == null) {
-                                // We create a Pair object to store the SWU until now of that item
-                                Pair pair = new Pair();
-                                // We remember that this sequence is the last seen sequence containing
-                                // that item
-                                pair.lastSID = qmatrix;
-                                // We update the SWU of that item by adding this local sequence utility
-                                pair.swu = position.utility + localSequenceUtility;
-                                // We put the pair in the map
-                                mapItemSWU.put(item, pair);
-                            } else if (currentSWU.lastSID != qmatrix) {
-                                // Otherwise, if it is not the first time that we see this item
-                                // but it is the first time that we see it in this sequence:
-                                // We remember this sequence as the last one that was seen containing
-                                // this item
-                                currentSWU.lastSID = qmatrix;
-                                // We update the SWU of that item by adding this local sequence utility
-                                currentSWU.swu += position.utility + localSequenceUtility;
-                            } else {
-                                // BUGFIX 2017: if it is the second occurrence
-                                // of the same item in that sequence and the SWU
-                                // is higher, we need to update it.
-                                // Before, we were not doing it, so the utility
-                                // could be underestimated, and some patterns were missing
-                                // in some cases.
-                                int tempSWU = position.utility + localSequenceUtility;
-
-                                if (tempSWU > currentSWU.swu) {
-                                    currentSWU.swu = tempSWU;
-                                }
-                                //  END OF BUGFIX
-                            }
+                        if (utilities[column] > 0) {
+                            addSWU(qmatrix.itemNames[row], sequence, localSequenceUtility);
                             // we don't need to check the other column if we found one column where this item
                             // appears after the previous item.
                             break;
@@ -853,120 +959,99 @@ public class AlgoUSpan {
 
         // Next we will calculate the utility of each s-concatenation for promising
         // items that can be appended by s-concatenation
-        for (Entry<Integer, Pair> entry : mapItemSWU.entrySet()) {
-//			System.out.println(entry.getKey() + "  swu: " + entry.getValue().swu);
-            // Get the item and its SWU
-            Pair itemSWU = entry.getValue();
-            // if the item is promising (SWU >= minutil
-            if (itemSWU.swu >= minUtility) {
-
-                // get the item
-                int item = entry.getKey();
-
-                // This variable is used to store the utility of this s-concatenation in the whole database
-                int totalUtility = 0;
-
-                // This variable is used to store the remaining utility of this
-                // s-concatenation in the whole database
-                int totalRemainingUtility = 0;
-
-                // Initialize a variable to store position of the last item of this s-concatenation
-                List<QMatrixProjection> matrixProjections = new ArrayList<QMatrixProjection>();
-
-                // For each sequence of the projected database,
-                // we check if the item appears and calculate the maximum utility
-                for (QMatrixProjection qmatrix : projectedDatabase) {
-
-                    // if the item appear in that qMatrix
-                    int rowItem = Arrays.binarySearch(qmatrix.getItemNames(), item);
-                    if (rowItem >= 0) {
-
-                        // We will calculate the max utility and maximum remaining utility of that
-                        // s-concatenation with the item
-                        // This variable will store the maximum utility
-                        int maxUtility = 0;
-                        // This variable will store the maximum remaining utility
-                        int maxRemainingUtility = 0;
-
-                        // create a list to store the matrix positions of this item in that sequence
-                        List<MatrixPosition> positions = new ArrayList<MatrixPosition>();
-
-                        // for each position of the last item of the prefix
-                        for (MatrixPosition position : qmatrix.positions) {
-
-                            // We will start searching for the item starting at the next itemset (column)
-                            // because we are looking for s-concatenations
-                            // For each column (itemset) after the last item of the prefix
-                            for (int column = position.column + 1;
-                                 column < qmatrix.originalMatrix.matrixItemUtility[rowItem].length; column++) {
-
-                                // we will check if the new item appears in the same itemset
-                                int newItemUtility = qmatrix.getItemUtility(rowItem, column);
-                                // if the item appears
-                                if (newItemUtility > 0) {
-                                    // We calculate the utility of the s-concatenation with this item
-                                    int newPrefixUtility = position.utility + newItemUtility;
-                                    // We record the current position as the end of this
-                                    // s-concatenation
-                                    positions.add(new MatrixPosition(rowItem, column, newPrefixUtility));
-
-                                    // if this s-concatenation utility is higher than
-                                    // what we seen until now for that sequence
-                                    if (newPrefixUtility > maxUtility) {
-                                        // We record the utiltiy of this s concatenation
-                                        maxUtility = newPrefixUtility;
-
-                                        // we get the remaining utility of this s-concatenation
-                                        int remaining = qmatrix.getRemainingUtility(rowItem, column);
-                                        // if it is the first s-concatenation that we have seen
-                                        // we remember the remaining utility
-                                        if (remaining > 0 && maxRemainingUtility == 0) {
-                                            maxRemainingUtility = remaining;
-                                        }
+        for (int item : getPromisingItems()) {
+            // This variable is used to store the utility of this s-concatenation in the whole database
+            int totalUtility = 0;
+
+            // This variable is used to store the remaining utility of this
+            // s-concatenation in the whole database
+            int totalRemainingUtility = 0;
+
+            // Initialize a chain to store the positions of the last item of this s-concatenation
+            UtilityChain newChain = chainPool.get(itemCount);
+
+            // For each sequence of the projected database,
+            // we check if the item appears and calculate the maximum utility
+            for (int segment = 0; segment < chain.getSequenceCount(); segment++) {
+                int sequence = chain.getSequence(segment);
+                QMatrix qmatrix = database[sequence];
+
+                // if the item appear in that qMatrix
+                int rowItem = Arrays.binarySearch(qmatrix.itemNames, item);
+                if (rowItem >= 0) {
+
+                    // We will calculate the max utility and maximum remaining utility of that
+                    // s-concatenation with the item
+                    // This variable will store the maximum utility
+                    int maxUtility = 0;
+                    // This variable will store the maximum remaining utility
+                    int maxRemainingUtility = 0;
+
+                    int[] utilities = qmatrix.matrixItemUtility[rowItem];
+
+                    // for each position of the last item of the prefix
+                    for (int i = chain.getStart(segment); i < chain.getEnd(segment); i++) {
+                        int prefixUtility = chain.getUtility(i);
+
+                        // We will start searching for the item starting at the next itemset (column)
+                        // because we are looking for s-concatenations
+                        // For each column (itemset) after the last item of the prefix
+                        for (int column = chain.getPosition(i) + 1; column < utilities.length; column++) {
+
+                            // we will check if the new item appears in the same itemset
+                            int newItemUtility = utilities[column];
+                            // if the item appears
+                            if (newItemUtility > 0) {
+                                // We calculate the utility of the s-concatenation with this item
+                                int newPrefixUtility = prefixUtility + newItemUtility;
+                                // We record the current position as the end of this
+                                // s-concatenation
+                                newChain.add(sequence, column, newPrefixUtility);
+
+                                // if this s-concatenation utility is higher than
+                                // what we seen until now for that sequence
+                                if (newPrefixUtility > maxUtility) {
+                                    // We record the utiltiy of this s concatenation
+                                    maxUtility = newPrefixUtility;
+
+                                    // we get the remaining utility of this s-concatenation
+                                    int remaining = qmatrix.matrixItemRemainingUtility[rowItem][column];
+                                    // if it is the first s-concatenation that we have seen
+                                    // we remember the remaining utility
+                                    if (remaining > 0 && maxRemainingUtility == 0) {
+                                        maxRemainingUtility = remaining;
                                     }
                                 }
                             }
                         }
-
-                        // Add the  utility and  remaining utility of this s-concatenation in
-                        // that sequence to the utility and remaining utility of this s-concatenation
-                        // for the whole database.
-                        totalUtility += maxUtility;
-                        totalRemainingUtility += maxRemainingUtility;
-
-                        // create the projected matrix for this s-concatenation
-                        QMatrixProjection projection = new QMatrixProjection(qmatrix, positions);
-                        // add it to the projected database
-                        matrixProjections.add(projection);
                     }
-                }
 
-                // create ths s-concatenation by appending an itemset separator to
-                // start a new itemset
-                prefix[prefixLength] = -1;
-                // then we append the new item
-                prefix[prefixLength + 1] = item;
-                // if this s-concatenation is high utility, then we output it
-                if (totalUtility >= minUtility) {
-                    writeOut(prefix, prefixLength + 2, totalUtility);
+                    // Add the  utility and  remaining utility of this s-concatenation in
+                    // that sequence to the utility and remaining utility of this s-concatenation
+                    // for the whole database.
+                    totalUtility += maxUtility;
+                    totalRemainingUtility += maxRemainingUtility;
                 }
+            }
 
-//				//Tin checks:
-//				if(itemSWU.swu < totalUtility + totalRemainingUtility) {
-//					System.out.println("swu(s-ext " + ToString(prefix, prefixLength+2) + "-1 -2) <= swu(" + item + ") = " + itemSWU.swu + " < SPU
-//					(s-ext " + ToString(prefix, prefixLength+2) + "-1 -2) = " + (totalUtility + totalRemainingUtility));
-//				System.in.read();
-//				}
-
-                // if this s-concatenation passes the depth pruning
-                // (remaining utility + totality >= minutil)
-                if (totalUtility + totalRemainingUtility >= minUtility) {
-
-                    // Finally, we recursively call the procedure uspan() for growing this pattern
-                    // to try to find larger high utilit sequential patterns
-                    if (itemCount + 1 < maxPatternLength) {
-                        uspan(prefix, prefixLength + 2, matrixProjections, itemCount + 1);
-                    }
+            // create ths s-concatenation by appending an itemset separator to
+            // start a new itemset
+            prefix[prefixLength] = -1;
+            // then we append the new item
+            prefix[prefixLength + 1] = item;
+            // if this s-concatenation is high utility, then we output it
+            if (totalUtility >= minUtility) {
+                writeOut(prefix, prefixLength + 2, totalUtility);
+            }
+
+            // if this s-concatenation passes the depth pruning
+            // (remaining utility + totality >= minutil)
+            if (totalUtility + totalRemainingUtility >= minUtility) {
+
+                // Finally, we recursively call the procedure uspan() for growing this pattern
+                // to try to find larger high utilit sequential patterns
+                if (itemCount + 1 < maxPatternLength) {
+                    uspan(prefix, prefixLength + 2, newChain, itemCount + 1);
                 }
             }
         }
@@ -983,6 +1068,20 @@ public class AlgoUSpan {
         this.maxPatternLength = maxPatternLength;
     }
 
+    /**
+     * Set the number of threads used for mining. If more than one thread is used, the items
+     * of the first level are explored in parallel. The same patterns are found as with a single
+     * thread, but they are written in the order in which the threads find them.
+     *
+     * @param threadCount the number of threads (1 by default)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.threadCount = threadCount;
+    }
+
 ////Tin added for checking above:	
 //	public String ToString(int[] prefix, int length) {
 //		StringBuilder sb = new StringBuilder();
@@ -994,7 +1093,7 @@ public class AlgoUSpan {
     /**
      * Method to write a high utility itemset to the output file.
      *
-     * @param the          prefix to be written o the output file
+     * @param the          prefix to be written o the output file (containing the indexes of the items)
      * @param utility      the utility of the prefix concatenated with the item
      * @param prefixLength the prefix length
      */
@@ -1008,7 +1107,7 @@ public class AlgoUSpan {
         if (!SAVE_RESULT_EASIER_TO_READ_FORMAT) {
             // append each item of the pattern
             for (int i = 0; i < prefixLength; i++) {
-                buffer.append(prefix[i]);
+                buffer.append(prefix[i] == -1 ? -1 : itemNames[prefix[i]]);
                 buffer.append(' ');
             }
 
@@ -1026,7 +1125,7 @@ public class AlgoUSpan {
                 if (prefix[i] == -1) {
                     buffer.append(")(");
                 } else {
-                    buffer.append(prefix[i]);
+                    buffer.append(itemNames[prefix[i]]);
                 }
             }
             buffer.append(")>:");
@@ -1034,8 +1133,10 @@ public class AlgoUSpan {
         }
 
         // write the pattern to the output file
-        writer.write(buffer.toString());
-        writer.newLine();
+        synchronized (writer) {
+            writer.write(buffer.toString());
+            writer.newLine();
+        }
 
         // if in debugging mode, then also print the pattern to the console
         if (DEBUG) {
@@ -1044,7 +1145,11 @@ public class AlgoUSpan {
 
             // check if the calculated utility is correct by reading the file
             // for debugging purpose
-            checkIfUtilityOfPatternIsCorrect(prefix, prefixLength, utility);
+            int[] pattern = new int[prefixLength];
+            for (int i = 0; i < prefixLength; i++) {
+                pattern[i] = prefix[i] == -1 ? -1 : itemNames[prefix[i]];
+            }
+            checkIfUtilityOfPatternIsCorrect(pattern, prefixLength, utility);
         }
     }
 
@@ -1241,23 +1346,9 @@ public class AlgoUSpan {
         System.out.println(" Total time ~ " + (endTimestamp - startTimestamp) + " ms");
         System.out.println(" Max Memory ~ " + MemoryLogger.getInstance().getMaxMemory() + " MB");
         System.out.println(" High-utility sequential pattern count : " + patternCount);
+        if (threadCount > 1) {
+            System.out.println(" Threads : " + threadCount);
+        }
         System.out.println("========================================================");
     }
-
-    /**
-     * This inner class is used to store the SWU of an item and the last sequence where it was seen.
-     * It is used in the uspan() method.
-     *
-     * @author Philippe Fournier-Viger, 2015
-     */
-    private class Pair {
-        /**
-         * the total SWU of an item
-         */
-        int swu;
-        /**
-         * the last sequence where the item was seen  (represented by a projected QMatrix)
-         */
-        QMatrixProjection lastSID;
-    }
-}
\ No newline at end of file
+}
@@ -36,7 +36,8 @@ class QMatrix {
      */
     int[][] matrixItemRemainingUtility;
     /**
-     * the item names
+     * the items of the rows, by increasing order (AlgoUSpan stores the index of each item
+     * in its list of promising items, rather than the item itself)
      */
     int[] itemNames;
     /**
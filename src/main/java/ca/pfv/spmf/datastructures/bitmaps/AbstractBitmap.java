@@ -0,0 +1,99 @@
+package ca.pfv.spmf.datastructures.bitmaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This is the interface of a set of bits, as used by the data mining algorithms
+ * that represent a database vertically (e.g. SPAM, where each item has a bitmap with
+ * one bit per itemset of the database). The methods have the same meaning as
+ * those of java.util.BitSet, so that an implementation can be chosen depending on the
+ * density of the data.
+ *
+ * @author Philippe Fournier-Viger
+ * @see BitSetBitmap
+ * @see CompressedBitmap
+ * @see BitmapType
+ */
+public interface AbstractBitmap {
+
+    /**
+     * Set a bit to 1
+     *
+     * @param bit the position of the bit
+     */
+    void set(int bit);
+
+    /**
+     * Check if a bit is set to 1
+     *
+     * @param bit the position of the bit
+     * @return true if yes
+     */
+    boolean get(int bit);
+
+    /**
+     * Get the position of the first bit set to 1 that is at a given position or after
+     *
+     * @param fromBit the position where to start searching
+     * @return the position of that bit or -1 if there is none
+     */
+    int nextSetBit(int fromBit);
+
+    /**
+     * Get the number of bits set to 1
+     *
+     * @return the number of bits
+     */
+    int cardinality();
+
+    /**
+     * Check if no bit is set to 1
+     *
+     * @return true if yes
+     */
+    boolean isEmpty();
+
+    /**
+     * Do a logical AND with another bitmap. This bitmap is modified and the other
+     * bitmap is not.
+     *
+     * @param other the other bitmap
+     */
+    void and(AbstractBitmap other);
+
+    /**
+     * Get a copy of this bitmap, that can be modified without modifying this bitmap
+     *
+     * @return the copy
+     */
+    AbstractBitmap copy();
+
+    /**
+     * Change the internal representation of this bitmap so that it uses less memory.
+     * This is useful for a bitmap that will not be modified anymore
+     * but will be read many times.
+     */
+    void optimize();
+
+    /**
+     * Get an estimation of the memory used by this bitmap
+     *
+     * @return the memory in bytes
+     */
+    long getMemoryUsage();
+}
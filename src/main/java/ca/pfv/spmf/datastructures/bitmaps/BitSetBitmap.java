@@ -0,0 +1,122 @@
+package ca.pfv.spmf.datastructures.bitmaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A bitmap that uses one bit of memory for each position up to the last bit set to 1,
+ * implemented with a LongBitSet (an array of words, like the BitSet class of Java).
+ * It is the fastest bitmap for dense data.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AbstractBitmap
+ */
+public class BitSetBitmap implements AbstractBitmap {
+
+    /**
+     * the bits
+     */
+    private LongBitSet bitset;
+
+    /**
+     * Constructor
+     *
+     * @param lastBitIndex the position of the last bit that is expected
+     */
+    public BitSetBitmap(int lastBitIndex) {
+        this.bitset = new LongBitSet(lastBitIndex + 1);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param bitset a bitset that will be used by this bitmap (it is not copied)
+     */
+    public BitSetBitmap(LongBitSet bitset) {
+        this.bitset = bitset;
+    }
+
+    /**
+     * Get the bitset used by this bitmap
+     *
+     * @return the bitset
+     */
+    public LongBitSet getBitSet() {
+        return bitset;
+    }
+
+    @Override
+    public void set(int bit) {
+        bitset.set(bit);
+    }
+
+    @Override
+    public boolean get(int bit) {
+        return bitset.get(bit);
+    }
+
+    @Override
+    public int nextSetBit(int fromBit) {
+        return bitset.nextSetBit(fromBit);
+    }
+
+    @Override
+    public int cardinality() {
+        return bitset.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bitset.isEmpty();
+    }
+
+    @Override
+    public void and(AbstractBitmap other) {
+        if (other instanceof BitSetBitmap) {
+            bitset.and(((BitSetBitmap) other).bitset);
+        } else {
+            // clear the bits that are not in the other bitmap
+            for (int bit = bitset.nextSetBit(0); bit >= 0; bit = bitset.nextSetBit(bit + 1)) {
+                if (!other.get(bit)) {
+                    bitset.clear(bit);
+                }
+            }
+        }
+    }
+
+    @Override
+    public AbstractBitmap copy() {
+        return new BitSetBitmap(bitset.clone());
+    }
+
+    @Override
+    public void optimize() {
+        // remove the words after the last bit set to 1
+        bitset = bitset.clone();
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        // the object, the LongBitSet and its array of words
+        return 16 + 24 + 16 + bitset.size() / 8;
+    }
+
+    @Override
+    public String toString() {
+        return bitset.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package ca.pfv.spmf.datastructures.bitmaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The operations on arrays of words (long) that are used to intersect bitsets and
+ * count their bits. Most of the time of algorithms that represent a database
+ * vertically is spent in these operations.
+ * <p>
+ * Two implementations are available. The first one uses the Vector API of Java
+ * (module jdk.incubator.vector) to process several words with a single instruction
+ * of the processor. It is used when the module is available, that is when Java
+ * is started with the option "--add-modules jdk.incubator.vector". Otherwise,
+ * the second implementation, which processes one word at a time, is used.
+ * The system property "spmf.bitset.kernel" can be set to "scalar" to always use
+ * the second implementation.
+ *
+ * @author Philippe Fournier-Viger
+ * @see LongBitSet
+ */
+public abstract class BitSetKernel {
+
+    /**
+     * The name of the system property to choose the implementation
+     */
+    public static final String KERNEL_PROPERTY = "spmf.bitset.kernel";
+
+    /**
+     * The name of the module of the Vector API
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The name of the class of the implementation with the Vector API.
+     * It is loaded by its name so that this class can be used without the module.
+     */
+    private static final String VECTOR_KERNEL_CLASS = "ca.pfv.spmf.datastructures.bitmaps.VectorBitSetKernel";
+
+    /**
+     * The implementation used by this JVM
+     */
+    private static final BitSetKernel INSTANCE = createKernel();
+
+    /**
+     * Get the implementation used by this JVM
+     *
+     * @return the implementation
+     */
+    public static BitSetKernel getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Choose the implementation
+     *
+     * @return the implementation
+     */
+    private static BitSetKernel createKernel() {
+        if (!"scalar".equalsIgnoreCase(System.getProperty(KERNEL_PROPERTY))
+            && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (BitSetKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // the Vector API cannot be used on this JVM
+            }
+        }
+        return new ScalarBitSetKernel();
+    }
+
+    /**
+     * Get the name of this implementation
+     *
+     * @return the name
+     */
+    public abstract String getName();
+
+    /**
+     * Do a logical AND of the first words of two arrays. The first array is modified.
+     *
+     * @param words  the first array
+     * @param other  the second array
+     * @param length the number of words
+     */
+    public abstract void and(long[] words, long[] other, int length);
+
+    /**
+     * Clear the bits of the first words of an array that are set in another array.
+     * The first array is modified.
+     *
+     * @param words  the first array
+     * @param other  the second array
+     * @param length the number of words
+     */
+    public abstract void andNot(long[] words, long[] other, int length);
+
+    /**
+     * Count the bits set to 1 in the first words of an array
+     *
+     * @param words  the array
+     * @param length the number of words
+     * @return the number of bits
+     */
+    public abstract int cardinality(long[] words, int length);
+
+    /**
+     * Count the bits set to 1 in the logical AND of the first words of two arrays,
+     * without modifying them.
+     *
+     * @param words  the first array
+     * @param other  the second array
+     * @param length the number of words
+     * @return the number of bits
+     */
+    public abstract int andCardinality(long[] words, long[] other, int length);
+
+    /**
+     * Count the bits set to 1 in the logical AND of the first words of three arrays,
+     * without modifying them.
+     *
+     * @param words  the first array
+     * @param other  the second array
+     * @param third  the third array
+     * @param length the number of words
+     * @return the number of bits
+     */
+    public abstract int andCardinality(long[] words, long[] other, long[] third, int length);
+}
@@ -0,0 +1,55 @@
+package ca.pfv.spmf.datastructures.bitmaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The implementations of bitmaps that an algorithm can use.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AbstractBitmap
+ */
+public enum BitmapType {
+
+    /**
+     * Bitmaps implemented with an array of words, like the BitSet class of Java (the fastest for dense data)
+     */
+    BITSET {
+        @Override
+        public AbstractBitmap newBitmap(int lastBitIndex) {
+            return new BitSetBitmap(lastBitIndex);
+        }
+    },
+
+    /**
+     * Compressed bitmaps (that use less memory for sparse data)
+     */
+    COMPRESSED {
+        @Override
+        public AbstractBitmap newBitmap(int lastBitIndex) {
+            return new CompressedBitmap();
+        }
+    };
+
+    /**
+     * Create an empty bitmap of this type
+     *
+     * @param lastBitIndex the position of the last bit that is expected
+     * @return the bitmap
+     */
+    public abstract AbstractBitmap newBitmap(int lastBitIndex);
+}
@@ -0,0 +1,763 @@
+package ca.pfv.spmf.datastructures.bitmaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A compressed bitmap, in the style of Roaring bitmaps. The positions are
+ * divided into chunks of 65536 bits, and only the chunks that contain a bit set to 1
+ * are stored, each in a container that is chosen depending on its content:
+ * <ul>
+ * <li>an array container stores the sorted positions of the bits (for at most 4096 bits),</li>
+ * <li>a bitmap container stores the 65536 bits as 1024 long values,</li>
+ * <li>a run container stores runs of consecutive bits (it is created by optimize()).</li>
+ * </ul>
+ * For sparse data (e.g. the bitmaps of most items in a vertical database of web
+ * logs), it uses much less memory than a BitSet, which stores all the bits up to the last one.
+ * <br/><br/>
+ * The positions must be positive.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AbstractBitmap
+ */
+public class CompressedBitmap implements AbstractBitmap {
+
+    /**
+     * the maximum number of bits in an array container
+     */
+    static final int ARRAY_MAX_SIZE = 4096;
+
+    /**
+     * the keys of the chunks (the 16 high bits of the positions), sorted
+     */
+    private char[] keys;
+    /**
+     * the containers of the chunks, in the same order as the keys
+     */
+    private Container[] containers;
+    /**
+     * the number of chunks
+     */
+    private int size;
+
+    /**
+     * Constructor
+     */
+    public CompressedBitmap() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    /**
+     * Constructor for a copy
+     *
+     * @param keys       the keys
+     * @param containers the containers
+     * @param size       the number of chunks
+     */
+    private CompressedBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * Find the index of a chunk
+     *
+     * @param key the key of the chunk
+     * @return its index or (-(insertion point) - 1) if there is no such chunk
+     */
+    private int indexOf(char key) {
+        // the bits are often read or set in increasing order, so we check the last chunk first
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    @Override
+    public void set(int bit) {
+        if (bit < 0) {
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bit);
+        }
+        char key = (char) (bit >>> 16);
+        char low = (char) bit;
+        int index = indexOf(key);
+        if (index >= 0) {
+            containers[index] = containers[index].add(low);
+        } else {
+            // create a chunk
+            index = -index - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(containers, index, containers, index + 1, size - index);
+            keys[index] = key;
+            containers[index] = new ArrayContainer().add(low);
+            size++;
+        }
+    }
+
+    @Override
+    public boolean get(int bit) {
+        if (bit < 0) {
+            return false;
+        }
+        int index = indexOf((char) (bit >>> 16));
+        return index >= 0 && containers[index].contains((char) bit);
+    }
+
+    @Override
+    public int nextSetBit(int fromBit) {
+        if (fromBit < 0) {
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromBit);
+        }
+        int index = indexOf((char) (fromBit >>> 16));
+        if (index >= 0) {
+            int low = containers[index].nextSetBit(fromBit & 0xFFFF);
+            if (low >= 0) {
+                return (keys[index] << 16) | low;
+            }
+            index++;
+        } else {
+            index = -index - 1;
+        }
+        // the containers are never empty, so the next one contains the answer
+        if (index < size) {
+            return (keys[index] << 16) | containers[index].nextSetBit(0);
+        }
+        return -1;
+    }
+
+    @Override
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void and(AbstractBitmap other) {
+        if (!(other instanceof CompressedBitmap)) {
+            // keep the bits that are in the other bitmap
+            CompressedBitmap result = new CompressedBitmap();
+            for (int bit = nextSetBit(0); bit >= 0; bit = nextSetBit(bit + 1)) {
+                if (other.get(bit)) {
+                    result.set(bit);
+                }
+            }
+            keys = result.keys;
+            containers = result.containers;
+            size = result.size;
+            return;
+        }
+        CompressedBitmap otherBitmap = (CompressedBitmap) other;
+        // merge the chunks with the same keys, in place
+        int newSize = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < otherBitmap.size) {
+            if (keys[i] < otherBitmap.keys[j]) {
+                i++;
+            } else if (keys[i] > otherBitmap.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(otherBitmap.containers[j]);
+                if (container != null) {
+                    keys[newSize] = keys[i];
+                    containers[newSize] = container;
+                    newSize++;
+                }
+                i++;
+                j++;
+            }
+        }
+        Arrays.fill(containers, newSize, size, null);
+        size = newSize;
+    }
+
+    @Override
+    public AbstractBitmap copy() {
+        Container[] newContainers = new Container[Math.max(size, 4)];
+        for (int i = 0; i < size; i++) {
+            newContainers[i] = containers[i].copy();
+        }
+        return new CompressedBitmap(Arrays.copyOf(keys, newContainers.length), newContainers, size);
+    }
+
+    @Override
+    public void optimize() {
+        for (int i = 0; i < size; i++) {
+            containers[i] = containers[i].optimize();
+        }
+        if (keys.length > size) {
+            keys = Arrays.copyOf(keys, Math.max(size, 1));
+            containers = Arrays.copyOf(containers, Math.max(size, 1));
+        }
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        long memory = 16 + 16 + 2L * keys.length + 16 + 4L * containers.length;
+        for (int i = 0; i < size; i++) {
+            memory += containers[i].getMemoryUsage();
+        }
+        return memory;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder("{");
+        for (int bit = nextSetBit(0); bit >= 0; bit = nextSetBit(bit + 1)) {
+            if (buffer.length() > 1) {
+                buffer.append(", ");
+            }
+            buffer.append(bit);
+        }
+        return buffer.append('}').toString();
+    }
+
+    /**
+     * The bits of a chunk of 65536 positions. A container is never empty.
+     */
+    abstract static class Container {
+
+        /**
+         * Set a bit to 1
+         *
+         * @param low the position in the chunk
+         * @return this container or a new container if the representation was changed
+         */
+        abstract Container add(char low);
+
+        /**
+         * Check if a bit is set to 1
+         *
+         * @param low the position in the chunk
+         * @return true if yes
+         */
+        abstract boolean contains(char low);
+
+        /**
+         * Get the position of the first bit set to 1 at a given position or after
+         *
+         * @param fromLow the position in the chunk (0 to 65535)
+         * @return the position of that bit or -1 if there is none
+         */
+        abstract int nextSetBit(int fromLow);
+
+        /**
+         * Get the number of bits set to 1
+         *
+         * @return the number of bits
+         */
+        abstract int cardinality();
+
+        /**
+         * Do a logical AND with another container. This container may be modified
+         * and the other container is not.
+         *
+         * @param other the other container
+         * @return the result or null if it is empty
+         */
+        abstract Container and(Container other);
+
+        /**
+         * Get a copy of this container
+         *
+         * @return the copy
+         */
+        abstract Container copy();
+
+        /**
+         * Get the container that represents the same bits with the least memory
+         *
+         * @return this container or a new container
+         */
+        abstract Container optimize();
+
+        /**
+         * Get an estimation of the memory used by this container
+         *
+         * @return the memory in bytes
+         */
+        abstract long getMemoryUsage();
+    }
+
+    /**
+     * A container that stores the sorted positions of the bits set to 1
+     */
+    static final class ArrayContainer extends Container {
+
+        /**
+         * the positions
+         */
+        char[] values;
+        /**
+         * the number of positions
+         */
+        int cardinality;
+
+        ArrayContainer() {
+            values = new char[4];
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char low) {
+            // the bits are often set in increasing order, so we check the end first
+            int index;
+            if (cardinality == 0 || values[cardinality - 1] < low) {
+                index = cardinality;
+            } else {
+                index = Arrays.binarySearch(values, 0, cardinality, low);
+                if (index >= 0) {
+                    return this;
+                }
+                index = -index - 1;
+            }
+            if (cardinality == ARRAY_MAX_SIZE) {
+                return toBitmapContainer().add(low);
+            }
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_MAX_SIZE));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        int nextSetBit(int fromLow) {
+            int index = Arrays.binarySearch(values, 0, cardinality, (char) fromLow);
+            if (index >= 0) {
+                return fromLow;
+            }
+            index = -index - 1;
+            return index < cardinality ? values[index] : -1;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            int newCardinality = 0;
+            if (other instanceof ArrayContainer) {
+                // intersection of two sorted arrays
+                ArrayContainer otherArray = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < otherArray.cardinality) {
+                    if (values[i] < otherArray.values[j]) {
+                        i++;
+                    } else if (values[i] > otherArray.values[j]) {
+                        j++;
+                    } else {
+                        values[newCardinality++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        values[newCardinality++] = values[i];
+                    }
+                }
+            }
+            cardinality = newCardinality;
+            return cardinality == 0 ? null : this;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        @Override
+        Container optimize() {
+            int runCount = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (i == 0 || values[i] != values[i - 1] + 1) {
+                    runCount++;
+                }
+            }
+            if (runCount * 2 < cardinality) {
+                return RunContainer.fromArray(this, runCount);
+            }
+            if (values.length > cardinality) {
+                values = Arrays.copyOf(values, cardinality);
+            }
+            return this;
+        }
+
+        @Override
+        long getMemoryUsage() {
+            return 16 + 4 + 16 + 2L * values.length;
+        }
+
+        /**
+         * Convert to a bitmap container
+         *
+         * @return the bitmap container
+         */
+        BitmapContainer toBitmapContainer() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.words[values[i] >>> 6] |= 1L << values[i];
+            }
+            bitmap.cardinality = cardinality;
+            return bitmap;
+        }
+    }
+
+    /**
+     * A container that stores the 65536 bits of a chunk
+     */
+    static final class BitmapContainer extends Container {
+
+        /**
+         * the bits
+         */
+        final long[] words;
+        /**
+         * the number of bits set to 1
+         */
+        int cardinality;
+
+        BitmapContainer() {
+            words = new long[1024];
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char low) {
+            long word = words[low >>> 6];
+            long newWord = word | (1L << low);
+            if (newWord != word) {
+                words[low >>> 6] = newWord;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        int nextSetBit(int fromLow) {
+            int index = fromLow >>> 6;
+            long word = words[index] & (-1L << fromLow);
+            while (word == 0) {
+                index++;
+                if (index == words.length) {
+                    return -1;
+                }
+                word = words[index];
+            }
+            return index * 64 + Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                // the result is not larger than the array
+                ArrayContainer otherArray = (ArrayContainer) other;
+                char[] values = new char[Math.max(otherArray.cardinality, 1)];
+                int newCardinality = 0;
+                for (int i = 0; i < otherArray.cardinality; i++) {
+                    if (contains(otherArray.values[i])) {
+                        values[newCardinality++] = otherArray.values[i];
+                    }
+                }
+                return newCardinality == 0 ? null : new ArrayContainer(values, newCardinality);
+            }
+            long[] otherWords = (other instanceof BitmapContainer) ? ((BitmapContainer) other).words
+                                                                   : ((RunContainer) other).toBitmapContainer().words;
+            int newCardinality = 0;
+            for (int i = 0; i < words.length; i++) {
+                words[i] &= otherWords[i];
+                newCardinality += Long.bitCount(words[i]);
+            }
+            cardinality = newCardinality;
+            if (cardinality == 0) {
+                return null;
+            }
+            return cardinality <= ARRAY_MAX_SIZE ? toArrayContainer() : this;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        Container optimize() {
+            // count the number of runs, i.e. the bits set to 1 that follow a bit set to 0
+            int runCount = 0;
+            long previousWord = 0;
+            for (long word : words) {
+                runCount += Long.bitCount(word & ~((word << 1) | (previousWord >>> 63)));
+                previousWord = word;
+            }
+            if (4L * runCount < 8L * words.length) {
+                return RunContainer.fromBitmap(this, runCount);
+            }
+            return this;
+        }
+
+        @Override
+        long getMemoryUsage() {
+            return 16 + 4 + 16 + 8L * words.length;
+        }
+
+        /**
+         * Convert to an array container
+         *
+         * @return the array container
+         */
+        ArrayContainer toArrayContainer() {
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+
+    /**
+     * A container that stores runs of consecutive bits set to 1, as pairs
+     * (first position, length - 1)
+     */
+    static final class RunContainer extends Container {
+
+        /**
+         * the runs: the first position of run i is at index 2*i and its length minus 1 at index 2*i+1
+         */
+        final char[] runs;
+        /**
+         * the number of runs
+         */
+        final int runCount;
+        /**
+         * the number of bits set to 1
+         */
+        final int cardinality;
+
+        RunContainer(char[] runs, int runCount, int cardinality) {
+            this.runs = runs;
+            this.runCount = runCount;
+            this.cardinality = cardinality;
+        }
+
+        /**
+         * Create a run container from an array container
+         *
+         * @param array    the array container
+         * @param runCount the number of runs in the array
+         * @return the run container
+         */
+        static RunContainer fromArray(ArrayContainer array, int runCount) {
+            char[] runs = new char[2 * runCount];
+            int run = -1;
+            for (int i = 0; i < array.cardinality; i++) {
+                if (i == 0 || array.values[i] != array.values[i - 1] + 1) {
+                    run++;
+                    runs[2 * run] = array.values[i];
+                } else {
+                    runs[2 * run + 1]++;
+                }
+            }
+            return new RunContainer(runs, runCount, array.cardinality);
+        }
+
+        /**
+         * Create a run container from a bitmap container
+         *
+         * @param bitmap   the bitmap container
+         * @param runCount the number of runs in the bitmap
+         * @return the run container
+         */
+        static RunContainer fromBitmap(BitmapContainer bitmap, int runCount) {
+            char[] runs = new char[2 * runCount];
+            int run = 0;
+            int start = bitmap.nextSetBit(0);
+            while (start >= 0) {
+                // find the end of the run (the next bit set to 0)
+                int end = start;
+                while (end + 1 < 65536 && bitmap.contains((char) (end + 1))) {
+                    end++;
+                }
+                runs[2 * run] = (char) start;
+                runs[2 * run + 1] = (char) (end - start);
+                run++;
+                start = end + 1 < 65536 ? bitmap.nextSetBit(end + 1) : -1;
+            }
+            return new RunContainer(runs, runCount, bitmap.cardinality);
+        }
+
+        /**
+         * Find the last run that starts at a position or before
+         *
+         * @param low the position
+         * @return the index of the run or -1 if there is none
+         */
+        private int findRun(int low) {
+            int first = 0;
+            int last = runCount - 1;
+            while (first <= last) {
+                int middle = (first + last) >>> 1;
+                if (runs[2 * middle] <= low) {
+                    first = middle + 1;
+                } else {
+                    last = middle - 1;
+                }
+            }
+            return last;
+        }
+
+        @Override
+        Container add(char low) {
+            if (contains(low)) {
+                return this;
+            }
+            Container container = cardinality < ARRAY_MAX_SIZE ? toArrayContainer() : toBitmapContainer();
+            return container.add(low);
+        }
+
+        @Override
+        boolean contains(char low) {
+            int run = findRun(low);
+            return run >= 0 && low <= runs[2 * run] + runs[2 * run + 1];
+        }
+
+        @Override
+        int nextSetBit(int fromLow) {
+            int run = findRun(fromLow);
+            if (run >= 0 && fromLow <= runs[2 * run] + runs[2 * run + 1]) {
+                return fromLow;
+            }
+            return run + 1 < runCount ? runs[2 * (run + 1)] : -1;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.copy().and(this);
+            }
+            Container container = cardinality <= ARRAY_MAX_SIZE ? toArrayContainer() : toBitmapContainer();
+            return container.and(other);
+        }
+
+        @Override
+        Container copy() {
+            // a run container is not modified
+            return this;
+        }
+
+        @Override
+        Container optimize() {
+            return this;
+        }
+
+        @Override
+        long getMemoryUsage() {
+            return 16 + 12 + 16 + 2L * runs.length;
+        }
+
+        /**
+         * Convert to an array container
+         *
+         * @return the array container
+         */
+        ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int count = 0;
+            for (int run = 0; run < runCount; run++) {
+                int start = runs[2 * run];
+                int end = start + runs[2 * run + 1];
+                for (int low = start; low <= end; low++) {
+                    values[count++] = (char) low;
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+
+        /**
+         * Convert to a bitmap container
+         *
+         * @return the bitmap container
+         */
+        BitmapContainer toBitmapContainer() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int run = 0; run < runCount; run++) {
+                int start = runs[2 * run];
+                int end = start + runs[2 * run + 1];
+                for (int low = start; low <= end; low++) {
+                    bitmap.words[low >>> 6] |= 1L << low;
+                }
+            }
+            bitmap.cardinality = cardinality;
+            return bitmap;
+        }
+    }
+}
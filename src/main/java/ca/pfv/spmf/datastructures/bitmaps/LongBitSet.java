@@ -0,0 +1,370 @@
+package ca.pfv.spmf.datastructures.bitmaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A set of bits stored in an array of words (long), like the BitSet class of Java.
+ * The difference is that the logical operations and the counting of bits are done
+ * by a BitSetKernel, which can process several words at the same time, and that the
+ * support of the intersection of two or three bitsets can be calculated without
+ * creating a new bitset (andCardinality). This is useful for algorithms that
+ * only need to create the tidset of an itemset if it is frequent.
+ *
+ * @author Philippe Fournier-Viger
+ * @see BitSetKernel
+ */
+public class LongBitSet implements Cloneable, Serializable {
+
+    /**
+     * serial version
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the kernel used for the operations on the words
+     */
+    private static final BitSetKernel KERNEL = BitSetKernel.getInstance();
+
+    /**
+     * the words (bit i is stored in the word i / 64)
+     */
+    private long[] words;
+
+    /**
+     * the number of words that are used. The words after are equal to 0,
+     * and the last word that is used is not 0.
+     */
+    private int wordsInUse;
+
+    /**
+     * Constructor
+     */
+    public LongBitSet() {
+        this(64);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param nbits the expected number of bits
+     */
+    public LongBitSet(int nbits) {
+        this.words = new long[wordIndex(Math.max(nbits, 1) - 1) + 1];
+    }
+
+    /**
+     * Private constructor used by the clone() method
+     *
+     * @param words      the words
+     * @param wordsInUse the number of words that are used
+     */
+    private LongBitSet(long[] words, int wordsInUse) {
+        this.words = words;
+        this.wordsInUse = wordsInUse;
+    }
+
+    /**
+     * Create a LongBitSet containing the same bits as a BitSet of Java
+     *
+     * @param bitset the BitSet
+     * @return the LongBitSet
+     */
+    public static LongBitSet valueOf(BitSet bitset) {
+        long[] words = bitset.toLongArray();
+        return new LongBitSet(words.length == 0 ? new long[1] : words, words.length);
+    }
+
+    /**
+     * Get the index of the word containing a bit
+     *
+     * @param bit the position of the bit
+     * @return the index
+     */
+    private static int wordIndex(int bit) {
+        return bit >> 6;
+    }
+
+    /**
+     * Set a bit to 1
+     *
+     * @param bit the position of the bit
+     */
+    public void set(int bit) {
+        int wordIndex = wordIndex(bit);
+        if (wordIndex >= wordsInUse) {
+            if (wordIndex >= words.length) {
+                words = Arrays.copyOf(words, Math.max(2 * words.length, wordIndex + 1));
+            }
+            wordsInUse = wordIndex + 1;
+        }
+        words[wordIndex] |= 1L << bit;
+    }
+
+    /**
+     * Set to 1 the bits from a position (inclusive) to another position (exclusive)
+     *
+     * @param fromBit the first position
+     * @param toBit   the position after the last position
+     */
+    public void set(int fromBit, int toBit) {
+        if (fromBit >= toBit) {
+            return;
+        }
+        // make sure that the last word exists
+        set(toBit - 1);
+        int startWord = wordIndex(fromBit);
+        int endWord = wordIndex(toBit - 1);
+        long firstWordMask = -1L << fromBit;
+        long lastWordMask = -1L >>> -toBit;
+        if (startWord == endWord) {
+            words[startWord] |= (firstWordMask & lastWordMask);
+        } else {
+            words[startWord] |= firstWordMask;
+            Arrays.fill(words, startWord + 1, endWord, -1L);
+            words[endWord] |= lastWordMask;
+        }
+    }
+
+    /**
+     * Set a bit to 0
+     *
+     * @param bit the position of the bit
+     */
+    public void clear(int bit) {
+        int wordIndex = wordIndex(bit);
+        if (wordIndex >= wordsInUse) {
+            return;
+        }
+        words[wordIndex] &= ~(1L << bit);
+        recalculateWordsInUse();
+    }
+
+    /**
+     * Check if a bit is set to 1
+     *
+     * @param bit the position of the bit
+     * @return true if yes
+     */
+    public boolean get(int bit) {
+        int wordIndex = wordIndex(bit);
+        return wordIndex < wordsInUse && (words[wordIndex] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Get the position of the first bit set to 1 that is at a given position or after
+     *
+     * @param fromBit the position where to start searching
+     * @return the position of that bit or -1 if there is none
+     */
+    public int nextSetBit(int fromBit) {
+        int wordIndex = wordIndex(fromBit);
+        if (wordIndex >= wordsInUse) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromBit);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex * 64) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == wordsInUse) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * Get the number of bits set to 1
+     *
+     * @return the number of bits
+     */
+    public int cardinality() {
+        return KERNEL.cardinality(words, wordsInUse);
+    }
+
+    /**
+     * Check if no bit is set to 1
+     *
+     * @return true if yes
+     */
+    public boolean isEmpty() {
+        return wordsInUse == 0;
+    }
+
+    /**
+     * Get the position of the last bit set to 1, plus one
+     *
+     * @return the position or 0 if the bitset is empty
+     */
+    public int length() {
+        if (wordsInUse == 0) {
+            return 0;
+        }
+        return 64 * (wordsInUse - 1) + (64 - Long.numberOfLeadingZeros(words[wordsInUse - 1]));
+    }
+
+    /**
+     * Get the number of bits that can be stored without using more memory
+     *
+     * @return the number of bits
+     */
+    public int size() {
+        return words.length * 64;
+    }
+
+    /**
+     * Do a logical AND with another bitset. This bitset is modified.
+     *
+     * @param other the other bitset
+     */
+    public void and(LongBitSet other) {
+        if (this == other) {
+            return;
+        }
+        if (wordsInUse > other.wordsInUse) {
+            Arrays.fill(words, other.wordsInUse, wordsInUse, 0L);
+            wordsInUse = other.wordsInUse;
+        }
+        KERNEL.and(words, other.words, wordsInUse);
+        recalculateWordsInUse();
+    }
+
+    /**
+     * Set to 0 the bits of this bitset that are set to 1 in another bitset.
+     * This bitset is modified.
+     *
+     * @param other the other bitset
+     */
+    public void andNot(LongBitSet other) {
+        KERNEL.andNot(words, other.words, Math.min(wordsInUse, other.wordsInUse));
+        recalculateWordsInUse();
+    }
+
+    /**
+     * Get the number of bits set to 1 in the logical AND of this bitset and another
+     * bitset, without creating a new bitset.
+     *
+     * @param other the other bitset
+     * @return the number of bits
+     */
+    public int andCardinality(LongBitSet other) {
+        return KERNEL.andCardinality(words, other.words, Math.min(wordsInUse, other.wordsInUse));
+    }
+
+    /**
+     * Get the number of bits set to 1 in the logical AND of this bitset and two other
+     * bitsets, without creating a new bitset.
+     *
+     * @param other the second bitset
+     * @param third the third bitset
+     * @return the number of bits
+     */
+    public int andCardinality(LongBitSet other, LongBitSet third) {
+        int length = Math.min(wordsInUse, Math.min(other.wordsInUse, third.wordsInUse));
+        return KERNEL.andCardinality(words, other.words, third.words, length);
+    }
+
+    /**
+     * Get a new bitset that is the logical AND of this bitset and another bitset.
+     * Both bitsets are not modified.
+     *
+     * @param other the other bitset
+     * @return the new bitset
+     */
+    public LongBitSet intersect(LongBitSet other) {
+        int length = Math.min(wordsInUse, other.wordsInUse);
+        LongBitSet result = new LongBitSet(Arrays.copyOf(words, Math.max(length, 1)), length);
+        KERNEL.and(result.words, other.words, length);
+        result.recalculateWordsInUse();
+        return result;
+    }
+
+    /**
+     * Update the number of words that are used, after some bits were set to 0
+     */
+    private void recalculateWordsInUse() {
+        int i = wordsInUse - 1;
+        while (i >= 0 && words[i] == 0) {
+            i--;
+        }
+        wordsInUse = i + 1;
+    }
+
+    /**
+     * Get a copy of this bitset as a BitSet of Java
+     *
+     * @return the BitSet
+     */
+    public BitSet toBitSet() {
+        return BitSet.valueOf(Arrays.copyOf(words, wordsInUse));
+    }
+
+    /**
+     * Get a copy of this bitset, that uses no more memory than needed.
+     *
+     * @return a copy
+     */
+    @Override
+    public LongBitSet clone() {
+        return new LongBitSet(Arrays.copyOf(words, Math.max(wordsInUse, 1)), wordsInUse);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LongBitSet)) {
+            return false;
+        }
+        LongBitSet other = (LongBitSet) obj;
+        return wordsInUse == other.wordsInUse
+               && Arrays.equals(words, 0, wordsInUse, other.words, 0, wordsInUse);
+    }
+
+    @Override
+    public int hashCode() {
+        // the same hash code as a BitSet with the same bits
+        long h = 1234;
+        for (int i = wordsInUse; --i >= 0; ) {
+            h ^= words[i] * (i + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    /**
+     * Get a string representation of this bitset, as for a BitSet
+     *
+     * @return a string
+     */
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder("{");
+        for (int bit = nextSetBit(0); bit >= 0; bit = nextSetBit(bit + 1)) {
+            if (buffer.length() > 1) {
+                buffer.append(", ");
+            }
+            buffer.append(bit);
+        }
+        return buffer.append('}').toString();
+    }
+}
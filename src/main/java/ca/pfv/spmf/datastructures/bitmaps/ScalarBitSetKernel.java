@@ -0,0 +1,74 @@
+package ca.pfv.spmf.datastructures.bitmaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The implementation of the operations on arrays of words that processes
+ * one word at a time. It can be used with any JVM.
+ *
+ * @author Philippe Fournier-Viger
+ * @see BitSetKernel
+ */
+class ScalarBitSetKernel extends BitSetKernel {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void and(long[] words, long[] other, int length) {
+        for (int i = 0; i < length; i++) {
+            words[i] &= other[i];
+        }
+    }
+
+    @Override
+    public void andNot(long[] words, long[] other, int length) {
+        for (int i = 0; i < length; i++) {
+            words[i] &= ~other[i];
+        }
+    }
+
+    @Override
+    public int cardinality(long[] words, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public int andCardinality(long[] words, long[] other, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(words[i] & other[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public int andCardinality(long[] words, long[] other, long[] third, int length) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            count += Long.bitCount(words[i] & other[i] & third[i]);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,126 @@
+package ca.pfv.spmf.datastructures.bitmaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The implementation of the operations on arrays of words that uses the Vector API
+ * of Java, so that several words are processed by each instruction. The words
+ * that remain at the end of an array (fewer than the number of words in a vector)
+ * are processed one at a time.
+ * <p>
+ * This class must only be loaded when the module jdk.incubator.vector is available
+ * (see BitSetKernel.getInstance()).
+ *
+ * @author Philippe Fournier-Viger
+ * @see BitSetKernel
+ */
+class VectorBitSetKernel extends BitSetKernel {
+
+    /**
+     * The largest vectors supported by the processor
+     */
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.length() + " words)";
+    }
+
+    @Override
+    public void and(long[] words, long[] other, int length) {
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, words, i)
+                    .and(LongVector.fromArray(SPECIES, other, i))
+                    .intoArray(words, i);
+        }
+        for (; i < length; i++) {
+            words[i] &= other[i];
+        }
+    }
+
+    @Override
+    public void andNot(long[] words, long[] other, int length) {
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, words, i)
+                    .lanewise(VectorOperators.AND_NOT, LongVector.fromArray(SPECIES, other, i))
+                    .intoArray(words, i);
+        }
+        for (; i < length; i++) {
+            words[i] &= ~other[i];
+        }
+    }
+
+    @Override
+    public int cardinality(long[] words, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            counts = counts.add(LongVector.fromArray(SPECIES, words, i)
+                    .lanewise(VectorOperators.BIT_COUNT));
+        }
+        int count = (int) counts.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public int andCardinality(long[] words, long[] other, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            counts = counts.add(LongVector.fromArray(SPECIES, words, i)
+                    .and(LongVector.fromArray(SPECIES, other, i))
+                    .lanewise(VectorOperators.BIT_COUNT));
+        }
+        int count = (int) counts.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            count += Long.bitCount(words[i] & other[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public int andCardinality(long[] words, long[] other, long[] third, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += SPECIES.length()) {
+            counts = counts.add(LongVector.fromArray(SPECIES, words, i)
+                    .and(LongVector.fromArray(SPECIES, other, i))
+                    .and(LongVector.fromArray(SPECIES, third, i))
+                    .lanewise(VectorOperators.BIT_COUNT));
+        }
+        int count = (int) counts.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            count += Long.bitCount(words[i] & other[i] & third[i]);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,83 @@
+package ca.pfv.spmf.datastructures.primitivemaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * This is the interface of a map from int keys to long values that does not box
+ * keys or values into objects, as used by data mining algorithms for counting the
+ * support or utility of items (e.g. in a first database scan).
+ * When a key is not in the map, its value is considered to be zero.
+ *
+ * @author Philippe Fournier-Viger
+ * @see IntLongMap
+ * @see DenseIntLongMap
+ */
+public interface AbstractIntLongMap {
+
+    /**
+     * Get the value associated to a key
+     *
+     * @param key the key
+     * @return the value or 0 if the key is not in the map
+     */
+    long get(int key);
+
+    /**
+     * Check if a key is in the map
+     *
+     * @param key the key
+     * @return true if yes
+     */
+    boolean containsKey(int key);
+
+    /**
+     * Associate a value to a key
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    void put(int key, long value);
+
+    /**
+     * Add an amount to the value of a key (if the key is not in the map, it is added with
+     * this amount as value)
+     *
+     * @param key    the key
+     * @param amount the amount
+     * @return the new value
+     */
+    long increment(int key, long amount);
+
+    /**
+     * Get the number of keys in the map
+     *
+     * @return the number of keys
+     */
+    int size();
+
+    /**
+     * Get the keys of the map (in no particular order)
+     *
+     * @return a new array containing the keys
+     */
+    int[] keys();
+
+    /**
+     * Remove all keys from the map
+     */
+    void clear();
+}
@@ -0,0 +1,138 @@
+package ca.pfv.spmf.datastructures.primitivemaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+import java.util.Arrays;
+
+/**
+ * This is a map from int keys to int values implemented as an array indexed by
+ * the keys. It is faster than IntIntMap but can only be used when keys are
+ * non negative and the largest key is small (e.g. the largest item of a database is known
+ * and is not too large). The array is enlarged if a larger key is added.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AbstractIntIntMap
+ * @see IntIntMap
+ */
+public class DenseIntIntMap implements AbstractIntIntMap {
+
+    // the value of each key
+    private int[] values;
+    // indicates if a key is in the map (one bit per key)
+    private long[] present;
+    // the number of keys
+    private int size = 0;
+
+    /**
+     * Constructor
+     *
+     * @param maxKey the largest key that is expected
+     */
+    public DenseIntIntMap(int maxKey) {
+        values = new int[maxKey + 1];
+        present = new long[(maxKey >>> 6) + 1];
+    }
+
+    /**
+     * Make sure that the arrays can store a key
+     *
+     * @param key the key
+     */
+    private void ensureCapacity(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("A DenseIntIntMap cannot store a negative key: " + key);
+        }
+        if (key >= values.length) {
+            int capacity = (int) Math.min(Math.max((long) key + 1, values.length * 2L), Integer.MAX_VALUE - 8);
+            values = Arrays.copyOf(values, capacity);
+            present = Arrays.copyOf(present, (capacity >>> 6) + 1);
+        }
+    }
+
+    public int get(int key) {
+        return (key >= 0 && key < values.length) ? values[key] : 0;
+    }
+
+    public boolean containsKey(int key) {
+        return key >= 0 && key < values.length && (present[key >>> 6] & (1L << key)) != 0;
+    }
+
+    public void put(int key, int value) {
+        ensureCapacity(key);
+        markPresent(key);
+        values[key] = value;
+    }
+
+    public int increment(int key, int amount) {
+        ensureCapacity(key);
+        markPresent(key);
+        return values[key] += amount;
+    }
+
+    /**
+     * Mark that a key is in the map
+     *
+     * @param key the key
+     */
+    private void markPresent(int key) {
+        long bit = 1L << key;
+        long word = present[key >>> 6];
+        if ((word & bit) == 0) {
+            present[key >>> 6] = word | bit;
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] keys() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int w = 0; w < present.length; w++) {
+            long word = present[w];
+            while (word != 0) {
+                result[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        Arrays.fill(present, 0L);
+        size = 0;
+    }
+
+    /**
+     * Get a string representation of this map (for debugging)
+     *
+     * @return a string
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder("{");
+        for (int key : keys()) {
+            if (buffer.length() > 1) {
+                buffer.append(", ");
+            }
+            buffer.append(key).append('=').append(get(key));
+        }
+        return buffer.append('}').toString();
+    }
+}
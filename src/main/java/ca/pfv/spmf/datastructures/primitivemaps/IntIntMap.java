@@ -0,0 +1,237 @@
+package ca.pfv.spmf.datastructures.primitivemaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+import java.util.Arrays;
+
+/**
+ * This is a map from int keys to int values implemented using open addressing
+ * (linear probing) in two arrays. Contrarily to a HashMap&lt;Integer, Integer&gt;,
+ * no object is created when a key is added or a value is incremented.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AbstractIntIntMap
+ * @see DenseIntIntMap
+ */
+public class IntIntMap implements AbstractIntIntMap {
+
+    /**
+     * the value used to mark an empty slot in the array of keys
+     */
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    /**
+     * the maximum load factor before the arrays are enlarged
+     */
+    private static final float LOAD_FACTOR = 0.6f;
+
+    // the keys and values (a slot is empty if its key is EMPTY)
+    private int[] keys;
+    private int[] values;
+    // the number of keys (not counting the key EMPTY)
+    private int size = 0;
+    // the number of keys that can be added before the arrays are enlarged
+    private int threshold;
+    // mask to compute a slot from a hash value (the capacity minus one)
+    private int mask;
+
+    // Because EMPTY is used to mark the empty slots, this key is stored separately
+    private boolean hasEmptyKey = false;
+    private int emptyKeyValue = 0;
+
+    /**
+     * Constructor
+     */
+    public IntIntMap() {
+        this(16);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize the expected number of keys
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Allocate the arrays for a given capacity
+     *
+     * @param capacity the capacity (a power of two)
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Get the first slot where a key should be searched
+     *
+     * @param key the key
+     * @return the slot
+     */
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Find the slot of a key
+     *
+     * @param key the key (not EMPTY)
+     * @return the slot containing the key or the empty slot where it should be inserted
+     */
+    private int find(int key) {
+        int slot = slot(key);
+        int current;
+        while ((current = keys[slot]) != EMPTY && current != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    public int get(int key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+        int slot = find(key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        if (key == EMPTY) {
+            return hasEmptyKey;
+        }
+        return keys[find(key)] != EMPTY;
+    }
+
+    public void put(int key, int value) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return;
+        }
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            slot = insert(key, slot);
+        }
+        values[slot] = value;
+    }
+
+    public int increment(int key, int amount) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            return emptyKeyValue += amount;
+        }
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            slot = insert(key, slot);
+        }
+        return values[slot] += amount;
+    }
+
+    /**
+     * Insert a new key in an empty slot (the arrays are enlarged if needed)
+     *
+     * @param key  the key
+     * @param slot the empty slot returned by find()
+     * @return the slot where the key was inserted
+     */
+    private int insert(int key, int slot) {
+        if (size >= threshold) {
+            rehash(keys.length << 1);
+            slot = find(key);
+        }
+        keys[slot] = key;
+        values[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Move all keys to larger arrays
+     *
+     * @param capacity the new capacity
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] keys() {
+        int[] result = new int[size];
+        int i = 0;
+        if (hasEmptyKey) {
+            result[i++] = EMPTY;
+        }
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasEmptyKey = false;
+        emptyKeyValue = 0;
+    }
+
+    /**
+     * Get a string representation of this map (for debugging)
+     *
+     * @return a string
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder("{");
+        for (int key : keys()) {
+            if (buffer.length() > 1) {
+                buffer.append(", ");
+            }
+            buffer.append(key).append('=').append(get(key));
+        }
+        return buffer.append('}').toString();
+    }
+}
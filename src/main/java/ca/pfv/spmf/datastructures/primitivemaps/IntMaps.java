@@ -0,0 +1,140 @@
+package ca.pfv.spmf.datastructures.primitivemaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This class offers methods to choose the implementation of a primitive map.
+ * A dense map (an array indexed by keys) is used when the largest key is small,
+ * and a map using open addressing is used otherwise.
+ *
+ * @author Philippe Fournier-Viger
+ * @see AbstractIntIntMap
+ * @see AbstractIntLongMap
+ */
+public class IntMaps {
+
+    /**
+     * the largest key for which a dense map may be used (4 M keys = 16 MB for int values)
+     */
+    public static final int DENSE_MAX_KEY = 1 << 22;
+
+    /**
+     * A dense map is used only if the largest key is not more than this factor times
+     * the number of keys (or not larger than 65536)
+     */
+    private static final int DENSITY_FACTOR = 64;
+
+    private IntMaps() {
+    }
+
+    /**
+     * Create a map from int to int for keys that are not larger than a given key
+     *
+     * @param maxKey the largest key that is expected or -1 if it is unknown
+     * @return a dense map if maxKey is small, otherwise a map using open addressing
+     */
+    public static AbstractIntIntMap newIntIntMap(int maxKey) {
+        if (maxKey >= 0 && maxKey <= DENSE_MAX_KEY) {
+            return new DenseIntIntMap(maxKey);
+        }
+        return new IntIntMap();
+    }
+
+    /**
+     * Create a map from int to long for keys that are not larger than a given key
+     *
+     * @param maxKey the largest key that is expected or -1 if it is unknown
+     * @return a dense map if maxKey is small, otherwise a map using open addressing
+     */
+    public static AbstractIntLongMap newIntLongMap(int maxKey) {
+        if (maxKey >= 0 && maxKey <= DENSE_MAX_KEY) {
+            return new DenseIntLongMap(maxKey);
+        }
+        return new IntLongMap();
+    }
+
+    /**
+     * Copy a map into a dense map if its keys are small and dense enough, because
+     * looking up keys is faster in a dense map. This is useful after a first database
+     * scan (where the largest item is not known in advance) if the map will then be used for
+     * many lookups.
+     *
+     * @param map a map
+     * @return a dense copy of the map, or the map itself
+     */
+    public static AbstractIntIntMap optimizeForLookups(AbstractIntIntMap map) {
+        if (map instanceof DenseIntIntMap) {
+            return map;
+        }
+        int[] keys = map.keys();
+        int maxKey = getMaxKeyIfDense(keys);
+        if (maxKey < 0) {
+            return map;
+        }
+        DenseIntIntMap dense = new DenseIntIntMap(maxKey);
+        for (int key : keys) {
+            dense.put(key, map.get(key));
+        }
+        return dense;
+    }
+
+    /**
+     * Copy a map into a dense map if its keys are small and dense enough, because
+     * looking up keys is faster in a dense map.
+     *
+     * @param map a map
+     * @return a dense copy of the map, or the map itself
+     */
+    public static AbstractIntLongMap optimizeForLookups(AbstractIntLongMap map) {
+        if (map instanceof DenseIntLongMap) {
+            return map;
+        }
+        int[] keys = map.keys();
+        int maxKey = getMaxKeyIfDense(keys);
+        if (maxKey < 0) {
+            return map;
+        }
+        DenseIntLongMap dense = new DenseIntLongMap(maxKey);
+        for (int key : keys) {
+            dense.put(key, map.get(key));
+        }
+        return dense;
+    }
+
+    /**
+     * Get the largest key if the keys can be stored in a dense map
+     *
+     * @param keys the keys
+     * @return the largest key or -1 if a dense map should not be used
+     */
+    private static int getMaxKeyIfDense(int[] keys) {
+        int maxKey = 0;
+        for (int key : keys) {
+            if (key < 0) {
+                return -1;
+            }
+            if (key > maxKey) {
+                maxKey = key;
+            }
+        }
+        if (maxKey > DENSE_MAX_KEY || (maxKey > 65536 && maxKey > (long) DENSITY_FACTOR * keys.length)) {
+            return -1;
+        }
+        return maxKey;
+    }
+}
@@ -0,0 +1,276 @@
+package ca.pfv.spmf.datastructures.primitivemaps;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+import java.util.Arrays;
+
+/**
+ * This is a map from long keys to int values implemented using open addressing
+ * (linear probing) in two arrays, like IntIntMap. It is used when a key combines
+ * two int values. Contrarily to a HashMap&lt;Long, Integer&gt;, no object is created
+ * when a key is added or a value is incremented.
+ *
+ * @author Philippe Fournier-Viger
+ * @see IntIntMap
+ */
+public class LongIntMap {
+
+    /**
+     * the value used to mark an empty slot in the array of keys
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    /**
+     * the maximum load factor before the arrays are enlarged
+     */
+    private static final float LOAD_FACTOR = 0.6f;
+
+    // the keys and values (a slot is empty if its key is EMPTY)
+    private long[] keys;
+    private int[] values;
+    // the number of keys (not counting the key EMPTY)
+    private int size = 0;
+    // the number of keys that can be added before the arrays are enlarged
+    private int threshold;
+    // mask to compute a slot from a hash value (the capacity minus one)
+    private int mask;
+
+    // Because EMPTY is used to mark the empty slots, this key is stored separately
+    private boolean hasEmptyKey = false;
+    private int emptyKeyValue = 0;
+
+    /**
+     * Constructor
+     */
+    public LongIntMap() {
+        this(16);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize the expected number of keys
+     */
+    public LongIntMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Allocate the arrays for a given capacity
+     *
+     * @param capacity the capacity (a power of two)
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Get the first slot where a key should be searched
+     *
+     * @param key the key
+     * @return the slot
+     */
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Find the slot of a key
+     *
+     * @param key the key (not EMPTY)
+     * @return the slot containing the key or the empty slot where it should be inserted
+     */
+    private int find(long key) {
+        int slot = slot(key);
+        long current;
+        while ((current = keys[slot]) != EMPTY && current != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Get the value associated to a key
+     *
+     * @param key the key
+     * @return the value or 0 if the key is not in the map
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+        int slot = find(key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    /**
+     * Check if a key is in the map
+     *
+     * @param key the key
+     * @return true if yes
+     */
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasEmptyKey;
+        }
+        return keys[find(key)] != EMPTY;
+    }
+
+    /**
+     * Associate a value to a key
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return;
+        }
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            slot = insert(key, slot);
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Add an amount to the value of a key (if the key is not in the map, it is added with
+     * this amount as value)
+     *
+     * @param key    the key
+     * @param amount the amount
+     * @return the new value
+     */
+    public int increment(long key, int amount) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            return emptyKeyValue += amount;
+        }
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            slot = insert(key, slot);
+        }
+        return values[slot] += amount;
+    }
+
+    /**
+     * Insert a new key in an empty slot (the arrays are enlarged if needed)
+     *
+     * @param key  the key
+     * @param slot the empty slot returned by find()
+     * @return the slot where the key was inserted
+     */
+    private int insert(long key, int slot) {
+        if (size >= threshold) {
+            rehash(keys.length << 1);
+            slot = find(key);
+        }
+        keys[slot] = key;
+        values[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Move all keys to larger arrays
+     *
+     * @param capacity the new capacity
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Get the number of keys in the map
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the keys of the map (in no particular order)
+     *
+     * @return a new array containing the keys
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int i = 0;
+        if (hasEmptyKey) {
+            result[i++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove all keys from the map
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasEmptyKey = false;
+        emptyKeyValue = 0;
+    }
+
+    /**
+     * Get a string representation of this map (for debugging)
+     *
+     * @return a string
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder("{");
+        for (long key : keys()) {
+            if (buffer.length() > 1) {
+                buffer.append(", ");
+            }
+            buffer.append(key).append('=').append(get(key));
+        }
+        return buffer.append('}').toString();
+    }
+}
@@ -0,0 +1,150 @@
+package ca.pfv.spmf.datastructures.topk;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * The candidates that are waiting to be extended by the threads of a top-k algorithm,
+ * where the most promising candidate (e.g. the one with the highest support) is
+ * always extended first.
+ * <p>
+ * A thread takes a candidate with take() and must call done() after extending it. When
+ * there is no candidate, take() waits until another thread adds a candidate, or returns
+ * null if no thread is extending a candidate anymore (the search is finished).
+ *
+ * @param <C> the type of candidates
+ * @author Philippe Fournier-Viger
+ */
+public class ConcurrentCandidateQueue<C> {
+
+    /**
+     * the candidates, the most promising first
+     */
+    private final PriorityQueue<C> candidates;
+
+    /**
+     * the number of candidates that are being extended
+     */
+    private int activeCount = 0;
+
+    /**
+     * the maximum number of candidates at the same time (for statistics)
+     */
+    private int maxSize = 0;
+
+    /**
+     * true if the search was stopped
+     */
+    private boolean stopped = false;
+
+    /**
+     * Constructor
+     *
+     * @param comparator a comparator where the most promising candidate is the smallest
+     */
+    public ConcurrentCandidateQueue(Comparator<? super C> comparator) {
+        this.candidates = new PriorityQueue<C>(11, comparator);
+    }
+
+    /**
+     * Add a candidate
+     *
+     * @param candidate the candidate
+     */
+    public synchronized void add(C candidate) {
+        candidates.add(candidate);
+        if (candidates.size() > maxSize) {
+            maxSize = candidates.size();
+        }
+        notify();
+    }
+
+    /**
+     * Take the most promising candidate, waiting if there is none and some other
+     * threads are extending candidates.
+     *
+     * @return the candidate or null if the search is finished
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized C take() throws InterruptedException {
+        while (candidates.isEmpty() && activeCount > 0 && !stopped) {
+            wait();
+        }
+        if (candidates.isEmpty() || stopped) {
+            // the search is finished, the other threads that wait are woken up
+            notifyAll();
+            return null;
+        }
+        activeCount++;
+        return candidates.poll();
+    }
+
+    /**
+     * Indicate that the thread has finished extending the candidate that it took
+     */
+    public synchronized void done() {
+        activeCount--;
+        if (activeCount == 0 && candidates.isEmpty()) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Remove the candidates that are not more promising than a candidate taken by a thread. This
+     * is done when that candidate cannot generate a top-k pattern, since these candidates cannot
+     * either. The candidates added by the other threads after it was taken may be more promising,
+     * and they are kept.
+     *
+     * @param candidate the candidate taken with take()
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void clearNotBetterThan(C candidate) {
+        Comparator<? super C> comparator = candidates.comparator();
+        Iterator<C> iterator = candidates.iterator();
+        while (iterator.hasNext()) {
+            C other = iterator.next();
+            int compare = comparator != null ? comparator.compare(other, candidate)
+                    : ((Comparable<? super C>) other).compareTo(candidate);
+            if (compare >= 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Stop the search, for example because a thread failed. The threads that call take()
+     * will receive null.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        candidates.clear();
+        notifyAll();
+    }
+
+    /**
+     * Get the maximum number of candidates at the same time (for statistics)
+     *
+     * @return the number of candidates
+     */
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+}
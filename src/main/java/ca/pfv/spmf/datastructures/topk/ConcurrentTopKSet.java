@@ -0,0 +1,206 @@
+package ca.pfv.spmf.datastructures.topk;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The set of the top-k patterns found until now by a top-k algorithm, that can be used
+ * by several threads at the same time without locks.
+ * <p>
+ * The patterns are kept in a skip list ordered by support. The minimum support,
+ * which is the support of the k-th pattern, is stored in an AtomicInteger given to the
+ * constructor. It is raised with compare-and-set each time that a pattern is added, so
+ * that the threads that read it can immediately prune the patterns that cannot be
+ * in the top-k anymore. It is never decreased.
+ * <p>
+ * The patterns having the same support are ordered by comparePatterns() (e.g. the lexical
+ * order of patterns), and the set keeps exactly the k best patterns in that order. Thus, the
+ * result does not depend on the order in which the threads add the patterns, and it is the same
+ * for each execution. Note that the original implementations of the top-k algorithms may keep
+ * more than k patterns when several patterns have the same support as the k-th pattern.
+ *
+ * @param <T> the type of patterns
+ * @author Philippe Fournier-Viger
+ */
+public abstract class ConcurrentTopKSet<T> {
+
+    /**
+     * the number of patterns to be found
+     */
+    private final int k;
+
+    /**
+     * the minimum support (shared with the algorithm)
+     */
+    private final AtomicInteger minsup;
+
+    /**
+     * the patterns, from the worst to the best: by support, and then in the reverse order of comparePatterns()
+     */
+    private final ConcurrentSkipListSet<Entry<T>> patterns = new ConcurrentSkipListSet<Entry<T>>(
+            new Comparator<Entry<T>>() {
+                @Override
+                public int compare(Entry<T> o1, Entry<T> o2) {
+                    int compare = Integer.compare(o1.support, o2.support);
+                    if (compare != 0) {
+                        return compare;
+                    }
+                    return comparePatterns(o2.pattern, o1.pattern);
+                }
+            });
+
+    /**
+     * the number of patterns in the skip list. A pattern is added to the skip list
+     * before this number is increased, and this number is decreased before a pattern is
+     * removed, so that the skip list always contains at least this number of patterns.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Constructor
+     *
+     * @param k      the number of patterns to be found
+     * @param minsup the minimum support, that will be raised by this set
+     */
+    public ConcurrentTopKSet(int k, AtomicInteger minsup) {
+        this.k = k;
+        this.minsup = minsup;
+    }
+
+    /**
+     * Get the support of a pattern
+     *
+     * @param pattern the pattern
+     * @return the support
+     */
+    protected abstract int getSupport(T pattern);
+
+    /**
+     * Compare two different patterns having the same support. The pattern that comes first
+     * is kept in the top-k set if only one of them can be kept.
+     *
+     * @param pattern1 a pattern
+     * @param pattern2 another pattern
+     * @return a negative value, zero or a positive value if the first pattern comes before, is
+     * the same as or comes after the second pattern
+     */
+    protected abstract int comparePatterns(T pattern1, T pattern2);
+
+    /**
+     * This method is called when a pattern is removed because it is not in the top-k anymore,
+     * after the minimum support was raised. It does nothing by default.
+     *
+     * @param pattern the pattern
+     */
+    protected void removed(T pattern) {
+    }
+
+    /**
+     * Add a pattern. It is ignored if its support is lower than the minimum support.
+     *
+     * @param pattern the pattern
+     */
+    public void add(T pattern) {
+        int support = getSupport(pattern);
+        if (support < minsup.get()) {
+            return;
+        }
+        if (!patterns.add(new Entry<T>(pattern, support))) {
+            // the pattern is already in the set
+            return;
+        }
+        size.incrementAndGet();
+
+        // remove the worst patterns until only k patterns are left. When a thread removes a pattern,
+        // the skip list contains more than k patterns, so the removed pattern is not in the top-k.
+        List<T> removedPatterns = null;
+        while (true) {
+            int count = size.get();
+            if (count <= k) {
+                break;
+            }
+            if (size.compareAndSet(count, count - 1)) {
+                if (removedPatterns == null) {
+                    removedPatterns = new ArrayList<T>();
+                }
+                removedPatterns.add(patterns.pollFirst().pattern);
+            }
+        }
+        if (size.get() >= k) {
+            // raise the minimum support to the lowest support in the top-k set
+            raiseMinsup(patterns.first().support);
+        }
+        if (removedPatterns != null) {
+            for (T removedPattern : removedPatterns) {
+                removed(removedPattern);
+            }
+        }
+    }
+
+    /**
+     * Raise the minimum support, if it is lower than a given value
+     *
+     * @param support the value
+     */
+    private void raiseMinsup(int support) {
+        int current = minsup.get();
+        while (support > current && !minsup.compareAndSet(current, support)) {
+            current = minsup.get();
+        }
+    }
+
+    /**
+     * Get the patterns of the top-k set, from the worst to the best. This should be called when no
+     * thread adds patterns anymore.
+     *
+     * @return the patterns
+     */
+    public List<T> getPatterns() {
+        List<T> result = new ArrayList<T>(size.get());
+        for (Entry<T> entry : patterns) {
+            result.add(entry.pattern);
+        }
+        return result;
+    }
+
+    /**
+     * A pattern with its support
+     *
+     * @param <T> the type of pattern
+     */
+    private static final class Entry<T> {
+        /**
+         * the pattern
+         */
+        final T pattern;
+        /**
+         * its support
+         */
+        final int support;
+
+        Entry(T pattern, int support) {
+            this.pattern = pattern;
+            this.support = support;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package ca.pfv.spmf.datastructures.utilitychain;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * The occurrences of a pattern in a sequence database with utilities, as used by
+ * high-utility sequential pattern mining algorithms. An occurrence is a position
+ * (e.g. an itemset) of a sequence where the pattern ends, with the utility of the
+ * pattern at that position. The occurrences are stored in arrays of int instead of
+ * one object per occurrence, and are grouped by sequence: the occurrences of a
+ * sequence are consecutive, and each group is called a segment.
+ * <p>
+ * The occurrences must be added sequence by sequence. A new segment is started when
+ * an occurrence is added for another sequence than the one of the last segment.
+ * A chain can be cleared and filled again without allocating memory, which is what
+ * a UtilityChainPool does.
+ *
+ * @author Philippe Fournier-Viger
+ * @see UtilityChainPool
+ */
+public class UtilityChain {
+
+    /**
+     * the sequence of each segment
+     */
+    private int[] sequences;
+
+    /**
+     * the position of the first occurrence of each segment
+     */
+    private int[] starts;
+
+    /**
+     * the number of segments
+     */
+    private int sequenceCount;
+
+    /**
+     * the position of each occurrence
+     */
+    private int[] positions;
+
+    /**
+     * the utility of the pattern at each occurrence
+     */
+    private int[] utilities;
+
+    /**
+     * the number of occurrences
+     */
+    private int size;
+
+    /**
+     * Constructor
+     */
+    public UtilityChain() {
+        this(8);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity the number of occurrences and of segments that can be stored before the arrays are enlarged
+     */
+    public UtilityChain(int capacity) {
+        capacity = Math.max(capacity, 1);
+        sequences = new int[capacity];
+        starts = new int[capacity];
+        positions = new int[capacity];
+        utilities = new int[capacity];
+    }
+
+    /**
+     * Add an occurrence at the end of the chain
+     *
+     * @param sequence the sequence (it cannot be smaller than the sequence of the last segment)
+     * @param position the position in the sequence
+     * @param utility  the utility of the pattern at that position
+     */
+    public void add(int sequence, int position, int utility) {
+        if (sequenceCount == 0 || sequences[sequenceCount - 1] != sequence) {
+            if (sequenceCount == sequences.length) {
+                sequences = Arrays.copyOf(sequences, sequenceCount * 2);
+                starts = Arrays.copyOf(starts, sequenceCount * 2);
+            }
+            sequences[sequenceCount] = sequence;
+            starts[sequenceCount] = size;
+            sequenceCount++;
+        }
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            utilities = Arrays.copyOf(utilities, size * 2);
+        }
+        positions[size] = position;
+        utilities[size] = utility;
+        size++;
+    }
+
+    /**
+     * Remove all the occurrences, keeping the arrays for the next occurrences
+     */
+    public void clear() {
+        size = 0;
+        sequenceCount = 0;
+    }
+
+    /**
+     * Get the number of segments (the number of sequences having an occurrence)
+     *
+     * @return the number of segments
+     */
+    public int getSequenceCount() {
+        return sequenceCount;
+    }
+
+    /**
+     * Get the sequence of a segment
+     *
+     * @param segment a segment
+     * @return the sequence
+     */
+    public int getSequence(int segment) {
+        return sequences[segment];
+    }
+
+    /**
+     * Get the first occurrence of a segment
+     *
+     * @param segment a segment
+     * @return the index of the occurrence
+     */
+    public int getStart(int segment) {
+        return starts[segment];
+    }
+
+    /**
+     * Get the end of a segment
+     *
+     * @param segment a segment
+     * @return the index of the occurrence after the last occurrence of the segment
+     */
+    public int getEnd(int segment) {
+        return segment + 1 < sequenceCount ? starts[segment + 1] : size;
+    }
+
+    /**
+     * Get the number of occurrences
+     *
+     * @return the number of occurrences
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the position of an occurrence
+     *
+     * @param index the index of the occurrence
+     * @return the position
+     */
+    public int getPosition(int index) {
+        return positions[index];
+    }
+
+    /**
+     * Get the utility of the pattern at an occurrence
+     *
+     * @param index the index of the occurrence
+     * @return the utility
+     */
+    public int getUtility(int index) {
+        return utilities[index];
+    }
+
+    /**
+     * Set the utility of the pattern at an occurrence
+     *
+     * @param index   the index of the occurrence
+     * @param utility the utility
+     */
+    public void setUtility(int index, int utility) {
+        utilities[index] = utility;
+    }
+
+    /**
+     * Get the sequence of the last occurrence
+     *
+     * @return the sequence, or -1 if the chain is empty
+     */
+    public int getLastSequence() {
+        return sequenceCount == 0 ? -1 : sequences[sequenceCount - 1];
+    }
+
+    /**
+     * Get the position of the last occurrence
+     *
+     * @return the position, or -1 if the chain is empty
+     */
+    public int getLastPosition() {
+        return size == 0 ? -1 : positions[size - 1];
+    }
+
+    /**
+     * Reduce the arrays to the number of occurrences and segments, for a chain that
+     * will be kept in memory and not modified anymore
+     */
+    public void trimToSize() {
+        sequences = Arrays.copyOf(sequences, Math.max(sequenceCount, 1));
+        starts = Arrays.copyOf(starts, Math.max(sequenceCount, 1));
+        positions = Arrays.copyOf(positions, Math.max(size, 1));
+        utilities = Arrays.copyOf(utilities, Math.max(size, 1));
+    }
+
+    /**
+     * Get a string representation of this chain (for debugging purposes)
+     *
+     * @return the string representation
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        for (int segment = 0; segment < sequenceCount; segment++) {
+            buffer.append("SEQ:").append(sequences[segment]);
+            for (int i = getStart(segment); i < getEnd(segment); i++) {
+                buffer.append(' ').append(positions[i]).append('[').append(utilities[i]).append(']');
+            }
+            buffer.append('\n');
+        }
+        return buffer.toString();
+    }
+}
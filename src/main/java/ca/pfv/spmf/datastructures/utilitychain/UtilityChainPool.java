@@ -0,0 +1,57 @@
+package ca.pfv.spmf.datastructures.utilitychain;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of utility chains for a depth-first search, with one chain per depth.
+ * When a pattern of depth d is extended, the chains of its extensions are built one
+ * after the other in the chain of depth d + 1, so that the arrays of this chain are
+ * reused for all the patterns of that depth instead of being allocated again. A chain
+ * is thus only valid until the next call to get() for the same depth.
+ * <p>
+ * A pool is not thread-safe: each thread exploring a part of the search space
+ * must have its own pool.
+ *
+ * @author Philippe Fournier-Viger
+ * @see UtilityChain
+ */
+public class UtilityChainPool {
+
+    /**
+     * the chain of each depth
+     */
+    private final List<UtilityChain> chains = new ArrayList<UtilityChain>();
+
+    /**
+     * Get the chain of a depth, after clearing it
+     *
+     * @param depth the depth
+     * @return an empty chain
+     */
+    public UtilityChain get(int depth) {
+        while (chains.size() <= depth) {
+            chains.add(new UtilityChain());
+        }
+        UtilityChain chain = chains.get(depth);
+        chain.clear();
+        return chain;
+    }
+}
@@ -2,12 +2,235 @@ package ca.pfv.spmf.experimental.iolayer;
 
 import java.io.IOException;
 
+/**
+ * A reader for files in the SPMF format. Besides reading a file line by line,
+ * a reader can read a file transaction by transaction, where each transaction
+ * is parsed into reusable int arrays (so that no String or Integer object is created
+ * for each item). Two formats of transactions are supported:
+ * <br/>
+ * - the standard format: "1 2 3"  (a list of items separated by spaces),<br/>
+ * - the utility format: "1 2 3:10:5 2 3" (items : transaction utility : item utilities).<br/>
+ * <br/>
+ * Lines that are empty or starting with '#', '%' or '@' are skipped by nextTransaction().
+ *
+ * @author Philippe Fournier-Viger
+ * @see SPMFTextFileReader
+ * @see SPMFMappedFileReader
+ */
 public abstract class AbstractSPMFReader extends AbstractIO {
 
+    /**
+     * the initial capacity of the buffers
+     */
+    private static final int INITIAL_BUFFER_SIZE = 64;
+
+    /**
+     * buffer storing the items of the current transaction (reused for each transaction)
+     */
+    protected int[] items = new int[INITIAL_BUFFER_SIZE];
+
+    /**
+     * buffer storing the item utilities of the current transaction (utility format only)
+     */
+    protected int[] utilities = new int[INITIAL_BUFFER_SIZE];
+
+    /**
+     * the number of items in the current transaction
+     */
+    protected int itemCount = 0;
+
+    /**
+     * the number of utility values in the current transaction
+     */
+    protected int utilityCount = 0;
+
+    /**
+     * the transaction utility of the current transaction (utility format only)
+     */
+    protected int transactionUtility = 0;
+
+    /**
+     * true if the current transaction is in the utility format
+     */
+    protected boolean hasUtilities = false;
+
     public AbstractSPMFReader(IOContext context) {
         super(context);
     }
 
     public abstract String readLine() throws IOException;
 
-}
\ No newline at end of file
+    /**
+     * Read the next transaction of the file. Lines that are empty, comments or metadata
+     * are skipped. After this method returns true, the content of the transaction
+     * can be obtained using getItems(), getItemCount(), getUtilities() and getTransactionUtility().
+     * The default implementation reads the file line by line. Subclasses may override it
+     * to parse the transaction without creating a String.
+     *
+     * @return true if a transaction was read, or false if the end of the file is reached.
+     * @throws IOException if error while reading the file
+     */
+    public boolean nextTransaction() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            // if the line is  a comment, is  empty or is a
+            // kind of metadata
+            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
+                || line.charAt(0) == '@') {
+                if (!line.isEmpty() && line.charAt(0) == '@') {
+                    context.addMetadataLine(line);
+                }
+                continue;
+            }
+            parseTransaction(line);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parse a line containing a transaction into the buffers of this reader.
+     *
+     * @param line the line
+     */
+    protected void parseTransaction(CharSequence line) {
+        itemCount = 0;
+        utilityCount = 0;
+        transactionUtility = 0;
+        hasUtilities = false;
+
+        // 0 = items, 1 = transaction utility, 2 = item utilities
+        int section = 0;
+        int value = 0;
+        boolean negative = false;
+        boolean inNumber = false;
+        int length = line.length();
+        for (int i = 0; i <= length; i++) {
+            char c = (i == length) ? ' ' : line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                inNumber = true;
+            } else if (c == '-' && !inNumber) {
+                negative = true;
+            } else if (c == ' ' || c == ':' || c == '\t' || c == '\r') {
+                if (inNumber) {
+                    storeValue(section, negative ? -value : value);
+                }
+                value = 0;
+                negative = false;
+                inNumber = false;
+                if (c == ':') {
+                    section++;
+                    hasUtilities = true;
+                }
+            } else {
+                throw new NumberFormatException("Invalid character '" + c + "' in line: " + line);
+            }
+        }
+    }
+
+    /**
+     * Store a value parsed from a transaction in the appropriate buffer.
+     *
+     * @param section the section of the line (0 = items, 1 = transaction utility, 2 = utilities)
+     * @param value   the value
+     */
+    protected final void storeValue(int section, int value) {
+        if (section == 0) {
+            if (itemCount == items.length) {
+                items = grow(items);
+            }
+            items[itemCount++] = value;
+        } else if (section == 1) {
+            transactionUtility = value;
+        } else {
+            if (utilityCount == utilities.length) {
+                utilities = grow(utilities);
+            }
+            utilities[utilityCount++] = value;
+        }
+    }
+
+    /**
+     * Double the size of an array
+     *
+     * @param array the array
+     * @return a new array containing the same values
+     */
+    private static int[] grow(int[] array) {
+        int[] newArray = new int[array.length * 2];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    /**
+     * Get the items of the current transaction. Note that the array is reused
+     * for the next transaction and only the first getItemCount() positions are valid.
+     *
+     * @return the buffer of items
+     */
+    public int[] getItems() {
+        return items;
+    }
+
+    /**
+     * Get the number of items in the current transaction
+     *
+     * @return the number of items
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Get the item utilities of the current transaction (utility format only).
+     * Note that the array is reused for the next transaction and only the first
+     * getItemCount() positions are valid.
+     *
+     * @return the buffer of utilities
+     */
+    public int[] getUtilities() {
+        return utilities;
+    }
+
+    /**
+     * Get the transaction utility of the current transaction (utility format only)
+     *
+     * @return the transaction utility
+     */
+    public int getTransactionUtility() {
+        return transactionUtility;
+    }
+
+    /**
+     * Check if the current transaction has utility information (the ':' separated format)
+     *
+     * @return true if yes
+     */
+    public boolean hasUtilities() {
+        return hasUtilities;
+    }
+
+    /**
+     * Get a copy of the items of the current transaction
+     *
+     * @return a new array
+     */
+    public int[] copyItems() {
+        int[] copy = new int[itemCount];
+        System.arraycopy(items, 0, copy, 0, itemCount);
+        return copy;
+    }
+
+    /**
+     * Get a copy of the item utilities of the current transaction
+     *
+     * @return a new array
+     */
+    public int[] copyUtilities() {
+        int[] copy = new int[utilityCount];
+        System.arraycopy(utilities, 0, copy, 0, utilityCount);
+        return copy;
+    }
+
+}
@@ -1,9 +1,84 @@
 package ca.pfv.spmf.experimental.iolayer;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The context of an object that reads or writes files through the IO layer.
+ * It stores the settings used by readers and writers and the metadata lines ('@')
+ * that have been read (if the user asked to keep them).
+ */
 public class IOContext {
 
+    /**
+     * the default size of the region of a file that is memory-mapped at once (256 MB)
+     */
+    public static final int DEFAULT_MAPPED_WINDOW_SIZE = 1 << 28;
+
+    /**
+     * the size of the region of a file that is memory-mapped at once
+     */
+    private int mappedWindowSize = DEFAULT_MAPPED_WINDOW_SIZE;
+
+    /**
+     * if true, the metadata lines that are read are kept in memory
+     */
+    private boolean keepMetadata = false;
+
+    /**
+     * the metadata lines that have been read (if keepMetadata is true)
+     */
+    private final List<String> metadataLines = new ArrayList<String>();
+
     public IOContext() {
 
     }
 
+    /**
+     * Get the size of the region of a file that is memory-mapped at once
+     *
+     * @return the size in bytes
+     */
+    public int getMappedWindowSize() {
+        return mappedWindowSize;
+    }
+
+    /**
+     * Set the size of the region of a file that is memory-mapped at once
+     *
+     * @param mappedWindowSize the size in bytes
+     */
+    public void setMappedWindowSize(int mappedWindowSize) {
+        this.mappedWindowSize = mappedWindowSize;
+    }
+
+    /**
+     * Set whether the metadata lines ('@') should be kept in memory when they are read
+     *
+     * @param keepMetadata true to keep them
+     */
+    public void setKeepMetadata(boolean keepMetadata) {
+        this.keepMetadata = keepMetadata;
+    }
+
+    /**
+     * Record a metadata line that has been read (if metadata should be kept)
+     *
+     * @param line the line
+     */
+    void addMetadataLine(String line) {
+        if (keepMetadata) {
+            metadataLines.add(line);
+        }
+    }
+
+    /**
+     * Get the metadata lines that have been read
+     *
+     * @return the list of lines
+     */
+    public List<String> getMetadataLines() {
+        return metadataLines;
+    }
+
 }
@@ -26,6 +26,23 @@ public class IOManager {
         return new SPMFTextFileReader(context, inputPath);
     }
 
+    /**
+     * Get a reader that reads a file using a memory-mapped buffer and parses transactions
+     * directly from bytes (see SPMFMappedFileReader).
+     *
+     * @param o         the object that requests the reader
+     * @param inputPath the path of the file
+     * @return the reader
+     * @throws IOException if error while opening the file
+     */
+    public SPMFMappedFileReader getNewMappedReader(Object o, String inputPath) throws IOException {
+        IOContext context = getOrCreateContext(o);
+
+        printDebugLine("===== IOManager: Get mapped reader for context === " + o);
+
+        return new SPMFMappedFileReader(context, inputPath);
+    }
+
     public AbstractSPMFWriter getNewWriter(Object o, String outputPath) throws IOException {
         IOContext context = getOrCreateContext(o);
 
@@ -0,0 +1,141 @@
+package ca.pfv.spmf.experimental.iolayer;
+
+import java.io.*;
+import java.util.Random;
+
+/**
+ * A small benchmark comparing the way that most algorithms of SPMF read a transaction
+ * database (BufferedReader.readLine() + String.split() + Integer.parseInt()) with
+ * the readers of the IO layer. Like with JMH, each method is first run several times to warm up the
+ * JIT compiler and then the average time of several measured runs is reported.
+ * A checksum of the items is computed so that the reading cannot be optimized away.
+ * <br/><br/>
+ * Usage: MainTestIOLayerBenchmark [file]   (if no file is given, a random file is generated)
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestIOLayerBenchmark {
+
+    /**
+     * number of runs to warm up the JIT
+     */
+    static final int WARMUP_ITERATIONS = 3;
+
+    /**
+     * number of measured runs
+     */
+    static final int MEASURED_ITERATIONS = 5;
+
+    public static void main(String[] args) throws IOException {
+        String input;
+        if (args.length > 0) {
+            input = args[0];
+        } else {
+            // generate a random transaction database of 500,000 transactions
+            File file = File.createTempFile("spmf_benchmark", ".txt");
+            file.deleteOnExit();
+            generateDatabase(file, 500000, 1000, 20);
+            input = file.getPath();
+        }
+        long size = new File(input).length();
+        System.out.println("File: " + input + " (" + (size / 1024 / 1024) + " MB)");
+
+        benchmark("BufferedReader + split + parseInt", input, size, 0);
+        benchmark("SPMFTextFileReader.nextTransaction", input, size, 1);
+        benchmark("SPMFMappedFileReader.nextTransaction", input, size, 2);
+    }
+
+    /**
+     * Run a benchmark for a given method of reading a file
+     *
+     * @param name   the name of the method
+     * @param input  the input file
+     * @param size   the size of the file
+     * @param method the method (0 = readLine/split, 1 = text reader, 2 = mapped reader)
+     * @throws IOException if error while reading the file
+     */
+    private static void benchmark(String name, String input, long size, int method) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            read(input, method);
+        }
+        long checksum = 0;
+        long totalTime = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            checksum = read(input, method);
+            totalTime += System.nanoTime() - start;
+        }
+        double averageMs = totalTime / 1000000d / MEASURED_ITERATIONS;
+        double throughput = (size / 1024d / 1024d) / (averageMs / 1000d);
+        System.out.println(String.format(" %-40s avg: %10.2f ms   %8.1f MB/s   (checksum %d)",
+                                         name, averageMs, throughput, checksum));
+    }
+
+    /**
+     * Read a file using a given method and return the sum of all items
+     *
+     * @param input  the input file
+     * @param method the method (0 = readLine/split, 1 = text reader, 2 = mapped reader)
+     * @return the sum of all items
+     * @throws IOException if error while reading the file
+     */
+    private static long read(String input, int method) throws IOException {
+        long sum = 0;
+        if (method == 0) {
+            BufferedReader reader = new BufferedReader(new FileReader(input));
+            String line;
+            while (((line = reader.readLine()) != null)) {
+                if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
+                    || line.charAt(0) == '@') {
+                    continue;
+                }
+                for (String itemString : line.split(" ")) {
+                    sum += Integer.parseInt(itemString);
+                }
+            }
+            reader.close();
+        } else {
+            AbstractSPMFReader reader = (method == 1) ?
+                                        new SPMFTextFileReader(new IOContext(), input)
+                                        : new SPMFMappedFileReader(input);
+            while (reader.nextTransaction()) {
+                int[] items = reader.getItems();
+                for (int i = 0; i < reader.getItemCount(); i++) {
+                    sum += items[i];
+                }
+            }
+            reader.close();
+        }
+        return sum;
+    }
+
+    /**
+     * Generate a random transaction database
+     *
+     * @param file               the output file
+     * @param transactionCount   the number of transactions
+     * @param itemCount          the number of distinct items
+     * @param maxTransactionSize the maximum number of items per transaction
+     * @throws IOException if error while writing the file
+     */
+    private static void generateDatabase(File file, int transactionCount, int itemCount,
+                                         int maxTransactionSize) throws IOException {
+        Random random = new Random(0);
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+        writer.write("@CONVERTED_FROM_TEXT");
+        writer.newLine();
+        for (int i = 0; i < transactionCount; i++) {
+            int size = 1 + random.nextInt(maxTransactionSize);
+            int item = 0;
+            for (int j = 0; j < size; j++) {
+                item += 1 + random.nextInt(itemCount / maxTransactionSize);
+                if (j > 0) {
+                    writer.write(' ');
+                }
+                writer.write(Integer.toString(item));
+            }
+            writer.newLine();
+        }
+        writer.close();
+    }
+}
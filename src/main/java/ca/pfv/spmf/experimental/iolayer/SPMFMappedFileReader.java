@@ -0,0 +1,372 @@
+package ca.pfv.spmf.experimental.iolayer;
+
+import ca.pfv.spmf.input.binary_database.BinaryDatabaseFile;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reader for files in the SPMF format that is backed by a memory-mapped file
+ * (FileChannel and MappedByteBuffer). Transactions are parsed directly from the bytes
+ * of the file into the reusable int buffers of the reader, so that reading a transaction
+ * does not create any String or Integer object.
+ * <br/><br/>
+ * Because a MappedByteBuffer cannot map more than 2 GB, the file is mapped
+ * by windows of IOContext.getMappedWindowSize() bytes. When a line crosses the end
+ * of a window, the next window is mapped starting from the beginning of that line.
+ * <br/><br/>
+ * If the file is in the binary format of SPMF (see BinaryDatabaseFile), the transactions
+ * are copied from the binary file instead of being parsed. Thus, the algorithms using
+ * this reader accept both text and binary files.
+ * <br/><br/>
+ * Example of use:
+ * <pre>
+ * SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+ * while (reader.nextTransaction()) {
+ *     int[] items = reader.getItems();
+ *     for (int i = 0; i &lt; reader.getItemCount(); i++) {
+ *         ... items[i] ...
+ *     }
+ * }
+ * reader.close();
+ * </pre>
+ *
+ * @author Philippe Fournier-Viger
+ * @see AbstractSPMFReader
+ */
+public class SPMFMappedFileReader extends AbstractSPMFReader {
+
+    /**
+     * the file
+     */
+    private final RandomAccessFile file;
+
+    /**
+     * the channel of the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * the size of the file in bytes
+     */
+    private final long fileSize;
+
+    /**
+     * the size of the windows that are mapped
+     */
+    private int windowSize;
+
+    /**
+     * the current window
+     */
+    private MappedByteBuffer buffer = null;
+
+    /**
+     * the position of the current window in the file
+     */
+    private long bufferStart = 0;
+
+    /**
+     * the current position in the window
+     */
+    private int position = 0;
+
+    /**
+     * the start and end (exclusive) of the current line in the window
+     */
+    private int lineStart;
+    private int lineEnd;
+
+    /**
+     * the binary database if the file is in the binary format, otherwise null
+     */
+    private BinaryDatabaseFile binaryDatabase = null;
+
+    /**
+     * the next record to be read from the binary database
+     */
+    private int binaryRecord = 0;
+
+    /**
+     * a buffer to convert a line to a String (only used by readLine())
+     */
+    private byte[] lineBuffer = new byte[256];
+
+    /**
+     * Constructor
+     *
+     * @param input the path of the file to be read
+     * @throws IOException if error while opening the file
+     */
+    public SPMFMappedFileReader(String input) throws IOException {
+        this(new IOContext(), input);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param context the IO context
+     * @param input   the path of the file to be read
+     * @throws IOException if error while opening the file
+     */
+    SPMFMappedFileReader(IOContext context, String input) throws IOException {
+        super(context);
+        file = new RandomAccessFile(input, "r");
+        channel = file.getChannel();
+        fileSize = channel.size();
+        windowSize = context.getMappedWindowSize();
+        mapWindow(0);
+        // check if the file is in the binary format
+        if (fileSize >= BinaryDatabaseFile.HEADER_SIZE && buffer.getInt(0) == BinaryDatabaseFile.MAGIC) {
+            binaryDatabase = new BinaryDatabaseFile(input);
+        }
+    }
+
+    /**
+     * Map a window of the file
+     *
+     * @param start the position in the file where the window starts
+     * @throws IOException if error while mapping the file
+     */
+    private void mapWindow(long start) throws IOException {
+        long size = Math.min(windowSize, fileSize - start);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        bufferStart = start;
+        position = 0;
+    }
+
+    /**
+     * Find the next line of the file. After this method returns true,
+     * the line is located between lineStart (inclusive) and lineEnd (exclusive) in
+     * the current window, without the end of line characters.
+     *
+     * @return true if there is a line, or false if the end of the file is reached
+     * @throws IOException if error while reading the file
+     */
+    private boolean nextLine() throws IOException {
+        while (true) {
+            int limit = buffer.limit();
+            if (position >= limit && bufferStart + limit >= fileSize) {
+                return false;
+            }
+            int i = position;
+            while (i < limit && buffer.get(i) != '\n') {
+                i++;
+            }
+            if (i < limit || bufferStart + limit >= fileSize) {
+                // the line is complete in this window
+                lineStart = position;
+                lineEnd = i;
+                position = i + 1;
+                if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                return true;
+            }
+            // The line crosses the end of the window: we map the next window from the
+            // start of this line. If the line is larger than a window, the window is enlarged.
+            if (position == 0) {
+                if (windowSize > Integer.MAX_VALUE / 2) {
+                    throw new IOException("A line of the file is too large to be mapped in memory");
+                }
+                windowSize *= 2;
+            }
+            mapWindow(bufferStart + position);
+        }
+    }
+
+    /**
+     * Read the next line of the file as a String
+     *
+     * @return the line or null if the end of the file is reached
+     * @throws IOException if error while reading the file
+     */
+    public String readLine() throws IOException {
+        if (binaryDatabase != null) {
+            throw new IOException("The file is a binary database. It cannot be read line by line.");
+        }
+        if (!nextLine()) {
+            return null;
+        }
+        int length = lineEnd - lineStart;
+        if (length > lineBuffer.length) {
+            lineBuffer = new byte[Math.max(length, lineBuffer.length * 2)];
+        }
+        buffer.get(lineStart, lineBuffer, 0, length);
+        return new String(lineBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read the next transaction of the file by parsing the bytes of the file directly.
+     * The end of the line and the items are found in a single pass over the bytes.
+     *
+     * @return true if a transaction was read, or false if the end of the file is reached.
+     * @throws IOException if error while reading the file
+     */
+    @Override
+    public boolean nextTransaction() throws IOException {
+        if (binaryDatabase != null) {
+            return nextBinaryRecord();
+        }
+        while (true) {
+            int limit = buffer.limit();
+            if (position >= limit) {
+                if (bufferStart + limit >= fileSize) {
+                    return false;
+                }
+                mapWindow(bufferStart + position);
+                continue;
+            }
+            // if the line is  a comment, is  empty or is a
+            // kind of metadata, we skip it
+            byte first = buffer.get(position);
+            if (first == '\n' || first == '\r' || first == '#' || first == '%' || first == '@') {
+                nextLine();
+                if (first == '@') {
+                    int length = lineEnd - lineStart;
+                    byte[] bytes = new byte[length];
+                    buffer.get(lineStart, bytes, 0, length);
+                    context.addMetadataLine(new String(bytes, StandardCharsets.UTF_8));
+                }
+                continue;
+            }
+            if (parseTransaction()) {
+                return true;
+            }
+            // The line crosses the end of the window: we map the next window from the
+            // start of this line. If the line is larger than a window, the window is enlarged.
+            if (position == 0) {
+                if (windowSize > Integer.MAX_VALUE / 2) {
+                    throw new IOException("A line of the file is too large to be mapped in memory");
+                }
+                windowSize *= 2;
+            }
+            mapWindow(bufferStart + position);
+        }
+    }
+
+    /**
+     * Parse the line starting at the current position as a transaction into the buffers of this reader.
+     *
+     * @return true if the line was parsed, or false if the end of the window was reached
+     * before the end of the line (the position is then left unchanged).
+     */
+    private boolean parseTransaction() {
+        itemCount = 0;
+        utilityCount = 0;
+        transactionUtility = 0;
+        hasUtilities = false;
+
+        final MappedByteBuffer buffer = this.buffer;
+        final int limit = buffer.limit();
+        final boolean lastWindow = bufferStart + limit >= fileSize;
+        // 0 = items, 1 = transaction utility, 2 = item utilities
+        int section = 0;
+        int value = 0;
+        boolean negative = false;
+        boolean inNumber = false;
+        int i = position;
+        while (true) {
+            byte c;
+            if (i < limit) {
+                c = buffer.get(i);
+            } else if (lastWindow) {
+                // the last line of the file does not end with a new line
+                c = '\n';
+            } else {
+                return false;
+            }
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                inNumber = true;
+            } else if (c == ' ' || c == ':' || c == '\t' || c == '\r' || c == '\n') {
+                if (inNumber) {
+                    storeValue(section, negative ? -value : value);
+                }
+                if (c == '\n') {
+                    position = i + 1;
+                    return true;
+                }
+                value = 0;
+                negative = false;
+                inNumber = false;
+                if (c == ':') {
+                    section++;
+                    hasUtilities = true;
+                }
+            } else if (c == '-' && !inNumber) {
+                negative = true;
+            } else {
+                throw new NumberFormatException("Invalid character '" + (char) c
+                                                + "' at byte " + (bufferStart + i) + " of the file");
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Read the next record of a binary database into the buffers of this reader.
+     * For a sequence database, a -2 is added at the end of the record, as in the text format.
+     *
+     * @return true if a record was read, or false if the end of the file is reached.
+     */
+    private boolean nextBinaryRecord() {
+        if (binaryRecord >= binaryDatabase.getRecordCount()) {
+            return false;
+        }
+        int length = binaryDatabase.getRecordEnd(binaryRecord) - binaryDatabase.getRecordStart(binaryRecord) + 1;
+        if (items.length < length) {
+            items = new int[length * 2];
+        }
+        itemCount = binaryDatabase.copyRecord(binaryRecord, items);
+        if (binaryDatabase.isSequenceDatabase()) {
+            items[itemCount++] = -2;
+        }
+        hasUtilities = binaryDatabase.hasUtilities();
+        if (hasUtilities) {
+            if (utilities.length < length) {
+                utilities = new int[length * 2];
+            }
+            utilityCount = binaryDatabase.copyRecordUtilities(binaryRecord, utilities);
+            transactionUtility = binaryDatabase.getRecordUtility(binaryRecord);
+        } else {
+            utilityCount = 0;
+            transactionUtility = 0;
+        }
+        binaryRecord++;
+        return true;
+    }
+
+    /**
+     * Go back to the beginning of the file, so that it can be read again
+     * (e.g. for a second database scan).
+     *
+     * @throws IOException if error while mapping the file
+     */
+    public void rewind() throws IOException {
+        binaryRecord = 0;
+        if (bufferStart == 0) {
+            position = 0;
+        } else {
+            mapWindow(0);
+        }
+    }
+
+    /**
+     * Get the size of the file
+     *
+     * @return the size in bytes
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    protected void doClose() throws IOException {
+        buffer = null;
+        channel.close();
+        file.close();
+    }
+}
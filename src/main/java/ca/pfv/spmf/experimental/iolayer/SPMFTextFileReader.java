@@ -17,6 +17,5 @@ public class SPMFTextFileReader extends AbstractSPMFReader {
 
     public void doClose() throws IOException {
         myInput.close();
-        System.out.println("reader close");
     }
 }
@@ -0,0 +1,158 @@
+package ca.pfv.spmf.experiments.jobserver;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A request to run an algorithm, sent to the job server. In JSON, a request looks like:
+ * <pre>
+ * {"algorithm": "Apriori", "input": "/data/contextPasquier99.txt", "output": "/tmp/output.txt",
+ *  "parameters": ["40%"], "timeout": 60000, "maxMemory": 2048}
+ * </pre>
+ * The input and output are the same as for the command "run" of SPMF. The timeout (in milliseconds)
+ * and the memory limit (in megabytes) are optional (0 means that the limit of the server is used).
+ *
+ * @author Philippe Fournier-Viger
+ * @see SPMFJobServer
+ */
+public class JobRequest {
+
+    /**
+     * the name of the algorithm
+     */
+    String algorithm;
+    /**
+     * the input file path (or null)
+     */
+    String input;
+    /**
+     * the output file path (or null)
+     */
+    String output;
+    /**
+     * the parameters of the algorithm
+     */
+    String[] parameters = new String[0];
+    /**
+     * the maximum time for running the job in milliseconds (0 = the limit of the server)
+     */
+    long timeout = 0;
+    /**
+     * the maximum memory in megabytes (0 = the limit of the server)
+     */
+    long maxMemory = 0;
+
+    /**
+     * Constructor
+     *
+     * @param algorithm  the name of the algorithm
+     * @param input      the input file path (or null)
+     * @param output     the output file path (or null)
+     * @param parameters the parameters of the algorithm
+     */
+    public JobRequest(String algorithm, String input, String output, String... parameters) {
+        this.algorithm = algorithm;
+        this.input = input;
+        this.output = output;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Set the maximum time for running the job
+     *
+     * @param timeout the time in milliseconds (0 = the limit of the server)
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Set the maximum amount of memory that the job may use
+     *
+     * @param maxMemory the memory in megabytes (0 = the limit of the server)
+     */
+    public void setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Create a request from a JSON object
+     *
+     * @param json the JSON text
+     * @return the request
+     * @throws IllegalArgumentException if the JSON text is not a valid request
+     */
+    public static JobRequest fromJSON(String json) {
+        Map<String, Object> object = SimpleJSON.parseObject(json);
+        Object algorithm = object.get("algorithm");
+        if (!(algorithm instanceof String)) {
+            throw new IllegalArgumentException("The name of the algorithm is missing");
+        }
+        JobRequest request = new JobRequest((String) algorithm, getString(object, "input"),
+                                            getString(object, "output"));
+        Object parameters = object.get("parameters");
+        if (parameters instanceof List) {
+            List<?> list = (List<?>) parameters;
+            request.parameters = new String[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                // a parameter may be given as a number or a boolean
+                request.parameters[i] = list.get(i) == null ? "" : list.get(i).toString();
+            }
+        } else if (parameters != null) {
+            throw new IllegalArgumentException("The parameters must be an array");
+        }
+        request.timeout = getLong(object, "timeout");
+        request.maxMemory = getLong(object, "maxMemory");
+        return request;
+    }
+
+    private static String getString(Map<String, Object> object, String key) {
+        Object value = object.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    private static long getLong(Map<String, Object> object, String key) {
+        Object value = object.get(key);
+        if (value == null) {
+            return 0;
+        }
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException("The value of " + key + " must be a number");
+        }
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * Convert this request to JSON
+     *
+     * @return the JSON text
+     */
+    public String toJSON() {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        object.put("algorithm", algorithm);
+        object.put("input", input);
+        object.put("output", output);
+        object.put("parameters", parameters);
+        object.put("timeout", timeout);
+        object.put("maxMemory", maxMemory);
+        return SimpleJSON.toJSON(object);
+    }
+}
@@ -0,0 +1,171 @@
+package ca.pfv.spmf.experiments.jobserver;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The result of a job executed by the job server. In JSON, a result looks like:
+ * <pre>
+ * {"id": 1, "algorithm": "Apriori", "status": "COMPLETED", "message": null, "time": 25,
+ *  "peakMemory": 12.5, "allocatedMemory": 3.2}
+ * </pre>
+ * The time is in milliseconds and the memory values are in megabytes. The peak memory is the
+ * largest heap usage observed while the job was running, without the memory of the other jobs
+ * (see RunMetrics), and the allocated memory is the amount of memory allocated by the thread
+ * running the job.
+ *
+ * @author Philippe Fournier-Viger
+ * @see SPMFJobServer
+ */
+public class JobResult {
+
+    /**
+     * The possible status of a job
+     */
+    public enum Status {
+        /**
+         * the job is waiting or running
+         */
+        RUNNING,
+        /**
+         * the algorithm has terminated normally
+         */
+        COMPLETED,
+        /**
+         * the algorithm has thrown an exception (or the request is invalid)
+         */
+        FAILED,
+        /**
+         * the job was stopped because it exceeded its time limit
+         */
+        TIMEOUT,
+        /**
+         * the job was stopped because it exceeded its memory limit (or ran out of memory)
+         */
+        MEMORY_LIMIT,
+        /**
+         * the job was stopped because it exceeded a limit, but its algorithm has not terminated yet
+         * (its worker remains busy until the algorithm terminates)
+         */
+        STOPPING,
+        /**
+         * the job was not accepted because too many jobs are waiting
+         */
+        REJECTED
+    }
+
+    /**
+     * the identifier of the job
+     */
+    final long id;
+    /**
+     * the name of the algorithm
+     */
+    final String algorithm;
+    /**
+     * the status of the job
+     */
+    volatile Status status = Status.RUNNING;
+    /**
+     * a message (e.g. an error message) or null
+     */
+    volatile String message = null;
+    /**
+     * the time to run the job in milliseconds
+     */
+    volatile long time = 0;
+    /**
+     * the peak heap usage during the job in megabytes (without the memory of the other jobs)
+     */
+    volatile double peakMemory = 0;
+    /**
+     * the memory allocated by the thread running the job in megabytes (-1 if unknown)
+     */
+    volatile double allocatedMemory = -1;
+
+    /**
+     * Constructor
+     *
+     * @param id        the identifier of the job
+     * @param algorithm the name of the algorithm
+     */
+    JobResult(long id, String algorithm) {
+        this.id = id;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Get the status of the job
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the message of the job (e.g. the error message)
+     *
+     * @return the message or null
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Get the time to run the job
+     *
+     * @return the time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Get the peak heap usage observed while the job was running
+     *
+     * @return the memory in megabytes
+     */
+    public double getPeakMemory() {
+        return peakMemory;
+    }
+
+    /**
+     * Convert this result to JSON
+     *
+     * @return the JSON text
+     */
+    public String toJSON() {
+        Map<String, Object> object = new LinkedHashMap<String, Object>();
+        object.put("id", id);
+        object.put("algorithm", algorithm);
+        object.put("status", status.name());
+        object.put("message", message);
+        object.put("time", time);
+        object.put("peakMemory", Math.round(peakMemory * 100) / 100d);
+        object.put("allocatedMemory", Math.round(allocatedMemory * 100) / 100d);
+        return SimpleJSON.toJSON(object);
+    }
+
+    @Override
+    public String toString() {
+        return toJSON();
+    }
+}
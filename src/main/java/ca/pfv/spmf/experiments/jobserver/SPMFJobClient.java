@@ -0,0 +1,122 @@
+package ca.pfv.spmf.experiments.jobserver;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * A client for the job server of SPMF, running on the same computer.
+ *
+ * @author Philippe Fournier-Viger
+ * @see SPMFJobServer
+ */
+public class SPMFJobClient {
+
+    /**
+     * the URL of the server
+     */
+    private final String serverURL;
+
+    /**
+     * Constructor
+     *
+     * @param port the port of the server
+     */
+    public SPMFJobClient(int port) {
+        this.serverURL = "http://127.0.0.1:" + port;
+    }
+
+    /**
+     * Run a job on the server and wait until it is finished
+     *
+     * @param request the request
+     * @return the result as a Map (see JobResult for the keys)
+     * @throws IOException if the server cannot be contacted
+     */
+    public Map<String, Object> run(JobRequest request) throws IOException {
+        return SimpleJSON.parseObject(send("POST", "/run", request.toJSON()));
+    }
+
+    /**
+     * Get the state of the server
+     *
+     * @return the state as a Map
+     * @throws IOException if the server cannot be contacted
+     */
+    public Map<String, Object> getStatus() throws IOException {
+        return SimpleJSON.parseObject(send("GET", "/status", null));
+    }
+
+    /**
+     * Ask the server to stop
+     *
+     * @throws IOException if the server cannot be contacted
+     */
+    public void shutdownServer() throws IOException {
+        send("POST", "/shutdown", "");
+    }
+
+    /**
+     * Send a request to the server
+     *
+     * @param method the HTTP method
+     * @param path   the path
+     * @param body   the body of the request or null
+     * @return the body of the response
+     * @throws IOException if the server cannot be contacted
+     */
+    private String send(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(serverURL + path).toURL().openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+                try (OutputStream output = connection.getOutputStream()) {
+                    output.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            // the server answers in JSON, even if there is an error
+            InputStream input = connection.getResponseCode() >= 400 ? connection.getErrorStream()
+                                                                      : connection.getInputStream();
+            if (input == null) {
+                throw new IOException("The server returned the code " + connection.getResponseCode());
+            }
+            try {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                byte[] bytes = new byte[4096];
+                int count;
+                while ((count = input.read(bytes)) > 0) {
+                    buffer.write(bytes, 0, count);
+                }
+                return buffer.toString(StandardCharsets.UTF_8);
+            } finally {
+                input.close();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,599 @@
+package ca.pfv.spmf.experiments.jobserver;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
+import ca.pfv.spmf.gui.CommandProcessor;
+import ca.pfv.spmf.tools.RunMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A job server that runs the algorithms of SPMF in a single long-running JVM, so that
+ * each run does not have to start a new JVM (class loading, JIT compilation...), as when
+ * spmf.jar is launched for each run.
+ * <br/><br/>
+ * The server listens on the loopback interface only and has a small HTTP API:
+ * <br/>
+ * - POST /run with a JobRequest in JSON runs an algorithm and returns a JobResult in JSON
+ * (with the status, time and memory usage of the job) when the job is finished,<br/>
+ * - GET /status returns the state of the server in JSON,<br/>
+ * - POST /shutdown stops the server.
+ * <br/><br/>
+ * The jobs are executed by a fixed number of worker threads. If all workers are busy, the jobs wait in
+ * a queue of limited size, and a job is rejected if the queue is full. A watchdog thread checks the running
+ * jobs periodically. A job that exceeds its time limit, or whose memory usage exceeds its memory limit,
+ * is stopped. Note that the Java platform cannot stop a thread by force: the thread of a stopped job is
+ * interrupted, and the algorithms do not all check the interruption. If the algorithm terminates soon
+ * after, the result of the job has the status TIMEOUT or MEMORY_LIMIT. Otherwise, the result is returned
+ * with the status STOPPING, and the worker of the job remains busy until the algorithm terminates
+ * (the stopping jobs are counted separately by GET /status).
+ * <br/><br/>
+ * Since the jobs share the heap of the JVM, the memory usage of a job is estimated as the memory
+ * allocated by the threads of the job since it started (see RunMetrics), bounded by the memory of the
+ * live objects of the heap (its usage after the last garbage collection). A job cannot use more memory
+ * than it allocated, so a job is not stopped because of the memory used by the other jobs. If the JVM
+ * cannot measure the memory allocated by a thread, the memory of a job is the memory of the live objects
+ * of the heap, which includes the memory of the other jobs.
+ * <br/><br/>
+ * Example: java -cp spmf.jar ca.pfv.spmf.gui.Main server 9876 2
+ * <br/>
+ * curl -d '{"algorithm":"Apriori","input":"in.txt","output":"out.txt","parameters":["40%"]}'
+ * http://127.0.0.1:9876/run
+ *
+ * @author Philippe Fournier-Viger
+ * @see JobRequest
+ * @see JobResult
+ * @see SPMFJobClient
+ */
+public class SPMFJobServer {
+
+    /**
+     * the default port of the server
+     */
+    public static final int DEFAULT_PORT = 9876;
+
+    /**
+     * the interval between two checks of the watchdog in milliseconds
+     */
+    static final long WATCHDOG_INTERVAL = 20;
+
+    /**
+     * the time given to the algorithm of a stopped job to terminate, before its result is returned
+     * with the status STOPPING, in milliseconds
+     */
+    static final long STOP_GRACE_PERIOD = 1000;
+
+    /**
+     * the requested port (0 = any free port)
+     */
+    private final int port;
+    /**
+     * the number of worker threads
+     */
+    private final int threadCount;
+    /**
+     * the maximum number of jobs waiting for a worker
+     */
+    private final int maxQueuedJobs;
+    /**
+     * the time limit of a job if none is given in the request (0 = no limit)
+     */
+    private long defaultTimeout = 0;
+    /**
+     * the memory limit of a job in megabytes if none is given in the request (0 = no limit)
+     */
+    private long defaultMaxMemory = 0;
+
+    /**
+     * the HTTP server
+     */
+    private HttpServer httpServer = null;
+    /**
+     * the threads handling the HTTP requests
+     */
+    private ExecutorService httpThreads = null;
+    /**
+     * the worker threads
+     */
+    private ThreadPoolExecutor workers = null;
+    /**
+     * the watchdog thread
+     */
+    private ScheduledExecutorService watchdog = null;
+    /**
+     * the jobs that are running
+     */
+    private final Set<Job> runningJobs = ConcurrentHashMap.newKeySet();
+    /**
+     * the identifier of the next job
+     */
+    private final AtomicLong nextJobId = new AtomicLong(1);
+    /**
+     * the number of jobs that are finished
+     */
+    private final AtomicLong finishedJobCount = new AtomicLong(0);
+    /**
+     * to wait until the server is stopped
+     */
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * to measure the memory usage
+     */
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final List<MemoryPoolMXBean> memoryPools = ManagementFactory.getMemoryPoolMXBeans();
+
+    /**
+     * the number of bytes in a megabyte
+     */
+    private static final double MEGABYTE = 1024d * 1024d;
+
+    /**
+     * Constructor
+     *
+     * @param port          the port (0 to use any free port)
+     * @param threadCount   the number of jobs that can run at the same time
+     * @param maxQueuedJobs the maximum number of jobs waiting for a worker
+     */
+    public SPMFJobServer(int port, int threadCount, int maxQueuedJobs) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("The number of threads must be at least 1");
+        }
+        this.port = port;
+        this.threadCount = threadCount;
+        this.maxQueuedJobs = maxQueuedJobs;
+    }
+
+    /**
+     * Set the time limit of a job if none is given in the request
+     *
+     * @param defaultTimeout the time in milliseconds (0 = no limit)
+     */
+    public void setDefaultTimeout(long defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    /**
+     * Set the memory limit of a job if none is given in the request
+     *
+     * @param defaultMaxMemory the memory in megabytes (0 = no limit)
+     */
+    public void setDefaultMaxMemory(long defaultMaxMemory) {
+        this.defaultMaxMemory = defaultMaxMemory;
+    }
+
+    /**
+     * Start the server
+     *
+     * @throws IOException if the server cannot listen on the port
+     */
+    public synchronized void start() throws IOException {
+        if (httpServer != null) {
+            throw new IllegalStateException("The server is already started");
+        }
+        // the catalog of algorithms is loaded once for all jobs
+        try {
+            AlgorithmManager.getInstance();
+        } catch (Exception e) {
+            throw new IOException("The algorithms of SPMF cannot be loaded", e);
+        }
+
+        workers = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                                         new ArrayBlockingQueue<Runnable>(Math.max(maxQueuedJobs, 1)));
+        watchdog = Executors.newSingleThreadScheduledExecutor();
+        watchdog.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                checkRunningJobs();
+            }
+        }, WATCHDOG_INTERVAL, WATCHDOG_INTERVAL, TimeUnit.MILLISECONDS);
+
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/run", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                handleRun(exchange);
+            }
+        });
+        httpServer.createContext("/status", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                sendJSON(exchange, 200, SimpleJSON.toJSON(getStatus()));
+            }
+        });
+        httpServer.createContext("/shutdown", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    sendJSON(exchange, 405, "{\"message\": \"POST is required\"}");
+                    return;
+                }
+                sendJSON(exchange, 200, "{\"message\": \"The server is stopping\"}");
+                // the server is stopped by another thread, after the response is sent
+                new Thread(new Runnable() {
+                    public void run() {
+                        stop();
+                    }
+                }).start();
+            }
+        });
+        // the HTTP requests wait for their job, so they are handled by their own threads
+        httpThreads = Executors.newCachedThreadPool();
+        httpServer.setExecutor(httpThreads);
+        httpServer.start();
+    }
+
+    /**
+     * Get the port of the server (useful if the port 0 was requested)
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stop the server. The running jobs are interrupted.
+     */
+    public synchronized void stop() {
+        if (httpServer == null) {
+            return;
+        }
+        httpServer.stop(0);
+        workers.shutdownNow();
+        watchdog.shutdownNow();
+        httpThreads.shutdown();
+        httpServer = null;
+        stopped.countDown();
+    }
+
+    /**
+     * Wait until the server is stopped
+     *
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Run a job and wait until it is finished (or stopped).
+     *
+     * @param request the request
+     * @return the result
+     */
+    public JobResult run(JobRequest request) {
+        final Job job = new Job(request, new JobResult(nextJobId.getAndIncrement(), request.algorithm));
+        job.timeout = request.timeout > 0 ? request.timeout : defaultTimeout;
+        long maxMemory = request.maxMemory > 0 ? request.maxMemory : defaultMaxMemory;
+        job.maxMemoryBytes = maxMemory * 1024L * 1024L;
+        try {
+            workers.execute(new Runnable() {
+                public void run() {
+                    execute(job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            job.finish(JobResult.Status.REJECTED, "Too many jobs are waiting (" + maxQueuedJobs + ")");
+            return job.result;
+        }
+        try {
+            job.finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.stop(JobResult.Status.FAILED, "The request was interrupted");
+            job.finish(JobResult.Status.FAILED, "The request was interrupted");
+        }
+        return job.result;
+    }
+
+    /**
+     * Execute a job (by a worker thread)
+     *
+     * @param job the job
+     */
+    private void execute(Job job) {
+        if (job.stopStatus != null) {
+            // the job was stopped while it was waiting for a worker
+            job.finish(job.stopStatus, job.stopMessage);
+            return;
+        }
+        job.thread = Thread.currentThread();
+        job.startTime = System.currentTimeMillis();
+
+        // the memory usage recorded by the algorithm is separated from the other jobs
+        RunMetrics metrics = RunMetrics.start(job.request.algorithm);
+        job.metrics = metrics;
+        runningJobs.add(job);
+        JobResult.Status status;
+        String message = null;
+        try {
+            JobRequest request = job.request;
+            CommandProcessor.runAlgorithm(request.algorithm, request.input, request.output, request.parameters);
+            status = JobResult.Status.COMPLETED;
+        } catch (OutOfMemoryError e) {
+            status = JobResult.Status.MEMORY_LIMIT;
+            message = "The JVM ran out of memory";
+        } catch (Throwable e) {
+            status = JobResult.Status.FAILED;
+            message = e.getMessage() == null ? e.toString() : e.getMessage().trim();
+        } finally {
+            metrics.end();
+            // if the job was stopped by the watchdog, the interrupted status is cleared
+            // so that the worker can run the next job
+            Thread.interrupted();
+        }
+        job.result.allocatedMemory = metrics.getAllocatedMemory();
+        // if the job was stopped, the algorithm may have failed because it was interrupted
+        if (job.stopStatus != null) {
+            status = job.stopStatus;
+            message = job.stopMessage;
+        }
+        // (if the result was already returned with the status STOPPING, it is not changed)
+        job.finish(status, message);
+        finishedJobCount.incrementAndGet();
+        // the worker is free only now, even if the job was stopped before
+        runningJobs.remove(job);
+    }
+
+    /**
+     * Get the heap memory used after the last garbage collection (the memory of live objects).
+     *
+     * @return the memory in bytes
+     */
+    private long getHeapUsedAfterLastCollection() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : memoryPools) {
+            if (pool.getType() == MemoryType.HEAP) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                }
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Check the running jobs (called periodically by the watchdog). The peak memory of the jobs
+     * is updated, and the jobs that exceed their limits are stopped.
+     */
+    private void checkRunningJobs() {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long usedAfterCollection = -1;
+        for (Job job : runningJobs) {
+            RunMetrics metrics = job.metrics;
+            // the peak memory of the run does not include the memory of the other jobs
+            metrics.checkMemory();
+            if (job.stopStatus != null) {
+                // the job was stopped, but its algorithm has not terminated yet
+                if (now - job.stopTime > STOP_GRACE_PERIOD) {
+                    job.finish(JobResult.Status.STOPPING, job.stopMessage
+                                                          + ". The algorithm has not terminated yet, and its worker is busy until it does");
+                }
+            } else if (job.timeout > 0 && now - job.startTime > job.timeout) {
+                job.stop(JobResult.Status.TIMEOUT, "The job exceeded its time limit of " + job.timeout + " ms");
+            } else if (job.maxMemoryBytes > 0) {
+                // a job cannot use more memory than it allocated
+                double allocated = metrics.getAllocatedMemoryOfThreads();
+                if (allocated < 0 || allocated * MEGABYTE > job.maxMemoryBytes) {
+                    // the heap may contain garbage, so we check the memory of live objects
+                    if (usedAfterCollection < 0) {
+                        usedAfterCollection = getHeapUsedAfterLastCollection();
+                    }
+                    long used = allocated < 0 ? usedAfterCollection
+                                              : Math.min(usedAfterCollection, (long) (allocated * MEGABYTE));
+                    if (used > job.maxMemoryBytes) {
+                        job.stop(JobResult.Status.MEMORY_LIMIT, "The job exceeded its memory limit of "
+                                                                + (job.maxMemoryBytes / 1024 / 1024) + " MB");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the state of the server
+     *
+     * @return a map that can be converted to JSON
+     */
+    public Map<String, Object> getStatus() {
+        // the stopped jobs whose algorithm has not terminated still use a worker
+        int running = 0;
+        int stopping = 0;
+        for (Job job : runningJobs) {
+            if (job.stopStatus == null) {
+                running++;
+            } else {
+                stopping++;
+            }
+        }
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("threads", threadCount);
+        status.put("runningJobs", running);
+        status.put("stoppingJobs", stopping);
+        status.put("freeWorkers", threadCount - running - stopping);
+        status.put("queuedJobs", workers == null ? 0 : workers.getQueue().size());
+        status.put("finishedJobs", finishedJobCount.get());
+        status.put("heapUsed", Math.round(memoryBean.getHeapMemoryUsage().getUsed() / 1024d / 1024d * 100) / 100d);
+        return status;
+    }
+
+    /**
+     * Handle a request to run a job
+     *
+     * @param exchange the HTTP exchange
+     * @throws IOException if error while reading the request or writing the response
+     */
+    private void handleRun(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendJSON(exchange, 405, "{\"message\": \"POST is required\"}");
+            return;
+        }
+        JobRequest request;
+        try {
+            request = JobRequest.fromJSON(readBody(exchange.getRequestBody()));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new LinkedHashMap<String, Object>();
+            error.put("status", JobResult.Status.FAILED.name());
+            error.put("message", e.getMessage());
+            sendJSON(exchange, 400, SimpleJSON.toJSON(error));
+            return;
+        }
+        JobResult result = run(request);
+        sendJSON(exchange, result.status == JobResult.Status.REJECTED ? 503 : 200, result.toJSON());
+    }
+
+    /**
+     * Read the body of an HTTP request
+     */
+    private static String readBody(InputStream stream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] bytes = new byte[4096];
+        int count;
+        while ((count = stream.read(bytes)) > 0) {
+            buffer.write(bytes, 0, count);
+        }
+        stream.close();
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Send a JSON response
+     */
+    private static void sendJSON(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * A job that is waiting or running
+     */
+    private class Job {
+        final JobRequest request;
+        final JobResult result;
+        /**
+         * the limits of the job (0 = no limit)
+         */
+        long timeout;
+        long maxMemoryBytes;
+        /**
+         * the thread running the job, the time when it started, and the statistics of its run
+         */
+        volatile Thread thread = null;
+        volatile long startTime = 0;
+        volatile RunMetrics metrics = null;
+        /**
+         * the status and message given when the job was stopped (null if it is not stopped),
+         * and the time when it was stopped
+         */
+        volatile JobResult.Status stopStatus = null;
+        volatile String stopMessage = null;
+        volatile long stopTime = 0;
+        /**
+         * to wait until the job is finished or stopped
+         */
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        Job(JobRequest request, JobResult result) {
+            this.request = request;
+            this.result = result;
+        }
+
+        /**
+         * Set the final status of the job, if it is not already set
+         *
+         * @return true if the status was set
+         */
+        synchronized boolean finish(JobResult.Status status, String message) {
+            if (result.status != JobResult.Status.RUNNING) {
+                return false;
+            }
+            result.status = status;
+            result.message = message;
+            if (startTime > 0) {
+                result.time = System.currentTimeMillis() - startTime;
+            }
+            RunMetrics theMetrics = metrics;
+            if (theMetrics != null) {
+                result.peakMemory = theMetrics.getPeakMemory();
+            }
+            finished.countDown();
+            return true;
+        }
+
+        /**
+         * Stop the job: its thread is interrupted. Its result is returned when the algorithm
+         * terminates, or with the status STOPPING after STOP_GRACE_PERIOD.
+         */
+        synchronized void stop(JobResult.Status status, String message) {
+            if (result.status != JobResult.Status.RUNNING || stopStatus != null) {
+                return;
+            }
+            stopMessage = message;
+            stopTime = System.currentTimeMillis();
+            stopStatus = status;
+            Thread theThread = thread;
+            if (theThread != null) {
+                theThread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Start a job server from the command line.
+     * Arguments: [port] [number of threads] [maximum number of waiting jobs]
+     *
+     * @param args the arguments
+     * @throws Exception if the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int maxQueuedJobs = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        SPMFJobServer server = new SPMFJobServer(port, threadCount, maxQueuedJobs);
+        server.start();
+        System.out.println("SPMF job server listening on http://127.0.0.1:" + server.getPort()
+                           + " with " + threadCount + " worker thread(s)");
+        server.awaitStop();
+    }
+}
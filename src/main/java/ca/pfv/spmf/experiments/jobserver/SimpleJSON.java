@@ -0,0 +1,317 @@
+package ca.pfv.spmf.experiments.jobserver;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal reader and writer for the JSON messages of the job server (SPMF does not
+ * depend on a JSON library). A JSON object is represented by a Map, an array by a List,
+ * a number by a Long or a Double, and the other values by a String, a Boolean or null.
+ *
+ * @author Philippe Fournier-Viger
+ * @see SPMFJobServer
+ */
+public class SimpleJSON {
+
+    /**
+     * the text being parsed
+     */
+    private final String text;
+
+    /**
+     * the current position in the text
+     */
+    private int position = 0;
+
+    /**
+     * Constructor
+     *
+     * @param text the text to be parsed
+     */
+    private SimpleJSON(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parse a JSON object
+     *
+     * @param text the JSON text
+     * @return the object as a Map
+     * @throws IllegalArgumentException if the text is not a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        SimpleJSON parser = new SimpleJSON(text);
+        Object value = parser.readValue();
+        parser.skipSpaces();
+        if (!(value instanceof Map) || parser.position != text.length()) {
+            throw new IllegalArgumentException("The request is not a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Read a value at the current position
+     */
+    private Object readValue() {
+        skipSpaces();
+        if (position >= text.length()) {
+            throw error("Unexpected end of the JSON text");
+        }
+        char c = text.charAt(position);
+        if (c == '{') {
+            position++;
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            skipSpaces();
+            if (peek() == '}') {
+                position++;
+                return map;
+            }
+            while (true) {
+                skipSpaces();
+                if (peek() != '"') {
+                    throw error("A key was expected");
+                }
+                String key = readString();
+                skipSpaces();
+                expect(':');
+                map.put(key, readValue());
+                skipSpaces();
+                if (peek() == ',') {
+                    position++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        } else if (c == '[') {
+            position++;
+            List<Object> list = new ArrayList<Object>();
+            skipSpaces();
+            if (peek() == ']') {
+                position++;
+                return list;
+            }
+            while (true) {
+                list.add(readValue());
+                skipSpaces();
+                if (peek() == ',') {
+                    position++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        } else if (c == '"') {
+            return readString();
+        } else if (text.startsWith("true", position)) {
+            position += 4;
+            return Boolean.TRUE;
+        } else if (text.startsWith("false", position)) {
+            position += 5;
+            return Boolean.FALSE;
+        } else if (text.startsWith("null", position)) {
+            position += 4;
+            return null;
+        }
+        return readNumber();
+    }
+
+    /**
+     * Read a string at the current position
+     */
+    private String readString() {
+        expect('"');
+        StringBuilder buffer = new StringBuilder();
+        while (true) {
+            if (position >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return buffer.toString();
+            }
+            if (c != '\\') {
+                buffer.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'n':
+                    buffer.append('\n');
+                    break;
+                case 't':
+                    buffer.append('\t');
+                    break;
+                case 'r':
+                    buffer.append('\r');
+                    break;
+                case 'b':
+                    buffer.append('\b');
+                    break;
+                case 'f':
+                    buffer.append('\f');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    buffer.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default:
+                    // \" \\ \/
+                    buffer.append(escaped);
+            }
+        }
+    }
+
+    /**
+     * Read a number at the current position
+     */
+    private Object readNumber() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        String number = text.substring(start, position);
+        if (number.isEmpty()) {
+            throw error("Unexpected character '" + text.charAt(position) + "'");
+        }
+        try {
+            if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+                return Double.parseDouble(number);
+            }
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + number);
+        }
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("'" + c + "' was expected");
+        }
+        position++;
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of the JSON text");
+    }
+
+    /**
+     * Convert a value to JSON. The value can be a Map, a List, an array of String,
+     * a Number, a Boolean, a String or null.
+     *
+     * @param value the value
+     * @return the JSON text
+     */
+    public static String toJSON(Object value) {
+        StringBuilder buffer = new StringBuilder();
+        appendValue(buffer, value);
+        return buffer.toString();
+    }
+
+    /**
+     * Append a value in JSON format to a buffer
+     */
+    private static void appendValue(StringBuilder buffer, Object value) {
+        if (value == null) {
+            buffer.append("null");
+        } else if (value instanceof Map) {
+            buffer.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    buffer.append(", ");
+                }
+                first = false;
+                appendString(buffer, String.valueOf(entry.getKey()));
+                buffer.append(": ");
+                appendValue(buffer, entry.getValue());
+            }
+            buffer.append('}');
+        } else if (value instanceof List || value instanceof Object[]) {
+            List<?> list = (value instanceof List) ? (List<?>) value : Arrays.asList((Object[]) value);
+            buffer.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    buffer.append(", ");
+                }
+                appendValue(buffer, list.get(i));
+            }
+            buffer.append(']');
+        } else if (value instanceof Number || value instanceof Boolean) {
+            buffer.append(value);
+        } else {
+            appendString(buffer, value.toString());
+        }
+    }
+
+    /**
+     * Append a string in JSON format to a buffer
+     */
+    private static void appendString(StringBuilder buffer, String value) {
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buffer.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        buffer.append(c);
+                    }
+            }
+        }
+        buffer.append('"');
+    }
+}
@@ -21,6 +21,7 @@ package ca.pfv.spmf.gui;
 
 import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.experiments.jobserver.SPMFJobServer;
 import ca.pfv.spmf.tools.MemoryLogger;
 
 import javax.swing.*;
@@ -171,6 +172,16 @@ public class Main {
                 e.printStackTrace();
             }
 
+        } // "server" --> start a job server that runs the algorithms in this JVM
+        // java -jar spmf.jar server [port] [number of threads] [maximum number of waiting jobs]
+        else if ("server".equals(args[0])) {
+            try {
+                String[] serverArgs = new String[args.length - 1];
+                System.arraycopy(args, 1, serverArgs, 0, args.length - 1);
+                SPMFJobServer.main(serverArgs);
+            } catch (Exception e) {
+                System.out.println("An error while trying to start the job server. \n ERROR MESSAGE = " + e);
+            }
         } else {
             // if any other commands that we don't recognize, we show this:
             System.out.println(
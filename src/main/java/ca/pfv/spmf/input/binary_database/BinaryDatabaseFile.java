@@ -0,0 +1,410 @@
+package ca.pfv.spmf.input.binary_database;
+/* Copyright (c) 2008-2013 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A transaction database or sequence database stored in the compact binary format of SPMF.
+ * The file is memory-mapped, so that the database can be used without parsing the file.
+ * <br/><br/>
+ * The format is columnar. All values are big-endian. The file contains:
+ * <br/>
+ * - a header of 64 bytes: MAGIC, VERSION, kind (transaction or sequence database),
+ * flags (utilities, timestamps), number of records, size of the dictionary, number of values,
+ * number of itemsets, smallest item, largest item (followed by reserved bytes),<br/>
+ * - the item dictionary: the distinct items (int[dictionary size], ascending order)
+ * followed by the number of records containing each item (int[dictionary size]),<br/>
+ * - the offsets of the records: int[number of records + 1]. The values of record i
+ * are located between offsets[i] (inclusive) and offsets[i+1] (exclusive),<br/>
+ * - the packed values: int[number of values]. For a transaction database, these are the items.
+ * For a sequence database, these are the items and a -1 at the end of each itemset
+ * (the -2 at the end of a sequence is not stored),<br/>
+ * - if the database has utilities: the record utilities (int[number of records]) and
+ * the utility of each value (int[number of values]),<br/>
+ * - if the database has timestamps: the timestamp of each itemset (long[number of itemsets]).
+ * <br/><br/>
+ * A binary file can be created with the BinaryDatabaseConverter of the
+ * ca.pfv.spmf.tools.dataset_converter package.
+ *
+ * @author Philippe Fournier-Viger
+ * @see ca.pfv.spmf.tools.dataset_converter.BinaryDatabaseConverter
+ */
+public final class BinaryDatabaseFile {
+
+    /**
+     * the first four bytes of a binary file ("SPMB")
+     */
+    public static final int MAGIC = 0x53504D42;
+
+    /**
+     * the version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * the size of the header in bytes
+     */
+    public static final int HEADER_SIZE = 64;
+
+    /**
+     * the kinds of database
+     */
+    public static final int KIND_TRANSACTION_DATABASE = 1;
+    public static final int KIND_SEQUENCE_DATABASE = 2;
+
+    /**
+     * the flags indicating the optional sections
+     */
+    public static final int FLAG_UTILITIES = 1;
+    public static final int FLAG_TIMESTAMPS = 2;
+
+    /**
+     * the number of values in a chunk of the mapped values (a chunk is at most 1 GB)
+     */
+    private static final int CHUNK_SHIFT = 28;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    // the content of the header
+    private final int kind;
+    private final int flags;
+    private final int recordCount;
+    private final int dictionarySize;
+    private final int valueCount;
+    private final int itemsetCount;
+    private final int minItem;
+    private final int maxItem;
+
+    // the mapped sections of the file
+    private final IntBuffer dictionaryItems;
+    private final IntBuffer dictionarySupports;
+    private final IntBuffer offsets;
+    private final IntBuffer[] values;
+    private final IntBuffer recordUtilities;
+    private final IntBuffer[] valueUtilities;
+    private final LongBuffer timestamps;
+
+    /**
+     * Open a binary database file
+     *
+     * @param path the path of the file
+     * @throws IOException if the file cannot be read or is not a binary file of a supported version
+     */
+    public BinaryDatabaseFile(String path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+             FileChannel channel = file.getChannel()) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("The file is not a binary database: " + path);
+            }
+            IntBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).asIntBuffer();
+            if (header.get(0) != MAGIC) {
+                throw new IOException("The file is not a binary database: " + path);
+            }
+            if (header.get(1) != VERSION) {
+                throw new IOException("Unsupported version of the binary format: " + header.get(1));
+            }
+            kind = header.get(2);
+            flags = header.get(3);
+            recordCount = header.get(4);
+            dictionarySize = header.get(5);
+            valueCount = header.get(6);
+            itemsetCount = header.get(7);
+            minItem = header.get(8);
+            maxItem = header.get(9);
+
+            // map each section of the file
+            long position = HEADER_SIZE;
+            dictionaryItems = mapInts(channel, position, dictionarySize);
+            position += 4L * dictionarySize;
+            dictionarySupports = mapInts(channel, position, dictionarySize);
+            position += 4L * dictionarySize;
+            offsets = mapInts(channel, position, recordCount + 1);
+            position += 4L * (recordCount + 1);
+            values = mapChunks(channel, position, valueCount);
+            position += 4L * valueCount;
+            if (hasUtilities()) {
+                recordUtilities = mapInts(channel, position, recordCount);
+                position += 4L * recordCount;
+                valueUtilities = mapChunks(channel, position, valueCount);
+                position += 4L * valueCount;
+            } else {
+                recordUtilities = null;
+                valueUtilities = null;
+            }
+            if (hasTimestamps()) {
+                timestamps = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * itemsetCount).asLongBuffer();
+            } else {
+                timestamps = null;
+            }
+            // Note: a mapping remains valid after the channel is closed
+        }
+    }
+
+    /**
+     * Map a section of ints of the file
+     */
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asIntBuffer();
+    }
+
+    /**
+     * Map a section of ints of the file that may be larger than 2 GB, by chunks.
+     */
+    private static IntBuffer[] mapChunks(FileChannel channel, long position, int count) throws IOException {
+        int chunkCount = (int) ((count + (long) CHUNK_MASK) >>> CHUNK_SHIFT);
+        IntBuffer[] chunks = new IntBuffer[Math.max(chunkCount, 1)];
+        for (int i = 0; i < chunks.length; i++) {
+            int start = i << CHUNK_SHIFT;
+            int size = Math.min(count - start, 1 << CHUNK_SHIFT);
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                 position + 4L * start, 4L * Math.max(size, 0));
+            chunks[i] = chunk.asIntBuffer();
+        }
+        return chunks;
+    }
+
+    /**
+     * Check if a file is in the binary format (by checking its first bytes)
+     *
+     * @param path the path of the file
+     * @return true if it is a binary database file
+     */
+    public static boolean isBinaryFile(String path) {
+        File file = new File(path);
+        if (file.length() < HEADER_SIZE) {
+            return false;
+        }
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            return input.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check if this is a sequence database
+     *
+     * @return true if it is a sequence database, false if it is a transaction database
+     */
+    public boolean isSequenceDatabase() {
+        return kind == KIND_SEQUENCE_DATABASE;
+    }
+
+    /**
+     * Check if this database has utility values
+     *
+     * @return true if yes
+     */
+    public boolean hasUtilities() {
+        return (flags & FLAG_UTILITIES) != 0;
+    }
+
+    /**
+     * Check if this database has timestamps
+     *
+     * @return true if yes
+     */
+    public boolean hasTimestamps() {
+        return (flags & FLAG_TIMESTAMPS) != 0;
+    }
+
+    /**
+     * Get the number of records (transactions or sequences)
+     *
+     * @return the number of records
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Get the number of values in all records
+     *
+     * @return the number of values
+     */
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Get the number of itemsets (for a sequence database)
+     *
+     * @return the number of itemsets
+     */
+    public int getItemsetCount() {
+        return itemsetCount;
+    }
+
+    /**
+     * Get the smallest item in the database
+     *
+     * @return the smallest item
+     */
+    public int getMinItem() {
+        return minItem;
+    }
+
+    /**
+     * Get the largest item in the database
+     *
+     * @return the largest item
+     */
+    public int getMaxItem() {
+        return maxItem;
+    }
+
+    /**
+     * Get the number of distinct items in the database
+     *
+     * @return the size of the dictionary
+     */
+    public int getDictionarySize() {
+        return dictionarySize;
+    }
+
+    /**
+     * Get an item of the dictionary
+     *
+     * @param i the position in the dictionary
+     * @return the item
+     */
+    public int getDictionaryItem(int i) {
+        return dictionaryItems.get(i);
+    }
+
+    /**
+     * Get the number of records containing an item of the dictionary
+     *
+     * @param i the position of the item in the dictionary
+     * @return the support of the item
+     */
+    public int getDictionarySupport(int i) {
+        return dictionarySupports.get(i);
+    }
+
+    /**
+     * Get the position of the first value of a record
+     *
+     * @param record the record number
+     * @return the position
+     */
+    public int getRecordStart(int record) {
+        return offsets.get(record);
+    }
+
+    /**
+     * Get the position after the last value of a record
+     *
+     * @param record the record number
+     * @return the position
+     */
+    public int getRecordEnd(int record) {
+        return offsets.get(record + 1);
+    }
+
+    /**
+     * Get a value
+     *
+     * @param position the position of the value
+     * @return the value
+     */
+    public int getValue(int position) {
+        return values[position >>> CHUNK_SHIFT].get(position & CHUNK_MASK);
+    }
+
+    /**
+     * Copy the values of a record into an array
+     *
+     * @param record      the record number
+     * @param destination the array (must be large enough)
+     * @return the number of values copied
+     */
+    public int copyRecord(int record, int[] destination) {
+        return copy(values, record, destination);
+    }
+
+    /**
+     * Copy the utility values of a record into an array (the database must have utilities)
+     *
+     * @param record      the record number
+     * @param destination the array (must be large enough)
+     * @return the number of values copied
+     */
+    public int copyRecordUtilities(int record, int[] destination) {
+        return copy(valueUtilities, record, destination);
+    }
+
+    /**
+     * Copy the values of a record from a section into an array
+     */
+    private int copy(IntBuffer[] section, int record, int[] destination) {
+        int start = offsets.get(record);
+        int end = offsets.get(record + 1);
+        int length = end - start;
+        if (length == 0) {
+            return 0;
+        }
+        int chunk = start >>> CHUNK_SHIFT;
+        if (chunk == ((end - 1) >>> CHUNK_SHIFT)) {
+            // the record is in a single chunk
+            section[chunk].get(start & CHUNK_MASK, destination, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                int position = start + i;
+                destination[i] = section[position >>> CHUNK_SHIFT].get(position & CHUNK_MASK);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Get the utility of a value (the database must have utilities)
+     *
+     * @param position the position of the value
+     * @return the utility
+     */
+    public int getValueUtility(int position) {
+        return valueUtilities[position >>> CHUNK_SHIFT].get(position & CHUNK_MASK);
+    }
+
+    /**
+     * Get the utility of a record (the database must have utilities)
+     *
+     * @param record the record number
+     * @return the utility of the record
+     */
+    public int getRecordUtility(int record) {
+        return recordUtilities.get(record);
+    }
+
+    /**
+     * Get the timestamp of an itemset (the database must have timestamps)
+     *
+     * @param itemset the number of the itemset in the whole database
+     * @return the timestamp
+     */
+    public long getTimestamp(int itemset) {
+        return timestamps.get(itemset);
+    }
+}
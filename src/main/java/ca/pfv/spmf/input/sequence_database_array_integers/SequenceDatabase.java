@@ -17,6 +17,8 @@ package ca.pfv.spmf.input.sequence_database_array_integers;
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
 
+import ca.pfv.spmf.input.binary_database.BinaryDatabaseFile;
+
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -49,11 +51,16 @@ public class SequenceDatabase {
 
     /**
      * Method to load a sequence database from a text file in SPMF format.
+     * If the file is in the binary format of SPMF, it is loaded by loadBinaryFile() instead.
      *
      * @param path the input file path.
      * @throws IOException exception if error while reading the file.
      */
     public void loadFile(String path) throws IOException {
+        if (BinaryDatabaseFile.isBinaryFile(path)) {
+            loadBinaryFile(path);
+            return;
+        }
         String thisLine; // variable to read each line.
         BufferedReader myInput = null;
         try {
@@ -79,7 +86,42 @@ public class SequenceDatabase {
         }
     }
 
-//	
+    /**
+     * Method to load a sequence database from a file in the binary format of SPMF
+     * (see BinaryDatabaseFile). The file is memory-mapped and is not parsed.
+     *
+     * @param path the input file path.
+     * @throws IOException exception if error while reading the file or if it is not a sequence database.
+     */
+    public void loadBinaryFile(String path) throws IOException {
+        BinaryDatabaseFile database = new BinaryDatabaseFile(path);
+        if (!database.isSequenceDatabase()) {
+            throw new IOException("The binary file does not contain a sequence database: " + path);
+        }
+        // update the minimum and maximum items for statistics
+        if (database.getDictionarySize() > 0) {
+            minItem = Math.min(minItem, database.getMinItem());
+            maxItem = Math.max(maxItem, database.getMaxItem());
+        }
+        // for each sequence
+        for (int i = 0; i < database.getRecordCount(); i++) {
+            Sequence sequence = new Sequence();
+            int itemsetStart = database.getRecordStart(i);
+            int end = database.getRecordEnd(i);
+            for (int j = itemsetStart; j < end; j++) {
+                // a -1 indicates the end of an itemset
+                if (database.getValue(j) == -1) {
+                    Integer[] itemset = new Integer[j - itemsetStart];
+                    for (int k = itemsetStart; k < j; k++) {
+                        itemset[k - itemsetStart] = database.getValue(k);
+                    }
+                    sequence.addItemset(itemset);
+                    itemsetStart = j + 1;
+                }
+            }
+            sequences.add(sequence);
+        }
+    }
 
     /**
      * Method to process a line from the input file
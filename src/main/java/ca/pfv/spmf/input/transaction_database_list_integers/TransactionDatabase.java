@@ -17,6 +17,8 @@ package ca.pfv.spmf.input.transaction_database_list_integers;
  * SPMF. If not, see <http://www.gnu.org/licenses/>.
  */
 
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
+
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -49,28 +51,22 @@ public class TransactionDatabase {
     }
 
     /**
-     * Method to load a file containing a transaction database into memory
+     * Method to load a file containing a transaction database into memory.
+     * The file can be in the SPMF text format or in the binary format of SPMF
+     * (see BinaryDatabaseFile), which is memory-mapped and not parsed.
      *
      * @param path the path of the file
      * @throws IOException exception if error reading the file
      */
     public void loadFile(String path) throws IOException {
-        String thisLine; // variable to read each line
-        BufferedReader myInput = null; // object to read the file
+        SPMFMappedFileReader myInput = null; // object to read the file
         try {
-            FileInputStream fin = new FileInputStream(new File(path));
-            myInput = new BufferedReader(new InputStreamReader(fin));
-            // for each line
-            while ((thisLine = myInput.readLine()) != null) {
-                // if the line is not a comment, is not empty or is not other
-                // kind of metadata
-                if (!thisLine.isEmpty() &&
-                    thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
-                    && thisLine.charAt(0) != '@') {
-                    // split the line according to spaces and then
-                    // call "addTransaction" to process this line.
-                    addTransaction(thisLine.split(" "));
-                }
+            // (empty lines, comments and metadata are skipped by the reader)
+            myInput = new SPMFMappedFileReader(path);
+            // for each transaction
+            while (myInput.nextTransaction()) {
+                // call "addTransaction" to process this transaction.
+                addTransaction(myInput.getItems(), myInput.getItemCount());
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -82,17 +78,17 @@ public class TransactionDatabase {
     }
 
     /**
-     * This method process a line from a file that is read.
+     * This method process a transaction from a file that is read.
      *
-     * @param tokens the items contained in this line
+     * @param itemsRead the buffer containing the items of this transaction
+     * @param itemCount the number of items in this transaction
      */
-    private void addTransaction(String[] itemsString) {
+    private void addTransaction(int[] itemsRead, int itemCount) {
         // create an empty transaction
-        List<Integer> itemset = new ArrayList<Integer>();
-        // for each item in this line
-        for (String attribute : itemsString) {
-            // convert from string to int
-            int item = Integer.parseInt(attribute);
+        List<Integer> itemset = new ArrayList<Integer>(itemCount);
+        // for each item in this transaction
+        for (int i = 0; i < itemCount; i++) {
+            int item = itemsRead[i];
             // add the item to the current transaction
             itemset.add(item);
             // add the item to the set of all items in this database
@@ -0,0 +1,42 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan.AlgoBIDEPlus;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Example of how to use the BIDE+ algorithm with a memory budget, from the source code.
+ * If the database does not fit in half of the budget, it is partitioned on disk and the
+ * partitions are mined one at a time. The result is the same as without a budget
+ * (see MainTestBIDEPlus_saveToFile).
+ */
+public class MainTestBIDEPlus_MemoryBudget_saveToFile {
+
+    public static void main(String[] arg) throws IOException {
+        // Load a sequence database
+        String inputfile = fileToPath("contextPrefixSpan.txt");
+
+        int minsup = 2; // we use a minsup of 2 sequences (50 % of the database size)
+
+        AlgoBIDEPlus algo = new AlgoBIDEPlus();  //
+
+        // if you set the following parameter to true, the sequence ids of the sequences where
+        // each pattern appears will be shown in the result
+        algo.setShowSequenceIdentifiers(false);
+
+        // the heap budget for the sequences of the database, in megabytes
+        algo.setMemoryBudget(1);
+
+        // execute the algorithm
+        algo.runAlgorithm(inputfile, ".//output.txt", minsup);
+        algo.printStatistics();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestBIDEPlus_MemoryBudget_saveToFile.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,67 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.graph_mining.tkg.AlgoCGSPANSupport;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Example of how to use the CGSPAN algorithm with support
+ * from the source code and output the result to a file.
+ *
+ * @author Zevin Shaul
+ */
+/**
+ * Example of how to run the CGSPAN algorithm with a given number of threads. The result
+ * is the same as with any other number of threads (see MainTestCGSPANSupport).
+ */
+public class MainTestCGSPANSupport_Parallelized {
+
+    public static void main(String[] arg) throws IOException, ClassNotFoundException, InterruptedException {
+
+        // set the input path
+        String input = fileToPath("contextTKG.txt");
+        String output = ".//output.txt";
+
+        // set the minimum support threshold
+        double minSupport = 0.9;
+
+        // The maximum number of edges for frequent subgraph patterns
+        int maxNumberOfEdges = Integer.MAX_VALUE;
+
+        // If true, single frequent vertices will be output
+        boolean outputSingleFrequentVertices = false;
+
+        // If true, a dot file will be output for visualization using GraphViz
+        boolean outputDotFile = false;
+
+        // Output the ids of graph containing each frequent subgraph
+        boolean outputGraphIds = true;
+
+        // Create the algorithm
+        AlgoCGSPANSupport algo = new AlgoCGSPANSupport();
+
+        // If the following line is uncommented, extra information is stored in the output file
+        // algo.setDebugMode(true);
+
+        algo.setDetectEarlyTerminationFailure(true);
+
+        algo.setPdfsAutomorphismOptimization(false);
+
+        // the number of threads for computing the extensions (one per processor by default)
+        algo.setThreadCount(4);
+
+        algo.runAlgorithm(input, output, minSupport, outputSingleFrequentVertices,
+                outputDotFile, maxNumberOfEdges, outputGraphIds);
+
+        // Print statistics about the algorithm execution
+        algo.printStats();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestCGSPANSupport_Parallelized.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,45 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spam.AlgoCMSPAM;
+import ca.pfv.spmf.datastructures.bitmaps.BitmapType;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Example of how to use the CM-SPAM algorithm with compressed bitmaps in source code.
+ * The patterns found are the same as with the default bitmaps (see MainTestCMSPAM_saveToFile).
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestCMSPAM_CompressedBitmaps_saveToFile {
+
+    public static void main(String[] arg) throws IOException {
+        // Load a sequence database
+        String input = fileToPath("contextPrefixSpan.txt");
+        String output = ".//output.txt";
+
+        // Create an instance of the algorithm
+        AlgoCMSPAM algo = new AlgoCMSPAM();
+
+        // Use compressed bitmaps for the vertical database
+        // (they use less memory than the default bitmaps for sparse databases)
+        algo.setBitmapType(BitmapType.COMPRESSED);
+
+        // if you set the following parameter to true, the sequence ids of the sequences where
+        // each pattern appears will be shown in the result
+        boolean outputSequenceIdentifiers = true;
+
+        // execute the algorithm with minsup = 2 sequences  (50 %)
+        algo.runAlgorithm(input, output, 0.5, outputSequenceIdentifiers);
+        algo.printStatistics();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestCMSPAM_CompressedBitmaps_saveToFile.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
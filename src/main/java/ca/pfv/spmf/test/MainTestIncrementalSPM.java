@@ -0,0 +1,55 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.incremental.AlgoIncrementalSPM;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Example of how to use the incremental sequential pattern mining algorithm,
+ * from the source code.
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestIncrementalSPM {
+
+    public static void main(String[] arg) throws IOException {
+
+        // Initialize the algorithm
+        AlgoIncrementalSPM algo = new AlgoIncrementalSPM();
+
+        // Set the minimum support threshold
+        double minsup = 0.5; // 50%
+
+        // 1) Apply the algorithm on a first file containing sequences
+        System.out.println("1) Run the algorithm on the first file");
+        algo.runAlgorithm(fileToPath("contextPrefixSpan.txt"), minsup);
+        algo.printStatistics();
+
+        // 2) Add a new sequence to the database and append an itemset to the first sequence
+        System.out.println("2) Add a sequence and append an itemset to a sequence");
+        List<int[]> newSequences = new ArrayList<int[]>();
+        newSequences.add(new int[]{1, -1, 2, 3, -1, 6, -1, -2});
+        Map<Integer, int[]> appendedItemsets = new HashMap<Integer, int[]>();
+        appendedItemsets.put(0, new int[]{5, 6, -1, -2});
+        algo.update(newSequences, appendedItemsets, minsup);
+        algo.printStatistics();
+
+        // The patterns found until now can be written to a file at any time
+        algo.writePatternsToFile(".//output.txt");
+
+        // The lattice of patterns can also be saved, to continue the updates later
+        algo.saveLatticeToFile(".//lattice.ser");
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestIncrementalSPM.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
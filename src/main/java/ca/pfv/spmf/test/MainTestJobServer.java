@@ -0,0 +1,48 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.experiments.jobserver.JobRequest;
+import ca.pfv.spmf.experiments.jobserver.SPMFJobClient;
+import ca.pfv.spmf.experiments.jobserver.SPMFJobServer;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Example of how to use the job server of SPMF to run algorithms in the same JVM,
+ * from the source code.
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestJobServer {
+
+    public static void main(String[] arg) throws IOException {
+
+        String input = fileToPath("contextPasquier99.txt");
+        String output = ".//output.txt";  // the path for saving the frequent itemsets found
+
+        // start a server with 1 worker thread, on any free port
+        SPMFJobServer server = new SPMFJobServer(0, 1, 10);
+        server.start();
+
+        SPMFJobClient client = new SPMFJobClient(server.getPort());
+
+        // run Apriori two times: the second run is faster because the JVM is already warm
+        JobRequest request = new JobRequest("Apriori", input, output, "40%");
+        request.setTimeout(60000);
+        System.out.println(client.run(request));
+        System.out.println(client.run(request));
+
+        // a job with an algorithm that does not exist fails
+        System.out.println(client.run(new JobRequest("NoSuchAlgorithm", input, output)));
+
+        System.out.println(client.getStatus());
+        client.shutdownServer();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestJobServer.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,52 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceEuclidian;
+import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceFunction;
+import ca.pfv.spmf.algorithms.clustering.kmeans.AlgoKMeans;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Example of how to use the mini-batch KMEans algorithm, in source code. The clusters are
+ * an approximation of the clusters found by the regular algorithm, for very large inputs.
+ */
+public class MainTestKMeans_MiniBatch_saveToFile {
+
+    public static void main(String[] args) throws NumberFormatException, IOException {
+
+        String input = fileToPath("inputDBScan2.txt");
+        String output = ".//output.txt";
+        // we request 3 clusters
+        int k = 3;
+
+        // We specify that in the input file, double values on each line are separated by spaces
+        String separator = " ";
+
+
+        // Here we specify that we want to use the euclidian distance
+        DistanceFunction distanceFunction = new DistanceEuclidian();
+        // Alternative distance functions are also available such as:
+//		DistanceFunction distanceFunction = new DistanceManathan(); 
+//		DistanceFunction distanceFunction = new DistanceCosine(); 
+//		DistanceFunction distanceFunction = new DistanceCorrelation(); 
+//		DistanceFunction distanceFunction = new DistanceJaccard(); 
+
+        // Apply the algorithm
+        AlgoKMeans algoKMeans = new AlgoKMeans();
+        // the cluster centers are updated with random samples of 10 vectors, 50 times
+        algoKMeans.setMiniBatch(10, 50);
+        algoKMeans.runAlgorithm(input, k, distanceFunction, separator);
+        algoKMeans.printStatistics();
+        algoKMeans.saveToFile(output);
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestKMeans_MiniBatch_saveToFile.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+
+
+}
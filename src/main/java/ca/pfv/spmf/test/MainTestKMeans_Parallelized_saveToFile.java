@@ -0,0 +1,52 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceEuclidian;
+import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceFunction;
+import ca.pfv.spmf.algorithms.clustering.kmeans.AlgoKMeans;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Example of how to use the KMEans algorithm with several threads, in source code.
+ * The result is the same as with a single thread (see MainTestKMeans_Parallelized_saveToFile).
+ */
+public class MainTestKMeans_Parallelized_saveToFile {
+
+    public static void main(String[] args) throws NumberFormatException, IOException {
+
+        String input = fileToPath("inputDBScan2.txt");
+        String output = ".//output.txt";
+        // we request 3 clusters
+        int k = 3;
+
+        // We specify that in the input file, double values on each line are separated by spaces
+        String separator = " ";
+
+
+        // Here we specify that we want to use the euclidian distance
+        DistanceFunction distanceFunction = new DistanceEuclidian();
+        // Alternative distance functions are also available such as:
+//		DistanceFunction distanceFunction = new DistanceManathan(); 
+//		DistanceFunction distanceFunction = new DistanceCosine(); 
+//		DistanceFunction distanceFunction = new DistanceCorrelation(); 
+//		DistanceFunction distanceFunction = new DistanceJaccard(); 
+
+        // Apply the algorithm
+        AlgoKMeans algoKMeans = new AlgoKMeans();
+        // the vectors are assigned to the clusters by 4 threads
+        algoKMeans.setThreadCount(4);
+        algoKMeans.runAlgorithm(input, k, distanceFunction, separator);
+        algoKMeans.printStatistics();
+        algoKMeans.saveToFile(output);
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestKMeans_Parallelized_saveToFile.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+
+
+}
@@ -0,0 +1,49 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan.AlgoPrefixSpan;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Example of how to use the PrefixSpan algorithm with a memory budget in source code.
+ * If the database does not fit in half of the budget, it is partitioned on disk and the
+ * partitions are mined one at a time. The result is the same as without a budget
+ * (see MainTestPrefixSpan_saveToFile).
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestPrefixSpan_MemoryBudget_saveToFile {
+
+    public static void main(String[] arg) throws IOException {
+        // input file
+        String inputFile = fileToPath("contextPrefixSpan.txt");
+
+        // output file path
+        String outputPath = ".//output.txt";
+
+        // Create an instance of the algorithm
+        AlgoPrefixSpan algo = new AlgoPrefixSpan();
+
+        int minsup = 2; // we use a minimum support of 2 sequences.
+
+        // if you set the following parameter to true, the sequence ids of the sequences where
+        // each pattern appears will be shown in the result
+        algo.setShowSequenceIdentifiers(false);
+
+        // the heap budget for the sequences of the database, in megabytes
+        algo.setMemoryBudget(1);
+
+        // execute the algorithm
+        algo.runAlgorithm(inputFile, outputPath, minsup);
+        algo.printStatistics();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestPrefixSpan_MemoryBudget_saveToFile.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan.AlgoPrefixSpan;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Example of how to use the PrefixSpan algorithm with several threads in source code.
+ * The result is the same as with a single thread (see MainTestPrefixSpan_saveToFile).
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestPrefixSpan_Parallelized_saveToFile {
+
+    public static void main(String[] arg) throws IOException {
+        // input file
+        String inputFile = fileToPath("contextPrefixSpan.txt");
+
+        // output file path
+        String outputPath = ".//output.txt";
+
+        // Create an instance of the algorithm
+        AlgoPrefixSpan algo = new AlgoPrefixSpan();
+
+        int minsup = 2; // we use a minimum support of 2 sequences.
+
+        // if you set the following parameter to true, the sequence ids of the sequences where
+        // each pattern appears will be shown in the result
+        algo.setShowSequenceIdentifiers(false);
+
+        // the number of threads for exploring the projected databases
+        algo.setThreadCount(4);
+
+        // execute the algorithm
+        algo.runAlgorithm(inputFile, outputPath, minsup);
+        algo.printStatistics();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestPrefixSpan_Parallelized_saveToFile.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
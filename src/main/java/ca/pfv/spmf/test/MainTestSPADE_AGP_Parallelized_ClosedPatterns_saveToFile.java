@@ -0,0 +1,71 @@
+package ca.pfv.spmf.test;
+
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.AlgoSPADE;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePatternsGeneration.CandidateGenerator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePatternsGeneration.CandidateGenerator_Qualitative;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.creators.AbstractionCreator_Qualitative;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.database.SequenceDatabase;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.creators.IdListCreator_Bitmap;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Example of how to use the algorithm SPADE with several threads to find only
+ * the closed sequential patterns, saving the results in a given file
+ *
+ * @author agomariz
+ */
+public class MainTestSPADE_AGP_Parallelized_ClosedPatterns_saveToFile {
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        String outputPath = ".//output.txt";
+        // Load a sequence database
+        double support = 0.5;
+
+        boolean keepPatterns = true;
+        boolean verbose = false;
+
+        AbstractionCreator abstractionCreator = AbstractionCreator_Qualitative.getInstance();
+        boolean dfs = true;
+
+        // if you set the following parameter to true, the sequence ids of the sequences where
+        // each pattern appears will be shown in the result
+        boolean outputSequenceIdentifiers = false;
+
+        IdListCreator idListCreator = IdListCreator_Bitmap.getInstance();
+
+        CandidateGenerator candidateGenerator = CandidateGenerator_Qualitative.getInstance();
+
+        SequenceDatabase sequenceDatabase = new SequenceDatabase(abstractionCreator, idListCreator);
+
+        sequenceDatabase.loadFile(fileToPath("contextPrefixSpan.txt"), support);
+
+        System.out.println(sequenceDatabase);
+
+        AlgoSPADE algorithm = new AlgoSPADE(support, dfs, abstractionCreator);
+        // only keep the closed patterns, which are checked as soon as they are found
+        algorithm.setFindClosedPatterns(true);
+        algorithm.setThreadCount(4);
+
+        algorithm.runAlgorithmParallelized(sequenceDatabase, candidateGenerator, keepPatterns, verbose, outputPath, outputSequenceIdentifiers);
+        System.out.println("Minimum support (relative) = " + support);
+        System.out.println(algorithm.getNumberOfFrequentPatterns() + " frequent patterns.");
+        System.out.println(algorithm.getNumberOfClosedPatterns() + " closed patterns.");
+
+        System.out.println(algorithm.printStatistics());
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestSPADE_AGP_FatBitMap_saveToFile.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
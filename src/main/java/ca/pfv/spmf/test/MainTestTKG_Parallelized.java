@@ -0,0 +1,58 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.graph_mining.tkg.AlgoTKG;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Example of how to use the GSPAN algorithm
+ * from the source code and output the result to a file.
+ *
+ * @author Chao Cheng & Philippe Fournier-Viger 2019
+ */
+/**
+ * Example of how to run the TKG algorithm with several threads. The top-k subgraphs
+ * are the same as with a single thread (see MainTestTKG), but possibly in another order.
+ */
+public class MainTestTKG_Parallelized {
+
+    public static void main(String[] arg) throws IOException, ClassNotFoundException {
+
+        // set the input and output file path
+        String input = fileToPath("contextTKG.txt");
+        String output = ".//output.txt";
+
+        // set the minimum support threshold
+        int k = 3;
+
+        // The maximum number of edges for frequent subgraph patterns
+        int maxNumberOfEdges = Integer.MAX_VALUE;
+
+        // If true, single frequent vertices will be output
+        boolean outputSingleFrequentVertices = true;
+
+        // If true, a dot file will be output for visualization using GraphViz
+        boolean outputDotFile = false;
+
+        // Output the ids of graph containing each frequent subgraph
+        boolean outputGraphIds = true;
+
+        // Apply the algorithm
+        AlgoTKG algo = new AlgoTKG();
+        // the number of threads for expanding the candidates
+        algo.setThreadCount(4);
+        algo.runAlgorithm(input, output, k, outputSingleFrequentVertices,
+                outputDotFile, maxNumberOfEdges, outputGraphIds);
+
+        // Print statistics about the algorithm execution
+        algo.printStats();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestTKG_Parallelized.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.graph_mining.tkg.AlgoTKG;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Example of how to use the TKG algorithm
+ * from the source code and output the result to a file.
+ * <p>
+ * In this example, several subgraphs have the same support as the k-th subgraph.
+ * The result is compared with the expected result (contextTKG_ties_expected.txt),
+ * which is the result of the original implementation of TKG, so that a change of the
+ * algorithm that modifies which subgraphs are kept in case of ties can be detected.
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestTKG_ties {
+
+    public static void main(String[] arg) throws IOException, ClassNotFoundException {
+
+        // set the input and output file path
+        String input = fileToPath("contextTKG_ties.txt");
+        String expected = fileToPath("contextTKG_ties_expected.txt");
+        String output = ".//output.txt";
+
+        // set the number of subgraphs to find
+        int k = 30;
+
+        // The maximum number of edges for frequent subgraph patterns
+        int maxNumberOfEdges = Integer.MAX_VALUE;
+
+        // If true, single frequent vertices will be output
+        boolean outputSingleFrequentVertices = true;
+
+        // If true, a dot file will be output for visualization using GraphViz
+        boolean outputDotFile = false;
+
+        // Output the ids of graph containing each frequent subgraph
+        boolean outputGraphIds = true;
+
+        // Apply the algorithm
+        AlgoTKG algo = new AlgoTKG();
+        algo.runAlgorithm(input, output, k, outputSingleFrequentVertices,
+                outputDotFile, maxNumberOfEdges, outputGraphIds);
+
+        // Print statistics about the algorithm execution
+        algo.printStats();
+
+        // Compare the subgraphs found with the expected subgraphs
+        List<String> found = readPatterns(output);
+        List<String> wanted = readPatterns(expected);
+        if (found.equals(wanted)) {
+            System.out.println("The " + found.size() + " subgraphs are the expected subgraphs");
+        } else {
+            List<String> missing = new ArrayList<String>(wanted);
+            missing.removeAll(found);
+            List<String> extra = new ArrayList<String>(found);
+            extra.removeAll(wanted);
+            throw new IllegalStateException("The subgraphs are not the expected subgraphs. Missing: "
+                    + missing + " Unexpected: " + extra);
+        }
+    }
+
+    /**
+     * Read the subgraphs of an output file of TKG, ignoring their order in the file
+     *
+     * @param path the file
+     * @return a sorted list where each subgraph is a string containing its support, vertices, edges and graph ids
+     * @throws IOException if error reading the file
+     */
+    private static List<String> readPatterns(String path) throws IOException {
+        List<String> patterns = new ArrayList<String>();
+        StringBuilder pattern = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("t")) {
+                    // "t # number * support": the number of the subgraph is ignored
+                    if (pattern != null) {
+                        patterns.add(pattern.toString());
+                    }
+                    pattern = new StringBuilder("support " + line.substring(line.indexOf('*') + 1).trim());
+                } else if (line.startsWith("x")) {
+                    // the graph ids are not sorted in the file
+                    String[] ids = line.substring(1).trim().split(" ");
+                    int[] values = new int[ids.length];
+                    for (int i = 0; i < ids.length; i++) {
+                        values[i] = Integer.parseInt(ids[i]);
+                    }
+                    Arrays.sort(values);
+                    pattern.append(" | x ").append(Arrays.toString(values));
+                } else if (!line.isEmpty()) {
+                    pattern.append(" | ").append(line);
+                }
+            }
+        }
+        if (pattern != null) {
+            patterns.add(pattern.toString());
+        }
+        Collections.sort(patterns);
+        return patterns;
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestTKG_ties.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
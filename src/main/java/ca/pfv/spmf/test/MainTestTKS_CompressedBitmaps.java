@@ -0,0 +1,45 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spam.AlgoTKS;
+import ca.pfv.spmf.datastructures.bitmaps.BitmapType;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Example of how to use the TKS algorithm with compressed bitmaps in source code.
+ * The patterns found are the same as with the default bitmaps (see MainTestTKS).
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestTKS_CompressedBitmaps {
+
+    public static void main(String[] arg) throws IOException {
+        // Load a sequence database
+        String input = fileToPath("contextPrefixSpan.txt");
+        String output = ".//output.txt";
+
+        int k = 5;
+
+        // Create an instance of the algorithm
+        AlgoTKS algo = new AlgoTKS();
+
+        // Use compressed bitmaps for the vertical database
+        // (they use less memory than the default bitmaps for sparse databases)
+        algo.setBitmapType(BitmapType.COMPRESSED);
+
+        // execute the algorithm, which returns the top-k patterns
+        algo.runAlgorithm(input, output, k);
+        // save results to file
+        algo.writeResultTofile(output);
+        algo.printStatistics();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestTKS_CompressedBitmaps.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
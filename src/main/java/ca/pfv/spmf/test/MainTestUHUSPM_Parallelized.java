@@ -0,0 +1,43 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.uhuspm.AlgoUHUSPM;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Example of how to run the UHUSPM algorithm with several threads. The result
+ * is the same as with a single thread (see MainTestUHUSPM).
+ *
+ * @author Ting Li
+ */
+public class MainTestUHUSPM_Parallelized {
+
+    public static void main(String[] args) throws ClassNotFoundException, IOException {
+
+        // the path of input and output
+        String input = fileToPath("contextPHUSPM.txt");
+        String output = "output.txt";
+
+        // the parameters
+        int minUtility = 20;
+        float minProbability = (float) 1.4;
+
+        // Applying the algorithm
+        AlgoUHUSPM algorithm = new AlgoUHUSPM();
+        // the number of threads for joining the patterns of each generation
+        algorithm.setThreadCount(4);
+        algorithm.runAlgorithm(input, output, minUtility, minProbability);
+
+        //output the results
+        algorithm.printStats();
+
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestUHUSPM_Parallelized.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
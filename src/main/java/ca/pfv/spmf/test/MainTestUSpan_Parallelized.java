@@ -0,0 +1,49 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.uspan.AlgoUSpan;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This file is for testing the USpan algorithm with several threads. The same patterns
+ * are found as with a single thread (see MainTestUSpan), but possibly in another order.
+ *
+ * @author Philippe Fournier-Viger, 2015
+ * @see Sequence
+ * @see SequenceDatabase
+ */
+public class MainTestUSpan_Parallelized {
+
+    public static void main(String[] arg) throws IOException {
+        // the input database
+        String input = fileToPath("DataBase_HUSRM.txt");
+        // the path for saving the patterns found
+        String output = ".//output.txt";
+
+        // the minimum utility threshold
+        int minutil = 35;
+
+        AlgoUSpan algo = new AlgoUSpan();
+
+        // set the maximum pattern length (optional)
+        algo.setMaxPatternLength(4);
+
+        // the number of threads for exploring the items of the first level
+        algo.setThreadCount(4);
+
+        // run the algorithm
+        algo.runAlgorithm(input, output, minutil);
+
+
+        // print statistics
+        algo.printStatistics();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestUSpan_Parallelized.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+package ca.pfv.spmf.test;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.spam.AlgoVGEN;
+import ca.pfv.spmf.datastructures.bitmaps.BitmapType;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Example of how to use the VGEN algorithm with compressed bitmaps in source code.
+ * The patterns found are the same as with the default bitmaps (see MainTestVGEN_saveToFile).
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestVGEN_CompressedBitmaps_saveToFile {
+
+    public static void main(String[] arg) throws IOException {
+        // Load a sequence database
+        String input = fileToPath("contextPrefixSpan.txt");
+        String output = ".//output.txt";
+
+        // Create an instance of the algorithm
+        AlgoVGEN algo = new AlgoVGEN();
+
+        // Use compressed bitmaps for the vertical database
+        // (they use less memory than the default bitmaps for sparse databases)
+        algo.setBitmapType(BitmapType.COMPRESSED);
+
+        // execute the algorithm with minsup = 2 sequences  (50 %)
+        algo.runAlgorithm(input, output, 0.5);
+        algo.printStatistics();
+    }
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestVGEN_CompressedBitmaps_saveToFile.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}
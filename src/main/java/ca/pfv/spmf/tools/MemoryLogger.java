@@ -23,6 +23,13 @@ package ca.pfv.spmf.tools;
  * This class is used to record the maximum memory usaged of an algorithm during
  * a given execution.
  * It is implemented by using the "singleton" design pattern.
+ * <br/><br/>
+ * If a run was started with RunMetrics.start(), getInstance() returns the memory logger of
+ * that run instead of the global instance, so that algorithms running at the same time
+ * do not reset or overwrite the memory usage of each other. The memory logger of a run
+ * does not count the memory of the other runs (see RunMetrics).
+ *
+ * @see RunMetrics
  */
 public class MemoryLogger {
 
@@ -30,15 +37,36 @@ public class MemoryLogger {
     private static final MemoryLogger instance = new MemoryLogger();
 
     // variable to store the maximum memory usage
-    private double maxMemory = 0;
+    private volatile double maxMemory = 0;
+
+    // the run of this memory logger (null for the global instance)
+    private final RunMetrics run;
+
+    /**
+     * Constructor
+     */
+    public MemoryLogger() {
+        this(null);
+    }
+
+    /**
+     * Constructor of the memory logger of a run (created by RunMetrics)
+     *
+     * @param run the run
+     */
+    MemoryLogger(RunMetrics run) {
+        this.run = run;
+    }
 
     /**
      * Method to obtain the only instance of this class
+     * (or the instance of the current run, if a run is active)
      *
      * @return instance of MemoryLogger
      */
     public static MemoryLogger getInstance() {
-        return instance;
+        RunMetrics run = RunMetrics.current();
+        return run == null ? instance : run.getMemoryLogger();
     }
 
     /**
@@ -67,8 +95,21 @@ public class MemoryLogger {
         double currentMemory = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory())
                                / 1024d / 1024d;
         if (currentMemory > maxMemory) {
-            maxMemory = currentMemory;
+            // the memory of the other runs is not counted
+            recordMemory(run == null ? currentMemory : run.boundMemory(currentMemory));
         }
         return currentMemory;
     }
+
+    /**
+     * Record a memory usage if it is higher than the amount of memory previously recorded
+     * (this method may be called by another thread, e.g. when the garbage collector notifies a run).
+     *
+     * @param memory the memory usage in megabytes
+     */
+    synchronized void recordMemory(double memory) {
+        if (memory > maxMemory) {
+            maxMemory = memory;
+        }
+    }
 }
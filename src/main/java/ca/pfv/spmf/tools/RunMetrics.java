@@ -0,0 +1,573 @@
+package ca.pfv.spmf.tools;
+/*
+ *  Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class records the statistics of a single execution of an algorithm (a "run"):
+ * the peak heap memory, the memory allocated by the thread running the algorithm,
+ * the time spent in each phase of the algorithm (scan, build, mine, write) and some counters
+ * (e.g. the number of candidates and patterns).
+ * <br/><br/>
+ * A run is started by calling start() and ended by calling end(). While a run is active,
+ * MemoryLogger.getInstance() returns the MemoryLogger of the run, for the thread that started the run
+ * and the threads that it creates. Thus, the algorithms that use the MemoryLogger record their
+ * memory usage in their own run, and several algorithms can run at the same time in the same JVM
+ * without resetting the statistics of each other.
+ * <br/><br/>
+ * The MemoryLogger only checks the memory at the points where an algorithm calls checkMemory().
+ * To not miss the peaks between these points, a run also listens to the notifications of the
+ * garbage collector: between two garbage collections the heap only grows, so the heap usage before
+ * each collection is a peak.
+ * <br/><br/>
+ * The heap is shared by the whole JVM, so it also contains the memory of the other runs executed at
+ * the same time. To not count it, each heap usage recorded by a run is bounded by the heap usage at
+ * the start of the run plus the bytes allocated by the threads of the run since its start, since
+ * the run cannot have added more than that to the heap. The threads of a run are the thread that
+ * started it and the threads created during the run that use its MemoryLogger or call current().
+ * When a single run is active, the bound is normally not reached and the peak is the heap usage,
+ * as measured by the global MemoryLogger. The allocated memory only counts the allocations of the
+ * thread that started the run.
+ * <br/><br/>
+ * Example:
+ * <pre>
+ * RunMetrics metrics = RunMetrics.start("FPGrowth");
+ * try {
+ *     metrics.startPhase(RunMetrics.Phase.SCAN);
+ *     ...
+ *     metrics.setCounter(RunMetrics.PATTERNS, patternCount);
+ * } finally {
+ *     metrics.end();
+ * }
+ * System.out.println(metrics.getPhaseTimesAsString());  // or metrics.toJSON()
+ * </pre>
+ *
+ * @author Philippe Fournier-Viger
+ * @see MemoryLogger
+ */
+public class RunMetrics {
+
+    /**
+     * The phases of an algorithm
+     */
+    public enum Phase {
+        /**
+         * reading the input
+         */
+        SCAN,
+        /**
+         * building the data structures
+         */
+        BUILD,
+        /**
+         * searching for the patterns
+         */
+        MINE,
+        /**
+         * writing the output
+         */
+        WRITE
+    }
+
+    /**
+     * the name of the counter of candidates
+     */
+    public static final String CANDIDATES = "candidates";
+
+    /**
+     * the name of the counter of patterns
+     */
+    public static final String PATTERNS = "patterns";
+
+    /**
+     * the run of the current thread (the threads created during a run inherit it)
+     */
+    private static final InheritableThreadLocal<RunMetrics> currentRun = new InheritableThreadLocal<RunMetrics>();
+
+    /**
+     * the names of the memory pools of the heap
+     */
+    private static final Set<String> heapPoolNames = new HashSet<String>();
+
+    static {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPoolNames.add(pool.getName());
+            }
+        }
+    }
+
+    /**
+     * the name of the algorithm
+     */
+    private final String algorithmName;
+
+    /**
+     * the memory logger of this run
+     */
+    private final MemoryLogger memoryLogger = new MemoryLogger(this);
+
+    /**
+     * the run that was active when this run was started (restored by end())
+     */
+    private final RunMetrics previousRun;
+
+    /**
+     * the thread that started the run
+     */
+    private final long threadId;
+
+    /**
+     * the heap usage at the start of the run (bytes)
+     */
+    private final long heapUsedAtStart;
+
+    /**
+     * the bytes allocated during the run by each thread of the run (key: thread id), as observed
+     * the last time (a thread that has terminated keeps its last value)
+     */
+    private final Map<Long, Long> threadAllocatedBytes = new ConcurrentHashMap<Long, Long>();
+
+    /**
+     * the start and end time of the run (nanoseconds)
+     */
+    private final long startTime;
+    private volatile long endTime = 0;
+
+    /**
+     * the bytes allocated by the thread at the start of the run and during the run
+     * (-1 if it is not supported by the JVM)
+     */
+    private final long allocatedBytesAtStart;
+    private long allocatedBytes = -1;
+
+    /**
+     * the time of each phase (nanoseconds)
+     */
+    private final long[] phaseTimes = new long[Phase.values().length];
+
+    /**
+     * the current phase (or null) and its start time (nanoseconds)
+     */
+    private Phase currentPhase = null;
+    private long phaseStartTime = 0;
+
+    /**
+     * the counters (key: name, value: count), in the order in which they are created
+     */
+    private final Map<String, Long> counters = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+
+    /**
+     * the number of garbage collections observed during the run
+     */
+    private final AtomicLong garbageCollectionCount = new AtomicLong();
+
+    /**
+     * the garbage collectors that notify this run, and the listener
+     */
+    private final List<NotificationEmitter> emitters = new ArrayList<NotificationEmitter>();
+    private final NotificationListener gcListener = new NotificationListener() {
+        public void handleNotification(Notification notification, Object handback) {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                recordGarbageCollection(info.getGcInfo().getMemoryUsageBeforeGc());
+            }
+        }
+    };
+
+    /**
+     * Constructor (use start())
+     */
+    private RunMetrics(String algorithmName, RunMetrics previousRun) {
+        this.algorithmName = algorithmName;
+        this.previousRun = previousRun;
+        this.threadId = Thread.currentThread().threadId();
+        this.allocatedBytesAtStart = getAllocatedBytesOfCurrentThread();
+        this.heapUsedAtStart = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        threadAllocatedBytes.put(threadId, 0L);
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Start a run for the current thread. The run must be ended by calling end() in the same thread.
+     *
+     * @param algorithmName the name of the algorithm
+     * @return the run
+     */
+    public static RunMetrics start(String algorithmName) {
+        RunMetrics run = new RunMetrics(algorithmName, current());
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(run.gcListener, null, null);
+                run.emitters.add(emitter);
+            }
+        }
+        currentRun.set(run);
+        run.sampleHeap();
+        return run;
+    }
+
+    /**
+     * Get the run of the current thread
+     *
+     * @return the run or null if no run is active
+     */
+    public static RunMetrics current() {
+        RunMetrics run = currentRun.get();
+        // a thread created during a run may outlive it (e.g. a thread of a pool)
+        while (run != null && run.endTime != 0) {
+            run = run.previousRun;
+        }
+        if (run != null) {
+            // the threads created during the run are added to the threads of the run when they use it
+            long id = Thread.currentThread().threadId();
+            if (!run.threadAllocatedBytes.containsKey(id)) {
+                run.threadAllocatedBytes.putIfAbsent(id, 0L);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * End the run. The run that was active before this run becomes active again.
+     */
+    public void end() {
+        if (endTime != 0) {
+            return;
+        }
+        endPhase();
+        sampleHeap();
+        endTime = System.nanoTime();
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (javax.management.ListenerNotFoundException e) {
+                // the listener was already removed
+            }
+        }
+        emitters.clear();
+        if (Thread.currentThread().threadId() == threadId) {
+            long allocatedBytesAtEnd = getAllocatedBytesOfCurrentThread();
+            if (allocatedBytesAtStart >= 0 && allocatedBytesAtEnd >= 0) {
+                allocatedBytes = allocatedBytesAtEnd - allocatedBytesAtStart;
+            }
+            if (currentRun.get() == this) {
+                if (previousRun == null) {
+                    currentRun.remove();
+                } else {
+                    currentRun.set(previousRun);
+                }
+            }
+            // the peak is also recorded by the enclosing run (or the global MemoryLogger),
+            // for the code that reads MemoryLogger.getInstance() after an algorithm has terminated
+            MemoryLogger.getInstance().recordMemory(getPeakMemory());
+        }
+    }
+
+    /**
+     * Start a phase of the algorithm (the current phase, if any, is ended)
+     *
+     * @param phase the phase
+     */
+    public void startPhase(Phase phase) {
+        long now = System.nanoTime();
+        if (currentPhase != null) {
+            phaseTimes[currentPhase.ordinal()] += now - phaseStartTime;
+        }
+        sampleHeap();
+        currentPhase = phase;
+        phaseStartTime = now;
+    }
+
+    /**
+     * End the current phase of the algorithm
+     */
+    public void endPhase() {
+        if (currentPhase != null) {
+            phaseTimes[currentPhase.ordinal()] += System.nanoTime() - phaseStartTime;
+            currentPhase = null;
+            sampleHeap();
+        }
+    }
+
+    /**
+     * Set the value of a counter
+     *
+     * @param counter the name of the counter
+     * @param value   the value
+     */
+    public void setCounter(String counter, long value) {
+        counters.put(counter, value);
+    }
+
+    /**
+     * Get the memory logger of this run (returned by MemoryLogger.getInstance() during the run)
+     *
+     * @return the memory logger
+     */
+    MemoryLogger getMemoryLogger() {
+        return memoryLogger;
+    }
+
+    /**
+     * Get the peak heap memory observed during the run
+     *
+     * @return the memory in megabytes
+     */
+    public double getPeakMemory() {
+        return memoryLogger.getMaxMemory();
+    }
+
+    /**
+     * Record the current heap usage of the run (e.g. called periodically by another thread,
+     * to observe the peaks between the calls to checkMemory() made by the algorithm)
+     */
+    public void checkMemory() {
+        if (endTime == 0) {
+            sampleHeap();
+        }
+    }
+
+    /**
+     * Get the memory allocated by the threads of the run since its start, until now
+     *
+     * @return the memory in megabytes or -1 if it is unknown
+     */
+    public double getAllocatedMemoryOfThreads() {
+        long allocated = getAllocatedBytesOfRunThreads();
+        return allocated < 0 ? -1 : allocated / 1024d / 1024d;
+    }
+
+    /**
+     * Get the memory allocated by the thread that started the run (available when the run is ended)
+     *
+     * @return the memory in megabytes or -1 if it is unknown
+     */
+    public double getAllocatedMemory() {
+        return allocatedBytes < 0 ? -1 : allocatedBytes / 1024d / 1024d;
+    }
+
+    /**
+     * Get the total time of the run (until now if the run is not ended)
+     *
+     * @return the time in milliseconds
+     */
+    private long getTotalTime() {
+        return ((endTime == 0 ? System.nanoTime() : endTime) - startTime) / 1000000;
+    }
+
+    /**
+     * Get the time spent in a phase
+     *
+     * @param phase the phase
+     * @return the time in milliseconds
+     */
+    private long getPhaseTime(Phase phase) {
+        long time = phaseTimes[phase.ordinal()];
+        if (phase == currentPhase) {
+            time += System.nanoTime() - phaseStartTime;
+        }
+        return time / 1000000;
+    }
+
+    /**
+     * Get the time of the phases that were executed, as a String such as
+     * "scan 12 ms, build 20 ms, mine 150 ms, write 3 ms".
+     *
+     * @return the String
+     */
+    public String getPhaseTimesAsString() {
+        StringBuilder buffer = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (phaseTimes[phase.ordinal()] > 0 || phase == currentPhase) {
+                if (buffer.length() > 0) {
+                    buffer.append(", ");
+                }
+                buffer.append(phase.name().toLowerCase()).append(' ').append(getPhaseTime(phase)).append(" ms");
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Record the heap usage before a garbage collection
+     *
+     * @param usageBeforeGc the usage of each memory pool before the collection
+     */
+    private void recordGarbageCollection(Map<String, MemoryUsage> usageBeforeGc) {
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> entry : usageBeforeGc.entrySet()) {
+            if (heapPoolNames.contains(entry.getKey())) {
+                used += entry.getValue().getUsed();
+            }
+        }
+        garbageCollectionCount.incrementAndGet();
+        memoryLogger.recordMemory(boundMemory(used / 1024d / 1024d));
+    }
+
+    /**
+     * Record the current heap usage
+     */
+    private void sampleHeap() {
+        memoryLogger.recordMemory(boundMemory(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024d / 1024d));
+    }
+
+    /**
+     * Bound a heap usage observed during the run by the heap usage at the start of the run
+     * plus the bytes allocated by the threads of the run, to not count the memory of the other runs
+     *
+     * @param memory the heap usage in megabytes
+     * @return the bounded heap usage in megabytes (the heap usage if the allocations are unknown)
+     */
+    double boundMemory(double memory) {
+        long allocated = getAllocatedBytesOfRunThreads();
+        if (allocated < 0) {
+            return memory;
+        }
+        return Math.min(memory, (heapUsedAtStart + allocated) / 1024d / 1024d);
+    }
+
+    /**
+     * Get the number of bytes allocated by the threads of the run since the start of the run
+     *
+     * @return the number of bytes or -1 if it is not supported by the JVM
+     */
+    private long getAllocatedBytesOfRunThreads() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        Long[] ids = threadAllocatedBytes.keySet().toArray(new Long[0]);
+        long[] threadIds = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            threadIds[i] = ids[i];
+        }
+        long[] bytes = sunBean.getThreadAllocatedBytes(threadIds);
+        long total = 0;
+        for (int i = 0; i < threadIds.length; i++) {
+            long allocated = bytes[i];
+            if (allocated >= 0) {
+                // the thread that started the run had already allocated some bytes
+                if (threadIds[i] == threadId) {
+                    allocated -= allocatedBytesAtStart;
+                }
+                threadAllocatedBytes.put(threadIds[i], allocated);
+            } else {
+                // the thread has terminated: its last value is used
+                Long last = threadAllocatedBytes.get(threadIds[i]);
+                allocated = last == null ? 0 : last;
+            }
+            total += allocated;
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread
+     *
+     * @return the number of bytes or -1 if it is not supported by the JVM
+     */
+    private static long getAllocatedBytesOfCurrentThread() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the statistics of the run as a map (e.g. to save them in a file).
+     * The keys are: algorithm, totalTime (ms), peakMemory (mb), allocatedMemory (mb, -1 if unknown),
+     * garbageCollections, phases (a map: phase name to time in ms) and counters (a map: name to value).
+     *
+     * @return the map
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<String, Object>();
+        report.put("algorithm", algorithmName);
+        report.put("totalTime", getTotalTime());
+        report.put("peakMemory", Math.round(getPeakMemory() * 100) / 100d);
+        report.put("allocatedMemory", Math.round(getAllocatedMemory() * 100) / 100d);
+        report.put("garbageCollections", garbageCollectionCount.get());
+        Map<String, Object> phases = new LinkedHashMap<String, Object>();
+        for (Phase phase : Phase.values()) {
+            phases.put(phase.name().toLowerCase(), getPhaseTime(phase));
+        }
+        report.put("phases", phases);
+        synchronized (counters) {
+            report.put("counters", new LinkedHashMap<String, Object>(counters));
+        }
+        return report;
+    }
+
+    /**
+     * Get the statistics of the run in JSON format (see getReport() for the keys)
+     *
+     * @return the JSON text
+     */
+    public String toJSON() {
+        StringBuilder buffer = new StringBuilder();
+        appendJSON(buffer, getReport());
+        return buffer.toString();
+    }
+
+    /**
+     * Append a value of the report (a map, a number or a string) in JSON format
+     */
+    private static void appendJSON(StringBuilder buffer, Object value) {
+        if (value instanceof Map) {
+            buffer.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    buffer.append(", ");
+                }
+                first = false;
+                appendJSON(buffer, entry.getKey().toString());
+                buffer.append(": ");
+                appendJSON(buffer, entry.getValue());
+            }
+            buffer.append('}');
+        } else if (value instanceof Number) {
+            buffer.append(value);
+        } else {
+            buffer.append('"').append(value.toString().replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package ca.pfv.spmf.tools.dataset_converter;
+
+/* This file is copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import ca.pfv.spmf.experimental.iolayer.SPMFMappedFileReader;
+import ca.pfv.spmf.input.binary_database.BinaryDatabaseFile;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * This class is for converting a transaction database or a sequence database in SPMF
+ * format to the compact binary format of SPMF (see BinaryDatabaseFile). The conversion
+ * is done once, and then the binary file can be loaded by memory-mapping without parsing.
+ * <br/><br/>
+ * Transaction databases with or without utilities (the format "items:TU:utilities") and
+ * sequence databases with or without timestamps (the format "&lt;1&gt; 1 2 -1 &lt;2&gt; 3 -1 -2")
+ * are supported. All the transactions must have utilities or none of them, and each
+ * line of a sequence database must contain a single sequence ending with -2. Otherwise,
+ * an IOException is thrown.
+ *
+ * @author Philippe Fournier-Viger
+ * @see BinaryDatabaseFile
+ * @see TransactionDatabaseConverter
+ * @see SequenceDatabaseConverter
+ */
+public class BinaryDatabaseConverter {
+
+    // the offsets of the records in the packed values (computed by the first pass)
+    private int[] offsets;
+    // the number of records
+    private int recordCount;
+    // the number of itemsets (sequence database)
+    private int itemsetCount;
+    // the support of each item (key: item, value: number of records containing the item)
+    private Map<Integer, Integer> mapItemSupport;
+    // the last record where each item was seen (to count an item once per sequence)
+    private Map<Integer, Integer> mapItemLastRecord;
+    // smallest and largest items
+    private int minItem;
+    private int maxItem;
+    // the flags of the optional sections
+    private int flags;
+
+    /**
+     * Convert a transaction database in SPMF format to the binary format
+     *
+     * @param input  the path of the input file
+     * @param output the path of the binary file to be written
+     * @throws IOException if error while reading or writing files
+     */
+    public void convertTransactionDatabase(String input, String output) throws IOException {
+        resetStatistics();
+
+        // FIRST PASS: count the records, values and item supports
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+        int valueCount = 0;
+        while (reader.nextTransaction()) {
+            // the utilities are stored for all transactions or for none of them
+            if (recordCount == 0 && reader.hasUtilities()) {
+                flags |= BinaryDatabaseFile.FLAG_UTILITIES;
+            } else if (reader.hasUtilities() != ((flags & BinaryDatabaseFile.FLAG_UTILITIES) != 0)) {
+                reader.close();
+                throw new IOException("The transaction " + (recordCount + 1)
+                                      + (reader.hasUtilities() ? " has utilities but the first transaction does not"
+                                                                 : " has no utilities but the first transaction has"));
+            }
+            int[] items = reader.getItems();
+            for (int i = 0; i < reader.getItemCount(); i++) {
+                countItem(items[i]);
+            }
+            valueCount += reader.getItemCount();
+            addOffset(valueCount);
+        }
+
+        // write the header, dictionary and offsets
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw");
+             FileChannel channel = file.getChannel()) {
+            channel.truncate(0);
+            long position = writeHeader(channel, BinaryDatabaseFile.KIND_TRANSACTION_DATABASE, valueCount);
+
+            // SECOND PASS: write the values (and utilities) in their sections
+            SectionWriter valueWriter = new SectionWriter(channel, position);
+            position += 4L * valueCount;
+            SectionWriter recordUtilityWriter = new SectionWriter(channel, position);
+            position += 4L * recordCount;
+            SectionWriter utilityWriter = new SectionWriter(channel, position);
+            boolean hasUtilities = (flags & BinaryDatabaseFile.FLAG_UTILITIES) != 0;
+
+            reader.rewind();
+            while (reader.nextTransaction()) {
+                int[] items = reader.getItems();
+                int[] utilities = reader.getUtilities();
+                for (int i = 0; i < reader.getItemCount(); i++) {
+                    valueWriter.writeInt(items[i]);
+                    if (hasUtilities) {
+                        utilityWriter.writeInt(utilities[i]);
+                    }
+                }
+                if (hasUtilities) {
+                    recordUtilityWriter.writeInt(reader.getTransactionUtility());
+                }
+            }
+            valueWriter.flush();
+            recordUtilityWriter.flush();
+            utilityWriter.flush();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Convert a sequence database in SPMF format to the binary format
+     *
+     * @param input  the path of the input file
+     * @param output the path of the binary file to be written
+     * @throws IOException if error while reading or writing files
+     */
+    public void convertSequenceDatabase(String input, String output) throws IOException {
+        resetStatistics();
+
+        // FIRST PASS: count the records, values, itemsets and item supports
+        SPMFMappedFileReader reader = new SPMFMappedFileReader(input);
+        int valueCount = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            // if the line is  a comment, is  empty or is a
+            // kind of metadata
+            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
+                || line.charAt(0) == '@') {
+                continue;
+            }
+            // true when the -2 ending the sequence has been read
+            boolean sequenceEnded = false;
+            for (String token : line.split(" ")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                if (sequenceEnded) {
+                    // Each line must contain a single sequence, otherwise the offsets of the
+                    // records would not match the sequences read by the second pass
+                    reader.close();
+                    throw new IOException("The line " + lineNumber + " contains values after the -2 ending the sequence");
+                }
+                if (token.charAt(0) == '<') {
+                    flags |= BinaryDatabaseFile.FLAG_TIMESTAMPS;
+                } else if (token.equals("-1")) {
+                    valueCount++;
+                    itemsetCount++;
+                } else if (token.equals("-2")) {
+                    addOffset(valueCount);
+                    sequenceEnded = true;
+                } else {
+                    countItem(Integer.parseInt(token));
+                    valueCount++;
+                }
+            }
+            if (!sequenceEnded) {
+                reader.close();
+                throw new IOException("The sequence of line " + lineNumber + " does not end with -2");
+            }
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(output, "rw");
+             FileChannel channel = file.getChannel()) {
+            channel.truncate(0);
+            long position = writeHeader(channel, BinaryDatabaseFile.KIND_SEQUENCE_DATABASE, valueCount);
+
+            // SECOND PASS: write the values (and timestamps) in their sections
+            SectionWriter valueWriter = new SectionWriter(channel, position);
+            position += 4L * valueCount;
+            SectionWriter timestampWriter = new SectionWriter(channel, position);
+            boolean hasTimestamps = (flags & BinaryDatabaseFile.FLAG_TIMESTAMPS) != 0;
+
+            reader.rewind();
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
+                    || line.charAt(0) == '@') {
+                    continue;
+                }
+                // if there is no timestamp, the timestamp of an itemset is its position
+                long timestamp = -1;
+                int itemsetPosition = 0;
+                for (String token : line.split(" ")) {
+                    if (token.isEmpty()) {
+                        continue;
+                    }
+                    if (token.charAt(0) == '<') {
+                        timestamp = Long.parseLong(token.substring(1, token.length() - 1));
+                    } else if (token.equals("-1")) {
+                        valueWriter.writeInt(-1);
+                        if (hasTimestamps) {
+                            timestampWriter.writeLong(timestamp >= 0 ? timestamp : itemsetPosition);
+                        }
+                        itemsetPosition++;
+                        timestamp = -1;
+                    } else if (!token.equals("-2")) {
+                        valueWriter.writeInt(Integer.parseInt(token));
+                    }
+                }
+            }
+            valueWriter.flush();
+            timestampWriter.flush();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reset the statistics computed during the first pass
+     */
+    private void resetStatistics() {
+        offsets = new int[1024];
+        recordCount = 0;
+        itemsetCount = 0;
+        mapItemSupport = new HashMap<Integer, Integer>();
+        mapItemLastRecord = new HashMap<Integer, Integer>();
+        minItem = Integer.MAX_VALUE;
+        maxItem = 0;
+        flags = 0;
+    }
+
+    /**
+     * Count an occurrence of an item in the current record
+     *
+     * @param item the item
+     */
+    private void countItem(int item) {
+        // an item is counted once per record
+        Integer lastRecord = mapItemLastRecord.put(item, recordCount);
+        if (lastRecord == null || lastRecord != recordCount) {
+            Integer support = mapItemSupport.get(item);
+            mapItemSupport.put(item, support == null ? 1 : support + 1);
+        }
+        if (item < minItem) {
+            minItem = item;
+        }
+        if (item > maxItem) {
+            maxItem = item;
+        }
+    }
+
+    /**
+     * Record the end of a record
+     *
+     * @param valueCount the number of values read until now
+     */
+    private void addOffset(int valueCount) {
+        recordCount++;
+        if (recordCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[recordCount] = valueCount;
+    }
+
+    /**
+     * Write the header, the dictionary and the offsets
+     *
+     * @param channel    the channel of the output file
+     * @param kind       the kind of database
+     * @param valueCount the number of values
+     * @return the position where the values should be written
+     * @throws IOException if error while writing the file
+     */
+    private long writeHeader(FileChannel channel, int kind, int valueCount) throws IOException {
+        if (mapItemSupport.isEmpty()) {
+            minItem = 0;
+        }
+        SectionWriter writer = new SectionWriter(channel, 0);
+        writer.writeInt(BinaryDatabaseFile.MAGIC);
+        writer.writeInt(BinaryDatabaseFile.VERSION);
+        writer.writeInt(kind);
+        writer.writeInt(flags);
+        writer.writeInt(recordCount);
+        writer.writeInt(mapItemSupport.size());
+        writer.writeInt(valueCount);
+        writer.writeInt(itemsetCount);
+        writer.writeInt(minItem);
+        writer.writeInt(maxItem);
+        // reserved bytes
+        for (int i = 40; i < BinaryDatabaseFile.HEADER_SIZE; i += 4) {
+            writer.writeInt(0);
+        }
+
+        // the dictionary sorted by item
+        List<Integer> items = new ArrayList<Integer>(mapItemSupport.keySet());
+        Collections.sort(items);
+        for (Integer item : items) {
+            writer.writeInt(item);
+        }
+        for (Integer item : items) {
+            writer.writeInt(mapItemSupport.get(item));
+        }
+
+        // the offsets
+        for (int i = 0; i <= recordCount; i++) {
+            writer.writeInt(offsets[i]);
+        }
+        writer.flush();
+        return writer.getPosition();
+    }
+
+    /**
+     * A buffered writer that writes a section of the output file starting from a given position.
+     * Several sections can thus be written at the same time in a single pass over the input.
+     */
+    private static class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        private long position;
+
+        SectionWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void writeInt(int value) throws IOException {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            if (buffer.remaining() < 8) {
+                flush();
+            }
+            buffer.putLong(value);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+
+        long getPosition() {
+            return position + buffer.position();
+        }
+    }
+}
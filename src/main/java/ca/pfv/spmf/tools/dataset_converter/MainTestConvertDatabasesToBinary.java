@@ -0,0 +1,45 @@
+package ca.pfv.spmf.tools.dataset_converter;
+
+import ca.pfv.spmf.input.sequence_database_array_integers.SequenceDatabase;
+import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Example of how to convert a transaction database and a sequence database
+ * in SPMF format to the binary format of SPMF, and then to load the binary files.
+ */
+public class MainTestConvertDatabasesToBinary {
+
+    public static void main(String[] arg) throws IOException {
+
+        BinaryDatabaseConverter converter = new BinaryDatabaseConverter();
+
+        // convert a transaction database
+        String transactionFile = fileToPath("/ca/pfv/spmf/test/contextPasquier99.txt");
+        converter.convertTransactionDatabase(transactionFile, ".//output_transactions.bin");
+
+        // load the binary transaction database
+        TransactionDatabase transactionDatabase = new TransactionDatabase();
+        transactionDatabase.loadFile(".//output_transactions.bin");
+        transactionDatabase.printDatabase();
+
+        // convert a sequence database
+        String sequenceFile = fileToPath("contextPrefixSpan.txt");
+        converter.convertSequenceDatabase(sequenceFile, ".//output_sequences.bin");
+
+        // load the binary sequence database
+        SequenceDatabase sequenceDatabase = new SequenceDatabase();
+        sequenceDatabase.loadFile(".//output_sequences.bin");
+        sequenceDatabase.print();
+    }
+
+
+    public static String fileToPath(String filename) throws UnsupportedEncodingException {
+        URL url = MainTestConvertDatabasesToBinary.class.getResource(filename);
+        return java.net.URLDecoder.decode(url.getPath(), StandardCharsets.UTF_8);
+    }
+}